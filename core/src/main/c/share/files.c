@@ -190,6 +190,31 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_msync(JNIEnv *e, jclass cl, jlo
     return msync((void *) addr, len, async ? MS_ASYNC : MS_SYNC);
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0(JNIEnv *e, jclass cl, jlong addr, jlong len, jint advice) {
+    int posixAdvice;
+    switch (advice) {
+        case com_questdb_std_Files_MADV_SEQUENTIAL:
+            posixAdvice = POSIX_MADV_SEQUENTIAL;
+            break;
+        case com_questdb_std_Files_MADV_RANDOM:
+            posixAdvice = POSIX_MADV_RANDOM;
+            break;
+        case com_questdb_std_Files_MADV_WILLNEED:
+            posixAdvice = POSIX_MADV_WILLNEED;
+            break;
+        default:
+            posixAdvice = POSIX_MADV_NORMAL;
+            break;
+    }
+    // posix_madvise() returns error number instead of setting errno
+    const int err = posix_madvise((void *) addr, (size_t) len, posixAdvice);
+    if (err != 0) {
+        errno = err;
+        return -1;
+    }
+    return 0;
+}
+
 JNIEXPORT jboolean JNICALL Java_io_questdb_std_Files_remove
         (JNIEnv *e, jclass cl, jlong lpsz) {
     return (jboolean) (remove((const char *) lpsz) == 0);
@@ -281,6 +306,16 @@ JNIEXPORT jboolean JNICALL Java_io_questdb_std_Files_rename
     return (jboolean) (rename((const char *) lpszOld, (const char *) lpszNew) == 0);
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_hardLink0
+        (JNIEnv *e, jclass cls, jlong lpszSrc, jlong lpszHardLink) {
+    return link((const char *) lpszSrc, (const char *) lpszHardLink);
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fsync0
+        (JNIEnv *e, jclass cls, jlong fd) {
+    return fsync((int) fd);
+}
+
 JNIEXPORT jboolean JNICALL Java_io_questdb_std_Files_exists0
         (JNIEnv *e, jclass cls, jlong lpsz) {
     return access((const char *) lpsz, F_OK) == 0;
@@ -151,6 +151,19 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_msync(JNIEnv *e, jclass cl, jlo
     return 0;
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fsync0(JNIEnv *e, jclass cl, jlong fd) {
+    if (FlushFileBuffers((HANDLE) fd) == 0) {
+        SaveLastError();
+        return -1;
+    }
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0(JNIEnv *e, jclass cl, jlong addr, jlong len, jint advice) {
+    // access pattern hints are not supported, mapping works as is
+    return 0;
+}
+
 JNIEXPORT jboolean JNICALL Java_io_questdb_std_Files_setLastModified
         (JNIEnv *e, jclass cl, jlong lpszName, jlong millis) {
 
@@ -516,3 +529,25 @@ JNIEXPORT jboolean JNICALL Java_io_questdb_std_Files_rename(JNIEnv *e, jclass cl
     SaveLastError();
     return FALSE;
 }
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_hardLink0(JNIEnv *e, jclass cl, jlong lpszSrc, jlong lpszHardLink) {
+
+    size_t len = MultiByteToWideChar(CP_UTF8, 0, (LPCCH) lpszSrc, -1, NULL, 0);
+    if (len > 0) {
+        wchar_t buf1[len];
+        MultiByteToWideChar(CP_UTF8, 0, (LPCCH) lpszSrc, -1, buf1, len);
+
+        len = MultiByteToWideChar(CP_UTF8, 0, (LPCCH) lpszHardLink, -1, NULL, 0);
+
+        if (len > 0) {
+            wchar_t buf2[len];
+            MultiByteToWideChar(CP_UTF8, 0, (LPCCH) lpszHardLink, -1, buf2, len);
+
+            if (CreateHardLinkW(buf2, buf1, NULL)) {
+                return 0;
+            }
+        }
+    }
+    SaveLastError();
+    return -1;
+}
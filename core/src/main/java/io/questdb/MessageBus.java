@@ -28,6 +28,11 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.Sequence;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.LatestByTask;
+import io.questdb.tasks.PageFrameCopyTask;
+import io.questdb.tasks.TableBackupTask;
+import io.questdb.tasks.TableCommitTask;
+import io.questdb.tasks.TextImportTask;
 import io.questdb.tasks.VectorAggregateTask;
 
 public interface MessageBus {
@@ -43,5 +48,41 @@ public interface MessageBus {
 
     Sequence getVectorAggregateSubSequence();
 
+    RingQueue<TableCommitTask> getTableCommitQueue();
+
+    Sequence getTableCommitPubSequence();
+
+    Sequence getTableCommitSubSequence();
+
+    RingQueue<TableCommitTask> getWalCommitQueue();
+
+    Sequence getWalCommitPubSequence();
+
+    Sequence getWalCommitSubSequence();
+
+    RingQueue<TextImportTask> getTextImportQueue();
+
+    Sequence getTextImportPubSequence();
+
+    Sequence getTextImportSubSequence();
+
+    RingQueue<PageFrameCopyTask> getPageFrameCopyQueue();
+
+    Sequence getPageFrameCopyPubSequence();
+
+    Sequence getPageFrameCopySubSequence();
+
+    RingQueue<TableBackupTask> getTableBackupQueue();
+
+    Sequence getTableBackupPubSequence();
+
+    Sequence getTableBackupSubSequence();
+
+    RingQueue<LatestByTask> getLatestByQueue();
+
+    Sequence getLatestByPubSequence();
+
+    Sequence getLatestBySubSequence();
+
     CairoConfiguration getConfiguration();
 }
@@ -28,8 +28,14 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.mp.MCSequence;
 import io.questdb.mp.MPSequence;
 import io.questdb.mp.RingQueue;
+import io.questdb.mp.SCSequence;
 import io.questdb.mp.Sequence;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.LatestByTask;
+import io.questdb.tasks.PageFrameCopyTask;
+import io.questdb.tasks.TableBackupTask;
+import io.questdb.tasks.TableCommitTask;
+import io.questdb.tasks.TextImportTask;
 import io.questdb.tasks.VectorAggregateTask;
 import org.jetbrains.annotations.NotNull;
 
@@ -42,6 +48,29 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence vectorAggregatePubSeq;
     private final MCSequence vectorAggregateSubSeq;
 
+    private final RingQueue<TableCommitTask> tableCommitQueue;
+    private final MPSequence tableCommitPubSeq;
+    private final SCSequence tableCommitSubSeq;
+
+    private final RingQueue<TableCommitTask> walCommitQueue;
+    private final MPSequence walCommitPubSeq;
+    private final SCSequence walCommitSubSeq;
+
+    private final RingQueue<TextImportTask> textImportQueue;
+    private final MPSequence textImportPubSeq;
+    private final MCSequence textImportSubSeq;
+
+    private final RingQueue<PageFrameCopyTask> pageFrameCopyQueue;
+    private final MPSequence pageFrameCopyPubSeq;
+    private final MCSequence pageFrameCopySubSeq;
+
+    private final RingQueue<TableBackupTask> tableBackupQueue;
+    private final MPSequence tableBackupPubSeq;
+    private final MCSequence tableBackupSubSeq;
+
+    private final RingQueue<LatestByTask> latestByQueue;
+    private final MPSequence latestByPubSeq;
+    private final MCSequence latestBySubSeq;
 
     private final CairoConfiguration configuration;
 
@@ -56,8 +85,38 @@ public class MessageBusImpl implements MessageBus {
         this.vectorAggregatePubSeq = new MPSequence(vectorAggregateQueue.getCapacity());
         this.vectorAggregateSubSeq = new MCSequence(vectorAggregateQueue.getCapacity());
 
+        this.tableCommitQueue = new RingQueue<>(TableCommitTask::new, 1024);
+        this.tableCommitPubSeq = new MPSequence(tableCommitQueue.getCapacity());
+        this.tableCommitSubSeq = new SCSequence();
+
+        this.walCommitQueue = new RingQueue<>(TableCommitTask::new, 1024);
+        this.walCommitPubSeq = new MPSequence(walCommitQueue.getCapacity());
+        this.walCommitSubSeq = new SCSequence();
+
+        this.textImportQueue = new RingQueue<>(TextImportTask::new, 1024);
+        this.textImportPubSeq = new MPSequence(textImportQueue.getCapacity());
+        this.textImportSubSeq = new MCSequence(textImportQueue.getCapacity());
+
+        this.pageFrameCopyQueue = new RingQueue<>(PageFrameCopyTask::new, 1024);
+        this.pageFrameCopyPubSeq = new MPSequence(pageFrameCopyQueue.getCapacity());
+        this.pageFrameCopySubSeq = new MCSequence(pageFrameCopyQueue.getCapacity());
+
+        this.tableBackupQueue = new RingQueue<>(TableBackupTask::new, 1024);
+        this.tableBackupPubSeq = new MPSequence(tableBackupQueue.getCapacity());
+        this.tableBackupSubSeq = new MCSequence(tableBackupQueue.getCapacity());
+
+        this.latestByQueue = new RingQueue<>(LatestByTask::new, 1024);
+        this.latestByPubSeq = new MPSequence(latestByQueue.getCapacity());
+        this.latestBySubSeq = new MCSequence(latestByQueue.getCapacity());
+
         indexerPubSeq.then(indexerSubSeq).then(indexerPubSeq);
         vectorAggregatePubSeq.then(vectorAggregateSubSeq).then(vectorAggregatePubSeq);
+        tableCommitPubSeq.then(tableCommitSubSeq).then(tableCommitPubSeq);
+        walCommitPubSeq.then(walCommitSubSeq).then(walCommitPubSeq);
+        textImportPubSeq.then(textImportSubSeq).then(textImportPubSeq);
+        pageFrameCopyPubSeq.then(pageFrameCopySubSeq).then(pageFrameCopyPubSeq);
+        tableBackupPubSeq.then(tableBackupSubSeq).then(tableBackupPubSeq);
+        latestByPubSeq.then(latestBySubSeq).then(latestByPubSeq);
     }
 
     @Override
@@ -94,4 +153,94 @@ public class MessageBusImpl implements MessageBus {
     public Sequence getVectorAggregateSubSequence() {
         return vectorAggregateSubSeq;
     }
+
+    @Override
+    public RingQueue<TableCommitTask> getTableCommitQueue() {
+        return tableCommitQueue;
+    }
+
+    @Override
+    public Sequence getTableCommitPubSequence() {
+        return tableCommitPubSeq;
+    }
+
+    @Override
+    public Sequence getTableCommitSubSequence() {
+        return tableCommitSubSeq;
+    }
+
+    @Override
+    public RingQueue<TableCommitTask> getWalCommitQueue() {
+        return walCommitQueue;
+    }
+
+    @Override
+    public Sequence getWalCommitPubSequence() {
+        return walCommitPubSeq;
+    }
+
+    @Override
+    public Sequence getWalCommitSubSequence() {
+        return walCommitSubSeq;
+    }
+
+    @Override
+    public RingQueue<TextImportTask> getTextImportQueue() {
+        return textImportQueue;
+    }
+
+    @Override
+    public Sequence getTextImportPubSequence() {
+        return textImportPubSeq;
+    }
+
+    @Override
+    public Sequence getTextImportSubSequence() {
+        return textImportSubSeq;
+    }
+
+    @Override
+    public RingQueue<PageFrameCopyTask> getPageFrameCopyQueue() {
+        return pageFrameCopyQueue;
+    }
+
+    @Override
+    public Sequence getPageFrameCopyPubSequence() {
+        return pageFrameCopyPubSeq;
+    }
+
+    @Override
+    public Sequence getPageFrameCopySubSequence() {
+        return pageFrameCopySubSeq;
+    }
+
+    @Override
+    public RingQueue<TableBackupTask> getTableBackupQueue() {
+        return tableBackupQueue;
+    }
+
+    @Override
+    public Sequence getTableBackupPubSequence() {
+        return tableBackupPubSeq;
+    }
+
+    @Override
+    public Sequence getTableBackupSubSequence() {
+        return tableBackupSubSeq;
+    }
+
+    @Override
+    public RingQueue<LatestByTask> getLatestByQueue() {
+        return latestByQueue;
+    }
+
+    @Override
+    public Sequence getLatestByPubSequence() {
+        return latestByPubSeq;
+    }
+
+    @Override
+    public Sequence getLatestBySubSequence() {
+        return latestBySubSeq;
+    }
 }
@@ -66,6 +66,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final JsonQueryProcessorConfiguration jsonQueryProcessorConfiguration = new PropJsonQueryProcessorConfiguration();
     private final TelemetryConfiguration telemetryConfiguration = new PropTelemetryConfiguration();
     private final int commitMode;
+    private final long groupCommitLatency;
+    private final long groupCommitMaxRows;
     private final boolean httpServerEnabled;
     private final int createAsSelectRetryCount;
     private final CharSequence defaultMapType;
@@ -77,6 +79,13 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long inactiveWriterTTL;
     private final int indexValueBlockSize;
     private final int maxSwapFileCount;
+    private final long matViewCheckInterval;
+    private final long readerMappingIncrement;
+    private final long walCheckInterval;
+    private final long walApplyLag;
+    private final boolean walEnabled;
+    private final long partitionExpiryCheckInterval;
+    private final String coldRoot;
     private final int mkdirMode;
     private final int parallelIndexThreshold;
     private final int readerPoolMaxSegments;
@@ -106,6 +115,10 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long sqlLatestByRowCount;
     private final int sqlHashJoinLightValuePageSize;
     private final int sqlHashJoinLightValueMaxPages;
+    private final int sqlHashJoinMaterializeRowThreshold;
+    private final int sqlQueryLogCapacity;
+    private final long sqlSlowQueryThreshold;
+    private final boolean sqlQueryLogCpuEnabled;
     private final int sqlSortValuePageSize;
     private final int sqlSortValueMaxPages;
     private final long workStealTimeoutNanos;
@@ -126,11 +139,14 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final InputFormatConfiguration inputFormatConfiguration;
     private final LineProtoTimestampAdapter lineUdpTimestampAdapter;
     private final String inputRoot;
+    private final String sqlCopyWorkRoot;
     private final boolean lineUdpEnabled;
     private final int lineUdpOwnThreadAffinity;
     private final boolean lineUdpUnicast;
     private final boolean lineUdpOwnThread;
     private final int sqlCopyBufferSize;
+    private final long sqlCopyChunkSize;
+    private final long sqlCopyMapWindowSize;
     private final long sqlAppendPageSize;
     private final int sqlAnalyticColumnPoolCapacity;
     private final int sqlCreateTableModelPoolCapacity;
@@ -249,6 +265,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private LineProtoTimestampAdapter lineTcpTimestampAdapter;
     private int lineTcpMsgBufferSize;
     private int lineTcpMaxMeasurementSize;
+    private int lineTcpMaxFrameSize;
     private int lineTcpWriterQueueSize;
     private int lineTcpWorkerCount;
     private int[] lineTcpWorkerAffinity;
@@ -408,14 +425,23 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.defaultSymbolCacheFlag = getBoolean(properties, env, "cairo.default.symbol.cache.flag", true);
         this.defaultSymbolCapacity = getInt(properties, env, "cairo.default.symbol.capacity", 256);
         this.fileOperationRetryCount = getInt(properties, env, "cairo.file.operation.retry.count", 30);
+        this.groupCommitLatency = getLong(properties, env, "cairo.group.commit.latency", 0);
+        this.groupCommitMaxRows = getLong(properties, env, "cairo.group.commit.max.rows", 1_000_000);
         this.idleCheckInterval = getLong(properties, env, "cairo.idle.check.interval", 5 * 60 * 1000L);
         this.inactiveReaderTTL = getLong(properties, env, "cairo.inactive.reader.ttl", 120_000);
         this.inactiveWriterTTL = getLong(properties, env, "cairo.inactive.writer.ttl", 600_000);
         this.indexValueBlockSize = Numbers.ceilPow2(getIntSize(properties, env, "cairo.index.value.block.size", 256));
         this.maxSwapFileCount = getInt(properties, env, "cairo.max.swap.file.count", 30);
+        this.matViewCheckInterval = getLong(properties, env, "cairo.mat.view.check.interval", 10_000);
         this.mkdirMode = getInt(properties, env, "cairo.mkdir.mode", 509);
         this.parallelIndexThreshold = getInt(properties, env, "cairo.parallel.index.threshold", 100000);
         this.readerPoolMaxSegments = getInt(properties, env, "cairo.reader.pool.max.segments", 5);
+        this.readerMappingIncrement = Numbers.ceilPow2(getLongSize(properties, env, "cairo.reader.mapping.increment", 64 * 1024 * 1024));
+        this.walCheckInterval = getLong(properties, env, "cairo.wal.check.interval", 10_000);
+        this.walApplyLag = getLong(properties, env, "cairo.wal.apply.lag", 10_000);
+        this.walEnabled = getBoolean(properties, env, "cairo.wal.enabled", false);
+        this.partitionExpiryCheckInterval = getLong(properties, env, "cairo.partition.expiry.check.interval", 60_000);
+        this.coldRoot = getString(properties, env, "cairo.cold.root", null);
         this.spinLockTimeoutUs = getLong(properties, env, "cairo.spin.lock.timeout", 1_000_000);
         this.sqlCacheRows = getInt(properties, env, "cairo.cache.rows", 16);
         this.sqlCacheBlocks = getIntSize(properties, env, "cairo.cache.blocks", 4);
@@ -441,6 +467,10 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.sqlLatestByRowCount = getInt(properties, env, "cairo.sql.latest.by.row.count", 1000);
         this.sqlHashJoinLightValuePageSize = getIntSize(properties, env, "cairo.sql.hash.join.light.value.page.size", 1048576);
         this.sqlHashJoinLightValueMaxPages = getIntSize(properties, env, "cairo.sql.hash.join.light.value.max.pages", Integer.MAX_VALUE);
+        this.sqlHashJoinMaterializeRowThreshold = getInt(properties, env, "cairo.sql.hash.join.materialize.row.threshold", 1024);
+        this.sqlQueryLogCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.sql.query.log.capacity", 256));
+        this.sqlSlowQueryThreshold = getLong(properties, env, "cairo.sql.slow.query.threshold", 1000);
+        this.sqlQueryLogCpuEnabled = getBoolean(properties, env, "cairo.sql.query.log.cpu.enabled", false);
         this.sqlSortValuePageSize = getIntSize(properties, env, "cairo.sql.sort.value.page.size", 16777216);
         this.sqlSortValueMaxPages = getIntSize(properties, env, "cairo.sql.sort.value.max.pages", Integer.MAX_VALUE);
         this.workStealTimeoutNanos = getLong(properties, env, "cairo.work.steal.timeout.nanos", 10_000);
@@ -455,6 +485,8 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.sqlInsertModelPoolCapacity = getInt(properties, env, "cairo.sql.insert.model.pool.capacity", 64);
         this.sqlCopyModelPoolCapacity = getInt(properties, env, "cairo.sql.copy.model.pool.capacity", 32);
         this.sqlCopyBufferSize = getIntSize(properties, env, "cairo.sql.copy.buffer.size", 2 * 1024 * 1024);
+        this.sqlCopyChunkSize = getLongSize(properties, env, "cairo.sql.copy.chunk.size", 64 * 1024 * 1024);
+        this.sqlCopyMapWindowSize = getLongSize(properties, env, "cairo.sql.copy.map.window.size", 64 * 1024 * 1024);
         long sqlAppendPageSize = getLongSize(properties, env, "cairo.sql.append.page.size", 16 * 1024 * 1024);
         // round the append page size to the OS page size
         final long osPageSize = FilesFacadeImpl.INSTANCE.getPageSize();
@@ -497,6 +529,7 @@ public class PropServerConfiguration implements ServerConfiguration {
         }
 
         this.inputRoot = getString(properties, env, "cairo.sql.copy.root", null);
+        this.sqlCopyWorkRoot = getString(properties, env, "cairo.sql.copy.work.root", null);
         this.backupRoot = getString(properties, env, "cairo.sql.backup.root", null);
         this.backupDirTimestampFormat = getTimestampFormat(properties, env, "cairo.sql.backup.dir.datetime.format", "yyyy-MM-dd");
         this.backupTempDirName = getString(properties, env, "cairo.sql.backup.dir.tmp.name", "tmp");
@@ -541,6 +574,11 @@ public class PropServerConfiguration implements ServerConfiguration {
                 throw new IllegalArgumentException(
                         "line.tcp.max.measurement.size (" + this.lineTcpMaxMeasurementSize + ") cannot be more than line.tcp.msg.buffer.size (" + this.lineTcpMsgBufferSize + ")");
             }
+            this.lineTcpMaxFrameSize = getIntSize(properties, env, "line.tcp.max.frame.size", 1024 * 1024);
+            if (lineTcpMaxFrameSize < lineTcpMsgBufferSize) {
+                throw new IllegalArgumentException(
+                        "line.tcp.max.frame.size (" + this.lineTcpMaxFrameSize + ") cannot be less than line.tcp.msg.buffer.size (" + this.lineTcpMsgBufferSize + ")");
+            }
             this.lineTcpWriterQueueSize = getIntSize(properties, env, "line.tcp.writer.queue.size", 128);
             this.lineTcpWorkerCount = getInt(properties, env, "line.tcp.worker.count", 0);
             this.lineTcpWorkerAffinity = getAffinity(properties, env, "line.tcp.worker.affinity", lineTcpWorkerCount);
@@ -1104,6 +1142,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlCopyBufferSize;
         }
 
+        @Override
+        public long getSqlCopyChunkSize() {
+            return sqlCopyChunkSize;
+        }
+
+        @Override
+        public long getSqlCopyMapWindowSize() {
+            return sqlCopyMapWindowSize;
+        }
+
         @Override
         public int getCopyPoolCapacity() {
             return sqlCopyModelPoolCapacity;
@@ -1144,6 +1192,36 @@ public class PropServerConfiguration implements ServerConfiguration {
             return idleCheckInterval;
         }
 
+        @Override
+        public long getMatViewCheckInterval() {
+            return matViewCheckInterval;
+        }
+
+        @Override
+        public long getReaderMappingIncrement() {
+            return readerMappingIncrement;
+        }
+
+        @Override
+        public long getWalCheckInterval() {
+            return walCheckInterval;
+        }
+
+        @Override
+        public long getWalApplyLag() {
+            return walApplyLag;
+        }
+
+        @Override
+        public long getPartitionExpiryCheckInterval() {
+            return partitionExpiryCheckInterval;
+        }
+
+        @Override
+        public CharSequence getColdRoot() {
+            return coldRoot;
+        }
+
         @Override
         public long getInactiveReaderTTL() {
             return inactiveReaderTTL;
@@ -1214,6 +1292,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return inputRoot;
         }
 
+        @Override
+        public CharSequence getSqlCopyWorkRoot() {
+            return sqlCopyWorkRoot;
+        }
+
         @Override
         public CharSequence getBackupRoot() {
             return backupRoot;
@@ -1349,6 +1432,26 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlHashJoinLightValueMaxPages;
         }
 
+        @Override
+        public int getSqlHashJoinMaterializeRowThreshold() {
+            return sqlHashJoinMaterializeRowThreshold;
+        }
+
+        @Override
+        public int getSqlQueryLogCapacity() {
+            return sqlQueryLogCapacity;
+        }
+
+        @Override
+        public boolean isSqlQueryLogCpuEnabled() {
+            return sqlQueryLogCpuEnabled;
+        }
+
+        @Override
+        public long getSqlSlowQueryThreshold() {
+            return sqlSlowQueryThreshold;
+        }
+
         @Override
         public int getSqlSortValuePageSize() {
             return sqlSortValuePageSize;
@@ -1374,6 +1477,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isWalEnabled() {
+            return walEnabled;
+        }
+
         @Override
         public int getSqlJoinMetadataPageSize() {
             return sqlJoinMetadataPageSize;
@@ -1419,6 +1527,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return commitMode;
         }
 
+        @Override
+        public long getGroupCommitLatency() {
+            return groupCommitLatency;
+        }
+
+        @Override
+        public long getGroupCommitMaxRows() {
+            return groupCommitMaxRows;
+        }
+
         @Override
         public DateLocale getDefaultDateLocale() {
             return dateLocale;
@@ -1679,6 +1797,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineTcpMaxMeasurementSize;
         }
 
+        @Override
+        public int getMaxFrameSize() {
+            return lineTcpMaxFrameSize;
+        }
+
         @Override
         public NetworkFacade getNetworkFacade() {
             return NetworkFacadeImpl.INSTANCE;
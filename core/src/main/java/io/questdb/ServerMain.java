@@ -33,9 +33,11 @@ import io.questdb.cutlass.line.udp.LinuxMMLineProtoReceiver;
 import io.questdb.cutlass.pgwire.PGWireServer;
 import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.MatViewRefreshJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.log.LogRecord;
+import io.questdb.mp.Job;
 import io.questdb.mp.WorkerPool;
 import io.questdb.network.NetworkError;
 import io.questdb.std.*;
@@ -147,6 +149,8 @@ public class ServerMain {
         LogFactory.configureFromSystemProperties(workerPool);
         final CairoEngine cairoEngine = new CairoEngine(configuration.getCairoConfiguration());
         workerPool.assign(cairoEngine.getWriterMaintenanceJob());
+        workerPool.assign(0, cairoEngine.getWalApplyJob());
+        workerPool.assign(0, cairoEngine.getPartitionExpiryJob());
         // The TelemetryJob is always needed (even when telemetry is off) because it is responsible for
         // updating the telemetry_config table.
         final TelemetryJob telemetryJob = new TelemetryJob(cairoEngine, functionFactoryCache);
@@ -155,6 +159,10 @@ public class ServerMain {
             workerPool.assign(telemetryJob);
         }
 
+        final MatViewRefreshJob matViewRefreshJob = new MatViewRefreshJob(cairoEngine, functionFactoryCache);
+        workerPool.assign(0, (Job) matViewRefreshJob);
+        workerPool.assign(0, (Closeable) matViewRefreshJob);
+
         try {
             final HttpServer httpServer = HttpServer.create(
                     configuration.getHttpServerConfiguration(),
@@ -59,6 +59,13 @@ public abstract class AbstractIndexReader implements BitmapIndexReader {
         return keyCountIncludingNulls;
     }
 
+    @Override
+    public void prepareConcurrentRead() {
+        updateKeyCount();
+        keyMem.growToFileSize();
+        valueMem.growToFileSize();
+    }
+
     @Override
     public boolean isOpen() {
         return keyMem.getFd() != -1;
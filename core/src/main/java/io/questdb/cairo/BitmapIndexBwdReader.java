@@ -64,6 +64,23 @@ public class BitmapIndexBwdReader extends AbstractIndexReader {
         return EmptyRowCursor.INSTANCE;
     }
 
+    @Override
+    public RowCursor getCursor(RowCursor reusable, int key, long minValue, long maxValue) {
+        // null cursor is rare, only regular cursor is reused
+        if ((key == 0 && unIndexedNullCount > 0) || key >= keyCount) {
+            return getCursor(false, key, minValue, maxValue);
+        }
+
+        final Cursor cursor;
+        if (reusable instanceof Cursor && !(reusable instanceof NullCursor) && ((Cursor) reusable).getReader() == this) {
+            cursor = (Cursor) reusable;
+        } else {
+            cursor = new Cursor();
+        }
+        cursor.of(key, minValue, maxValue, keyCount);
+        return cursor;
+    }
+
     private Cursor getCursor(boolean cachedInstance) {
         return cachedInstance ? cursor : new Cursor();
     }
@@ -106,6 +123,10 @@ public class BitmapIndexBwdReader extends AbstractIndexReader {
             return next;
         }
 
+        private BitmapIndexBwdReader getReader() {
+            return BitmapIndexBwdReader.this;
+        }
+
         private long getPreviousBlock(long currentValueBlockOffset) {
             return valueMem.getLong(currentValueBlockOffset + blockCapacity - BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED);
         }
@@ -51,7 +51,30 @@ public interface BitmapIndexReader extends Closeable {
      */
     RowCursor getCursor(boolean cachedInstance, int key, long minValue, long maxValue);
 
+    /**
+     * Same as {@link #getCursor(boolean, int, long, long)}, except that cursor previously returned by
+     * this reader is positioned on the key instead of new instance. Threads reading shared reader
+     * keep cursor each and do not allocate per key.
+     *
+     * @param reusable cursor to reuse, may be null or belong to another reader
+     * @param key      index key
+     * @param minValue inclusive minimum value
+     * @param maxValue inclusive maximum value
+     * @return index value cursor, it may or may not be same instance as reusable
+     */
+    default RowCursor getCursor(RowCursor reusable, int key, long minValue, long maxValue) {
+        return getCursor(false, key, minValue, maxValue);
+    }
+
     int getKeyCount();
 
+    /**
+     * Refreshes key count and maps index files in their entirety. When index is no longer written to,
+     * cursors for keys below key count do not change state of the reader after this call and can be
+     * obtained concurrently, as long as cached instances are not used.
+     */
+    default void prepareConcurrentRead() {
+    }
+
     boolean isOpen();
 }
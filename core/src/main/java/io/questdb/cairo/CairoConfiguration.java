@@ -38,6 +38,10 @@ public interface CairoConfiguration {
 
     int getSqlCopyBufferSize();
 
+    long getSqlCopyChunkSize();
+
+    long getSqlCopyMapWindowSize();
+
     int getCopyPoolCapacity();
 
     int getCreateAsSelectRetryCount();
@@ -60,6 +64,20 @@ public interface CairoConfiguration {
 
     int getIndexValueBlockSize();
 
+    long getMatViewCheckInterval();
+
+    long getReaderMappingIncrement();
+
+    long getWalCheckInterval();
+
+    // rows within the lag from the newest committed row can wait for older rows of other WAL writers, in milliseconds
+    long getWalApplyLag();
+
+    long getPartitionExpiryCheckInterval();
+
+    // null disables moving partitions to cold root
+    CharSequence getColdRoot();
+
     int getDoubleToStrCastScale();
 
     int getFloatToStrCastScale();
@@ -83,6 +101,9 @@ public interface CairoConfiguration {
     // null input root disables "copy" sql
     CharSequence getInputRoot();
 
+    // null makes parallel "copy" keep its temporary files under input root
+    CharSequence getSqlCopyWorkRoot();
+
     // null disables backups
     CharSequence getBackupRoot();
 
@@ -138,6 +159,13 @@ public interface CairoConfiguration {
 
     int getSqlHashJoinLightValueMaxPages();
 
+    int getSqlHashJoinMaterializeRowThreshold();
+
+    int getSqlQueryLogCapacity();
+
+    // queries that take longer than this number of milliseconds are written to server log
+    long getSqlSlowQueryThreshold();
+
     int getSqlSortValuePageSize();
 
     int getSqlSortValueMaxPages();
@@ -148,6 +176,12 @@ public interface CairoConfiguration {
 
     boolean isParallelIndexingEnabled();
 
+    // when enabled, ingestion protocols write to tables through write-ahead log
+    boolean isWalEnabled();
+
+    // measuring CPU time of query threads adds several system calls to every query
+    boolean isSqlQueryLogCpuEnabled();
+
     /**
      * This holds table metadata, which is usually quite small. 16K page should be adequate.
      *
@@ -171,6 +205,10 @@ public interface CairoConfiguration {
 
     int getCommitMode();
 
+    long getGroupCommitLatency();
+
+    long getGroupCommitMaxRows();
+
     DateLocale getDefaultDateLocale();
 
     TimestampLocale getDefaultTimestampLocale();
@@ -30,13 +30,13 @@ import io.questdb.cairo.pool.PoolListener;
 import io.questdb.cairo.pool.ReaderPool;
 import io.questdb.cairo.pool.WriterPool;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
+import io.questdb.griffin.QueryLog;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Gauge;
+import io.questdb.metrics.Metrics;
 import io.questdb.mp.*;
-import io.questdb.std.Files;
-import io.questdb.std.FilesFacade;
-import io.questdb.std.Misc;
-import io.questdb.std.Transient;
+import io.questdb.std.*;
 import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.str.Path;
 import io.questdb.tasks.TelemetryTask;
@@ -53,27 +53,39 @@ public class CairoEngine implements Closeable {
     private final ReaderPool readerPool;
     private final CairoConfiguration configuration;
     private final WriterMaintenanceJob writerMaintenanceJob;
+    private final WalApplyJob walApplyJob;
+    private final PartitionExpiryJob partitionExpiryJob;
     private final MessageBus messageBus;
     private final RingQueue<TelemetryTask> telemetryQueue;
     private final MPSequence telemetryPubSeq;
     private final SCSequence telemetrySubSeq;
+    private final QueryLog queryLog;
+    private final Metrics metrics;
+    private final ConcurrentHashMap<WalWatermark> walWatermarks = new ConcurrentHashMap<>();
 
     public CairoEngine(CairoConfiguration configuration) {
         this.configuration = configuration;
         this.messageBus = new MessageBusImpl(configuration);
-        this.writerPool = new WriterPool(configuration, messageBus);
+        this.metrics = new Metrics();
+        this.writerPool = new WriterPool(configuration, messageBus, metrics);
         this.readerPool = new ReaderPool(configuration);
         this.writerMaintenanceJob = new WriterMaintenanceJob(configuration);
+        this.walApplyJob = new WalApplyJob(this);
+        this.partitionExpiryJob = new PartitionExpiryJob(this);
         this.telemetryQueue = new RingQueue<>(TelemetryTask::new, configuration.getTelemetryConfiguration().getQueueCapacity());
         this.telemetryPubSeq = new MPSequence(telemetryQueue.getCapacity());
         this.telemetrySubSeq = new SCSequence();
         telemetryPubSeq.then(telemetrySubSeq).then(telemetryPubSeq);
+        this.queryLog = new QueryLog(configuration);
+        bindMetrics();
     }
 
     @Override
     public void close() {
         Misc.free(writerPool);
         Misc.free(readerPool);
+        Misc.free(walApplyJob);
+        Misc.free(partitionExpiryJob);
     }
 
     public void creatTable(
@@ -119,6 +131,14 @@ public class CairoEngine implements Closeable {
         return messageBus;
     }
 
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public QueryLog getQueryLog() {
+        return queryLog;
+    }
+
     public PoolListener getPoolListener() {
         return this.writerPool.getPoolListener();
     }
@@ -178,6 +198,20 @@ public class CairoEngine implements Closeable {
         return telemetrySubSeq;
     }
 
+    /**
+     * Returns writer ingestion protocols append rows with. It is {@link WalWriter} when write-ahead log is enabled,
+     * see {@link CairoConfiguration#isWalEnabled()}, and pooled {@link TableWriter} otherwise.
+     */
+    public TableWriterAPI getTableWriterAPI(
+            CairoSecurityContext securityContext,
+            CharSequence tableName
+    ) {
+        if (configuration.isWalEnabled()) {
+            return getWalWriter(securityContext, tableName);
+        }
+        return getWriter(securityContext, tableName);
+    }
+
     public TableWriter getWriter(
             CairoSecurityContext securityContext,
             CharSequence tableName
@@ -186,10 +220,46 @@ public class CairoEngine implements Closeable {
         return writerPool.get(tableName);
     }
 
+    /**
+     * Opens new write-ahead log segment of the table. Unlike writers returned by {@link #getWriter(CairoSecurityContext, CharSequence)}
+     * WAL writers are not pooled and any number of them can be open for the same table at the same time.
+     * Committed rows become visible to readers after they are applied by {@link #getWalApplyJob()}.
+     */
+    public WalWriter getWalWriter(
+            CairoSecurityContext securityContext,
+            CharSequence tableName
+    ) {
+        securityContext.checkWritePermission();
+        return new WalWriter(configuration, tableName, messageBus, getWalWatermark(tableName));
+    }
+
+    public Job getWalApplyJob() {
+        return walApplyJob;
+    }
+
+    WalWatermark getWalWatermark(CharSequence tableName) {
+        WalWatermark watermark = walWatermarks.get(tableName);
+        if (watermark == null) {
+            watermark = new WalWatermark();
+            final WalWatermark other = walWatermarks.putIfAbsent(Chars.toString(tableName), watermark);
+            if (other != null) {
+                watermark = other;
+            }
+        }
+        return watermark;
+    }
+
     public Job getWriterMaintenanceJob() {
         return writerMaintenanceJob;
     }
 
+    /**
+     * Removes partitions of tables created with time-to-live once they expire.
+     */
+    public Job getPartitionExpiryJob() {
+        return partitionExpiryJob;
+    }
+
     public boolean lock(
             CairoSecurityContext securityContext,
             CharSequence tableName
@@ -263,6 +333,8 @@ public class CairoEngine implements Closeable {
                     LOG.error().$("remove failed [tableName='").utf8(tableName).$("', error=").$(error).$(']').$();
                     throw CairoException.instance(error).put("Table remove failed");
                 }
+                removeColdDirectory(path, tableName);
+                walWatermarks.remove(tableName);
                 return;
             } finally {
                 unlock(securityContext, tableName, null);
@@ -288,6 +360,7 @@ public class CairoEngine implements Closeable {
         if (lock(securityContext, tableName)) {
             try {
                 rename0(path, tableName, otherPath, newName);
+                walWatermarks.remove(tableName);
             } finally {
                 unlock(securityContext, tableName, null);
             }
@@ -314,6 +387,37 @@ public class CairoEngine implements Closeable {
         writerPool.unlock(tableName);
     }
 
+    private static long queueDepth(Sequence pubSeq, Sequence subSeq) {
+        return Math.max(0, pubSeq.current() - subSeq.current());
+    }
+
+    private void bindMetrics() {
+        final Gauge poolBusy = metrics.getPoolBusy();
+        poolBusy.setProvider(Metrics.POOL_WRITER, writerPool::getBusyCount);
+        poolBusy.setProvider(Metrics.POOL_READER, readerPool::getBusyCount);
+
+        final Gauge queueDepth = metrics.getQueueDepth();
+        queueDepth.setProvider(Metrics.QUEUE_INDEXER, () -> queueDepth(messageBus.getIndexerPubSequence(), messageBus.getIndexerSubSequence()));
+        queueDepth.setProvider(Metrics.QUEUE_VECTOR_AGGREGATE, () -> queueDepth(messageBus.getVectorAggregatePubSequence(), messageBus.getVectorAggregateSubSequence()));
+        queueDepth.setProvider(Metrics.QUEUE_TABLE_COMMIT, () -> queueDepth(messageBus.getTableCommitPubSequence(), messageBus.getTableCommitSubSequence()));
+        queueDepth.setProvider(Metrics.QUEUE_WAL_COMMIT, () -> queueDepth(messageBus.getWalCommitPubSequence(), messageBus.getWalCommitSubSequence()));
+        queueDepth.setProvider(Metrics.QUEUE_TEXT_IMPORT, () -> queueDepth(messageBus.getTextImportPubSequence(), messageBus.getTextImportSubSequence()));
+        queueDepth.setProvider(Metrics.QUEUE_PAGE_FRAME_COPY, () -> queueDepth(messageBus.getPageFrameCopyPubSequence(), messageBus.getPageFrameCopySubSequence()));
+        queueDepth.setProvider(Metrics.QUEUE_TABLE_BACKUP, () -> queueDepth(messageBus.getTableBackupPubSequence(), messageBus.getTableBackupSubSequence()));
+        queueDepth.setProvider(Metrics.QUEUE_LATEST_BY, () -> queueDepth(messageBus.getLatestByPubSequence(), messageBus.getLatestBySubSequence()));
+    }
+
+    private void removeColdDirectory(Path path, CharSequence tableName) {
+        final CharSequence coldRoot = configuration.getColdRoot();
+        if (coldRoot != null) {
+            final FilesFacade ff = configuration.getFilesFacade();
+            path.of(coldRoot).concat(tableName).$();
+            if (ff.exists(path) && !ff.rmdir(path)) {
+                LOG.error().$("could not remove cold partitions [path=").$(path).$(", error=").$(ff.errno()).$(']').$();
+            }
+        }
+    }
+
     private void rename0(Path path, CharSequence tableName, Path otherPath, CharSequence to) {
         final FilesFacade ff = configuration.getFilesFacade();
         final CharSequence root = configuration.getRoot();
@@ -331,32 +435,74 @@ public class CairoEngine implements Closeable {
             throw CairoException.instance(0).put("Rename target exists");
         }
 
+        // partitions on cold root are renamed first, so that failure to rename them leaves table intact
+        final boolean coldRenamed = renameColdDirectory(path, tableName, otherPath, to);
+
+        path.of(root).concat(tableName).$();
+        otherPath.of(root).concat(to).$();
+        if (!ff.rename(path, otherPath)) {
+            int error = ff.errno();
+            LOG.error().$("rename failed [from='").$(path).$("', to='").$(otherPath).$("', error=").$(error).$(']').$();
+            if (coldRenamed) {
+                renameColdDirectory(otherPath, to, path, tableName);
+            }
+            throw CairoException.instance(error).put("Rename failed");
+        }
+    }
+
+    private boolean renameColdDirectory(Path path, CharSequence tableName, Path otherPath, CharSequence to) {
+        final CharSequence coldRoot = configuration.getColdRoot();
+        if (coldRoot == null) {
+            return false;
+        }
+
+        final FilesFacade ff = configuration.getFilesFacade();
+        path.of(coldRoot).concat(tableName).$();
+        if (!ff.exists(path)) {
+            return false;
+        }
+
+        otherPath.of(coldRoot).concat(to).$();
+        if (ff.exists(otherPath)) {
+            LOG.error().$("rename target exists [from='").$(path).$("', to='").$(otherPath).$("']").$();
+            throw CairoException.instance(0).put("Rename target exists");
+        }
+
         if (!ff.rename(path, otherPath)) {
             int error = ff.errno();
             LOG.error().$("rename failed [from='").$(path).$("', to='").$(otherPath).$("', error=").$(error).$(']').$();
             throw CairoException.instance(error).put("Rename failed");
         }
+        return true;
     }
 
     private class WriterMaintenanceJob extends SynchronizedJob {
 
         private final MicrosecondClock clock;
         private final long checkInterval;
+        private final long groupCommitLatency;
         private long last = 0;
+        private long lastSync = 0;
 
         public WriterMaintenanceJob(CairoConfiguration configuration) {
             this.clock = configuration.getMicrosecondClock();
             this.checkInterval = configuration.getIdleCheckInterval() * 1000;
+            this.groupCommitLatency = configuration.getGroupCommitLatency() * 1000;
         }
 
         @Override
         protected boolean runSerially() {
             long t = clock.getTicks();
+            boolean useful = false;
+            if (groupCommitLatency > 0 && lastSync + groupCommitLatency <= t) {
+                lastSync = t;
+                useful = writerPool.syncPendingCommits();
+            }
             if (last + checkInterval < t) {
                 last = t;
-                return releaseInactive();
+                useful |= releaseInactive();
             }
-            return false;
+            return useful;
         }
     }
 }
@@ -45,5 +45,7 @@ public interface ColumnIndexer {
 
     void rollback(long maxRow);
 
+    void setLatestRowWriter(LatestRowWriter latestRowWriter);
+
     boolean tryLock(long expectedSequence);
 }
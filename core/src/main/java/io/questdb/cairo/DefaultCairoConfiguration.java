@@ -50,6 +50,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024 * 1024;
     }
 
+    @Override
+    public long getSqlCopyChunkSize() {
+        return 16 * 1024 * 1024;
+    }
+
+    @Override
+    public long getSqlCopyMapWindowSize() {
+        return 16 * 1024 * 1024;
+    }
+
     @Override
     public int getCopyPoolCapacity() {
         return 16;
@@ -90,6 +100,36 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 100;
     }
 
+    @Override
+    public long getMatViewCheckInterval() {
+        return 100;
+    }
+
+    @Override
+    public long getReaderMappingIncrement() {
+        return 1024 * 1024;
+    }
+
+    @Override
+    public long getWalCheckInterval() {
+        return 100;
+    }
+
+    @Override
+    public long getWalApplyLag() {
+        return 10_000;
+    }
+
+    @Override
+    public long getPartitionExpiryCheckInterval() {
+        return 100;
+    }
+
+    @Override
+    public CharSequence getColdRoot() {
+        return null;
+    }
+
     @Override
     public long getInactiveReaderTTL() {
         return -10000;
@@ -160,6 +200,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return null;
     }
 
+    @Override
+    public CharSequence getSqlCopyWorkRoot() {
+        return null;
+    }
+
     @Override
     public CharSequence getBackupRoot() {
         return null;
@@ -297,6 +342,26 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024;
     }
 
+    @Override
+    public int getSqlHashJoinMaterializeRowThreshold() {
+        return 1024;
+    }
+
+    @Override
+    public int getSqlQueryLogCapacity() {
+        return 256;
+    }
+
+    @Override
+    public boolean isSqlQueryLogCpuEnabled() {
+        return false;
+    }
+
+    @Override
+    public long getSqlSlowQueryThreshold() {
+        return 1000;
+    }
+
     @Override
     public int getSqlSortValuePageSize() {
         return Numbers.SIZE_1MB * 16;
@@ -322,6 +387,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isWalEnabled() {
+        return false;
+    }
+
     @Override
     public int getSqlJoinMetadataPageSize() {
         return 16 * 1024;
@@ -367,6 +437,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return CommitMode.NOSYNC;
     }
 
+    @Override
+    public long getGroupCommitLatency() {
+        return 0;
+    }
+
+    @Override
+    public long getGroupCommitMaxRows() {
+        return 1_000_000;
+    }
+
     @Override
     public DateLocale getDefaultDateLocale() {
         return DateFormatUtils.enLocale;
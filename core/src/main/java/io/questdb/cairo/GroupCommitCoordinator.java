@@ -0,0 +1,148 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.ObjList;
+import io.questdb.std.NanosecondClock;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Process-wide group commit of {@link CommitMode#SYNC} commits. Committer that finds no open group
+ * becomes its leader. Leader waits for group commit window to elapse, while committers of other tables
+ * join the group. Leader then syncs files of every member and wakes them up. Members are blocked in
+ * their commit until then, which is why it is safe for leader to sync their writers.
+ */
+final class GroupCommitCoordinator {
+    private static final Object lock = new Object();
+    private static final ObjList<Group> freeGroups = new ObjList<>();
+    private static Group openGroup;
+
+    private GroupCommitCoordinator() {
+    }
+
+    /**
+     * Syncs all transactions writer has committed with deferred sync. Returns once sync has completed.
+     *
+     * @param writer      writer, which has published its transactions
+     * @param clock       clock to measure window with
+     * @param windowNanos time leader waits for other committers to join the group
+     */
+    static void sync(TableWriter writer, NanosecondClock clock, long windowNanos) {
+        final Group group;
+        final int index;
+        synchronized (lock) {
+            if (openGroup != null) {
+                awaitGroup(openGroup, openGroup.add(writer));
+                return;
+            }
+            final int n = freeGroups.size();
+            if (n > 0) {
+                group = freeGroups.getQuick(n - 1);
+                freeGroups.remove(n - 1);
+            } else {
+                group = new Group();
+            }
+            index = group.add(writer);
+            openGroup = group;
+        }
+
+        final long deadline = clock.getTicks() + windowNanos;
+        long remaining;
+        while ((remaining = deadline - clock.getTicks()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+
+        synchronized (lock) {
+            openGroup = null;
+        }
+
+        // members cannot join the group anymore, sync outside of lock
+        for (int i = 0, n = group.writers.size(); i < n; i++) {
+            try {
+                group.writers.getQuick(i).syncPendingCommit();
+            } catch (Throwable e) {
+                group.errors.setQuick(i, e);
+            }
+        }
+
+        synchronized (lock) {
+            group.done = true;
+            lock.notifyAll();
+            complete(group, index);
+        }
+    }
+
+    private static void awaitGroup(Group group, int index) {
+        boolean interrupted = false;
+        while (!group.done) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                // sync must complete before commit returns
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        complete(group, index);
+    }
+
+    private static void complete(Group group, int index) {
+        final Throwable e = group.errors.getQuick(index);
+        if (--group.pending == 0) {
+            group.clear();
+            freeGroups.add(group);
+        }
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+    }
+
+    private static class Group {
+        private final ObjList<TableWriter> writers = new ObjList<>();
+        private final ObjList<Throwable> errors = new ObjList<>();
+        private int pending;
+        private boolean done;
+
+        private int add(TableWriter writer) {
+            writers.add(writer);
+            errors.add(null);
+            pending++;
+            return writers.size() - 1;
+        }
+
+        private void clear() {
+            writers.clear();
+            errors.clear();
+            done = false;
+        }
+    }
+}
@@ -25,10 +25,12 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.std.LongList;
 
 public class IntervalBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
     private final IntervalBwdDataFrameCursor cursor;
+    private final LongList intervals;
 
     public IntervalBwdDataFrameCursorFactory(
             CairoEngine engine,
@@ -39,6 +41,7 @@ public class IntervalBwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
     ) {
         super(engine, tableName, tableVersion);
         this.cursor = new IntervalBwdDataFrameCursor(intervals, timestampIndex);
+        this.intervals = intervals;
     }
 
     @Override
@@ -46,4 +49,10 @@ public class IntervalBwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
         cursor.of(getReader(securityContext));
         return cursor;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.attr("intervals").intervals(intervals);
+    }
 }
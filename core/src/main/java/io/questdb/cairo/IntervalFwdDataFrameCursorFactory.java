@@ -25,10 +25,12 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.std.LongList;
 
 public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
     private final IntervalFwdDataFrameCursor cursor;
+    private final LongList intervals;
 
     public IntervalFwdDataFrameCursorFactory(
             CairoEngine engine,
@@ -39,6 +41,7 @@ public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
     ) {
         super(engine, tableName, tableVersion);
         this.cursor = new IntervalFwdDataFrameCursor(intervals, timestampIndex);
+        this.intervals = intervals;
     }
 
     @Override
@@ -46,4 +49,10 @@ public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
         cursor.of(getReader(securityContext));
         return cursor;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.attr("intervals").intervals(intervals);
+    }
 }
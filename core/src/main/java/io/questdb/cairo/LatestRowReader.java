@@ -0,0 +1,162 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.FilesFacade;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Rows;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Reads latest row per key of indexed symbol column maintained by {@link LatestRowWriter}. Entries are
+ * validated against reader snapshot, those pointing at rows reader cannot see or at removed partitions
+ * are reported as {@link #ROW_UNKNOWN} and have to be looked up via index.
+ */
+public class LatestRowReader implements Closeable {
+    public static final long ROW_NOT_FOUND = -1;
+    public static final long ROW_UNKNOWN = -2;
+    private static final int READ_ATTEMPTS = 8;
+    private final FilesFacade ff;
+    private final Path path;
+    private final int rootLen;
+    private final ReadOnlyMemory mem = new ReadOnlyMemory();
+    private final LongList entries = new LongList();
+    private final LongList rowIds = new LongList();
+
+    public LatestRowReader(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.path = new Path().of(configuration.getRoot());
+        this.rootLen = path.length();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(mem);
+        Misc.free(path);
+    }
+
+    /**
+     * @param key index key
+     * @return row id of latest row of key, {@link #ROW_NOT_FOUND} when key has no rows or
+     * {@link #ROW_UNKNOWN} when latest row has to be looked up via index.
+     */
+    public long getRowId(int key) {
+        return rowIds.getQuick(key);
+    }
+
+    /**
+     * Loads latest rows of keys in [0, keyCount) range consistent with reader snapshot.
+     *
+     * @param reader      table reader
+     * @param columnIndex index of symbol column
+     * @param keyCount    number of keys in reader snapshot including null key
+     * @return false when column does not have latest row cache or cache could not be read consistently
+     */
+    public boolean of(TableReader reader, int columnIndex, int keyCount) {
+        try {
+            final LPSZ name = LatestRowWriter.fileName(path.trimTo(rootLen).concat(reader.getTableName()), reader.getMetadata().getColumnName(columnIndex));
+            if (!ff.exists(name)) {
+                return false;
+            }
+            final long size = ff.length(name);
+            if (size < LatestRowWriter.HEADER_SIZE) {
+                return false;
+            }
+            mem.of(ff, name, ff.getPageSize(), size);
+            final int entryCount = (int) Math.min(keyCount, (size - LatestRowWriter.HEADER_SIZE) / LatestRowWriter.ENTRY_SIZE);
+            if (!readEntries(reader, entryCount)) {
+                return false;
+            }
+        } finally {
+            mem.close();
+            path.trimTo(rootLen);
+        }
+
+        rowIds.setAll(keyCount, ROW_NOT_FOUND);
+        for (int key = 0, n = entries.size() / 2; key < n; key++) {
+            final long value = entries.getQuick(key * 2 + 1);
+            if (value == 0) {
+                // key has no rows
+                continue;
+            }
+            final long row = value - 1;
+            final int partitionIndex = value < 0 ? -1 : findPartition(reader, entries.getQuick(key * 2));
+            if (partitionIndex > -1 && row < reader.openPartition(partitionIndex)) {
+                rowIds.setQuick(key, Rows.toRowID(partitionIndex, row));
+            } else {
+                rowIds.setQuick(key, ROW_UNKNOWN);
+            }
+        }
+        return true;
+    }
+
+    private static int findPartition(TableReader reader, long partitionTimestamp) {
+        if (reader.getPartitionCount() == 0) {
+            return -1;
+        }
+
+        if (reader.getPartitionedBy() == PartitionBy.NONE) {
+            return partitionTimestamp == Long.MIN_VALUE ? 0 : -1;
+        }
+
+        final long lo = reader.getPartitionTimestamp(0);
+        if (partitionTimestamp < lo) {
+            return -1;
+        }
+
+        final int partitionIndex = reader.getPartitionCountBetweenTimestamps(lo, partitionTimestamp);
+        if (partitionIndex < reader.getPartitionCount() && reader.getPartitionTimestamp(partitionIndex) == partitionTimestamp) {
+            return partitionIndex;
+        }
+        return -1;
+    }
+
+    private boolean readEntries(TableReader reader, int entryCount) {
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            final long sequenceCheck = mem.getLong(LatestRowWriter.HEADER_OFFSET_SEQUENCE_CHECK);
+            Unsafe.getUnsafe().loadFence();
+
+            final long dataVersion = mem.getLong(LatestRowWriter.HEADER_OFFSET_DATA_VERSION);
+            entries.clear();
+            for (int key = 0; key < entryCount; key++) {
+                final long offset = LatestRowWriter.getEntryOffset(key);
+                entries.add(mem.getLong(offset));
+                entries.add(mem.getLong(offset + Long.BYTES));
+            }
+
+            Unsafe.getUnsafe().loadFence();
+            if (mem.getLong(LatestRowWriter.HEADER_OFFSET_SEQUENCE) == sequenceCheck) {
+                // truncated table reuses row ids, cache is only good for the same version of data
+                return dataVersion == reader.getDataVersion();
+            }
+        }
+        return false;
+    }
+}
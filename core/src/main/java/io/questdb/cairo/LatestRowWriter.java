@@ -0,0 +1,201 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.FilesFacade;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Maintains file of latest row per key of indexed symbol column. File starts with a header, which is followed
+ * by fixed size entries addressed by index key. Entry is a pair of partition timestamp and partition-level
+ * row id incremented by one. Zero row value means that key has no rows and {@link #ROW_UNKNOWN} means that
+ * latest row of the key has been removed and has to be looked up via index.
+ * <p>
+ * Rows collected by indexer are kept in memory until transaction is committed, this way rolled back rows
+ * never reach the file. Header carries sequence and sequence check around entry updates, readers use those
+ * to detect concurrent modification.
+ */
+public class LatestRowWriter implements Closeable {
+    static final int HEADER_OFFSET_SEQUENCE = 0;
+    static final int HEADER_OFFSET_TXN = 8;
+    static final int HEADER_OFFSET_DATA_VERSION = 16;
+    static final int HEADER_OFFSET_SEQUENCE_CHECK = 24;
+    static final int HEADER_SIZE = 32;
+    static final int ENTRY_SIZE = 16;
+    static final long ROW_UNKNOWN = -1;
+
+    private final ReadWriteMemory mem = new ReadWriteMemory();
+    private final LongList pendingEntries = new LongList();
+    private final IntList pendingKeys = new IntList();
+    private long partitionTimestamp = Long.MIN_VALUE;
+    private long sequence;
+    private long dataVersion;
+    private int keyCount;
+
+    public static Path fileName(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(".lr").$();
+    }
+
+    static Path tempFileName(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(".lr.tmp").$();
+    }
+
+    @Override
+    public void close() {
+        pendingEntries.clear();
+        pendingKeys.clear();
+        Misc.free(mem);
+    }
+
+    public void commit(long txn) {
+        final int n = pendingKeys.size();
+        if (n == 0) {
+            return;
+        }
+
+        beginUpdate();
+        for (int i = 0; i < n; i++) {
+            final int key = pendingKeys.getQuick(i);
+            final int index = key * 2;
+            final long offset = getEntryOffset(key);
+            mem.putLong(offset, pendingEntries.getQuick(index));
+            mem.putLong(offset + Long.BYTES, pendingEntries.getQuick(index + 1));
+            pendingEntries.setQuick(index + 1, 0);
+            if (key >= keyCount) {
+                keyCount = key + 1;
+            }
+        }
+        pendingKeys.clear();
+        mem.jumpTo(getEntryOffset(keyCount));
+        endUpdate(txn);
+    }
+
+    /**
+     * Marks entries that point at or after given row of given partition as unknown. This is used when
+     * partition is removed or when rows are removed from the tail of the last partition.
+     *
+     * @param partitionTimestamp partition timestamp
+     * @param rowLo              lowest removed row of partition
+     * @param txn                transaction, which removes rows
+     */
+    public void invalidate(long partitionTimestamp, long rowLo, long txn) {
+        beginUpdate();
+        for (int key = 0; key < keyCount; key++) {
+            final long offset = getEntryOffset(key);
+            if (mem.getLong(offset) == partitionTimestamp && mem.getLong(offset + Long.BYTES) > rowLo) {
+                mem.putLong(offset + Long.BYTES, ROW_UNKNOWN);
+            }
+        }
+        endUpdate(txn);
+    }
+
+    public void of(FilesFacade ff, LPSZ name, long txn, long dataVersion) {
+        close();
+        mem.of(ff, name, ff.getPageSize());
+        this.dataVersion = dataVersion;
+        final long size = mem.getAppendOffset();
+        if (size < HEADER_SIZE) {
+            sequence = 0;
+            keyCount = 0;
+            beginUpdate();
+            mem.jumpTo(HEADER_SIZE);
+            endUpdate(txn);
+            return;
+        }
+
+        sequence = mem.getLong(HEADER_OFFSET_SEQUENCE);
+        keyCount = (int) ((size - HEADER_SIZE) / ENTRY_SIZE);
+        if (mem.getLong(HEADER_OFFSET_DATA_VERSION) != dataVersion) {
+            // table was truncated, but file was not reset
+            truncate(txn, dataVersion);
+        } else if (mem.getLong(HEADER_OFFSET_TXN) > txn) {
+            // entries were written for transaction, which did not complete
+            beginUpdate();
+            for (int key = 0; key < keyCount; key++) {
+                mem.putLong(getEntryOffset(key) + Long.BYTES, ROW_UNKNOWN);
+            }
+            endUpdate(txn);
+        }
+    }
+
+    public void put(int key, long row) {
+        final int index = key * 2;
+        if (index >= pendingEntries.size()) {
+            pendingEntries.seed(pendingEntries.size(), index + 2 - pendingEntries.size(), 0);
+        }
+        if (pendingEntries.getQuick(index + 1) == 0) {
+            pendingKeys.add(key);
+        }
+        pendingEntries.setQuick(index, partitionTimestamp);
+        pendingEntries.setQuick(index + 1, row + 1);
+    }
+
+    public void rollback() {
+        for (int i = 0, n = pendingKeys.size(); i < n; i++) {
+            pendingEntries.setQuick(pendingKeys.getQuick(i) * 2 + 1, 0);
+        }
+        pendingKeys.clear();
+    }
+
+    public void setPartitionTimestamp(long partitionTimestamp) {
+        this.partitionTimestamp = partitionTimestamp;
+    }
+
+    public void truncate(long txn, long dataVersion) {
+        rollback();
+        this.dataVersion = dataVersion;
+        beginUpdate();
+        for (int key = 0; key < keyCount; key++) {
+            final long offset = getEntryOffset(key);
+            mem.putLong(offset, 0);
+            mem.putLong(offset + Long.BYTES, 0);
+        }
+        // file is not shrunk, readers may still have it mapped
+        endUpdate(txn);
+    }
+
+    static long getEntryOffset(int key) {
+        return HEADER_SIZE + (long) key * ENTRY_SIZE;
+    }
+
+    private void beginUpdate() {
+        mem.putLong(HEADER_OFFSET_SEQUENCE, ++sequence);
+        Unsafe.getUnsafe().storeFence();
+    }
+
+    private void endUpdate(long txn) {
+        mem.putLong(HEADER_OFFSET_TXN, txn);
+        mem.putLong(HEADER_OFFSET_DATA_VERSION, dataVersion);
+        Unsafe.getUnsafe().storeFence();
+        mem.putLong(HEADER_OFFSET_SEQUENCE_CHECK, sequence);
+    }
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.pool.ex.EntryLockedException;
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Removes partitions of tables created with time-to-live, e.g. "WITH ttl = 30d", and moves partitions of
+ * tables created with "WITH cold_after = 7d" to cold root, when one is configured. Tables are checked
+ * periodically, both settings are read directly from table metadata file, so that writers are only acquired
+ * for tables that have either of them. Writer is acquired opportunistically, busy tables are checked again
+ * on the next run.
+ * <p>
+ * Expired partitions are removed from the table straight away, their directories are deleted once readers
+ * of older transactions are gone. Partitions are copied to cold root while readers are in use, but they
+ * are only switched over when all pooled readers of the table can be locked. Locking closes pooled readers,
+ * which makes next reader pick up new partition locations. When any of the readers is in use the switch is
+ * deferred until the next run.
+ */
+public class PartitionExpiryJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionExpiryJob.class);
+    private final CairoEngine engine;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final MicrosecondClock clock;
+    private final ObjList<CharSequence> tables = new ObjList<>();
+    private final Path path = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final long checkInterval;
+    private final boolean coldRootEnabled;
+    private long tempMem8b = Unsafe.malloc(Long.BYTES);
+    private long nextCheckTimestamp = Long.MIN_VALUE;
+
+    public PartitionExpiryJob(CairoEngine engine) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getPartitionExpiryCheckInterval() * 1000L;
+        this.coldRootEnabled = configuration.getColdRoot() != null;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(path);
+        if (tempMem8b != 0) {
+            Unsafe.free(tempMem8b, Long.BYTES);
+            tempMem8b = 0;
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long now = clock.getTicks();
+        if (now < nextCheckTimestamp) {
+            return false;
+        }
+        nextCheckTimestamp = now + checkInterval;
+
+        tables.clear();
+        ff.iterateDir(path.of(configuration.getRoot()).$(), this::onTableFound);
+
+        boolean useful = false;
+        for (int i = 0, n = tables.size(); i < n; i++) {
+            final CharSequence tableName = tables.getQuick(i);
+            try {
+                useful |= processPartitions(tableName);
+            } catch (EntryUnavailableException | EntryLockedException e) {
+                LOG.info().$("table is busy, partition expiry is deferred [table=`").utf8(tableName).$("`]").$();
+            } catch (CairoException e) {
+                LOG.error()
+                        .$("could not process partitions [table=`").utf8(tableName)
+                        .$("`, ex=").$(e.getFlyweightMessage())
+                        .$(", errno=").$(e.getErrno())
+                        .$(']').$();
+            }
+        }
+        return useful;
+    }
+
+    private void onTableFound(long file, int type) {
+        nativeLPSZ.of(file);
+        if (type == Files.DT_DIR && nativeLPSZ.charAt(0) != '.') {
+            path.of(configuration.getRoot()).concat(nativeLPSZ).concat(TableUtils.META_FILE_NAME).$();
+            if (readRetentionIntervals()) {
+                final int ttl = Unsafe.getUnsafe().getInt(tempMem8b);
+                final int coldAfter = Unsafe.getUnsafe().getInt(tempMem8b + Integer.BYTES);
+                if (ttl != 0 || (coldAfter != 0 && coldRootEnabled)) {
+                    tables.add(Chars.toString(nativeLPSZ));
+                }
+            }
+        }
+    }
+
+    private boolean processPartitions(CharSequence tableName) {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            final int removed = writer.removeExpiredPartitions();
+            // directories of partitions removed on previous runs may no longer be in use
+            final int purged = writer.purgeRemovedPartitions();
+
+            int moved = 0;
+            // sealed partitions are copied while readers are still using them
+            if (writer.copyColdPartitions() > 0) {
+                if (engine.lockReaders(tableName)) {
+                    try {
+                        moved = writer.switchColdPartitions();
+                    } finally {
+                        engine.unlockReaders(tableName);
+                    }
+                } else {
+                    LOG.info().$("table readers are busy, partition move is deferred [table=`").utf8(tableName).$("`]").$();
+                }
+            }
+
+            if (removed > 0 || moved > 0) {
+                LOG.info()
+                        .$("processed partitions [table=`").utf8(tableName)
+                        .$("`, expired=").$(removed)
+                        .$(", moved=").$(moved)
+                        .$(']').$();
+            }
+            return removed > 0 || purged > 0 || moved > 0;
+        }
+    }
+
+    // reads time-to-live and cold_after, which are adjacent in metadata file
+    private boolean readRetentionIntervals() {
+        final long fd = ff.openRO(path);
+        if (fd == -1) {
+            // table is being removed
+            return false;
+        }
+        try {
+            return ff.read(fd, tempMem8b, Long.BYTES, TableUtils.META_OFFSET_TTL) == Long.BYTES;
+        } finally {
+            ff.close(fd);
+        }
+    }
+}
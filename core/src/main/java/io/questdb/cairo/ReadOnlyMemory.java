@@ -129,6 +129,10 @@ public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
         }
     }
 
+    public void growToFileSize() {
+        grow(ff.length(fd));
+    }
+
     @Override
     public boolean isDeleted() {
         return !ff.exists(fd);
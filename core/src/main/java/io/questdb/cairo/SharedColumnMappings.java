@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Read-only column mappings shared between readers of the same table. Mappings are reference counted
+ * and reserve address space in large increments beyond the current file size. Readers of the active
+ * partition pick up new rows by bumping their size within the reservation instead of remapping after
+ * every commit. When reservation is exhausted a new, larger mapping replaces the old one for subsequent
+ * users, while existing users keep the old mapping until they release it.
+ * <p>
+ * Mappings are keyed by file name and table data and structure versions. Truncate and column
+ * changes re-create column files under the same name, versions make sure such files are not confused.
+ */
+public class SharedColumnMappings {
+    private static final Log LOG = LogFactory.getLog(SharedColumnMappings.class);
+    private final CharSequenceObjHashMap<Mapping> mappings = new CharSequenceObjHashMap<>();
+    private final StringSink keySink = new StringSink();
+    private final long increment;
+
+    public SharedColumnMappings(long increment) {
+        this.increment = increment;
+    }
+
+    public synchronized Mapping acquire(FilesFacade ff, long fd, CharSequence fileName, long dataVersion, long structVersion, long size) {
+        keySink.clear();
+        keySink.put(fileName).put('#').put(dataVersion).put('#').put(structVersion);
+        int index = mappings.keyIndex(keySink);
+        if (index < 0) {
+            final Mapping mapping = mappings.valueAt(index);
+            if (mapping.size >= size) {
+                mapping.refCount++;
+                return mapping;
+            }
+            // mapping is too small, it will be unmapped when the last user releases it
+            mappings.removeAt(index);
+            index = mappings.keyIndex(keySink);
+        }
+
+        final long mapSize = (size + increment - 1) / increment * increment;
+        final long address = ff.mmap(fd, mapSize, 0, Files.MAP_RO);
+        if (address == FilesFacade.MAP_FAILED) {
+            throw CairoException.instance(ff.errno()).put("Could not mmap ").put(fileName).put(" [size=").put(mapSize).put(", fd=").put(fd).put(']');
+        }
+        final Mapping mapping = new Mapping(keySink.toString(), address, mapSize);
+        mappings.putAt(index, mapping.key, mapping);
+        LOG.debug().$("mapped [file=").$(fileName).$(", size=").$(mapSize).$(']').$();
+        return mapping;
+    }
+
+    public synchronized void release(FilesFacade ff, Mapping mapping) {
+        if (--mapping.refCount == 0) {
+            ff.munmap(mapping.address, mapping.size);
+            final int index = mappings.keyIndex(mapping.key);
+            if (index < 0 && mappings.valueAt(index) == mapping) {
+                mappings.removeAt(index);
+            }
+        }
+    }
+
+    synchronized int size() {
+        return mappings.size();
+    }
+
+    public static class Mapping {
+        private final String key;
+        private final long address;
+        private final long size;
+        private int refCount = 1;
+
+        private Mapping(String key, long address, long size) {
+            this.key = key;
+            this.address = address;
+            this.size = size;
+        }
+
+        public long getAddress() {
+            return address;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Read-only memory of the active partition column, which is backed by mapping shared between
+ * readers of the same table. Growing within mapping reservation does not involve any system calls.
+ */
+public class SharedOnePageMemory extends OnePageMemory {
+    private final SharedColumnMappings mappings;
+    private SharedColumnMappings.Mapping mapping;
+    private String fileName;
+    private long dataVersion;
+    private long structVersion;
+
+    public SharedOnePageMemory(SharedColumnMappings mappings, FilesFacade ff, LPSZ name, long size, long dataVersion, long structVersion) {
+        this.mappings = mappings;
+        of(ff, name, size, dataVersion, structVersion);
+    }
+
+    @Override
+    public void close() {
+        if (mapping != null) {
+            mappings.release(ff, mapping);
+            mapping = null;
+            page = -1;
+        }
+        super.close();
+    }
+
+    @Override
+    public void grow(long newSize) {
+        if (newSize <= size) {
+            return;
+        }
+
+        // same as ExtendableOnePageMemory, optimistically expose everything writer has flushed
+        newSize = Math.max(newSize, ff.length(fd));
+
+        if (mapping == null || newSize > mapping.getSize()) {
+            final SharedColumnMappings.Mapping next = mappings.acquire(ff, fd, fileName, dataVersion, structVersion, newSize);
+            if (mapping != null) {
+                mappings.release(ff, mapping);
+            }
+            mapping = next;
+            page = absolutePointer = next.getAddress();
+        }
+        size = newSize;
+    }
+
+    public void of(FilesFacade ff, LPSZ name, long size, long dataVersion, long structVersion) {
+        this.fileName = Chars.toString(name);
+        this.dataVersion = dataVersion;
+        this.structVersion = structVersion;
+        of(ff, name, 0, size);
+    }
+
+    @Override
+    protected void map(FilesFacade ff, LPSZ name, long size) {
+        this.size = 0;
+        this.page = -1;
+        this.absolutePointer = -1;
+        try {
+            grow(Math.min(ff.length(fd), size));
+        } catch (CairoException e) {
+            close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.Misc;
+
+import java.io.Closeable;
+import java.util.Arrays;
+
+/**
+ * Process-wide cache of symbol dictionaries shared by all readers of the same symbol map. Entries
+ * are identified by symbol map file and its id, which changes when map is re-created, for example
+ * when table is dropped and created again. Entry is freed when last reader releases it.
+ * <p>
+ * Symbol keys are looked up via off-heap {@link SymbolKeyMap} and decoded values are kept once per
+ * process rather than once per reader. Readers only see keys below their own symbol count, so entry
+ * can be ahead of readers that are yet to reload.
+ */
+public final class SharedSymbolCache {
+    private static final Log LOG = LogFactory.getLog(SharedSymbolCache.class);
+    private static final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+    private static final String[] EMPTY = new String[0];
+
+    private SharedSymbolCache() {
+    }
+
+    /**
+     * Acquires cache entry for symbol map. Symbol maps without id cannot be safely identified, they
+     * get private entry, which is not shared with other readers and caches values only. Key lookup
+     * for such maps remains with symbol map index.
+     *
+     * @param path     path to symbol map offset file
+     * @param mapId    symbol map id as stored in map header
+     * @param capacity initial key capacity
+     * @return cache entry, which must be released by calling {@link Entry#close()}
+     */
+    public static Entry acquire(CharSequence path, long mapId, int capacity) {
+        if (mapId == 0) {
+            return new Entry(null, capacity);
+        }
+        final String name = Chars.toString(path) + '#' + mapId;
+        synchronized (entries) {
+            final int index = entries.keyIndex(name);
+            Entry e;
+            if (index < 0) {
+                e = entries.valueAtQuick(index);
+            } else {
+                e = new Entry(name, capacity);
+                entries.putAt(index, name, e);
+                LOG.info().$("new [name=").$(name).$(']').$();
+            }
+            e.refCount++;
+            return e;
+        }
+    }
+
+    public static int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static void release(Entry e) {
+        if (e.name == null) {
+            e.free();
+            return;
+        }
+
+        synchronized (entries) {
+            if (--e.refCount == 0) {
+                entries.remove(e.name);
+                e.free();
+                LOG.info().$("freed [name=").$(e.name).$(']').$();
+            }
+        }
+    }
+
+    public static class Entry implements Closeable {
+        private final String name;
+        private final SymbolKeyMap keyMap;
+        private volatile String[] values = EMPTY;
+        private volatile int keyCount;
+        private int refCount;
+
+        private Entry(String name, int capacity) {
+            this.name = name;
+            this.keyMap = name != null ? new SymbolKeyMap(capacity, true) : null;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+
+        /**
+         * Makes sure keys below symbol count are in the key map.
+         *
+         * @param symbolCount symbol count of calling reader
+         * @param resolver    resolves values of calling reader, they have to be mapped up to symbol count
+         */
+        public void ensureKeys(int symbolCount, SymbolKeyMap.KeyResolver resolver) {
+            if (name != null && symbolCount > keyCount) {
+                synchronized (this) {
+                    for (int key = keyCount; key < symbolCount; key++) {
+                        keyMap.put(SymbolKeyMap.hash(resolver.valueOf(key)), key);
+                    }
+                    if (symbolCount > keyCount) {
+                        keyCount = symbolCount;
+                    }
+                }
+            }
+        }
+
+        public boolean isShared() {
+            return name != null;
+        }
+
+        public int keyOf(CharSequence value, int symbolCount, SymbolKeyMap.KeyResolver resolver) {
+            return keyMap.get(value, SymbolKeyMap.hash(value), symbolCount, resolver);
+        }
+
+        public String valueOf(int key, SymbolKeyMap.KeyResolver resolver) {
+            String[] v = values;
+            if (key < v.length) {
+                final String s = v[key];
+                if (s != null) {
+                    return s;
+                }
+            }
+
+            // racing readers may cache same value twice, that is harmless
+            final String s = Chars.toString(resolver.valueOf(key));
+            if (key >= v.length) {
+                synchronized (this) {
+                    v = values;
+                    if (key >= v.length) {
+                        values = v = Arrays.copyOf(v, Math.max(key + 1, v.length * 2));
+                    }
+                }
+            }
+            v[key] = s;
+            return s;
+        }
+
+        private void free() {
+            Misc.free(keyMap);
+            values = EMPTY;
+        }
+    }
+}
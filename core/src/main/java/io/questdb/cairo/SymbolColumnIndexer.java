@@ -41,6 +41,7 @@ class SymbolColumnIndexer implements ColumnIndexer, Closeable {
     private final BitmapIndexWriter writer = new BitmapIndexWriter();
     private final SlidingWindowMemory mem = new SlidingWindowMemory();
     private long columnTop;
+    private LatestRowWriter latestRowWriter;
     @SuppressWarnings({"unused", "FieldCanBeLocal", "FieldMayBeFinal"})
     private volatile long sequence = 0L;
     private volatile boolean distressed = false;
@@ -79,6 +80,11 @@ class SymbolColumnIndexer implements ColumnIndexer, Closeable {
         for (long lo = loRow - columnTop; lo < hiRow; lo++) {
             writer.add(TableUtils.toIndexKey(mem.getInt(lo * Integer.BYTES)), lo + columnTop);
         }
+        if (latestRowWriter != null) {
+            for (long lo = Math.max(loRow, columnTop) - columnTop, hi = hiRow - columnTop; lo < hi; lo++) {
+                latestRowWriter.put(TableUtils.toIndexKey(mem.getInt(lo * Integer.BYTES)), lo + columnTop);
+            }
+        }
     }
 
     @Override
@@ -115,6 +121,11 @@ class SymbolColumnIndexer implements ColumnIndexer, Closeable {
         }
     }
 
+    @Override
+    public void setLatestRowWriter(LatestRowWriter latestRowWriter) {
+        this.latestRowWriter = latestRowWriter;
+    }
+
     @Override
     public void rollback(long maxRow) {
         this.writer.rollbackValues(maxRow);
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Off-heap open addressing map of symbol values to symbol keys. Map does not store values, each
+ * slot is a long made of value hash and key. Values are resolved by key from symbol map files when
+ * hashes collide, which keeps memory footprint at 8 bytes per slot regardless of value length.
+ * <p>
+ * In concurrent mode map can be read by multiple threads while single thread adds keys to it. Slot
+ * memory is never reused in this mode, blocks that are replaced on resize are kept until map is closed.
+ */
+public class SymbolKeyMap implements Closeable, Mutable {
+    private static final int MIN_CAPACITY = 16;
+    private static final double LOAD_FACTOR = 0.5;
+    private final boolean concurrent;
+    private final LongList retired;
+    private volatile long address;
+    private long size;
+    private long free;
+
+    public SymbolKeyMap(int capacity, boolean concurrent) {
+        this.concurrent = concurrent;
+        this.retired = concurrent ? new LongList() : null;
+        this.address = allocate(Numbers.ceilPow2((int) Math.min(Integer.MAX_VALUE >> 1, Math.max(MIN_CAPACITY, capacity / LOAD_FACTOR))));
+        this.free = (long) (capacity() * LOAD_FACTOR);
+    }
+
+    public static int hash(CharSequence value) {
+        return Hash.spread(Chars.hashCode(value));
+    }
+
+    @Override
+    public void clear() {
+        Unsafe.getUnsafe().setMemory(address + Long.BYTES, capacity() * Long.BYTES, (byte) 0);
+        free = (long) (capacity() * LOAD_FACTOR);
+        size = 0;
+    }
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            release(address);
+            address = 0;
+        }
+        if (retired != null) {
+            for (int i = 0, n = retired.size(); i < n; i++) {
+                release(retired.getQuick(i));
+            }
+            retired.clear();
+        }
+    }
+
+    /**
+     * Finds key of symbol value.
+     *
+     * @param value    symbol value
+     * @param hash     value hash as returned by {@link #hash(CharSequence)}
+     * @param maxKey   keys equal or above this value are ignored
+     * @param resolver provides values for keys that are candidates for match
+     * @return symbol key or {@link SymbolTable#VALUE_NOT_FOUND}
+     */
+    public int get(CharSequence value, int hash, int maxKey, KeyResolver resolver) {
+        final long block = address;
+        final long mask = Unsafe.getUnsafe().getLong(block);
+        long index = hash & mask;
+        long slot;
+        while ((slot = Unsafe.getUnsafe().getLong(slotAddress(block, index))) != 0) {
+            if ((int) (slot >>> 32) == hash) {
+                final int key = (int) slot - 1;
+                if (key < maxKey && Chars.equals(value, resolver.valueOf(key))) {
+                    return key;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+        return SymbolTable.VALUE_NOT_FOUND;
+    }
+
+    /**
+     * Adds key to map. Caller must ensure that value of this key has not been added before.
+     *
+     * @param hash value hash as returned by {@link #hash(CharSequence)}
+     * @param key  symbol key
+     */
+    public void put(int hash, int key) {
+        if (free == 0) {
+            rehash();
+        }
+        put0(address, hash, key);
+        free--;
+        size++;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    private static long allocate(int capacity) {
+        final long block = Unsafe.calloc(Long.BYTES + (long) capacity * Long.BYTES);
+        Unsafe.getUnsafe().putLong(block, capacity - 1);
+        return block;
+    }
+
+    private static void put0(long block, int hash, int key) {
+        final long mask = Unsafe.getUnsafe().getLong(block);
+        long index = hash & mask;
+        while (Unsafe.getUnsafe().getLong(slotAddress(block, index)) != 0) {
+            index = (index + 1) & mask;
+        }
+        Unsafe.getUnsafe().putOrderedLong(null, slotAddress(block, index), ((long) hash << 32) | ((key + 1) & 0xffffffffL));
+    }
+
+    private static void release(long block) {
+        Unsafe.free(block, Long.BYTES + (Unsafe.getUnsafe().getLong(block) + 1) * Long.BYTES);
+    }
+
+    private static long slotAddress(long block, long index) {
+        return block + Long.BYTES + (index << 3);
+    }
+
+    private long capacity() {
+        return Unsafe.getUnsafe().getLong(address) + 1;
+    }
+
+    private void rehash() {
+        final long block = address;
+        final long capacity = capacity();
+        final long newBlock = allocate((int) (capacity << 1));
+        for (long i = 0; i < capacity; i++) {
+            final long slot = Unsafe.getUnsafe().getLong(slotAddress(block, i));
+            if (slot != 0) {
+                put0(newBlock, (int) (slot >>> 32), (int) slot - 1);
+            }
+        }
+        address = newBlock;
+        if (concurrent) {
+            retired.add(block);
+        } else {
+            release(block);
+        }
+        free += (long) (capacity * LOAD_FACTOR);
+    }
+
+    @FunctionalInterface
+    public interface KeyResolver {
+        CharSequence valueOf(int key);
+    }
+}
@@ -30,6 +30,7 @@ import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 
 import java.io.Closeable;
 
@@ -38,7 +39,14 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
     private final BitmapIndexBwdReader indexReader = new BitmapIndexBwdReader();
     private final ReadOnlyMemory charMem = new ReadOnlyMemory();
     private final ReadOnlyMemory offsetMem = new ReadOnlyMemory();
-    private final ObjList<String> cache = new ObjList<>();
+    private final SymbolKeyMap.KeyResolver resolver = this::uncachedValue;
+    private final StringSink indexName = new StringSink();
+    private Path path;
+    private CairoConfiguration configuration;
+    private String name;
+    private long indexHeader;
+    private long mapId;
+    private SharedSymbolCache.Entry cache;
     private int maxHash;
     private boolean cached;
     private int symbolCount;
@@ -54,9 +62,10 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
     public void close() {
         Misc.free(indexReader);
         Misc.free(charMem);
-        this.cache.clear();
+        this.cache = Misc.free(cache);
         long fd = this.offsetMem.getFd();
         Misc.free(offsetMem);
+        this.path = Misc.free(path);
         LOG.info().$("closed [fd=").$(fd).$(']').$();
     }
 
@@ -67,6 +76,9 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
     @Override
     public int keyOf(CharSequence value) {
         if (value != null) {
+            if (cache != null && cache.isShared()) {
+                return cache.keyOf(value, symbolCount, resolver);
+            }
             int hash = Hash.boundedHash(value, maxHash);
             RowCursor cursor = indexReader.getCursor(true, hash, 0, maxOffset);
             while (cursor.hasNext()) {
@@ -88,8 +100,8 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
     @Override
     public CharSequence valueOf(int key) {
         if (key > -1 && key < symbolCount) {
-            if (cached) {
-                return cachedValue(key);
+            if (cache != null) {
+                return cache.valueOf(key, resolver);
             }
             return uncachedValue(key);
         }
@@ -108,7 +120,16 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
 
     @Override
     public boolean isDeleted() {
-        return offsetMem.isDeleted();
+        if (offsetMem.isDeleted()) {
+            return true;
+        }
+        // renamed column has to be reopened under new name for reader to be able to follow index rebuilds
+        final int plen = path.length();
+        try {
+            return !configuration.getFilesFacade().exists(SymbolMapWriter.offsetFileName(path, name));
+        } finally {
+            path.trimTo(plen);
+        }
     }
 
     public void of(CairoConfiguration configuration, Path path, CharSequence name, int symbolCount) {
@@ -140,10 +161,17 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
             symbolCapacity = offsetMem.getInt(SymbolMapWriter.HEADER_CAPACITY);
             this.cached = offsetMem.getBool(SymbolMapWriter.HEADER_CACHE_ENABLED);
             this.nullValue = offsetMem.getBool(SymbolMapWriter.HEADER_NULL_FLAG);
+            this.mapId = offsetMem.getLong(SymbolMapWriter.HEADER_MAP_ID);
             this.offsetMem.grow(maxOffset);
 
-            // index writer is used to identify attempts to store duplicate symbol value
-            this.indexReader.of(configuration, path.trimTo(plen), name, 0);
+            // index reader is kept to be able to follow index rebuilds
+            this.configuration = configuration;
+            if (this.path == null) {
+                this.path = new Path();
+            }
+            this.path.of(path.trimTo(plen));
+            this.name = Chars.toString(name);
+            openIndex();
 
             // this is the place where symbol values are stored
             this.charMem.of(ff, SymbolMapWriter.charFileName(path.trimTo(plen), name), mapPageSize, 0);
@@ -151,14 +179,12 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
             // move append pointer for symbol values in the correct place
             growCharMemToSymbolCount(symbolCount);
 
-            // we use index hash maximum equals to half of symbol capacity, which
-            // theoretically should require 2 value cells in index per hash
-            // we use 4 cells to compensate for occasionally unlucky hash distribution
-            this.maxHash = Numbers.ceilPow2(symbolCapacity / 2) - 1;
+            this.cache = Misc.free(cache);
             if (cached) {
-                this.cache.setPos(symbolCapacity);
+                // cached dictionaries are shared by all readers of this symbol map
+                this.cache = SharedSymbolCache.acquire(SymbolMapWriter.offsetFileName(path.trimTo(plen), name), mapId, symbolCapacity);
+                this.cache.ensureKeys(symbolCount, resolver);
             }
-            this.cache.clear();
             LOG.info().$("open [name=").$(path.trimTo(plen).concat(name).$()).$(", fd=").$(this.offsetMem.getFd()).$(", capacity=").$(symbolCapacity).$(']').$();
         } catch (CairoException e) {
             close();
@@ -170,25 +196,36 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
 
     @Override
     public void updateSymbolCount(int symbolCount) {
+        final long mapId = offsetMem.getLong(SymbolMapWriter.HEADER_MAP_ID);
+        if (mapId != this.mapId) {
+            // writer truncated the map, keys are reused for new values and nothing cached for them is valid
+            this.mapId = mapId;
+            this.symbolCount = 0;
+            if (cache != null) {
+                final int plen = path.length();
+                try {
+                    this.cache = Misc.free(cache);
+                    this.cache = SharedSymbolCache.acquire(SymbolMapWriter.offsetFileName(path, name), mapId, symbolCapacity);
+                } finally {
+                    path.trimTo(plen);
+                }
+            }
+        }
+
         if (symbolCount > this.symbolCount) {
             this.symbolCount = symbolCount;
             this.maxOffset = SymbolMapWriter.keyToOffset(symbolCount);
             this.offsetMem.grow(maxOffset);
             growCharMemToSymbolCount(symbolCount);
+            if (cache != null) {
+                cache.ensureKeys(symbolCount, resolver);
+            }
         }
-    }
 
-    private CharSequence cachedValue(int key) {
-        String symbol = cache.getQuiet(key);
-        return symbol != null ? symbol : fetchAndCache(key);
-    }
-
-    private CharSequence fetchAndCache(int key) {
-        String symbol;
-        CharSequence cs = charMem.getStr(offsetMem.getLong(SymbolMapWriter.keyToOffset(key)));
-        assert cs != null;
-        cache.extendAndSet(key, symbol = Chars.toString(cs));
-        return symbol;
+        // writer publishes rebuilt index together with transaction, which does not necessarily add symbols
+        if (offsetMem.getLong(SymbolMapWriter.HEADER_INDEX) != indexHeader) {
+            openIndex();
+        }
     }
 
     private void growCharMemToSymbolCount(int symbolCount) {
@@ -201,6 +238,25 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
         }
     }
 
+    private void openIndex() {
+        while (true) {
+            final long indexHeader = offsetMem.getLong(SymbolMapWriter.HEADER_INDEX);
+            final int indexVersion = SymbolMapWriter.getIndexVersion(indexHeader);
+            try {
+                indexReader.of(configuration, path, SymbolMapWriter.indexName(indexName, name, indexVersion), 0);
+            } catch (CairoException e) {
+                // index has been rebuilt again and previous version removed since header was read
+                if (offsetMem.getLong(SymbolMapWriter.HEADER_INDEX) == indexHeader) {
+                    throw e;
+                }
+                continue;
+            }
+            this.indexHeader = indexHeader;
+            this.maxHash = SymbolMapWriter.maxHash(indexHeader == 0 ? symbolCapacity : SymbolMapWriter.getIndexCapacity(indexHeader));
+            break;
+        }
+    }
+
     private CharSequence uncachedValue(int key) {
         return charMem.getStr(offsetMem.getLong(SymbolMapWriter.keyToOffset(key)));
     }
@@ -31,8 +31,10 @@ import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import io.questdb.std.str.Path;
 import io.questdb.std.str.SingleCharCharSequence;
+import io.questdb.std.str.StringSink;
 
 import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class SymbolMapWriter implements Closeable {
     public static final int HEADER_SIZE = 64;
@@ -40,16 +42,48 @@ public class SymbolMapWriter implements Closeable {
     public static final int HEADER_CAPACITY = 0;
     public static final int HEADER_CACHE_ENABLED = 4;
     public static final int HEADER_NULL_FLAG = 8;
-
-    private final BitmapIndexWriter indexWriter;
+    // identifies symbol map instance among maps that existed on the same path
+    public static final int HEADER_MAP_ID = 16;
+    // version (high 32 bits) and capacity (low 32 bits) of hash index currently in use,
+    // zero means index has not been rebuilt since symbol map was created
+    public static final int HEADER_INDEX = 24;
+    private static final AtomicLong MAP_ID_SEQUENCE = new AtomicLong(Os.currentTimeMicros());
+    // Hash.boundedHash() does not produce more than 28 bits
+    private static final int MAX_INDEX_CAPACITY = 1 << 29;
+    // number of existing symbols moved to new index with every symbol added while index is rebuilt,
+    // rebuild completes before symbol count grows by half
+    private static final int REHASH_STEP = 3;
+
+    private final CairoConfiguration configuration;
+    private final Path path = new Path();
+    private final StringSink indexName = new StringSink();
+    private BitmapIndexWriter indexWriter = new BitmapIndexWriter();
+    private BitmapIndexWriter rehashWriter = new BitmapIndexWriter();
     private final ReadWriteMemory charMem;
     private final ReadWriteMemory offsetMem;
-    private final CharSequenceIntHashMap cache;
-    private final int maxHash;
+    private final SymbolKeyMap cache;
+    private final SymbolKeyMap.KeyResolver resolver = this::valueOf;
+    private String name;
+    private int indexVersion;
+    private int maxHash;
+    private int rebuildThreshold;
+    // next symbol key to be added to the index that is being rebuilt, -1 when there is no rebuild
+    private int rehashKey = -1;
+    private int rehashCapacity;
+    private int rehashMaxHash;
     private boolean nullValue = false;
+    // header of rebuilt index that is yet to be published with transaction, 0 when there is none
+    private long pendingIndexHeader;
+    // versions of replaced index and transactions that replaced them, files are removed once
+    // there are no readers of older transactions
+    private final IntList obsoleteIndexVersions = new IntList();
+    private final LongList obsoleteIndexTxns = new LongList();
 
     public SymbolMapWriter(CairoConfiguration configuration, Path path, CharSequence name, int symbolCount) {
         final int plen = path.length();
+        this.configuration = configuration;
+        this.path.of(path);
+        this.name = Chars.toString(name);
         try {
             final FilesFacade ff = configuration.getFilesFacade();
             final long mapPageSize = ff.getMapPageSize();
@@ -76,8 +110,18 @@ public class SymbolMapWriter implements Closeable {
             final boolean useCache = offsetMem.getBool(HEADER_CACHE_ENABLED);
             this.offsetMem.jumpTo(keyToOffset(symbolCount));
 
-            // index writer is used to identify attempts to store duplicate symbol value
-            this.indexWriter = new BitmapIndexWriter(configuration, path.trimTo(plen), name);
+            // index writer is used to identify attempts to store duplicate symbol value,
+            // index could have been rebuilt with larger capacity than the one declared
+            final long indexHeader = offsetMem.getLong(HEADER_INDEX);
+            this.indexVersion = getIndexVersion(indexHeader);
+            final int indexCapacity = indexHeader == 0 ? symbolCapacity : getIndexCapacity(indexHeader);
+            this.indexWriter.of(configuration, path.trimTo(plen), indexName(indexName, name, indexVersion));
+            if (indexVersion > 0) {
+                // previous index could be left behind if we did not get to remove it after rebuild,
+                // we do not know which transaction replaced it, so wait until there are no readers
+                obsoleteIndexVersions.add(indexVersion - 1);
+                obsoleteIndexTxns.add(Long.MAX_VALUE);
+            }
 
             // this is the place where symbol values are stored
             this.charMem = new ReadWriteMemory(ff, charFileName(path.trimTo(plen), name), mapPageSize);
@@ -85,17 +129,15 @@ public class SymbolMapWriter implements Closeable {
             // move append pointer for symbol values in the correct place
             jumpCharMemToSymbolCount(symbolCount);
 
-            // we use index hash maximum equals to half of symbol capacity, which
-            // theoretically should require 2 value cells in index per hash
-            // we use 4 cells to compensate for occasionally unlucky hash distribution
-            this.maxHash = Numbers.ceilPow2(symbolCapacity / 2) - 1;
+            this.maxHash = maxHash(indexCapacity);
+            this.rebuildThreshold = rebuildThreshold(indexCapacity);
 
             if (useCache) {
-                this.cache = new CharSequenceIntHashMap(symbolCapacity);
+                this.cache = new SymbolKeyMap(symbolCapacity, false);
             } else {
                 this.cache = null;
             }
-            LOG.info().$("open [name=").$(path.trimTo(plen).concat(name).$()).$(", fd=").$(this.offsetMem.getFd()).$(", cache=").$(cache != null).$(", capacity=").$(symbolCapacity).$(']').$();
+            LOG.info().$("open [name=").$(path.trimTo(plen).concat(name).$()).$(", fd=").$(this.offsetMem.getFd()).$(", cache=").$(cache != null).$(", capacity=").$(symbolCapacity).$(", indexCapacity=").$(indexCapacity).$(']').$();
         } catch (CairoException e) {
             close();
             throw e;
@@ -114,6 +156,8 @@ public class SymbolMapWriter implements Closeable {
             mem.of(ff, offsetFileName(path.trimTo(plen), columnName), ff.getPageSize());
             mem.putInt(symbolCapacity);
             mem.putBool(symbolCacheFlag);
+            mem.jumpTo(HEADER_MAP_ID);
+            mem.putLong(MAP_ID_SEQUENCE.incrementAndGet());
             mem.jumpTo(HEADER_SIZE);
             mem.close();
 
@@ -133,6 +177,66 @@ public class SymbolMapWriter implements Closeable {
         return path.concat(columnName).put(".o").$();
     }
 
+    public static Path indexKeyFileName(Path path, CharSequence columnName, int indexVersion) {
+        return indexFileName(path, columnName, indexVersion).put(".k").$();
+    }
+
+    public static Path indexValueFileName(Path path, CharSequence columnName, int indexVersion) {
+        return indexFileName(path, columnName, indexVersion).put(".v").$();
+    }
+
+    static int getIndexCapacity(long indexHeader) {
+        return (int) indexHeader;
+    }
+
+    static int getIndexVersion(long indexHeader) {
+        return (int) (indexHeader >>> 32);
+    }
+
+    static CharSequence indexName(StringSink sink, CharSequence columnName, int indexVersion) {
+        if (indexVersion == 0) {
+            return columnName;
+        }
+        sink.clear();
+        sink.put(columnName).put('.').put(indexVersion);
+        return sink;
+    }
+
+    static int maxHash(int indexCapacity) {
+        // we use index hash maximum equals to half of symbol capacity, which
+        // theoretically should require 2 value cells in index per hash
+        // we use 4 cells to compensate for occasionally unlucky hash distribution
+        return Numbers.ceilPow2(indexCapacity / 2) - 1;
+    }
+
+    private static Path indexFileName(Path path, CharSequence columnName, int indexVersion) {
+        path.concat(columnName);
+        if (indexVersion > 0) {
+            path.put('.').put((long) indexVersion);
+        }
+        return path;
+    }
+
+    private static int rebuildThreshold(int indexCapacity) {
+        // once hash chains grow twice as long as index was sized for, lookup cost
+        // starts to dominate symbol ingestion and index has to be rebuilt
+        return indexCapacity < MAX_INDEX_CAPACITY ? indexCapacity * 2 : Integer.MAX_VALUE;
+    }
+
+    private static void removeIndexFiles(FilesFacade ff, Path path, CharSequence columnName, int indexVersion) {
+        final int plen = path.length();
+        try {
+            if (ff.exists(indexKeyFileName(path, columnName, indexVersion)) && !ff.remove(path)) {
+                LOG.error().$("cannot remove [file=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            if (ff.exists(indexValueFileName(path.trimTo(plen), columnName, indexVersion)) && !ff.remove(path)) {
+                LOG.error().$("cannot remove [file=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
     public int put(char c) {
         return put(SingleCharCharSequence.get(c));
     }
@@ -148,8 +252,9 @@ public class SymbolMapWriter implements Closeable {
         }
 
         if (cache != null) {
-            int index = cache.keyIndex(symbol);
-            return index < 0 ? cache.valueAt(index) : lookupPutAndCache(index, symbol);
+            final int hash = SymbolKeyMap.hash(symbol);
+            final int key = cache.get(symbol, hash, Integer.MAX_VALUE, resolver);
+            return key != SymbolTable.VALUE_NOT_FOUND ? key : lookupPutAndCache(hash, symbol);
         }
         return lookupAndPut(symbol);
     }
@@ -164,7 +269,17 @@ public class SymbolMapWriter implements Closeable {
 
     @Override
     public void close() {
+        Misc.free(cache);
+        cancelRehash();
+        if (pendingIndexHeader != 0) {
+            // rebuilt index has not been published, readers never used it
+            pendingIndexHeader = 0;
+            removeIndexFiles(configuration.getFilesFacade(), path, name, indexVersion);
+        }
+        obsoleteIndexVersions.clear();
+        obsoleteIndexTxns.clear();
         Misc.free(indexWriter);
+        Misc.free(path);
         Misc.free(charMem);
         if (this.offsetMem != null) {
             long fd = this.offsetMem.getFd();
@@ -174,6 +289,44 @@ public class SymbolMapWriter implements Closeable {
         nullValue = false;
     }
 
+    public int getIndexVersion() {
+        return indexVersion;
+    }
+
+    /**
+     * Publishes index rebuilt since last transaction. Table writer calls this before it publishes
+     * transaction, so that readers see new index capacity together with symbol count it is used with.
+     * Previous index remains on disk until readers of older transactions are gone.
+     *
+     * @param txn transaction that is about to be published
+     */
+    public void publishIndex(long txn) {
+        if (pendingIndexHeader != 0) {
+            final int obsoleteVersion = getIndexVersion(offsetMem.getLong(HEADER_INDEX));
+            Unsafe.getUnsafe().storeFence();
+            offsetMem.putLong(HEADER_INDEX, pendingIndexHeader);
+            pendingIndexHeader = 0;
+            obsoleteIndexVersions.add(obsoleteVersion);
+            obsoleteIndexTxns.add(txn);
+        }
+    }
+
+    /**
+     * Removes files of replaced indexes readers can no longer use.
+     *
+     * @param minReaderTxn oldest transaction readers are positioned at, Long.MAX_VALUE when there are no readers
+     */
+    public void removeObsoleteIndexes(long minReaderTxn) {
+        for (int i = obsoleteIndexVersions.size() - 1; i > -1; i--) {
+            final long txn = obsoleteIndexTxns.getQuick(i);
+            if (txn <= minReaderTxn) {
+                removeIndexFiles(configuration.getFilesFacade(), path, name, obsoleteIndexVersions.getQuick(i));
+                obsoleteIndexVersions.removeIndex(i);
+                obsoleteIndexTxns.removeIndex(i);
+            }
+        }
+    }
+
     public int getSymbolCount() {
         return offsetToKey(offsetMem.getAppendOffset());
     }
@@ -186,8 +339,28 @@ public class SymbolMapWriter implements Closeable {
         offsetMem.putBool(HEADER_CACHE_ENABLED, flag);
     }
 
+    /**
+     * Table writer renames symbol map files when column is renamed. Writer has to know new
+     * name to be able to rebuild its index later.
+     *
+     * @param columnName new column name
+     */
+    public void updateColumnName(CharSequence columnName) {
+        // files of unfinished rebuild are named after old column name
+        cancelRehash();
+        // files of previous indexes are not renamed with the column, readers cannot open them by the new name
+        removeObsoleteIndexes(Long.MAX_VALUE);
+        this.name = Chars.toString(columnName);
+    }
+
     public void rollback(int symbolCount) {
-        indexWriter.rollbackValues(keyToOffset(symbolCount));
+        // index keeps values up to and including the one given, which is offset of last remaining key
+        final long maxValue = keyToOffset(symbolCount) - 1;
+        indexWriter.rollbackValues(maxValue);
+        if (rehashKey > symbolCount) {
+            rehashWriter.rollbackValues(maxValue);
+            rehashKey = symbolCount;
+        }
         offsetMem.jumpTo(keyToOffset(symbolCount));
         jumpCharMemToSymbolCount(symbolCount);
         if (cache != null) {
@@ -195,6 +368,29 @@ public class SymbolMapWriter implements Closeable {
         }
     }
 
+    /**
+     * Removes all symbols. Map gets new id, so that readers stop sharing values cached for keys of
+     * the old map, the keys are about to be reused for different values.
+     */
+    public void truncate() {
+        cancelRehash();
+        rollback(0);
+        offsetMem.putLong(HEADER_MAP_ID, MAP_ID_SEQUENCE.incrementAndGet());
+    }
+
+    boolean isRehashing() {
+        return rehashKey > -1;
+    }
+
+    private void cancelRehash() {
+        // progress of rebuild is not persisted, its files are of no use
+        rehashWriter.close();
+        if (rehashKey > -1) {
+            rehashKey = -1;
+            removeIndexFiles(configuration.getFilesFacade(), path, name, indexVersion + 1);
+        }
+    }
+
     boolean isCached() {
         return cache != null;
     }
@@ -221,17 +417,96 @@ public class SymbolMapWriter implements Closeable {
         return put0(symbol, hash);
     }
 
-    private int lookupPutAndCache(int index, CharSequence symbol) {
+    private int lookupPutAndCache(int hash, CharSequence symbol) {
         int result;
         result = lookupAndPut(symbol);
-        cache.putAt(index, symbol.toString(), result);
+        cache.put(hash, result);
         return result;
     }
 
+    private CharSequence valueOf(int key) {
+        return charMem.getStr(offsetMem.getLong(keyToOffset(key)));
+    }
+
     private int put0(CharSequence symbol, int hash) {
         long offsetOffset = offsetMem.getAppendOffset();
         offsetMem.putLong(charMem.putStr(symbol));
         indexWriter.add(hash, offsetOffset);
-        return offsetToKey(offsetOffset);
+        final int key = offsetToKey(offsetOffset);
+        if (rehashKey > -1) {
+            rehash(key + 1);
+        } else if (key >= rebuildThreshold) {
+            startRehash(key + 1);
+        }
+        return key;
+    }
+
+    /**
+     * Starts re-hashing symbols into new index of larger capacity. New index is written
+     * to a new set of files, so that readers can keep using old index until they
+     * observe new version in the header. Symbols are moved to new index a few at a time
+     * as new symbols are added, so that ingestion does not stall for the whole rebuild.
+     * Old index remains complete and serves lookups until new index catches up. New index
+     * is published with the next transaction, see {@link #publishIndex(long)}.
+     *
+     * @param symbolCount number of symbols, including those not yet committed
+     */
+    private void startRehash(int symbolCount) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final int version = indexVersion + 1;
+        // index is sized for symbol count rebuild is going to complete at
+        rehashCapacity = Math.min(Numbers.ceilPow2(symbolCount + symbolCount / (REHASH_STEP - 1)) * 2, MAX_INDEX_CAPACITY);
+        rehashMaxHash = maxHash(rehashCapacity);
+
+        // remains of failed rebuild must not be mistaken for index
+        removeIndexFiles(ff, path, name, version);
+        final int plen = path.length();
+        try (AppendMemory mem = new AppendMemory()) {
+            mem.of(ff, indexKeyFileName(path, name, version), ff.getPageSize());
+            BitmapIndexWriter.initKeyMemory(mem, TableUtils.MIN_INDEX_VALUE_BLOCK_SIZE);
+            if (!ff.touch(indexValueFileName(path.trimTo(plen), name, version))) {
+                throw CairoException.instance(ff.errno()).put("Cannot create ").put(path);
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+
+        rehashWriter.of(configuration, path, indexName(indexName, name, version));
+        rehashKey = 0;
+        LOG.info().$("rebuilding index [name=").$(name).$(", symbolCount=").$(symbolCount).$(", capacity=").$(rehashCapacity).$(", version=").$(version).$(']').$();
+        rehash(symbolCount);
+    }
+
+    /**
+     * Moves next few symbols to the index that is being rebuilt. Symbols are added in
+     * key order, which keeps values of every hash sorted, as index rollback expects.
+     * Once all symbols are in, writer switches to new index.
+     *
+     * @param symbolCount number of symbols, including those not yet committed
+     */
+    private void rehash(int symbolCount) {
+        for (int i = 0; i < REHASH_STEP && rehashKey < symbolCount; i++, rehashKey++) {
+            rehashWriter.add(Hash.boundedHash(valueOf(rehashKey), rehashMaxHash), keyToOffset(rehashKey));
+        }
+
+        if (rehashKey == symbolCount) {
+            final int version = indexVersion + 1;
+            final BitmapIndexWriter oldWriter = indexWriter;
+            indexWriter = rehashWriter;
+            rehashWriter = oldWriter;
+            rehashWriter.close();
+            if (pendingIndexHeader != 0) {
+                // index being replaced has not been published yet, readers never used it
+                removeIndexFiles(configuration.getFilesFacade(), path, name, indexVersion);
+            }
+            // readers must not see new capacity before symbols it was sized for are committed
+            pendingIndexHeader = ((long) version << 32) | rehashCapacity;
+
+            LOG.info().$("rebuilt index [name=").$(name).$(", symbolCount=").$(symbolCount).$(", capacity=").$(rehashCapacity).$(", version=").$(version).$(']').$();
+            this.indexVersion = version;
+            this.maxHash = rehashMaxHash;
+            this.rebuildThreshold = rebuildThreshold(rehashCapacity);
+            this.rehashKey = -1;
+        }
     }
 }
@@ -0,0 +1,397 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.tasks.TableBackupTask;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * File level backup of sealed table partitions. Sealed partitions do not change until table
+ * structure or data version changes, so partitions that are recorded in manifest of previous
+ * backup of the table are hard-linked from there. The rest are copied from the table. Partition
+ * files are processed concurrently on the worker pool.
+ * <p>
+ * Active (last) partition is not touched here. It is copied by rows from the same reader
+ * snapshot to keep backup consistent with single table transaction.
+ * <p>
+ * Manifest layout:
+ * <pre>
+ * long backup timestamp
+ * long structure version
+ * long data version
+ * int  partition count
+ * (long partition timestamp, long row count) * partition count
+ * </pre>
+ */
+public class TableBackup implements Closeable {
+    public static final String MANIFEST_FILE_NAME = "_backup";
+    private static final Log LOG = LogFactory.getLog(TableBackup.class);
+    private static final long MANIFEST_OFFSET_STRUCT_VERSION = 8;
+    private static final long MANIFEST_OFFSET_DATA_VERSION = 16;
+    private static final long MANIFEST_OFFSET_PARTITION_COUNT = 24;
+    private static final long MANIFEST_OFFSET_PARTITIONS = 32;
+
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final MessageBus messageBus;
+    private final Path path = new Path();
+    private final Path srcPath = new Path();
+    private final AppendMemory mem = new AppendMemory();
+    private final ReadOnlyMemory manifestMem = new ReadOnlyMemory();
+    private final NativeLPSZ dirName = new NativeLPSZ();
+    private final FindVisitor backupDirVisitor = this::onBackupDir;
+    private final ObjList<TableBackupEntry> entries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final LongList partitionTimestamps = new LongList();
+    private final LongList partitionRowCounts = new LongList();
+    private final LongLongHashMap previousPartitions = new LongLongHashMap();
+    private final long tempMem8b = Unsafe.malloc(8);
+    private final StringSink previousBackupDir = new StringSink();
+    private CharSequence tableName;
+    private long previousBackupTimestamp;
+    private long structVersion;
+    private long dataVersion;
+    private long linkedCount;
+    private long copiedSize;
+
+    public TableBackup(CairoConfiguration configuration, @Nullable MessageBus messageBus) {
+        this.configuration = configuration;
+        this.ff = configuration.getFilesFacade();
+        this.messageBus = messageBus;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(path);
+        Misc.free(srcPath);
+        Misc.free(mem);
+        Misc.free(manifestMem);
+        Unsafe.free(tempMem8b, 8);
+    }
+
+    /**
+     * Backs up sealed partitions of reader snapshot into table directory under backup root and
+     * points transaction file of the backup at them. Directory must have been populated with table
+     * metadata beforehand.
+     *
+     * @param reader      table snapshot
+     * @param backupRoot  root of the backup being made, e.g. temporary backup directory
+     * @param workerCount number of workers available to process partitions
+     * @return index of first partition, which has not been backed up and has to be copied by rows
+     */
+    public int copyPartitions(TableReader reader, CharSequence backupRoot, int workerCount) {
+        clear();
+        tableName = reader.getTableName();
+        structVersion = reader.getVersion();
+        dataVersion = reader.getDataVersion();
+        final int partitionCount = reader.getPartitionCount();
+        if (reader.getPartitionedBy() == PartitionBy.NONE || partitionCount < 2) {
+            return 0;
+        }
+
+        findPreviousBackup();
+
+        // last partition is copied by rows, all others are sealed
+        final int partitionHi = partitionCount - 1;
+        for (int i = 0; i < partitionHi; i++) {
+            final long rowCount = reader.openPartition(i);
+            if (rowCount > 0) {
+                partitionTimestamps.add(reader.getPartitionTimestamp(i));
+                partitionRowCounts.add(rowCount);
+            }
+        }
+
+        final int sealedCount = partitionTimestamps.size();
+        final int batchSize = Math.max(1, workerCount);
+        try {
+            for (int i = 0; i < sealedCount; i += batchSize) {
+                publish(reader, backupRoot, i, Math.min(i + batchSize, sealedCount));
+            }
+        } finally {
+            freeEntries();
+        }
+
+        if (sealedCount > 0) {
+            writeTxn(reader, backupRoot, partitionHi);
+        }
+
+        LOG.info()
+                .$("backed up partitions [table=`").$(tableName)
+                .$("`, partitions=").$(sealedCount)
+                .$(", linkedFiles=").$(linkedCount)
+                .$(", copiedBytes=").$(copiedSize)
+                .$(", previous=").$(previousBackupDir)
+                .$(']').$();
+        return partitionHi;
+    }
+
+    /**
+     * Writes manifest of sealed partitions into backup of the table. Fails when table structure or
+     * data changed since the snapshot, such backup may have picked up files of the new version.
+     */
+    public void writeManifest(CharSequence backupRoot) {
+        checkTableVersion();
+
+        final int partitionCount = partitionTimestamps.size();
+        try {
+            mem.of(ff, path.of(backupRoot).concat(tableName).concat(MANIFEST_FILE_NAME).$(), ff.getPageSize());
+            mem.putLong(configuration.getMicrosecondClock().getTicks());
+            mem.putLong(structVersion);
+            mem.putLong(dataVersion);
+            mem.putInt(partitionCount);
+            mem.putInt(0);
+            for (int i = 0; i < partitionCount; i++) {
+                mem.putLong(partitionTimestamps.getQuick(i));
+                mem.putLong(partitionRowCounts.getQuick(i));
+            }
+        } finally {
+            mem.close();
+        }
+    }
+
+    /**
+     * Populates symbol tables of backup writer with symbols of the reader snapshot. Keys end up
+     * the same as in the table, which keeps symbol columns of backed up partition files valid.
+     */
+    public static void copySymbols(TableReader reader, TableWriter writer) {
+        final RecordMetadata metadata = reader.getMetadata();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (metadata.getColumnType(i) == ColumnType.SYMBOL) {
+                final SymbolMapReader symbolMapReader = reader.getSymbolMapReader(i);
+                for (int key = 0, count = symbolMapReader.size(); key < count; key++) {
+                    writer.putSym(i, symbolMapReader.valueOf(key));
+                }
+            }
+        }
+    }
+
+    private void awaitEntries(int queuedCount) {
+        // start at the back to reduce chance of clashing with workers
+        for (int i = queuedCount - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
+            entries.getQuick(i).run();
+        }
+        doneLatch.await(queuedCount);
+    }
+
+    private void checkTableVersion() {
+        final long fd = ff.openRO(path.of(configuration.getRoot()).concat(tableName).concat(TableUtils.TXN_FILE_NAME).$());
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+        }
+        try {
+            if (readLong(fd, TableUtils.TX_OFFSET_STRUCT_VERSION) != structVersion || readLong(fd, TableUtils.TX_OFFSET_DATA_VERSION) != dataVersion) {
+                throw CairoException.instance(0).put("table changed during backup [table=").put(tableName).put(']');
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    private void clear() {
+        freeEntries();
+        partitionTimestamps.clear();
+        partitionRowCounts.clear();
+        previousPartitions.clear();
+        previousBackupDir.clear();
+        previousBackupTimestamp = Long.MIN_VALUE;
+        linkedCount = 0;
+        copiedSize = 0;
+    }
+
+    private void findPreviousBackup() {
+        ff.iterateDir(path.of(configuration.getBackupRoot()).$(), backupDirVisitor);
+        if (previousBackupDir.length() == 0) {
+            return;
+        }
+
+        path.of(configuration.getBackupRoot()).concat(previousBackupDir).concat(tableName).concat(MANIFEST_FILE_NAME).$();
+        final long len = ff.length(path);
+        try {
+            manifestMem.of(ff, path, ff.getPageSize(), len);
+            if (manifestMem.getLong(MANIFEST_OFFSET_STRUCT_VERSION) != structVersion || manifestMem.getLong(MANIFEST_OFFSET_DATA_VERSION) != dataVersion) {
+                // partition files could have changed, nothing to reuse
+                LOG.info().$("table version changed since previous backup [table=`").$(tableName).$("`, previous=").$(previousBackupDir).$(']').$();
+                return;
+            }
+            final int partitionCount = manifestMem.getInt(MANIFEST_OFFSET_PARTITION_COUNT);
+            for (int i = 0; i < partitionCount; i++) {
+                final long offset = MANIFEST_OFFSET_PARTITIONS + i * 16L;
+                previousPartitions.put(manifestMem.getLong(offset), manifestMem.getLong(offset + 8));
+            }
+        } finally {
+            manifestMem.close();
+        }
+    }
+
+    private void freeEntries() {
+        // entries hold native paths, they are not kept between tables
+        Misc.freeObjList(entries);
+        entries.clear();
+    }
+
+    private TableBackupEntry nextEntry(int index) {
+        if (index < entries.size()) {
+            return entries.getQuick(index);
+        }
+        final TableBackupEntry entry = new TableBackupEntry(ff, configuration.getBackupMkDirMode());
+        entries.add(entry);
+        return entry;
+    }
+
+    private void onBackupDir(long name, int type) {
+        dirName.of(name);
+        if (type != Files.DT_DIR || Files.isDots(dirName) || Chars.equals(dirName, configuration.getBackupTempDirName())) {
+            return;
+        }
+        path.of(configuration.getBackupRoot()).concat(dirName).concat(tableName).concat(MANIFEST_FILE_NAME).$();
+        if (ff.exists(path)) {
+            final long fd = ff.openRO(path);
+            if (fd == -1) {
+                LOG.error().$("could not open [file=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                return;
+            }
+            try {
+                final long timestamp = readLong(fd, 0);
+                if (timestamp > previousBackupTimestamp) {
+                    previousBackupTimestamp = timestamp;
+                    previousBackupDir.clear();
+                    previousBackupDir.put(dirName);
+                }
+            } finally {
+                ff.close(fd);
+            }
+        }
+    }
+
+    private void publish(TableReader reader, CharSequence backupRoot, int lo, int hi) {
+        final int partitionBy = reader.getPartitionedBy();
+        doneLatch.reset();
+        int queuedCount = 0;
+        final int lastSealed = partitionTimestamps.size() - 1;
+        try {
+            for (int i = lo; i < hi; i++) {
+                final long timestamp = partitionTimestamps.getQuick(i);
+                // backup writer re-opens last sealed partition, it must not share files with previous backup
+                final boolean link = i < lastSealed && previousPartitions.get(timestamp) == partitionRowCounts.getQuick(i);
+                if (link) {
+                    srcPath.of(configuration.getBackupRoot()).concat(previousBackupDir).concat(tableName);
+                } else if (reader.isColdPartition(timestamp)) {
+                    srcPath.of(configuration.getColdRoot()).concat(tableName);
+                } else {
+                    srcPath.of(configuration.getRoot()).concat(tableName);
+                }
+                TableUtils.setPathForPartition(srcPath, partitionBy, timestamp);
+                path.of(backupRoot).concat(tableName);
+                TableUtils.setPathForPartition(path, partitionBy, timestamp);
+
+                final TableBackupEntry entry = nextEntry(queuedCount);
+                entry.of(queuedCount++, srcPath, path, link, doneLatch);
+                if (messageBus == null) {
+                    entry.run();
+                    continue;
+                }
+                final RingQueue<TableBackupTask> queue = messageBus.getTableBackupQueue();
+                final Sequence pubSeq = messageBus.getTableBackupPubSequence();
+                final long seq = pubSeq.next();
+                if (seq < 0) {
+                    entry.run();
+                } else {
+                    queue.get(seq).entry = entry;
+                    pubSeq.done(seq);
+                }
+            }
+        } finally {
+            awaitEntries(queuedCount);
+        }
+
+        for (int i = 0; i < queuedCount; i++) {
+            final TableBackupEntry entry = entries.getQuick(i);
+            final Throwable e = entry.getError();
+            if (e instanceof CairoException) {
+                throw (CairoException) e;
+            }
+            if (e != null) {
+                throw CairoException.instance(0).put("backup failed [table=").put(tableName).put(", error=").put(e.getMessage()).put(']');
+            }
+            linkedCount += entry.getLinkedCount();
+            copiedSize += entry.getCopiedSize();
+        }
+    }
+
+    private long readLong(long fd, long offset) {
+        if (ff.read(fd, tempMem8b, 8, offset) != 8) {
+            throw CairoException.instance(ff.errno()).put("could not read [fd=").put(fd).put(", offset=").put(offset).put(']');
+        }
+        return Unsafe.getUnsafe().getLong(tempMem8b);
+    }
+
+    private void writeTxn(TableReader reader, CharSequence backupRoot, int partitionHi) {
+        final RecordMetadata metadata = reader.getMetadata();
+        int symbolMapCount = 0;
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (metadata.getColumnType(i) == ColumnType.SYMBOL) {
+                symbolMapCount++;
+            }
+        }
+
+        // find the last sealed partition, backup writer continues from there
+        int lastSealedIndex = partitionHi - 1;
+        while (reader.openPartition(lastSealedIndex) < 1) {
+            lastSealedIndex--;
+        }
+        final long lastRowCount = reader.openPartition(lastSealedIndex);
+        long fixedRowCount = 0;
+        for (int i = 0, n = partitionRowCounts.size() - 1; i < n; i++) {
+            fixedRowCount += partitionRowCounts.getQuick(i);
+        }
+        final int timestampIndex = TableReader.getPrimaryColumnIndex(reader.getColumnBase(lastSealedIndex), metadata.getTimestampIndex());
+        final long maxTimestamp = reader.getColumn(timestampIndex).getLong((lastRowCount - 1) * Long.BYTES);
+
+        try {
+            mem.of(ff, path.of(backupRoot).concat(tableName).concat(TableUtils.TXN_FILE_NAME).$(), ff.getPageSize());
+            TableUtils.resetTxn(mem, symbolMapCount, TableUtils.INITIAL_TXN, 0L);
+            mem.putLong(TableUtils.TX_OFFSET_TRANSIENT_ROW_COUNT, lastRowCount);
+            mem.putLong(TableUtils.TX_OFFSET_FIXED_ROW_COUNT, fixedRowCount);
+            mem.putLong(TableUtils.TX_OFFSET_MIN_TIMESTAMP, reader.getMinTimestamp());
+            mem.putLong(TableUtils.TX_OFFSET_MAX_TIMESTAMP, maxTimestamp);
+        } finally {
+            mem.close();
+        }
+    }
+}
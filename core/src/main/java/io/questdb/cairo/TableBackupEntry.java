@@ -0,0 +1,158 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.*;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Backs up files of one sealed partition. When previous backup holds the same partition
+ * files are hard-linked from there, otherwise they are copied from the table. Files that
+ * cannot be linked, e.g. because backups are on a different file system, are copied from
+ * previous backup instead.
+ */
+public class TableBackupEntry implements Closeable {
+    private static final Log LOG = LogFactory.getLog(TableBackupEntry.class);
+    private static final long TARGET_SEQUENCE_OFFSET;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(TableBackupEntry.class, "targetSequence");
+    }
+
+    private final FilesFacade ff;
+    private final int mkDirMode;
+    private final Path srcPath = new Path();
+    private final Path dstPath = new Path();
+    private final NativeLPSZ fileName = new NativeLPSZ();
+    private final FindVisitor fileVisitor = this::onFile;
+    private int srcPathLen;
+    private int dstPathLen;
+    private boolean link;
+    private int srcSequence;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private CountDownLatchSPI doneLatch;
+    private long linkedCount;
+    private long copiedSize;
+    private Throwable error;
+
+    TableBackupEntry(FilesFacade ff, int mkDirMode) {
+        this.ff = ff;
+        this.mkDirMode = mkDirMode;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(srcPath);
+        Misc.free(dstPath);
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                backupPartition();
+            } catch (Throwable e) {
+                LOG.error().$("backup task failed [src=").$(srcPath).$(", e=").$(e).$(']').$();
+                error = e;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    private void backupPartition() {
+        if (ff.mkdirs(dstPath.put(Files.SEPARATOR).$(), mkDirMode) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create [dir=").put(dstPath).put(']');
+        }
+        dstPath.trimTo(dstPathLen);
+        ff.iterateDir(srcPath.$(), fileVisitor);
+        srcPath.trimTo(srcPathLen);
+    }
+
+    long getCopiedSize() {
+        return copiedSize;
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    long getLinkedCount() {
+        return linkedCount;
+    }
+
+    /**
+     * @param srcPath partition directory to back up, in previous backup when link is true, in the table otherwise
+     * @param dstPath partition directory in the backup being made
+     */
+    void of(int sequence, Path srcPath, Path dstPath, boolean link, CountDownLatchSPI doneLatch) {
+        this.srcSequence = sequence;
+        this.targetSequence = sequence;
+        this.srcPath.of(srcPath);
+        this.srcPathLen = this.srcPath.length();
+        this.dstPath.of(dstPath);
+        this.dstPathLen = this.dstPath.length();
+        this.link = link;
+        this.doneLatch = doneLatch;
+        this.linkedCount = 0;
+        this.copiedSize = 0;
+        this.error = null;
+    }
+
+    private void onFile(long name, int type) {
+        fileName.of(name);
+        if (type == Files.DT_DIR || Files.isDots(fileName)) {
+            return;
+        }
+        srcPath.trimTo(srcPathLen).concat(fileName).$();
+        dstPath.trimTo(dstPathLen).concat(fileName).$();
+        try {
+            // any link failure, such as cross-device link or file system without
+            // hard link support, falls back to copy
+            if (link && ff.hardLink(srcPath, dstPath) == 0) {
+                linkedCount++;
+            } else {
+                copiedSize += TableUtils.copyFile(ff, srcPath, dstPath);
+            }
+        } finally {
+            srcPath.trimTo(srcPathLen);
+            dstPath.trimTo(dstPathLen);
+        }
+    }
+}
@@ -31,6 +31,7 @@ import io.questdb.std.*;
 import io.questdb.std.microtime.Timestamps;
 import io.questdb.std.str.Path;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 import java.util.concurrent.locks.LockSupport;
@@ -65,6 +66,9 @@ public class TableReader implements Closeable {
     private final CairoConfiguration configuration;
     private final IntList symbolCountSnapshot = new IntList();
     private final LongHashSet removedPartitions = new LongHashSet();
+    private final LongHashSet coldPartitions = new LongHashSet();
+    private final SharedColumnMappings sharedMappings;
+    private final TxnScoreboard.Entry txnScoreboard;
     private LongList columnTops;
     private ObjList<ReadOnlyColumn> columns;
     private ObjList<BitmapIndexReader> bitmapIndexes;
@@ -78,24 +82,38 @@ public class TableReader implements Closeable {
     private long prevPartitionTableVersion;
     private long rowCount;
     private long txn = TableUtils.INITIAL_TXN;
+    private boolean txnReleased = false;
     private long maxTimestamp = Numbers.LONG_NaN;
     private int partitionCount;
     private long minTimestamp = Long.MAX_VALUE;
     private long prevMinTimestamp = Long.MAX_VALUE;
     private ReloadMethod reloadMethod;
     private long tempMem8b = Unsafe.malloc(8);
+    private Path coldPath;
 
     public TableReader(CairoConfiguration configuration, CharSequence tableName) {
+        this(configuration, tableName, null);
+    }
+
+    /**
+     * @param sharedMappings when not null, columns of the last partition are mapped via mappings shared with other
+     *                       readers of this table. This avoids remapping column files after every commit.
+     */
+    public TableReader(CairoConfiguration configuration, CharSequence tableName, @Nullable SharedColumnMappings sharedMappings) {
         LOG.info().$("open '").utf8(tableName).$('\'').$();
         this.configuration = configuration;
         this.ff = configuration.getFilesFacade();
+        this.sharedMappings = ff.isRestrictedFileSystem() ? null : sharedMappings;
         this.tableName = Chars.toString(tableName);
         this.path = new Path().of(configuration.getRoot()).concat(tableName);
         this.rootLen = path.length();
+        this.txnScoreboard = TxnScoreboard.acquire(path);
+        this.txnScoreboard.acquireTxn(txn);
         try {
             failOnPendingTodo();
             this.txMem = openTxnFile();
             this.metadata = openMetaFile();
+            openColdPartitions();
             this.columnCount = this.metadata.getColumnCount();
             this.columnCountBits = getColumnBits(columnCount);
             switch (this.metadata.getPartitionBy()) {
@@ -189,7 +207,10 @@ public class TableReader implements Closeable {
         if (isOpen()) {
             freeSymbolMapReaders();
             freeBitmapIndexCache();
+            releaseTxn();
+            txnScoreboard.close();
             Misc.free(path);
+            coldPath = Misc.free(coldPath);
             Misc.free(metadata);
             Misc.free(txMem);
             freeColumns();
@@ -230,6 +251,17 @@ public class TableReader implements Closeable {
         closeColumnForRemove(metadata.getColumnIndex(columnName));
     }
 
+    /**
+     * Checks if partition has been moved to cold root by the writer. Files of such partition
+     * are located under {@link CairoConfiguration#getColdRoot()} rather than table root.
+     *
+     * @param partitionTimestamp timestamp floored to partition
+     * @return true when partition resides on cold root
+     */
+    public boolean isColdPartition(long partitionTimestamp) {
+        return coldPartitions.contains(partitionTimestamp);
+    }
+
     public long floorToPartitionTimestamp(long timestamp) {
         return timestampFloorMethod.floor(timestamp);
     }
@@ -291,6 +323,16 @@ public class TableReader implements Closeable {
         return (int) intervalLengthMethod.calculate(partitionTimestamp1, partitionTimestamp2);
     }
 
+    /**
+     * @return floor timestamp of partition or Long.MIN_VALUE when table is not partitioned
+     */
+    public long getPartitionTimestamp(int partitionIndex) {
+        if (timestampAddMethod == null) {
+            return Long.MIN_VALUE;
+        }
+        return floorToPartitionTimestamp(timestampAddMethod.calculate(minTimestamp, partitionIndex));
+    }
+
     public int getPartitionedBy() {
         return metadata.getPartitionBy();
     }
@@ -354,9 +396,24 @@ public class TableReader implements Closeable {
     }
 
     public boolean reload() {
+        if (txnReleased) {
+            txnScoreboard.acquireTxn(txn);
+            txnReleased = false;
+        }
         return reloadMethod.reload(this);
     }
 
+    /**
+     * Stops holding back removal of files, which are used by current transaction of this reader. Reader
+     * must not be used until it is reloaded. Pooled readers release transaction while they are idle.
+     */
+    protected void releaseTxn() {
+        if (!txnReleased) {
+            txnScoreboard.releaseTxn(txn);
+            txnReleased = true;
+        }
+    }
+
     public void reshuffleSymbolMapReaders(long pTransitionIndex) {
         final int columnCount = Unsafe.getUnsafe().getInt(pTransitionIndex + 4);
         final long index = pTransitionIndex + 8;
@@ -735,6 +792,16 @@ public class TableReader implements Closeable {
         symbolMapReaders.clear();
     }
 
+    private void openColdPartitions() {
+        TableUtils.readColdPartitions(ff, path, tempMem8b, coldPartitions);
+        if (coldPartitions.size() > 0) {
+            if (configuration.getColdRoot() == null) {
+                throw CairoException.instance(0).put("table has partitions on cold root, but cold root is not configured [table=").put(tableName).put(']');
+            }
+            coldPath = new Path();
+        }
+    }
+
     private void freeTempMem() {
         if (tempMem8b != 0) {
             Unsafe.free(tempMem8b, 8);
@@ -767,7 +834,7 @@ public class TableReader implements Closeable {
         return transientRowCount;
     }
 
-    long getTxn() {
+    public long getTxn() {
         return txn;
     }
 
@@ -894,8 +961,10 @@ public class TableReader implements Closeable {
     }
 
     private Path pathGenDay(int partitionIndex) {
+        final long timestamp = Timestamps.addDays(minTimestamp, partitionIndex);
+        final Path path = partitionRoot(timestamp);
         TableUtils.fmtDay.format(
-                Timestamps.addDays(minTimestamp, partitionIndex),
+                timestamp,
                 null, // this format does not need locale access
                 null,
                 path.put(Files.SEPARATOR)
@@ -908,8 +977,10 @@ public class TableReader implements Closeable {
     }
 
     private Path pathGenMonth(int partitionIndex) {
+        final long timestamp = Timestamps.addMonths(minTimestamp, partitionIndex);
+        final Path path = partitionRoot(timestamp);
         TableUtils.fmtMonth.format(
-                Timestamps.addMonths(minTimestamp, partitionIndex),
+                timestamp,
                 null, // this format does not need locale access
                 null,
                 path.put(Files.SEPARATOR)
@@ -918,8 +989,10 @@ public class TableReader implements Closeable {
     }
 
     private Path pathGenYear(int partitionIndex) {
+        final long timestamp = Timestamps.addYear(minTimestamp, partitionIndex);
+        final Path path = partitionRoot(timestamp);
         TableUtils.fmtYear.format(
-                Timestamps.addYear(minTimestamp, partitionIndex),
+                timestamp,
                 null, // this format does not need locale access
                 null,
                 path.put(Files.SEPARATOR)
@@ -927,6 +1000,13 @@ public class TableReader implements Closeable {
         return path.$();
     }
 
+    private Path partitionRoot(long timestamp) {
+        if (coldPartitions.size() > 0 && coldPartitions.contains(timestampFloorMethod.floor(timestamp))) {
+            return coldPath.of(configuration.getColdRoot()).concat(tableName);
+        }
+        return path;
+    }
+
     private boolean readTxn() {
         // fast path
         return this.txn != txMem.getLong(TableUtils.TX_OFFSET_TXN) && readTxnSlow();
@@ -981,9 +1061,14 @@ public class TableReader implements Closeable {
                 }
 
                 Unsafe.getUnsafe().loadFence();
+                // register transaction before the final check, writer that is about to remove files
+                // this transaction uses will either see it on the scoreboard or have not published
+                // newer transaction yet
+                txnScoreboard.acquireTxn(txn);
                 // ok, we have snapshot, check if our snapshot is stable
                 if (txn == txMem.getLong(TableUtils.TX_OFFSET_TXN)) {
                     // good, very stable, congrats
+                    txnScoreboard.releaseTxn(this.txn);
                     this.txn = txn;
                     this.transientRowCount = transientRowCount;
                     this.rowCount = fixedRowCount + transientRowCount;
@@ -1009,6 +1094,7 @@ public class TableReader implements Closeable {
                 }
                 // This is unlucky, sequences have changed while we were reading transaction data
                 // We must discard and try again
+                txnScoreboard.releaseTxn(txn);
             }
             count++;
             if (configuration.getMicrosecondClock().getTicks() > deadline) {
@@ -1090,10 +1176,14 @@ public class TableReader implements Closeable {
 
     @NotNull
     private ReadOnlyColumn openOrCreateMemory(Path path, ObjList<ReadOnlyColumn> columns, boolean lastPartition, int primaryIndex, ReadOnlyColumn mem) {
-        if (mem != null && mem != NullColumn.INSTANCE) {
+        if (mem instanceof SharedOnePageMemory) {
+            ((SharedOnePageMemory) mem).of(ff, path, ff.length(path), dataVersion, structVersion);
+        } else if (mem != null && mem != NullColumn.INSTANCE) {
             mem.of(ff, path, ff.getMapPageSize(), ff.length(path));
         } else {
-            if (lastPartition) {
+            if (lastPartition && sharedMappings != null) {
+                mem = new SharedOnePageMemory(sharedMappings, ff, path, ff.length(path), dataVersion, structVersion);
+            } else if (lastPartition) {
                 mem = new ExtendableOnePageMemory(ff, path, ff.getMapPageSize());
             } else {
                 mem = new OnePageMemory(ff, path, ff.length(path));
@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.*;
+import io.questdb.griffin.QueryProfile;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.IntList;
 import io.questdb.std.LongList;
@@ -68,8 +69,11 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
     }
 
     @Override
-    public RecordCursor getCursor(SqlExecutionContext executionContext) {
-        cursor.of(engine.getReader(executionContext.getCairoSecurityContext(), tableName, tableVersion));
+    public TableReaderSelectedColumnRecordCursor getCursor(SqlExecutionContext executionContext) {
+        cursor.of(
+                engine.getReader(executionContext.getCairoSecurityContext(), tableName, tableVersion),
+                executionContext.getQueryProfile()
+        );
         return cursor;
     }
 
@@ -81,10 +85,10 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
     @Override
     public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) {
         if (pageFrameCursor != null) {
-            return pageFrameCursor.of(engine.getReader(executionContext.getCairoSecurityContext(), tableName));
+            return pageFrameCursor.of(engine.getReader(executionContext.getCairoSecurityContext(), tableName), executionContext.getQueryProfile());
         } else if (framingSupported) {
             pageFrameCursor = new TableReaderPageFrameCursor(columnIndexes, columnSizes);
-            return pageFrameCursor.of(engine.getReader(executionContext.getCairoSecurityContext(), tableName));
+            return pageFrameCursor.of(engine.getReader(executionContext.getCairoSecurityContext(), tableName), executionContext.getQueryProfile());
         } else {
             return null;
         }
@@ -110,6 +114,7 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
         private final LongList pageSizes = new LongList();
         private long pageValueCount;
         private long partitionRemaining = 0L;
+        private QueryProfile profile;
 
         public TableReaderPageFrameCursor(IntList columnIndexes, IntList columnSizes) {
             this.columnIndexes = columnIndexes;
@@ -172,19 +177,19 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
             return reader.size();
         }
 
-        public TableReaderPageFrameCursor of(TableReader reader) {
+        public TableReaderPageFrameCursor of(TableReader reader, QueryProfile profile) {
             this.reader = reader;
+            this.profile = profile;
             toTop();
             return this;
         }
 
         private PageFrame computeFrame(long min) {
             for (int i = 0; i < columnCount; i++) {
-                final int columnIndex = columnIndexes.getQuick(i);
                 final long top = topsRemaining.getQuick(i);
                 if (top > 0) {
                     topsRemaining.setQuick(i, top - min);
-                    columnPageAddress.setQuick(columnIndex, 0);
+                    columnPageAddress.setQuick(i, 0);
                 } else {
                     long addr = columnPageNextAddress.getQuick(i);
                     long psz = pageSizes.getQuick(i);
@@ -195,6 +200,9 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
             }
             pageValueCount = min;
             partitionRemaining -= min;
+            if (profile != null) {
+                profile.addFrameScanned(min);
+            }
             return frame;
         }
 
@@ -27,6 +27,7 @@ package io.questdb.cairo;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.QueryProfile;
 import io.questdb.std.IntList;
 import io.questdb.std.Misc;
 import io.questdb.std.Rows;
@@ -44,6 +45,7 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
     private long recodLo;
     private int partitionHi;
     private long recordHi;
+    private QueryProfile profile;
 
     public TableReaderSelectedColumnRecordCursor(IntList columnIndexes) {
         this.columnIndexes = columnIndexes;
@@ -61,6 +63,10 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
         return recordA;
     }
 
+    public TableReader getTableReader() {
+        return reader;
+    }
+
     @Override
     public SymbolTable getSymbolTable(int columnIndex) {
         return reader.getSymbolMapReader(columnIndexes.getQuick(columnIndex));
@@ -103,6 +109,11 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
     }
 
     public void of(TableReader reader) {
+        of(reader, null);
+    }
+
+    public void of(TableReader reader, QueryProfile profile) {
+        this.profile = profile;
         this.partitionLo = 0;
         this.recodLo = 0;
         this.partitionHi = reader.getPartitionCount();
@@ -113,6 +124,7 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
     }
 
     public void of(TableReader reader, int partitionLo, long recordLo, int partitionHi, long recordHi) {
+        this.profile = null;
         this.partitionLo = partitionLo;
         this.partitionHi = partitionHi;
         this.recodLo = recordLo;
@@ -153,6 +165,9 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
                 } else {
                     maxRecordIndex = partitionSize - 1;
                 }
+                if (profile != null) {
+                    profile.addFrameScanned(maxRecordIndex + 1);
+                }
                 recordA.jumpTo(partitionIndex, -1);
                 partitionIndex++;
                 return true;
@@ -24,16 +24,21 @@
 
 package io.questdb.cairo;
 
+import io.questdb.MessageBus;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.griffin.SqlException;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
 import io.questdb.std.*;
 import io.questdb.std.microtime.DateFormatCompiler;
 import io.questdb.std.microtime.TimestampFormat;
 import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.CharSink;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.Path;
+import io.questdb.tasks.TableCommitTask;
 
 public final class TableUtils {
     public static final int TABLE_EXISTS = 0;
@@ -88,6 +93,10 @@ public final class TableUtils {
     static final long META_OFFSET_PARTITION_BY = 4;
     static final long META_OFFSET_TIMESTAMP_INDEX = 8;
     static final long META_OFFSET_VERSION = 12;
+    // INT - table time-to-live, positive values are hours, negative values are months, 0 - rows never expire
+    static final long META_OFFSET_TTL = 16;
+    // INT - age after which partitions are moved to cold root, encoded the same way as time-to-live
+    static final long META_OFFSET_COLD_AFTER = 20;
     static final long META_COLUMN_DATA_SIZE = 16;
     static final long META_COLUMN_DATA_RESERVED = 3;
     static final long META_OFFSET_COLUMN_TYPES = 128;
@@ -95,10 +104,19 @@ public final class TableUtils {
     static final int META_FLAG_BIT_SEQUENTIAL = 1 << 1;
 
     static final String TODO_FILE_NAME = "_todo";
+    // timestamps (LONG) of partitions moved to cold root, partition directory path relative to cold root
+    // is the same as relative to table root
+    static final String COLD_FILE_NAME = "_cold";
+    static final String COLD_PREV_FILE_NAME = "_cold.prev";
+    static final String COLD_SWAP_FILE_NAME = "_cold.swp";
     private static final int MIN_SYMBOL_CAPACITY = 2;
     private static final int MAX_SYMBOL_CAPACITY = Numbers.ceilPow2(Integer.MAX_VALUE);
     private static final int MAX_SYMBOL_CAPACITY_CACHED = Numbers.ceilPow2(1_000_000);
     private static final int MAX_INDEX_VALUE_BLOCK_SIZE = Numbers.ceilPow2(8 * 1024 * 1024);
+    // files are written in chunks to stay clear of write() size limits
+    private static final long WRITE_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int DAY_HOURS = 24;
+    private static final int WEEK_HOURS = 7 * DAY_HOURS;
     private final static Log LOG = LogFactory.getLog(TableUtils.class);
 
     private TableUtils() {
@@ -139,6 +157,8 @@ public final class TableUtils {
             mem.putInt(structure.getPartitionBy());
             mem.putInt(structure.getTimestampIndex());
             mem.putInt(tableVersion);
+            mem.putInt(structure.getTtl());
+            mem.putInt(structure.getColdAfter());
             mem.jumpTo(TableUtils.META_OFFSET_COLUMN_TYPES);
 
             for (int i = 0; i < count; i++) {
@@ -180,6 +200,54 @@ public final class TableUtils {
         }
     }
 
+    /**
+     * Copies file contents.
+     *
+     * @return number of bytes copied
+     */
+    public static long copyFile(FilesFacade ff, LPSZ from, LPSZ to) {
+        final long fromFd = ff.openRO(from);
+        if (fromFd == -1) {
+            throw CairoException.instance(ff.errno()).put("could not open [file=").put(from).put(']');
+        }
+        try {
+            final long toFd = ff.openRW(to);
+            if (toFd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open [file=").put(to).put(']');
+            }
+            try {
+                final long len = ff.length(fromFd);
+                if (len > 0) {
+                    final long address = ff.mmap(fromFd, len, 0, Files.MAP_RO);
+                    if (address == -1) {
+                        throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(from).put(']');
+                    }
+                    try {
+                        ff.madvise(address, len, Files.MADV_SEQUENTIAL);
+                        long offset = 0;
+                        while (offset < len) {
+                            final long written = ff.write(toFd, address + offset, Math.min(len - offset, WRITE_CHUNK_SIZE), offset);
+                            if (written < 1) {
+                                throw CairoException.instance(ff.errno()).put("could not write [file=").put(to).put(", offset=").put(offset).put(']');
+                            }
+                            offset += written;
+                        }
+                    } finally {
+                        ff.munmap(address, len);
+                    }
+                }
+                if (ff.fsync(toFd) != 0) {
+                    throw CairoException.instance(ff.errno()).put("could not fsync [file=").put(to).put(']');
+                }
+                return len;
+            } finally {
+                ff.close(toFd);
+            }
+        } finally {
+            ff.close(fromFd);
+        }
+    }
+
     public static int exists(FilesFacade ff, Path path, CharSequence root, CharSequence name) {
         return exists(ff, path, root, name, 0, name.length());
     }
@@ -218,6 +286,16 @@ public final class TableUtils {
         return getPartitionTableIndexOffset(symbolWriterCount, removedPartitionsCount);
     }
 
+    /**
+     * Calculates timestamp, rows older than which fall outside of retention interval.
+     *
+     * @param maxTimestamp table max timestamp
+     * @param interval     hour count when positive or negated month count when negative
+     */
+    public static long getRetentionCutoff(long maxTimestamp, int interval) {
+        return interval > 0 ? Timestamps.addHours(maxTimestamp, -interval) : Timestamps.addMonths(maxTimestamp, interval);
+    }
+
     public static long lock(FilesFacade ff, Path path) {
         long fd = ff.openRW(path);
         if (fd == -1) {
@@ -238,6 +316,98 @@ public final class TableUtils {
         path.put(".lock").$();
     }
 
+    /**
+     * Publishes commit notification for the table. Notifications are dropped when the queue is full,
+     * consumers must not rely on receiving every one of them.
+     */
+    public static void notifyCommit(MessageBus messageBus, CharSequence tableName) {
+        notifyCommit(messageBus.getTableCommitQueue(), messageBus.getTableCommitPubSequence(), tableName, false);
+    }
+
+    public static void notifyMatViewCreated(MessageBus messageBus, CharSequence viewName) {
+        notifyCommit(messageBus.getTableCommitQueue(), messageBus.getTableCommitPubSequence(), viewName, true);
+    }
+
+    static void notifyCommit(RingQueue<TableCommitTask> queue, Sequence pubSeq, CharSequence tableName) {
+        notifyCommit(queue, pubSeq, tableName, false);
+    }
+
+    private static void notifyCommit(RingQueue<TableCommitTask> queue, Sequence pubSeq, CharSequence tableName, boolean matViewCreated) {
+        long cursor;
+        do {
+            cursor = pubSeq.next();
+        } while (cursor == -2);
+
+        if (cursor > -1) {
+            final TableCommitTask task = queue.get(cursor);
+            task.tableName = tableName;
+            task.matViewCreated = matViewCreated;
+            pubSeq.done(cursor);
+        }
+    }
+
+    /**
+     * Parses retention interval such as "30d". Value is a positive integer followed by unit, which is one of
+     * 'h' (hours), 'd' (days), 'w' (weeks), 'M' (months) or 'y' (years).
+     *
+     * @param tok      value token
+     * @param position position of the token to report errors against
+     * @param option   name of the table option being parsed, e.g. "ttl"
+     * @return hour count when value is positive or negated month count when value is negative
+     * @throws SqlException when value cannot be parsed or does not fit
+     */
+    public static int parseRetentionInterval(CharSequence tok, int position, String option) throws SqlException {
+        final int len = tok.length();
+        if (len < 2) {
+            throw SqlException.$(position, "invalid ").put(option).put(", expected number followed by 'h', 'd', 'w', 'M' or 'y'");
+        }
+
+        final long value;
+        try {
+            value = Numbers.parseLong(tok, 0, len - 1);
+        } catch (NumericException e) {
+            throw SqlException.$(position, "invalid ").put(option).put(", expected number followed by 'h', 'd', 'w', 'M' or 'y'");
+        }
+
+        if (value < 1) {
+            throw SqlException.$(position, option).put(" must be positive");
+        }
+
+        if (value > Integer.MAX_VALUE) {
+            throw SqlException.$(position, option).put(" is too large");
+        }
+
+        final long interval;
+        switch (tok.charAt(len - 1)) {
+            case 'h':
+            case 'H':
+                interval = value;
+                break;
+            case 'd':
+            case 'D':
+                interval = value * DAY_HOURS;
+                break;
+            case 'w':
+            case 'W':
+                interval = value * WEEK_HOURS;
+                break;
+            case 'M':
+                interval = -value;
+                break;
+            case 'y':
+            case 'Y':
+                interval = -value * 12;
+                break;
+            default:
+                throw SqlException.$(position, "invalid ").put(option).put(" unit, expected 'h', 'd', 'w', 'M' or 'y'");
+        }
+
+        if (interval > Integer.MAX_VALUE || interval < -Integer.MAX_VALUE) {
+            throw SqlException.$(position, option).put(" is too large");
+        }
+        return (int) interval;
+    }
+
     public static void resetTxn(VirtualMemory txMem, int symbolMapCount, long txn, long dataVersion) {
         // txn to let readers know table is being reset
         txMem.putLong(TX_OFFSET_TXN, txn);
@@ -277,6 +447,22 @@ public final class TableUtils {
         return symbolKey == SymbolTable.VALUE_IS_NULL ? 0 : symbolKey + 1;
     }
 
+    public static void retentionIntervalToSink(int interval, CharSink sink) {
+        if (interval > 0) {
+            if (interval % WEEK_HOURS == 0) {
+                sink.put(interval / WEEK_HOURS).put('w');
+            } else if (interval % DAY_HOURS == 0) {
+                sink.put(interval / DAY_HOURS).put('d');
+            } else {
+                sink.put(interval).put('h');
+            }
+        } else if (-interval % 12 == 0) {
+            sink.put(-interval / 12).put('y');
+        } else {
+            sink.put(-interval).put('M');
+        }
+    }
+
     public static void validate(FilesFacade ff, ReadOnlyColumn metaMem, CharSequenceIntHashMap nameIndex) {
         try {
             final int metaVersion = metaMem.getInt(TableUtils.META_OFFSET_VERSION);
@@ -386,6 +572,149 @@ public final class TableUtils {
      *
      * @return number of rows column doesn't have when column was added to table that already had data.
      */
+    /**
+     * Flushes directory entries to storage device. This is best effort, some platforms cannot
+     * open directories as files.
+     */
+    static void fsyncDir(FilesFacade ff, LPSZ path) {
+        final long fd = ff.openRO(path);
+        if (fd == -1) {
+            return;
+        }
+        try {
+            if (ff.fsync(fd) != 0) {
+                LOG.info().$("could not flush directory [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    /**
+     * Reads timestamps of partitions moved to cold root.
+     *
+     * @param path table directory, path is trimmed back to its original length
+     */
+    static void readColdPartitions(FilesFacade ff, Path path, long tempMem8b, LongHashSet partitions) {
+        final int plen = path.length();
+        try {
+            path.concat(COLD_FILE_NAME).$();
+            if (!ff.exists(path)) {
+                // writer may have stopped half way through replacing the list
+                path.trimTo(plen).concat(COLD_PREV_FILE_NAME).$();
+                if (!ff.exists(path)) {
+                    return;
+                }
+            }
+            final long fd = ff.openRO(path);
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("Cannot open: ").put(path);
+            }
+            try {
+                final long len = ff.length(fd);
+                for (long offset = 0; offset < len; offset += Long.BYTES) {
+                    if (ff.read(fd, tempMem8b, Long.BYTES, offset) != Long.BYTES) {
+                        throw CairoException.instance(ff.errno()).put("Cannot read: ").put(path);
+                    }
+                    partitions.add(Unsafe.getUnsafe().getLong(tempMem8b));
+                }
+            } finally {
+                ff.close(fd);
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    /**
+     * Replaces list of partitions moved to cold root. List is written and flushed to swap file first,
+     * which is then renamed, so that readers never see partially written list. Where rename cannot
+     * replace existing file, previous list is kept aside as _cold.prev until the new one is in place.
+     *
+     * @param path table directory, path is trimmed back to its original length
+     */
+    static void writeColdPartitions(FilesFacade ff, Path path, Path other, long tempMem8b, LongHashSet partitions) {
+        final int plen = path.length();
+        final int olen = other.length();
+        try {
+            path.concat(COLD_SWAP_FILE_NAME).$();
+            if (ff.exists(path) && !ff.remove(path)) {
+                throw CairoException.instance(ff.errno()).put("Cannot remove: ").put(path);
+            }
+            final long fd = ff.openRW(path);
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("Cannot open: ").put(path);
+            }
+            try {
+                for (int i = 0, n = partitions.size(); i < n; i++) {
+                    Unsafe.getUnsafe().putLong(tempMem8b, partitions.get(i));
+                    if (ff.write(fd, tempMem8b, Long.BYTES, (long) i * Long.BYTES) != Long.BYTES) {
+                        throw CairoException.instance(ff.errno()).put("Cannot write: ").put(path);
+                    }
+                }
+                if (ff.fsync(fd) != 0) {
+                    throw CairoException.instance(ff.errno()).put("Cannot fsync: ").put(path);
+                }
+            } finally {
+                ff.close(fd);
+            }
+
+            other.concat(COLD_FILE_NAME).$();
+            if (!ff.rename(path, other)) {
+                // rename may refuse to replace existing file, keep it until replacement is in place
+                final int len = other.length();
+                if (!ff.exists(other)) {
+                    throw CairoException.instance(ff.errno()).put("Cannot rename ").put(path).put(" -> ").put(other);
+                }
+                final LPSZ prev = path.trimTo(plen).concat(COLD_PREV_FILE_NAME).$();
+                if (ff.exists(prev) && !ff.remove(prev)) {
+                    throw CairoException.instance(ff.errno()).put("Cannot remove: ").put(prev);
+                }
+                if (!ff.rename(other, prev)) {
+                    throw CairoException.instance(ff.errno()).put("Cannot rename ").put(other).put(" -> ").put(prev);
+                }
+                path.trimTo(plen).concat(COLD_SWAP_FILE_NAME).$();
+                if (!ff.rename(path, other.trimTo(len).$())) {
+                    final int errno = ff.errno();
+                    path.trimTo(plen).concat(COLD_PREV_FILE_NAME).$();
+                    if (!ff.rename(path, other)) {
+                        LOG.error().$("could not restore [file=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                    }
+                    throw CairoException.instance(errno).put("Cannot rename ").put(COLD_SWAP_FILE_NAME).put(" -> ").put(other);
+                }
+                path.trimTo(plen).concat(COLD_PREV_FILE_NAME).$();
+            } else {
+                path.trimTo(plen).concat(COLD_PREV_FILE_NAME).$();
+            }
+            // list is in place, previous one is no longer needed
+            if (ff.exists(path) && !ff.remove(path)) {
+                LOG.info().$("could not remove [file=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            fsyncDir(ff, path.trimTo(plen).$());
+        } finally {
+            path.trimTo(plen);
+            other.trimTo(olen);
+        }
+    }
+
+    static void setPathForPartition(Path path, int partitionBy, long timestamp) {
+        path.put(Files.SEPARATOR);
+        switch (partitionBy) {
+            case PartitionBy.DAY:
+                fmtDay.format(timestamp, null, null, path);
+                break;
+            case PartitionBy.MONTH:
+                fmtMonth.format(timestamp, null, null, path);
+                break;
+            case PartitionBy.YEAR:
+                fmtYear.format(timestamp, null, null, path);
+                break;
+            default:
+                path.concat(DEFAULT_PARTITION_NAME);
+                break;
+        }
+    }
+
     static long readColumnTop(FilesFacade ff, Path path, CharSequence name, int plen, long buf) {
         try {
             if (ff.exists(topFile(path.chopZ(), name))) {
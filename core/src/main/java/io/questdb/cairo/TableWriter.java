@@ -29,10 +29,13 @@ import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Histogram;
+import io.questdb.metrics.Metrics;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.SOCountDownLatch;
 import io.questdb.mp.Sequence;
 import io.questdb.std.*;
+import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.microtime.TimestampFormat;
 import io.questdb.std.microtime.TimestampFormatUtils;
 import io.questdb.std.microtime.Timestamps;
@@ -43,12 +46,11 @@ import io.questdb.tasks.ColumnIndexerTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.Closeable;
 import java.util.function.LongConsumer;
 
 import static io.questdb.cairo.TableUtils.*;
 
-public class TableWriter implements Closeable {
+public class TableWriter implements TableWriterAPI {
 
     private static final Log LOG = LogFactory.getLog(TableWriter.class);
     private static final CharSequenceHashSet IGNORED_FILES = new CharSequenceHashSet();
@@ -61,10 +63,13 @@ public class TableWriter implements Closeable {
     private final ObjList<SymbolMapWriter> denseSymbolMapWriters;
     private final ObjList<ColumnIndexer> indexers;
     private final ObjList<ColumnIndexer> denseIndexers = new ObjList<>();
+    private final ObjList<LatestRowWriter> latestRowWriters = new ObjList<>();
+    private final ObjList<LatestRowWriter> denseLatestRowWriters = new ObjList<>();
     private final Path path;
     private final Path other;
+    private final TxnScoreboard.Entry txnScoreboard;
     private final LongList refs = new LongList();
-    private final Row row = new Row();
+    private final Row row = new RowImpl();
     private final int rootLen;
     private final ReadWriteMemory txMem;
     private final ReadOnlyMemory metaMem;
@@ -90,9 +95,23 @@ public class TableWriter implements Closeable {
     private final MessageBus messageBus;
     private final boolean parallelIndexerEnabled;
     private final LongHashSet removedPartitions = new LongHashSet();
+    // pairs of removed partition timestamp and transaction that removed it, directories
+    // are deleted once readers of older transactions are gone
+    private final LongList removedPartitionPurges = new LongList();
+    private final LongHashSet coldPartitions = new LongHashSet();
+    // partitions copied to cold root, which are yet to be switched over to it
+    private final LongList copiedColdPartitions = new LongList();
+    private final CharSequence coldRoot;
+    private final Path coldPath;
+    private final Path coldOther;
     private final Timestamps.TimestampFloorMethod timestampFloorMethod;
     private final Timestamps.TimestampAddMethod timestampAddMethod;
     private final int defaultCommitMode;
+    private final MicrosecondClock clock;
+    private final NanosecondClock nanosecondClock;
+    private final Histogram commitLatency;
+    private final long groupCommitLatency;
+    private final long groupCommitMaxRows;
     private final FindVisitor removePartitionDirectories = this::removePartitionDirectories0;
     private final ObjList<Runnable> nullers;
     private int txPartitionCount = 0;
@@ -106,6 +125,8 @@ public class TableWriter implements Closeable {
     private RowFunction rowFunction = openPartitionFunction;
     private long prevMaxTimestamp;
     private long txPrevTransientRowCount;
+    // row count of last partition set by removeRowsFrom(), -1 once removal is committed
+    private long txRemovedRowCount = -1;
     private long maxTimestamp;
     private long minTimestamp;
     private long prevMinTimestamp;
@@ -124,6 +145,10 @@ public class TableWriter implements Closeable {
     private boolean performRecovery;
     private boolean distressed = false;
     private LifecycleManager lifecycleManager;
+    // durability of commits published without msync, see commit(int)
+    private int pendingSyncMode = CommitMode.NOSYNC;
+    private long pendingSyncDeadline;
+    private long syncedRowCount;
 
     public TableWriter(CairoConfiguration configuration, CharSequence name) {
         this(configuration, name, null);
@@ -150,11 +175,28 @@ public class TableWriter implements Closeable {
             boolean lock,
             LifecycleManager lifecycleManager,
             CharSequence root
+    ) {
+        this(configuration, name, messageBus, lock, lifecycleManager, root, null);
+    }
+
+    public TableWriter(
+            CairoConfiguration configuration,
+            CharSequence name,
+            @Nullable MessageBus messageBus,
+            boolean lock,
+            LifecycleManager lifecycleManager,
+            CharSequence root,
+            @Nullable Metrics metrics
     ) {
         LOG.info().$("open '").utf8(name).$('\'').$();
         this.configuration = configuration;
         this.messageBus = messageBus;
+        this.commitLatency = metrics != null ? metrics.getCommitLatency() : null;
+        this.nanosecondClock = configuration.getNanosecondClock();
         this.defaultCommitMode = configuration.getCommitMode();
+        this.clock = configuration.getMicrosecondClock();
+        this.groupCommitLatency = configuration.getGroupCommitLatency() * 1000;
+        this.groupCommitMaxRows = configuration.getGroupCommitMaxRows();
         this.lifecycleManager = lifecycleManager;
         this.parallelIndexerEnabled = messageBus != null && configuration.isParallelIndexingEnabled();
         this.ff = configuration.getFilesFacade();
@@ -162,8 +204,12 @@ public class TableWriter implements Closeable {
         this.fileOperationRetryCount = configuration.getFileOperationRetryCount();
         this.path = new Path().of(root).concat(name);
         this.other = new Path().of(root).concat(name);
+        this.coldRoot = configuration.getColdRoot();
+        this.coldPath = coldRoot != null ? new Path() : null;
+        this.coldOther = coldRoot != null ? new Path() : null;
         this.name = Chars.toString(name);
         this.rootLen = path.length();
+        this.txnScoreboard = TxnScoreboard.acquire(path);
         try {
             if (lock) {
                 lock();
@@ -179,6 +225,7 @@ public class TableWriter implements Closeable {
             this.metaMem = new ReadOnlyMemory();
             openMetaFile();
             this.metadata = new TableWriterMetadata(ff, metaMem);
+            openColdPartitions();
 
             // we have to do truncate repair at this stage of constructor
             // because this operation requires metadata
@@ -229,10 +276,22 @@ public class TableWriter implements Closeable {
             }
 
             configureColumnMemory();
+            if (todo != -1L && (int) (todo & 0xff) == TODO_TRUNCATE) {
+                // symbol maps can only be reset once their writers are open
+                truncateSymbolMaps();
+                removeTodoFile();
+            }
             timestampSetter = configureTimestampSetter();
             configureAppendPosition();
             purgeUnusedPartitions();
             loadRemovedPartitions();
+            queueRemovedPartitionPurges();
+            openLatestRowWriters();
+            this.syncedRowCount = size();
+            if (lock) {
+                // nothing can commit to the table before WAL apply interrupted by crash is resolved
+                WalApplyJob.completeApply(ff, path.trimTo(rootLen), txn, tempMem8b);
+            }
         } catch (CairoException e) {
             LOG.error().$("could not open '").$(path).$("' and this is why: {").$((Sinkable) e).$('}').$();
             doClose(false);
@@ -253,6 +312,7 @@ public class TableWriter implements Closeable {
         }
     }
 
+    @Override
     public void addColumn(CharSequence name, int type) {
         addColumn(name, type, configuration.getDefaultSymbolCapacity(), configuration.getDefaultSymbolCacheFlag(), false, 0, false);
     }
@@ -310,7 +370,7 @@ public class TableWriter implements Closeable {
 
         commit();
 
-        removeColumnFiles(name, type, REMOVE_OR_EXCEPTION);
+        removeColumnFiles(name, type, 0, REMOVE_OR_EXCEPTION);
 
         // create new _meta.swp
         this.metaSwapIndex = addColumnToMeta(name, type, isIndexed, indexValueBlockCapacity, isSequential);
@@ -480,6 +540,155 @@ public class TableWriter implements Closeable {
         LOG.info().$("ADDED index to '").utf8(columnName).$('[').$(ColumnType.nameOf(existingType)).$("]' to ").$(path).$();
     }
 
+    /**
+     * Enables cache of latest row per key for indexed symbol column. Cache is built from committed data
+     * and then maintained on every commit. Queries selecting latest rows for all keys of the column
+     * consult the cache instead of searching index of every partition.
+     *
+     * @param columnName name of indexed symbol column
+     */
+    public void addLatestRowCache(CharSequence columnName) {
+        checkDistressed();
+
+        final int columnIndex = getColumnIndexQuiet(metaMem, columnName, columnCount);
+        if (columnIndex == -1) {
+            throw CairoException.instance(0).put("Invalid column name: ").put(columnName);
+        }
+
+        if (!isColumnIndexed(metaMem, columnIndex)) {
+            throw CairoException.instance(0).put("column is not indexed [column=").put(columnName).put(']');
+        }
+
+        if (columnIndex < latestRowWriters.size() && latestRowWriters.getQuick(columnIndex) != null) {
+            throw CairoException.instance(0).put("latest row cache already exists [column=").put(columnName).put(']');
+        }
+
+        if (columnIndex >= indexers.size() || indexers.getQuick(columnIndex) == null) {
+            throw CairoException.instance(0).put("index is not open, table has to be reopened [column=").put(columnName).put(']');
+        }
+
+        commit();
+
+        LOG.info().$("adding latest row cache to '").utf8(columnName).$("' [path=").$(path).$(']').$();
+
+        // cache is built under temporary name, readers should not see partially built file
+        final LatestRowWriter writer = new LatestRowWriter();
+        try {
+            try {
+                writer.of(ff, LatestRowWriter.tempFileName(path.trimTo(rootLen), columnName), txn, dataVersion);
+                buildLatestRows(writer, columnName);
+                writer.commit(txn);
+            } finally {
+                writer.close();
+                path.trimTo(rootLen);
+            }
+
+            if (!ff.rename(LatestRowWriter.tempFileName(path, columnName), LatestRowWriter.fileName(other, columnName))) {
+                throw CairoException.instance(ff.errno()).put("cannot rename ").put(path).put(" to ").put(other);
+            }
+        } catch (CairoException e) {
+            LOG.error().$("removing latest row cache built so far [path=").$(path).$(']').$();
+            removeFileAndOrLog(ff, LatestRowWriter.tempFileName(path.trimTo(rootLen), columnName));
+            throw e;
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+
+        openLatestRowWriter(columnIndex, columnName);
+
+        LOG.info().$("ADDED latest row cache to '").utf8(columnName).$("' [path=").$(path).$(']').$();
+    }
+
+    /**
+     * Appends block of rows from native column buffers. Every buffer holds rowCount values in
+     * the format of the column file, which is the format of page frames. SYMBOL columns take keys
+     * returned by {@link #putSym(int, CharSequence)}. Zero address appends nulls to the column.
+     * Designated timestamps are checked for order once for the whole block, column values
+     * are then copied over in one go for each partition the block spans.
+     * <p>
+     * Variable length columns are not supported, such tables have to be populated via {@link Row}.
+     *
+     * @param columnAddresses buffer address for each column of table metadata
+     * @param rowCount        number of values in each buffer
+     */
+    public void appendBlock(LongList columnAddresses, long rowCount) {
+        checkDistressed();
+
+        if ((masterRef & 1) != 0) {
+            cancelRow();
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metadata.getColumnType(i);
+            if (type == ColumnType.STRING || type == ColumnType.BINARY) {
+                throw CairoException.instance(0).put("cannot append block to variable length column [table=").put(name).put(", column=").put(metadata.getColumnName(i)).put(']');
+            }
+        }
+
+        if (rowCount < 1) {
+            return;
+        }
+
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex == -1) {
+            // same as rows appended via newRow()
+            updateMaxTimestamp(0);
+            appendBlock0(columnAddresses, 0, rowCount);
+            return;
+        }
+
+        final long timestamps = columnAddresses.getQuick(timestampIndex);
+        if (timestamps == 0) {
+            throw CairoException.instance(0).put("designated timestamp is required [table=").put(name).put(']');
+        }
+
+        long prev = maxTimestamp;
+        for (long p = timestamps, hi = timestamps + rowCount * Long.BYTES; p < hi; p += Long.BYTES) {
+            final long timestamp = Unsafe.getUnsafe().getLong(p);
+            if (timestamp < prev) {
+                throw CairoException.instance(0).put("Cannot insert rows out of order. Table=").put(path);
+            }
+            prev = timestamp;
+        }
+
+        long lo = 0;
+        while (lo < rowCount) {
+            final long timestamp = Unsafe.getUnsafe().getLong(timestamps + lo * Long.BYTES);
+            if (rowFunction == openPartitionFunction) {
+                minTimestamp = timestamp;
+                openFirstPartition(timestamp);
+                rowFunction = switchPartitionFunction;
+            } else if (timestamp > partitionHi && partitionBy != PartitionBy.NONE) {
+                switchPartition(timestamp);
+            }
+
+            // rows of current partition
+            long hi = rowCount;
+            if (partitionBy != PartitionBy.NONE) {
+                long l = lo;
+                long h = rowCount - 1;
+                while (l <= h) {
+                    final long mid = (l + h) >>> 1;
+                    if (Unsafe.getUnsafe().getLong(timestamps + mid * Long.BYTES) > partitionHi) {
+                        h = mid - 1;
+                    } else {
+                        l = mid + 1;
+                    }
+                }
+                hi = l;
+            }
+
+            appendBlock0(columnAddresses, lo, hi);
+            prevMaxTimestamp = maxTimestamp;
+            maxTimestamp = Unsafe.getUnsafe().getLong(timestamps + (hi - 1) * Long.BYTES);
+            if (prevMinTimestamp == Long.MAX_VALUE) {
+                prevMinTimestamp = minTimestamp;
+            }
+            lo = hi;
+        }
+    }
+
     public void changeCacheFlag(int columnIndex, boolean cache) {
         checkDistressed();
 
@@ -502,6 +711,7 @@ public class TableWriter implements Closeable {
         }
     }
 
+    @Override
     public void commit() {
         commit(defaultCommitMode);
     }
@@ -512,8 +722,21 @@ public class TableWriter implements Closeable {
      * <b>Pending rows</b>
      * <p>This method will cancel pending rows by calling {@link #cancelRow()}. Data in partially appended row will be lost.</p>
      *
+     * <p>
+     * <b>Group commit</b>
+     * <p>When group commit latency is configured, {@link CommitMode#ASYNC} commits are published to readers
+     * straight away, but msync of column and transaction files is deferred until either the latency budget
+     * elapses or the number of rows committed since last sync exceeds the configured limit. One msync then
+     * covers all transactions committed in the window. Deferred sync is completed by {@link #checkPendingSync()},
+     * {@link #syncPendingCommit()} or when writer is closed.</p>
+     * <p>{@link CommitMode#SYNC} commit is published the same way, but it does not return until its
+     * transaction together with every deferred transaction before it is synced. SYNC commits to different
+     * tables are grouped by {@link GroupCommitCoordinator}: first committer waits for the latency budget,
+     * committers that arrive in the meantime join it and one thread syncs files of all of them.</p>
+     *
      * @param commitMode commit durability mode.
      */
+    @Override
     public void commit(int commitMode) {
 
         checkDistressed();
@@ -524,11 +747,15 @@ public class TableWriter implements Closeable {
 
         if (inTransaction()) {
 
-            if (commitMode != CommitMode.NOSYNC) {
+            final long commitStart = nanosecondClock.getTicks();
+            final boolean deferSync = commitMode != CommitMode.NOSYNC && groupCommitLatency > 0;
+            if (commitMode != CommitMode.NOSYNC && !deferSync) {
                 syncColumns(commitMode);
             }
 
             updateIndexes();
+            commitLatestRows(txn + 1);
+            publishSymbolIndexes(txn + 1);
 
             txMem.putLong(TX_OFFSET_TXN, ++txn);
             Unsafe.getUnsafe().storeFence();
@@ -552,13 +779,46 @@ public class TableWriter implements Closeable {
 
             Unsafe.getUnsafe().storeFence();
             txMem.putLong(TX_OFFSET_TXN_CHECK, txn);
-            if (commitMode != CommitMode.NOSYNC) {
+            removeObsoleteFiles();
+            if (deferSync) {
+                deferSync();
+                if (commitMode == CommitMode.SYNC) {
+                    pendingSyncMode = CommitMode.SYNC;
+                    GroupCommitCoordinator.sync(this, nanosecondClock, groupCommitLatency * 1000);
+                }
+            } else if (commitMode != CommitMode.NOSYNC) {
                 txMem.sync(0, commitMode == CommitMode.ASYNC);
+                pendingSyncMode = CommitMode.NOSYNC;
+                syncedRowCount = size();
             }
             txPrevTransientRowCount = transientRowCount;
+            txRemovedRowCount = -1;
+            if (messageBus != null) {
+                notifyCommit(messageBus, name);
+            }
+            if (deferSync && size() - syncedRowCount > groupCommitMaxRows) {
+                syncPendingCommit();
+            }
+            if (commitLatency != null) {
+                commitLatency.observe(nanosecondClock.getTicks() - commitStart);
+            }
         }
     }
 
+    /**
+     * Completes deferred sync of committed transactions when group commit latency budget has elapsed.
+     * Writer owners that are idle should call this method periodically.
+     *
+     * @return true when there is still sync pending after this call.
+     */
+    @Override
+    public boolean checkPendingSync() {
+        if (pendingSyncMode != CommitMode.NOSYNC && clock.getTicks() >= pendingSyncDeadline) {
+            syncPendingCommit();
+        }
+        return pendingSyncMode != CommitMode.NOSYNC;
+    }
+
     public int getColumnIndex(CharSequence name) {
         int index = metadata.getColumnIndexQuiet(name);
         if (index > -1) {
@@ -567,38 +827,180 @@ public class TableWriter implements Closeable {
         throw CairoException.instance(0).put("Invalid column name: ").put(name);
     }
 
+    @Override
     public long getMaxTimestamp() {
         return maxTimestamp;
     }
 
+    @Override
     public RecordMetadata getMetadata() {
         return metadata;
     }
 
+    @Override
     public CharSequence getName() {
         return name;
     }
 
+    @Override
     public int getPartitionBy() {
         return partitionBy;
     }
 
+    @Override
     public long getStructureVersion() {
         return structureVersion;
     }
 
+    public long getTxn() {
+        return txn;
+    }
+
+    /**
+     * @return table time-to-live, positive values are hours, negative values are months, 0 when rows never expire
+     */
+    public int getTtl() {
+        return metaMem.getInt(META_OFFSET_TTL);
+    }
+
+    /**
+     * Checks if the oldest partition of the table has expired. Partition expires when all of its rows
+     * are older than table time-to-live relative to table max timestamp. Active partition never expires.
+     */
+    public boolean hasExpiredPartitions() {
+        final int ttl = getTtl();
+        return ttl != 0
+                && partitionBy != PartitionBy.NONE
+                && minTimestamp < maxTimestamp
+                && timestampFloorMethod.floor(minTimestamp) != timestampFloorMethod.floor(maxTimestamp)
+                && timestampAddMethod.calculate(timestampFloorMethod.floor(minTimestamp), 1) <= getRetentionCutoff(maxTimestamp, ttl);
+    }
+
+    /**
+     * @return interval after which sealed partitions are moved to cold root, encoded the same way as {@link #getTtl()}.
+     * 0 when partitions are never moved
+     */
+    public int getColdAfter() {
+        return metaMem.getInt(META_OFFSET_COLD_AFTER);
+    }
+
+    /**
+     * Checks if table has sealed partitions, which are entirely older than cold_after interval relative to table
+     * max timestamp and still reside under table root. Always false when cold root is not configured.
+     */
+    public boolean hasColdPartitionCandidates() {
+        return nextColdPartitionCandidate(Long.MIN_VALUE) != Numbers.LONG_NaN;
+    }
+
+    public boolean isColdPartition(long partitionTimestamp) {
+        return coldPartitions.contains(partitionTimestamp);
+    }
+
+    /**
+     * Copies partitions, which are entirely older than cold_after interval, from table root to cold root.
+     * Copied files are flushed to storage device. Partitions remain in use under table root until
+     * {@link #switchColdPartitions()} is called. Sealed partitions are not written to, readers do not
+     * have to be locked while they are copied.
+     *
+     * @return number of copied partitions
+     */
+    public int copyColdPartitions() {
+        copiedColdPartitions.clear();
+        long timestamp = nextColdPartitionCandidate(Long.MIN_VALUE);
+        while (timestamp != Numbers.LONG_NaN) {
+            copyColdPartition(timestamp);
+            copiedColdPartitions.add(timestamp);
+            timestamp = nextColdPartitionCandidate(timestampAddMethod.calculate(timestamp, 1));
+        }
+        return copiedColdPartitions.size();
+    }
+
+    /**
+     * Moves partitions, which are entirely older than cold_after interval, from table root to cold root.
+     * Caller is responsible for making sure no readers have these partitions open.
+     *
+     * @return number of moved partitions
+     */
+    public int moveColdPartitions() {
+        copyColdPartitions();
+        return switchColdPartitions();
+    }
+
+    /**
+     * Switches partitions copied by {@link #copyColdPartitions()} over to cold root. Partitions are
+     * recorded in _cold file and only then their directories under table root are removed. Failure
+     * at any stage leaves complete copy of partition in either location. Caller is responsible for
+     * making sure no readers have these partitions open.
+     *
+     * @return number of moved partitions
+     */
+    public int switchColdPartitions() {
+        final int n = copiedColdPartitions.size();
+        if (n == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        try {
+            for (int i = 0; i < n; i++) {
+                final long timestamp = copiedColdPartitions.getQuick(i);
+                // partition could have expired since it was copied
+                if (removedPartitions.excludes(timestamp) && coldPartitions.excludes(timestamp)) {
+                    coldPartitions.add(timestamp);
+                    count++;
+                } else {
+                    copiedColdPartitions.setQuick(i, Numbers.LONG_NaN);
+                    setColdPartitionPath(coldPath, timestamp);
+                    if (!ff.rmdir(coldPath.put(Files.SEPARATOR).$())) {
+                        LOG.info().$("could not remove [path=").$(coldPath).$(", errno=").$(ff.errno()).$(']').$();
+                    }
+                }
+            }
+
+            if (count > 0) {
+                try {
+                    writeColdPartitions(ff, path, other, tempMem8b, coldPartitions);
+                } catch (CairoException e) {
+                    for (int i = 0; i < n; i++) {
+                        coldPartitions.remove(copiedColdPartitions.getQuick(i));
+                    }
+                    throw e;
+                }
+
+                for (int i = 0; i < n; i++) {
+                    final long timestamp = copiedColdPartitions.getQuick(i);
+                    if (timestamp != Numbers.LONG_NaN) {
+                        setStateForTimestamp(timestamp, false);
+                        if (!ff.rmdir(path.put(Files.SEPARATOR).$())) {
+                            LOG.info().$("partition directory delete is postponed [path=").$(path).$(']').$();
+                        }
+                        path.trimTo(rootLen);
+                        setColdPartitionPath(coldPath, timestamp);
+                        LOG.info().$("moved partition to cold root [path=").$(coldPath.$()).$(']').$();
+                    }
+                }
+            }
+        } finally {
+            copiedColdPartitions.clear();
+            path.trimTo(rootLen);
+        }
+        return count;
+    }
+
     public boolean inTransaction() {
-        return txPartitionCount > 1 || transientRowCount != txPrevTransientRowCount;
+        return txPartitionCount > 1 || transientRowCount != txPrevTransientRowCount || txRemovedRowCount > -1;
     }
 
     public boolean isOpen() {
         return tempMem8b != 0;
     }
 
+    @Override
     public Row newRow(long timestamp) {
         return rowFunction.newRow(timestamp);
     }
 
+    @Override
     public Row newRow() {
         return newRow(0L);
     }
@@ -627,6 +1029,17 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Adds value to symbol table of the column unless it is already there.
+     *
+     * @param columnIndex index of SYMBOL column
+     * @param value       symbol value, can be null
+     * @return symbol key for {@link #appendBlock(LongList, long)}
+     */
+    public int putSym(int columnIndex, CharSequence value) {
+        return symbolMapWriters.getQuick(columnIndex).put(value);
+    }
+
     public void removeColumn(CharSequence name) {
 
         checkDistressed();
@@ -666,6 +1079,16 @@ public class TableWriter implements Closeable {
         // remove column objects
         removeColumn(index);
 
+        // symbol index could have been rebuilt, in which case it is stored in versioned files
+        final int symbolIndexVersion;
+        if (type == ColumnType.SYMBOL) {
+            final SymbolMapWriter symbolMapWriter = symbolMapWriters.getQuick(index);
+            symbolIndexVersion = symbolMapWriter.getIndexVersion();
+            symbolMapWriter.removeObsoleteIndexes(Long.MAX_VALUE);
+        } else {
+            symbolIndexVersion = 0;
+        }
+
         // remove symbol map writer or entry for such
         removeSymbolMapWriter(index);
 
@@ -688,7 +1111,7 @@ public class TableWriter implements Closeable {
             removeTodoFile();
 
             // remove column files has to be done after _todo is removed
-            removeColumnFiles(name, type, REMOVE_OR_LOG);
+            removeColumnFiles(name, type, symbolIndexVersion, REMOVE_OR_LOG);
         } catch (CairoException err) {
             throwDistressException(err);
         }
@@ -740,7 +1163,7 @@ public class TableWriter implements Closeable {
             removeTodoFile();
 
             // rename column files has to be done after _todo is removed
-            renameColumnFiles(currentName, newName, type);
+            renameColumnFiles(currentName, newName, type, type == ColumnType.SYMBOL ? symbolMapWriters.getQuick(index) : null);
         } catch (CairoException err) {
             throwDistressException(err);
         }
@@ -752,29 +1175,23 @@ public class TableWriter implements Closeable {
         LOG.info().$("RENAMED column '").utf8(currentName).$("' to '").utf8(newName).$("' from ").$(path).$();
     }
 
-    private void renameColumnFiles(CharSequence columnName, CharSequence newName, int columnType) {
+    private void renameColumnFiles(CharSequence columnName, CharSequence newName, int columnType, SymbolMapWriter symbolMapWriter) {
         try {
-            ff.iterateDir(path.$(), (file, type) -> {
-                nativeLPSZ.of(file);
-                if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
-                    path.trimTo(rootLen);
-                    path.concat(nativeLPSZ);
-                    other.trimTo(rootLen);
-                    other.concat(nativeLPSZ);
-                    int plen = path.length();
-                    renameFileOrLog(ff, dFile(path.trimTo(plen), columnName), dFile(other.trimTo(plen), newName));
-                    renameFileOrLog(ff, iFile(path.trimTo(plen), columnName), iFile(other.trimTo(plen), newName));
-                    renameFileOrLog(ff, topFile(path.trimTo(plen), columnName), topFile(other.trimTo(plen), newName));
-                    renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName));
-                    renameFileOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName), BitmapIndexUtils.valueFileName(other.trimTo(plen), newName));
-                }
-            });
+            renamePartitionColumnFiles(path, other, rootLen, columnName, newName);
+            if (coldPartitions.size() > 0) {
+                coldPath.of(coldRoot).concat(name);
+                coldOther.of(coldRoot).concat(name);
+                renamePartitionColumnFiles(coldPath, coldOther, coldPath.length(), columnName, newName);
+            }
 
             if (columnType == ColumnType.SYMBOL) {
                 renameFileOrLog(ff, SymbolMapWriter.offsetFileName(path.trimTo(rootLen), columnName), SymbolMapWriter.offsetFileName(other.trimTo(rootLen), newName));
                 renameFileOrLog(ff, SymbolMapWriter.charFileName(path.trimTo(rootLen), columnName), SymbolMapWriter.charFileName(other.trimTo(rootLen), newName));
-                renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(rootLen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(rootLen), newName));
-                renameFileOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(rootLen), columnName), BitmapIndexUtils.valueFileName(other.trimTo(rootLen), newName));
+                final int indexVersion = symbolMapWriter.getIndexVersion();
+                renameFileOrLog(ff, SymbolMapWriter.indexKeyFileName(path.trimTo(rootLen), columnName, indexVersion), SymbolMapWriter.indexKeyFileName(other.trimTo(rootLen), newName, indexVersion));
+                renameFileOrLog(ff, SymbolMapWriter.indexValueFileName(path.trimTo(rootLen), columnName, indexVersion), SymbolMapWriter.indexValueFileName(other.trimTo(rootLen), newName, indexVersion));
+                renameFileOrLog(ff, LatestRowWriter.fileName(path.trimTo(rootLen), columnName), LatestRowWriter.fileName(other.trimTo(rootLen), newName));
+                symbolMapWriter.updateColumnName(newName);
             }
         } finally {
             path.trimTo(rootLen);
@@ -782,6 +1199,31 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Removes partitions, which are entirely older than table time-to-live. Partitions are removed
+     * oldest first via {@link #removePartition(long)}. Partitions are removed from the table straight
+     * away, their directories are deleted when readers of older transactions are gone.
+     *
+     * @return number of removed partitions
+     */
+    public int removeExpiredPartitions() {
+        int count = 0;
+        while (hasExpiredPartitions() && removePartition(timestampFloorMethod.floor(minTimestamp))) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Deletes directories of partitions removed by transactions, which all readers have moved past.
+     * Readers of older transactions may still be using these directories.
+     *
+     * @return number of deleted partition directories
+     */
+    public int purgeRemovedPartitions() {
+        return purgeRemovedPartitions(txnScoreboard.getMinTxn());
+    }
+
     public boolean removePartition(long timestamp) {
 
         if (partitionBy == PartitionBy.NONE || timestamp < timestampFloorMethod.floor(minTimestamp) || timestamp > maxTimestamp) {
@@ -819,15 +1261,15 @@ public class TableWriter implements Closeable {
                 nextMinTimestamp = minTimestamp;
             }
 
-            setStateForTimestamp(timestamp, false);
+            final Path partitionPath = setStateForPartition(timestamp, false);
 
-            if (ff.exists(path)) {
+            if (ff.exists(partitionPath)) {
 
                 // todo: when this fails - rescan partitions to calculate fixedRowCount
                 //     also write a _todo_ file, which will indicate which partition we wanted to delete
                 //     reconcile partitions we can read sizes of with partition table
                 //     add partitions we cannot read sizes of to partition table
-                final long partitionSize = readPartitionSize(ff, path, tempMem8b);
+                final long partitionSize = readPartitionSize(ff, partitionPath, tempMem8b);
 
                 int symbolWriterCount = denseSymbolMapWriters.size();
                 int partitionTableSize = txMem.getInt(getPartitionTableSizeOffset(symbolWriterCount));
@@ -855,17 +1297,27 @@ public class TableWriter implements Closeable {
                 // txn check
                 txMem.putLong(TX_OFFSET_TXN_CHECK, txn);
 
-                if (!ff.rmdir(path.chopZ().put(Files.SEPARATOR).$())) {
-                    LOG.info().$("partition directory delete is postponed [path=").$(path).$(']').$();
+                removedPartitionPurges.add(timestamp);
+                removedPartitionPurges.add(txn);
+
+                if (partitionPath == coldPath) {
+                    coldPartitions.remove(timestamp);
+                    writeColdPartitions(ff, path, other, tempMem8b, coldPartitions);
                 }
 
                 removedPartitions.add(timestamp);
                 fixedRowCount -= partitionSize;
 
-                LOG.info().$("partition marked for delete [path=").$(path).$(']').$();
+                for (int i = 0, n = denseLatestRowWriters.size(); i < n; i++) {
+                    denseLatestRowWriters.getQuick(i).invalidate(timestamp, 0, txn);
+                }
+
+                LOG.info().$("partition marked for delete [path=").$(partitionPath).$(']').$();
+                path.trimTo(rootLen);
+                purgeRemovedPartitions(txnScoreboard.getMinTxn());
                 return true;
             } else {
-                LOG.error().$("cannot remove already missing partition [path=").$(path).$(']').$();
+                LOG.error().$("cannot remove already missing partition [path=").$(partitionPath).$(']').$();
                 return false;
             }
         } finally {
@@ -873,6 +1325,61 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Removes committed rows with timestamp equal or greater than given timestamp. Rows are removed
+     * from the last partition only, when the last partition would have to be removed entirely this method
+     * returns false and leaves table intact. Table without partitions can have all of its rows removed.
+     * <p>
+     * Removal is committed as its own transaction. Rows appended after it overwrite removed rows in place,
+     * readers positioned at earlier transactions would see them overwritten, see {@link #isPreviousTxnInUse()}.
+     *
+     * @param timestamp lowest timestamp to remove
+     * @return true when rows have been removed or there was nothing to remove
+     */
+    public boolean removeRowsFrom(long timestamp) {
+        checkDistressed();
+
+        if ((masterRef & 1) != 0) {
+            cancelRow();
+        }
+
+        if (inTransaction()) {
+            throw CairoException.instance(0).put("cannot remove rows, table has uncommitted data [name=").put(name).put(']');
+        }
+
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex == -1) {
+            throw CairoException.instance(0).put("cannot remove rows, table has no designated timestamp [name=").put(name).put(']');
+        }
+
+        if (timestamp > maxTimestamp || size() == 0) {
+            return true;
+        }
+
+        // binary search of the first row to remove in the last partition
+        final AppendMemory mem = getPrimaryColumn(timestampIndex);
+        long lo = 0;
+        long hi = transientRowCount - 1;
+        while (lo <= hi) {
+            final long mid = (lo + hi) >>> 1;
+            if (readTimestamp(mem, mid) < timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        if (lo == 0 && partitionBy != PartitionBy.NONE) {
+            return false;
+        }
+
+        removeRows(lo);
+        commit();
+        LOG.info().$("removed rows [name=").$(name).$(", from=").$ts(timestamp).$(", size=").$(size()).$(']').$();
+        return true;
+    }
+
+    @Override
     public void rollback() {
         checkDistressed();
         if (inTransaction()) {
@@ -881,19 +1388,50 @@ public class TableWriter implements Closeable {
             txPendingPartitionSizes.jumpTo(0);
             configureAppendPosition();
             rollbackIndexes();
+            for (int i = 0, n = denseLatestRowWriters.size(); i < n; i++) {
+                denseLatestRowWriters.getQuick(i).rollback();
+            }
             purgeUnusedPartitions();
             LOG.info().$("tx rollback complete [name=").$(name).$(']').$();
         }
     }
 
+    /**
+     * Checks whether readers are positioned at transactions preceding the current one. Such readers may still
+     * read rows removed by {@link #removeRowsFrom(long)}, which must not be overwritten until these readers move on.
+     *
+     * @return true when there are readers of older transactions
+     */
+    public boolean isPreviousTxnInUse() {
+        return txnScoreboard.getMinTxn() < txn;
+    }
+
+    public boolean hasPendingSync() {
+        return pendingSyncMode != CommitMode.NOSYNC;
+    }
+
     public void setLifecycleManager(LifecycleManager lifecycleManager) {
         this.lifecycleManager = lifecycleManager;
     }
 
+    @Override
     public long size() {
         return fixedRowCount + transientRowCount;
     }
 
+    /**
+     * Syncs column and transaction files for all transactions committed with deferred sync.
+     */
+    public void syncPendingCommit() {
+        if (pendingSyncMode != CommitMode.NOSYNC) {
+            checkDistressed();
+            syncColumns(pendingSyncMode);
+            txMem.sync(0, pendingSyncMode == CommitMode.ASYNC);
+            pendingSyncMode = CommitMode.NOSYNC;
+            syncedRowCount = size();
+        }
+    }
+
     @Override
     public String toString() {
         return "TableWriter{" +
@@ -947,7 +1485,11 @@ public class TableWriter implements Closeable {
         txn++;
         txPartitionCount = 1;
 
+        truncateSymbolMaps();
         resetTxn(txMem, metadata.getSymbolMapCount(), txn, ++dataVersion);
+        for (int i = 0, n = denseLatestRowWriters.size(); i < n; i++) {
+            denseLatestRowWriters.getQuick(i).truncate(txn, dataVersion);
+        }
         try {
             removeTodoFile();
         } catch (CairoException err) {
@@ -1126,6 +1668,8 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
             ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_TTL));
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_COLD_AFTER));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 writeColumnEntry(i);
@@ -1159,6 +1703,22 @@ public class TableWriter implements Closeable {
         return index;
     }
 
+    private void appendBlock0(LongList columnAddresses, long lo, long hi) {
+        for (int i = 0; i < columnCount; i++) {
+            final long address = columnAddresses.getQuick(i);
+            if (address == 0) {
+                final Runnable nuller = nullers.getQuick(i);
+                for (long r = lo; r < hi; r++) {
+                    nuller.run();
+                }
+            } else {
+                final int shl = ColumnType.pow2SizeOf(metadata.getColumnType(i));
+                getPrimaryColumn(i).putBlockOfBytes(address + (lo << shl), (hi - lo) << shl);
+            }
+        }
+        transientRowCount += hi - lo;
+    }
+
     private void bumpMasterRef() {
         if ((masterRef & 1) == 0) {
             masterRef++;
@@ -1168,6 +1728,7 @@ public class TableWriter implements Closeable {
     }
 
     private void bumpStructureVersion() {
+        publishSymbolIndexes(txn + 1);
         txMem.putLong(TX_OFFSET_TXN, ++txn);
         Unsafe.getUnsafe().storeFence();
 
@@ -1443,6 +2004,8 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
             ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_TTL));
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_COLD_AFTER));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 if (i != columnIndex) {
@@ -1481,6 +2044,8 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
             ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_TTL));
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_COLD_AFTER));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 writeColumnEntry(i);
@@ -1506,7 +2071,7 @@ public class TableWriter implements Closeable {
      * @param indexValueBlockCapacity approximate number of values per index key
      * @param plen                    path length. This is used to trim shared path object to.
      */
-    private void createIndexFiles(CharSequence columnName, int indexValueBlockCapacity, int plen, boolean force) {
+    private void createIndexFiles(Path path, CharSequence columnName, int indexValueBlockCapacity, int plen, boolean force) {
         try {
             BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName);
 
@@ -1551,11 +2116,25 @@ public class TableWriter implements Closeable {
         symbolMapWriters.extendAndSet(columnCount, w);
     }
 
+    private void deferSync() {
+        if (pendingSyncMode == CommitMode.NOSYNC) {
+            pendingSyncMode = CommitMode.ASYNC;
+            pendingSyncDeadline = clock.getTicks() + groupCommitLatency;
+        }
+    }
+
     private void doClose(boolean truncate) {
+        if (!distressed) {
+            syncPendingCommit();
+        }
         boolean tx = inTransaction();
         freeColumns(truncate);
+        if (denseSymbolMapWriters != null) {
+            removeObsoleteFiles();
+        }
         freeSymbolMapWriters();
         freeIndexers();
+        freeLatestRowWriters();
         try {
             freeTxMem();
         } finally {
@@ -1563,9 +2142,12 @@ public class TableWriter implements Closeable {
             Misc.free(txPendingPartitionSizes);
             Misc.free(ddlMem);
             Misc.free(other);
+            Misc.free(coldPath);
+            Misc.free(coldOther);
             try {
                 releaseLock(!truncate | tx | performRecovery | distressed);
             } finally {
+                txnScoreboard.close();
                 Misc.free(path);
                 freeTempMem();
                 LOG.info().$("closed '").utf8(name).$('\'').$();
@@ -1594,6 +2176,49 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void buildLatestRows(LatestRowWriter writer, CharSequence columnName) {
+        if (size() == 0) {
+            return;
+        }
+
+        try (final ReadOnlyMemory roMem = new ReadOnlyMemory()) {
+            if (partitionBy == PartitionBy.NONE) {
+                setStateForTimestamp(0, false);
+                scanLatestRows(writer, roMem, path, columnName, path.length(), Long.MIN_VALUE, transientRowCount);
+                return;
+            }
+
+            final long lastTimestamp = timestampFloorMethod.floor(maxTimestamp);
+            long timestamp = timestampFloorMethod.floor(minTimestamp);
+            while (timestamp <= lastTimestamp) {
+                path.trimTo(rootLen);
+                final Path partitionPath = setStateForPartition(timestamp, false);
+                if (!removedPartitions.contains(timestamp) && ff.exists(partitionPath.$())) {
+                    final int plen = partitionPath.length();
+                    final long partitionSize = timestamp == lastTimestamp ? transientRowCount : readPartitionSize(ff, partitionPath.trimTo(plen), tempMem8b);
+                    scanLatestRows(writer, roMem, partitionPath, columnName, plen, timestamp, partitionSize);
+                }
+                timestamp = timestampAddMethod.calculate(timestamp, 1);
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    private void commitLatestRows(long txn) {
+        for (int i = 0, n = denseLatestRowWriters.size(); i < n; i++) {
+            denseLatestRowWriters.getQuick(i).commit(txn);
+        }
+    }
+
+    private void freeLatestRowWriters() {
+        for (int i = 0, n = latestRowWriters.size(); i < n; i++) {
+            Misc.free(latestRowWriters.getQuick(i));
+        }
+        latestRowWriters.clear();
+        denseLatestRowWriters.clear();
+    }
+
     private void freeSymbolMapWriters() {
         if (denseSymbolMapWriters != null) {
             for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
@@ -1631,15 +2256,16 @@ public class TableWriter implements Closeable {
         long nextMinTimestamp = minTimestamp;
         while (nextMinTimestamp < maxTimestamp) {
             long nextTimestamp = timestampFloorMethod.floor(timestampAddMethod.calculate(nextMinTimestamp, 1));
-            setStateForTimestamp(nextTimestamp, false);
+            final Path partitionPath = setStateForPartition(nextTimestamp, false);
             try {
-                dFile(path, metadata.getColumnName(metadata.getTimestampIndex()));
-                if (ff.exists(path)) {
+                dFile(partitionPath, metadata.getColumnName(metadata.getTimestampIndex()));
+                // directory of removed partition may still be waiting for readers
+                if (removedPartitions.excludes(nextTimestamp) && ff.exists(partitionPath)) {
                     // read min timestamp value
-                    long fd = ff.openRO(path);
+                    long fd = ff.openRO(partitionPath);
                     if (fd == -1) {
                         // oops
-                        throw CairoException.instance(Os.errno()).put("could not open [file=").put(path).put(']');
+                        throw CairoException.instance(Os.errno()).put("could not open [file=").put(partitionPath).put(']');
                     }
                     try {
                         long buf = Unsafe.malloc(Long.BYTES);
@@ -1666,6 +2292,10 @@ public class TableWriter implements Closeable {
         return nextMinTimestamp;
     }
 
+    private long getPartitionTimestamp(long timestamp) {
+        return partitionBy == PartitionBy.NONE ? Long.MIN_VALUE : timestampFloorMethod.floor(timestamp);
+    }
+
     private AppendMemory getPrimaryColumn(int column) {
         assert column < columnCount : "Column index is out of bounds: " + column + " >= " + columnCount;
         return columns.getQuick(getPrimaryColumnIndex(column));
@@ -1702,32 +2332,32 @@ public class TableWriter implements Closeable {
 
                 path.trimTo(rootLen);
 
-                setStateForTimestamp(timestamp, true);
+                final Path partitionPath = setStateForPartition(timestamp, true);
 
-                if (ff.exists(path.$())) {
+                if (removedPartitions.excludes(timestamp) && ff.exists(partitionPath.$())) {
 
-                    final int plen = path.length();
+                    final int plen = partitionPath.length();
 
-                    TableUtils.dFile(path.trimTo(plen), columnName);
+                    TableUtils.dFile(partitionPath.trimTo(plen), columnName);
 
-                    if (ff.exists(path)) {
+                    if (ff.exists(partitionPath)) {
 
-                        path.trimTo(plen);
+                        partitionPath.trimTo(plen);
 
-                        LOG.info().$("indexing [path=").$(path).$(']').$();
+                        LOG.info().$("indexing [path=").$(partitionPath).$(']').$();
 
-                        createIndexFiles(columnName, indexValueBlockSize, plen, true);
+                        createIndexFiles(partitionPath, columnName, indexValueBlockSize, plen, true);
 
-                        final long partitionSize = TableUtils.readPartitionSize(ff, path.trimTo(plen), tempMem8b);
-                        final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b);
+                        final long partitionSize = TableUtils.readPartitionSize(ff, partitionPath.trimTo(plen), tempMem8b);
+                        final long columnTop = TableUtils.readColumnTop(ff, partitionPath.trimTo(plen), columnName, plen, tempMem8b);
 
                         if (partitionSize > columnTop) {
-                            TableUtils.dFile(path.trimTo(plen), columnName);
+                            TableUtils.dFile(partitionPath.trimTo(plen), columnName);
 
-                            roMem.of(ff, path, ff.getPageSize(), 0);
+                            roMem.of(ff, partitionPath, ff.getPageSize(), 0);
                             roMem.grow((partitionSize - columnTop) << ColumnType.pow2SizeOf(ColumnType.INT));
 
-                            indexer.configureWriter(configuration, path.trimTo(plen), columnName, columnTop);
+                            indexer.configureWriter(configuration, partitionPath.trimTo(plen), columnName, columnTop);
                             indexer.index(roMem, columnTop, partitionSize);
                         }
                     }
@@ -1741,7 +2371,7 @@ public class TableWriter implements Closeable {
     private void indexLastPartition(SymbolColumnIndexer indexer, CharSequence columnName, int columnIndex, int indexValueBlockSize) {
         final int plen = path.length();
 
-        createIndexFiles(columnName, indexValueBlockSize, plen, true);
+        createIndexFiles(path, columnName, indexValueBlockSize, plen, true);
 
         final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b);
 
@@ -1764,6 +2394,16 @@ public class TableWriter implements Closeable {
         }
     }
 
+    // directories of partitions removed before writer was open are deleted once
+    // readers of current transaction are gone
+    private void queueRemovedPartitionPurges() {
+        for (int i = 0, n = removedPartitions.size(); i < n; i++) {
+            removedPartitionPurges.add(removedPartitions.get(i));
+            removedPartitionPurges.add(txn);
+        }
+        purgeRemovedPartitions(txnScoreboard.getMinTxn());
+    }
+
     private void lock() {
         try {
             path.trimTo(rootLen);
@@ -1779,6 +2419,64 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void copyColdPartition(long timestamp) {
+        try {
+            setStateForTimestamp(timestamp, false);
+            final int plen = path.length();
+            setColdPartitionPath(coldPath, timestamp);
+            final int clen = coldPath.length();
+
+            // remove leftovers of previously failed or deferred move
+            if (ff.exists(coldPath.$()) && !ff.rmdir(coldPath)) {
+                throw CairoException.instance(ff.errno()).put("Cannot remove: ").put(coldPath);
+            }
+
+            if (ff.mkdirs(coldPath.trimTo(clen).put(Files.SEPARATOR).$(), mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("Cannot create directory: ").put(coldPath);
+            }
+
+            ff.iterateDir(path.$(), (file, type) -> {
+                nativeLPSZ.of(file);
+                if (type != Files.DT_DIR) {
+                    copyFile(ff, path.trimTo(plen).concat(nativeLPSZ).$(), coldPath.trimTo(clen).concat(nativeLPSZ).$());
+                }
+            });
+
+            // copied files are flushed, so are their directory entries and entry of the partition directory
+            fsyncDir(ff, coldPath.trimTo(clen).$());
+            fsyncDir(ff, coldPath.of(coldRoot).concat(name).$());
+            LOG.info().$("copied partition to cold root [path=").$(path.trimTo(plen).$()).$(']').$();
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    private long nextColdPartitionCandidate(long from) {
+        final int coldAfter = getColdAfter();
+        if (coldAfter == 0 || coldRoot == null || partitionBy == PartitionBy.NONE || minTimestamp >= maxTimestamp) {
+            return Numbers.LONG_NaN;
+        }
+
+        final long cutoff = getRetentionCutoff(maxTimestamp, coldAfter);
+        final long activeTimestamp = timestampFloorMethod.floor(maxTimestamp);
+        long timestamp = Math.max(timestampFloorMethod.floor(minTimestamp), from);
+        try {
+            while (timestamp < activeTimestamp && timestampAddMethod.calculate(timestamp, 1) <= cutoff) {
+                if (coldPartitions.excludes(timestamp) && removedPartitions.excludes(timestamp)) {
+                    path.trimTo(rootLen);
+                    setStateForTimestamp(timestamp, false);
+                    if (ff.exists(path.$())) {
+                        return timestamp;
+                    }
+                }
+                timestamp = timestampAddMethod.calculate(timestamp, 1);
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+        return Numbers.LONG_NaN;
+    }
+
     private long openAppend(LPSZ name) {
         long fd = ff.openAppend(name);
         if (fd == -1) {
@@ -1800,6 +2498,13 @@ public class TableWriter implements Closeable {
         path.trimTo(plen);
     }
 
+    private void openColdPartitions() {
+        readColdPartitions(ff, path, tempMem8b, coldPartitions);
+        if (coldPartitions.size() > 0 && coldRoot == null) {
+            throw CairoException.instance(0).put("table has partitions on cold root, but cold root is not configured [table=").put(name).put(']');
+        }
+    }
+
     private void openFirstPartition(long timestamp) {
         openPartition(repairDataGaps(timestamp));
         setAppendPosition(transientRowCount);
@@ -1828,7 +2533,7 @@ public class TableWriter implements Closeable {
             // index must be created before column is initialised because
             // it uses primary column object as temporary tool
             if (indexFlag) {
-                createIndexFiles(name, indexValueBlockCapacity, plen, true);
+                createIndexFiles(path, name, indexValueBlockCapacity, plen, true);
             }
 
             openColumnFiles(name, columnIndex, plen);
@@ -1867,7 +2572,7 @@ public class TableWriter implements Closeable {
                 if (indexed) {
                     // we have to create files before columns are open
                     // because we are reusing AppendMemory object from columns list
-                    createIndexFiles(name, metadata.getIndexValueBlockCapacity(i), plen, transientRowCount < 1);
+                    createIndexFiles(path, name, metadata.getIndexValueBlockCapacity(i), plen, transientRowCount < 1);
                 }
 
                 openColumnFiles(name, i, plen);
@@ -1880,12 +2585,43 @@ public class TableWriter implements Closeable {
                     indexer.configureFollowerAndWriter(configuration, path, name, getPrimaryColumn(i), columnTop);
                 }
             }
+
+            final long partitionTimestamp = getPartitionTimestamp(timestamp);
+            for (int i = 0, n = denseLatestRowWriters.size(); i < n; i++) {
+                denseLatestRowWriters.getQuick(i).setPartitionTimestamp(partitionTimestamp);
+            }
             LOG.info().$("switched partition to '").$(path).$('\'').$();
         } finally {
             path.trimTo(rootLen);
         }
     }
 
+    private void openLatestRowWriter(int columnIndex, CharSequence columnName) {
+        final LatestRowWriter writer = new LatestRowWriter();
+        latestRowWriters.extendAndSet(columnIndex, writer);
+        try {
+            writer.of(ff, LatestRowWriter.fileName(path.trimTo(rootLen), columnName), txn, dataVersion);
+        } finally {
+            path.trimTo(rootLen);
+        }
+        writer.setPartitionTimestamp(getPartitionTimestamp(maxTimestamp));
+        indexers.getQuick(columnIndex).setLatestRowWriter(writer);
+        populateDenseLatestRowWriterList();
+    }
+
+    private void openLatestRowWriters() {
+        for (int i = 0; i < columnCount; i++) {
+            if (metadata.isColumnIndexed(i)) {
+                final CharSequence columnName = metadata.getColumnName(i);
+                final boolean exists = ff.exists(LatestRowWriter.fileName(path.trimTo(rootLen), columnName));
+                path.trimTo(rootLen);
+                if (exists) {
+                    openLatestRowWriter(i, columnName);
+                }
+            }
+        }
+    }
+
     private ReadWriteMemory openTxnFile() {
         try {
             if (ff.exists(path.concat(TXN_FILE_NAME).$())) {
@@ -1904,6 +2640,16 @@ public class TableWriter implements Closeable {
         performRecovery = false;
     }
 
+    private void populateDenseLatestRowWriterList() {
+        denseLatestRowWriters.clear();
+        for (int i = 0, n = latestRowWriters.size(); i < n; i++) {
+            LatestRowWriter writer = latestRowWriters.getQuick(i);
+            if (writer != null) {
+                denseLatestRowWriters.add(writer);
+            }
+        }
+    }
+
     private void populateDenseIndexerList() {
         denseIndexers.clear();
         for (int i = 0, n = indexers.size(); i < n; i++) {
@@ -1915,6 +2661,52 @@ public class TableWriter implements Closeable {
         indexCount = denseIndexers.size();
     }
 
+    private int purgeRemovedPartitions(long minReaderTxn) {
+        int count = 0;
+        int pos = 0;
+        try {
+            for (int i = 0, n = removedPartitionPurges.size(); i < n; i += 2) {
+                final long timestamp = removedPartitionPurges.getQuick(i);
+                final long txn = removedPartitionPurges.getQuick(i + 1);
+                if (txn > minReaderTxn) {
+                    removedPartitionPurges.setQuick(pos++, timestamp);
+                    removedPartitionPurges.setQuick(pos++, txn);
+                    continue;
+                }
+
+                setPathForPartition(path.trimTo(rootLen), partitionBy, timestamp);
+                boolean purged = purgePartitionDirectory(path);
+                if (coldPath != null) {
+                    setColdPartitionPath(coldPath, timestamp);
+                    purged &= purgePartitionDirectory(coldPath);
+                }
+                if (purged) {
+                    count++;
+                } else {
+                    // files may still be mapped on some platforms, retry later
+                    removedPartitionPurges.setQuick(pos++, timestamp);
+                    removedPartitionPurges.setQuick(pos++, txn);
+                }
+            }
+        } finally {
+            removedPartitionPurges.setPos(pos);
+            path.trimTo(rootLen);
+        }
+        return count;
+    }
+
+    private boolean purgePartitionDirectory(Path path) {
+        if (ff.exists(path.$())) {
+            if (ff.rmdir(path.chopZ().put(Files.SEPARATOR).$())) {
+                LOG.info().$("purged removed partition [path=").$(path).$(']').$();
+            } else {
+                LOG.info().$("partition directory delete is postponed [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void purgeUnusedPartitions() {
         if (partitionBy != PartitionBy.NONE) {
             removePartitionDirsNewerThan(maxTimestamp);
@@ -1998,29 +2790,40 @@ public class TableWriter implements Closeable {
             indexers.remove(columnIndex);
             populateDenseIndexerList();
         }
+        if (columnIndex < latestRowWriters.size()) {
+            Misc.free(latestRowWriters.getQuick(columnIndex));
+            latestRowWriters.remove(columnIndex);
+            populateDenseLatestRowWriterList();
+        }
+    }
+
+    private void scanLatestRows(LatestRowWriter writer, ReadOnlyMemory roMem, Path path, CharSequence columnName, int plen, long partitionTimestamp, long partitionSize) {
+        final long columnTop = readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b);
+        if (partitionSize > columnTop) {
+            dFile(path.trimTo(plen), columnName);
+            roMem.of(ff, path, ff.getPageSize(), 0);
+            roMem.grow((partitionSize - columnTop) << ColumnType.pow2SizeOf(ColumnType.INT));
+            writer.setPartitionTimestamp(partitionTimestamp);
+            for (long row = columnTop; row < partitionSize; row++) {
+                writer.put(TableUtils.toIndexKey(roMem.getInt((row - columnTop) << 2)), row);
+            }
+        }
     }
 
-    private void removeColumnFiles(CharSequence columnName, int columnType, RemoveFileLambda removeLambda) {
+    private void removeColumnFiles(CharSequence columnName, int columnType, int symbolIndexVersion, RemoveFileLambda removeLambda) {
         try {
-            ff.iterateDir(path.$(), (file, type) -> {
-                nativeLPSZ.of(file);
-                if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
-                    path.trimTo(rootLen);
-                    path.concat(nativeLPSZ);
-                    int plen = path.length();
-                    removeLambda.remove(ff, dFile(path, columnName));
-                    removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
-                    removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
-                    removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
-                    removeLambda.remove(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
-                }
-            });
+            removePartitionColumnFiles(path, rootLen, columnName, removeLambda);
+            if (coldPartitions.size() > 0) {
+                coldPath.of(coldRoot).concat(name);
+                removePartitionColumnFiles(coldPath, coldPath.length(), columnName, removeLambda);
+            }
 
             if (columnType == ColumnType.SYMBOL) {
                 removeLambda.remove(ff, SymbolMapWriter.offsetFileName(path.trimTo(rootLen), columnName));
                 removeLambda.remove(ff, SymbolMapWriter.charFileName(path.trimTo(rootLen), columnName));
-                removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(rootLen), columnName));
-                removeLambda.remove(ff, BitmapIndexUtils.valueFileName(path.trimTo(rootLen), columnName));
+                removeLambda.remove(ff, SymbolMapWriter.indexKeyFileName(path.trimTo(rootLen), columnName, symbolIndexVersion));
+                removeLambda.remove(ff, SymbolMapWriter.indexValueFileName(path.trimTo(rootLen), columnName, symbolIndexVersion));
+                removeLambda.remove(ff, LatestRowWriter.fileName(path.trimTo(rootLen), columnName));
             }
         } finally {
             path.trimTo(rootLen);
@@ -2042,6 +2845,8 @@ public class TableWriter implements Closeable {
                 ddlMem.putInt(timestampIndex);
             }
             ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_TTL));
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_COLD_AFTER));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
 
             for (int i = 0; i < columnCount; i++) {
@@ -2073,6 +2878,8 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(partitionBy);
             ddlMem.putInt(timestampIndex);
             ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_TTL));
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_COLD_AFTER));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
 
             for (int i = 0; i < columnCount; i++) {
@@ -2096,23 +2903,52 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private long readTimestamp(AppendMemory mem, long row) {
+        readBytes(ff, mem, tempMem8b, 8, row * 8, "Cannot read timestamp, fd=");
+        return Unsafe.getUnsafe().getLong(tempMem8b);
+    }
+
     private void removeIndexFiles(CharSequence columnName) {
         try {
-            ff.iterateDir(path.$(), (file, type) -> {
-                nativeLPSZ.of(file);
-                if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
-                    path.trimTo(rootLen);
-                    path.concat(nativeLPSZ);
-                    int plen = path.length();
-                    removeFileAndOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
-                    removeFileAndOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
-                }
-            });
+            removePartitionIndexFiles(path, rootLen, columnName);
+            if (coldPartitions.size() > 0) {
+                coldPath.of(coldRoot).concat(name);
+                removePartitionIndexFiles(coldPath, coldPath.length(), columnName);
+            }
         } finally {
             path.trimTo(rootLen);
         }
     }
 
+    private void removePartitionIndexFiles(Path path, int rootLen, CharSequence columnName) {
+        ff.iterateDir(path.$(), (file, type) -> {
+            nativeLPSZ.of(file);
+            if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
+                path.trimTo(rootLen);
+                path.concat(nativeLPSZ);
+                int plen = path.length();
+                removeFileAndOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
+                removeFileAndOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
+            }
+        });
+    }
+
+    private void removeColdPartitions() {
+        coldPartitions.clear();
+        final int plen = path.length();
+        path.concat(COLD_PREV_FILE_NAME).$();
+        if (ff.exists(path) && !ff.remove(path)) {
+            throw CairoException.instance(ff.errno()).put("Cannot remove: ").put(path);
+        }
+        path.trimTo(plen).concat(COLD_FILE_NAME).$();
+        if (ff.exists(path) && !ff.remove(path)) {
+            throw CairoException.instance(ff.errno()).put("Cannot remove: ").put(path);
+        }
+        if (coldRoot != null && ff.exists(coldPath.of(coldRoot).concat(name).$()) && !ff.rmdir(coldPath)) {
+            LOG.info().$("could not remove [path=").$(coldPath).$(", errno=").$(ff.errno()).$(']').$();
+        }
+    }
+
     private void removeLastColumn() {
         removeColumn(columnCount - 1);
         columnCount--;
@@ -2129,9 +2965,45 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void removePartitionColumnFiles(Path path, int rootLen, CharSequence columnName, RemoveFileLambda removeLambda) {
+        ff.iterateDir(path.$(), (file, type) -> {
+            nativeLPSZ.of(file);
+            if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
+                path.trimTo(rootLen);
+                path.concat(nativeLPSZ);
+                int plen = path.length();
+                removeLambda.remove(ff, dFile(path, columnName));
+                removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
+                removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
+                removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
+                removeLambda.remove(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
+            }
+        });
+    }
+
+    private void removeRows(long rowCount) {
+        transientRowCount = rowCount;
+        txPrevTransientRowCount = rowCount;
+        if (rowCount == 0) {
+            maxTimestamp = prevMaxTimestamp = Long.MIN_VALUE;
+            minTimestamp = prevMinTimestamp = Long.MAX_VALUE;
+        } else {
+            maxTimestamp = prevMaxTimestamp = readTimestamp(getPrimaryColumn(metadata.getTimestampIndex()), rowCount - 1);
+        }
+        setAppendPosition(rowCount);
+        rollbackIndexes();
+        for (int i = 0, n = denseLatestRowWriters.size(); i < n; i++) {
+            denseLatestRowWriters.getQuick(i).invalidate(getPartitionTimestamp(maxTimestamp), rowCount, txn + 1);
+        }
+        txRemovedRowCount = rowCount;
+    }
+
     private void removePartitionDirectories() {
+        removedPartitionPurges.clear();
         try {
             ff.iterateDir(path.$(), removePartitionDirectories);
+            path.trimTo(rootLen);
+            removeColdPartitions();
         } finally {
             path.trimTo(rootLen);
         }
@@ -2190,6 +3062,20 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void publishSymbolIndexes(long txn) {
+        for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
+            denseSymbolMapWriters.getQuick(i).publishIndex(txn);
+        }
+    }
+
+    private void removeObsoleteFiles() {
+        final long minReaderTxn = txnScoreboard.getMinTxn();
+        for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
+            denseSymbolMapWriters.getQuick(i).removeObsoleteIndexes(minReaderTxn);
+        }
+        purgeRemovedPartitions(minReaderTxn);
+    }
+
     private void removeSymbolMapWriter(int index) {
         SymbolMapWriter writer = symbolMapWriters.getQuick(index);
         symbolMapWriters.remove(index);
@@ -2246,6 +3132,24 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void renamePartitionColumnFiles(Path path, Path other, int rootLen, CharSequence columnName, CharSequence newName) {
+        ff.iterateDir(path.$(), (file, type) -> {
+            nativeLPSZ.of(file);
+            if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
+                path.trimTo(rootLen);
+                path.concat(nativeLPSZ);
+                other.trimTo(rootLen);
+                other.concat(nativeLPSZ);
+                int plen = path.length();
+                renameFileOrLog(ff, dFile(path.trimTo(plen), columnName), dFile(other.trimTo(plen), newName));
+                renameFileOrLog(ff, iFile(path.trimTo(plen), columnName), iFile(other.trimTo(plen), newName));
+                renameFileOrLog(ff, topFile(path.trimTo(plen), columnName), topFile(other.trimTo(plen), newName));
+                renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName));
+                renameFileOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName), BitmapIndexUtils.valueFileName(other.trimTo(plen), newName));
+            }
+        });
+    }
+
     private void renameMetaToMetaPrev(CharSequence columnName) {
         try {
             this.metaPrevIndex = rename(fileOperationRetryCount);
@@ -2273,14 +3177,14 @@ public class TableWriter implements Closeable {
                 final long tsLimit = timestampFloorMethod.floor(this.maxTimestamp);
                 for (long ts = minTimestamp; ts < tsLimit; ts = timestampAddMethod.calculate(ts, 1)) {
                     path.trimTo(rootLen);
-                    setStateForTimestamp(ts, false);
-                    int p = path.length();
-                    if (ff.exists(path.concat(ARCHIVE_FILE_NAME).$())) {
-                        actualSize += TableUtils.readLongAtOffset(ff, path, tempMem8b, 0);
+                    final Path partitionPath = setStateForPartition(ts, false);
+                    int p = partitionPath.length();
+                    if (ff.exists(partitionPath.concat(ARCHIVE_FILE_NAME).$())) {
+                        actualSize += TableUtils.readLongAtOffset(ff, partitionPath, tempMem8b, 0);
                         lastTimestamp = ts;
                     } else {
                         if (removedPartitions.excludes(ts)) {
-                            LOG.info().$("missing partition [name=").$(path.trimTo(p).$()).$(']').$();
+                            LOG.info().$("missing partition [name=").$(partitionPath.trimTo(p).$()).$(']').$();
                         }
                     }
                 }
@@ -2383,7 +3287,6 @@ public class TableWriter implements Closeable {
                 metadata.getSymbolMapCount(),
                 txMem.getLong(TX_OFFSET_TXN) + 1,
                 txMem.getLong(TX_OFFSET_DATA_VERSION) + 1);
-        removeTodoFile();
     }
 
     private void restoreMetaFrom(CharSequence fromBase, int fromIndex) {
@@ -2403,6 +3306,12 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void truncateSymbolMaps() {
+        for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
+            denseSymbolMapWriters.getQuick(i).truncate();
+        }
+    }
+
     private void rollbackIndexes() {
         final long maxRow = transientRowCount - 1;
         for (int i = 0, n = denseIndexers.size(); i < n; i++) {
@@ -2450,6 +3359,26 @@ public class TableWriter implements Closeable {
      * @param updatePartitionInterval flag indicating that partition interval partitionLo and
      *                                partitionHi have to be updated as well.
      */
+    private void setColdPartitionPath(Path target, long timestamp) {
+        target.of(coldRoot).concat(name);
+        setPathForPartition(target, partitionBy, timestamp);
+    }
+
+    /**
+     * Same as {@link #setStateForTimestamp(long, boolean)} but resolves directory of partitions
+     * moved to cold root. Returns path of the partition, which is either "path" member variable or
+     * "coldPath", in which case "path" remains trimmed to table root.
+     */
+    private Path setStateForPartition(long timestamp, boolean updatePartitionInterval) {
+        setStateForTimestamp(timestamp, updatePartitionInterval);
+        if (coldPartitions.size() > 0 && coldPartitions.contains(timestampFloorMethod.floor(timestamp))) {
+            path.trimTo(rootLen);
+            setColdPartitionPath(coldPath, timestamp);
+            return coldPath;
+        }
+        return path;
+    }
+
     private void setStateForTimestamp(long timestamp, boolean updatePartitionInterval) {
         int y, m, d;
         boolean leap;
@@ -2509,6 +3438,12 @@ public class TableWriter implements Closeable {
         // files after switch.
         updateIndexes();
 
+        // Columns of current partition are about to be closed, deferred
+        // sync must reach them before they are unmapped.
+        if (pendingSyncMode != CommitMode.NOSYNC) {
+            syncColumns(pendingSyncMode);
+        }
+
         // We need to store reference on partition so that archive
         // file can be created in appropriate directory.
         // For simplicity use partitionLo, which can be
@@ -2727,6 +3662,60 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Row being appended. Rows of {@link TableWriter} and {@link WalWriter} are populated through this interface,
+     * so that code copying records into a table does not depend on which of them it writes to.
+     */
+    public interface Row {
+        void append();
+
+        void cancel();
+
+        void putBin(int index, long address, long len);
+
+        void putBin(int index, BinarySequence sequence);
+
+        void putBool(int index, boolean value);
+
+        void putByte(int index, byte value);
+
+        void putChar(int index, char value);
+
+        void putDate(int index, long value);
+
+        void putDouble(int index, double value);
+
+        void putFloat(int index, float value);
+
+        void putInt(int index, int value);
+
+        void putLong(int index, long value);
+
+        void putLong256(int index, long l0, long l1, long l2, long l3);
+
+        void putLong256(int index, Long256 value);
+
+        void putLong256(int index, CharSequence hexString);
+
+        void putLong256(int index, @NotNull CharSequence hexString, int start, int end);
+
+        void putShort(int index, short value);
+
+        void putStr(int index, CharSequence value);
+
+        void putStr(int index, char value);
+
+        void putStr(int index, CharSequence value, int pos, int len);
+
+        void putSym(int index, CharSequence value);
+
+        void putSym(int index, char value);
+
+        void putTimestamp(int index, long value);
+
+        void putTimestamp(int index, CharSequence value);
+    }
+
     @FunctionalInterface
     private interface RemoveFileLambda {
         void remove(FilesFacade ff, LPSZ name);
@@ -2791,7 +3780,8 @@ public class TableWriter implements Closeable {
         }
     }
 
-    public class Row {
+    private class RowImpl implements Row {
+        @Override
         public void append() {
             if ((masterRef & 1) != 0) {
                 for (int i = 0; i < columnCount; i++) {
@@ -2807,109 +3797,131 @@ public class TableWriter implements Closeable {
             }
         }
 
+        @Override
         public void cancel() {
             cancelRow();
         }
 
+        @Override
         public void putBin(int index, long address, long len) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(address, len));
             notNull(index);
         }
 
+        @Override
         public void putBin(int index, BinarySequence sequence) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(sequence));
             notNull(index);
         }
 
+        @Override
         public void putBool(int index, boolean value) {
             getPrimaryColumn(index).putBool(value);
             notNull(index);
         }
 
+        @Override
         public void putByte(int index, byte value) {
             getPrimaryColumn(index).putByte(value);
             notNull(index);
         }
 
+        @Override
         public void putChar(int index, char value) {
             getPrimaryColumn(index).putChar(value);
             notNull(index);
         }
 
+        @Override
         public void putDate(int index, long value) {
             putLong(index, value);
         }
 
+        @Override
         public void putDouble(int index, double value) {
             getPrimaryColumn(index).putDouble(value);
             notNull(index);
         }
 
+        @Override
         public void putFloat(int index, float value) {
             getPrimaryColumn(index).putFloat(value);
             notNull(index);
         }
 
+        @Override
         public void putInt(int index, int value) {
             getPrimaryColumn(index).putInt(value);
             notNull(index);
         }
 
+        @Override
         public void putLong(int index, long value) {
             getPrimaryColumn(index).putLong(value);
             notNull(index);
         }
 
+        @Override
         public void putLong256(int index, long l0, long l1, long l2, long l3) {
             getPrimaryColumn(index).putLong256(l0, l1, l2, l3);
             notNull(index);
         }
 
+        @Override
         public void putLong256(int index, Long256 value) {
             getPrimaryColumn(index).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
             notNull(index);
         }
 
+        @Override
         public void putLong256(int index, CharSequence hexString) {
             getPrimaryColumn(index).putLong256(hexString);
             notNull(index);
         }
 
+        @Override
         public void putLong256(int index, @NotNull CharSequence hexString, int start, int end) {
             getPrimaryColumn(index).putLong256(hexString, start, end);
             notNull(index);
         }
 
+        @Override
         public void putShort(int index, short value) {
             getPrimaryColumn(index).putShort(value);
             notNull(index);
         }
 
+        @Override
         public void putStr(int index, CharSequence value) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
             notNull(index);
         }
 
+        @Override
         public void putStr(int index, char value) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
             notNull(index);
         }
 
+        @Override
         public void putStr(int index, CharSequence value, int pos, int len) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value, pos, len));
             notNull(index);
         }
 
+        @Override
         public void putSym(int index, CharSequence value) {
             getPrimaryColumn(index).putInt(symbolMapWriters.getQuick(index).put(value));
             notNull(index);
         }
 
+        @Override
         public void putSym(int index, char value) {
             getPrimaryColumn(index).putInt(symbolMapWriters.getQuick(index).put(value));
             notNull(index);
         }
 
+        @Override
         public void putTimestamp(int index, long value) {
             putLong(index, value);
         }
@@ -2918,6 +3930,7 @@ public class TableWriter implements Closeable {
             refs.setQuick(index, masterRef);
         }
 
+        @Override
         public void putTimestamp(int index, CharSequence value) {
             // try UTC timestamp first (micro)
             long l;
@@ -2940,5 +3953,6 @@ public class TableWriter implements Closeable {
         IGNORED_FILES.add(META_FILE_NAME);
         IGNORED_FILES.add(TXN_FILE_NAME);
         IGNORED_FILES.add(TODO_FILE_NAME);
+        IGNORED_FILES.add(WalWriter.WAL_DIR_NAME);
     }
 }
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RecordMetadata;
+
+import java.io.Closeable;
+
+/**
+ * Appends rows to a table. Implemented by {@link TableWriter}, which writes to table partitions directly, and by
+ * {@link WalWriter}, which writes to write-ahead log segment of the table. Ingestion code obtains the one that
+ * is configured from {@link CairoEngine#getTableWriterAPI(CairoSecurityContext, CharSequence)}.
+ */
+public interface TableWriterAPI extends Closeable {
+
+    /**
+     * Adds column to the table. Pending transaction is committed before column is added.
+     *
+     * @param name column name
+     * @param type {@link ColumnType}
+     */
+    void addColumn(CharSequence name, int type);
+
+    /**
+     * Completes deferred sync of committed transactions, writer owners that are idle should call this method
+     * periodically.
+     *
+     * @return true when there is still sync pending after this call
+     */
+    boolean checkPendingSync();
+
+    @Override
+    void close();
+
+    void commit();
+
+    void commit(int commitMode);
+
+    /**
+     * @return timestamp rows appended by this writer must not be older than, {@link WalWriter} can still
+     * reject rows at commit when they are older than rows applied to the table
+     */
+    long getMaxTimestamp();
+
+    RecordMetadata getMetadata();
+
+    CharSequence getName();
+
+    int getPartitionBy();
+
+    long getStructureVersion();
+
+    TableWriter.Row newRow(long timestamp);
+
+    TableWriter.Row newRow();
+
+    void rollback();
+
+    long size();
+}
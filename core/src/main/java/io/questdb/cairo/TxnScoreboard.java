@@ -0,0 +1,130 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+
+import java.io.Closeable;
+
+/**
+ * Process-wide record of transactions table readers are positioned at. Writer consults it
+ * before removing files that transactions older than the one that replaced them may still
+ * use, such as index files of rebuilt symbol map or directories of removed partitions.
+ * <p>
+ * Reader registers transaction and then checks that it is still current. Writer publishes
+ * transaction before it looks for readers, so that reader that registered too late sees
+ * newer transaction and moves on to it.
+ */
+public final class TxnScoreboard {
+    private static final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+
+    private TxnScoreboard() {
+    }
+
+    /**
+     * Acquires scoreboard of table.
+     *
+     * @param tablePath path to table directory
+     * @return scoreboard, which must be released by calling {@link Entry#close()}
+     */
+    public static Entry acquire(CharSequence tablePath) {
+        synchronized (entries) {
+            final int index = entries.keyIndex(tablePath);
+            Entry e;
+            if (index < 0) {
+                e = entries.valueAtQuick(index);
+            } else {
+                final String name = Chars.toString(tablePath);
+                e = new Entry(name);
+                entries.putAt(index, name, e);
+            }
+            e.refCount++;
+            return e;
+        }
+    }
+
+    private static void release(Entry e) {
+        synchronized (entries) {
+            if (--e.refCount == 0) {
+                entries.remove(e.name);
+            }
+        }
+    }
+
+    public static class Entry implements Closeable {
+        private final String name;
+        // ascending transactions and number of readers at each of them
+        private final LongList txns = new LongList();
+        private final IntList counts = new IntList();
+        private int refCount;
+
+        private Entry(String name) {
+            this.name = name;
+        }
+
+        public synchronized void acquireTxn(long txn) {
+            int i = 0;
+            final int n = txns.size();
+            while (i < n && txns.getQuick(i) < txn) {
+                i++;
+            }
+            if (i < n && txns.getQuick(i) == txn) {
+                counts.increment(i);
+            } else {
+                txns.add(i, txn);
+                counts.add(i, 1);
+            }
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+
+        /**
+         * @return oldest transaction in use by readers or Long.MAX_VALUE when there are no readers
+         */
+        public synchronized long getMinTxn() {
+            return txns.size() > 0 ? txns.getQuick(0) : Long.MAX_VALUE;
+        }
+
+        public synchronized void releaseTxn(long txn) {
+            for (int i = 0, n = txns.size(); i < n; i++) {
+                if (txns.getQuick(i) == txn) {
+                    if (counts.getQuick(i) == 1) {
+                        txns.removeIndex(i);
+                        counts.removeIndex(i);
+                    } else {
+                        counts.setQuick(i, counts.getQuick(i) - 1);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
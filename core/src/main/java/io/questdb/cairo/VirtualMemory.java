@@ -320,6 +320,15 @@ public class VirtualMemory implements Closeable {
         return offset;
     }
 
+    public final void putBlockOfBytes(long from, long len) {
+        if (len < pageHi - appendPointer) {
+            Unsafe.getUnsafe().copyMemory(from, appendPointer, len);
+            appendPointer += len;
+        } else {
+            putBinSlit(from, len);
+        }
+    }
+
     public void putBool(boolean value) {
         putByte((byte) (value ? 1 : 0));
     }
@@ -0,0 +1,633 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.pool.ex.EntryLockedException;
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.tasks.TableCommitTask;
+
+import java.io.Closeable;
+
+/**
+ * Merges rows committed to write-ahead log segments into table partitions. Pending rows of all segments
+ * of the table are appended in timestamp order under single {@link TableWriter} transaction.
+ * <p>
+ * Writers commit independently, so a writer can commit rows older than rows another writer has committed.
+ * Rows within a segment are in timestamp order, so a writer that is still open is not going to commit rows
+ * older than its last committed row. Apply job only applies rows up to the oldest of those timestamps, newer rows
+ * wait in segments to be merged with rows that are yet to come. Writer that is open but idle, or has not committed
+ * yet, cannot hold rows back for longer than the lag, see {@link CairoConfiguration#getWalApplyLag()}: rows older
+ * than the newest committed row by more than the lag are applied regardless. Table writer cannot append rows older than table max timestamp,
+ * {@link WalWatermark} makes {@link WalWriter} reject such rows at commit. Rows are never skipped: when table has
+ * been written to bypassing WAL and rows are too old, apply fails and rows stay in the segment.
+ * <p>
+ * Columns added by WAL writers are added to the table before rows of their segment are applied.
+ * <p>
+ * Applied row counts are written to "_apply" file before table is committed and to segments after that. The file
+ * makes apply idempotent when it is interrupted in between, see {@link #completeApply(FilesFacade, Path, long, long)}.
+ * Segments are removed when all of their rows are applied and their writer is closed.
+ * <p>
+ * Job listens to WAL commit notifications. Notifications are not guaranteed to be delivered, so
+ * all tables with WAL segments are also checked periodically.
+ */
+public class WalApplyJob extends SynchronizedJob implements Closeable {
+    static final String APPLY_FILE_NAME = "_apply";
+    private static final Log LOG = LogFactory.getLog(WalApplyJob.class);
+    private static final long APPLY_OFFSET_TXN = 0;
+    private static final long APPLY_OFFSET_SEGMENT_COUNT = 8;
+    private static final long APPLY_OFFSET_SEGMENTS = 16;
+    // segment id and applied row count
+    private static final long APPLY_SEGMENT_SIZE = 16;
+    private final CairoEngine engine;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final MicrosecondClock clock;
+    private final RingQueue<TableCommitTask> queue;
+    private final Sequence subSeq;
+    private final CharSequenceHashSet walTables = new CharSequenceHashSet();
+    private final CharSequenceHashSet pendingTables = new CharSequenceHashSet();
+    private final ObjList<CharSequence> busyTables = new ObjList<>();
+    private final ObjList<Segment> segmentPool = new ObjList<>();
+    private final ObjList<Segment> segments = new ObjList<>();
+    private final IntList segmentIds = new IntList();
+    private final Path path = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final long checkInterval;
+    private final long lag;
+    private long tempMem8b = Unsafe.malloc(Long.BYTES);
+    private long nextCheckTimestamp = Long.MIN_VALUE;
+    private final FindVisitor findSegmentsOnFind = (file, type) -> {
+        nativeLPSZ.of(file);
+        if (type == Files.DT_DIR) {
+            try {
+                segmentIds.add(Numbers.parseInt(nativeLPSZ));
+            } catch (NumericException ignore) {
+                // not a segment
+            }
+        }
+    };
+
+    public WalApplyJob(CairoEngine engine) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getWalCheckInterval() * 1000L;
+        this.lag = configuration.getWalApplyLag() * 1000L;
+        final MessageBus messageBus = engine.getMessageBus();
+        this.queue = messageBus.getWalCommitQueue();
+        this.subSeq = messageBus.getWalCommitSubSequence();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(path);
+        if (tempMem8b != 0) {
+            Unsafe.free(tempMem8b, Long.BYTES);
+            tempMem8b = 0;
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        long cursor;
+        while ((cursor = subSeq.next()) > -1) {
+            final String tableName = Chars.toString(queue.get(cursor).tableName);
+            subSeq.done(cursor);
+            walTables.add(tableName);
+            pendingTables.add(tableName);
+        }
+
+        final long now = clock.getTicks();
+        if (now >= nextCheckTimestamp) {
+            if (nextCheckTimestamp == Long.MIN_VALUE) {
+                // segments left behind by previous run of the server
+                ff.iterateDir(path.of(configuration.getRoot()).$(), this::onTableFound);
+            }
+            pendingTables.addAll(walTables);
+            nextCheckTimestamp = now + checkInterval;
+        }
+
+        boolean useful = false;
+        busyTables.clear();
+        for (int i = 0, n = pendingTables.size(); i < n; i++) {
+            final CharSequence tableName = pendingTables.get(i);
+            try {
+                useful |= apply(tableName);
+            } catch (EntryUnavailableException | EntryLockedException e) {
+                // table is busy, try again on next run
+                busyTables.add(tableName);
+            } catch (CairoException e) {
+                LOG.error()
+                        .$("could not apply WAL [table=`").utf8(tableName)
+                        .$("`, ex=").$(e.getFlyweightMessage())
+                        .$(", errno=").$(e.getErrno())
+                        .$(']').$();
+            }
+        }
+        pendingTables.clear();
+        for (int i = 0, n = busyTables.size(); i < n; i++) {
+            pendingTables.add(busyTables.getQuick(i));
+        }
+        return useful;
+    }
+
+    /**
+     * Completes apply, which has been interrupted after table commit. Before table is committed, apply job records
+     * applied row counts of segments together with transaction number the commit is going to produce. When table
+     * has reached that transaction, commit happened and segments are updated from the record, otherwise the record
+     * is discarded. Nothing else must commit to the table before the record is resolved, so {@link TableWriter}
+     * calls this method when it is open.
+     *
+     * @param path     table directory, path is restored to table directory on return
+     * @param tableTxn committed transaction number of the table
+     */
+    static void completeApply(FilesFacade ff, Path path, long tableTxn, long tempMem8b) {
+        final int tableLen = path.length();
+        try {
+            final int plen = path.concat(WalWriter.WAL_DIR_NAME).length();
+            path.concat(APPLY_FILE_NAME).$();
+            if (!ff.exists(path)) {
+                return;
+            }
+
+            final long size = ff.length(path);
+            if (size >= APPLY_OFFSET_SEGMENTS) {
+                try (OnePageMemory mem = new OnePageMemory(ff, path, size)) {
+                    final long txn = mem.getLong(APPLY_OFFSET_TXN);
+                    final long segmentCount = mem.getLong(APPLY_OFFSET_SEGMENT_COUNT);
+                    if (tableTxn >= txn && size >= APPLY_OFFSET_SEGMENTS + segmentCount * APPLY_SEGMENT_SIZE) {
+                        for (long i = 0; i < segmentCount; i++) {
+                            final long offset = APPLY_OFFSET_SEGMENTS + i * APPLY_SEGMENT_SIZE;
+                            path.trimTo(plen).put(Files.SEPARATOR).put(mem.getLong(offset)).concat(TableUtils.TXN_FILE_NAME).$();
+                            writeLong(ff, path, tempMem8b, WalWriter.TXN_OFFSET_APPLIED_ROW_COUNT, mem.getLong(offset + Long.BYTES));
+                        }
+                        LOG.info().$("completed interrupted WAL apply [path=").$(path.trimTo(plen)).$(", txn=").$(txn).$(']').$();
+                    }
+                }
+            }
+            removeApplyFile(ff, path.trimTo(plen));
+        } finally {
+            path.trimTo(tableLen);
+        }
+    }
+
+    private static void removeApplyFile(FilesFacade ff, Path walPath) {
+        walPath.concat(APPLY_FILE_NAME).$();
+        if (ff.exists(walPath) && !ff.remove(walPath)) {
+            throw CairoException.instance(ff.errno()).put("Cannot remove: ").put(walPath);
+        }
+    }
+
+    private static void writeLong(FilesFacade ff, Path path, long tempMem8b, long offset, long value) {
+        final long fd = ff.openRW(path);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot open: ").put(path);
+        }
+        try {
+            Unsafe.getUnsafe().putLong(tempMem8b, value);
+            if (ff.write(fd, tempMem8b, Long.BYTES, offset) != Long.BYTES) {
+                throw CairoException.instance(ff.errno()).put("Cannot write: ").put(path);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    private boolean apply(CharSequence tableName) {
+        path.of(configuration.getRoot()).concat(tableName).concat(WalWriter.WAL_DIR_NAME);
+        final int plen = path.length();
+        if (!ff.exists(path.$())) {
+            walTables.remove(tableName);
+            return false;
+        }
+
+        segmentIds.clear();
+        ff.iterateDir(path, findSegmentsOnFind);
+
+        long pendingRowCount = 0;
+        long appliedRowCount = 0;
+        try {
+            for (int i = 0, n = segmentIds.size(); i < n; i++) {
+                final Segment segment = nextSegment();
+                segment.of(segmentIds.getQuick(i), plen);
+                pendingRowCount += segment.rowCount - segment.appliedRowCount;
+            }
+
+            if (pendingRowCount > 0) {
+                appliedRowCount = applyRows(tableName, plen);
+            }
+
+            for (int i = 0, n = segments.size(); i < n; i++) {
+                segments.getQuick(i).removeIfApplied(plen);
+            }
+        } finally {
+            for (int i = 0, n = segments.size(); i < n; i++) {
+                segments.getQuick(i).close();
+            }
+            segments.clear();
+        }
+        return appliedRowCount > 0;
+    }
+
+    private long applyRows(CharSequence tableName, int plen) {
+        long appliedRowCount = 0;
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            // previous apply could have failed after table commit, applied row counts are read once it is resolved
+            completeApply(ff, path.trimTo(plen - WalWriter.WAL_DIR_NAME.length() - 1), writer.getTxn(), tempMem8b);
+
+            final WalWatermark watermark = engine.getWalWatermark(tableName);
+            long pendingRowCount = 0;
+            long maxTimestamp = writer.getMaxTimestamp();
+            long bound;
+            synchronized (watermark) {
+                // writers commit under watermark lock, segments cannot change while bound is being worked out
+                long openWriterTimestamp = Long.MAX_VALUE;
+                for (int i = 0, n = segments.size(); i < n; i++) {
+                    final Segment segment = segments.getQuick(i);
+                    segment.of(segment.id, plen);
+                    pendingRowCount += segment.rowCount - segment.appliedRowCount;
+                    maxTimestamp = Math.max(maxTimestamp, segment.maxTimestamp);
+                    if (segment.isWriterOpen(plen)) {
+                        // writer that has not committed yet can commit rows of any age
+                        openWriterTimestamp = Math.min(openWriterTimestamp, segment.rowCount > 0 ? segment.maxTimestamp : Long.MIN_VALUE);
+                    }
+                }
+
+                if (openWriterTimestamp == Long.MAX_VALUE) {
+                    bound = maxTimestamp;
+                } else {
+                    final long lagTimestamp = maxTimestamp > Long.MIN_VALUE + lag ? maxTimestamp - lag : Long.MIN_VALUE;
+                    bound = Math.min(maxTimestamp, Math.max(openWriterTimestamp, lagTimestamp));
+                }
+                // commits, which have not been seen here, cannot have rows older than rows about to be applied
+                watermark.raise(bound);
+            }
+
+            if (pendingRowCount == 0) {
+                return 0;
+            }
+
+            if (writer.getMetadata().getTimestampIndex() < 0) {
+                bound = Long.MAX_VALUE;
+            }
+
+            for (int i = 0, n = segments.size(); i < n; i++) {
+                segments.getQuick(i).open(writer, plen);
+            }
+
+            try {
+                while (true) {
+                    Segment next = null;
+                    long nextTimestamp = Long.MAX_VALUE;
+                    for (int i = 0, n = segments.size(); i < n; i++) {
+                        final Segment segment = segments.getQuick(i);
+                        if (segment.row < segment.rowCount) {
+                            final long timestamp = segment.getTimestamp();
+                            if (timestamp <= bound && (next == null || timestamp < nextTimestamp)) {
+                                next = segment;
+                                nextTimestamp = timestamp;
+                            }
+                        }
+                    }
+
+                    if (next == null) {
+                        break;
+                    }
+
+                    if (nextTimestamp < writer.getMaxTimestamp()) {
+                        // table has been written to bypassing WAL, rows are kept in segment
+                        throw CairoException.instance(0).put("WAL rows are older than table max timestamp [table=").put(tableName)
+                                .put(", segment=").put(next.id)
+                                .put(']');
+                    }
+                    final TableWriter.Row row = writer.newRow(nextTimestamp);
+                    next.copyRow(row);
+                    row.append();
+                    appliedRowCount++;
+                    next.row++;
+                }
+
+                if (appliedRowCount == 0) {
+                    // rows are waiting for older rows of open writers
+                    return 0;
+                }
+                writeApplyFile(plen, writer.getTxn() + 1);
+                writer.commit();
+            } catch (CairoException e) {
+                writer.rollback();
+                removeApplyFile(ff, path.trimTo(plen));
+                throw e;
+            }
+
+            // segments must not be marked applied before rows are durable in the table
+            if (writer.hasPendingSync()) {
+                writer.syncPendingCommit();
+            }
+            for (int i = 0, n = segments.size(); i < n; i++) {
+                segments.getQuick(i).markApplied(plen);
+            }
+            removeApplyFile(ff, path.trimTo(plen));
+        }
+
+        LOG.info().$("applied WAL [table=`").utf8(tableName)
+                .$("`, segments=").$(segments.size())
+                .$(", rows=").$(appliedRowCount)
+                .$(']').$();
+        return appliedRowCount;
+    }
+
+    private void onTableFound(long file, int type) {
+        nativeLPSZ.of(file);
+        if (type == Files.DT_DIR && nativeLPSZ.charAt(0) != '.') {
+            path.of(configuration.getRoot()).concat(nativeLPSZ).concat(WalWriter.WAL_DIR_NAME).$();
+            if (ff.exists(path)) {
+                walTables.add(Chars.toString(nativeLPSZ));
+            }
+        }
+    }
+
+    private void writeApplyFile(int plen, long txn) {
+        try (AppendMemory mem = new AppendMemory(ff, path.trimTo(plen).concat(APPLY_FILE_NAME).$(), ff.getPageSize())) {
+            mem.putLong(txn);
+            mem.putLong(segments.size());
+            for (int i = 0, n = segments.size(); i < n; i++) {
+                final Segment segment = segments.getQuick(i);
+                mem.putLong(segment.id);
+                mem.putLong(segment.row);
+            }
+            final int commitMode = configuration.getCommitMode();
+            if (commitMode != CommitMode.NOSYNC) {
+                mem.sync(commitMode == CommitMode.ASYNC);
+            }
+        }
+    }
+
+    private Segment nextSegment() {
+        final int index = segments.size();
+        final Segment segment;
+        if (index < segmentPool.size()) {
+            segment = segmentPool.getQuick(index);
+        } else {
+            segment = new Segment();
+            segmentPool.add(segment);
+        }
+        segments.add(segment);
+        return segment;
+    }
+
+    private class Segment implements Closeable {
+        private final ObjList<OnePageMemory> columns = new ObjList<>();
+        private final IntList columnTypes = new IntList();
+        private final IntList writerColumnIndexes = new IntList();
+        private int id;
+        private boolean hasTxn;
+        private long rowCount;
+        private long appliedRowCount;
+        private long maxTimestamp;
+        private long row;
+        private int timestampIndex;
+
+        @Override
+        public void close() {
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                Misc.free(columns.getQuick(i));
+            }
+            columns.clear();
+            columnTypes.clear();
+            writerColumnIndexes.clear();
+        }
+
+        private void copyRow(TableWriter.Row r) {
+            for (int i = 0, n = columnTypes.size(); i < n; i++) {
+                final int index = writerColumnIndexes.getQuick(i);
+                if (index < 0) {
+                    continue;
+                }
+                final OnePageMemory mem = columns.getQuick(i * 2);
+                switch (columnTypes.getQuick(i)) {
+                    case ColumnType.BOOLEAN:
+                        r.putBool(index, mem.getBool(row));
+                        break;
+                    case ColumnType.BYTE:
+                        r.putByte(index, mem.getByte(row));
+                        break;
+                    case ColumnType.SHORT:
+                        r.putShort(index, mem.getShort(row * Short.BYTES));
+                        break;
+                    case ColumnType.CHAR:
+                        r.putChar(index, mem.getChar(row * Character.BYTES));
+                        break;
+                    case ColumnType.INT:
+                        r.putInt(index, mem.getInt(row * Integer.BYTES));
+                        break;
+                    case ColumnType.FLOAT:
+                        r.putFloat(index, mem.getFloat(row * Float.BYTES));
+                        break;
+                    case ColumnType.LONG:
+                    case ColumnType.DATE:
+                    case ColumnType.TIMESTAMP:
+                        r.putLong(index, mem.getLong(row * Long.BYTES));
+                        break;
+                    case ColumnType.DOUBLE:
+                        r.putDouble(index, mem.getDouble(row * Double.BYTES));
+                        break;
+                    case ColumnType.LONG256:
+                        r.putLong256(index, mem.getLong256A(row * Long256.BYTES));
+                        break;
+                    case ColumnType.STRING:
+                    case ColumnType.SYMBOL:
+                        final CharSequence value = mem.getStr(columns.getQuick(i * 2 + 1).getLong(row * Long.BYTES));
+                        if (value != null) {
+                            if (columnTypes.getQuick(i) == ColumnType.SYMBOL) {
+                                r.putSym(index, value);
+                            } else {
+                                r.putStr(index, value);
+                            }
+                        }
+                        break;
+                    case ColumnType.BINARY:
+                        final BinarySequence bin = mem.getBin(columns.getQuick(i * 2 + 1).getLong(row * Long.BYTES));
+                        if (bin != null) {
+                            r.putBin(index, bin);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private long getTimestamp() {
+            return timestampIndex > -1 ? columns.getQuick(timestampIndex * 2).getLong(row * Long.BYTES) : 0;
+        }
+
+        private boolean isWriterOpen(int plen) {
+            TableUtils.lockName(segmentPath(plen));
+            final long fd = ff.openRW(path);
+            if (fd == -1) {
+                return false;
+            }
+            try {
+                return ff.lock(fd) != 0;
+            } finally {
+                ff.close(fd);
+            }
+        }
+
+        private void markApplied(int plen) {
+            if (appliedRowCount < row) {
+                segmentPath(plen).concat(TableUtils.TXN_FILE_NAME).$();
+                writeLong(ff, path, tempMem8b, WalWriter.TXN_OFFSET_APPLIED_ROW_COUNT, row);
+                appliedRowCount = row;
+            }
+        }
+
+        private void of(int id, int plen) {
+            this.id = id;
+            segmentPath(plen).concat(TableUtils.TXN_FILE_NAME).$();
+            this.hasTxn = ff.exists(path) && ff.length(path) >= WalWriter.TXN_SIZE;
+            if (hasTxn) {
+                this.rowCount = readLong(path, WalWriter.TXN_OFFSET_ROW_COUNT);
+                this.appliedRowCount = readLong(path, WalWriter.TXN_OFFSET_APPLIED_ROW_COUNT);
+                this.maxTimestamp = readLong(path, WalWriter.TXN_OFFSET_MAX_TIMESTAMP);
+            } else {
+                this.rowCount = this.appliedRowCount = 0;
+                this.maxTimestamp = Long.MIN_VALUE;
+            }
+            this.row = appliedRowCount;
+        }
+
+        private void open(TableWriter writer, int plen) {
+            if (row >= rowCount) {
+                return;
+            }
+
+            final RecordMetadata writerMetadata = writer.getMetadata();
+            segmentPath(plen);
+            final int segmentLen = path.length();
+            try (OnePageMemory metaMem = new OnePageMemory(ff, path.concat(TableUtils.META_FILE_NAME).$(), ff.length(path))) {
+                final int columnCount = metaMem.getInt(WalWriter.META_OFFSET_COLUMN_COUNT);
+                this.timestampIndex = metaMem.getInt(WalWriter.META_OFFSET_TIMESTAMP_INDEX);
+                final int addedColumnIndex = metaMem.getInt(WalWriter.META_OFFSET_ADDED_COLUMN_INDEX);
+                long offset = WalWriter.META_OFFSET_COLUMNS;
+                for (int i = 0; i < columnCount; i++) {
+                    final int type = metaMem.getInt(offset);
+                    offset += Integer.BYTES;
+                    final CharSequence name = metaMem.getStr(offset);
+                    offset += VirtualMemory.getStorageLength(name);
+
+                    int index = writerMetadata.getColumnIndexQuiet(name);
+                    if (index < 0 && i >= addedColumnIndex) {
+                        // column has been added by WAL writer, columns that table no longer has are skipped
+                        writer.addColumn(name, type);
+                        index = writerMetadata.getColumnIndexQuiet(name);
+                        LOG.info().$("added WAL column to table [segment=").$(path.trimTo(segmentLen))
+                                .$(", column=").utf8(name)
+                                .$(']').$();
+                    } else if (index > -1 && writerMetadata.getColumnType(index) != type) {
+                        LOG.error().$("WAL column type does not match table, column is skipped [segment=").$(path.trimTo(segmentLen))
+                                .$(", column=").utf8(name)
+                                .$(", walType=").$(ColumnType.nameOf(type))
+                                .$(", tableType=").$(ColumnType.nameOf(writerMetadata.getColumnType(index)))
+                                .$(']').$();
+                        index = -1;
+                    } else if (index == writerMetadata.getTimestampIndex()) {
+                        // set by newRow()
+                        index = -1;
+                    }
+                    columnTypes.add(type);
+                    writerColumnIndexes.add(index);
+
+                    columns.add(openColumn(TableUtils.dFile(path.trimTo(segmentLen), name)));
+                    if (type == ColumnType.STRING || type == ColumnType.SYMBOL || type == ColumnType.BINARY) {
+                        columns.add(openColumn(TableUtils.iFile(path.trimTo(segmentLen), name)));
+                    } else {
+                        columns.add(null);
+                    }
+                }
+            }
+        }
+
+        private OnePageMemory openColumn(LPSZ name) {
+            return new OnePageMemory(ff, name, ff.length(name));
+        }
+
+        private void removeIfApplied(int plen) {
+            if (appliedRowCount < rowCount) {
+                return;
+            }
+
+            segmentPath(plen);
+            final int segmentLen = path.length();
+            TableUtils.lockName(path);
+            final long fd = ff.openRW(path);
+            if (fd == -1) {
+                return;
+            }
+            try {
+                if (ff.lock(fd) != 0) {
+                    // writer is still open
+                    return;
+                }
+
+                // writer could have committed more rows before it was closed
+                if (hasTxn && readLong(path.trimTo(segmentLen).concat(TableUtils.TXN_FILE_NAME).$(), WalWriter.TXN_OFFSET_ROW_COUNT) > rowCount) {
+                    return;
+                }
+
+                if (!ff.rmdir(path.trimTo(segmentLen).put(Files.SEPARATOR).$())) {
+                    LOG.error().$("could not remove WAL segment [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                } else {
+                    LOG.info().$("removed WAL segment [path=").$(path).$(']').$();
+                }
+            } finally {
+                ff.close(fd);
+            }
+        }
+
+        private long readLong(Path name, long offset) {
+            return TableUtils.readLongAtOffset(ff, name, tempMem8b, offset);
+        }
+
+        private Path segmentPath(int plen) {
+            path.trimTo(plen).put(Files.SEPARATOR).put(id);
+            return path;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+/**
+ * Lowest timestamp that rows committed to write-ahead log of a table can have. Table writer cannot append rows
+ * older than the rows it already has, so {@link WalApplyJob} raises the watermark to max timestamp of rows it is
+ * about to apply, at the same time as it reads committed row counts of segments. {@link WalWriter} checks
+ * its rows against the watermark while it publishes commit. Both happen under the watermark monitor, which makes
+ * commit either visible to apply job or rejected, and rows are never found too old to apply.
+ */
+final class WalWatermark {
+    private long timestamp = Long.MIN_VALUE;
+
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    void raise(long timestamp) {
+        if (timestamp > this.timestamp) {
+            this.timestamp = timestamp;
+        }
+    }
+}
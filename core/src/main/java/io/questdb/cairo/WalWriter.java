@@ -0,0 +1,726 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Appends rows to a write-ahead log segment of a table. Every writer owns its segment, so any number of
+ * writers can append to the same table concurrently without contending for {@link TableWriter}.
+ * Committed rows are merged into table partitions in timestamp order by {@link WalApplyJob}.
+ * <p>
+ * Segment is a directory under "wal" subdirectory of the table. It contains a copy of table column
+ * names and types, column files laid out the same way as in a partition and "_txn" file with committed row
+ * count, segment transaction number and max timestamp. Symbol values are stored as strings because symbol keys are
+ * allocated by table writer. Rows within a segment must be in timestamp order.
+ * <p>
+ * Writers can commit rows older than rows committed by other writers, {@link WalApplyJob} merges them. Table writer
+ * can only append rows though, so commit fails when its rows are older than rows that have already been applied to
+ * the table, see {@link WalWatermark}. Rows of failed commit are rolled back.
+ * <p>
+ * Column added by {@link #addColumn(CharSequence, int)} is added to the segment right away and to the table when
+ * rows of the segment are applied.
+ */
+public class WalWriter implements TableWriterAPI {
+    public static final String WAL_DIR_NAME = "wal";
+    static final long TXN_OFFSET_ROW_COUNT = 0;
+    static final long TXN_OFFSET_TXN = 8;
+    static final long TXN_OFFSET_APPLIED_ROW_COUNT = 16;
+    static final long TXN_OFFSET_MAX_TIMESTAMP = 24;
+    static final long TXN_SIZE = 32;
+    static final long META_OFFSET_COLUMN_COUNT = 0;
+    static final long META_OFFSET_TIMESTAMP_INDEX = 4;
+    // columns from this index on have been added by writer rather than copied from table metadata
+    static final long META_OFFSET_ADDED_COLUMN_INDEX = 8;
+    static final long META_OFFSET_COLUMNS = 12;
+    private static final Log LOG = LogFactory.getLog(WalWriter.class);
+    private static final Runnable NOOP = () -> {
+    };
+    private final FilesFacade ff;
+    private final Path path;
+    private final String tableName;
+    private final MessageBus messageBus;
+    private final int defaultCommitMode;
+    private final GenericRecordMetadata metadata;
+    private final int timestampIndex;
+    private final int partitionBy;
+    private final long structureVersion;
+    private final long appendPageSize;
+    private final ObjList<AppendMemory> columns;
+    private final ObjList<Runnable> nullers;
+    private final LongList refs = new LongList();
+    private final LongList rowOffsets = new LongList();
+    private final LongList committedOffsets = new LongList();
+    private final ReadWriteMemory txMem = new ReadWriteMemory();
+    private final Row row = new Row();
+    private final WalWatermark watermark;
+    private final int rootLen;
+    private int columnCount;
+    private int segmentLen;
+    private long lockFd = -1;
+    private int segmentId = -1;
+    private long masterRef = 0;
+    private long rowCount = 0;
+    private long committedRowCount = 0;
+    private long txn = 0;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long prevMaxTimestamp = Long.MIN_VALUE;
+    private long committedMaxTimestamp = Long.MIN_VALUE;
+    // timestamp of first uncommitted row
+    private long txnMinTimestamp = Long.MIN_VALUE;
+
+    public WalWriter(CairoConfiguration configuration, CharSequence tableName, @Nullable MessageBus messageBus) {
+        this(configuration, tableName, messageBus, new WalWatermark());
+    }
+
+    WalWriter(CairoConfiguration configuration, CharSequence tableName, @Nullable MessageBus messageBus, WalWatermark watermark) {
+        this.ff = configuration.getFilesFacade();
+        this.tableName = Chars.toString(tableName);
+        this.messageBus = messageBus;
+        this.watermark = watermark;
+        this.defaultCommitMode = configuration.getCommitMode();
+        this.path = new Path();
+        try {
+            if (TableUtils.exists(ff, path, configuration.getRoot(), tableName) != TableUtils.TABLE_EXISTS) {
+                throw CairoException.instance(0).put("table does not exist [table=").put(tableName).put(']');
+            }
+
+            path.of(configuration.getRoot()).concat(tableName);
+            final int plen = path.length();
+            // structure version is read before metadata, metadata can be newer than the version, but not older
+            try (OnePageMemory txnMem = new OnePageMemory(ff, path.concat(TableUtils.TXN_FILE_NAME).$(), TableUtils.TX_OFFSET_STRUCT_VERSION + Long.BYTES)) {
+                this.structureVersion = txnMem.getLong(TableUtils.TX_OFFSET_STRUCT_VERSION);
+                final long tableMaxTimestamp = txnMem.getLong(TableUtils.TX_OFFSET_MAX_TIMESTAMP);
+                synchronized (watermark) {
+                    watermark.raise(tableMaxTimestamp);
+                }
+            } finally {
+                path.trimTo(plen);
+            }
+            try (TableReaderMetadata tableMetadata = new TableReaderMetadata(ff, path.concat(TableUtils.META_FILE_NAME).$())) {
+                this.metadata = GenericRecordMetadata.copyOf(tableMetadata);
+                this.partitionBy = tableMetadata.getPartitionBy();
+            } finally {
+                path.trimTo(plen);
+            }
+            this.columnCount = metadata.getColumnCount();
+            this.timestampIndex = metadata.getTimestampIndex();
+            this.columns = new ObjList<>(columnCount * 2);
+            this.nullers = new ObjList<>(columnCount);
+            this.appendPageSize = configuration.getAppendPageSize();
+
+            this.rootLen = path.concat(WAL_DIR_NAME).length();
+            if (!ff.exists(path.$()) && ff.mkdir(path, configuration.getMkDirMode()) != 0 && !ff.exists(path)) {
+                throw CairoException.instance(ff.errno()).put("Cannot create directory: ").put(path);
+            }
+            openSegment(configuration);
+        } catch (CairoException e) {
+            LOG.error().$("could not open WAL [table=`").utf8(tableName).$("`, ex=").$(e.getFlyweightMessage()).$(", errno=").$(e.getErrno()).$(']').$();
+            close();
+            throw e;
+        }
+        LOG.info().$("open WAL [table=`").utf8(tableName).$("`, segment=").$(segmentId).$(']').$();
+    }
+
+    /**
+     * Adds column to the segment. Rows committed before the column is added have null in it. Column is added to
+     * the table by {@link WalApplyJob} when rows of the segment are applied.
+     *
+     * @param name column name
+     * @param type {@link ColumnType}
+     */
+    @Override
+    public void addColumn(CharSequence name, int type) {
+        if (metadata.getColumnIndexQuiet(name) > -1) {
+            throw CairoException.instance(0).put("Duplicate column name: ").put(name);
+        }
+        commit();
+
+        configureColumn(type, name, segmentLen, appendPageSize);
+        final Runnable nuller = nullers.getQuick(columnCount);
+        for (long i = 0; i < rowCount; i++) {
+            nuller.run();
+        }
+        if (defaultCommitMode != CommitMode.NOSYNC) {
+            getPrimaryColumn(columnCount).sync(defaultCommitMode == CommitMode.ASYNC);
+            final AppendMemory mem = getSecondaryColumn(columnCount);
+            if (mem != null) {
+                mem.sync(defaultCommitMode == CommitMode.ASYNC);
+            }
+        }
+
+        // column is appended to metadata before column count is updated, applier can read metadata at any time
+        try (ReadWriteMemory metaMem = new ReadWriteMemory(ff, path.trimTo(segmentLen).concat(TableUtils.META_FILE_NAME).$(), ff.getPageSize())) {
+            metaMem.putInt(type);
+            metaMem.putStr(name);
+            Unsafe.getUnsafe().storeFence();
+            metaMem.putInt(META_OFFSET_COLUMN_COUNT, columnCount + 1);
+        } finally {
+            path.trimTo(segmentLen);
+        }
+
+        metadata.add(new TableColumnMetadata(Chars.toString(name), type));
+        columnCount++;
+        refs.extendAndSet(columnCount - 1, 0);
+        rowOffsets.extendAndSet(columnCount - 1, 0);
+        committedOffsets.extendAndSet(columnCount - 1, getPrimaryColumn(columnCount - 1).getAppendOffset());
+        LOG.info().$("added column to WAL [table=`").utf8(tableName).$("`, segment=").$(segmentId).$(", column=").utf8(name).$(']').$();
+    }
+
+    @Override
+    public boolean checkPendingSync() {
+        // segment is synced by commit
+        return false;
+    }
+
+    @Override
+    public void close() {
+        if (isOpen()) {
+            rollback();
+        }
+        if (columns != null) {
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                Misc.free(columns.getQuick(i));
+            }
+            columns.clear();
+        }
+        txMem.close();
+        if (lockFd != -1) {
+            ff.close(lockFd);
+            lockFd = -1;
+            LOG.info().$("closed WAL [table=`").utf8(tableName).$("`, segment=").$(segmentId).$(']').$();
+            // let applier know that segment can be removed
+            notifyCommit();
+        }
+        Misc.free(path);
+    }
+
+    @Override
+    public void commit() {
+        commit(defaultCommitMode);
+    }
+
+    /**
+     * Makes rows appended since previous commit available to {@link WalApplyJob}. Unlike {@link TableWriter#commit(int)}
+     * this method does not wait for rows to appear in the table.
+     *
+     * @param commitMode commit durability mode.
+     * @throws CairoException when rows are older than rows already in the table or being applied to it,
+     *                        rows appended since previous commit are rolled back in this case
+     */
+    @Override
+    public void commit(int commitMode) {
+        if ((masterRef & 1) != 0) {
+            cancelRow();
+        }
+
+        if (rowCount > committedRowCount) {
+            if (commitMode != CommitMode.NOSYNC) {
+                final boolean async = commitMode == CommitMode.ASYNC;
+                for (int i = 0, n = columns.size(); i < n; i++) {
+                    final AppendMemory mem = columns.getQuick(i);
+                    if (mem != null) {
+                        mem.sync(async);
+                    }
+                }
+            }
+
+            synchronized (watermark) {
+                if (timestampIndex > -1 && txnMinTimestamp < watermark.getTimestamp()) {
+                    final long watermarkTimestamp = watermark.getTimestamp();
+                    rollback();
+                    throw CairoException.instance(0)
+                            .put("rows are older than rows applied to table [table=").put(tableName)
+                            .put(", segment=").put(segmentId)
+                            .put(", minTimestamp=").put(watermarkTimestamp)
+                            .put(']');
+                }
+                txMem.putLong(TXN_OFFSET_MAX_TIMESTAMP, maxTimestamp);
+                txMem.putLong(TXN_OFFSET_TXN, ++txn);
+                Unsafe.getUnsafe().storeFence();
+                txMem.putLong(TXN_OFFSET_ROW_COUNT, rowCount);
+            }
+            if (commitMode != CommitMode.NOSYNC) {
+                txMem.sync(0, commitMode == CommitMode.ASYNC);
+            }
+
+            committedRowCount = rowCount;
+            committedMaxTimestamp = maxTimestamp;
+            for (int i = 0; i < columnCount; i++) {
+                committedOffsets.setQuick(i, getPrimaryColumn(i).getAppendOffset());
+            }
+
+            notifyCommit();
+        }
+    }
+
+    public int getColumnIndex(CharSequence name) {
+        final int index = metadata.getColumnIndexQuiet(name);
+        if (index > -1) {
+            return index;
+        }
+        throw CairoException.instance(0).put("Invalid column name: ").put(name);
+    }
+
+    @Override
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public CharSequence getName() {
+        return tableName;
+    }
+
+    public int getSegmentId() {
+        return segmentId;
+    }
+
+    /**
+     * @return structure version of the table when writer was open, rows are appended using metadata of that version
+     */
+    @Override
+    public int getPartitionBy() {
+        return partitionBy;
+    }
+
+    @Override
+    public long getStructureVersion() {
+        return structureVersion;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public long getTxn() {
+        return txn;
+    }
+
+    public boolean isOpen() {
+        return lockFd != -1;
+    }
+
+    @Override
+    public Row newRow(long timestamp) {
+        if ((masterRef & 1) != 0) {
+            cancelRow();
+        }
+
+        if (timestampIndex > -1) {
+            if (timestamp < maxTimestamp) {
+                throw CairoException.instance(0).put("Cannot insert rows out of order. Table=").put(tableName).put(", segment=").put(segmentId);
+            }
+            for (int i = 0; i < columnCount; i++) {
+                rowOffsets.setQuick(i, getPrimaryColumn(i).getAppendOffset());
+            }
+            masterRef++;
+            prevMaxTimestamp = maxTimestamp;
+            maxTimestamp = timestamp;
+            if (rowCount == committedRowCount) {
+                txnMinTimestamp = timestamp;
+            }
+            getPrimaryColumn(timestampIndex).putLong(timestamp);
+            return row;
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            rowOffsets.setQuick(i, getPrimaryColumn(i).getAppendOffset());
+        }
+        masterRef++;
+        return row;
+    }
+
+    @Override
+    public Row newRow() {
+        return newRow(0L);
+    }
+
+    /**
+     * Discards rows appended since last commit.
+     */
+    @Override
+    public void rollback() {
+        if ((masterRef & 1) != 0) {
+            cancelRow();
+        }
+
+        if (rowCount > committedRowCount) {
+            for (int i = 0; i < columnCount; i++) {
+                getPrimaryColumn(i).jumpTo(committedOffsets.getQuick(i));
+                final AppendMemory mem = getSecondaryColumn(i);
+                if (mem != null) {
+                    mem.jumpTo(committedRowCount * Long.BYTES);
+                }
+            }
+            rowCount = committedRowCount;
+            maxTimestamp = committedMaxTimestamp;
+        }
+    }
+
+    @Override
+    public long size() {
+        return rowCount;
+    }
+
+    @Override
+    public String toString() {
+        return "WalWriter{" +
+                "name=" + tableName +
+                ", segment=" + segmentId +
+                '}';
+    }
+
+    private void cancelRow() {
+        for (int i = 0; i < columnCount; i++) {
+            getPrimaryColumn(i).jumpTo(rowOffsets.getQuick(i));
+            final AppendMemory mem = getSecondaryColumn(i);
+            if (mem != null) {
+                mem.jumpTo(rowCount * Long.BYTES);
+            }
+        }
+        maxTimestamp = prevMaxTimestamp;
+        masterRef++;
+    }
+
+    private void configureColumn(int type, CharSequence name, int plen, long pageSize) {
+        final AppendMemory mem1 = new AppendMemory();
+        columns.add(mem1);
+        mem1.of(ff, TableUtils.dFile(path.trimTo(plen), name), pageSize);
+        final AppendMemory mem2;
+        switch (type) {
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.BINARY:
+                mem2 = new AppendMemory();
+                columns.add(mem2);
+                mem2.of(ff, TableUtils.iFile(path.trimTo(plen), name), pageSize);
+                break;
+            default:
+                mem2 = null;
+                columns.add(null);
+                break;
+        }
+        path.trimTo(plen);
+
+        switch (type) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                nullers.add(() -> mem1.putByte((byte) 0));
+                break;
+            case ColumnType.DOUBLE:
+                nullers.add(() -> mem1.putDouble(Double.NaN));
+                break;
+            case ColumnType.FLOAT:
+                nullers.add(() -> mem1.putFloat(Float.NaN));
+                break;
+            case ColumnType.INT:
+                nullers.add(() -> mem1.putInt(Numbers.INT_NaN));
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                nullers.add(() -> mem1.putLong(Numbers.LONG_NaN));
+                break;
+            case ColumnType.LONG256:
+                nullers.add(() -> mem1.putLong256(Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN));
+                break;
+            case ColumnType.SHORT:
+                nullers.add(() -> mem1.putShort((short) 0));
+                break;
+            case ColumnType.CHAR:
+                nullers.add(() -> mem1.putChar((char) 0));
+                break;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                nullers.add(() -> mem2.putLong(mem1.putNullStr()));
+                break;
+            case ColumnType.BINARY:
+                nullers.add(() -> mem2.putLong(mem1.putNullBin()));
+                break;
+            default:
+                nullers.add(NOOP);
+                break;
+        }
+    }
+
+    private AppendMemory getPrimaryColumn(int column) {
+        return columns.getQuick(column * 2);
+    }
+
+    private AppendMemory getSecondaryColumn(int column) {
+        return columns.getQuick(column * 2 + 1);
+    }
+
+    private void notifyCommit() {
+        if (messageBus != null) {
+            TableUtils.notifyCommit(messageBus.getWalCommitQueue(), messageBus.getWalCommitPubSequence(), tableName);
+        }
+    }
+
+    private void openSegment(CairoConfiguration configuration) {
+        // segment ids are reused once applier removes segments, the lock file of an id is never removed
+        // to make sure that writer and applier always lock the same file
+        int plen;
+        for (int id = 0; ; id++) {
+            path.trimTo(rootLen).put(Files.SEPARATOR).put(id);
+            plen = path.length();
+            TableUtils.lockName(path);
+            final long fd = ff.openRW(path);
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("Cannot open: ").put(path);
+            }
+
+            if (ff.lock(fd) != 0) {
+                // segment is in use by another writer or is being removed
+                ff.close(fd);
+                continue;
+            }
+
+            path.trimTo(plen).$();
+            if (ff.exists(path)) {
+                // segment has not been applied yet
+                ff.close(fd);
+                continue;
+            }
+
+            if (ff.mkdir(path, configuration.getMkDirMode()) != 0) {
+                ff.close(fd);
+                throw CairoException.instance(ff.errno()).put("Cannot create directory: ").put(path);
+            }
+            this.lockFd = fd;
+            this.segmentId = id;
+            this.segmentLen = plen;
+            break;
+        }
+
+        path.trimTo(plen);
+        try (AppendMemory metaMem = new AppendMemory(ff, path.concat(TableUtils.META_FILE_NAME).$(), ff.getPageSize())) {
+            metaMem.putInt(columnCount);
+            metaMem.putInt(timestampIndex);
+            metaMem.putInt(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                metaMem.putInt(metadata.getColumnType(i));
+                metaMem.putStr(metadata.getColumnName(i));
+            }
+        }
+
+        final long pageSize = configuration.getAppendPageSize();
+        for (int i = 0; i < columnCount; i++) {
+            configureColumn(metadata.getColumnType(i), metadata.getColumnName(i), plen, pageSize);
+        }
+        if (timestampIndex > -1) {
+            nullers.setQuick(timestampIndex, NOOP);
+        }
+        refs.extendAndSet(columnCount - 1, 0);
+        rowOffsets.extendAndSet(columnCount - 1, 0);
+        committedOffsets.extendAndSet(columnCount - 1, 0);
+
+        // transaction file is created last, applier ignores segments without one
+        txMem.of(ff, path.trimTo(plen).concat(TableUtils.TXN_FILE_NAME).$(), ff.getPageSize());
+        txMem.putLong(0);
+        txMem.putLong(0);
+        txMem.putLong(0);
+        txMem.putLong(Long.MIN_VALUE);
+        path.trimTo(plen);
+    }
+
+    public class Row implements TableWriter.Row {
+        @Override
+        public void append() {
+            if ((masterRef & 1) != 0) {
+                for (int i = 0; i < columnCount; i++) {
+                    if (refs.getQuick(i) < masterRef) {
+                        nullers.getQuick(i).run();
+                    }
+                }
+                rowCount++;
+                masterRef++;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if ((masterRef & 1) != 0) {
+                cancelRow();
+            }
+        }
+
+        @Override
+        public void putBin(int index, long address, long len) {
+            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(address, len));
+            notNull(index);
+        }
+
+        @Override
+        public void putBin(int index, BinarySequence sequence) {
+            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(sequence));
+            notNull(index);
+        }
+
+        @Override
+        public void putBool(int index, boolean value) {
+            getPrimaryColumn(index).putBool(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putByte(int index, byte value) {
+            getPrimaryColumn(index).putByte(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putChar(int index, char value) {
+            getPrimaryColumn(index).putChar(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putDate(int index, long value) {
+            putLong(index, value);
+        }
+
+        @Override
+        public void putDouble(int index, double value) {
+            getPrimaryColumn(index).putDouble(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putFloat(int index, float value) {
+            getPrimaryColumn(index).putFloat(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putInt(int index, int value) {
+            getPrimaryColumn(index).putInt(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putLong(int index, long value) {
+            getPrimaryColumn(index).putLong(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putLong256(int index, long l0, long l1, long l2, long l3) {
+            getPrimaryColumn(index).putLong256(l0, l1, l2, l3);
+            notNull(index);
+        }
+
+        @Override
+        public void putLong256(int index, Long256 value) {
+            getPrimaryColumn(index).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+            notNull(index);
+        }
+
+        @Override
+        public void putLong256(int index, CharSequence hexString) {
+            getPrimaryColumn(index).putLong256(hexString);
+            notNull(index);
+        }
+
+        @Override
+        public void putLong256(int index, @NotNull CharSequence hexString, int start, int end) {
+            getPrimaryColumn(index).putLong256(hexString, start, end);
+            notNull(index);
+        }
+
+        @Override
+        public void putShort(int index, short value) {
+            getPrimaryColumn(index).putShort(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putStr(int index, CharSequence value) {
+            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            notNull(index);
+        }
+
+        @Override
+        public void putStr(int index, char value) {
+            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            notNull(index);
+        }
+
+        @Override
+        public void putStr(int index, CharSequence value, int pos, int len) {
+            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value, pos, len));
+            notNull(index);
+        }
+
+        @Override
+        public void putSym(int index, CharSequence value) {
+            putStr(index, value);
+        }
+
+        @Override
+        public void putSym(int index, char value) {
+            putStr(index, value);
+        }
+
+        @Override
+        public void putTimestamp(int index, long value) {
+            putLong(index, value);
+        }
+
+        @Override
+        public void putTimestamp(int index, CharSequence value) {
+            // try UTC timestamp first (micro)
+            long l;
+            try {
+                l = TimestampFormatUtils.parseTimestamp(value);
+            } catch (NumericException e) {
+                try {
+                    l = TimestampFormatUtils.parseDateTime(value);
+                } catch (NumericException numericException) {
+                    throw CairoException.instance(0).put("could not convert to timestamp [value=").put(value).put(']');
+                }
+            }
+            putTimestamp(index, l);
+        }
+
+        private void notNull(int index) {
+            refs.setQuick(index, masterRef);
+        }
+    }
+}
@@ -26,6 +26,7 @@ package io.questdb.cairo.pool;
 
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.SharedColumnMappings;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.pool.ex.EntryLockedException;
 import io.questdb.cairo.pool.ex.EntryUnavailableException;
@@ -51,11 +52,13 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
     private final ConcurrentHashMap<Entry> entries = new ConcurrentHashMap<>();
     private final int maxSegments;
     private final int maxEntries;
+    private final SharedColumnMappings sharedMappings;
 
     public ReaderPool(CairoConfiguration configuration) {
         super(configuration, configuration.getInactiveReaderTTL());
         this.maxSegments = configuration.getReaderPoolMaxSegments();
         this.maxEntries = maxSegments * ENTRY_SIZE;
+        this.sharedMappings = new SharedColumnMappings(configuration.getReaderMappingIncrement());
     }
 
     @Override
@@ -347,7 +350,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         private Entry entry;
 
         public R(ReaderPool pool, Entry entry, int index, CharSequence name) {
-            super(pool.getConfiguration(), name);
+            super(pool.getConfiguration(), name, pool.sharedMappings);
             this.pool = pool;
             this.entry = entry;
             this.index = index;
@@ -355,8 +358,12 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
 
         @Override
         public void close() {
-            if (pool != null && entry != null && pool.returnToPool(this)) {
-                return;
+            if (pool != null && entry != null) {
+                // idle reader does not hold on to files of its transaction, it is reloaded before reuse
+                releaseTxn();
+                if (pool.returnToPool(this)) {
+                    return;
+                }
             }
             super.close();
         }
@@ -31,8 +31,10 @@ import io.questdb.cairo.pool.ex.EntryUnavailableException;
 import io.questdb.cairo.pool.ex.PoolClosedException;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Metrics;
 import io.questdb.std.ConcurrentHashMap;
 import io.questdb.std.Misc;
+import io.questdb.std.Sinkable;
 import io.questdb.std.Unsafe;
 import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.str.Path;
@@ -72,6 +74,7 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
     private final CharSequence root;
     @Nullable
     private final MessageBus messageBus;
+    private final Metrics metrics;
 
     /**
      * Pool constructor. WriterPool root directory is passed via configuration.
@@ -80,9 +83,14 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
      * @param messageBus    message bus instance to allow index tasks to be communicated to available threads.
      */
     public WriterPool(CairoConfiguration configuration, @Nullable MessageBus messageBus) {
+        this(configuration, messageBus, null);
+    }
+
+    public WriterPool(CairoConfiguration configuration, @Nullable MessageBus messageBus, @Nullable Metrics metrics) {
         super(configuration, configuration.getInactiveWriterTTL());
         this.configuration = configuration;
         this.messageBus = messageBus;
+        this.metrics = metrics;
         this.clock = configuration.getMicrosecondClock();
         this.root = configuration.getRoot();
         notifyListener(Thread.currentThread().getId(), null, PoolListener.EV_POOL_OPEN);
@@ -215,6 +223,32 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
         return count;
     }
 
+    /**
+     * Completes deferred group commit sync of writers that are parked in pool. Writers that are
+     * busy are skipped, their owners are expected to complete the sync.
+     *
+     * @return true if at least one writer was synced.
+     */
+    public boolean syncPendingCommits() {
+        final long thread = Thread.currentThread().getId();
+        boolean useful = false;
+        for (Entry e : entries.values()) {
+            if (e.owner == UNALLOCATED && Unsafe.cas(e, ENTRY_OWNER, UNALLOCATED, thread)) {
+                try {
+                    final TableWriter w = e.writer;
+                    if (w != null && w.hasPendingSync()) {
+                        useful |= !w.checkPendingSync();
+                    }
+                } catch (CairoException ex) {
+                    LOG.error().$("could not sync [table=`").utf8(e.writer.getName()).$("`, ex=").$((Sinkable) ex).$(']').$();
+                } finally {
+                    Unsafe.getUnsafe().putOrderedLong(e, ENTRY_OWNER, UNALLOCATED);
+                }
+            }
+        }
+        return useful;
+    }
+
     private TableWriter checkClosedAndGetWriter(CharSequence tableName, Entry e) {
         if (isClosed()) {
             // pool closed but we somehow managed to lock writer
@@ -368,7 +402,7 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
         try {
             checkClosed();
             LOG.info().$("open [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
-            e.writer = new TableWriter(configuration, name, messageBus, true, e, root);
+            e.writer = new TableWriter(configuration, name, messageBus, true, e, root, metrics);
             return logAndReturn(e, PoolListener.EV_CREATE);
         } catch (CairoException ex) {
             LOG.error()
@@ -26,6 +26,6 @@ package io.questdb.cairo.sql;
 
 import io.questdb.cairo.CairoSecurityContext;
 
-public interface DataFrameCursorFactory {
+public interface DataFrameCursorFactory extends Plannable {
     DataFrameCursor getCursor(CairoSecurityContext securityContext);
 }
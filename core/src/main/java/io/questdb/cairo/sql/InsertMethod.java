@@ -24,7 +24,7 @@
 
 package io.questdb.cairo.sql;
 
-import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.TableWriterAPI;
 
 import java.io.Closeable;
 
@@ -33,7 +33,7 @@ public interface InsertMethod extends Closeable {
 
     void commit();
 
-    TableWriter getWriter();
+    TableWriterAPI getWriter();
 
     @Override
     void close();
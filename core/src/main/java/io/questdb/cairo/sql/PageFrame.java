@@ -24,10 +24,16 @@
 
 package io.questdb.cairo.sql;
 
+import io.questdb.std.DirectLongList;
+
 public interface PageFrame {
 
     long getPageAddress(int columnIndex);
 
     long getPageValueCount(int columnIndex);
 
+    // frame-relative indexes of rows that passed filter, null when all rows of the frame are selected
+    default DirectLongList getSelectedRows() {
+        return null;
+    }
 }
@@ -32,6 +32,15 @@ public interface PageFrameCursor extends Closeable, SymbolTableSource {
     @Override
     void close(); // we don't throw IOException
 
+    /**
+     * Number of most recent frames returned by {@link #next()} that remain valid at the same time.
+     * Consumers that process frames asynchronously must complete work on all outstanding frames
+     * before requesting more frames than that. Cursors that do not own per-frame memory are unbounded.
+     */
+    default int getMaxInFlightFrames() {
+        return Integer.MAX_VALUE;
+    }
+
     @Nullable PageFrame next();
 
     void toTop();
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.sql;
+
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Collects EXPLAIN output. Every factory adds a line, which starts with factory
+ * type and continues with attributes, such as intervals or symbol keys. Factories
+ * add their children, which are indented under the parent line.
+ */
+public class PlanSink implements Mutable {
+    private static final String INDENT = "    ";
+    private final ObjList<String> lines = new ObjList<>();
+    private final StringSink line = new StringSink();
+    private int depth = 0;
+    private boolean lineOpen = false;
+    private long pendingEstimatedRowCount = -1;
+    private long pendingRowCount = -1;
+    private long pendingFrameCount = -1;
+    private long pendingNanos = -1;
+    private long estimatedRowCount = -1;
+    private long rowCount = -1;
+    private long frameCount = -1;
+    private long nanos = -1;
+
+    public static String getTypeName(Class<?> clazz) {
+        final String name = clazz.getSimpleName();
+        if (name.length() == 0) {
+            return clazz.getName();
+        }
+        if (name.endsWith("RecordCursorFactory")) {
+            return name.substring(0, name.length() - "RecordCursorFactory".length());
+        }
+        if (name.endsWith("CursorFactory")) {
+            return name.substring(0, name.length() - "CursorFactory".length());
+        }
+        return name;
+    }
+
+    public PlanSink attr(CharSequence name) {
+        line.put(' ').put(name).put(": ");
+        return this;
+    }
+
+    public PlanSink child(Plannable plannable) {
+        depth++;
+        try {
+            plannable.toPlan(this);
+        } finally {
+            depth--;
+        }
+        return this;
+    }
+
+    @Override
+    public void clear() {
+        lines.clear();
+        line.clear();
+        depth = 0;
+        lineOpen = false;
+        clearStats();
+    }
+
+    public ObjList<String> getLines() {
+        closeLine();
+        return lines;
+    }
+
+    /**
+     * @param intervals pairs of microsecond interval values, "low" and "high" inclusive
+     */
+    public PlanSink intervals(LongList intervals) {
+        for (int i = 0, n = intervals.size(); i < n; i += 2) {
+            if (i > 0) {
+                line.put(", ");
+            }
+            line.put('[');
+            TimestampFormatUtils.appendDateTimeUSec(line, intervals.getQuick(i));
+            line.put(", ");
+            TimestampFormatUtils.appendDateTimeUSec(line, intervals.getQuick(i + 1));
+            line.put(']');
+        }
+        return this;
+    }
+
+    /**
+     * Statistics of factory, which are printed at the end of next line. Statistics
+     * are reported by wrappers of factories, the factories are unaware of them.
+     *
+     * @param estimatedRowCount row count, estimated by optimiser, -1 when not known
+     * @param rowCount          actual row count, -1 when query was not executed
+     * @param frameCount        actual page frame count
+     * @param nanos             time spent in factory cursor, including its children
+     */
+    public void stats(long estimatedRowCount, long rowCount, long frameCount, long nanos) {
+        this.pendingEstimatedRowCount = estimatedRowCount;
+        this.pendingRowCount = rowCount;
+        this.pendingFrameCount = frameCount;
+        this.pendingNanos = nanos;
+    }
+
+    public PlanSink type(CharSequence type) {
+        closeLine();
+        for (int i = 0; i < depth; i++) {
+            line.put(INDENT);
+        }
+        line.put(type);
+        lineOpen = true;
+        estimatedRowCount = pendingEstimatedRowCount;
+        rowCount = pendingRowCount;
+        frameCount = pendingFrameCount;
+        nanos = pendingNanos;
+        clearStats();
+        return this;
+    }
+
+    public PlanSink type(Object factory) {
+        return type(getTypeName(factory.getClass()));
+    }
+
+    public PlanSink val(CharSequence value) {
+        line.put(value);
+        return this;
+    }
+
+    public PlanSink val(long value) {
+        line.put(value);
+        return this;
+    }
+
+    public PlanSink val(char value) {
+        line.put(value);
+        return this;
+    }
+
+    private void clearStats() {
+        pendingEstimatedRowCount = -1;
+        pendingRowCount = -1;
+        pendingFrameCount = -1;
+        pendingNanos = -1;
+    }
+
+    private void closeLine() {
+        if (lineOpen) {
+            if (estimatedRowCount > -1) {
+                line.put(" (estimated rows: ").put(estimatedRowCount).put(')');
+            }
+            if (rowCount > -1) {
+                line.put(" (actual rows: ").put(rowCount);
+                if (frameCount > 0) {
+                    line.put(" frames: ").put(frameCount);
+                }
+                line.put(" time: ").put(nanos).put("ns)");
+            }
+            lines.add(line.toString());
+            line.clear();
+            lineOpen = false;
+        }
+    }
+}
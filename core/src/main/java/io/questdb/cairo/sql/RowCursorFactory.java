@@ -27,7 +27,7 @@ package io.questdb.cairo.sql;
 import io.questdb.cairo.TableReader;
 import io.questdb.std.ObjList;
 
-public interface RowCursorFactory {
+public interface RowCursorFactory extends Plannable {
     static void prepareCursor(ObjList<RowCursorFactory> factories, TableReader tableReader) {
         for (int i = 0, n = factories.size(); i < n; i++) {
             factories.getQuick(i).prepareCursor(tableReader);
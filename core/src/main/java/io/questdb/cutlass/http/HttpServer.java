@@ -28,11 +28,16 @@ import io.questdb.MessageBus;
 import io.questdb.WorkerPoolAwareConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnIndexerJob;
+import io.questdb.cairo.TableBackupJob;
 import io.questdb.cutlass.http.processors.*;
+import io.questdb.cutlass.text.TextImportJob;
 import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.PageFrameCopyJob;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.griffin.engine.table.LatestByJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Metrics;
 import io.questdb.mp.EagerThreadSetup;
 import io.questdb.mp.Job;
 import io.questdb.mp.WorkerPool;
@@ -143,6 +148,7 @@ public class HttpServer implements Closeable {
             FunctionFactoryCache functionFactoryCache
     ) {
         final HttpServer s = new HttpServer(configuration, workerPool, localPool);
+        cairoEngine.getMetrics().getConnections().setProvider(Metrics.SERVER_HTTP, s.dispatcher::getConnectionCount);
         QueryCache.configure(configuration);
 
         s.bind(new HttpRequestProcessorFactory() {
@@ -205,6 +211,18 @@ public class HttpServer implements Closeable {
             }
         });
 
+        s.bind(new HttpRequestProcessorFactory() {
+            @Override
+            public HttpRequestProcessor newInstance() {
+                return new PrometheusMetricsProcessor(cairoEngine.getMetrics(), configuration.getJsonQueryProcessorConfiguration());
+            }
+
+            @Override
+            public String getUrl() {
+                return "/metrics";
+            }
+        });
+
         s.bind(new HttpRequestProcessorFactory() {
             @Override
             public HttpRequestProcessor newInstance() {
@@ -220,6 +238,10 @@ public class HttpServer implements Closeable {
         // jobs that help parallel execution of queries
         workerPool.assign(new ColumnIndexerJob(messageBus));
         workerPool.assign(new GroupByJob(messageBus));
+        workerPool.assign(new TextImportJob(messageBus));
+        workerPool.assign(new PageFrameCopyJob(messageBus));
+        workerPool.assign(new TableBackupJob(messageBus));
+        workerPool.assign(new LatestByJob(messageBus));
         return s;
 
     }
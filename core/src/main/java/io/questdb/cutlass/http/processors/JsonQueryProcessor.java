@@ -38,6 +38,7 @@ import io.questdb.cutlass.text.Utf8Exception;
 import io.questdb.griffin.*;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Histogram;
 import io.questdb.network.NoSpaceLeftInResponseBufferException;
 import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
@@ -56,6 +57,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
     private final SqlExecutionContextImpl sqlExecutionContext;
     private final ObjList<QueryExecutor> queryExecutors = new ObjList<>();
     private final NanosecondClock nanosecondClock;
+    private final QueryLog queryLog;
+    private final Histogram queryLatency;
 
     public JsonQueryProcessor(
             JsonQueryProcessorConfiguration configuration,
@@ -91,6 +94,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         this.queryExecutors.extendAndSet(CompiledQuery.BACKUP_TABLE, sendConfirmation);
         this.sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount, messageBus);
         this.nanosecondClock = engine.getConfiguration().getNanosecondClock();
+        this.queryLog = engine.getQueryLog();
+        this.queryLatency = engine.getMetrics().getQueryLatency();
     }
 
     private static void doResumeSend(
@@ -106,6 +111,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
         while (true) {
             try {
+                // query is added to query log by the state before it sends the last chunk
                 state.resume(socket);
                 break;
             } catch (NoSpaceLeftInResponseBufferException ignored) {
@@ -207,7 +213,9 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         final HttpConnectionContext context = state.getHttpConnectionContext();
         // do not set random for new request to avoid copying random from previous request into next one
         // the only time we need to copy random from state is when we resume request execution
-        sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), context.getSqlExecutionInterruptor());
+        sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), context.getSqlExecutionInterruptor())
+                .with(state.getQueryProfile());
+        queryLog.start(state.getQueryProfile(), state.getQuery());
         state.info().$("exec [q='").utf8(state.getQuery()).$("']").$();
         final RecordCursorFactory factory = QueryCache.getInstance().poll(state.getQuery());
         try {
@@ -251,6 +259,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                     context,
                     configuration.getConnectionCheckFrequency(),
                     nanosecondClock,
+                    queryLog,
+                    queryLatency,
                     configuration.getFloatScale(),
                     configuration.getDoubleScale()
             ));
@@ -273,7 +283,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         final JsonQueryProcessorState state = LV.get(context);
         if (state != null) {
             // we are resuming request execution, we need to copy random to execution context
-            sqlExecutionContext.with(context.getCairoSecurityContext(), null, state.getRnd(), context.getFd(), context.getSqlExecutionInterruptor());
+            sqlExecutionContext.with(context.getCairoSecurityContext(), null, state.getRnd(), context.getFd(), context.getSqlExecutionInterruptor())
+                    .with(state.getQueryProfile());
             doResumeSend(state, context);
         }
     }
@@ -35,11 +35,15 @@ import io.questdb.cutlass.http.HttpConnectionContext;
 import io.questdb.cutlass.http.HttpRequestHeader;
 import io.questdb.cutlass.text.TextUtil;
 import io.questdb.cutlass.text.Utf8Exception;
+import io.questdb.griffin.QueryLog;
+import io.questdb.griffin.QueryProfile;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContextImpl;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.log.LogRecord;
+import io.questdb.metrics.Histogram;
+import io.questdb.metrics.Metrics;
 import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.std.*;
@@ -71,6 +75,9 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     private final IntList columnSkewList = new IntList();
     private final ObjList<ValueWriter> skewedValueWriters = new ObjList<>();
     private final NanosecondClock nanosecondClock;
+    private final QueryProfile queryProfile = new QueryProfile();
+    private final QueryLog queryLog;
+    private final Histogram queryLatency;
     private final int floatScale;
     private final int doubleScale;
     private Rnd rnd;
@@ -90,15 +97,20 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     private long compilerNanos;
     private boolean timings;
     private boolean queryCacheable = false;
+    private long serializeStartNanos = -1;
 
     public JsonQueryProcessorState(
             HttpConnectionContext httpConnectionContext,
             int connectionCheckFrequency,
             NanosecondClock nanosecondClock,
+            QueryLog queryLog,
+            Histogram queryLatency,
             int floatScale,
             int doubleScale
     ) {
         this.httpConnectionContext = httpConnectionContext;
+        this.queryLog = queryLog;
+        this.queryLatency = queryLatency;
         resumeActions.extendAndSet(QUERY_PREFIX, this::onQueryPrefix);
         resumeActions.extendAndSet(QUERY_METADATA, this::onQueryMetadata);
         resumeActions.extendAndSet(QUERY_METADATA_SUFFIX, this::onQueryMetadataSuffix);
@@ -151,6 +163,8 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         cursor = Misc.free(cursor);
         record = null;
         if (null != recordCursorFactory) {
+            // query that failed or was cancelled mid-way
+            queryLog.close(queryProfile);
             if (queryCacheable) {
                 QueryCache.getInstance().push(query, recordCursorFactory);
             } else {
@@ -168,7 +182,10 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     @Override
     public void close() {
         cursor = Misc.free(cursor);
-        recordCursorFactory = Misc.free(recordCursorFactory);
+        if (null != recordCursorFactory) {
+            queryLog.close(queryProfile);
+            recordCursorFactory = Misc.free(recordCursorFactory);
+        }
     }
 
     public void configure(
@@ -199,6 +216,10 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return query;
     }
 
+    public QueryProfile getQueryProfile() {
+        return queryProfile;
+    }
+
     void setQueryCacheable(boolean queryCacheable) {
         this.queryCacheable = queryCacheable;
     }
@@ -485,6 +506,13 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
                 socket.put('}');
             }
             socket.put('}');
+            queryProfile.setRowsReturned(count);
+            // query is logged before the last chunk, client can issue next statement as soon as it has all
+            // rows and the cursor has to be released by then, bytes sent exclude this chunk
+            stopSerialize();
+            queryProfile.addBytesSent(httpConnectionContext.getLastRequestBytesSent());
+            queryLog.add(queryProfile);
+            queryLatency.observe(Metrics.PROTOCOL_HTTP, queryProfile.getTotalNanos());
             count = -1;
             socket.sendChunk();
         }
@@ -514,7 +542,14 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     boolean of(RecordCursorFactory factory, SqlExecutionContextImpl sqlExecutionContext) throws PeerDisconnectedException, PeerIsSlowToReadException {
         this.recordCursorFactory = factory;
         queryCacheable = true;
-        this.cursor = factory.getCursor(sqlExecutionContext);
+        final long executeStart = nanosecondClock.getTicks();
+        queryProfile.startCpu();
+        try {
+            this.cursor = factory.getCursor(sqlExecutionContext);
+        } finally {
+            queryProfile.addExecuteNanos(nanosecondClock.getTicks() - executeStart);
+            queryProfile.stopCpu();
+        }
         final RecordMetadata metadata = factory.getMetadata();
         HttpRequestHeader header = httpConnectionContext.getRequestHeader();
         DirectByteCharSequence columnNames = header.getUrlParam("cols");
@@ -721,7 +756,21 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     }
 
     void resume(HttpChunkedResponseSocket socket) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        resumeActions.getQuick(queryState).onResume(socket, columnCount);
+        serializeStartNanos = nanosecondClock.getTicks();
+        queryProfile.startCpu();
+        try {
+            resumeActions.getQuick(queryState).onResume(socket, columnCount);
+        } finally {
+            stopSerialize();
+        }
+    }
+
+    private void stopSerialize() {
+        if (serializeStartNanos != -1) {
+            queryProfile.addSerializeNanos(nanosecondClock.getTicks() - serializeStartNanos);
+            serializeStartNanos = -1;
+        }
+        queryProfile.stopCpu();
     }
 
     @FunctionalInterface
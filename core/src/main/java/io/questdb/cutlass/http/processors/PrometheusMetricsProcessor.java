@@ -0,0 +1,133 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cutlass.http.HttpChunkedResponseSocket;
+import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.cutlass.http.HttpRequestProcessor;
+import io.questdb.cutlass.http.LocalValue;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.metrics.Scrapable;
+import io.questdb.network.NoSpaceLeftInResponseBufferException;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.str.DirectCharSink;
+
+import java.io.Closeable;
+
+/**
+ * Renders metrics in Prometheus text exposition format. Metrics are rendered into
+ * buffer of the connection, which is reused between scrapes, and sent line by line so
+ * that response does not have to fit send buffer.
+ */
+public class PrometheusMetricsProcessor implements HttpRequestProcessor {
+    private static final Log LOG = LogFactory.getLog(PrometheusMetricsProcessor.class);
+    private static final LocalValue<PrometheusMetricsProcessorState> LV = new LocalValue<>();
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private final Scrapable metrics;
+    private final JsonQueryProcessorConfiguration configuration;
+
+    public PrometheusMetricsProcessor(Scrapable metrics, JsonQueryProcessorConfiguration configuration) {
+        this.metrics = metrics;
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void onRequestComplete(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        PrometheusMetricsProcessorState state = LV.get(context);
+        if (state == null) {
+            LV.set(context, state = new PrometheusMetricsProcessorState());
+        }
+        state.clear();
+        metrics.scrapeIntoPrometheus(state.sink);
+
+        final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        socket.status(200, CONTENT_TYPE);
+        socket.headers().setKeepAlive(configuration.getKeepAliveHeader());
+        socket.sendHeader();
+        doResumeSend(state, socket);
+    }
+
+    @Override
+    public void resumeSend(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final PrometheusMetricsProcessorState state = LV.get(context);
+        if (state != null) {
+            doResumeSend(state, context.getChunkedResponseSocket());
+        }
+    }
+
+    private static void doResumeSend(
+            PrometheusMetricsProcessorState state,
+            HttpChunkedResponseSocket socket
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final DirectCharSink sink = state.sink;
+        final int len = sink.length();
+        while (state.position < len) {
+            int hi = state.position + 1;
+            while (hi < len && sink.charAt(hi - 1) != '\n') {
+                hi++;
+            }
+            socket.bookmark();
+            try {
+                socket.put(sink, state.position, hi);
+                state.position = hi;
+            } catch (NoSpaceLeftInResponseBufferException ignored) {
+                if (socket.resetToBookmark()) {
+                    socket.sendChunk();
+                } else {
+                    LOG.info().$("Response buffer is too small for metrics line").$();
+                    throw PeerDisconnectedException.INSTANCE;
+                }
+            }
+        }
+
+        if (!state.lastChunkSent) {
+            state.lastChunkSent = true;
+            socket.sendChunk();
+        }
+        socket.done();
+    }
+
+    private static class PrometheusMetricsProcessorState implements Mutable, Closeable {
+        private final DirectCharSink sink = new DirectCharSink(16 * 1024);
+        private int position;
+        private boolean lastChunkSent;
+
+        @Override
+        public void clear() {
+            sink.clear();
+            position = 0;
+            lastChunkSent = false;
+        }
+
+        @Override
+        public void close() {
+            Misc.free(sink);
+        }
+    }
+}
@@ -38,6 +38,7 @@ import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableStructure;
 import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.TableWriterAPI;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cutlass.line.CairoLineProtoParserSupport.BadCastException;
 import io.questdb.log.Log;
@@ -63,7 +64,7 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
 
     private final CairoEngine engine;
     private final CharSequenceObjHashMap<CacheEntry> writerCache = new CharSequenceObjHashMap<>();
-    private final CharSequenceObjHashMap<TableWriter> commitList = new CharSequenceObjHashMap<>();
+    private final CharSequenceObjHashMap<TableWriterAPI> commitList = new CharSequenceObjHashMap<>();
     private final Path path = new Path();
     private final CairoConfiguration configuration;
     private final LongList columnNameType = new LongList();
@@ -79,7 +80,7 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     // state
     // cache entry index is always a negative value
     private int cacheEntryIndex = 0;
-    private TableWriter writer;
+    private TableWriterAPI writer;
     private final LineEndParser MY_LINE_END = this::appendRow;
     private RecordMetadata metadata;
     private int columnCount;
@@ -126,6 +127,13 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
             commitList.valueQuick(i).commit(commitMode);
         }
         commitList.clear();
+        // complete group commit sync of tables that did not receive data lately
+        for (int i = 0, n = writerCache.size(); i < n; i++) {
+            final TableWriterAPI w = writerCache.valueQuick(i).writer;
+            if (w != null) {
+                w.checkPendingSync();
+            }
+        }
     }
 
     @Override
@@ -182,7 +190,7 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     }
 
     private void appendFirstRowAndCacheWriter(CharSequenceCache cache) {
-        TableWriter writer = engine.getWriter(cairoSecurityContext, cache.get(tableName));
+        TableWriterAPI writer = engine.getTableWriterAPI(cairoSecurityContext, cache.get(tableName));
         this.writer = writer;
         this.metadata = writer.getMetadata();
         this.columnCount = metadata.getColumnCount();
@@ -240,7 +248,7 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
 
     private void cacheWriter(CacheEntry entry, CachedCharSequence tableName) {
         try {
-            entry.writer = engine.getWriter(cairoSecurityContext, tableName);
+            entry.writer = engine.getTableWriterAPI(cairoSecurityContext, tableName);
             this.tableName = tableName.getCacheAddress();
             createState(entry);
             LOG.info().$("cached writer [name=").$(tableName).$(']').$();
@@ -465,7 +473,7 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     }
 
     private static class CacheEntry {
-        private TableWriter writer;
+        private TableWriterAPI writer;
         private int state = 0;
     }
 
@@ -535,6 +543,16 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
             return timestampIndex;
         }
 
+        @Override
+        public int getTtl() {
+            return 0;
+        }
+
+        @Override
+        public int getColdAfter() {
+            return 0;
+        }
+
         TableStructureAdapter of(CharSequenceCache cache) {
             this.cache = cache;
             this.timestampIndex = columnNameType.size() / 2;
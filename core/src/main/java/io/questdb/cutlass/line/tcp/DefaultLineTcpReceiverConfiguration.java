@@ -76,6 +76,11 @@ public class DefaultLineTcpReceiverConfiguration implements LineTcpReceiverConfi
         return 512;
     }
 
+    @Override
+    public int getMaxFrameSize() {
+        return 1024 * 1024;
+    }
+
     @Override
     public NetworkFacade getNetworkFacade() {
         return NetworkFacadeImpl.INSTANCE;
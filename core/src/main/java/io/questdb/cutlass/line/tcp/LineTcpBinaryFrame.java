@@ -0,0 +1,312 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cutlass.line.LineProtoParser;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Binary columnar batch frame, an alternative to the text line protocol for publishers that
+ * already hold their data in columns. A connection switches to frames by sending {@link #MAGIC}
+ * as its first four bytes. All values are little-endian, column types are {@link ColumnType} ids:
+ * <pre>
+ * int   frame size, excluding this field
+ * short table name length, UTF-8 table name
+ * short column count, then for each column: byte type, short name length, UTF-8 name
+ * int   row count
+ * long  designated timestamps, one per row
+ * for each column, one of
+ *       fixed width values, one per row, BOOLEAN is a byte of 0 or 1
+ *       SYMBOL: int dictionary size, (short length, UTF-8 value) per entry, int key per row, -1 is null
+ * </pre>
+ * The frame is copied out of the receive buffer so that the connection can carry on reading
+ * while a writer thread appends the rows. Values are laid out as in column files, which lets
+ * the writer append them as blocks.
+ */
+class LineTcpBinaryFrame implements Closeable {
+    static final int MAGIC = 0x42445100; // "\0QDB"
+    private final StringSink tableName = new StringSink();
+    private final ObjList<StringSink> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final LongList columnAddresses = new LongList();
+    private final IntList symbolDictionaryLo = new IntList();
+    private final ObjList<StringSink> symbolPool = new ObjList<>();
+    private long buf;
+    private long bufCapacity;
+    private int columnCount;
+    private int rowCount;
+    private long timestampAddress;
+    private int symbolCount;
+    private int errorCode;
+    private int errorPosition;
+
+    @Override
+    public void close() {
+        if (buf != 0) {
+            Unsafe.free(buf, bufCapacity);
+            buf = 0;
+            bufCapacity = 0;
+        }
+    }
+
+    long getColumnAddress(int columnIndex) {
+        return columnAddresses.getQuick(columnIndex);
+    }
+
+    int getColumnCount() {
+        return columnCount;
+    }
+
+    CharSequence getColumnName(int columnIndex) {
+        return columnNames.getQuick(columnIndex);
+    }
+
+    int getColumnType(int columnIndex) {
+        return columnTypes.getQuick(columnIndex);
+    }
+
+    int getErrorCode() {
+        return errorCode;
+    }
+
+    int getErrorPosition() {
+        return errorPosition;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @param columnIndex index of SYMBOL column
+     * @param key         symbol key as sent by the client
+     * @return symbol value or null when key is negative
+     */
+    CharSequence getSymbol(int columnIndex, int key) {
+        return key < 0 ? null : symbolPool.getQuick(symbolDictionaryLo.getQuick(columnIndex) + key);
+    }
+
+    CharSequence getTableName() {
+        return tableName;
+    }
+
+    long getTimestampAddress() {
+        return timestampAddress;
+    }
+
+    long getTimestamp(int row) {
+        return Unsafe.getUnsafe().getLong(timestampAddress + ((long) row << 3));
+    }
+
+    boolean isComplete() {
+        return errorPosition == -1;
+    }
+
+    /**
+     * Copies and validates the frame at the start of the given range.
+     *
+     * @return address just after the frame or -1 if the range does not hold the whole frame yet
+     */
+    long parse(long lo, long hi) {
+        if (hi - lo < Integer.BYTES) {
+            return -1;
+        }
+        final int size = Unsafe.getUnsafe().getInt(lo);
+        if (size < 0) {
+            // there is no way to find the next frame
+            throw CairoException.instance(0).put("invalid frame size [size=").put(size).put(']');
+        }
+        final long next = lo + Integer.BYTES + size;
+        if (next > hi) {
+            return -1;
+        }
+
+        if (size > bufCapacity) {
+            buf = Unsafe.realloc(buf, bufCapacity, size);
+            bufCapacity = size;
+        }
+        Unsafe.getUnsafe().copyMemory(lo + Integer.BYTES, buf, size);
+
+        clear();
+        final long p = parseFrame(buf, buf + size);
+        if (p != -1 && p != buf + size) {
+            // trailing bytes
+            error(p, LineProtoParser.ERROR_EXPECTED);
+        }
+        return next;
+    }
+
+    private void clear() {
+        tableName.clear();
+        columnTypes.clear();
+        columnAddresses.clear();
+        symbolDictionaryLo.clear();
+        columnCount = 0;
+        rowCount = 0;
+        symbolCount = 0;
+        errorCode = 0;
+        errorPosition = -1;
+    }
+
+    private long error(long p, int code) {
+        errorPosition = (int) (p - buf);
+        errorCode = code;
+        return -1;
+    }
+
+    private long parseFrame(long p, long hi) {
+        p = parseString(p, hi, tableName);
+        if (p == -1) {
+            return -1;
+        }
+        if (tableName.length() == 0) {
+            return error(p, LineProtoParser.ERROR_EMPTY);
+        }
+
+        if (p + Short.BYTES > hi) {
+            return error(p, LineProtoParser.ERROR_EXPECTED);
+        }
+        columnCount = Unsafe.getUnsafe().getShort(p);
+        p += Short.BYTES;
+        if (columnCount < 1) {
+            return error(p, LineProtoParser.ERROR_EMPTY);
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            if (p + Byte.BYTES > hi) {
+                return error(p, LineProtoParser.ERROR_EXPECTED);
+            }
+            final int type = Unsafe.getUnsafe().getByte(p);
+            switch (type) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.CHAR:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                case ColumnType.SYMBOL:
+                    break;
+                default:
+                    return error(p, LineProtoParser.ERROR_EXPECTED);
+            }
+            p += Byte.BYTES;
+            columnTypes.add(type);
+
+            if (columnNames.size() == i) {
+                columnNames.add(new StringSink());
+            }
+            StringSink name = columnNames.getQuick(i);
+            name.clear();
+            p = parseString(p, hi, name);
+            if (p == -1) {
+                return -1;
+            }
+            if (name.length() == 0) {
+                return error(p, LineProtoParser.ERROR_EMPTY);
+            }
+        }
+
+        if (p + Integer.BYTES > hi) {
+            return error(p, LineProtoParser.ERROR_EXPECTED);
+        }
+        rowCount = Unsafe.getUnsafe().getInt(p);
+        p += Integer.BYTES;
+        if (rowCount < 1) {
+            return error(p, LineProtoParser.ERROR_EMPTY);
+        }
+
+        timestampAddress = p;
+        p += (long) rowCount * Long.BYTES;
+
+        for (int i = 0; i < columnCount; i++) {
+            final int type = columnTypes.getQuick(i);
+            if (type == ColumnType.SYMBOL) {
+                if (p + Integer.BYTES > hi) {
+                    return error(p, LineProtoParser.ERROR_EXPECTED);
+                }
+                final int dictionarySize = Unsafe.getUnsafe().getInt(p);
+                p += Integer.BYTES;
+                if (dictionarySize < 0) {
+                    return error(p, LineProtoParser.ERROR_EXPECTED);
+                }
+                symbolDictionaryLo.extendAndSet(i, symbolCount);
+                for (int k = 0; k < dictionarySize; k++) {
+                    if (symbolPool.size() == symbolCount) {
+                        symbolPool.add(new StringSink());
+                    }
+                    StringSink value = symbolPool.getQuick(symbolCount++);
+                    value.clear();
+                    p = parseString(p, hi, value);
+                    if (p == -1) {
+                        return -1;
+                    }
+                }
+                columnAddresses.add(p);
+                p += (long) rowCount * Integer.BYTES;
+                if (p > hi) {
+                    return error(hi, LineProtoParser.ERROR_EXPECTED);
+                }
+                for (long k = columnAddresses.getLast(); k < p; k += Integer.BYTES) {
+                    final int key = Unsafe.getUnsafe().getInt(k);
+                    if (key >= dictionarySize) {
+                        return error(k, LineProtoParser.ERROR_EXPECTED);
+                    }
+                }
+            } else {
+                columnAddresses.add(p);
+                p += (long) rowCount * ColumnType.sizeOf(type);
+            }
+        }
+
+        if (p > hi) {
+            return error(hi, LineProtoParser.ERROR_EXPECTED);
+        }
+        return p;
+    }
+
+    private long parseString(long p, long hi, StringSink sink) {
+        if (p + Short.BYTES > hi) {
+            return error(p, LineProtoParser.ERROR_EXPECTED);
+        }
+        final int len = Unsafe.getUnsafe().getShort(p) & 0xffff;
+        p += Short.BYTES;
+        if (p + len > hi) {
+            return error(p, LineProtoParser.ERROR_EXPECTED);
+        }
+        if (!Chars.utf8Decode(p, p + len, sink)) {
+            return error(p, LineProtoParser.ERROR_ENCODING);
+        }
+        return p + len;
+    }
+}
@@ -31,6 +31,7 @@ import io.questdb.network.IOContext;
 import io.questdb.network.IODispatcher;
 import io.questdb.network.NetworkFacade;
 import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
 import io.questdb.std.Unsafe;
 import io.questdb.std.str.DirectByteCharSequence;
 import io.questdb.std.time.MillisecondClock;
@@ -41,9 +42,14 @@ class LineTcpConnectionContext implements IOContext, Mutable {
         NEEDS_READ, NEEDS_WRITE, NEEDS_CPU, NEEDS_DISCONNECT
     };
     private static final long QUEUE_FULL_LOG_HYSTERESIS_IN_MS = 10_000;
+    private static final int PROTOCOL_UNKNOWN = 0;
+    private static final int PROTOCOL_TEXT = 1;
+    private static final int PROTOCOL_BINARY = 2;
     protected final NetworkFacade nf;
     private final LineTcpMeasurementScheduler scheduler;
     private final MillisecondClock milliClock;
+    private final int msgBufferSize;
+    private final int maxFrameSize;
     protected long fd;
     protected IODispatcher<LineTcpConnectionContext> dispatcher;
     protected long recvBufStart;
@@ -52,13 +58,16 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     protected boolean peerDisconnected;
     private final DirectByteCharSequence byteCharSequence = new DirectByteCharSequence();
     private long lastQueueFullLogMillis = 0;
+    private int protocol;
 
     LineTcpConnectionContext(LineTcpReceiverConfiguration configuration, LineTcpMeasurementScheduler scheduler) {
         nf = configuration.getNetworkFacade();
         this.scheduler = scheduler;
         this.milliClock = configuration.getMillisecondClock();
-        recvBufStart = Unsafe.malloc(configuration.getNetMsgBufferSize());
-        recvBufEnd = recvBufStart + configuration.getNetMsgBufferSize();
+        this.msgBufferSize = configuration.getNetMsgBufferSize();
+        this.maxFrameSize = configuration.getMaxFrameSize();
+        recvBufStart = Unsafe.malloc(msgBufferSize);
+        recvBufEnd = recvBufStart + msgBufferSize;
     }
 
     IOContextResult handleIO() {
@@ -66,6 +75,10 @@ class LineTcpConnectionContext implements IOContext, Mutable {
             // Read as much data as possible
             read();
 
+            if (protocol == PROTOCOL_UNKNOWN && !negotiateProtocol()) {
+                return IOContextResult.NEEDS_READ;
+            }
+
             // Process as much data as possible
             long recvBufLineStart = recvBufStart;
             boolean queueFull = false;
@@ -81,12 +94,16 @@ class LineTcpConnectionContext implements IOContext, Mutable {
                 }
                 boolean complete = false;
                 try {
-                    long recvBufLineNext = event.parseLine(recvBufLineStart, recvBufPos);
+                    long recvBufLineNext = protocol == PROTOCOL_BINARY ?
+                            event.parseFrame(recvBufLineStart, recvBufPos) :
+                            event.parseLine(recvBufLineStart, recvBufPos);
                     if (recvBufLineNext == -1) {
                         break;
                     }
                     if (event.isComplete()) {
                         complete = true;
+                    } else if (protocol == PROTOCOL_BINARY) {
+                        LOG.error().$('[').$(fd).$("] could not parse frame, code ").$(event.getErrorCode()).$(" at ").$(event.getErrorPosition()).$();
                     } else {
                         LOG.error().$('[').$(fd).$("] could not parse measurement, code ").$(event.getErrorCode()).$(" at ").$(event.getErrorPosition()).$(" in ")
                                 .$(byteCharSequence.of(recvBufLineStart, recvBufLineNext - 1)).$();
@@ -106,6 +123,10 @@ class LineTcpConnectionContext implements IOContext, Mutable {
                 return IOContextResult.NEEDS_CPU;
             }
 
+            if (protocol == PROTOCOL_BINARY && !fitFrame()) {
+                return IOContextResult.NEEDS_DISCONNECT;
+            }
+
             // Check for buffer overflow
             if (recvBufPos == recvBufEnd) {
                 LOG.error().$('[').$(fd).$("] buffer overflow [msgBufferSize=").$(recvBufEnd - recvBufStart).$(']').$();
@@ -156,6 +177,60 @@ class LineTcpConnectionContext implements IOContext, Mutable {
         }
     }
 
+    /**
+     * Binary frames are negotiated by the magic number in the first four bytes of the
+     * connection, anything else is the text line protocol.
+     *
+     * @return false when more bytes are needed to tell the protocols apart
+     */
+    private boolean negotiateProtocol() {
+        final long len = recvBufPos - recvBufStart;
+        if (len < Integer.BYTES && !peerDisconnected && (len == 0 || Unsafe.getUnsafe().getByte(recvBufStart) == 0)) {
+            return false;
+        }
+
+        if (len >= Integer.BYTES && Unsafe.getUnsafe().getInt(recvBufStart) == LineTcpBinaryFrame.MAGIC) {
+            LOG.info().$('[').$(fd).$("] binary frames").$();
+            protocol = PROTOCOL_BINARY;
+            compactBuffer(recvBufStart + Integer.BYTES);
+        } else {
+            protocol = PROTOCOL_TEXT;
+        }
+        return true;
+    }
+
+    /**
+     * Grows receive buffer to fit the binary frame at its start, frames are not limited
+     * by the message buffer size.
+     *
+     * @return false when the frame is larger than the maximum frame size
+     */
+    private boolean fitFrame() {
+        if (recvBufPos - recvBufStart < Integer.BYTES) {
+            return true;
+        }
+        final long frameSize = Integer.BYTES + (long) Unsafe.getUnsafe().getInt(recvBufStart);
+        final long bufSize = recvBufEnd - recvBufStart;
+        if (frameSize <= bufSize) {
+            return true;
+        }
+        if (frameSize > maxFrameSize) {
+            LOG.error().$('[').$(fd).$("] frame is too large [size=").$(frameSize).$(", maxFrameSize=").$(maxFrameSize).$(']').$();
+            return false;
+        }
+        final long newSize = Math.min(Numbers.ceilPow2(frameSize), maxFrameSize);
+        resizeBuffer(bufSize, newSize);
+        LOG.info().$('[').$(fd).$("] resized buffer [size=").$(newSize).$(']').$();
+        return true;
+    }
+
+    private void resizeBuffer(long oldSize, long newSize) {
+        final long len = recvBufPos - recvBufStart;
+        recvBufStart = Unsafe.realloc(recvBufStart, oldSize, newSize);
+        recvBufEnd = recvBufStart + newSize;
+        recvBufPos = recvBufStart + len;
+    }
+
     private boolean checkQueueFullLogHysteresis() {
         long millis = milliClock.getTicks();
         if ((millis - lastQueueFullLogMillis) >= QUEUE_FULL_LOG_HYSTERESIS_IN_MS) {
@@ -167,8 +242,14 @@ class LineTcpConnectionContext implements IOContext, Mutable {
 
     @Override
     public void clear() {
+        if (recvBufEnd - recvBufStart != msgBufferSize) {
+            // buffer grown for binary frames of previous connection
+            recvBufPos = recvBufStart;
+            resizeBuffer(recvBufEnd - recvBufStart, msgBufferSize);
+        }
         recvBufPos = recvBufStart;
         peerDisconnected = false;
+        protocol = PROTOCOL_UNKNOWN;
     }
 
     @Override
@@ -27,10 +27,12 @@ package io.questdb.cutlass.line.tcp;
 import io.questdb.cairo.*;
 import io.questdb.cairo.TableWriter.Row;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cutlass.line.*;
 import io.questdb.cutlass.line.CairoLineProtoParserSupport.BadCastException;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Metrics;
 import io.questdb.mp.*;
 import io.questdb.std.*;
 import io.questdb.std.microtime.MicrosecondClock;
@@ -39,6 +41,7 @@ import io.questdb.std.time.MillisecondClock;
 
 import java.io.Closeable;
 import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 
 class LineTcpMeasurementScheduler implements Closeable {
     private static final Log LOG = LogFactory.getLog(LineTcpMeasurementScheduler.class);
@@ -286,7 +289,9 @@ class LineTcpMeasurementScheduler implements Closeable {
         private final MicrosecondClock clock;
         private final LineProtoTimestampAdapter timestampAdapter;
         private final LongList addresses = new LongList();
+        private final LineTcpBinaryFrame frame = new LineTcpBinaryFrame();
         private TruncatedLineProtoLexer lexer;
+        private boolean binary;
         private long measurementNameAddress;
         private int firstFieldIndex;
         private long timestampAddress;
@@ -294,6 +299,7 @@ class LineTcpMeasurementScheduler implements Closeable {
         private int errorCode;
         private int threadId;
         private long timestamp;
+        private long size;
 
         private int rebalanceFromThreadId;
         private int rebalanceToThreadId;
@@ -353,9 +359,11 @@ class LineTcpMeasurementScheduler implements Closeable {
         public void close() {
             lexer.close();
             lexer = null;
+            frame.close();
         }
 
         private void clear() {
+            binary = false;
             measurementNameAddress = 0;
             addresses.clear();
             firstFieldIndex = -1;
@@ -379,20 +387,28 @@ class LineTcpMeasurementScheduler implements Closeable {
             return errorPosition;
         }
 
+        LineTcpBinaryFrame getFrame() {
+            return frame;
+        }
+
         int getFirstFieldIndex() {
             return firstFieldIndex;
         }
 
+        long getSize() {
+            return size;
+        }
+
         int getNValues() {
-            return addresses.size() / 2;
+            return binary ? frame.getColumnCount() : addresses.size() / 2;
         }
 
         CharSequence getName(int i) {
-            return cache.get(addresses.getQuick(2 * i));
+            return binary ? frame.getColumnName(i) : cache.get(addresses.getQuick(2 * i));
         }
 
         CharSequence getTableName() {
-            return cache.get(measurementNameAddress);
+            return binary ? frame.getTableName() : cache.get(measurementNameAddress);
         }
 
         long getTimestamp() throws NumericException {
@@ -413,6 +429,10 @@ class LineTcpMeasurementScheduler implements Closeable {
             return cache.get(addresses.getQuick(2 * i + 1));
         }
 
+        boolean isBinary() {
+            return binary;
+        }
+
         boolean isComplete() {
             return errorPosition == -1;
         }
@@ -425,6 +445,7 @@ class LineTcpMeasurementScheduler implements Closeable {
             clear();
             long recvBufLineNext = lexer.parseLine(bytesPtr, hi);
             if (recvBufLineNext != -1) {
+                size = recvBufLineNext - bytesPtr;
                 if (isComplete() && firstFieldIndex == -1) {
                     errorPosition = (int) (recvBufLineNext - bytesPtr);
                     errorCode = LineProtoParser.ERROR_EMPTY;
@@ -438,6 +459,20 @@ class LineTcpMeasurementScheduler implements Closeable {
             }
             return recvBufLineNext;
         }
+
+        long parseFrame(long bytesPtr, long hi) {
+            clear();
+            binary = true;
+            long recvBufFrameNext = frame.parse(bytesPtr, hi);
+            if (recvBufFrameNext != -1) {
+                size = recvBufFrameNext - bytesPtr;
+            }
+            if (recvBufFrameNext != -1 && !frame.isComplete()) {
+                errorPosition = frame.getErrorPosition();
+                errorCode = frame.getErrorCode();
+            }
+            return recvBufFrameNext;
+        }
     }
 
     private static class TableUpdateDetails {
@@ -459,7 +494,11 @@ class LineTcpMeasurementScheduler implements Closeable {
         private final AppendMemory appendMemory = new AppendMemory();
         private final Path path = new Path();
         private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
+        private final LongList blockAddresses = new LongList();
+        private final IntList symbolKeyMap = new IntList();
         private final String jobName;
+        private long keyBuffer;
+        private long keyBufferSize;
         private long lastMaintenanceJobMillis = 0;
 
         private WriterJob(int id, Sequence sequence) {
@@ -492,6 +531,11 @@ class LineTcpMeasurementScheduler implements Closeable {
             parserCache.clear();
             appendMemory.close();
             path.close();
+            if (keyBufferSize > 0) {
+                Unsafe.free(keyBuffer, keyBufferSize);
+                keyBuffer = 0;
+                keyBufferSize = 0;
+            }
         }
 
         private void doMaintenance(boolean busy) {
@@ -577,7 +621,11 @@ class LineTcpMeasurementScheduler implements Closeable {
         private class Parser implements Closeable {
             private final IntList colTypes = new IntList();
             private final IntList colIndexMappings = new IntList();
-            private TableWriter writer;
+            private TableWriterAPI writer;
+            // set when rows are written to table directly rather than to WAL, binary frames are appended as blocks then
+            private TableWriter tableWriter;
+            private LongAdder rowCounter;
+            private LongAdder byteCounter;
             private int nUncommitted = 0;
 
             private transient int nMeasurementValues;
@@ -590,6 +638,7 @@ class LineTcpMeasurementScheduler implements Closeable {
                     LOG.info().$("closed parser [jobName=").$(jobName).$(" name=").$(writer.getName()).$(']').$();
                     writer.close();
                     writer = null;
+                    tableWriter = null;
                 }
             }
 
@@ -597,6 +646,10 @@ class LineTcpMeasurementScheduler implements Closeable {
                 if (error) {
                     return;
                 }
+                if (event.isBinary()) {
+                    addFrame(event.getFrame());
+                    return;
+                }
                 Row row = null;
                 try {
                     long timestamp = event.getTimestamp();
@@ -607,6 +660,7 @@ class LineTcpMeasurementScheduler implements Closeable {
                         CairoLineProtoParserSupport.writers.getQuick(columnType).write(row, columnIndex, event.getValue(i));
                     }
                     row.append();
+                    rowCounter.increment();
                 } catch (NumericException | CairoException | BadCastException ignore) {
                     // These exceptions are logged elsewhere
                     if (null != row) {
@@ -620,6 +674,190 @@ class LineTcpMeasurementScheduler implements Closeable {
                 }
             }
 
+            private void addFrame(LineTcpBinaryFrame frame) {
+                if (tableWriter == null) {
+                    addFrameRows(frame);
+                    return;
+                }
+
+                final RecordMetadata metadata = writer.getMetadata();
+                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                    final int type = metadata.getColumnType(i);
+                    if (type == ColumnType.STRING || type == ColumnType.BINARY) {
+                        addFrameRows(frame);
+                        return;
+                    }
+                }
+
+                final int rowCount = frame.getRowCount();
+                try {
+                    blockAddresses.setAll(metadata.getColumnCount(), 0);
+                    blockAddresses.setQuick(metadata.getTimestampIndex(), frame.getTimestampAddress());
+                    for (int i = 0; i < nMeasurementValues; i++) {
+                        final int columnIndex = colIndexMappings.getQuick(i);
+                        if (frame.getColumnType(i) == ColumnType.SYMBOL) {
+                            blockAddresses.setQuick(columnIndex, mapSymbolKeys(frame, i, columnIndex, rowCount));
+                        } else {
+                            blockAddresses.setQuick(columnIndex, frame.getColumnAddress(i));
+                        }
+                    }
+                    tableWriter.appendBlock(blockAddresses, rowCount);
+                    rowCounter.add(rowCount);
+                } catch (CairoException ex) {
+                    LOG.error().$("could not append frame [table=").$(writer.getName())
+                            .$(", ex=").$(ex.getFlyweightMessage())
+                            .$(']').$();
+                    return;
+                }
+                nUncommitted += rowCount;
+                if (nUncommitted > maxUncommittedRows) {
+                    commit();
+                }
+            }
+
+            private void addFrameRows(LineTcpBinaryFrame frame) {
+                final int rowCount = frame.getRowCount();
+                // frame is appended as a whole or not at all, reject out of order frame before any row is written
+                long prev = writer.getMaxTimestamp();
+                for (int r = 0; r < rowCount; r++) {
+                    final long timestamp = frame.getTimestamp(r);
+                    if (timestamp < prev) {
+                        LOG.error().$("could not append frame, rows out of order [table=").$(writer.getName())
+                                .$(", row=").$(r)
+                                .$(']').$();
+                        return;
+                    }
+                    prev = timestamp;
+                }
+
+                // writer is shared by all connections that send to the table, rows they sent must not
+                // be rolled back with the frame should it fail part way
+                if (nUncommitted > 0) {
+                    commit();
+                }
+
+                int r = 0;
+                Row row = null;
+                try {
+                    for (; r < rowCount; r++) {
+                        row = writer.newRow(frame.getTimestamp(r));
+                        for (int i = 0; i < nMeasurementValues; i++) {
+                            putValue(row, colIndexMappings.getQuick(i), frame, i, r);
+                        }
+                        row.append();
+                        row = null;
+                    }
+                } catch (CairoException ex) {
+                    LOG.error().$("could not append frame [table=").$(writer.getName())
+                            .$(", row=").$(r)
+                            .$(", ex=").$(ex.getFlyweightMessage())
+                            .$(']').$();
+                    if (null != row) {
+                        row.cancel();
+                    }
+                    rollbackFrame(r);
+                    return;
+                }
+                rowCounter.add(rowCount);
+                nUncommitted += rowCount;
+                if (nUncommitted > maxUncommittedRows) {
+                    commit();
+                }
+            }
+
+            /**
+             * Discards rows of a frame that failed part way. Writer cannot drop a tail of the
+             * transaction, so rows received before the frame are committed before it is appended.
+             */
+            private void rollbackFrame(int frameRows) {
+                try {
+                    writer.rollback();
+                    LOG.error().$("rolled back frame [table=").$(writer.getName())
+                            .$(", frameRows=").$(frameRows)
+                            .$(']').$();
+                } catch (CairoException ex) {
+                    LOG.error().$("could not roll back frame [table=").$(writer.getName())
+                            .$(", ex=").$(ex.getFlyweightMessage())
+                            .$(']').$();
+                }
+                nUncommitted = 0;
+            }
+
+            /**
+             * Translates frame dictionary keys to keys of table symbol column. Symbol columns of the
+             * frame are translated one after another, so that one buffer is enough.
+             */
+            private long mapSymbolKeys(LineTcpBinaryFrame frame, int frameColumnIndex, int columnIndex, int rowCount) {
+                final long size = (long) nMeasurementValues * rowCount * Integer.BYTES;
+                if (keyBufferSize < size) {
+                    keyBuffer = Unsafe.realloc(keyBuffer, keyBufferSize, size);
+                    keyBufferSize = size;
+                }
+                final long keys = keyBuffer + (long) frameColumnIndex * rowCount * Integer.BYTES;
+                final long address = frame.getColumnAddress(frameColumnIndex);
+                symbolKeyMap.clear();
+                for (int r = 0; r < rowCount; r++) {
+                    final int key = Unsafe.getUnsafe().getInt(address + ((long) r << 2));
+                    int mappedKey;
+                    if (key < 0) {
+                        mappedKey = tableWriter.putSym(columnIndex, null);
+                    } else {
+                        while (symbolKeyMap.size() <= key) {
+                            symbolKeyMap.add(SymbolTable.VALUE_NOT_FOUND);
+                        }
+                        mappedKey = symbolKeyMap.getQuick(key);
+                        if (mappedKey == SymbolTable.VALUE_NOT_FOUND) {
+                            mappedKey = tableWriter.putSym(columnIndex, frame.getSymbol(frameColumnIndex, key));
+                            symbolKeyMap.setQuick(key, mappedKey);
+                        }
+                    }
+                    Unsafe.getUnsafe().putInt(keys + ((long) r << 2), mappedKey);
+                }
+                return keys;
+            }
+
+            private void putValue(Row row, int columnIndex, LineTcpBinaryFrame frame, int frameColumnIndex, int r) {
+                final long address = frame.getColumnAddress(frameColumnIndex);
+                switch (frame.getColumnType(frameColumnIndex)) {
+                    case ColumnType.BOOLEAN:
+                        row.putBool(columnIndex, Unsafe.getUnsafe().getByte(address + r) != 0);
+                        break;
+                    case ColumnType.BYTE:
+                        row.putByte(columnIndex, Unsafe.getUnsafe().getByte(address + r));
+                        break;
+                    case ColumnType.SHORT:
+                        row.putShort(columnIndex, Unsafe.getUnsafe().getShort(address + ((long) r << 1)));
+                        break;
+                    case ColumnType.CHAR:
+                        row.putChar(columnIndex, Unsafe.getUnsafe().getChar(address + ((long) r << 1)));
+                        break;
+                    case ColumnType.INT:
+                        row.putInt(columnIndex, Unsafe.getUnsafe().getInt(address + ((long) r << 2)));
+                        break;
+                    case ColumnType.FLOAT:
+                        row.putFloat(columnIndex, Unsafe.getUnsafe().getFloat(address + ((long) r << 2)));
+                        break;
+                    case ColumnType.LONG:
+                        row.putLong(columnIndex, Unsafe.getUnsafe().getLong(address + ((long) r << 3)));
+                        break;
+                    case ColumnType.DATE:
+                        row.putDate(columnIndex, Unsafe.getUnsafe().getLong(address + ((long) r << 3)));
+                        break;
+                    case ColumnType.TIMESTAMP:
+                        row.putTimestamp(columnIndex, Unsafe.getUnsafe().getLong(address + ((long) r << 3)));
+                        break;
+                    case ColumnType.DOUBLE:
+                        row.putDouble(columnIndex, Unsafe.getUnsafe().getDouble(address + ((long) r << 3)));
+                        break;
+                    case ColumnType.SYMBOL:
+                        row.putSym(columnIndex, frame.getSymbol(frameColumnIndex, Unsafe.getUnsafe().getInt(address + ((long) r << 2))));
+                        break;
+                    default:
+                        assert false;
+                        break;
+                }
+            }
+
             private void commit() {
                 writer.commit();
                 nUncommitted = 0;
@@ -627,6 +865,7 @@ class LineTcpMeasurementScheduler implements Closeable {
 
             void doMaintenance() {
                 if (nUncommitted == 0) {
+                    writer.checkPendingSync();
                     return;
                 }
                 commit();
@@ -647,7 +886,8 @@ class LineTcpMeasurementScheduler implements Closeable {
                     } else {
                         int tableColType = metadata.getColumnType(colIndex);
                         if (tableColType != colType) {
-                            if (colType == ColumnType.LONG && ALLOWED_LONG_CONVERSIONS.contains(tableColType)) {
+                            // binary values are copied as they are, without conversion
+                            if (colType == ColumnType.LONG && !event.isBinary() && ALLOWED_LONG_CONVERSIONS.contains(tableColType)) {
                                 colTypes.setQuick(n, tableColType);
                             } else {
                                 LOG.error().$("mismatched column and value types [table=").$(writer.getName())
@@ -667,7 +907,9 @@ class LineTcpMeasurementScheduler implements Closeable {
             private void parseTypes(LineTcpMeasurementEvent event) {
                 for (int n = 0; n < nMeasurementValues; n++) {
                     int colType;
-                    if (n < event.getFirstFieldIndex()) {
+                    if (event.isBinary()) {
+                        colType = event.getFrame().getColumnType(n);
+                    } else if (n < event.getFirstFieldIndex()) {
                         colType = ColumnType.SYMBOL;
                     } else {
                         colType = CairoLineProtoParserSupport.getValueType(event.getValue(n));
@@ -686,6 +928,7 @@ class LineTcpMeasurementScheduler implements Closeable {
 
             private void processEvent(LineTcpMeasurementEvent event) {
                 assert event.getTableName().equals(writer.getName());
+                byteCounter.add(event.getSize());
                 preprocessEvent(event);
                 parseNames(event);
                 addRow(event);
@@ -693,9 +936,12 @@ class LineTcpMeasurementScheduler implements Closeable {
 
             private void processFirstEvent(CairoEngine engine, CairoSecurityContext securityContext, LineTcpMeasurementEvent event) {
                 assert null == writer;
+                final Metrics metrics = engine.getMetrics();
+                rowCounter = metrics.getIlpRows().get(event.getTableName());
+                byteCounter = metrics.getIlpBytes().get(event.getTableName());
                 int status = engine.getStatus(securityContext, path, event.getTableName(), 0, event.getTableName().length());
                 if (status == TableUtils.TABLE_EXISTS) {
-                    writer = engine.getWriter(securityContext, event.getTableName());
+                    openWriter(engine, securityContext, event.getTableName());
                     processEvent(event);
                     return;
                 }
@@ -711,10 +957,15 @@ class LineTcpMeasurementScheduler implements Closeable {
                 for (int n = 0; n < nValues; n++) {
                     colIndexMappings.add(n, n);
                 }
-                writer = engine.getWriter(securityContext, event.getTableName());
+                openWriter(engine, securityContext, event.getTableName());
+                byteCounter.add(event.getSize());
                 addRow(event);
             }
 
+            private void openWriter(CairoEngine engine, CairoSecurityContext securityContext, CharSequence tableName) {
+                writer = engine.getTableWriterAPI(securityContext, tableName);
+                tableWriter = writer instanceof TableWriter ? (TableWriter) writer : null;
+            }
         }
 
         private class TableStructureAdapter implements TableStructure {
@@ -784,6 +1035,16 @@ class LineTcpMeasurementScheduler implements Closeable {
                 return timestampIndex;
             }
 
+            @Override
+            public int getTtl() {
+                return 0;
+            }
+
+            @Override
+            public int getColdAfter() {
+                return 0;
+            }
+
             TableStructureAdapter of(LineTcpMeasurementEvent event, Parser parser) {
                 this.event = event;
                 this.parser = parser;
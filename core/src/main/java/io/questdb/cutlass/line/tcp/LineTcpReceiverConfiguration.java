@@ -47,6 +47,11 @@ public interface LineTcpReceiverConfiguration {
 
     int getMaxMeasurementSize();
 
+    /**
+     * @return largest binary frame, including its size field, receive buffer of a connection grows to
+     */
+    int getMaxFrameSize();
+
     NetworkFacade getNetworkFacade();
 
     int getWriterQueueSize();
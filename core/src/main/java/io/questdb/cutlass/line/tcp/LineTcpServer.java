@@ -33,6 +33,7 @@ import io.questdb.WorkerPoolAwareConfiguration.ServerFactory;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Metrics;
 import io.questdb.mp.EagerThreadSetup;
 import io.questdb.mp.SynchronizedJob;
 import io.questdb.mp.WorkerPool;
@@ -63,6 +64,7 @@ public class LineTcpServer implements Closeable {
                         .getNetDispatcherConfiguration(),
                 contextFactory);
         workerPool.assign(dispatcher);
+        engine.getMetrics().getConnections().setProvider(Metrics.SERVER_LINE_TCP, dispatcher::getConnectionCount);
         scheduler = new LineTcpMeasurementScheduler(lineConfiguration, engine, workerPool);
         workerPool.assign(new SynchronizedJob() {
             // Context blocked on LineTcpMeasurementScheduler queue
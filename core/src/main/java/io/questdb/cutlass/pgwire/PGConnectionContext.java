@@ -37,6 +37,8 @@ import io.questdb.griffin.engine.functions.bind.BindVariableService;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.log.LogRecord;
+import io.questdb.metrics.Histogram;
+import io.questdb.metrics.Metrics;
 import io.questdb.network.*;
 import io.questdb.std.*;
 import io.questdb.std.microtime.TimestampFormatUtils;
@@ -103,6 +105,9 @@ public class PGConnectionContext implements IOContext, Mutable {
     private final String serverVersion;
     private final PGAuthenticator authenticator;
     private final SqlExecutionContextImpl sqlExecutionContext;
+    private final QueryLog queryLog;
+    private final Histogram queryLatency;
+    private final NanosecondClock nanosecondClock;
     private final Path path = new Path();
     private final BindVariableSetter doubleSetter = this::setDoubleBindVariable;
     private final BindVariableSetter doubleTxtSetter = this::setDoubleTextBindVariable;
@@ -147,7 +152,7 @@ public class PGConnectionContext implements IOContext, Mutable {
     private static final int COMMIT_TRANSACTION = 2;
     private static final int ERROR_TRANSACTION = 3;
     private static final int ROLLING_BACK_TRANSACTION = 4;
-    private final ObjHashSet<TableWriter> cachedTransactionInsertWriters = new ObjHashSet<>();
+    private final ObjHashSet<TableWriterAPI> cachedTransactionInsertWriters = new ObjHashSet<>();
     //    private final ObjList<TypeAdapter> probes = new ObjList<>();
     private final DirectByteCharSequence parameterHolder = new DirectByteCharSequence();
     private final IntList parameterFormats = new IntList();
@@ -191,6 +196,9 @@ public class PGConnectionContext implements IOContext, Mutable {
         this.authenticator = new PGBasicAuthenticator(configuration.getDefaultUsername(), configuration.getDefaultPassword());
         this.dateLocale = configuration.getDefaultDateLocale();
         this.sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount, messageBus);
+        this.queryLog = engine.getQueryLog();
+        this.queryLatency = engine.getMetrics().getQueryLatency();
+        this.nanosecondClock = engine.getConfiguration().getNanosecondClock();
         populateAppender();
     }
 
@@ -926,7 +934,7 @@ public class PGConnectionContext implements IOContext, Mutable {
             @NotNull RecordCursorFactory factory
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
         this.currentFactory = factory;
-        currentCursor = factory.getCursor(sqlExecutionContext);
+        openCurrentCursor();
         prepareRowDescription();
         sendCursor();
         prepareReadyForQuery();
@@ -1067,10 +1075,23 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    private void openCurrentCursor() {
+        final QueryProfile profile = sqlExecutionContext.getQueryProfile();
+        final long executeStart = nanosecondClock.getTicks();
+        profile.startCpu();
+        try {
+            currentCursor = currentFactory.getCursor(sqlExecutionContext);
+        } finally {
+            profile.addExecuteNanos(nanosecondClock.getTicks() - executeStart);
+            profile.stopCpu();
+        }
+    }
+
     private void parseQueryText(long lo, long hi) throws BadProtocolException {
         CharacterStoreEntry e = queryCharacterStore.newEntry();
         if (Chars.utf8Decode(lo, hi, e)) {
             queryText = queryCharacterStore.toImmutable();
+            queryLog.start(sqlExecutionContext.getQueryProfile(), queryText);
             LOG.info().$("parse [q=").utf8(queryText).$(']').$();
         } else {
             LOG.error().$("invalid UTF8 bytes in parse query").$();
@@ -1157,7 +1178,11 @@ public class PGConnectionContext implements IOContext, Mutable {
         portalCharacterStore.clear();
         bindVariableService.clear();
         currentCursor = Misc.free(currentCursor);
-        currentFactory = null;
+        if (currentFactory != null) {
+            // query that failed or was cancelled mid-way
+            queryLog.close(sqlExecutionContext.getQueryProfile());
+            currentFactory = null;
+        }
         currentInsertStatement = null;
     }
 
@@ -1228,7 +1253,11 @@ public class PGConnectionContext implements IOContext, Mutable {
     private void processExecute() throws PeerDisconnectedException, PeerIsSlowToReadException {
         if (currentFactory != null) {
             LOG.info().$("executing query").$();
-            currentCursor = currentFactory.getCursor(sqlExecutionContext);
+            if (sqlExecutionContext.getQueryProfile().isComplete()) {
+                // statement is executed again without being parsed
+                queryLog.start(sqlExecutionContext.getQueryProfile(), queryText);
+            }
+            openCurrentCursor();
             // cache random if it was replaced
             this.rnd = sqlExecutionContext.getRandom();
             sendCursor();
@@ -1238,7 +1267,7 @@ public class PGConnectionContext implements IOContext, Mutable {
             if (!Chars.equals(TAG_OK, queryTag)) {  //do not run this for OK tag (i.e.: create table)
                 if (transactionState == COMMIT_TRANSACTION) {
                     for (int i = 0, n = cachedTransactionInsertWriters.size(); i < n; i++) {
-                        TableWriter m = cachedTransactionInsertWriters.get(i);
+                        TableWriterAPI m = cachedTransactionInsertWriters.get(i);
                         m.commit();
                         Misc.free(m);
                     }
@@ -1246,7 +1275,7 @@ public class PGConnectionContext implements IOContext, Mutable {
                     transactionState = NO_TRANSACTION;
                 } else if (transactionState == ROLLING_BACK_TRANSACTION) {
                     for (int i = 0, n = cachedTransactionInsertWriters.size(); i < n; i++) {
-                        TableWriter m = cachedTransactionInsertWriters.get(i);
+                        TableWriterAPI m = cachedTransactionInsertWriters.get(i);
                         m.rollback();
                         Misc.free(m);
                     }
@@ -1607,32 +1636,49 @@ public class PGConnectionContext implements IOContext, Mutable {
         final Record record = currentCursor.getRecord();
         final RecordMetadata metadata = currentFactory.getMetadata();
         final int columnCount = metadata.getColumnCount();
+        final QueryProfile profile = sqlExecutionContext.getQueryProfile();
+        final long serializeStart = nanosecondClock.getTicks();
         rowCount = 0;
-        while (currentCursor.hasNext()) {
-            // create checkpoint to which we can undo the buffer in case
-            // current DataRow will does not fit fully.
-            responseAsciiSink.bookmark();
-            try {
+        profile.startCpu();
+        try {
+            while (currentCursor.hasNext()) {
+                // create checkpoint to which we can undo the buffer in case
+                // current DataRow will does not fit fully.
+                responseAsciiSink.bookmark();
                 try {
-                    appendRecord(record, metadata, columnCount);
-                    rowCount++;
-                } catch (NoSpaceLeftInResponseBufferException e) {
+                    try {
+                        appendRecord(record, metadata, columnCount);
+                        rowCount++;
+                    } catch (NoSpaceLeftInResponseBufferException e) {
+                        responseAsciiSink.resetToBookmark();
+                        sendAndReset();
+                        // this is now start of send buffer, when this fails we need to log and disconnect
+                        appendRecord(record, metadata, columnCount);
+                    }
+                } catch (SqlException e) {
+                    profile.addSerializeNanos(nanosecondClock.getTicks() - serializeStart);
+                    profile.stopCpu();
+                    profile.setRowsReturned(rowCount);
                     responseAsciiSink.resetToBookmark();
-                    sendAndReset();
-                    // this is now start of send buffer, when this fails we need to log and disconnect
-                    appendRecord(record, metadata, columnCount);
+                    LOG.error().$(e.getFlyweightMessage()).$();
+                    prepareForNewQuery();
+                    sendCurrentCursorTail = TAIL_ERROR;
+                    prepareExecuteTail(true);
+                    prepareReadyForQuery();
+                    return;
                 }
-            } catch (SqlException e) {
-                responseAsciiSink.resetToBookmark();
-                LOG.error().$(e.getFlyweightMessage()).$();
-                prepareForNewQuery();
-                sendCurrentCursorTail = TAIL_ERROR;
-                prepareExecuteTail(true);
-                prepareReadyForQuery();
-                return;
             }
+        } finally {
+            // send buffer may fill up, query resumes on another thread
+            profile.stopCpu();
         }
 
+        profile.addSerializeNanos(nanosecondClock.getTicks() - serializeStart);
+        profile.setRowsReturned(rowCount);
+        // rows that are still in send buffer
+        profile.addBytesSent(sendBufferPtr - sendBuffer);
+        queryLog.add(profile);
+        queryLatency.observe(Metrics.PROTOCOL_PG_WIRE, profile.getTotalNanos());
         prepareForNewQuery();
         sendCurrentCursorTail = TAIL_SUCCESS;
         prepareExecuteTail(true);
@@ -1674,6 +1720,7 @@ public class PGConnectionContext implements IOContext, Mutable {
     }
 
     private void sendAndReset() throws PeerDisconnectedException, PeerIsSlowToReadException {
+        sqlExecutionContext.getQueryProfile().addBytesSent(sendBufferPtr - sendBuffer);
         doSend(
                 0,
                 (int) (sendBufferPtr - sendBuffer)
@@ -1696,8 +1743,9 @@ public class PGConnectionContext implements IOContext, Mutable {
             responseAsciiSink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
             long addr = responseAsciiSink.skip();
             responseAsciiSink.put((byte) 0); // TEXT (1=BINARY, which we do not support yet)
-            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), textLoader.getTableName())) {
-                RecordMetadata metadata = writer.getMetadata();
+            // reader, so that table writer is not taken away from applying WAL
+            try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), textLoader.getTableName())) {
+                RecordMetadata metadata = reader.getMetadata();
                 responseAsciiSink.putNetworkShort((short) metadata.getColumnCount());
                 for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
                     responseAsciiSink.putNetworkShort((short) typeOids.get(metadata.getColumnType(i)));
@@ -30,6 +30,7 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.griffin.FunctionFactoryCache;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Metrics;
 import io.questdb.mp.EagerThreadSetup;
 import io.questdb.mp.Job;
 import io.questdb.mp.WorkerPool;
@@ -60,6 +61,7 @@ public class PGWireServer implements Closeable {
         );
 
         workerPool.assign(dispatcher);
+        engine.getMetrics().getConnections().setProvider(Metrics.SERVER_PG_WIRE, dispatcher::getConnectionCount);
 
         for (int i = 0, n = workerPool.getWorkerCount(); i < n; i++) {
             final PGJobContext jobContext = new PGJobContext(configuration, engine, messageBus, functionFactoryCache);
@@ -46,7 +46,7 @@ public class CairoTextWriter implements Closeable, Mutable {
     private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
     private final TypeManager typeManager;
     private CharSequence tableName;
-    private TableWriter writer;
+    private TableWriterAPI writer;
     private long _size;
     private boolean overwrite;
     private boolean durable;
@@ -74,6 +74,7 @@ public class CairoTextWriter implements Closeable, Mutable {
     @Override
     public void clear() {
         dateToTimestampAdapterPool.clear();
+        timestampAdapter = null;
         writer = Misc.free(writer);
         columnErrorCounts.clear();
         _size = 0;
@@ -115,6 +116,18 @@ public class CairoTextWriter implements Closeable, Mutable {
         return timestampAdapter != null ? partitionedListener : nonPartitionedListener;
     }
 
+    TimestampAdapter getTimestampAdapter() {
+        return timestampAdapter;
+    }
+
+    int getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    TableWriterAPI getWriter() {
+        return writer;
+    }
+
     public long getWrittenLineCount() {
         return writer == null ? 0 : writer.size() - _size;
     }
@@ -216,12 +229,12 @@ public class CairoTextWriter implements Closeable, Mutable {
                 .$(']').$();
     }
 
-    private TableWriter openWriterAndOverrideImportTypes(
+    private TableWriterAPI openWriterAndOverrideImportTypes(
             CairoSecurityContext cairoSecurityContext,
             ObjList<TypeAdapter> detectedTypes
     ) {
 
-        TableWriter writer = engine.getWriter(cairoSecurityContext, tableName);
+        TableWriterAPI writer = engine.getTableWriterAPI(cairoSecurityContext, tableName);
         RecordMetadata metadata = writer.getMetadata();
 
         // now, compare column count.
@@ -286,16 +299,20 @@ public class CairoTextWriter implements Closeable, Mutable {
         switch (engine.getStatus(cairoSecurityContext, path, tableName)) {
             case TableUtils.TABLE_DOES_NOT_EXIST:
                 createTable(names, detectedTypes, cairoSecurityContext);
-                writer = engine.getWriter(cairoSecurityContext, tableName);
+                writer = engine.getTableWriterAPI(cairoSecurityContext, tableName);
                 break;
             case TableUtils.TABLE_EXISTS:
                 if (overwrite) {
                     engine.remove(cairoSecurityContext, path, tableName);
                     createTable(names, detectedTypes, cairoSecurityContext);
-                    writer = engine.getWriter(cairoSecurityContext, tableName);
+                    writer = engine.getTableWriterAPI(cairoSecurityContext, tableName);
                 } else {
                     writer = openWriterAndOverrideImportTypes(cairoSecurityContext, detectedTypes);
                     tableStructureAdapter.of(names, detectedTypes);
+                    if (timestampIndex == -1 && writer.getPartitionBy() != PartitionBy.NONE) {
+                        // rows of partitioned table have to be routed by its designated timestamp
+                        timestampIndex = writer.getMetadata().getTimestampIndex();
+                    }
                 }
                 break;
             default:
@@ -303,7 +320,7 @@ public class CairoTextWriter implements Closeable, Mutable {
         }
         _size = writer.size();
         columnErrorCounts.seed(writer.getMetadata().getColumnCount(), 0);
-        if (timestampIndex != -1 && types.getQuick(timestampIndex).getType() == ColumnType.TIMESTAMP) {
+        if (timestampIndex != -1 && timestampIndex < types.size() && types.getQuick(timestampIndex) instanceof TimestampAdapter) {
             timestampAdapter = (TimestampAdapter) types.getQuick(timestampIndex);
         }
     }
@@ -367,6 +384,16 @@ public class CairoTextWriter implements Closeable, Mutable {
             return timestampIndex;
         }
 
+        @Override
+        public int getTtl() {
+            return 0;
+        }
+
+        @Override
+        public int getColdAfter() {
+            return 0;
+        }
+
         TableStructureAdapter of(ObjList<CharSequence> names, ObjList<TypeAdapter> types) throws TextException {
             this.names = names;
             this.types = types;
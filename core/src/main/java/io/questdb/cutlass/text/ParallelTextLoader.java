@@ -0,0 +1,539 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cutlass.text.types.TimestampAdapter;
+import io.questdb.cutlass.text.types.TypeAdapter;
+import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.DirectCharSink;
+import io.questdb.std.str.Path;
+import io.questdb.tasks.TextImportTask;
+
+import java.io.Closeable;
+
+/**
+ * Loads text file into partitioned table using worker pool. The file is mapped into memory and split
+ * into chunks at record boundaries. Chunks are indexed concurrently: each record's timestamp is parsed and
+ * (timestamp, record offset) pair is appended to chunk's own file for the partition record belongs to.
+ * Partition indexes are then merged from chunk files, sorted concurrently and records are appended to the
+ * table in timestamp order, one partition at a time. Each partition is committed as soon as it is complete.
+ * <p>
+ * Record boundaries are found by the same quoting rules the lexer follows, quoted values can contain line ends.
+ * Table writer can only append, file that has records older than table data is rejected before anything is
+ * written. Index files are kept in directory under 'cairo.sql.copy.work.root', which is removed once load
+ * completes or fails.
+ */
+public class ParallelTextLoader implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(ParallelTextLoader.class);
+    private static final String WORK_DIR_SUFFIX = ".import";
+    private static final TextLexer.Listener NOOP_LISTENER = (line, fields, hi) -> {
+    };
+    private final CairoConfiguration configuration;
+    private final TextConfiguration textConfiguration;
+    private final FilesFacade ff;
+    private final MessageBus messageBus;
+    private final DirectCharSink utf8Sink;
+    private final TypeManager typeManager;
+    private final TextLexer textLexer;
+    private final TextDelimiterScanner textDelimiterScanner;
+    private final CairoTextWriter textWriter;
+    private final Path path = new Path();
+    private final Path workPath = new Path();
+    private final ObjList<CharSequence> columnNames = new ObjList<>();
+    private final ObjList<TypeAdapter> columnTypes = new ObjList<>();
+    private final ObjList<TextImportEntry> entries = new ObjList<>();
+    private final ObjList<TextImportEntry> activeEntries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final LongHashSet partitionSet = new LongHashSet();
+    private final LongList partitionTimestamps = new LongList();
+    private final int textAnalysisMaxLines;
+    private boolean forceHeaders = false;
+    private boolean skipLinesWithExtraValues = true;
+    private byte columnDelimiter;
+    private long address;
+    private long hi;
+    private long headerHi;
+    private String workDir;
+    private TimestampAdapter timestampAdapter;
+    private int timestampIndex;
+    private Timestamps.TimestampFloorMethod partitionFloorMethod;
+    private long parsedLineCount;
+    private long errorLineCount;
+    private int chunkCount;
+
+    public ParallelTextLoader(CairoEngine engine) {
+        this.configuration = engine.getConfiguration();
+        this.textConfiguration = configuration.getTextConfiguration();
+        this.ff = configuration.getFilesFacade();
+        this.messageBus = engine.getMessageBus();
+        this.utf8Sink = new DirectCharSink(textConfiguration.getUtf8SinkSize());
+        this.typeManager = new TypeManager(textConfiguration, utf8Sink);
+        this.textLexer = new TextLexer(textConfiguration, typeManager);
+        this.textDelimiterScanner = new TextDelimiterScanner(textConfiguration);
+        this.textWriter = new CairoTextWriter(engine, path, typeManager);
+        this.textAnalysisMaxLines = textConfiguration.getTextAnalysisMaxLines();
+    }
+
+    /**
+     * Finds end of record that starts at given address. Line ends inside quoted values do not end the record.
+     * Value is quoted when it starts with '"', within quoted value pair of quotes stands for single quote
+     * character. These are the rules {@link TextLexer} follows.
+     *
+     * @param lo             address of record start
+     * @param hi             address of text end
+     * @param fieldDelimiter column delimiter
+     * @return address past line end of the record or hi when record is not terminated
+     */
+    static long nextRecord(long lo, long hi, byte fieldDelimiter) {
+        long p = lo;
+        boolean fieldStart = true;
+        boolean inQuote = false;
+        while (p < hi) {
+            final byte c = Unsafe.getUnsafe().getByte(p++);
+            if (inQuote) {
+                if (c == '"') {
+                    if (p < hi && Unsafe.getUnsafe().getByte(p) == '"') {
+                        p++;
+                    } else {
+                        inQuote = false;
+                    }
+                }
+            } else if (c == '\n') {
+                return p;
+            } else if (c == fieldDelimiter) {
+                fieldStart = true;
+            } else {
+                inQuote = fieldStart && c == '"';
+                fieldStart = false;
+            }
+        }
+        return hi;
+    }
+
+    @Override
+    public void clear() {
+        textWriter.clear();
+        textLexer.clear();
+        typeManager.clear();
+        columnNames.clear();
+        columnTypes.clear();
+        activeEntries.clear();
+        // entries hold native memory, they are not kept between loads
+        Misc.freeObjList(entries);
+        entries.clear();
+        partitionSet.clear();
+        partitionTimestamps.clear();
+        forceHeaders = false;
+        skipLinesWithExtraValues = true;
+        timestampAdapter = null;
+        partitionFloorMethod = null;
+        workDir = null;
+        parsedLineCount = 0;
+        errorLineCount = 0;
+        chunkCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(textWriter);
+        Misc.free(textLexer);
+        Misc.free(textDelimiterScanner);
+        Misc.free(path);
+        Misc.free(workPath);
+        Misc.free(utf8Sink);
+    }
+
+    public void configureDestination(CharSequence tableName, int atomicity, int partitionBy, CharSequence timestampIndexCol) {
+        textWriter.of(tableName, false, false, atomicity, partitionBy, timestampIndexCol);
+        textDelimiterScanner.setTableName(tableName);
+        textLexer.setTableName(tableName);
+
+        LOG.info()
+                .$("configured [table=`").$(tableName)
+                .$("`, atomicity=").$(atomicity)
+                .$(", partitionBy=").$(PartitionBy.toString(partitionBy))
+                .$(", timestamp=").$(timestampIndexCol)
+                .$(']').$();
+    }
+
+    public long getErrorLineCount() {
+        return errorLineCount;
+    }
+
+    public long getParsedLineCount() {
+        return parsedLineCount;
+    }
+
+    public long getWrittenLineCount() {
+        return textWriter.getWrittenLineCount();
+    }
+
+    /**
+     * Loads text from file. File is mapped in read-only mode for the duration of the load.
+     * Temporary files are kept in 'cairo.sql.copy.work.root', which has to be configured.
+     *
+     * @param fd                   file descriptor of text file
+     * @param fileLen              length of text file
+     * @param cairoSecurityContext security context to create or open table with
+     * @param workerCount          number of workers available to execute import tasks
+     * @throws TextException when text structure cannot be recognised
+     */
+    public void load(long fd, long fileLen, CairoSecurityContext cairoSecurityContext, int workerCount) throws TextException {
+        if (fileLen < 1) {
+            return;
+        }
+
+        final long address = ff.mmap(fd, fileLen, 0, Files.MAP_RO);
+        if (address == -1) {
+            throw CairoException.instance(ff.errno()).put("could not mmap [fd=").put(fd).put(", size=").put(fileLen).put(']');
+        }
+
+        this.address = address;
+        this.hi = address + fileLen;
+        try {
+            prepareTable(cairoSecurityContext);
+            if (timestampAdapter == null) {
+                // without parsable timestamp lines cannot be routed to partitions
+                LOG.info().$("timestamp is not available, loading serially [table=`").$(textWriter.getTableName()).$("`]").$();
+                loadSerially();
+            } else {
+                createWorkDir();
+                try {
+                    // chunks are read front to back, lines are appended in timestamp order
+                    ff.madvise(address, fileLen, Files.MADV_SEQUENTIAL);
+                    indexChunks(workerCount);
+                    ff.madvise(address, fileLen, Files.MADV_RANDOM);
+                    appendPartitions(workerCount);
+                } finally {
+                    removeWorkDir();
+                }
+            }
+        } finally {
+            ff.munmap(address, fileLen);
+            this.address = 0;
+        }
+        LOG.info()
+                .$("loaded [table=`").$(textWriter.getTableName())
+                .$("`, parsed=").$(parsedLineCount)
+                .$(", errors=").$(errorLineCount)
+                .$(", written=").$(textWriter.getWrittenLineCount())
+                .$(']').$();
+    }
+
+    public void setForceHeaders(boolean forceHeaders) {
+        this.forceHeaders = forceHeaders;
+    }
+
+    public void setSkipRowsWithExtraValues(boolean skipRowsWithExtraValues) {
+        this.skipLinesWithExtraValues = skipRowsWithExtraValues;
+    }
+
+    private void appendPartitions(int workerCount) {
+        final TextLexer.Listener listener = textWriter.getTextListener();
+        final int batchSize = Math.max(1, workerCount);
+
+        partitionTimestamps.sort();
+        prime(textLexer);
+
+        for (int i = 0, n = partitionTimestamps.size(); i < n; i += batchSize) {
+            final int batchHi = Math.min(i + batchSize, n);
+            // partitions of the batch are sorted concurrently and appended in order
+            publish(i, batchHi);
+            for (int j = 0, m = activeEntries.size(); j < m; j++) {
+                final TextImportEntry entry = activeEntries.getQuick(j);
+                final DirectLongList index = entry.getIndex();
+                if (i == 0 && j == 0) {
+                    // partitions are in timestamp order, this is the oldest record of the file
+                    checkMinTimestamp(index.get(0));
+                }
+                for (long k = 0, l = index.size(); k < l; k += 2) {
+                    final long lo = address + index.get(k + 1);
+                    textLexer.parse(lo, nextRecord(lo, hi, columnDelimiter), Integer.MAX_VALUE, listener);
+                    // last line of the file might not have line end
+                    textLexer.parseLast();
+                }
+                textWriter.commit();
+                entry.clear();
+            }
+        }
+    }
+
+    private void checkMinTimestamp(long minTimestamp) {
+        // writer cannot merge rows into committed data, these rows would be lost
+        final long maxTimestamp = textWriter.getWriter().getMaxTimestamp();
+        if (minTimestamp < maxTimestamp) {
+            throw CairoException.instance(0)
+                    .put("rows are older than table data [table=").put(textWriter.getTableName())
+                    .put(", minTimestamp=").put(minTimestamp)
+                    .put(", maxTimestamp=").put(maxTimestamp)
+                    .put(']');
+        }
+    }
+
+    private void checkErrors() {
+        for (int i = 0, n = activeEntries.size(); i < n; i++) {
+            final Throwable e = activeEntries.getQuick(i).getError();
+            if (e instanceof CairoException) {
+                throw (CairoException) e;
+            }
+            if (e != null) {
+                throw CairoException.instance(0).put("import failed [table=").put(textWriter.getTableName()).put(", error=").put(e.getMessage()).put(']');
+            }
+        }
+    }
+
+    private void createWorkDir() {
+        final CharSequence root = configuration.getSqlCopyWorkRoot();
+        if (root == null) {
+            throw CairoException.instance(0).put("parallel copy is disabled ['cairo.sql.copy.work.root' is not set?]");
+        }
+        workPath.of(root).concat(textWriter.getTableName()).put(WORK_DIR_SUFFIX);
+        workDir = Chars.toString(workPath);
+        // remove leftovers of interrupted import
+        if (ff.exists(workPath.$())) {
+            ff.rmdir(workPath);
+        }
+        if (ff.mkdirs(workPath.of(workDir).put(Files.SEPARATOR).$(), configuration.getMkDirMode()) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create [dir=").put(workDir).put(']');
+        }
+    }
+
+    long getAddress() {
+        return address;
+    }
+
+    int getChunkCount() {
+        return chunkCount;
+    }
+
+    byte getColumnDelimiter() {
+        return columnDelimiter;
+    }
+
+    FilesFacade getFilesFacade() {
+        return ff;
+    }
+
+    long getPartitionTimestamp(long timestamp) {
+        return partitionFloorMethod != null ? partitionFloorMethod.floor(timestamp) : 0;
+    }
+
+    TimestampAdapter getTimestampAdapter() {
+        return timestampAdapter;
+    }
+
+    int getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    private void indexChunks(int workerCount) {
+        final long chunkSize = Math.max(1, configuration.getSqlCopyChunkSize());
+        final long hi = this.hi;
+
+        activeEntries.clear();
+        doneLatch.reset();
+        int queuedCount = 0;
+
+        final RingQueue<TextImportTask> queue = messageBus.getTextImportQueue();
+        final Sequence pubSeq = messageBus.getTextImportPubSequence();
+        try {
+            long lo = headerHi;
+            if (!textLexer.isHeaderDetected()) {
+                lo = address;
+            }
+            while (lo < hi) {
+                // quoted values may contain line ends, the scan has to go through every
+                // record; it is cheap compared to lexing, chunks are indexed meanwhile
+                final long chunkHi = chunkHi(lo, hi, chunkSize);
+                final TextImportEntry entry = nextEntry(queuedCount);
+                entry.ofIndexChunk(queuedCount++, lo, chunkHi, doneLatch);
+                activeEntries.add(entry);
+                final long seq = pubSeq.next();
+                if (seq < 0) {
+                    entry.run();
+                } else {
+                    queue.get(seq).entry = entry;
+                    pubSeq.done(seq);
+                }
+                lo = chunkHi;
+            }
+        } finally {
+            // published tasks reference mapped file, they have to complete before it is released
+            awaitActiveEntries(queuedCount);
+        }
+        checkErrors();
+        chunkCount = queuedCount;
+
+        for (int i = 0, n = activeEntries.size(); i < n; i++) {
+            final TextImportEntry entry = activeEntries.getQuick(i);
+            parsedLineCount += entry.getLineCount();
+            errorLineCount += entry.getErrorCount();
+            final LongList timestamps = entry.getPartitionTimestamps();
+            for (int j = 0, m = timestamps.size(); j < m; j++) {
+                final long partitionTimestamp = timestamps.getQuick(j);
+                if (partitionSet.excludes(partitionTimestamp)) {
+                    partitionSet.add(partitionTimestamp);
+                    partitionTimestamps.add(partitionTimestamp);
+                }
+            }
+        }
+
+        LOG.info()
+                .$("indexed [table=`").$(textWriter.getTableName())
+                .$("`, chunks=").$(queuedCount)
+                .$(", partitions=").$(partitionTimestamps.size())
+                .$(", workerCount=").$(workerCount)
+                .$(']').$();
+    }
+
+    private long chunkHi(long lo, long hi, long chunkSize) {
+        if (hi - lo <= chunkSize) {
+            return hi;
+        }
+        final long limit = lo + chunkSize;
+        long p = lo;
+        while (p < limit) {
+            p = nextRecord(p, hi, columnDelimiter);
+        }
+        return p;
+    }
+
+    private void awaitActiveEntries(int queuedCount) {
+        // start at the back to reduce chance of clashing with workers
+        for (int i = activeEntries.size() - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
+            activeEntries.getQuick(i).run();
+        }
+        doneLatch.await(queuedCount);
+    }
+
+    private void loadSerially() {
+        textLexer.parse(address, hi, Integer.MAX_VALUE, textWriter.getTextListener());
+        textLexer.parseLast();
+        textWriter.commit();
+        parsedLineCount = textLexer.getLineCount();
+        errorLineCount = textLexer.getErrorCount();
+    }
+
+    private TextImportEntry nextEntry(int index) {
+        if (index < entries.size()) {
+            return entries.getQuick(index);
+        }
+        final TextImportEntry entry = new TextImportEntry(this, textConfiguration, typeManager);
+        entries.add(entry);
+        return entry;
+    }
+
+    void partitionFileName(Path path, long partitionTimestamp, int chunkIndex) {
+        path.of(workDir).put(Files.SEPARATOR).put(partitionTimestamp).put('.').put((long) chunkIndex).$();
+    }
+
+    private void prepareTable(CairoSecurityContext cairoSecurityContext) throws TextException {
+        final long sampleHi = Math.min(hi, address + configuration.getSqlCopyBufferSize());
+        columnDelimiter = textDelimiterScanner.scan(address, sampleHi);
+        textLexer.of(columnDelimiter);
+        textLexer.setSkipLinesWithExtraValues(skipLinesWithExtraValues);
+        textLexer.analyseStructure(address, sampleHi, textAnalysisMaxLines, forceHeaders, columnNames, columnTypes);
+        textWriter.prepareTable(cairoSecurityContext, textLexer.getColumnNames(), textLexer.getColumnTypes());
+
+        headerHi = nextRecord(address, hi, columnDelimiter);
+        timestampAdapter = textWriter.getTimestampAdapter();
+        timestampIndex = textWriter.getTimestampIndex();
+        switch (textWriter.getWriter().getPartitionBy()) {
+            case PartitionBy.DAY:
+                partitionFloorMethod = Timestamps.FLOOR_DD;
+                break;
+            case PartitionBy.MONTH:
+                partitionFloorMethod = Timestamps.FLOOR_MM;
+                break;
+            case PartitionBy.YEAR:
+                partitionFloorMethod = Timestamps.FLOOR_YYYY;
+                break;
+            default:
+                // single partition, rows are sorted all together
+                partitionFloorMethod = null;
+                break;
+        }
+    }
+
+    /**
+     * Lexer learns number of fields from the first line of the file. Every lexer, that
+     * parses lines out of order, has to see this line first.
+     */
+    void prime(TextLexer lexer) {
+        if (lexer != textLexer) {
+            lexer.of(columnDelimiter);
+            lexer.setSkipLinesWithExtraValues(skipLinesWithExtraValues);
+            lexer.setTableName(textWriter.getTableName());
+        }
+        lexer.restart(true);
+        lexer.parse(address, headerHi, Integer.MAX_VALUE, NOOP_LISTENER);
+        lexer.parseLast();
+    }
+
+    private void publish(int lo, int hi) {
+        activeEntries.clear();
+        doneLatch.reset();
+        int queuedCount = 0;
+
+        final RingQueue<TextImportTask> queue = messageBus.getTextImportQueue();
+        final Sequence pubSeq = messageBus.getTextImportPubSequence();
+        try {
+            for (int i = lo; i < hi; i++) {
+                final TextImportEntry entry = nextEntry(queuedCount);
+                entry.ofSortPartition(queuedCount++, partitionTimestamps.getQuick(i), doneLatch);
+                activeEntries.add(entry);
+                final long seq = pubSeq.next();
+                if (seq < 0) {
+                    entry.run();
+                } else {
+                    queue.get(seq).entry = entry;
+                    pubSeq.done(seq);
+                }
+            }
+        } finally {
+            awaitActiveEntries(queuedCount);
+        }
+        checkErrors();
+    }
+
+    private void removeWorkDir() {
+        for (int i = 0, n = activeEntries.size(); i < n; i++) {
+            activeEntries.getQuick(i).clear();
+        }
+        if (!ff.rmdir(workPath.of(workDir).$())) {
+            LOG.error().$("could not remove [dir=").$(workDir).$(", errno=").$(ff.errno()).$(']').$();
+        }
+    }
+}
@@ -0,0 +1,362 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cutlass.text.types.TimestampAdapter;
+import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Unit of work of parallel text import. Entry either indexes chunk of text, e.g. finds out
+ * timestamp and partition of every record in the chunk, or sorts index of single partition.
+ * Chunk index is kept as pairs of (timestamp, record offset) and is flushed to files the chunk
+ * owns in the loader's work directory, one file per partition. Partition sort merges files of
+ * all chunks and removes them.
+ */
+public class TextImportEntry implements Closeable, Mutable {
+    static final int TASK_INDEX_CHUNK = 0;
+    static final int TASK_SORT_PARTITION = 1;
+    private static final Log LOG = LogFactory.getLog(TextImportEntry.class);
+    private static final long TARGET_SEQUENCE_OFFSET;
+    // partitions with fewer lines are sorted by insertion
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(TextImportEntry.class, "targetSequence");
+    }
+
+    private final ParallelTextLoader loader;
+    private final TextLexer lexer;
+    private final Path path = new Path();
+    private final LongObjHashMap<DirectLongList> partitions = new LongObjHashMap<>();
+    private final ObjList<DirectLongList> partitionIndexes = new ObjList<>();
+    private final LongList partitionTimestamps = new LongList();
+    private final TextLexer.Listener indexListener = this::onFields;
+    private int srcSequence;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private CountDownLatchSPI doneLatch;
+    private int task;
+    private int chunkIndex;
+    private long lo;
+    private long hi;
+    private long lineLo;
+    private long partitionTimestamp;
+    private DirectLongList index;
+    private long lineCount;
+    private long errorCount;
+    private Throwable error;
+
+    TextImportEntry(ParallelTextLoader loader, TextConfiguration textConfiguration, TypeManager typeManager) {
+        this.loader = loader;
+        this.lexer = new TextLexer(textConfiguration, typeManager);
+    }
+
+    static void sort(long address, long count) {
+        sort(address, 0, count - 1);
+    }
+
+    @Override
+    public void clear() {
+        clearPartitions();
+        index = Misc.free(index);
+        lineCount = 0;
+        errorCount = 0;
+        error = null;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(lexer);
+        Misc.free(path);
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                if (task == TASK_INDEX_CHUNK) {
+                    indexChunk();
+                } else {
+                    sortPartition();
+                }
+            } catch (Throwable e) {
+                LOG.error().$("import task failed [task=").$(task).$(", e=").$(e).$(']').$();
+                error = e;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    private static boolean greater(long address, long i, long j) {
+        final long ti = Unsafe.getUnsafe().getLong(address + (i << 4));
+        final long tj = Unsafe.getUnsafe().getLong(address + (j << 4));
+        return ti > tj || (ti == tj && Unsafe.getUnsafe().getLong(address + (i << 4) + 8) > Unsafe.getUnsafe().getLong(address + (j << 4) + 8));
+    }
+
+    private static void swap(long address, long i, long j) {
+        final long pi = address + (i << 4);
+        final long pj = address + (j << 4);
+        final long t = Unsafe.getUnsafe().getLong(pi);
+        final long o = Unsafe.getUnsafe().getLong(pi + 8);
+        Unsafe.getUnsafe().putLong(pi, Unsafe.getUnsafe().getLong(pj));
+        Unsafe.getUnsafe().putLong(pi + 8, Unsafe.getUnsafe().getLong(pj + 8));
+        Unsafe.getUnsafe().putLong(pj, t);
+        Unsafe.getUnsafe().putLong(pj + 8, o);
+    }
+
+    // sorts (timestamp, line offset) pairs; offsets are unique, which makes keys unique too
+    private static void sort(long address, long l, long r) {
+        while (r - l >= INSERTION_SORT_THRESHOLD) {
+            // median of three, text is often nearly sorted
+            final long m = (l + r) >>> 1;
+            if (greater(address, l, m)) {
+                swap(address, l, m);
+            }
+            if (greater(address, m, r)) {
+                swap(address, m, r);
+                if (greater(address, l, m)) {
+                    swap(address, l, m);
+                }
+            }
+            final long pivotTimestamp = Unsafe.getUnsafe().getLong(address + (m << 4));
+            final long pivotOffset = Unsafe.getUnsafe().getLong(address + (m << 4) + 8);
+            long i = l;
+            long j = r;
+            while (i <= j) {
+                while (lessThanPivot(address, i, pivotTimestamp, pivotOffset)) {
+                    i++;
+                }
+                while (greaterThanPivot(address, j, pivotTimestamp, pivotOffset)) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(address, i++, j--);
+                }
+            }
+            // recurse into smaller half to keep stack shallow
+            if (j - l < r - i) {
+                sort(address, l, j);
+                l = i;
+            } else {
+                sort(address, i, r);
+                r = j;
+            }
+        }
+
+        for (long i = l + 1; i <= r; i++) {
+            for (long j = i; j > l && greater(address, j - 1, j); j--) {
+                swap(address, j - 1, j);
+            }
+        }
+    }
+
+    private static boolean lessThanPivot(long address, long i, long pivotTimestamp, long pivotOffset) {
+        final long t = Unsafe.getUnsafe().getLong(address + (i << 4));
+        return t < pivotTimestamp || (t == pivotTimestamp && Unsafe.getUnsafe().getLong(address + (i << 4) + 8) < pivotOffset);
+    }
+
+    private static boolean greaterThanPivot(long address, long i, long pivotTimestamp, long pivotOffset) {
+        final long t = Unsafe.getUnsafe().getLong(address + (i << 4));
+        return t > pivotTimestamp || (t == pivotTimestamp && Unsafe.getUnsafe().getLong(address + (i << 4) + 8) > pivotOffset);
+    }
+
+    private void clearPartitions() {
+        freePartitionIndexes();
+        partitionTimestamps.clear();
+    }
+
+    private void flushPartitionIndexes() {
+        final FilesFacade ff = loader.getFilesFacade();
+        for (int i = 0, n = partitionTimestamps.size(); i < n; i++) {
+            final DirectLongList index = partitionIndexes.getQuick(i);
+            loader.partitionFileName(path, partitionTimestamps.getQuick(i), chunkIndex);
+            final long fd = ff.openRW(path);
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+            }
+            try {
+                final long size = (long) index.size() << 3;
+                if (ff.write(fd, index.getAddress(), size, 0) != size) {
+                    throw CairoException.instance(ff.errno()).put("could not write [file=").put(path).put(']');
+                }
+            } finally {
+                ff.close(fd);
+            }
+        }
+    }
+
+    private void freePartitionIndexes() {
+        for (int i = 0, n = partitionIndexes.size(); i < n; i++) {
+            Misc.free(partitionIndexes.getQuick(i));
+        }
+        partitionIndexes.clear();
+        partitions.clear();
+    }
+
+    long getErrorCount() {
+        return errorCount;
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    DirectLongList getIndex() {
+        return index;
+    }
+
+    long getLineCount() {
+        return lineCount;
+    }
+
+    LongList getPartitionTimestamps() {
+        return partitionTimestamps;
+    }
+
+    private void indexChunk() {
+        loader.prime(lexer);
+        final byte columnDelimiter = loader.getColumnDelimiter();
+        long ptr = lo;
+        while (ptr < hi) {
+            final long next = ParallelTextLoader.nextRecord(ptr, hi, columnDelimiter);
+            lineLo = ptr;
+            lexer.parse(ptr, next, Integer.MAX_VALUE, indexListener);
+            ptr = next;
+        }
+        lexer.parseLast();
+        errorCount += lexer.getErrorCount();
+        try {
+            flushPartitionIndexes();
+        } finally {
+            // partition timestamps are kept for the loader to collect
+            freePartitionIndexes();
+        }
+    }
+
+    void ofIndexChunk(int sequence, long lo, long hi, CountDownLatchSPI doneLatch) {
+        clear();
+        of(sequence, TASK_INDEX_CHUNK, doneLatch);
+        this.chunkIndex = sequence;
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    void ofSortPartition(int sequence, long partitionTimestamp, CountDownLatchSPI doneLatch) {
+        clear();
+        of(sequence, TASK_SORT_PARTITION, doneLatch);
+        this.partitionTimestamp = partitionTimestamp;
+    }
+
+    private void of(int sequence, int task, CountDownLatchSPI doneLatch) {
+        this.task = task;
+        this.srcSequence = sequence;
+        this.targetSequence = sequence;
+        this.doneLatch = doneLatch;
+    }
+
+    private void onFields(long line, ObjList<DirectByteCharSequence> values, int valuesLength) {
+        lineCount++;
+        final TimestampAdapter timestampAdapter = loader.getTimestampAdapter();
+        final DirectByteCharSequence dbcs = values.getQuick(loader.getTimestampIndex());
+        final long timestamp;
+        try {
+            timestamp = timestampAdapter.getTimestamp(dbcs);
+        } catch (NumericException e) {
+            LOG.error().$("invalid timestamp [offset=").$(lineLo - loader.getAddress()).$(", value=").$(dbcs).$(']').$();
+            errorCount++;
+            return;
+        }
+
+        final long partitionTimestamp = loader.getPartitionTimestamp(timestamp);
+        final int keyIndex = partitions.keyIndex(partitionTimestamp);
+        final DirectLongList partitionIndex;
+        if (keyIndex > -1) {
+            partitionIndex = new DirectLongList(1024);
+            partitions.putAt(keyIndex, partitionTimestamp, partitionIndex);
+            partitionIndexes.add(partitionIndex);
+            partitionTimestamps.add(partitionTimestamp);
+        } else {
+            partitionIndex = partitions.valueAt(keyIndex);
+        }
+        partitionIndex.add(timestamp);
+        partitionIndex.add(lineLo - loader.getAddress());
+    }
+
+    private void sortPartition() {
+        final FilesFacade ff = loader.getFilesFacade();
+        final int chunkCount = loader.getChunkCount();
+        long count = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            loader.partitionFileName(path, partitionTimestamp, i);
+            if (ff.exists(path)) {
+                count += ff.length(path) >>> 3;
+            }
+        }
+
+        index = new DirectLongList(Math.max(count, 2));
+        for (int i = 0; i < chunkCount; i++) {
+            loader.partitionFileName(path, partitionTimestamp, i);
+            if (!ff.exists(path)) {
+                continue;
+            }
+            final long fd = ff.openRO(path);
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+            }
+            try {
+                final long len = ff.length(fd);
+                if (index.size() + (len >>> 3) > count || ff.read(fd, index.getAddress() + ((long) index.size() << 3), len, 0) != len) {
+                    throw CairoException.instance(ff.errno()).put("could not read [file=").put(path).put(']');
+                }
+                index.setPos(index.size() + (len >>> 3));
+            } finally {
+                ff.close(fd);
+            }
+            // index is in memory now, chunk file is not needed
+            if (!ff.remove(path)) {
+                LOG.error().$("could not remove [file=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+        }
+        sort(index.getAddress(), index.size() / 2);
+    }
+}
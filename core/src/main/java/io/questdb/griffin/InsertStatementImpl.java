@@ -26,6 +26,7 @@ package io.questdb.griffin;
 
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.TableWriterAPI;
 import io.questdb.cairo.sql.*;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
@@ -76,7 +77,7 @@ public class InsertStatementImpl implements InsertStatement {
     public InsertMethod createMethod(SqlExecutionContext executionContext) {
         initContext(executionContext);
 
-        final TableWriter writer = engine.getWriter(executionContext.getCairoSecurityContext(), tableName);
+        final TableWriterAPI writer = engine.getTableWriterAPI(executionContext.getCairoSecurityContext(), tableName);
         if (writer.getStructureVersion() != getStructureVersion()) {
             writer.close();
             throw WriterOutOfDateException.INSTANCE;
@@ -85,11 +86,11 @@ public class InsertStatementImpl implements InsertStatement {
         return insertMethod;
     }
 
-    private TableWriter.Row getRowWithTimestamp(TableWriter tableWriter) {
+    private TableWriter.Row getRowWithTimestamp(TableWriterAPI tableWriter) {
         return tableWriter.newRow(timestampFunction.getTimestamp(null));
     }
 
-    private TableWriter.Row getRowWithoutTimestamp(TableWriter tableWriter) {
+    private TableWriter.Row getRowWithoutTimestamp(TableWriterAPI tableWriter) {
         return tableWriter.newRow();
     }
 
@@ -105,11 +106,11 @@ public class InsertStatementImpl implements InsertStatement {
 
     @FunctionalInterface
     private interface RowFactory {
-        TableWriter.Row getRow(TableWriter tableWriter);
+        TableWriter.Row getRow(TableWriterAPI tableWriter);
     }
 
     private class InsertMethodImpl implements InsertMethod {
-        private TableWriter writer = null;
+        private TableWriterAPI writer = null;
 
         @Override
         public void execute() {
@@ -124,7 +125,7 @@ public class InsertStatementImpl implements InsertStatement {
         }
 
         @Override
-        public TableWriter getWriter() {
+        public TableWriterAPI getWriter() {
             return writer;
         }
 
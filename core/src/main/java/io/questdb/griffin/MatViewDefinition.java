@@ -0,0 +1,118 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.AppendMemory;
+import io.questdb.cairo.OnePageMemory;
+import io.questdb.cairo.VirtualMemory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Path;
+
+/**
+ * Definition of materialized view. View data is kept in regular table, definition is stored
+ * alongside table files. Base table position in query text is recorded to be able to restrict
+ * view refresh to the rows appended since last refresh.
+ */
+public class MatViewDefinition {
+    public static final String FILE_NAME = "_mv";
+    private final String viewName;
+    private final String baseTableName;
+    private final String query;
+    private final int baseTableLo;
+    private final int baseTableHi;
+
+    public MatViewDefinition(String viewName, String baseTableName, String query, int baseTableLo, int baseTableHi) {
+        this.viewName = viewName;
+        this.baseTableName = baseTableName;
+        this.query = query;
+        this.baseTableLo = baseTableLo;
+        this.baseTableHi = baseTableHi;
+    }
+
+    /**
+     * Reads view definition from the table directory.
+     *
+     * @return view definition or null when table is not a materialized view
+     */
+    public static MatViewDefinition read(FilesFacade ff, Path path, CharSequence root, CharSequence viewName) {
+        path.of(root).concat(viewName).concat(FILE_NAME).$();
+        if (!ff.exists(path)) {
+            return null;
+        }
+        try (OnePageMemory mem = new OnePageMemory(ff, path, ff.length(path))) {
+            long offset = 0;
+            final String baseTableName = mem.getStr(offset).toString();
+            offset += VirtualMemory.getStorageLength(baseTableName);
+            final int baseTableLo = mem.getInt(offset);
+            offset += Integer.BYTES;
+            final int baseTableHi = mem.getInt(offset);
+            offset += Integer.BYTES;
+            final String query = mem.getStr(offset).toString();
+            return new MatViewDefinition(viewName.toString(), baseTableName, query, baseTableLo, baseTableHi);
+        }
+    }
+
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getViewName() {
+        return viewName;
+    }
+
+    /**
+     * Prints view query restricted to base table rows with timestamp equal or greater than given one.
+     */
+    public void toRefreshQuery(CharSink sink, CharSequence timestampColumn, long timestampLo) {
+        if (timestampLo == Long.MIN_VALUE) {
+            sink.put(query);
+            return;
+        }
+        sink.put(query, 0, baseTableLo);
+        sink.put('(').put(query, baseTableLo, baseTableHi).put(" where ").put(timestampColumn).put(" >= '");
+        TimestampFormatUtils.appendDateTimeUSec(sink, timestampLo);
+        sink.put("')");
+        sink.put(query, baseTableHi, query.length());
+    }
+
+    public void write(FilesFacade ff, AppendMemory mem, Path path, CharSequence root) {
+        path.of(root).concat(viewName).concat(FILE_NAME).$();
+        try {
+            mem.of(ff, path, ff.getPageSize());
+            mem.putStr(baseTableName);
+            mem.putInt(baseTableLo);
+            mem.putInt(baseTableHi);
+            mem.putStr(query);
+        } finally {
+            mem.close();
+        }
+    }
+}
@@ -0,0 +1,346 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.pool.ex.EntryLockedException;
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.tasks.TableCommitTask;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Keeps materialized views up to date with their base tables. Job listens to table commit
+ * notifications and re-aggregates base table rows starting from the last bucket present in the view.
+ * Base tables are append-only, which means buckets before the last one cannot change between refreshes.
+ * Notifications are not guaranteed to be delivered, so all views are also checked periodically.
+ * <p>
+ * Last bucket is removed from the view in its own transaction. Re-aggregated rows overwrite removed ones,
+ * so they are appended only after readers of the view move past the removal. Until then view lacks its
+ * last bucket. Base table transaction and data version the view is refreshed to are stored next to view
+ * definition, so that views are not rebuilt on restart.
+ * Views are discovered by scanning database root on start and on every periodic check, and when
+ * CREATE MATERIALIZED VIEW notifies the job. Commits of unknown tables do not cause disk reads.
+ */
+public class MatViewRefreshJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(MatViewRefreshJob.class);
+    private static final String STATE_FILE_NAME = "_mv.state";
+    private static final long STATE_OFFSET_BASE_TXN = 0;
+    private static final long STATE_OFFSET_BASE_DATA_VERSION = 8;
+    private static final long STATE_OFFSET_VIEW_TXN = 16;
+    private static final long STATE_SIZE = 24;
+    private final CairoEngine engine;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final MicrosecondClock clock;
+    private final RingQueue<TableCommitTask> queue;
+    private final Sequence subSeq;
+    private final SqlCompiler compiler;
+    private final SqlExecutionContextImpl executionContext;
+    private final CharSequenceObjHashMap<MatView> views = new CharSequenceObjHashMap<>();
+    private final CharSequenceObjHashMap<ObjList<MatView>> viewsByBaseTable = new CharSequenceObjHashMap<>();
+    private final ObjList<MatView> viewList = new ObjList<>();
+    private final CharSequenceHashSet committedTables = new CharSequenceHashSet();
+    private final CharSequenceHashSet createdViews = new CharSequenceHashSet();
+    private final StringSink sink = new StringSink();
+    private final Path path = new Path();
+    private final AppendMemory stateMem = new AppendMemory();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final long checkInterval;
+    private long nextCheckTimestamp;
+    private final FindVisitor findViewsOnFind = (file, type) -> {
+        nativeLPSZ.of(file);
+        if (type == Files.DT_DIR && nativeLPSZ.charAt(0) != '.' && views.keyIndex(nativeLPSZ) > -1) {
+            register(Chars.toString(nativeLPSZ));
+        }
+    };
+
+    public MatViewRefreshJob(CairoEngine engine, @Nullable FunctionFactoryCache functionFactoryCache) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getMatViewCheckInterval() * 1000L;
+        final MessageBus messageBus = engine.getMessageBus();
+        this.queue = messageBus.getTableCommitQueue();
+        this.subSeq = messageBus.getTableCommitSubSequence();
+        this.compiler = new SqlCompiler(engine, messageBus, functionFactoryCache);
+        this.executionContext = new SqlExecutionContextImpl(engine, 1, messageBus);
+        this.executionContext.with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+        ff.iterateDir(path.of(configuration.getRoot()).$(), findViewsOnFind);
+        this.nextCheckTimestamp = clock.getTicks() + checkInterval;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compiler);
+        Misc.free(stateMem);
+        Misc.free(path);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        committedTables.clear();
+        createdViews.clear();
+        long cursor;
+        while ((cursor = subSeq.next()) > -1) {
+            final TableCommitTask task = queue.get(cursor);
+            if (task.matViewCreated) {
+                createdViews.add(Chars.toString(task.tableName));
+            } else {
+                committedTables.add(Chars.toString(task.tableName));
+            }
+            subSeq.done(cursor);
+        }
+
+        for (int i = 0, n = createdViews.size(); i < n; i++) {
+            final CharSequence viewName = createdViews.get(i);
+            if (views.keyIndex(viewName) > -1) {
+                register(viewName);
+            }
+        }
+
+        for (int i = 0, n = committedTables.size(); i < n; i++) {
+            final ObjList<MatView> dependants = viewsByBaseTable.get(committedTables.get(i));
+            if (dependants != null) {
+                for (int j = 0, m = dependants.size(); j < m; j++) {
+                    dependants.getQuick(j).dirty = true;
+                }
+            }
+        }
+
+        final long now = clock.getTicks();
+        if (now >= nextCheckTimestamp) {
+            // pick up views, which creation notification has been lost
+            ff.iterateDir(path.of(configuration.getRoot()).$(), findViewsOnFind);
+            for (int i = 0, n = viewList.size(); i < n; i++) {
+                viewList.getQuick(i).dirty = true;
+            }
+            nextCheckTimestamp = now + checkInterval;
+        }
+
+        boolean useful = false;
+        for (int i = viewList.size() - 1; i > -1; i--) {
+            final MatView view = viewList.getQuick(i);
+            if (view.dirty) {
+                useful |= refresh(view);
+            }
+        }
+        return useful;
+    }
+
+    private void register(CharSequence tableName) {
+        final MatViewDefinition definition;
+        try {
+            definition = MatViewDefinition.read(ff, path, configuration.getRoot(), tableName);
+        } catch (CairoException e) {
+            LOG.error()
+                    .$("could not read view definition [table=`").utf8(tableName)
+                    .$("`, ex=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .$(']').$();
+            return;
+        }
+
+        if (definition != null) {
+            final MatView view = new MatView(definition);
+            readState(view);
+            views.put(definition.getViewName(), view);
+            viewList.add(view);
+            final int index = viewsByBaseTable.keyIndex(definition.getBaseTableName());
+            final ObjList<MatView> dependants;
+            if (index > -1) {
+                dependants = new ObjList<>();
+                viewsByBaseTable.putAt(index, definition.getBaseTableName(), dependants);
+            } else {
+                dependants = viewsByBaseTable.valueAt(index);
+            }
+            dependants.add(view);
+            LOG.info().$("registered materialized view [view=`").utf8(definition.getViewName()).$("`, base=`").utf8(definition.getBaseTableName()).$("`]").$();
+        }
+    }
+
+    private boolean refresh(MatView view) {
+        final MatViewDefinition definition = view.definition;
+        final String viewName = definition.getViewName();
+        if (engine.getStatus(AllowAllCairoSecurityContext.INSTANCE, path, viewName) != TableUtils.TABLE_EXISTS) {
+            unregister(view);
+            return false;
+        }
+
+        try {
+            final long baseTxn;
+            final long baseDataVersion;
+            final CharSequence timestampColumn;
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, definition.getBaseTableName())) {
+                baseTxn = reader.getTxn();
+                baseDataVersion = reader.getDataVersion();
+                final int timestampIndex = reader.getMetadata().getTimestampIndex();
+                if (timestampIndex < 0) {
+                    LOG.error().$("base table has no designated timestamp [view=`").utf8(viewName).$("`, base=`").utf8(definition.getBaseTableName()).$("`]").$();
+                    view.dirty = false;
+                    return false;
+                }
+                timestampColumn = Chars.toString(reader.getMetadata().getColumnName(timestampIndex));
+            }
+
+            if (baseTxn == view.baseTxn) {
+                view.dirty = false;
+                return false;
+            }
+
+            long timestampLo = view.removedFrom;
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, viewName)) {
+                if (timestampLo == Long.MAX_VALUE || baseDataVersion != view.baseDataVersion) {
+                    timestampLo = writer.getMaxTimestamp();
+                    if (baseDataVersion != view.baseDataVersion || timestampLo == Long.MIN_VALUE || !writer.removeRowsFrom(timestampLo)) {
+                        // base table was truncated or view state is unknown, rebuild view from scratch;
+                        // views are not partitioned, so all rows can be removed
+                        timestampLo = Long.MIN_VALUE;
+                        if (!writer.removeRowsFrom(timestampLo)) {
+                            throw CairoException.instance(0).put("cannot rebuild partitioned view");
+                        }
+                    }
+                    view.removedFrom = timestampLo;
+                    view.baseDataVersion = baseDataVersion;
+                }
+
+                if (writer.isPreviousTxnInUse()) {
+                    // readers may still read removed rows, try again on next run
+                    return false;
+                }
+
+                sink.clear();
+                definition.toRefreshQuery(sink, timestampColumn, timestampLo);
+                try {
+                    compiler.appendQueryResult(writer, sink, executionContext);
+                    writer.commit();
+                } catch (CairoException | SqlException e) {
+                    writer.rollback();
+                    throw e;
+                }
+                view.removedFrom = Long.MAX_VALUE;
+                view.baseTxn = baseTxn;
+                writeState(view, writer.getTxn());
+            }
+
+            view.dirty = false;
+            LOG.info().$("refreshed materialized view [view=`").utf8(viewName).$("`, from=").$ts(timestampLo).$(']').$();
+            return true;
+        } catch (EntryUnavailableException | EntryLockedException e) {
+            // view is busy, try again on next run
+            return false;
+        } catch (CairoException e) {
+            LOG.error()
+                    .$("could not refresh materialized view [view=`").utf8(viewName)
+                    .$("`, ex=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .$(']').$();
+        } catch (SqlException e) {
+            LOG.error()
+                    .$("could not refresh materialized view [view=`").utf8(viewName)
+                    .$("`, ex=").$(e.getFlyweightMessage())
+                    .$(']').$();
+        }
+        view.dirty = false;
+        return false;
+    }
+
+    private void readState(MatView view) {
+        path.of(configuration.getRoot()).concat(view.definition.getViewName()).concat(STATE_FILE_NAME).$();
+        if (!ff.exists(path) || ff.length(path) != STATE_SIZE) {
+            return;
+        }
+        final long viewTxn;
+        try (OnePageMemory mem = new OnePageMemory(ff, path, STATE_SIZE)) {
+            view.baseDataVersion = mem.getLong(STATE_OFFSET_BASE_DATA_VERSION);
+            view.baseTxn = mem.getLong(STATE_OFFSET_BASE_TXN);
+            viewTxn = mem.getLong(STATE_OFFSET_VIEW_TXN);
+        }
+
+        // view changed after state had been written, e.g. refresh was interrupted after removal of the last bucket;
+        // view is still consistent with base data version, so incremental refresh is enough
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, view.definition.getViewName())) {
+            if (reader.getTxn() != viewTxn) {
+                view.baseTxn = -1;
+            }
+        } catch (CairoException e) {
+            view.baseTxn = -1;
+        }
+    }
+
+    private void unregister(MatView view) {
+        final MatViewDefinition definition = view.definition;
+        views.remove(definition.getViewName());
+        viewList.remove(view);
+        final ObjList<MatView> dependants = viewsByBaseTable.get(definition.getBaseTableName());
+        if (dependants != null) {
+            dependants.remove(view);
+            if (dependants.size() == 0) {
+                viewsByBaseTable.remove(definition.getBaseTableName());
+            }
+        }
+        LOG.info().$("unregistered materialized view [view=`").utf8(definition.getViewName()).$("`]").$();
+    }
+
+    private void writeState(MatView view, long viewTxn) {
+        path.of(configuration.getRoot()).concat(view.definition.getViewName()).concat(STATE_FILE_NAME).$();
+        try {
+            stateMem.of(ff, path, ff.getPageSize());
+            stateMem.putLong(view.baseTxn);
+            stateMem.putLong(view.baseDataVersion);
+            // view transaction is written last, torn state does not match view and is ignored on restart
+            stateMem.putLong(viewTxn);
+        } finally {
+            stateMem.close();
+        }
+    }
+
+    private static class MatView {
+        private final MatViewDefinition definition;
+        private long baseTxn = -1;
+        private long baseDataVersion = -1;
+        // timestamp rows have been removed from by uncompleted refresh, Long.MAX_VALUE when there is none
+        private long removedFrom = Long.MAX_VALUE;
+        private boolean dirty = true;
+
+        private MatView(MatViewDefinition definition) {
+            this.definition = definition;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.sql.*;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.PageFrameCopyTask;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Copies page frames into table writer with {@link TableWriter#appendBlock(LongList, long)}.
+ * Frames are read in batches of up to worker count. Columns of each frame in the batch are
+ * gathered and converted to writer types concurrently on the worker pool, then the owner thread
+ * maps symbol keys and appends frames in the order they came from the cursor, so that
+ * partitions are written in order.
+ */
+class PageFrameCopier implements Closeable {
+    private final ObjList<IntList> keyMaps = new ObjList<>();
+    private final IntList fromTypes = new IntList();
+    private final IntList toTypes = new IntList();
+    private final ObjList<PageFrameCopyEntry> entries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final MessageBus messageBus;
+
+    PageFrameCopier(@Nullable MessageBus messageBus) {
+        this.messageBus = messageBus;
+    }
+
+    static boolean isSupported(RecordCursorFactory factory, RecordMetadata writerMetadata) {
+        if (!factory.supportPageFrameCursor()) {
+            return false;
+        }
+        final RecordMetadata metadata = factory.getMetadata();
+        final int columnCount = writerMetadata.getColumnCount();
+        if (metadata.getColumnCount() != columnCount) {
+            return false;
+        }
+        for (int i = 0; i < columnCount; i++) {
+            final int type = writerMetadata.getColumnType(i);
+            if (type == ColumnType.STRING || type == ColumnType.BINARY || type == ColumnType.LONG256) {
+                return false;
+            }
+            final int fromType = metadata.getColumnType(i);
+            if (type != fromType && !(isNumeric(fromType) && isNumeric(type))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNumeric(int type) {
+        return type >= ColumnType.BYTE && type <= ColumnType.DOUBLE && type != ColumnType.CHAR;
+    }
+
+    @Override
+    public void close() {
+        // entries hold native memory, they are not kept between statements
+        Misc.freeObjList(entries);
+        entries.clear();
+    }
+
+    /**
+     * Appends all frames of the cursor to the writer, does not commit.
+     *
+     * @param workerCount number of workers available to prepare frames
+     */
+    void copy(PageFrameCursor cursor, RecordMetadata cursorMetadata, TableWriter writer, int workerCount) {
+        try {
+            // entries of a batch hold frames of the cursor until the batch is appended
+            copy0(cursor, cursorMetadata, writer, Math.max(1, Math.min(workerCount, cursor.getMaxInFlightFrames())));
+        } finally {
+            close();
+        }
+    }
+
+    private void copy0(PageFrameCursor cursor, RecordMetadata cursorMetadata, TableWriter writer, int batchSize) {
+        final RecordMetadata metadata = writer.getMetadata();
+        final int columnCount = metadata.getColumnCount();
+        fromTypes.clear();
+        toTypes.clear();
+        for (int i = 0; i < columnCount; i++) {
+            fromTypes.add(cursorMetadata.getColumnType(i));
+            toTypes.add(metadata.getColumnType(i));
+            if (keyMaps.size() == i) {
+                keyMaps.add(new IntList());
+            }
+            keyMaps.getQuick(i).clear();
+        }
+
+        boolean hasNext = true;
+        while (hasNext) {
+            int queuedCount = 0;
+            doneLatch.reset();
+            try {
+                PageFrame frame;
+                while (queuedCount < batchSize) {
+                    if ((frame = cursor.next()) == null) {
+                        hasNext = false;
+                        break;
+                    }
+                    if (frame.getPageValueCount(0) > 0) {
+                        publish(queuedCount++, frame);
+                    }
+                }
+            } finally {
+                // published entries reference pages of the cursor, they have to complete first
+                awaitEntries(queuedCount);
+            }
+
+            for (int i = 0; i < queuedCount; i++) {
+                final PageFrameCopyEntry entry = entries.getQuick(i);
+                checkError(entry);
+                for (int j = 0; j < columnCount; j++) {
+                    if (toTypes.getQuick(j) == ColumnType.SYMBOL) {
+                        entry.mapKeys(j, keyMaps.getQuick(j), cursor.getSymbolTable(j), writer);
+                    }
+                }
+                writer.appendBlock(entry.getAddresses(), entry.getRowCount());
+            }
+        }
+    }
+
+    private void awaitEntries(int queuedCount) {
+        // start at the back to reduce chance of clashing with workers
+        for (int i = queuedCount - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
+            entries.getQuick(i).run();
+        }
+        doneLatch.await(queuedCount);
+    }
+
+    private void checkError(PageFrameCopyEntry entry) {
+        final Throwable e = entry.getError();
+        if (e instanceof CairoException) {
+            throw (CairoException) e;
+        }
+        if (e != null) {
+            throw CairoException.instance(0).put("page frame copy failed [error=").put(e.getMessage()).put(']');
+        }
+    }
+
+    private PageFrameCopyEntry nextEntry(int index) {
+        if (index < entries.size()) {
+            return entries.getQuick(index);
+        }
+        final PageFrameCopyEntry entry = new PageFrameCopyEntry();
+        entries.add(entry);
+        return entry;
+    }
+
+    private void publish(int index, PageFrame frame) {
+        final PageFrameCopyEntry entry = nextEntry(index);
+        entry.of(index, frame, fromTypes, toTypes, doneLatch);
+        if (messageBus == null) {
+            entry.run();
+            return;
+        }
+        final RingQueue<PageFrameCopyTask> queue = messageBus.getPageFrameCopyQueue();
+        final Sequence pubSeq = messageBus.getPageFrameCopyPubSequence();
+        final long seq = pubSeq.next();
+        if (seq < 0) {
+            entry.run();
+        } else {
+            queue.get(seq).entry = entry;
+            pubSeq.done(seq);
+        }
+    }
+}
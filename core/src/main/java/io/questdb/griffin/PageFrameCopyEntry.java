@@ -0,0 +1,277 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Prepares columns of one page frame to be appended to table writer. Selected rows of filtered
+ * frames are gathered and values are converted to column types of the writer. Frames that need
+ * neither are passed through as they are. Symbol keys are not touched here, symbol tables of the
+ * writer are not thread-safe and keys are mapped by the owner thread before frame is appended.
+ */
+public class PageFrameCopyEntry implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PageFrameCopyEntry.class);
+    private static final long TARGET_SEQUENCE_OFFSET;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(PageFrameCopyEntry.class, "targetSequence");
+    }
+
+    private final LongList pageAddresses = new LongList();
+    private final LongList addresses = new LongList();
+    private final LongList buffers = new LongList();
+    private final LongList bufferSizes = new LongList();
+    private IntList fromTypes;
+    private IntList toTypes;
+    private DirectLongList rows;
+    private long rowCount;
+    private int srcSequence;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private CountDownLatchSPI doneLatch;
+    private Throwable error;
+
+    @Override
+    public void close() {
+        for (int i = 0, n = buffers.size(); i < n; i++) {
+            final long size = bufferSizes.getQuick(i);
+            if (size > 0) {
+                Unsafe.free(buffers.getQuick(i), size);
+                buffers.setQuick(i, 0);
+                bufferSizes.setQuick(i, 0);
+            }
+        }
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                prepare();
+            } catch (Throwable e) {
+                LOG.error().$("page frame copy failed [e=").$(e).$(']').$();
+                error = e;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    private static void convert(long src, int fromType, long dst, int toType, DirectLongList rows, long rowCount) {
+        if (fromType == ColumnType.FLOAT || fromType == ColumnType.DOUBLE) {
+            for (long r = 0; r < rowCount; r++) {
+                putDouble(dst, r, toType, getDouble(src, rows != null ? rows.get(r) : r, fromType));
+            }
+        } else {
+            for (long r = 0; r < rowCount; r++) {
+                putLong(dst, r, toType, getLong(src, rows != null ? rows.get(r) : r, fromType));
+            }
+        }
+    }
+
+    private static double getDouble(long address, long row, int type) {
+        if (type == ColumnType.FLOAT) {
+            return Unsafe.getUnsafe().getFloat(address + row * Float.BYTES);
+        }
+        return Unsafe.getUnsafe().getDouble(address + row * Double.BYTES);
+    }
+
+    private static long getLong(long address, long row, int type) {
+        switch (type) {
+            case ColumnType.BYTE:
+                return Unsafe.getUnsafe().getByte(address + row);
+            case ColumnType.SHORT:
+                return Unsafe.getUnsafe().getShort(address + row * Short.BYTES);
+            case ColumnType.INT:
+                return Unsafe.getUnsafe().getInt(address + row * Integer.BYTES);
+            default:
+                return Unsafe.getUnsafe().getLong(address + row * Long.BYTES);
+        }
+    }
+
+    // conversions follow primitive casts of the record to row copier
+    private static void putDouble(long address, long row, int type, double value) {
+        switch (type) {
+            case ColumnType.BYTE:
+                Unsafe.getUnsafe().putByte(address + row, (byte) (int) value);
+                break;
+            case ColumnType.SHORT:
+                Unsafe.getUnsafe().putShort(address + row * Short.BYTES, (short) (int) value);
+                break;
+            case ColumnType.INT:
+                Unsafe.getUnsafe().putInt(address + row * Integer.BYTES, (int) value);
+                break;
+            case ColumnType.FLOAT:
+                Unsafe.getUnsafe().putFloat(address + row * Float.BYTES, (float) value);
+                break;
+            case ColumnType.DOUBLE:
+                Unsafe.getUnsafe().putDouble(address + row * Double.BYTES, value);
+                break;
+            default:
+                Unsafe.getUnsafe().putLong(address + row * Long.BYTES, (long) value);
+                break;
+        }
+    }
+
+    private static void putLong(long address, long row, int type, long value) {
+        switch (type) {
+            case ColumnType.BYTE:
+                Unsafe.getUnsafe().putByte(address + row, (byte) value);
+                break;
+            case ColumnType.SHORT:
+                Unsafe.getUnsafe().putShort(address + row * Short.BYTES, (short) value);
+                break;
+            case ColumnType.INT:
+                Unsafe.getUnsafe().putInt(address + row * Integer.BYTES, (int) value);
+                break;
+            case ColumnType.FLOAT:
+                Unsafe.getUnsafe().putFloat(address + row * Float.BYTES, (float) value);
+                break;
+            case ColumnType.DOUBLE:
+                Unsafe.getUnsafe().putDouble(address + row * Double.BYTES, (double) value);
+                break;
+            default:
+                Unsafe.getUnsafe().putLong(address + row * Long.BYTES, value);
+                break;
+        }
+    }
+
+    private void gather(long src, int shl, long dst) {
+        final long size = 1L << shl;
+        for (long r = 0; r < rowCount; r++) {
+            Unsafe.getUnsafe().copyMemory(src + (rows.get(r) << shl), dst + (r << shl), size);
+        }
+    }
+
+    private long getBuffer(int columnIndex, long size) {
+        final long oldSize = bufferSizes.getQuick(columnIndex);
+        if (oldSize < size) {
+            buffers.setQuick(columnIndex, Unsafe.realloc(buffers.getQuick(columnIndex), oldSize, size));
+            bufferSizes.setQuick(columnIndex, size);
+        }
+        return buffers.getQuick(columnIndex);
+    }
+
+    LongList getAddresses() {
+        return addresses;
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    void mapKeys(int columnIndex, IntList keyMap, SymbolTable symbolTable, TableWriter writer) {
+        final long address = addresses.getQuick(columnIndex);
+        if (address == 0) {
+            return;
+        }
+        // keys may have been gathered into the buffer already, it is safe to map them in place
+        final long buffer = getBuffer(columnIndex, rowCount * Integer.BYTES);
+        for (long r = 0; r < rowCount; r++) {
+            final int key = Unsafe.getUnsafe().getInt(address + r * Integer.BYTES);
+            int mappedKey;
+            if (key < 0) {
+                mappedKey = writer.putSym(columnIndex, null);
+            } else {
+                while (keyMap.size() <= key) {
+                    keyMap.add(SymbolTable.VALUE_NOT_FOUND);
+                }
+                mappedKey = keyMap.getQuick(key);
+                if (mappedKey == SymbolTable.VALUE_NOT_FOUND) {
+                    mappedKey = writer.putSym(columnIndex, symbolTable.valueOf(key));
+                    keyMap.setQuick(key, mappedKey);
+                }
+            }
+            Unsafe.getUnsafe().putInt(buffer + r * Integer.BYTES, mappedKey);
+        }
+        addresses.setQuick(columnIndex, buffer);
+    }
+
+    /**
+     * Frame is only referenced by the entry, page addresses and selected rows must remain
+     * valid until the entry is appended.
+     */
+    void of(int sequence, PageFrame frame, IntList fromTypes, IntList toTypes, CountDownLatchSPI doneLatch) {
+        final int columnCount = toTypes.size();
+        this.srcSequence = sequence;
+        this.targetSequence = sequence;
+        this.fromTypes = fromTypes;
+        this.toTypes = toTypes;
+        this.doneLatch = doneLatch;
+        this.rows = frame.getSelectedRows();
+        this.rowCount = frame.getPageValueCount(0);
+        this.error = null;
+        pageAddresses.setAll(columnCount, 0);
+        addresses.setAll(columnCount, 0);
+        for (int i = 0; i < columnCount; i++) {
+            if (buffers.size() == i) {
+                buffers.add(0);
+                bufferSizes.add(0);
+            }
+            pageAddresses.setQuick(i, frame.getPageAddress(i));
+        }
+    }
+
+    private void prepare() {
+        for (int i = 0, n = toTypes.size(); i < n; i++) {
+            final long src = pageAddresses.getQuick(i);
+            long address = src;
+            if (src != 0) {
+                final int fromType = fromTypes.getQuick(i);
+                final int toType = toTypes.getQuick(i);
+                if (fromType != toType) {
+                    address = getBuffer(i, rowCount << ColumnType.pow2SizeOf(toType));
+                    convert(src, fromType, address, toType, rows, rowCount);
+                } else if (rows != null) {
+                    final int shl = ColumnType.pow2SizeOf(toType);
+                    address = getBuffer(i, rowCount << shl);
+                    gather(src, shl, address);
+                }
+            }
+            addresses.setQuick(i, address);
+        }
+    }
+}
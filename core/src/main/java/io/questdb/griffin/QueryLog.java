@@ -0,0 +1,127 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Numbers;
+import io.questdb.std.NanosecondClock;
+import io.questdb.std.ObjList;
+import io.questdb.std.microtime.MicrosecondClock;
+
+/**
+ * Bounded ring of profiles of recently completed queries, shared by all SQL execution
+ * contexts of the engine. Oldest profile is overwritten when ring is full. Queries that
+ * take longer than configured threshold are also written to server log. Queries that fail
+ * or are cancelled after their cursor factory is created are added when they are closed.
+ */
+public class QueryLog {
+    private static final Log LOG = LogFactory.getLog(QueryLog.class);
+    private final QueryProfile[] profiles;
+    private final int mask;
+    private final long slowQueryThresholdNanos;
+    private final boolean cpuEnabled;
+    private final MicrosecondClock microsecondClock;
+    private final NanosecondClock nanosecondClock;
+    private long count = 0;
+
+    public QueryLog(CairoConfiguration configuration) {
+        final int capacity = Numbers.ceilPow2(Math.max(1, configuration.getSqlQueryLogCapacity()));
+        this.profiles = new QueryProfile[capacity];
+        for (int i = 0; i < capacity; i++) {
+            profiles[i] = new QueryProfile();
+        }
+        this.mask = capacity - 1;
+        this.slowQueryThresholdNanos = configuration.getSqlSlowQueryThreshold() * 1_000_000L;
+        this.cpuEnabled = configuration.isSqlQueryLogCpuEnabled();
+        this.microsecondClock = configuration.getMicrosecondClock();
+        this.nanosecondClock = configuration.getNanosecondClock();
+    }
+
+    public void add(QueryProfile profile) {
+        profile.complete(nanosecondClock.getTicks());
+        if (profile.getTotalNanos() > slowQueryThresholdNanos) {
+            LOG.info().$("slow query [q=`").utf8(profile.getQuery())
+                    .$("`, total=").$(profile.getTotalNanos())
+                    .$(", cpu=").$(profile.getCpuNanos())
+                    .$(", parse=").$(profile.getParseNanos())
+                    .$(", optimise=").$(profile.getOptimiseNanos())
+                    .$(", codegen=").$(profile.getCodeGenNanos())
+                    .$(", execute=").$(profile.getExecuteNanos())
+                    .$(", serialize=").$(profile.getSerializeNanos())
+                    .$(", rowsScanned=").$(profile.getRowsScanned())
+                    .$(", framesScanned=").$(profile.getFramesScanned())
+                    .$(", rowsReturned=").$(profile.getRowsReturned())
+                    .$(", bytesSent=").$(profile.getBytesSent())
+                    .$(", memUsedPeak=").$(profile.getMemUsedPeak())
+                    .$(", aborted=").$(profile.isAborted())
+                    .$(']').$();
+        }
+        synchronized (profiles) {
+            profiles[(int) (count++ & mask)].copyFrom(profile);
+        }
+    }
+
+    /**
+     * Adds profile of query that is closed while still running, e.g. query failed or client went
+     * away before all rows were sent. Profile that has already been added is ignored, so this method
+     * can be called whenever query cursor is closed.
+     *
+     * @param profile profile of closed query
+     */
+    public void close(QueryProfile profile) {
+        if (profile.isRunning()) {
+            profile.abort();
+            add(profile);
+        }
+    }
+
+    /**
+     * Copies profiles into sink, oldest first. Sink reuses profile instances it already has.
+     *
+     * @param sink list of profiles
+     * @return number of profiles copied
+     */
+    public int copyTo(ObjList<QueryProfile> sink) {
+        synchronized (profiles) {
+            final long lo = Math.max(0, count - profiles.length);
+            final int n = (int) (count - lo);
+            for (int i = 0; i < n; i++) {
+                QueryProfile profile = sink.getQuiet(i);
+                if (profile == null) {
+                    profile = new QueryProfile();
+                    sink.extendAndSet(i, profile);
+                }
+                profile.copyFrom(profiles[(int) ((lo + i) & mask)]);
+            }
+            return n;
+        }
+    }
+
+    public void start(QueryProfile profile, CharSequence query) {
+        profile.of(query, microsecondClock.getTicks(), nanosecondClock.getTicks(), cpuEnabled);
+    }
+}
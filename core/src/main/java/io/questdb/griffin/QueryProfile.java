@@ -0,0 +1,282 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Timings and counters of single query execution. Instance is reachable from
+ * {@link SqlExecutionContext} while query is compiled and executed and is copied
+ * into {@link QueryLog} when query completes or is closed before completion.
+ */
+public class QueryProfile implements Mutable {
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+    private final StringSink query = new StringSink();
+    private long timestamp;
+    private long startNanos;
+    private long totalNanos;
+    private long cpuNanos;
+    private long cpuStart = -1;
+    private boolean cpuEnabled;
+    private long parseNanos;
+    private long optimiseNanos;
+    private long codeGenNanos;
+    private long executeNanos;
+    private long serializeNanos;
+    private long rowsScanned;
+    private long framesScanned;
+    private long rowsReturned;
+    private long bytesSent;
+    private long memUsedPeak;
+    private boolean running;
+    private boolean complete;
+    private boolean aborted;
+
+    static {
+        // first call is orders of magnitude slower than the rest, keep it off query path
+        getThreadCpuNanos();
+    }
+
+    /**
+     * @return CPU time of current thread in nanoseconds, or -1 when JVM does not measure it
+     */
+    public static long getThreadCpuNanos() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Starts measuring CPU time of current thread. Query can move between worker threads, so
+     * each phase is measured on thread that runs it and {@link #stopCpu()} must be called on
+     * the same thread. Call is ignored when measurement is already started or CPU accounting
+     * is disabled in configuration, in which case CPU time remains 0.
+     */
+    public void startCpu() {
+        if (cpuEnabled && cpuStart == -1) {
+            cpuStart = getThreadCpuNanos();
+        }
+    }
+
+    /**
+     * Adds CPU time current thread spent since {@link #startCpu()}. Call is ignored when
+     * measurement is not started, so it is safe to stop measurement early and again in finally block.
+     */
+    public void stopCpu() {
+        if (cpuStart != -1) {
+            final long cpuEnd = getThreadCpuNanos();
+            if (cpuEnd != -1) {
+                cpuNanos += cpuEnd - cpuStart;
+            }
+            cpuStart = -1;
+        }
+    }
+
+    public void addBytesSent(long bytes) {
+        bytesSent += bytes;
+    }
+
+    public void addCodeGenNanos(long nanos) {
+        codeGenNanos += nanos;
+    }
+
+    public void addExecuteNanos(long nanos) {
+        executeNanos += nanos;
+    }
+
+    public void addFrameScanned(long rowCount) {
+        framesScanned++;
+        rowsScanned += rowCount;
+        sampleMemUsed();
+    }
+
+    public void addOptimiseNanos(long nanos) {
+        optimiseNanos += nanos;
+    }
+
+    public void addParseNanos(long nanos) {
+        parseNanos += nanos;
+    }
+
+    public void addSerializeNanos(long nanos) {
+        serializeNanos += nanos;
+    }
+
+    @Override
+    public void clear() {
+        query.clear();
+        timestamp = 0;
+        startNanos = 0;
+        totalNanos = 0;
+        cpuNanos = 0;
+        cpuStart = -1;
+        cpuEnabled = false;
+        parseNanos = 0;
+        optimiseNanos = 0;
+        codeGenNanos = 0;
+        executeNanos = 0;
+        serializeNanos = 0;
+        rowsScanned = 0;
+        framesScanned = 0;
+        rowsReturned = 0;
+        bytesSent = 0;
+        memUsedPeak = 0;
+        running = false;
+        complete = false;
+        aborted = false;
+    }
+
+    public void copyFrom(QueryProfile that) {
+        query.clear();
+        query.put(that.query);
+        timestamp = that.timestamp;
+        startNanos = that.startNanos;
+        totalNanos = that.totalNanos;
+        cpuNanos = that.cpuNanos;
+        parseNanos = that.parseNanos;
+        optimiseNanos = that.optimiseNanos;
+        codeGenNanos = that.codeGenNanos;
+        executeNanos = that.executeNanos;
+        serializeNanos = that.serializeNanos;
+        rowsScanned = that.rowsScanned;
+        framesScanned = that.framesScanned;
+        rowsReturned = that.rowsReturned;
+        bytesSent = that.bytesSent;
+        memUsedPeak = that.memUsedPeak;
+        running = that.running;
+        complete = that.complete;
+        aborted = that.aborted;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getCodeGenNanos() {
+        return codeGenNanos;
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    public long getExecuteNanos() {
+        return executeNanos;
+    }
+
+    public long getFramesScanned() {
+        return framesScanned;
+    }
+
+    public long getMemUsedPeak() {
+        return memUsedPeak;
+    }
+
+    public long getOptimiseNanos() {
+        return optimiseNanos;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public CharSequence getQuery() {
+        return query;
+    }
+
+    public long getRowsReturned() {
+        return rowsReturned;
+    }
+
+    public void setRowsReturned(long rowsReturned) {
+        this.rowsReturned = rowsReturned;
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public long getSerializeNanos() {
+        return serializeNanos;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return true when query was closed before its results were sent in full, e.g. it failed or was cancelled
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * @return true when profile has been added to query log and is yet to be restarted for next execution
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return true when profile has been started and is yet to be added to query log
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void sampleMemUsed() {
+        memUsedPeak = Math.max(memUsedPeak, Unsafe.getMemUsed());
+    }
+
+    void abort() {
+        aborted = true;
+    }
+
+    void complete(long endNanos) {
+        totalNanos = endNanos - startNanos;
+        sampleMemUsed();
+        running = false;
+        complete = true;
+    }
+
+    void of(CharSequence query, long timestamp, long startNanos, boolean cpuEnabled) {
+        clear();
+        this.cpuEnabled = cpuEnabled;
+        this.query.put(query);
+        this.timestamp = timestamp;
+        this.startNanos = startNanos;
+        this.running = true;
+        sampleMemUsed();
+    }
+}
@@ -28,7 +28,9 @@ import io.questdb.cairo.*;
 import io.questdb.cairo.map.RecordValueSink;
 import io.questdb.cairo.map.RecordValueSinkFactory;
 import io.questdb.cairo.sql.*;
+import io.questdb.griffin.engine.AnalyzeRecordCursorFactory;
 import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
+import io.questdb.griffin.engine.ExplainRecordCursorFactory;
 import io.questdb.griffin.engine.LimitRecordCursorFactory;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
@@ -49,6 +51,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import static io.questdb.griffin.SqlKeywords.*;
+import static io.questdb.griffin.model.ExpressionNode.CONSTANT;
 import static io.questdb.griffin.model.ExpressionNode.FUNCTION;
 import static io.questdb.griffin.model.ExpressionNode.LITERAL;
 
@@ -65,6 +68,10 @@ public class SqlCodeGenerator implements Mutable {
     private static final IntObjHashMap<VectorAggregateFunctionConstructor> avgConstructors = new IntObjHashMap<>();
     private static final IntObjHashMap<VectorAggregateFunctionConstructor> minConstructors = new IntObjHashMap<>();
     private static final IntObjHashMap<VectorAggregateFunctionConstructor> maxConstructors = new IntObjHashMap<>();
+    private static final IntObjHashMap<VectorAggregateFunctionConstructor> countConstructors = new IntObjHashMap<>();
+    private static final IntObjHashMap<VectorAggregateFunctionConstructor> firstConstructors = new IntObjHashMap<>();
+    private static final IntObjHashMap<VectorAggregateFunctionConstructor> lastConstructors = new IntObjHashMap<>();
+    private static final IntObjHashMap<VectorAggregateFunctionConstructor> approxCountDistinctConstructors = new IntObjHashMap<>();
     private static final SetRecordCursorFactoryConstructor SET_UNION_CONSTRUCTOR = UnionRecordCursorFactory::new;
     private static final SetRecordCursorFactoryConstructor SET_INTERSECT_CONSTRUCTOR = IntersectRecordCursorFactory::new;
     private static final SetRecordCursorFactoryConstructor SET_EXCEPT_CONSTRUCTOR = ExceptRecordCursorFactory::new;
@@ -83,6 +90,7 @@ public class SqlCodeGenerator implements Mutable {
     private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
     private final ObjList<CharSequence> symbolValueList = new ObjList<>();
     private final ObjList<VectorAggregateFunction> tempVaf = new ObjList<>();
+    private final ObjList<KeyedVectorAggregateFunction> tempKeyedVaf = new ObjList<>();
     private final GenericRecordMetadata tempMetadata = new GenericRecordMetadata();
     private final ArrayColumnTypes arrayColumnTypes = new ArrayColumnTypes();
     private final IntList tempKeyIndexesInBase = new IntList();
@@ -92,7 +100,9 @@ public class SqlCodeGenerator implements Mutable {
     private final ObjList<VectorAggregateFunctionConstructor> tempVecConstructors = new ObjList<>();
     private final IntList tempVecConstructorArgIndexes = new IntList();
     private final IntList tempKeyKinds = new IntList();
+    private final ObjList<AnalyzeRecordCursorFactory> analyzeFactories = new ObjList<>();
     private boolean fullFatJoins = false;
+    private boolean explain = false;
 
     public SqlCodeGenerator(
             CairoEngine engine,
@@ -180,6 +190,45 @@ public class SqlCodeGenerator implements Mutable {
             columnIndex = metadata.getColumnIndex(ast.rhs.token);
             tempVecConstructorArgIndexes.add(columnIndex);
             return maxConstructors.get(metadata.getColumnType(columnIndex));
+        } else if (isSingleColumnFunction(ast, "count")) {
+            columnIndex = metadata.getColumnIndex(ast.rhs.token);
+            tempVecConstructorArgIndexes.add(columnIndex);
+            return countConstructors.get(metadata.getColumnType(columnIndex));
+        } else if (isSingleColumnFunction(ast, "first")) {
+            columnIndex = metadata.getColumnIndex(ast.rhs.token);
+            tempVecConstructorArgIndexes.add(columnIndex);
+            return firstConstructors.get(metadata.getColumnType(columnIndex));
+        } else if (isSingleColumnFunction(ast, "last")) {
+            columnIndex = metadata.getColumnIndex(ast.rhs.token);
+            tempVecConstructorArgIndexes.add(columnIndex);
+            return lastConstructors.get(metadata.getColumnType(columnIndex));
+        } else if (isSingleColumnFunction(ast, "approx_count_distinct")) {
+            columnIndex = metadata.getColumnIndex(ast.rhs.token);
+            tempVecConstructorArgIndexes.add(columnIndex);
+            return approxCountDistinctConstructors.get(metadata.getColumnType(columnIndex));
+        } else if (
+                ast.type == FUNCTION
+                        && ast.paramCount == 2
+                        && Chars.equals(ast.token, "approx_percentile")
+                        && ast.lhs.type == LITERAL
+                        && ast.rhs.type == CONSTANT
+        ) {
+            columnIndex = metadata.getColumnIndex(ast.lhs.token);
+            if (metadata.getColumnType(columnIndex) != ColumnType.DOUBLE) {
+                return null;
+            }
+            final double percentile;
+            try {
+                percentile = Numbers.parseDouble(ast.rhs.token);
+            } catch (NumericException e) {
+                return null;
+            }
+            // out of range percentile is reported by row-by-row function factory
+            if (percentile < 0 || percentile > 1) {
+                return null;
+            }
+            tempVecConstructorArgIndexes.add(columnIndex);
+            return (position, keyKind, index, workerCount) -> new ApproxPercentileDoubleVectorAggregateFunction(position, index, workerCount, percentile);
         }
         return null;
     }
@@ -190,6 +239,7 @@ public class SqlCodeGenerator implements Mutable {
             boolean checkLiterals
     ) {
         tempVaf.clear();
+        tempKeyedVaf.clear();
         tempMetadata.clear();
         tempSymbolSkewIndexes.clear();
         tempVecConstructors.clear();
@@ -264,6 +314,24 @@ public class SqlCodeGenerator implements Mutable {
         );
     }
 
+    private RecordCursorFactory createSeekJoin(
+            RecordMetadata metadata,
+            RecordCursorFactory master,
+            RecordCursorFactory slave,
+            int columnSplit,
+            boolean strict
+    ) {
+        return new AsOfJoinSeekRecordCursorFactory(
+                metadata,
+                master,
+                (TableReaderRecordCursorFactory) unwrapAnalyze(slave),
+                columnSplit,
+                listColumnFilterB.size() > 0 ? listColumnFilterB.getColumnIndex(0) : -1,
+                listColumnFilterA.size() > 0 ? listColumnFilterA.getColumnIndex(0) : -1,
+                strict
+        );
+    }
+
     @NotNull
     private RecordCursorFactory createFullFatJoin(
             RecordCursorFactory master,
@@ -394,7 +462,8 @@ public class SqlCodeGenerator implements Mutable {
             RecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
-            int joinType
+            int joinType,
+            long slaveRowCount
     ) {
         /*
          * JoinContext provides the following information:
@@ -427,7 +496,9 @@ public class SqlCodeGenerator implements Mutable {
         valueTypes.add(ColumnType.LONG);
         valueTypes.add(ColumnType.LONG);
 
-        if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
+        // slave that is estimated to be small is copied into hash join rather than accessed by row id
+        final boolean materializeSlave = slaveRowCount > -1 && slaveRowCount <= configuration.getSqlHashJoinMaterializeRowThreshold();
+        if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins && !materializeSlave) {
             if (joinType == QueryModel.JOIN_INNER) {
                 return new HashJoinLightRecordCursorFactory(
                         configuration,
@@ -587,6 +658,35 @@ public class SqlCodeGenerator implements Mutable {
         return generateQuery(model, executionContext, true);
     }
 
+    RecordCursorFactory generateExplain(QueryModel model, SqlExecutionContext executionContext, boolean analyze) throws SqlException {
+        analyzeFactories.clear();
+        explain = true;
+        try {
+            final RecordCursorFactory factory = generateQuery(model, executionContext, true);
+            final ObjList<AnalyzeRecordCursorFactory> factories = new ObjList<>(analyzeFactories.size());
+            factories.addAll(analyzeFactories);
+            return new ExplainRecordCursorFactory(factory, factories, analyze);
+        } finally {
+            explain = false;
+            analyzeFactories.clear();
+        }
+    }
+
+    // In EXPLAIN mode every new factory of the plan is wrapped to report its statistics;
+    // factories that are returned unchanged by code generation stage are not wrapped twice.
+    private RecordCursorFactory generateAnalyze(RecordCursorFactory factory, RecordCursorFactory base, long estimatedRowCount) {
+        if (!explain || factory == base || factory instanceof AnalyzeRecordCursorFactory) {
+            return factory;
+        }
+        final AnalyzeRecordCursorFactory analyzeFactory = new AnalyzeRecordCursorFactory(
+                factory,
+                estimatedRowCount,
+                configuration.getNanosecondClock()
+        );
+        analyzeFactories.add(analyzeFactory);
+        return analyzeFactory;
+    }
+
     private RecordCursorFactory generateFilter(RecordCursorFactory factory, QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         final ExpressionNode filter = model.getWhereClause();
         return filter == null ? factory : generateFilter0(factory, model, executionContext, filter);
@@ -661,9 +761,17 @@ public class SqlCodeGenerator implements Mutable {
                             break;
                         case QueryModel.JOIN_ASOF:
                             validateBothTimestamps(slaveModel, masterMetadata, slaveMetadata);
-                            processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
+                            processJoinContext(i == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
                             if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
-                                if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
+                                if (isSeekJoinSupported(slave)) {
+                                    master = createSeekJoin(
+                                            createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                            master,
+                                            slave,
+                                            masterMetadata.getColumnCount(),
+                                            false
+                                    );
+                                } else if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
                                     master = createAsOfJoin(
                                             createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                             master,
@@ -706,9 +814,17 @@ public class SqlCodeGenerator implements Mutable {
                             break;
                         case QueryModel.JOIN_LT:
                             validateBothTimestamps(slaveModel, masterMetadata, slaveMetadata);
-                            processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
+                            processJoinContext(i == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
                             if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
-                                if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
+                                if (isSeekJoinSupported(slave)) {
+                                    master = createSeekJoin(
+                                            createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                            master,
+                                            slave,
+                                            masterMetadata.getColumnCount(),
+                                            true
+                                    );
+                                } else if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
                                     master = createLtJoin(
                                             createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                             master,
@@ -751,7 +867,7 @@ public class SqlCodeGenerator implements Mutable {
                             break;
                         case QueryModel.JOIN_SPLICE:
                             validateBothTimestamps(slaveModel, masterMetadata, slaveMetadata);
-                            processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
+                            processJoinContext(i == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
                             if (slave.recordCursorSupportsRandomAccess() && master.recordCursorSupportsRandomAccess() && !fullFatJoins) {
                                 master = createSpliceJoin(
                                         // splice join result does not have timestamp
@@ -777,22 +893,29 @@ public class SqlCodeGenerator implements Mutable {
                             }
                             break;
                         default:
-                            processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
+                            processJoinContext(i == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
                             master = createHashJoin(
                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                     master,
                                     slave,
-                                    joinType
+                                    joinType,
+                                    slaveModel.getEstimatedRowCount()
                             );
                             masterAlias = null;
                             break;
                     }
                 }
 
+                if (i > 0) {
+                    master = generateAnalyze(master, null, -1);
+                }
+
                 // check if there are post-filters
                 ExpressionNode filter = slaveModel.getPostJoinWhereClause();
                 if (filter != null) {
+                    final RecordCursorFactory joinFactory = master;
                     master = new FilteredRecordCursorFactory(master, functionParser.parseFunction(filter, master.getMetadata(), executionContext));
+                    master = generateAnalyze(master, joinFactory, -1);
                 }
             }
 
@@ -1137,28 +1260,20 @@ public class SqlCodeGenerator implements Mutable {
     private RecordCursorFactory generateQuery(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         RecordCursorFactory factory = generateQuery0(model, executionContext, processJoins);
         if (model.getUnionModel() != null) {
-            return generateSetFactory(model, factory, executionContext);
+            return generateAnalyze(generateSetFactory(model, factory, executionContext), factory, -1);
         }
         return factory;
     }
 
     private RecordCursorFactory generateQuery0(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
-        return generateLimit(
-                generateOrderBy(
-                        generateFilter(
-                                generateSelect(
-                                        model,
-                                        executionContext,
-                                        processJoins
-                                ),
-                                model,
-                                executionContext
-                        ),
-                        model
-                ),
-                model,
-                executionContext
+        RecordCursorFactory factory = generateAnalyze(
+                generateSelect(model, executionContext, processJoins),
+                null,
+                model.getEstimatedRowCount()
         );
+        factory = generateAnalyze(generateFilter(factory, model, executionContext), factory, -1);
+        factory = generateAnalyze(generateOrderBy(factory, model), factory, -1);
+        return generateAnalyze(generateLimit(factory, model, executionContext), factory, -1);
     }
 
     @NotNull
@@ -1647,9 +1762,9 @@ public class SqlCodeGenerator implements Mutable {
                     );
                 }
 
-                if (tempKeyIndexesInBase.size() == 1) {
-                    for (int i = 0, n = tempVaf.size(); i < n; i++) {
-                        tempVaf.getQuick(i).pushValueTypes(arrayColumnTypes);
+                if (tempKeyIndexesInBase.size() == 1 && collectKeyedVectorAggregateFunctions()) {
+                    for (int i = 0, n = tempKeyedVaf.size(); i < n; i++) {
+                        tempKeyedVaf.getQuick(i).pushValueTypes(arrayColumnTypes);
                     }
 
                     GroupByUtils.validateGroupByColumns(model, model.getColumns(), 1);
@@ -1660,12 +1775,17 @@ public class SqlCodeGenerator implements Mutable {
                             meta,
                             arrayColumnTypes,
                             executionContext.getWorkerCount(),
-                            tempVaf,
+                            tempKeyedVaf,
                             tempKeyIndexesInBase.getQuick(0),
                             tempKeyIndex.getQuick(0),
                             tempSymbolSkewIndexes
                     );
                 }
+
+                // release functions we created but could not use
+                Misc.freeObjList(tempVaf);
+                tempVaf.clear();
+                tempKeyedVaf.clear();
             }
 
             if (specialCaseKeys) {
@@ -2311,6 +2431,19 @@ public class SqlCodeGenerator implements Mutable {
         return true;
     }
 
+    // keyed vector aggregation is only possible when all functions have keyed implementation
+    private boolean collectKeyedVectorAggregateFunctions() {
+        tempKeyedVaf.clear();
+        for (int i = 0, n = tempVaf.size(); i < n; i++) {
+            final VectorAggregateFunction vaf = tempVaf.getQuick(i);
+            if (!(vaf instanceof KeyedVectorAggregateFunction)) {
+                return false;
+            }
+            tempKeyedVaf.add((KeyedVectorAggregateFunction) vaf);
+        }
+        return true;
+    }
+
     private boolean isSingleColumnFunction(ExpressionNode ast, CharSequence name) {
         return ast.type == FUNCTION && ast.paramCount == 1 && Chars.equals(ast.token, name) && ast.rhs.type == LITERAL;
     }
@@ -2337,6 +2470,32 @@ public class SqlCodeGenerator implements Mutable {
         }
     }
 
+    // Slave that reads entire table can be searched by timestamp instead of being scanned. When join is keyed,
+    // the key has to be single indexed symbol, which is walked backwards via bitmap index.
+    private boolean isSeekJoinSupported(RecordCursorFactory slave) {
+        if (!(unwrapAnalyze(slave) instanceof TableReaderRecordCursorFactory)) {
+            return false;
+        }
+        final int keyCount = listColumnFilterA.getColumnCount();
+        if (keyCount == 0 && listColumnFilterB.getColumnCount() == 0) {
+            return true;
+        }
+        if (keyCount == 1) {
+            final RecordMetadata slaveMetadata = slave.getMetadata();
+            final int slaveKeyIndex = listColumnFilterA.getColumnIndex(0);
+            return slaveMetadata.getColumnType(slaveKeyIndex) == ColumnType.SYMBOL && slaveMetadata.isColumnIndexed(slaveKeyIndex);
+        }
+        return false;
+    }
+
+    // analyze wrapper owns no resources, it is safe to drop it when factory is used directly
+    private static RecordCursorFactory unwrapAnalyze(RecordCursorFactory factory) {
+        if (factory instanceof AnalyzeRecordCursorFactory) {
+            return ((AnalyzeRecordCursorFactory) factory).getBase();
+        }
+        return factory;
+    }
+
     private void processJoinContext(boolean vanillaMaster, JoinContext jc, RecordMetadata masterMetadata, RecordMetadata slaveMetadata) throws SqlException {
         lookupColumnIndexesUsingVanillaNames(listColumnFilterA, jc.aNames, slaveMetadata);
         if (vanillaMaster) {
@@ -2461,5 +2620,30 @@ public class SqlCodeGenerator implements Mutable {
         maxConstructors.put(ColumnType.DATE, MaxDateVectorAggregateFunction::new);
         maxConstructors.put(ColumnType.TIMESTAMP, MaxTimestampVectorAggregateFunction::new);
         maxConstructors.put(ColumnType.INT, MaxIntVectorAggregateFunction::new);
+
+        // functions below are implemented for non-keyed aggregation only
+        sumConstructors.put(ColumnType.SHORT, SumShortVectorAggregateFunction::new);
+        sumConstructors.put(ColumnType.BYTE, SumByteVectorAggregateFunction::new);
+        sumConstructors.put(ColumnType.FLOAT, SumFloatVectorAggregateFunction::new);
+
+        minConstructors.put(ColumnType.SHORT, MinShortVectorAggregateFunction::new);
+        minConstructors.put(ColumnType.BYTE, MinByteVectorAggregateFunction::new);
+        minConstructors.put(ColumnType.FLOAT, MinFloatVectorAggregateFunction::new);
+
+        countConstructors.put(ColumnType.SYMBOL, CountSymbolVectorAggregateFunction::new);
+
+        firstConstructors.put(ColumnType.DOUBLE, FirstDoubleVectorAggregateFunction::new);
+        firstConstructors.put(ColumnType.LONG, FirstLongVectorAggregateFunction::new);
+        firstConstructors.put(ColumnType.INT, FirstIntVectorAggregateFunction::new);
+        firstConstructors.put(ColumnType.TIMESTAMP, FirstTimestampVectorAggregateFunction::new);
+
+        lastConstructors.put(ColumnType.DOUBLE, LastDoubleVectorAggregateFunction::new);
+        lastConstructors.put(ColumnType.LONG, LastLongVectorAggregateFunction::new);
+        lastConstructors.put(ColumnType.INT, LastIntVectorAggregateFunction::new);
+        lastConstructors.put(ColumnType.TIMESTAMP, LastTimestampVectorAggregateFunction::new);
+
+        approxCountDistinctConstructors.put(ColumnType.LONG, ApproxCountDistinctLongVectorAggregateFunction::new);
+        approxCountDistinctConstructors.put(ColumnType.INT, ApproxCountDistinctIntVectorAggregateFunction::new);
+        approxCountDistinctConstructors.put(ColumnType.SYMBOL, ApproxCountDistinctIntVectorAggregateFunction::new);
     }
 }
@@ -28,6 +28,7 @@ import io.questdb.MessageBus;
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.*;
 import io.questdb.cutlass.text.Atomicity;
+import io.questdb.cutlass.text.ParallelTextLoader;
 import io.questdb.cutlass.text.TextException;
 import io.questdb.cutlass.text.TextLoader;
 import io.questdb.griffin.engine.functions.catalogue.ShowStandardConformingStringsCursorFactory;
@@ -99,23 +100,28 @@ public class SqlCompiler implements Closeable {
     private final IntIntHashMap typeCast = new IntIntHashMap();
     private final ObjList<TableWriter> tableWriters = new ObjList<>();
     private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
+    private final PageFrameCopier pageFrameCopier;
     private final FunctionParser functionParser;
     private final CharSequenceObjHashMap<KeywordBasedExecutor> keywordBasedExecutors = new CharSequenceObjHashMap<>();
     private final CompiledQueryImpl compiledQuery = new CompiledQueryImpl();
     private final ExecutableMethod insertAsSelectMethod = this::insertAsSelect;
     private final ExecutableMethod createTableMethod = this::createTable;
     private final TextLoader textLoader;
+    private final ParallelTextLoader parallelTextLoader;
     private final FilesFacade ff;
     private final ObjHashSet<CharSequence> tableNames = new ObjHashSet<>();
     private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
     private final CharSequenceObjHashMap<RecordToRowCopier> tableBackupRowCopieCache = new CharSequenceObjHashMap<>();
+    private final TableBackup tableBackup;
+    private final NanosecondClock nanosecondClock;
     private transient SqlExecutionContext currentExecutionContext;
+    private transient boolean currentBackupIncremental;
     private transient String cachedTmpBackupRoot;
     private final FindVisitor sqlDatabaseBackupOnFind = (file, type) -> {
         nativeLPSZ.of(file);
         if (type == Files.DT_DIR && nativeLPSZ.charAt(0) != '.') {
             try {
-                backupTable(nativeLPSZ, currentExecutionContext);
+                backupTable(nativeLPSZ, currentExecutionContext, currentBackupIncremental);
             } catch (CairoException ex) {
                 LOG.error()
                         .$("could not backup [path=").$(nativeLPSZ)
@@ -135,6 +141,9 @@ public class SqlCompiler implements Closeable {
         this.configuration = engine.getConfiguration();
         this.ff = configuration.getFilesFacade();
         this.messageBus = messageBus;
+        this.pageFrameCopier = new PageFrameCopier(messageBus);
+        this.tableBackup = new TableBackup(configuration, messageBus);
+        this.nanosecondClock = configuration.getNanosecondClock();
         this.sqlNodePool = new ObjectPool<>(ExpressionNode.FACTORY, configuration.getSqlExpressionPoolCapacity());
         this.queryColumnPool = new ObjectPool<>(QueryColumn.FACTORY, configuration.getSqlColumnPoolCapacity());
         this.queryModelPool = new ObjectPool<>(QueryModel.FACTORY, configuration.getSqlModelPoolCapacity());
@@ -171,6 +180,10 @@ public class SqlCompiler implements Closeable {
         keywordBasedExecutors.put("BACKUP", this::sqlBackup);
         keywordBasedExecutors.put("show", this::sqlShow);
         keywordBasedExecutors.put("SHOW", this::sqlShow);
+        keywordBasedExecutors.put("explain", this::compileExplain);
+        keywordBasedExecutors.put("EXPLAIN", this::compileExplain);
+        keywordBasedExecutors.put("create", this::compileCreate);
+        keywordBasedExecutors.put("CREATE", this::compileCreate);
 
         configureLexer(lexer);
 
@@ -198,6 +211,7 @@ public class SqlCompiler implements Closeable {
         );
 
         this.textLoader = new TextLoader(engine);
+        this.parallelTextLoader = new ParallelTextLoader(engine);
     }
 
     public static void configureLexer(GenericLexer lexer) {
@@ -250,24 +264,24 @@ public class SqlCompiler implements Closeable {
         int rGetStr = asm.poolInterfaceMethod(Record.class, "getStr", "(I)Ljava/lang/CharSequence;");
         int rGetBin = asm.poolInterfaceMethod(Record.class, "getBin", "(I)Lio/questdb/std/BinarySequence;");
         //
-        int wPutInt = asm.poolMethod(TableWriter.Row.class, "putInt", "(II)V");
-        int wPutLong = asm.poolMethod(TableWriter.Row.class, "putLong", "(IJ)V");
-        int wPutLong256 = asm.poolMethod(TableWriter.Row.class, "putLong256", "(ILio/questdb/std/Long256;)V");
-        int wPutDate = asm.poolMethod(TableWriter.Row.class, "putDate", "(IJ)V");
-        int wPutTimestamp = asm.poolMethod(TableWriter.Row.class, "putTimestamp", "(IJ)V");
+        int wPutInt = asm.poolInterfaceMethod(TableWriter.Row.class, "putInt", "(II)V");
+        int wPutLong = asm.poolInterfaceMethod(TableWriter.Row.class, "putLong", "(IJ)V");
+        int wPutLong256 = asm.poolInterfaceMethod(TableWriter.Row.class, "putLong256", "(ILio/questdb/std/Long256;)V");
+        int wPutDate = asm.poolInterfaceMethod(TableWriter.Row.class, "putDate", "(IJ)V");
+        int wPutTimestamp = asm.poolInterfaceMethod(TableWriter.Row.class, "putTimestamp", "(IJ)V");
         //
-        int wPutByte = asm.poolMethod(TableWriter.Row.class, "putByte", "(IB)V");
-        int wPutShort = asm.poolMethod(TableWriter.Row.class, "putShort", "(IS)V");
-        int wPutBool = asm.poolMethod(TableWriter.Row.class, "putBool", "(IZ)V");
-        int wPutFloat = asm.poolMethod(TableWriter.Row.class, "putFloat", "(IF)V");
-        int wPutDouble = asm.poolMethod(TableWriter.Row.class, "putDouble", "(ID)V");
-        int wPutSym = asm.poolMethod(TableWriter.Row.class, "putSym", "(ILjava/lang/CharSequence;)V");
-        int wPutSymChar = asm.poolMethod(TableWriter.Row.class, "putSym", "(IC)V");
-        int wPutStr = asm.poolMethod(TableWriter.Row.class, "putStr", "(ILjava/lang/CharSequence;)V");
-        int wPutTimestampStr = asm.poolMethod(TableWriter.Row.class, "putTimestamp", "(ILjava/lang/CharSequence;)V");
-        int wPutStrChar = asm.poolMethod(TableWriter.Row.class, "putStr", "(IC)V");
-        int wPutChar = asm.poolMethod(TableWriter.Row.class, "putChar", "(IC)V");
-        int wPutBin = asm.poolMethod(TableWriter.Row.class, "putBin", "(ILio/questdb/std/BinarySequence;)V");
+        int wPutByte = asm.poolInterfaceMethod(TableWriter.Row.class, "putByte", "(IB)V");
+        int wPutShort = asm.poolInterfaceMethod(TableWriter.Row.class, "putShort", "(IS)V");
+        int wPutBool = asm.poolInterfaceMethod(TableWriter.Row.class, "putBool", "(IZ)V");
+        int wPutFloat = asm.poolInterfaceMethod(TableWriter.Row.class, "putFloat", "(IF)V");
+        int wPutDouble = asm.poolInterfaceMethod(TableWriter.Row.class, "putDouble", "(ID)V");
+        int wPutSym = asm.poolInterfaceMethod(TableWriter.Row.class, "putSym", "(ILjava/lang/CharSequence;)V");
+        int wPutSymChar = asm.poolInterfaceMethod(TableWriter.Row.class, "putSym", "(IC)V");
+        int wPutStr = asm.poolInterfaceMethod(TableWriter.Row.class, "putStr", "(ILjava/lang/CharSequence;)V");
+        int wPutTimestampStr = asm.poolInterfaceMethod(TableWriter.Row.class, "putTimestamp", "(ILjava/lang/CharSequence;)V");
+        int wPutStrChar = asm.poolInterfaceMethod(TableWriter.Row.class, "putStr", "(IC)V");
+        int wPutChar = asm.poolInterfaceMethod(TableWriter.Row.class, "putChar", "(IC)V");
+        int wPutBin = asm.poolInterfaceMethod(TableWriter.Row.class, "putBin", "(ILio/questdb/std/BinarySequence;)V");
 
         int copyNameIndex = asm.poolUtf8("copy");
         int copySigIndex = asm.poolUtf8("(Lio/questdb/cairo/sql/Record;Lio/questdb/cairo/TableWriter$Row;)V");
@@ -304,34 +318,34 @@ public class SqlCompiler implements Closeable {
                     switch (to.getColumnType(toColumnIndex)) {
                         case ColumnType.LONG:
                             asm.i2l();
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.DATE:
                             asm.i2l();
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
                             asm.i2l();
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.i2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.i2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                     }
                     break;
@@ -340,34 +354,34 @@ public class SqlCompiler implements Closeable {
                     switch (to.getColumnType(toColumnIndex)) {
                         case ColumnType.INT:
                             asm.l2i();
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.DATE:
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.l2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.l2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.l2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.l2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                     }
                     break;
@@ -376,34 +390,34 @@ public class SqlCompiler implements Closeable {
                     switch (to.getColumnType(toColumnIndex)) {
                         case ColumnType.INT:
                             asm.l2i();
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.TIMESTAMP:
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.l2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.l2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.l2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.l2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                     }
                     break;
@@ -412,34 +426,34 @@ public class SqlCompiler implements Closeable {
                     switch (to.getColumnType(toColumnIndex)) {
                         case ColumnType.INT:
                             asm.l2i();
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.l2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.l2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.l2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.l2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         case ColumnType.DATE:
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                     }
                     break;
@@ -447,34 +461,34 @@ public class SqlCompiler implements Closeable {
                     asm.invokeInterface(rGetByte, 1);
                     switch (to.getColumnType(toColumnIndex)) {
                         case ColumnType.INT:
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
                             asm.i2l();
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.DATE:
                             asm.i2l();
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
                             asm.i2l();
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.i2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.i2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                     }
                     break;
@@ -482,76 +496,76 @@ public class SqlCompiler implements Closeable {
                     asm.invokeInterface(rGetShort, 1);
                     switch (to.getColumnType(toColumnIndex)) {
                         case ColumnType.INT:
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
                             asm.i2l();
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.DATE:
                             asm.i2l();
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
                             asm.i2l();
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.BYTE:
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.i2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.i2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                     }
                     break;
                 case ColumnType.BOOLEAN:
                     asm.invokeInterface(rGetBool, 1);
-                    asm.invokeVirtual(wPutBool);
+                    asm.invokeInterface(wPutBool, 2);
                     break;
                 case ColumnType.FLOAT:
                     asm.invokeInterface(rGetFloat, 1);
                     switch (to.getColumnType(toColumnIndex)) {
                         case ColumnType.INT:
                             asm.f2i();
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
                             asm.f2l();
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.DATE:
                             asm.f2l();
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
                             asm.f2l();
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.f2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.f2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.f2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                     }
                     break;
@@ -560,36 +574,36 @@ public class SqlCompiler implements Closeable {
                     switch (to.getColumnType(toColumnIndex)) {
                         case ColumnType.INT:
                             asm.d2i();
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
                             asm.d2l();
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.DATE:
                             asm.d2l();
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
                             asm.d2l();
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.d2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.d2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.d2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         default:
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                     }
                     break;
@@ -597,45 +611,45 @@ public class SqlCompiler implements Closeable {
                     asm.invokeInterface(rGetChar, 1);
                     switch (to.getColumnType(toColumnIndex)) {
                         case ColumnType.STRING:
-                            asm.invokeVirtual(wPutStrChar);
+                            asm.invokeInterface(wPutStrChar, 2);
                             break;
                         case ColumnType.SYMBOL:
-                            asm.invokeVirtual(wPutSymChar);
+                            asm.invokeInterface(wPutSymChar, 2);
                             break;
                         default:
-                            asm.invokeVirtual(wPutChar);
+                            asm.invokeInterface(wPutChar, 2);
                             break;
                     }
                     break;
                 case ColumnType.SYMBOL:
                     asm.invokeInterface(rGetSym, 1);
                     if (to.getColumnType(toColumnIndex) == ColumnType.STRING) {
-                        asm.invokeVirtual(wPutStr);
+                        asm.invokeInterface(wPutStr, 2);
                     } else {
-                        asm.invokeVirtual(wPutSym);
+                        asm.invokeInterface(wPutSym, 2);
                     }
                     break;
                 case ColumnType.STRING:
                     asm.invokeInterface(rGetStr, 1);
                     switch (to.getColumnType(toColumnIndex)) {
                         case ColumnType.SYMBOL:
-                            asm.invokeVirtual(wPutSym);
+                            asm.invokeInterface(wPutSym, 2);
                             break;
                         case ColumnType.TIMESTAMP:
-                            asm.invokeVirtual(wPutTimestampStr);
+                            asm.invokeInterface(wPutTimestampStr, 2);
                             break;
                         default:
-                            asm.invokeVirtual(wPutStr);
+                            asm.invokeInterface(wPutStr, 2);
                             break;
                     }
                     break;
                 case ColumnType.BINARY:
                     asm.invokeInterface(rGetBin, 1);
-                    asm.invokeVirtual(wPutBin);
+                    asm.invokeInterface(wPutBin, 2);
                     break;
                 case ColumnType.LONG256:
                     asm.invokeInterface(rGetLong256, 1);
-                    asm.invokeVirtual(wPutLong256);
+                    asm.invokeInterface(wPutLong256, 2);
                     break;
                 default:
                     break;
@@ -688,6 +702,47 @@ public class SqlCompiler implements Closeable {
         return tok;
     }
 
+    /**
+     * Appends rows of select query to the writer without committing them, so that caller can publish
+     * appended rows together with other changes it made in the same transaction. Query columns are
+     * matched to table columns by position.
+     */
+    void appendQueryResult(TableWriter writer, CharSequence query, SqlExecutionContext executionContext) throws SqlException {
+        final CompiledQuery cq = compile(query, executionContext);
+        if (cq.getType() != CompiledQuery.SELECT) {
+            throw SqlException.$(0, "select query expected");
+        }
+
+        try (RecordCursorFactory factory = cq.getRecordCursorFactory()) {
+            final RecordMetadata cursorMetadata = factory.getMetadata();
+            final RecordMetadata writerMetadata = writer.getMetadata();
+            final int n = writerMetadata.getColumnCount();
+            if (n > cursorMetadata.getColumnCount()) {
+                throw SqlException.$(0, "not enough columns selected");
+            }
+
+            for (int i = 0; i < n; i++) {
+                final int fromType = cursorMetadata.getColumnType(i);
+                final int toType = writerMetadata.getColumnType(i);
+                if (!isAssignableFrom(toType, fromType)) {
+                    throw SqlException.inconvertibleTypes(0, fromType, cursorMetadata.getColumnName(i), toType, writerMetadata.getColumnName(i));
+                }
+            }
+
+            entityColumnFilter.of(n);
+            final RecordToRowCopier copier = assembleRecordToRowCopier(asm, cursorMetadata, writerMetadata, entityColumnFilter);
+            final int timestampIndex = writerMetadata.getTimestampIndex();
+            try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                final Record record = cursor.getRecord();
+                while (cursor.hasNext()) {
+                    final TableWriter.Row row = timestampIndex == -1 ? writer.newRow() : writer.newRow(record.getTimestamp(timestampIndex));
+                    copier.copy(record, row);
+                    row.append();
+                }
+            }
+        }
+    }
+
     @Override
     public void close() {
         assert null == currentExecutionContext;
@@ -695,6 +750,9 @@ public class SqlCompiler implements Closeable {
         Misc.free(path);
         Misc.free(renamePath);
         Misc.free(textLoader);
+        Misc.free(parallelTextLoader);
+        Misc.free(pageFrameCopier);
+        Misc.free(tableBackup);
     }
 
     @NotNull
@@ -713,7 +771,13 @@ public class SqlCompiler implements Closeable {
 
         final KeywordBasedExecutor executor = keywordBasedExecutors.get(tok);
         if (executor == null) {
-            return compileUsingModel(executionContext);
+            final QueryProfile profile = executionContext.getQueryProfile();
+            profile.startCpu();
+            try {
+                return compileUsingModel(executionContext);
+            } finally {
+                profile.stopCpu();
+            }
         }
         return executor.execute(executionContext);
     }
@@ -792,8 +856,15 @@ public class SqlCompiler implements Closeable {
                         final CharSequence columnName = GenericLexer.immutableOf(tok);
                         tok = expectToken(lexer, "'add index' or 'cache' or 'nocache'");
                         if (SqlKeywords.isAddKeyword(tok)) {
-                            expectKeyword(lexer, "index");
-                            alterTableColumnAddIndex(tableNamePosition, columnNameNamePosition, columnName, writer);
+                            tok = expectToken(lexer, "'index' or 'latest'");
+                            if (SqlKeywords.isIndexKeyword(tok)) {
+                                alterTableColumnAddIndex(tableNamePosition, columnNameNamePosition, columnName, writer);
+                            } else if (SqlKeywords.isLatestKeyword(tok)) {
+                                expectKeyword(lexer, "cache");
+                                alterTableColumnAddLatestCache(tableNamePosition, columnNameNamePosition, columnName, writer);
+                            } else {
+                                throw SqlException.$(lexer.lastTokenPosition(), "'index' or 'latest' expected");
+                            }
                         } else {
                             if (SqlKeywords.isCacheKeyword(tok)) {
                                 alterTableColumnCacheFlag(tableNamePosition, columnName, writer, true);
@@ -977,6 +1048,18 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private void alterTableColumnAddLatestCache(int tableNamePosition, int columnNamePosition, CharSequence columnName, TableWriter w) throws SqlException {
+        try {
+            if (w.getMetadata().getColumnIndexQuiet(columnName) == -1) {
+                throw SqlException.invalidColumn(columnNamePosition, columnName);
+            }
+            w.addLatestRowCache(columnName);
+        } catch (CairoException e) {
+            throw SqlException.position(tableNamePosition).put(e.getFlyweightMessage())
+                    .put("[errno=").put(e.getErrno()).put(']');
+        }
+    }
+
     private void alterTableColumnCacheFlag(int tableNamePosition, CharSequence columnName, TableWriter writer, boolean cache) throws SqlException {
         try {
             RecordMetadata metadata = writer.getMetadata();
@@ -1106,7 +1189,7 @@ public class SqlCompiler implements Closeable {
         } while (true);
     }
 
-    private void backupTable(@NotNull CharSequence tableName, @NotNull SqlExecutionContext executionContext) {
+    private void backupTable(@NotNull CharSequence tableName, @NotNull SqlExecutionContext executionContext, boolean incremental) {
         LOG.info().$("Starting backup of ").$(tableName).$();
         if (null == cachedTmpBackupRoot) {
             if (null == configuration.getBackupRoot()) {
@@ -1121,6 +1204,8 @@ public class SqlCompiler implements Closeable {
             CairoSecurityContext securityContext = executionContext.getCairoSecurityContext();
             try (TableReader reader = engine.getReader(securityContext, tableName)) {
                 cloneMetaData(tableName, cachedTmpBackupRoot, configuration.getBackupMkDirMode(), reader);
+                // sealed partitions are backed up as files, the rest is copied by rows
+                final int partitionLo = incremental ? tableBackup.copyPartitions(reader, cachedTmpBackupRoot, executionContext.getWorkerCount()) : 0;
 
                 try (TableWriter backupWriter = engine.getBackupWriter(securityContext, tableName, cachedTmpBackupRoot)) {
                     RecordMetadata writerMetadata = backupWriter.getMetadata();
@@ -1132,10 +1217,22 @@ public class SqlCompiler implements Closeable {
                         tableBackupRowCopieCache.put(path.toString(), recordToRowCopier);
                     }
 
-                    RecordCursor cursor = reader.getCursor();
+                    RecordCursor cursor;
+                    if (incremental) {
+                        TableBackup.copySymbols(reader, backupWriter);
+                        // cursor is not closed, it would close the reader
+                        final TableReaderRecordCursor partitionCursor = new TableReaderRecordCursor();
+                        partitionCursor.of(reader, partitionLo, 0, reader.getPartitionCount(), -1);
+                        cursor = partitionCursor;
+                    } else {
+                        cursor = reader.getCursor();
+                    }
                     copyTableData(cursor, backupWriter, writerMetadata, recordToRowCopier);
                     backupWriter.commit();
                 }
+                if (incremental) {
+                    tableBackup.writeManifest(cachedTmpBackupRoot);
+                }
             }
 
             path.of(configuration.getBackupRoot()).concat(configuration.getBackupTempDirName()).put(Files.SEPARATOR).concat(tableName).$();
@@ -1206,10 +1303,18 @@ public class SqlCompiler implements Closeable {
     }
 
     private ExecutionModel compileExecutionModel(SqlExecutionContext executionContext) throws SqlException {
+        final QueryProfile profile = executionContext.getQueryProfile();
+        final long parseStart = nanosecondClock.getTicks();
         ExecutionModel model = parser.parse(lexer, executionContext);
+        final long optimiseStart = nanosecondClock.getTicks();
+        profile.addParseNanos(optimiseStart - parseStart);
         switch (model.getModelType()) {
             case ExecutionModel.QUERY:
-                return optimiser.optimise((QueryModel) model, executionContext);
+                try {
+                    return optimiser.optimise((QueryModel) model, executionContext);
+                } finally {
+                    profile.addOptimiseNanos(nanosecondClock.getTicks() - optimiseStart);
+                }
             case ExecutionModel.INSERT:
                 InsertModel insertModel = (InsertModel) model;
                 if (insertModel.getQueryModel() != null) {
@@ -1222,6 +1327,43 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private CompiledQuery compileCreate(SqlExecutionContext executionContext) throws SqlException {
+        final CharSequence tok = SqlUtil.fetchNext(lexer);
+        if (tok != null && isMaterializedKeyword(tok)) {
+            return createMaterializedView(executionContext);
+        }
+        // rewind to 'create' and let parser deal with the rest of the statement
+        lexer.restart();
+        SqlUtil.fetchNext(lexer);
+        return compileUsingModel(executionContext);
+    }
+
+    private CompiledQuery compileExplain(SqlExecutionContext executionContext) throws SqlException {
+        CharSequence tok = SqlUtil.fetchNext(lexer);
+        final boolean analyze = tok != null && isAnalyzeKeyword(tok);
+        if (analyze) {
+            tok = SqlUtil.fetchNext(lexer);
+        }
+        if (tok == null) {
+            throw SqlException.$(lexer.getPosition(), "query expected");
+        }
+        final int queryPosition = lexer.lastTokenPosition();
+        lexer.unparse();
+        codeGenerator.clear();
+
+        final ExecutionModel executionModel = compileExecutionModel(executionContext);
+        if (executionModel.getModelType() != ExecutionModel.QUERY) {
+            throw SqlException.$(queryPosition, "only SELECT queries can be explained");
+        }
+        LOG.info().$("explain [q=`").$((QueryModel) executionModel).$("`, analyze=").$(analyze).$(", fd=").$(executionContext.getRequestFd()).$(']').$();
+        final long codeGenStart = nanosecondClock.getTicks();
+        try {
+            return compiledQuery.of(codeGenerator.generateExplain((QueryModel) executionModel, executionContext, analyze));
+        } finally {
+            executionContext.getQueryProfile().addCodeGenNanos(nanosecondClock.getTicks() - codeGenStart);
+        }
+    }
+
     private CompiledQuery compileSet(SqlExecutionContext executionContext) {
         return compiledQuery.ofSet();
     }
@@ -1278,40 +1420,42 @@ public class SqlCompiler implements Closeable {
 
     private void copyTable(SqlExecutionContext executionContext, CopyModel model) throws SqlException {
         try {
-            int len = configuration.getSqlCopyBufferSize();
-            long buf = Unsafe.malloc(len);
+            long fd = openCopyFile(model);
             try {
-                final CharSequence name = GenericLexer.assertNoDots(GenericLexer.unquote(model.getFileName().token), model.getFileName().position);
-                path.of(configuration.getInputRoot()).concat(name).$();
-                long fd = ff.openRO(path);
-                if (fd == -1) {
-                    throw SqlException.$(model.getFileName().position, "could not open file [errno=").put(Os.errno()).put(", path=").put(path).put(']');
-                }
-                try {
-                    long fileLen = ff.length(fd);
-                    long n = ff.read(fd, buf, len, 0);
-                    if (n > 0) {
-                        textLoader.setForceHeaders(model.isHeader());
-                        textLoader.setSkipRowsWithExtraValues(false);
-                        textLoader.parse(buf, buf + n, executionContext.getCairoSecurityContext());
-                        textLoader.setState(TextLoader.LOAD_DATA);
-                        int read;
-                        while (n < fileLen) {
-                            read = (int) ff.read(fd, buf, len, n);
-                            if (read < 1) {
-                                throw SqlException.$(model.getFileName().position, "could not read file [errno=").put(ff.errno()).put(']');
+                final long fileLen = ff.length(fd);
+                if (fileLen > 0) {
+                    // text is lexed straight from file mapping, windows have to start at page boundary
+                    final long pageSize = ff.getPageSize();
+                    final long windowSize = Math.max(pageSize, configuration.getSqlCopyMapWindowSize() / pageSize * pageSize);
+                    textLoader.setForceHeaders(model.isHeader());
+                    textLoader.setSkipRowsWithExtraValues(false);
+                    for (long offset = 0; offset < fileLen; offset += windowSize) {
+                        final long size = Math.min(windowSize, fileLen - offset);
+                        final long address = ff.mmap(fd, size, offset, Files.MAP_RO);
+                        if (address == -1) {
+                            throw SqlException.$(model.getFileName().position, "could not mmap file [errno=").put(ff.errno()).put(", offset=").put(offset).put(']');
+                        }
+                        try {
+                            ff.madvise(address, size, Files.MADV_SEQUENTIAL);
+                            long lo = address;
+                            if (offset == 0) {
+                                // structure is analysed on the sample at the top of the file
+                                lo = address + Math.min(size, configuration.getSqlCopyBufferSize());
+                                textLoader.parse(address, lo, executionContext.getCairoSecurityContext());
+                                textLoader.setState(TextLoader.LOAD_DATA);
+                            }
+                            if (lo < address + size) {
+                                textLoader.parse(lo, address + size, executionContext.getCairoSecurityContext());
                             }
-                            textLoader.parse(buf, buf + read, executionContext.getCairoSecurityContext());
-                            n += read;
+                        } finally {
+                            ff.munmap(address, size);
                         }
-                        textLoader.wrapUp();
                     }
-                } finally {
-                    ff.close(fd);
+                    textLoader.wrapUp();
                 }
             } finally {
+                ff.close(fd);
                 textLoader.clear();
-                Unsafe.free(buf, len);
             }
         } catch (TextException e) {
             // we do not expect JSON exception here
@@ -1320,13 +1464,41 @@ public class SqlCompiler implements Closeable {
         }
     }
 
-    private TableWriter copyTableData(CharSequence tableName, RecordCursor cursor, RecordMetadata cursorMetadata) {
+    private void copyTableParallel(SqlExecutionContext executionContext, CopyModel model) throws SqlException {
+        try {
+            long fd = openCopyFile(model);
+            try {
+                parallelTextLoader.configureDestination(model.getTableName().token, Atomicity.SKIP_ROW, getCopyPartitionBy(model), getCopyTimestamp(model));
+                parallelTextLoader.setForceHeaders(model.isHeader());
+                parallelTextLoader.setSkipRowsWithExtraValues(false);
+                parallelTextLoader.load(fd, ff.length(fd), executionContext.getCairoSecurityContext(), executionContext.getWorkerCount());
+            } finally {
+                ff.close(fd);
+                parallelTextLoader.clear();
+            }
+        } catch (TextException e) {
+            // we do not expect JSON exception here
+        } finally {
+            LOG.info().$("copied").$();
+        }
+    }
+
+    private TableWriter copyTableData(CharSequence tableName, RecordCursorFactory factory, RecordMetadata cursorMetadata, SqlExecutionContext executionContext) {
         TableWriter writer = new TableWriter(configuration, tableName, messageBus, false, DefaultLifecycleManager.INSTANCE);
         try {
             RecordMetadata writerMetadata = writer.getMetadata();
-            entityColumnFilter.of(writerMetadata.getColumnCount());
-            RecordToRowCopier recordToRowCopier = assembleRecordToRowCopier(asm, cursorMetadata, writerMetadata, entityColumnFilter);
-            copyTableData(cursor, writer, writerMetadata, recordToRowCopier);
+            if (PageFrameCopier.isSupported(factory, writerMetadata)) {
+                try (PageFrameCursor cursor = factory.getPageFrameCursor(executionContext)) {
+                    pageFrameCopier.copy(cursor, cursorMetadata, writer, executionContext.getWorkerCount());
+                }
+                writer.commit();
+            } else {
+                entityColumnFilter.of(writerMetadata.getColumnCount());
+                RecordToRowCopier recordToRowCopier = assembleRecordToRowCopier(asm, cursorMetadata, writerMetadata, entityColumnFilter);
+                try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                    copyTableData(cursor, writer, writerMetadata, recordToRowCopier);
+                }
+            }
             return writer;
         } catch (CairoException e) {
             writer.close();
@@ -1353,6 +1525,114 @@ public class SqlCompiler implements Closeable {
         writer.commit();
     }
 
+    /**
+     * Creates materialized view, which is a table populated by SAMPLE BY query over single base table.
+     * <code>
+     * create materialized view x as (select ... from base sample by ...)
+     * </code>
+     * Position of base table name in the query text is stored with the view definition. It allows view
+     * refresh to restrict base table to rows at or after the last bucket present in the view.
+     */
+    private CompiledQuery createMaterializedView(SqlExecutionContext executionContext) throws SqlException {
+        expectKeyword(lexer, "view");
+        final int viewNamePosition = lexer.getPosition();
+        final String viewName = Chars.toString(GenericLexer.assertNoDotsAndSlashes(
+                GenericLexer.unquote(expectToken(lexer, "view name")),
+                viewNamePosition
+        ));
+        expectKeyword(lexer, "as");
+        expectKeyword(lexer, "(");
+
+        final CharSequence content = lexer.getContent();
+        final int queryLo = lexer.getPosition();
+        int queryHi = content.length();
+        while (queryHi > queryLo && Character.isWhitespace(content.charAt(queryHi - 1))) {
+            queryHi--;
+        }
+        if (queryHi == queryLo || content.charAt(queryHi - 1) != ')') {
+            throw SqlException.$(queryHi, "')' expected");
+        }
+        queryHi--;
+
+        if (engine.getStatus(executionContext.getCairoSecurityContext(), path, viewName) != TableUtils.TABLE_DOES_NOT_EXIST) {
+            throw SqlException.$(viewNamePosition, "table already exists");
+        }
+
+        lexer.of(content, queryLo, queryHi);
+        final ExecutionModel model = parser.parse(lexer, executionContext);
+        if (model.getModelType() != ExecutionModel.QUERY) {
+            throw SqlException.$(queryLo, "query expected");
+        }
+
+        ExpressionNode baseTable = null;
+        ExpressionNode sampleBy = null;
+        QueryModel m = (QueryModel) model;
+        while (m != null) {
+            if (m.getUnionModel() != null || m.getJoinModels().size() > 1) {
+                throw SqlException.$(queryLo, "materialized view query must select from single table");
+            }
+
+            if (m.getSampleBy() != null) {
+                if (m.getSampleByFill().size() > 0) {
+                    throw SqlException.$(m.getSampleByFill().getQuick(0).position, "fill is not supported by materialized view");
+                }
+                sampleBy = m.getSampleBy();
+            }
+
+            if (m.getTableName() != null) {
+                if (m.getTableName().type != ExpressionNode.LITERAL) {
+                    throw SqlException.$(m.getTableName().position, "table name expected");
+                }
+                baseTable = m.getTableName();
+            }
+            m = m.getNestedModel();
+        }
+
+        if (baseTable == null) {
+            throw SqlException.$(queryLo, "materialized view query must select from table");
+        }
+
+        if (sampleBy == null) {
+            throw SqlException.$(queryHi, "sample by expected");
+        }
+
+        final String baseTableName = Chars.toString(GenericLexer.unquote(baseTable.token));
+        final int baseTableLo = baseTable.position;
+        tableExistsOrFail(baseTableLo, baseTableName, executionContext);
+        lexer.goToPosition(baseTableLo, null);
+        SqlUtil.fetchNext(lexer);
+        final int baseTableHi = lexer.getPosition();
+
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), baseTableName)) {
+            if (reader.getMetadata().getTimestampIndex() < 0) {
+                throw SqlException.$(baseTableLo, "base table must have designated timestamp");
+            }
+        }
+
+        // compile query from the original text to keep error positions meaningful
+        clear();
+        lexer.of(content, queryLo, queryHi);
+        final CharSequence timestampColumn;
+        try (RecordCursorFactory factory = generate((QueryModel) compileExecutionModel(executionContext), executionContext)) {
+            final RecordMetadata metadata = factory.getMetadata();
+            if (metadata.getTimestampIndex() < 0) {
+                throw SqlException.$(queryLo, "materialized view query must select designated timestamp");
+            }
+            timestampColumn = Chars.toString(metadata.getColumnName(metadata.getTimestampIndex()));
+        }
+
+        final String query = Chars.toString(content, queryLo, queryHi);
+        compile("create table '" + viewName + "' as (" + query + ") timestamp(" + timestampColumn + ")", executionContext);
+
+        new MatViewDefinition(viewName, baseTableName, query, baseTableLo - queryLo, baseTableHi - queryLo)
+                .write(ff, mem, path, configuration.getRoot());
+        if (messageBus != null) {
+            // let refresh job know about the new view
+            TableUtils.notifyMatViewCreated(messageBus, viewName);
+        }
+        return compiledQuery.ofCreateTable();
+    }
+
     private CompiledQuery createTable(final ExecutionModel model, SqlExecutionContext executionContext) throws SqlException {
         final CreateTableModel createTableModel = (CreateTableModel) model;
         final ExpressionNode name = createTableModel.getName();
@@ -1391,9 +1671,7 @@ public class SqlCompiler implements Closeable {
     }
 
     private TableWriter createTableFromCursor(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
-        try (final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext);
-             final RecordCursor cursor = factory.getCursor(executionContext)
-        ) {
+        try (final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext)) {
             typeCast.clear();
             final RecordMetadata metadata = factory.getMetadata();
             validateTableModelAndCreateTypeCast(model, metadata, typeCast);
@@ -1405,7 +1683,7 @@ public class SqlCompiler implements Closeable {
             );
 
             try {
-                return copyTableData(model.getName().token, cursor, metadata);
+                return copyTableData(model.getName().token, factory, metadata, executionContext);
             } catch (CairoException e) {
                 if (removeTableDirectory(model)) {
                     throw e;
@@ -1462,7 +1740,11 @@ public class SqlCompiler implements Closeable {
         if (Chars.equalsLowerCaseAscii(executionModel.getFileName().token, "stdin")) {
             return compiledQuery.ofCopyRemote(textLoader);
         }
-        copyTable(executionContext, executionModel);
+        if (isParallelCopy(executionContext, executionModel)) {
+            copyTableParallel(executionContext, executionModel);
+        } else {
+            copyTable(executionContext, executionModel);
+        }
         return compiledQuery.ofCopyLocal();
     }
 
@@ -1515,7 +1797,12 @@ public class SqlCompiler implements Closeable {
     }
 
     RecordCursorFactory generate(QueryModel queryModel, SqlExecutionContext executionContext) throws SqlException {
-        return codeGenerator.generate(queryModel, executionContext);
+        final long codeGenStart = nanosecondClock.getTicks();
+        try {
+            return codeGenerator.generate(queryModel, executionContext);
+        } finally {
+            executionContext.getQueryProfile().addCodeGenNanos(nanosecondClock.getTicks() - codeGenStart);
+        }
     }
 
     private CompiledQuery insert(ExecutionModel executionModel, SqlExecutionContext executionContext) throws SqlException {
@@ -1676,6 +1963,19 @@ public class SqlCompiler implements Closeable {
                 copier = assembleRecordToRowCopier(asm, cursorMetadata, writerMetadata, entityColumnFilter);
             }
 
+            if (columnSetSize == 0 && PageFrameCopier.isSupported(factory, writerMetadata)) {
+                try (PageFrameCursor cursor = factory.getPageFrameCursor(executionContext)) {
+                    try {
+                        pageFrameCopier.copy(cursor, cursorMetadata, writer, executionContext.getWorkerCount());
+                        writer.commit();
+                    } catch (CairoException e) {
+                        writer.rollback();
+                        throw e;
+                    }
+                }
+                return compiledQuery.ofInsertAsSelect();
+            }
+
             try (RecordCursor cursor = factory.getCursor(executionContext)) {
                 try {
                     if (writerTimestampIndex == -1) {
@@ -1775,13 +2075,49 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private static int getCopyPartitionBy(CopyModel model) {
+        return model.getPartitionBy() != null ? PartitionBy.fromString(model.getPartitionBy().token) : PartitionBy.NONE;
+    }
+
+    private static CharSequence getCopyTimestamp(CopyModel model) {
+        return model.getTimestamp() != null ? model.getTimestamp().token : null;
+    }
+
+    // text lands in partitioned table in timestamp order regardless of the order of lines in the file,
+    // parallel copy is enabled by configuring directory for its temporary files
+    private boolean isParallelCopy(SqlExecutionContext executionContext, CopyModel model) {
+        if (configuration.getSqlCopyWorkRoot() == null) {
+            return false;
+        }
+        if (getCopyPartitionBy(model) != PartitionBy.NONE) {
+            return true;
+        }
+        final CharSequence tableName = model.getTableName().token;
+        if (engine.getStatus(executionContext.getCairoSecurityContext(), path, tableName) == TableUtils.TABLE_EXISTS) {
+            try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), tableName)) {
+                return reader.getPartitionedBy() != PartitionBy.NONE;
+            }
+        }
+        return false;
+    }
+
+    private long openCopyFile(CopyModel model) throws SqlException {
+        final CharSequence name = GenericLexer.assertNoDots(GenericLexer.unquote(model.getFileName().token), model.getFileName().position);
+        path.of(configuration.getInputRoot()).concat(name).$();
+        long fd = ff.openRO(path);
+        if (fd == -1) {
+            throw SqlException.$(model.getFileName().position, "could not open file [errno=").put(Os.errno()).put(", path=").put(path).put(']');
+        }
+        return fd;
+    }
+
     private void setupTextLoaderFromModel(CopyModel model) {
         textLoader.clear();
         textLoader.setState(TextLoader.ANALYZE_STRUCTURE);
         // todo: configure the following
         //   - when happens when data row errors out, max errors may be?
         //   - we should be able to skip X rows from top, dodgy headers etc.
-        textLoader.configureDestination(model.getTableName().token, false, false, Atomicity.SKIP_ROW, PartitionBy.NONE, null);
+        textLoader.configureDestination(model.getTableName().token, false, false, Atomicity.SKIP_ROW, getCopyPartitionBy(model), getCopyTimestamp(model));
     }
 
     private CompiledQuery sqlBackup(SqlExecutionContext executionContext) throws SqlException {
@@ -1796,15 +2132,35 @@ public class SqlCompiler implements Closeable {
                 return sqlTableBackup(executionContext);
             }
             if (isDatabaseKeyword(tok)) {
-                return sqlDatabaseBackup(executionContext);
+                return sqlDatabaseBackup(executionContext, parseBackupIncremental());
             }
         }
 
         throw SqlException.position(lexer.lastTokenPosition()).put("expected 'table' or 'database'");
     }
 
-    private CompiledQuery sqlDatabaseBackup(SqlExecutionContext executionContext) {
+    private void expectEnd() throws SqlException {
+        final CharSequence tok = SqlUtil.fetchNext(lexer);
+        if (null != tok && !Chars.equals(tok, ';')) {
+            throw SqlException.position(lexer.lastTokenPosition()).put("unexpected token");
+        }
+    }
+
+    private boolean parseBackupIncremental() throws SqlException {
+        final CharSequence tok = SqlUtil.fetchNext(lexer);
+        if (null == tok || Chars.equals(tok, ';')) {
+            return false;
+        }
+        if (isIncrementalKeyword(tok)) {
+            expectEnd();
+            return true;
+        }
+        throw SqlException.position(lexer.lastTokenPosition()).put("'incremental' expected");
+    }
+
+    private CompiledQuery sqlDatabaseBackup(SqlExecutionContext executionContext, boolean incremental) {
         currentExecutionContext = executionContext;
+        currentBackupIncremental = incremental;
         try {
             setupBackupRenamePath();
             ff.iterateDir(path.of(configuration.getRoot()).$(), sqlDatabaseBackupOnFind);
@@ -1819,6 +2175,7 @@ public class SqlCompiler implements Closeable {
 
         try {
             tableNames.clear();
+            boolean incremental = false;
             while (true) {
                 CharSequence tok = SqlUtil.fetchNext(lexer);
                 if (null == tok) {
@@ -1835,13 +2192,18 @@ public class SqlCompiler implements Closeable {
                 if (null == tok || Chars.equals(tok, ';')) {
                     break;
                 }
+                if (isIncrementalKeyword(tok)) {
+                    incremental = true;
+                    expectEnd();
+                    break;
+                }
                 if (!Chars.equals(tok, ',')) {
                     throw SqlException.position(lexer.lastTokenPosition()).put("expected ','");
                 }
             }
 
             for (int n = 0; n < tableNames.size(); n++) {
-                backupTable(tableNames.get(n), executionContext);
+                backupTable(tableNames.get(n), executionContext, incremental);
             }
 
             return compiledQuery.ofBackupTable();
@@ -2145,6 +2507,16 @@ public class SqlCompiler implements Closeable {
             return timestampIndex;
         }
 
+        @Override
+        public int getTtl() {
+            return model.getTtl();
+        }
+
+        @Override
+        public int getColdAfter() {
+            return model.getColdAfter();
+        }
+
         TableStructureAdapter of(CreateTableModel model, RecordMetadata metadata, IntIntHashMap typeCast) {
             if (model.getTimestampIndex() != -1) {
                 timestampIndex = model.getTimestampIndex();
@@ -55,6 +55,8 @@ public interface SqlExecutionContext {
 
     long getRequestFd();
 
+    QueryProfile getQueryProfile();
+
     SqlExecutionInterruptor getSqlExecutionInterruptor();
 
     void storeTelemetry(short event, short origin);
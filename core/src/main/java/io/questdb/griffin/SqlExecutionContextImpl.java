@@ -56,6 +56,7 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
     private Rnd random;
     private long requestFd = -1;
     private SqlExecutionInterruptor interruptor = SqlExecutionInterruptor.NOP_INTERRUPTOR;
+    private QueryProfile queryProfile = new QueryProfile();
 
     public SqlExecutionContextImpl(CairoEngine cairoEngine, int workerCount) {
         this(cairoEngine, workerCount, cairoEngine.getMessageBus());
@@ -133,6 +134,11 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         return requestFd;
     }
 
+    @Override
+    public QueryProfile getQueryProfile() {
+        return queryProfile;
+    }
+
     @Override
     public SqlExecutionInterruptor getSqlExecutionInterruptor() {
         return interruptor;
@@ -180,6 +186,11 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         return this;
     }
 
+    public SqlExecutionContextImpl with(@NotNull QueryProfile queryProfile) {
+        this.queryProfile = queryProfile;
+        return this;
+    }
+
     public SqlExecutionContextImpl with(
             @NotNull CairoSecurityContext cairoSecurityContext,
             @Nullable BindVariableService bindVariableService,
@@ -53,12 +53,17 @@ class SqlOptimiser {
     private static final int NOT_OP_NOT_EQ = 9;
     private final static IntHashSet joinBarriers;
     private final static CharSequenceHashSet nullConstants = new CharSequenceHashSet();
+    private final static CharSequenceHashSet rangeOps = new CharSequenceHashSet();
     private static final CharSequenceIntHashMap joinOps = new CharSequenceIntHashMap();
     private static final int JOIN_OP_EQUAL = 1;
     private static final int JOIN_OP_AND = 2;
     private static final int JOIN_OP_OR = 3;
     private static final int JOIN_OP_REGEX = 4;
     private static final IntHashSet flexColumnModelTypes = new IntHashSet();
+    // number of rows of filtered table is assumed to be this many times smaller than table row count
+    private static final int FILTER_SELECTIVITY = 10;
+    // join is moved ahead of SQL order only when it is estimated to produce this many times fewer rows
+    private static final int JOIN_REORDER_GAIN = 2;
 
     static {
         notOps.put("not", NOT_OP_NOT);
@@ -80,6 +85,11 @@ class SqlOptimiser {
 
         nullConstants.add("null");
         nullConstants.add("NaN");
+        rangeOps.add("in");
+        rangeOps.add(">");
+        rangeOps.add(">=");
+        rangeOps.add("<");
+        rangeOps.add("<=");
 
         joinOps.put("=", JOIN_OP_EQUAL);
         joinOps.put("and", JOIN_OP_AND);
@@ -118,11 +128,15 @@ class SqlOptimiser {
     private final CharSequenceObjHashMap<CharSequence> constNameToToken = new CharSequenceObjHashMap<>();
     private final CharSequenceIntHashMap constNameToIndex = new CharSequenceIntHashMap();
     private final CharSequenceObjHashMap<ExpressionNode> constNameToNode = new CharSequenceObjHashMap<>();
+    private final ObjList<ExpressionNode> rangeFilterNodes = new ObjList<>();
+    private final ObjList<ExpressionNode> rangeFilterLiterals = new ObjList<>();
+    private final ObjList<CharSequence> rangeFilterNames = new ObjList<>();
+    private final IntList rangeFilterIndexes = new IntList();
     private final IntList tempCrossIndexes = new IntList();
     private final IntList clausesToSteal = new IntList();
     private final ObjectPool<IntList> intListPool = new ObjectPool<>(IntList::new, 16);
     private final ObjectPool<QueryModel> queryModelPool;
-    private final IntPriorityQueue orderingStack = new IntPriorityQueue();
+    private final IntList orderingStack = new IntList();
     private final ObjectPool<QueryColumn> queryColumnPool;
     private final FunctionParser functionParser;
     private final ColumnPrefixEraser columnPrefixEraser = new ColumnPrefixEraser();
@@ -188,6 +202,40 @@ class SqlOptimiser {
         return true;
     }
 
+    private static boolean isRangeConstant(ExpressionNode node) {
+        return node.type == ExpressionNode.CONSTANT && !nullConstants.contains(node.token);
+    }
+
+    /**
+     * Estimates number of rows join model produces from table statistics collected
+     * when table columns are enumerated.
+     *
+     * @param model join model
+     * @return estimated row count or -1 when estimate is not available, e.g. for group-by sub-queries or table functions
+     */
+    private static long estimateRowCount(QueryModel model) {
+        long rowCount = -1;
+        if (model.getTableName() != null) {
+            rowCount = model.getTableRowCount();
+        } else {
+            final QueryModel nested = model.getNestedModel();
+            if (nested != null
+                    && nested.getJoinModels().size() == 1
+                    && nested.getUnionModel() == null
+                    && nested.getGroupBy().size() == 0
+                    && nested.getSampleBy() == null
+                    && nested.getLatestBy().size() == 0
+                    && (nested.getSelectModelType() == QueryModel.SELECT_MODEL_NONE || nested.getSelectModelType() == QueryModel.SELECT_MODEL_CHOOSE)) {
+                rowCount = estimateRowCount(nested);
+            }
+        }
+
+        if (rowCount > 0 && model.getWhereClause() != null) {
+            rowCount = Math.max(1, rowCount / FILTER_SELECTIVITY);
+        }
+        return rowCount;
+    }
+
     private static boolean modelIsFlex(QueryModel model) {
         return model != null && flexColumnModelTypes.contains(model.getSelectModelType());
     }
@@ -363,11 +411,37 @@ class SqlOptimiser {
                         node.paramCount = 2;
                         addWhereNode(model, jc.slaveIndex, node);
                     }
+                    addTransitiveRangeFilters(model, name, jc.bIndexes.getQuick(k), jc.aIndexes.getQuick(k), jc.aNodes.getQuick(k));
+                    addTransitiveRangeFilters(model, jc.aNames.getQuick(k), jc.aIndexes.getQuick(k), jc.bIndexes.getQuick(k), jc.bNodes.getQuick(k));
                 }
             }
         }
     }
 
+    /**
+     * Copies range filters, such as "in", "&gt;" and "&lt;", of column "name" of table "index"
+     * to table "targetIndex" via join equality, for example:
+     * <p>
+     * a.ts = b.ts and a.ts in '2020-06'
+     * <p>
+     * derived filter would be:
+     * <p>
+     * b.ts in '2020-06'
+     * <p>
+     * which lets data frame cursor of "b" scan intervals instead of entire table.
+     */
+    private void addTransitiveRangeFilters(QueryModel model, CharSequence name, int index, int targetIndex, ExpressionNode target) {
+        if (joinBarriers.contains(model.getJoinModels().getQuick(targetIndex).getJoinType())) {
+            return;
+        }
+
+        for (int i = 0, n = rangeFilterNodes.size(); i < n; i++) {
+            if (rangeFilterIndexes.getQuick(i) == index && Chars.equals(rangeFilterNames.getQuick(i), name)) {
+                addWhereNode(model, targetIndex, copyRangeFilter(rangeFilterNodes.getQuick(i), rangeFilterLiterals.getQuick(i), target));
+            }
+        }
+    }
+
     private void addWhereNode(QueryModel model, int joinModelIndex, ExpressionNode node) {
         addWhereNode(model.getJoinModels().getQuick(joinModelIndex), node);
     }
@@ -479,6 +553,49 @@ class SqlOptimiser {
         }
     }
 
+    /**
+     * Collects filters that restrict single column of join model to constant range, e.g.
+     * "ts in '2020-06'" or "ts &gt; '2020-06-01'". Such filters are propagated
+     * to other join models via join equalities, see {@link #addTransitiveRangeFilters}.
+     */
+    private void analyseRangeFilters(QueryModel parent) throws SqlException {
+        final ObjList<ExpressionNode> filterNodes = parent.getParsedWhere();
+        for (int i = 0, n = filterNodes.size(); i < n; i++) {
+            final ExpressionNode node = filterNodes.getQuick(i);
+            if (node.type == ExpressionNode.LITERAL || node.type == ExpressionNode.CONSTANT || !rangeOps.contains(node.token)) {
+                continue;
+            }
+
+            ExpressionNode literal = null;
+            boolean qualifies = true;
+            if (node.paramCount == 2) {
+                if (node.lhs.type == ExpressionNode.LITERAL) {
+                    literal = node.lhs;
+                    qualifies = isRangeConstant(node.rhs);
+                } else if (node.rhs.type == ExpressionNode.LITERAL && !Chars.equals(node.token, "in")) {
+                    literal = node.rhs;
+                    qualifies = isRangeConstant(node.lhs);
+                }
+            } else if (node.paramCount > 2) {
+                literal = node.args.getLast();
+                for (int k = 0, m = node.args.size() - 1; k < m && qualifies; k++) {
+                    qualifies = isRangeConstant(node.args.getQuick(k));
+                }
+            }
+
+            if (qualifies && literal != null && literal.type == ExpressionNode.LITERAL && isNotBindVariable(literal.token)) {
+                final int dot = Chars.indexOf(literal.token, '.');
+                final int index = getIndexOfTableForColumn(parent, literal.token, dot, literal.position);
+                if (joinBarriers.excludes(parent.getJoinModels().getQuick(index).getJoinType())) {
+                    rangeFilterNodes.add(node);
+                    rangeFilterLiterals.add(literal);
+                    rangeFilterNames.add(literalCollector.extractColumnName(literal.token, dot));
+                    rangeFilterIndexes.add(index);
+                }
+            }
+        }
+    }
+
     private void analyseRegex(QueryModel parent, ExpressionNode node) throws SqlException {
         traverseNamesAndIndices(parent, node);
 
@@ -566,6 +683,10 @@ class SqlOptimiser {
         constNameToIndex.clear();
         constNameToNode.clear();
         constNameToToken.clear();
+        rangeFilterNodes.clear();
+        rangeFilterLiterals.clear();
+        rangeFilterNames.clear();
+        rangeFilterIndexes.clear();
         literalCollectorAIndexes.clear();
         literalCollectorBIndexes.clear();
         literalCollectorANames.clear();
@@ -597,6 +718,21 @@ class SqlOptimiser {
         }
     }
 
+    private ExpressionNode copyRangeFilter(ExpressionNode filter, ExpressionNode literal, ExpressionNode target) {
+        ExpressionNode node = expressionNodePool.next().of(filter.type, filter.token, filter.precedence, filter.position);
+        node.paramCount = filter.paramCount;
+        if (filter.paramCount == 2) {
+            node.lhs = filter.lhs == literal ? target : filter.lhs;
+            node.rhs = filter.rhs == literal ? target : filter.rhs;
+        } else {
+            for (int i = 0, n = filter.args.size(); i < n; i++) {
+                ExpressionNode arg = filter.args.getQuick(i);
+                node.args.add(arg == literal ? target : arg);
+            }
+        }
+        return node;
+    }
+
     private void copyColumnsFromMetadata(QueryModel model, RecordMetadata m) throws SqlException {
         // column names are not allowed to have dot
 
@@ -621,6 +757,22 @@ class SqlOptimiser {
         }
     }
 
+    /**
+     * Collects statistics, which are cheap to obtain from table reader: row count,
+     * which comes from txn file, and distinct value counts of symbol columns,
+     * which are sizes of respective symbol tables. Join order is chosen based on
+     * these statistics.
+     */
+    private void copyTableStatistics(QueryModel model, TableReader reader) {
+        model.setTableRowCount(reader.size());
+        final RecordMetadata m = reader.getMetadata();
+        for (int i = 0, k = m.getColumnCount(); i < k; i++) {
+            if (m.getColumnType(i) == ColumnType.SYMBOL) {
+                model.addColumnDistinctCount(m.getColumnName(i), reader.getSymbolMapReader(i).size());
+            }
+        }
+    }
+
     private CharSequence createColumnAlias(CharSequence name, QueryModel model) {
         return SqlUtil.createColumnAlias(characterStore, name, -1, model.getAliasToColumnMap());
     }
@@ -838,19 +990,22 @@ class SqlOptimiser {
         }
     }
 
-    private int doReorderTables(QueryModel parent, IntList ordered) {
+    private double doReorderTables(QueryModel parent, IntList ordered, boolean useStatistics) {
         tempCrossIndexes.clear();
         ordered.clear();
         this.orderingStack.clear();
         ObjList<QueryModel> joinModels = parent.getJoinModels();
 
         int cost = 0;
+        // sum of estimated row counts of intermediate join results
+        double rowCost = 0;
+        double rowCount = -1;
 
         for (int i = 0, n = joinModels.size(); i < n; i++) {
             QueryModel q = joinModels.getQuick(i);
             if (q.getJoinType() == QueryModel.JOIN_CROSS || q.getContext() == null || q.getContext().parents.size() == 0) {
                 if (q.getDependencies().size() > 0) {
-                    orderingStack.push(i);
+                    orderingStack.add(i);
                 } else {
                     tempCrossIndexes.add(i);
                 }
@@ -859,9 +1014,22 @@ class SqlOptimiser {
             }
         }
 
-        while (orderingStack.notEmpty()) {
+        while (orderingStack.size() > 0) {
             //remove a node n from orderingStack
-            int index = orderingStack.pop();
+            int index = orderingStack.getQuick(0);
+            int pos = 0;
+            for (int i = 1, n = orderingStack.size(); i < n; i++) {
+                if (orderingStack.getQuick(i) < index) {
+                    index = orderingStack.getQuick(i);
+                    pos = i;
+                }
+            }
+
+            if (useStatistics && rowCount > -1) {
+                pos = selectCheapestJoin(parent, pos, rowCount);
+                index = orderingStack.getQuick(pos);
+            }
+            orderingStack.removeIndex(pos);
 
             ordered.add(index);
 
@@ -873,6 +1041,11 @@ class SqlOptimiser {
                 cost += 5;
             }
 
+            if (useStatistics) {
+                rowCount = estimateJoinRowCount(parent, index, rowCount);
+                rowCost += rowCount;
+            }
+
             IntHashSet dependencies = m.getDependencies();
 
             //for each node m with an edge e from n to m do
@@ -880,7 +1053,7 @@ class SqlOptimiser {
                 int depIndex = dependencies.get(i);
                 JoinContext jc = joinModels.getQuick(depIndex).getContext();
                 if (--jc.inCount == 0) {
-                    orderingStack.push(depIndex);
+                    orderingStack.add(depIndex);
                 }
             }
         }
@@ -889,16 +1062,20 @@ class SqlOptimiser {
         for (int i = 0, n = joinModels.size(); i < n; i++) {
             QueryModel m = joinModels.getQuick(i);
             if (m.getContext() != null && m.getContext().inCount > 0) {
-                return Integer.MAX_VALUE;
+                return Double.MAX_VALUE;
             }
         }
 
         // add pure crosses at end of ordered table list
         for (int i = 0, n = tempCrossIndexes.size(); i < n; i++) {
             ordered.add(tempCrossIndexes.getQuick(i));
+            if (useStatistics) {
+                rowCount = estimateJoinRowCount(parent, tempCrossIndexes.getQuick(i), rowCount);
+                rowCost += rowCount;
+            }
         }
 
-        return cost;
+        return cost + rowCost;
     }
 
     private ExpressionNode doReplaceLiteral(@Transient ExpressionNode node, QueryModel translatingModel, QueryModel innerModel, QueryModel validatingModel) throws SqlException {
@@ -1093,6 +1270,40 @@ class SqlOptimiser {
         }
     }
 
+    /**
+     * Estimates number of rows produced by joining model at "index" to the result of models
+     * ordered so far, which is estimated to have "masterRowCount" rows. Equi-join is assumed
+     * to produce master rows times slave rows per distinct join key. Distinct key counts are
+     * known for symbol columns, other columns are assumed to be unique.
+     */
+    private double estimateJoinRowCount(QueryModel parent, int index, double masterRowCount) {
+        final QueryModel m = parent.getJoinModels().getQuick(index);
+        final double rowCount = m.getEstimatedRowCount();
+        if (masterRowCount < 0) {
+            return rowCount;
+        }
+
+        switch (m.getJoinType()) {
+            case QueryModel.JOIN_INNER:
+                final JoinContext jc = m.getContext();
+                if (jc != null && jc.aNames.size() > 0) {
+                    double distinctCount = 1;
+                    for (int k = 0, n = jc.aNames.size(); k < n; k++) {
+                        final CharSequence name = jc.aIndexes.getQuick(k) == index ? jc.aNames.getQuick(k) : jc.bNames.getQuick(k);
+                        final int count = m.getColumnDistinctCount(name);
+                        distinctCount *= count > -1 ? count : rowCount;
+                    }
+                    return masterRowCount * rowCount / Math.max(1, Math.min(distinctCount, rowCount));
+                }
+                return masterRowCount * rowCount;
+            case QueryModel.JOIN_CROSS:
+                return masterRowCount * rowCount;
+            default:
+                // outer, asof, lt and splice joins produce a row per master row
+                return masterRowCount;
+        }
+    }
+
     private void enumerateTableColumns(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         final ObjList<QueryModel> jm = model.getJoinModels();
 
@@ -1624,6 +1835,7 @@ class SqlOptimiser {
         )) {
             model.setTableVersion(r.getVersion());
             copyColumnsFromMetadata(model, r.getMetadata());
+            copyTableStatistics(model, r);
         } catch (EntryLockedException e) {
             throw SqlException.position(tableNamePosition).put("table is locked: ").put(tableLookupSequence);
         } catch (CairoException e) {
@@ -1805,6 +2017,12 @@ class SqlOptimiser {
             model.setWhereClause(null);
             processJoinConditions(model, where);
 
+            rangeFilterNodes.clear();
+            rangeFilterLiterals.clear();
+            rangeFilterNames.clear();
+            rangeFilterIndexes.clear();
+            analyseRangeFilters(model);
+
             for (int i = 1; i < n; i++) {
                 processJoinConditions(model, joinModels.getQuick(i).getJoinCriteria());
             }
@@ -2109,7 +2327,16 @@ class SqlOptimiser {
             }
         }
 
-        int cost = Integer.MAX_VALUE;
+        // join order is chosen based on table statistics only when they are available for all models
+        boolean useStatistics = true;
+        for (int i = 0; i < n; i++) {
+            QueryModel q = joinModels.getQuick(i);
+            long rowCount = estimateRowCount(q);
+            q.setEstimatedRowCount(rowCount);
+            useStatistics &= rowCount > -1;
+        }
+
+        double cost = Double.MAX_VALUE;
         int root = -1;
 
         // analyse state of tree for each set of n-1 crosses
@@ -2126,7 +2353,7 @@ class SqlOptimiser {
             }
 
             IntList ordered = model.nextOrderedJoinModels();
-            int thisCost = doReorderTables(model, ordered);
+            double thisCost = doReorderTables(model, ordered, useStatistics);
             if (thisCost < cost) {
                 root = z;
                 cost = thisCost;
@@ -2717,6 +2944,46 @@ class SqlOptimiser {
         return root;
     }
 
+    /**
+     * Chooses which of the models, that are ready to be joined, is joined next. Inner joins
+     * can be freely reordered up to the first outer, asof, lt or splice join. Out of these
+     * the join estimated to produce the fewest rows is chosen, provided it is substantially
+     * cheaper than the join with the lowest model index, which is the order tables appear in SQL.
+     *
+     * @param parent   parent model
+     * @param pos      position of the lowest model index in ordering stack
+     * @param rowCount estimated row count of models ordered so far
+     * @return position of model in ordering stack
+     */
+    private int selectCheapestJoin(QueryModel parent, int pos, double rowCount) {
+        final ObjList<QueryModel> joinModels = parent.getJoinModels();
+        if (joinModels.getQuick(orderingStack.getQuick(pos)).getJoinType() != QueryModel.JOIN_INNER) {
+            return pos;
+        }
+
+        int barrier = Integer.MAX_VALUE;
+        for (int i = 0, n = orderingStack.size(); i < n; i++) {
+            final int index = orderingStack.getQuick(i);
+            if (joinModels.getQuick(index).getJoinType() != QueryModel.JOIN_INNER && index < barrier) {
+                barrier = index;
+            }
+        }
+
+        int cheapest = pos;
+        double cheapestRowCount = estimateJoinRowCount(parent, orderingStack.getQuick(pos), rowCount) / JOIN_REORDER_GAIN;
+        for (int i = 0, n = orderingStack.size(); i < n; i++) {
+            final int index = orderingStack.getQuick(i);
+            if (i != pos && index < barrier && joinModels.getQuick(index).getJoinType() == QueryModel.JOIN_INNER) {
+                final double joinRowCount = estimateJoinRowCount(parent, index, rowCount);
+                if (joinRowCount < cheapestRowCount) {
+                    cheapest = i;
+                    cheapestRowCount = joinRowCount;
+                }
+            }
+        }
+        return cheapest;
+    }
+
     private CharSequence setAndGetModelAlias(QueryModel model) {
         CharSequence name = model.getName();
         if (name != null) {
@@ -367,11 +367,25 @@ public final class SqlParser {
                     if (isHeaderKeyword(tok)) {
                         model.setHeader(isTrueKeyword(tok(lexer, "'true' or 'false'")));
                         tok = optTok(lexer);
+                    } else if (isTimestampKeyword(tok)) {
+                        model.setTimestamp(parseTimestamp(lexer, tok));
+                        tok = optTok(lexer);
+                    } else if (isPartitionKeyword(tok)) {
+                        final ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
+                        if (PartitionBy.fromString(partitionBy.token) == -1) {
+                            throw SqlException.$(partitionBy.position, "'NONE', 'DAY', 'MONTH' or 'YEAR' expected");
+                        }
+                        model.setPartitionBy(partitionBy);
+                        tok = optTok(lexer);
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
                     }
                 }
             }
+
+            if (model.getPartitionBy() != null && model.getTimestamp() == null && PartitionBy.fromString(model.getPartitionBy().token) != PartitionBy.NONE) {
+                throw SqlException.$(model.getPartitionBy().position, "'timestamp' option expected");
+            }
             return model;
         }
         throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
@@ -426,6 +440,20 @@ public final class SqlParser {
             tok = optTok(lexer);
         }
 
+        if (tok != null && isWithKeyword(tok)) {
+            do {
+                tok = tok(lexer, "'ttl' or 'cold_after'");
+                if (isTtlKeyword(tok)) {
+                    model.setTtl(parseCreateTableRetentionInterval(lexer, model, "ttl"));
+                } else if (isColdAfterKeyword(tok)) {
+                    model.setColdAfter(parseCreateTableRetentionInterval(lexer, model, "cold_after"));
+                } else {
+                    throw SqlException.$(lexer.lastTokenPosition(), "'ttl' or 'cold_after' expected");
+                }
+                tok = optTok(lexer);
+            } while (tok != null && Chars.equals(tok, ','));
+        }
+
         if (tok == null || Chars.equals(tok, ';')) {
             return model;
         }
@@ -632,6 +660,15 @@ public final class SqlParser {
         }
     }
 
+    private int parseCreateTableRetentionInterval(GenericLexer lexer, CreateTableModel model, String option) throws SqlException {
+        expectTok(lexer, '=');
+        final CharSequence tok = tok(lexer, "interval");
+        if (model.getPartitionBy() == PartitionBy.NONE) {
+            throw SqlException.$(lexer.lastTokenPosition(), option).put(" requires partitioned table");
+        }
+        return TableUtils.parseRetentionInterval(tok, lexer.lastTokenPosition(), option);
+    }
+
     private ExpressionNode parseCreateTablePartition(GenericLexer lexer, CharSequence tok) throws SqlException {
         if (tok != null && isPartitionKeyword(tok)) {
             expectTok(lexer, "by");
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.NanosecondClock;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Wraps factory of query plan to collect row count, page frame count and time spent
+ * in its cursor for EXPLAIN ANALYZE. Time is inclusive of the time spent in cursors
+ * of child factories.
+ */
+public class AnalyzeRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final long estimatedRowCount;
+    private final NanosecondClock clock;
+    private final AnalyzeRecordCursor cursor = new AnalyzeRecordCursor();
+    private final AnalyzePageFrameCursor pageFrameCursor = new AnalyzePageFrameCursor();
+    private boolean analyzed;
+    private long rowCount;
+    private long frameCount;
+    private long nanos;
+
+    public AnalyzeRecordCursorFactory(RecordCursorFactory base, long estimatedRowCount, NanosecondClock clock) {
+        this.base = base;
+        this.estimatedRowCount = estimatedRowCount;
+        this.clock = clock;
+    }
+
+    @Override
+    public void close() {
+        base.close();
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return base.followedOrderByAdvice();
+    }
+
+    public RecordCursorFactory getBase() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        analyzed = true;
+        final long start = clock.getTicks();
+        try {
+            return cursor.of(base.getCursor(executionContext));
+        } finally {
+            nanos += clock.getTicks() - start;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return base.getMetadata();
+    }
+
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) {
+        analyzed = true;
+        final long start = clock.getTicks();
+        try {
+            final PageFrameCursor baseCursor = base.getPageFrameCursor(executionContext);
+            return baseCursor != null ? pageFrameCursor.of(baseCursor) : null;
+        } finally {
+            nanos += clock.getTicks() - start;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    public void reset() {
+        analyzed = false;
+        rowCount = 0;
+        frameCount = 0;
+        nanos = 0;
+    }
+
+    @Override
+    public boolean supportPageFrameCursor() {
+        return base.supportPageFrameCursor();
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        if (analyzed) {
+            sink.stats(estimatedRowCount, rowCount, frameCount, nanos);
+        } else {
+            sink.stats(estimatedRowCount, -1, -1, -1);
+        }
+        base.toPlan(sink);
+    }
+
+    private class AnalyzeRecordCursor implements RecordCursor {
+        private RecordCursor base;
+
+        @Override
+        public void close() {
+            base.close();
+        }
+
+        @Override
+        public Record getRecord() {
+            return base.getRecord();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return base.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            final long start = clock.getTicks();
+            final boolean next = base.hasNext();
+            nanos += clock.getTicks() - start;
+            if (next) {
+                rowCount++;
+            }
+            return next;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return base.getRecordB();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            base.recordAt(record, atRowId);
+        }
+
+        @Override
+        public void toTop() {
+            base.toTop();
+        }
+
+        @Override
+        public long size() {
+            return base.size();
+        }
+
+        private AnalyzeRecordCursor of(RecordCursor base) {
+            this.base = base;
+            return this;
+        }
+    }
+
+    private class AnalyzePageFrameCursor implements PageFrameCursor {
+        private PageFrameCursor base;
+
+        @Override
+        public void close() {
+            base.close();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return base.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public @Nullable PageFrame next() {
+            final long start = clock.getTicks();
+            final PageFrame frame = base.next();
+            nanos += clock.getTicks() - start;
+            if (frame != null) {
+                frameCount++;
+                final DirectLongList selectedRows = frame.getSelectedRows();
+                rowCount += selectedRows != null ? selectedRows.size() : frame.getPageValueCount(0);
+            }
+            return frame;
+        }
+
+        @Override
+        public int getMaxInFlightFrames() {
+            return base.getMaxInFlightFrames();
+        }
+
+        @Override
+        public void toTop() {
+            base.toTop();
+        }
+
+        @Override
+        public long size() {
+            return base.size();
+        }
+
+        private AnalyzePageFrameCursor of(PageFrameCursor base) {
+            this.base = base;
+            return this;
+        }
+    }
+}
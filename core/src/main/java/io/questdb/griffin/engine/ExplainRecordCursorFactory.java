@@ -0,0 +1,159 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Result of EXPLAIN and EXPLAIN ANALYZE, one row per factory of query plan. For
+ * EXPLAIN ANALYZE the query is executed to the end before the plan is printed.
+ */
+public class ExplainRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final static GenericRecordMetadata METADATA = new GenericRecordMetadata();
+
+    static {
+        METADATA.add(new TableColumnMetadata("QUERY PLAN", ColumnType.STRING));
+    }
+
+    private final RecordCursorFactory base;
+    private final ObjList<AnalyzeRecordCursorFactory> analyzeFactories;
+    private final boolean analyze;
+    private final PlanSink planSink = new PlanSink();
+    private final ExplainRecordCursor cursor = new ExplainRecordCursor();
+
+    public ExplainRecordCursorFactory(
+            RecordCursorFactory base,
+            ObjList<AnalyzeRecordCursorFactory> analyzeFactories,
+            boolean analyze
+    ) {
+        super(METADATA);
+        this.base = base;
+        this.analyzeFactories = analyzeFactories;
+        this.analyze = analyze;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        for (int i = 0, n = analyzeFactories.size(); i < n; i++) {
+            analyzeFactories.getQuick(i).reset();
+        }
+        if (analyze) {
+            try (RecordCursor baseCursor = base.getCursor(executionContext)) {
+                while (baseCursor.hasNext()) {
+                    // rows are counted by analyze factories
+                }
+            }
+        }
+        planSink.clear();
+        base.toPlan(planSink);
+        cursor.of(planSink.getLines());
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private static class ExplainRecordCursor implements RecordCursor {
+        private final PlanRecord record = new PlanRecord();
+        private ObjList<String> lines;
+        private int index;
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < lines.size()) {
+                record.value = lines.getQuick(index++);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Record getRecordB() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void toTop() {
+            index = 0;
+        }
+
+        @Override
+        public long size() {
+            return lines.size();
+        }
+
+        private void of(ObjList<String> lines) {
+            this.lines = lines;
+            toTop();
+        }
+    }
+
+    private static class PlanRecord implements Record {
+        private String value;
+
+        @Override
+        public CharSequence getStr(int col) {
+            return value;
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return value;
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return value.length();
+        }
+    }
+}
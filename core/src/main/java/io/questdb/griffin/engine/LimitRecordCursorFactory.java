@@ -50,6 +50,11 @@ public class LimitRecordCursorFactory extends AbstractRecordCursorFactory {
         return base.recordCursorSupportsRandomAccess();
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).child(base);
+    }
+
     @Override
     public void close() {
         base.close();
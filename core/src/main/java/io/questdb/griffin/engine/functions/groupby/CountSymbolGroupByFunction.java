@@ -29,6 +29,7 @@ import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.LongFunction;
 import io.questdb.std.IntList;
@@ -55,9 +56,14 @@ public class CountSymbolGroupByFunction extends LongFunction implements GroupByF
             set = sets.getQuick(setIndex);
         }
         set.clear(0);
-        int val = arg.getInt(record);
-        set.extendAndSet(val, 1);
-        mapValue.putLong(valueIndex, 1L);
+        final int val = arg.getInt(record);
+        // null symbol is not counted
+        if (val != SymbolTable.VALUE_IS_NULL) {
+            set.extendAndSet(val, 1);
+            mapValue.putLong(valueIndex, 1L);
+        } else {
+            mapValue.putLong(valueIndex, 0L);
+        }
         mapValue.putInt(valueIndex + 1, setIndex);
         setIndex++;
     }
@@ -66,6 +72,9 @@ public class CountSymbolGroupByFunction extends LongFunction implements GroupByF
     public void computeNext(MapValue mapValue, Record record) {
         final IntList set = sets.getQuick(mapValue.getInt(valueIndex + 1));
         final int val = arg.getInt(record);
+        if (val == SymbolTable.VALUE_IS_NULL) {
+            return;
+        }
         if (val < set.size()) {
             if (set.getQuick(val) == 1) {
                 return;
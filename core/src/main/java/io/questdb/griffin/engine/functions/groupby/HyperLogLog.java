@@ -0,0 +1,165 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+
+/**
+ * HyperLogLog distinct count sketch. Registers are one byte each and are packed eight to a long so that
+ * sketch can be stored in map value as a fixed number of LONG columns. Sketches are merged by taking
+ * maximum of each register, which makes them suitable for combining per-worker state.
+ */
+public final class HyperLogLog {
+    // standard error is 1.04 / sqrt(2048), which is about 2.3%
+    public static final int PRECISION = 11;
+    public static final int REGISTER_COUNT = 1 << PRECISION;
+    public static final int LONG_COUNT = REGISTER_COUNT / 8;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+
+    private HyperLogLog() {
+    }
+
+    public static void add(long[] registers, long hash) {
+        final int register = register(hash);
+        final int index = register >>> 3;
+        registers[index] = update(registers[index], register, rank(hash));
+    }
+
+    public static void add(MapValue value, int index, long hash) {
+        final int register = register(hash);
+        final int column = index + (register >>> 3);
+        final long word = value.getLong(column);
+        final long updated = update(word, register, rank(hash));
+        if (updated != word) {
+            value.putLong(column, updated);
+        }
+    }
+
+    public static void clear(MapValue value, int index) {
+        for (int i = 0; i < LONG_COUNT; i++) {
+            value.putLong(index + i, 0);
+        }
+    }
+
+    public static long estimate(long[] registers) {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < LONG_COUNT; i++) {
+            long word = registers[i];
+            for (int j = 0; j < 8; j++) {
+                final int rank = (int) (word & 0xff);
+                sum += Math.scalb(1.0, -rank);
+                if (rank == 0) {
+                    zeros++;
+                }
+                word >>>= 8;
+            }
+        }
+        return estimate(sum, zeros);
+    }
+
+    public static long estimate(Record record, int index) {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < LONG_COUNT; i++) {
+            long word = record.getLong(index + i);
+            for (int j = 0; j < 8; j++) {
+                final int rank = (int) (word & 0xff);
+                sum += Math.scalb(1.0, -rank);
+                if (rank == 0) {
+                    zeros++;
+                }
+                word >>>= 8;
+            }
+        }
+        return estimate(sum, zeros);
+    }
+
+    public static long hash(long value) {
+        // murmur3 finalizer
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public static long hash(CharSequence value) {
+        long h = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return hash(h);
+    }
+
+    public static void merge(long[] dst, long[] src) {
+        for (int i = 0; i < LONG_COUNT; i++) {
+            long a = dst[i];
+            long b = src[i];
+            long merged = 0;
+            for (int j = 0; j < 64; j += 8) {
+                merged |= Math.max((a >>> j) & 0xff, (b >>> j) & 0xff) << j;
+            }
+            dst[i] = merged;
+        }
+    }
+
+    public static void pushValueTypes(ArrayColumnTypes columnTypes) {
+        for (int i = 0; i < LONG_COUNT; i++) {
+            columnTypes.add(ColumnType.LONG);
+        }
+    }
+
+    private static long estimate(double sum, int zeros) {
+        final double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+        if (estimate <= 2.5 * REGISTER_COUNT && zeros > 0) {
+            // small range correction
+            return Math.round(REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeros));
+        }
+        return Math.round(estimate);
+    }
+
+    private static long rank(long hash) {
+        // position of the first set bit after the register index bits
+        return Math.min(Long.numberOfLeadingZeros(hash << PRECISION), 64 - PRECISION) + 1;
+    }
+
+    private static int register(long hash) {
+        return (int) (hash >>> (64 - PRECISION));
+    }
+
+    private static long update(long word, int register, long rank) {
+        final int shift = (register & 7) << 3;
+        if (((word >>> shift) & 0xff) < rank) {
+            return (word & ~(0xffL << shift)) | (rank << shift);
+        }
+        return word;
+    }
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+
+/**
+ * Merging t-digest with k1 (arcsine) scale function. Digest has fixed capacity: sorted centroids followed
+ * by buffer of unsorted values. When buffer fills up, it is merged into centroids. With compression of 100
+ * there are no more than ~102 centroids, so the rest of the capacity is always available for the buffer.
+ * <p>
+ * Digest state can be persisted in map value as a fixed number of columns, this instance is then used as
+ * a scratch area to compress or query the state. Instances are not thread safe.
+ */
+public class TDigest {
+    public static final double COMPRESSION = 100;
+    public static final int CAPACITY = 200;
+    // map value layout: centroid count, size, min, max followed by (mean, weight) pairs
+    public static final int COLUMN_COUNT = 4 + 2 * CAPACITY;
+    private static final int CENTROID_COUNT_OFFSET = 0;
+    private static final int SIZE_OFFSET = 1;
+    private static final int MIN_OFFSET = 2;
+    private static final int MAX_OFFSET = 3;
+    private static final int ENTRY_OFFSET = 4;
+    private final double[] means = new double[CAPACITY];
+    private final double[] weights = new double[CAPACITY];
+    private final double[] tmpMeans = new double[CAPACITY];
+    private final double[] tmpWeights = new double[CAPACITY];
+    private int centroidCount;
+    private int size;
+    private double min;
+    private double max;
+
+    public static void clear(MapValue value, int index) {
+        value.putLong(index + CENTROID_COUNT_OFFSET, 0);
+        value.putLong(index + SIZE_OFFSET, 0);
+        value.putDouble(index + MIN_OFFSET, Double.POSITIVE_INFINITY);
+        value.putDouble(index + MAX_OFFSET, Double.NEGATIVE_INFINITY);
+    }
+
+    public static void pushValueTypes(ArrayColumnTypes columnTypes) {
+        columnTypes.add(ColumnType.LONG);
+        columnTypes.add(ColumnType.LONG);
+        for (int i = 2; i < COLUMN_COUNT; i++) {
+            columnTypes.add(ColumnType.DOUBLE);
+        }
+    }
+
+    private static double k(double q) {
+        return COMPRESSION / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Adds value to digest stored in map value. Values are appended to the buffer directly in the
+     * map, digest is only loaded when buffer is full and has to be merged into centroids.
+     */
+    public void add(MapValue mapValue, int index, double value) {
+        if (value != value) {
+            return;
+        }
+        long size = mapValue.getLong(index + SIZE_OFFSET);
+        if (size == CAPACITY) {
+            of(mapValue, index);
+            compress();
+            store(mapValue, index);
+            size = this.size;
+        }
+        final int entry = index + ENTRY_OFFSET + 2 * (int) size;
+        mapValue.putDouble(entry, value);
+        mapValue.putDouble(entry + 1, 1);
+        mapValue.putLong(index + SIZE_OFFSET, size + 1);
+        if (value < mapValue.getDouble(index + MIN_OFFSET)) {
+            mapValue.putDouble(index + MIN_OFFSET, value);
+        }
+        if (value > mapValue.getDouble(index + MAX_OFFSET)) {
+            mapValue.putDouble(index + MAX_OFFSET, value);
+        }
+    }
+
+    public void clear() {
+        centroidCount = 0;
+        size = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0, n = other.centroidCount; i < n; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public TDigest of(Record record, int index) {
+        centroidCount = (int) record.getLong(index + CENTROID_COUNT_OFFSET);
+        size = (int) record.getLong(index + SIZE_OFFSET);
+        min = record.getDouble(index + MIN_OFFSET);
+        max = record.getDouble(index + MAX_OFFSET);
+        for (int i = 0, entry = index + ENTRY_OFFSET; i < size; i++, entry += 2) {
+            means[i] = record.getDouble(entry);
+            weights[i] = record.getDouble(entry + 1);
+        }
+        return this;
+    }
+
+    public double quantile(double q) {
+        compress();
+        final int n = centroidCount;
+        if (n == 0) {
+            return Double.NaN;
+        }
+        if (n == 1) {
+            return means[0];
+        }
+
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += weights[i];
+        }
+
+        final double index = q * total;
+        // values between min and the centre of the first centroid
+        double half = weights[0] / 2;
+        if (index < half) {
+            return min + (means[0] - min) * index / half;
+        }
+
+        double cumulative = half;
+        for (int i = 0; i < n - 1; i++) {
+            final double dw = (weights[i] + weights[i + 1]) / 2;
+            if (cumulative + dw > index) {
+                return means[i] + (means[i + 1] - means[i]) * (index - cumulative) / dw;
+            }
+            cumulative += dw;
+        }
+
+        // values between the centre of the last centroid and max
+        half = weights[n - 1] / 2;
+        return means[n - 1] + (max - means[n - 1]) * Math.min(1, (index - cumulative) / half);
+    }
+
+    public void store(MapValue value, int index) {
+        value.putLong(index + CENTROID_COUNT_OFFSET, centroidCount);
+        value.putLong(index + SIZE_OFFSET, size);
+        value.putDouble(index + MIN_OFFSET, min);
+        value.putDouble(index + MAX_OFFSET, max);
+        for (int i = 0, entry = index + ENTRY_OFFSET; i < size; i++, entry += 2) {
+            value.putDouble(entry, means[i]);
+            value.putDouble(entry + 1, weights[i]);
+        }
+    }
+
+    private void add(double value, double weight) {
+        if (value != value) {
+            return;
+        }
+        if (size == CAPACITY) {
+            compress();
+        }
+        means[size] = value;
+        weights[size++] = weight;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    private void compress() {
+        if (size == centroidCount) {
+            return;
+        }
+
+        // sort buffer, it is small enough for insertion sort
+        for (int i = centroidCount + 1; i < size; i++) {
+            final double m = means[i];
+            final double w = weights[i];
+            int j = i - 1;
+            while (j >= centroidCount && means[j] > m) {
+                means[j + 1] = means[j];
+                weights[j + 1] = weights[j];
+                j--;
+            }
+            means[j + 1] = m;
+            weights[j + 1] = w;
+        }
+
+        // merge sorted centroids and buffer
+        double total = 0;
+        for (int i = 0, l = 0, r = centroidCount; i < size; i++) {
+            if (r == size || (l < centroidCount && means[l] <= means[r])) {
+                tmpMeans[i] = means[l];
+                tmpWeights[i] = weights[l++];
+            } else {
+                tmpMeans[i] = means[r];
+                tmpWeights[i] = weights[r++];
+            }
+            total += tmpWeights[i];
+        }
+
+        // merge neighbours as long as centroid spans no more than one unit of scale function
+        int n = 0;
+        double weightSoFar = 0;
+        double kLo = k(0);
+        double mean = tmpMeans[0];
+        double weight = tmpWeights[0];
+        for (int i = 1; i < size; i++) {
+            final double proposed = weight + tmpWeights[i];
+            if (k((weightSoFar + proposed) / total) - kLo <= 1) {
+                mean += (tmpMeans[i] - mean) * tmpWeights[i] / proposed;
+                weight = proposed;
+            } else {
+                means[n] = mean;
+                weights[n++] = weight;
+                weightSoFar += weight;
+                kLo = k(weightSoFar / total);
+                mean = tmpMeans[i];
+                weight = tmpWeights[i];
+            }
+        }
+        means[n] = mean;
+        weights[n++] = weight;
+        centroidCount = size = n;
+    }
+}
@@ -24,6 +24,7 @@
 
 package io.questdb.griffin.engine.groupby;
 
+import io.questdb.cairo.sql.PlanSink;
 import org.jetbrains.annotations.NotNull;
 
 import io.questdb.cairo.CairoConfiguration;
@@ -99,6 +100,11 @@ public class DistinctRecordCursorFactory implements RecordCursorFactory {
         return base.recordCursorSupportsRandomAccess();
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).child(base);
+    }
+
     private static class DistinctRecordCursor implements RecordCursor {
         private RecordCursor baseCursor;
         private Map dataMap;
@@ -88,6 +88,11 @@ public class GroupByNotKeyedRecordCursorFactory implements RecordCursorFactory {
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).child(base);
+    }
+
     private class GroupByNotKeyedRecordCursor implements NoRandomAccessRecordCursor {
 
         // hold on to reference of base cursor here
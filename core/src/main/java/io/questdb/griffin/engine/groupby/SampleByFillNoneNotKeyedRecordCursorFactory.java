@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.groupby;
 
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
@@ -96,6 +97,11 @@ public class SampleByFillNoneNotKeyedRecordCursorFactory implements RecordCursor
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).child(base);
+    }
+
     @NotNull
     protected RecordCursor initFunctionsAndCursor(SqlExecutionContext executionContext, RecordCursor baseCursor) {
         cursor.of(baseCursor, executionContext);
@@ -190,6 +190,11 @@ public class SampleByFillNullRecordCursorFactory implements RecordCursorFactory
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).child(base);
+    }
+
     @NotNull
     private RecordCursor initFunctionsAndCursor(SqlExecutionContext executionContext, RecordCursor baseCursor) {
         cursor.of(baseCursor, executionContext);
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.griffin.engine.functions.groupby.HyperLogLog;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estimates distinct count of INT values and SYMBOL keys. Workers build their own sketches, which are
+ * merged when the result is requested.
+ */
+public class ApproxCountDistinctIntVectorAggregateFunction extends LongFunction implements VectorAggregateFunction {
+    private final int columnIndex;
+    private final ObjList<long[]> sketches;
+    private final long[] merged = new long[HyperLogLog.LONG_COUNT];
+    private final LongAdder rowCount = new LongAdder();
+    private long count = -1;
+
+    public ApproxCountDistinctIntVectorAggregateFunction(int position, int keyKind, int columnIndex, int workerCount) {
+        super(position);
+        this.columnIndex = columnIndex;
+        this.sketches = new ObjList<>(workerCount + 1);
+        for (int i = 0; i <= workerCount; i++) {
+            sketches.add(new long[HyperLogLog.LONG_COUNT]);
+        }
+    }
+
+    @Override
+    public void aggregate(long address, long count, int workerId) {
+        rowCount.add(count);
+        if (address != 0) {
+            final long[] sketch = sketches.getQuick(VectorAggregateFunction.slot(workerId));
+            for (long i = 0; i < count; i++) {
+                final int value = Unsafe.getUnsafe().getInt(address + (i << 2));
+                if (value != Numbers.INT_NaN) {
+                    HyperLogLog.add(sketch, HyperLogLog.hash(value));
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0, n = sketches.size(); i < n; i++) {
+            Arrays.fill(sketches.getQuick(i), 0);
+        }
+        rowCount.reset();
+        count = -1;
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        if (count == -1) {
+            if (rowCount.sum() == 0) {
+                return Numbers.LONG_NaN;
+            }
+            Arrays.fill(merged, 0);
+            for (int i = 0, n = sketches.size(); i < n; i++) {
+                HyperLogLog.merge(merged, sketches.getQuick(i));
+            }
+            count = HyperLogLog.estimate(merged);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.groupby.TDigest;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+/**
+ * Approximate percentile of DOUBLE values. Each worker builds its own t-digest, digests are merged when
+ * the result is requested.
+ */
+public class ApproxPercentileDoubleVectorAggregateFunction extends DoubleFunction implements VectorAggregateFunction {
+    private final int columnIndex;
+    private final double percentile;
+    private final ObjList<TDigest> digests;
+    private final TDigest merged = new TDigest();
+    private double value = Double.NaN;
+    private boolean computed;
+
+    public ApproxPercentileDoubleVectorAggregateFunction(int position, int columnIndex, int workerCount, double percentile) {
+        super(position);
+        this.columnIndex = columnIndex;
+        this.percentile = percentile;
+        this.digests = new ObjList<>(workerCount + 1);
+        for (int i = 0; i <= workerCount; i++) {
+            TDigest digest = new TDigest();
+            digest.clear();
+            digests.add(digest);
+        }
+    }
+
+    @Override
+    public void aggregate(long address, long count, int workerId) {
+        if (address != 0) {
+            final TDigest digest = digests.getQuick(VectorAggregateFunction.slot(workerId));
+            for (long i = 0; i < count; i++) {
+                digest.add(Unsafe.getUnsafe().getDouble(address + (i << 3)));
+            }
+        }
+    }
+
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0, n = digests.size(); i < n; i++) {
+            digests.getQuick(i).clear();
+        }
+        computed = false;
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        if (!computed) {
+            merged.clear();
+            for (int i = 0, n = digests.size(); i < n; i++) {
+                merged.merge(digests.getQuick(i));
+            }
+            value = merged.quantile(percentile);
+            computed = true;
+        }
+        return value;
+    }
+}
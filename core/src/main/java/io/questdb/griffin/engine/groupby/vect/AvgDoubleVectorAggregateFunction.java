@@ -37,7 +37,7 @@ import java.util.concurrent.atomic.LongAdder;
 
 import static io.questdb.griffin.SqlCodeGenerator.GKK_HOUR_INT;
 
-public class AvgDoubleVectorAggregateFunction extends DoubleFunction implements VectorAggregateFunction {
+public class AvgDoubleVectorAggregateFunction extends DoubleFunction implements KeyedVectorAggregateFunction {
 
     private final DoubleAdder sum = new DoubleAdder();
     private final LongAdder count = new LongAdder();
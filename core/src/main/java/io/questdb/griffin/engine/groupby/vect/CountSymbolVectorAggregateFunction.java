@@ -0,0 +1,121 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.std.LongList;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts distinct symbol keys. Each worker, and the query thread, collects keys it encounters in its
+ * own bitset, bitsets are merged when the result is requested.
+ */
+public class CountSymbolVectorAggregateFunction extends LongFunction implements VectorAggregateFunction {
+    private final int columnIndex;
+    private final ObjList<LongList> bitsets;
+    private final LongList merged = new LongList();
+    private final LongAdder rowCount = new LongAdder();
+    private long count = -1;
+
+    public CountSymbolVectorAggregateFunction(int position, int keyKind, int columnIndex, int workerCount) {
+        super(position);
+        this.columnIndex = columnIndex;
+        this.bitsets = new ObjList<>(workerCount + 1);
+        for (int i = 0; i <= workerCount; i++) {
+            bitsets.add(new LongList());
+        }
+    }
+
+    private static void set(LongList bitset, int key) {
+        final int index = key >>> 6;
+        // list is reused across executions, zero words it grows into
+        for (int i = bitset.size(); i <= index; i++) {
+            bitset.add(0);
+        }
+        bitset.setQuick(index, bitset.getQuick(index) | (1L << key));
+    }
+
+    @Override
+    public void aggregate(long address, long count, int workerId) {
+        rowCount.add(count);
+        if (address != 0) {
+            final LongList bitset = bitsets.getQuick(VectorAggregateFunction.slot(workerId));
+            for (long i = 0; i < count; i++) {
+                final int key = Unsafe.getUnsafe().getInt(address + (i << 2));
+                // null symbol has negative key
+                if (key > -1) {
+                    set(bitset, key);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0, n = bitsets.size(); i < n; i++) {
+            bitsets.getQuick(i).clear();
+        }
+        rowCount.reset();
+        count = -1;
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        if (count == -1) {
+            // same as row-by-row count(), there is no value when there are no rows
+            if (rowCount.sum() == 0) {
+                return Numbers.LONG_NaN;
+            }
+            merged.clear();
+            for (int i = 0, n = bitsets.size(); i < n; i++) {
+                final LongList bitset = bitsets.getQuick(i);
+                for (int j = 0, m = bitset.size(); j < m; j++) {
+                    if (j < merged.size()) {
+                        merged.setQuick(j, merged.getQuick(j) | bitset.getQuick(j));
+                    } else {
+                        merged.add(bitset.getQuick(j));
+                    }
+                }
+            }
+
+            long count = 0;
+            for (int i = 0, n = merged.size(); i < n; i++) {
+                count += Long.bitCount(merged.getQuick(i));
+            }
+            this.count = count;
+        }
+        return count;
+    }
+}
@@ -34,7 +34,7 @@ import io.questdb.std.Unsafe;
 
 import java.util.concurrent.atomic.LongAdder;
 
-public class CountVectorAggregateFunction extends LongFunction implements VectorAggregateFunction {
+public class CountVectorAggregateFunction extends LongFunction implements KeyedVectorAggregateFunction {
     public static final VectorAggregateFunctionConstructor CONSTRUCTOR = CountVectorAggregateFunction::new;
     private final LongAdder count = new LongAdder();
     private int valueOffset;
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.IntFunction;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+
+public class FirstIntVectorAggregateFunction extends IntFunction implements VectorAggregateFunction {
+    private final int columnIndex;
+    private int value;
+    private boolean found;
+
+    public FirstIntVectorAggregateFunction(int position, int keyKind, int columnIndex, int workerCount) {
+        super(position);
+        this.columnIndex = columnIndex;
+        this.value = Numbers.INT_NaN;
+    }
+
+    @Override
+    public void aggregate(long address, long count, int workerId) {
+        if (!found && count > 0) {
+            // column top reads as null
+            value = address != 0 ? Unsafe.getUnsafe().getInt(address) : Numbers.INT_NaN;
+            found = true;
+        }
+    }
+
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    @Override
+    public boolean isFrameOrderSensitive() {
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        value = Numbers.INT_NaN;
+        found = false;
+    }
+
+    @Override
+    public int getInt(Record rec) {
+        return value;
+    }
+}
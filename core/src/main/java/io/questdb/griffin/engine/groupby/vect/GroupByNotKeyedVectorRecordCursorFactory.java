@@ -26,18 +26,17 @@ package io.questdb.griffin.engine.groupby.vect;
 
 import io.questdb.MessageBus;
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.table.FilteredRecordCursorFactory;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.SOUnboundedCountDownLatch;
 import io.questdb.mp.Sequence;
 import io.questdb.mp.Worker;
-import io.questdb.std.Misc;
-import io.questdb.std.ObjList;
-import io.questdb.std.ObjectPool;
-import io.questdb.std.Transient;
+import io.questdb.std.*;
 import io.questdb.tasks.VectorAggregateTask;
 
 public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFactory {
@@ -50,6 +49,8 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
     private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
     private final RecordMetadata metadata;
     private final GroupByNotKeyedVectorRecordCursor cursor;
+    private final IntList valueSizeShifts;
+    private final boolean filtered;
 
     public GroupByNotKeyedVectorRecordCursorFactory(
             CairoConfiguration configuration,
@@ -64,6 +65,18 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
         this.vafList = new ObjList<>(vafList.size());
         this.vafList.addAll(vafList);
         this.cursor = new GroupByNotKeyedVectorRecordCursor(this.vafList);
+        this.valueSizeShifts = new IntList(vafList.size());
+        this.filtered = base instanceof FilteredRecordCursorFactory;
+        final RecordMetadata baseMetadata = base.getMetadata();
+        for (int i = 0, n = vafList.size(); i < n; i++) {
+            valueSizeShifts.add(ColumnType.pow2SizeOf(baseMetadata.getColumnType(vafList.getQuick(i).getColumnIndex())));
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+        Misc.freeObjList(vafList);
     }
 
     @Override
@@ -97,51 +110,86 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
         if (thread instanceof Worker) {
             workerId = ((Worker) thread).getWorkerId();
         } else {
-            workerId = 0;
+            // query thread must not share per-worker state of aggregate functions with pool worker 0
+            workerId = VectorAggregateFunction.QUERY_THREAD_ID;
         }
 
+        long selectedCount = 0;
+        // frames beyond this count reuse memory of older frames, e.g. row lists of filtered frames
+        final int maxInFlightFrames = cursor.getMaxInFlightFrames();
+        int framesInFlight = 0;
         PageFrame frame;
-        while ((frame = cursor.next()) != null) {
-            for (int i = 0; i < vafCount; i++) {
-                final VectorAggregateFunction vaf = vafList.getQuick(i);
-                final int columnIndex = vaf.getColumnIndex();
-                final long pageAddress = frame.getPageAddress(columnIndex);
-                final long pageValueCount = frame.getPageValueCount(columnIndex);
-                long seq = pubSeq.next();
-                if (seq < 0) {
-                    // diy the func
-                    // vaf need to know which column it is hitting int he frame and will need to
-                    // aggregate between frames until done
-                    vaf.aggregate(pageAddress, pageValueCount, workerId);
-                    ownCount++;
-                } else {
-                    final VectorAggregateEntry entry = entryPool.next();
-                    // null pRosti means that we do not need keyed aggregation
-                    entry.of(queuedCount++, vaf, null, 0, pageAddress, pageValueCount, doneLatch);
-                    activeEntries.add(entry);
-                    queue.get(seq).entry = entry;
-                    pubSeq.done(seq);
+        try {
+            while ((frame = cursor.next()) != null) {
+                // rows that passed filter, null when query is not filtered
+                final DirectLongList selectedRows = frame.getSelectedRows();
+                if (selectedRows != null) {
+                    selectedCount += selectedRows.size();
+                }
+                for (int i = 0; i < vafCount; i++) {
+                    final VectorAggregateFunction vaf = vafList.getQuick(i);
+                    final int columnIndex = vaf.getColumnIndex();
+                    final long pageAddress = frame.getPageAddress(columnIndex);
+                    final long pageValueCount = frame.getPageValueCount(columnIndex);
+                    final int valueSizeShift = valueSizeShifts.getQuick(i);
+                    // frame order sensitive functions cannot be executed out of order by the worker pool
+                    long seq = vaf.isFrameOrderSensitive() ? -1 : pubSeq.next();
+                    if (seq < 0) {
+                        // diy the func
+                        // vaf need to know which column it is hitting int he frame and will need to
+                        // aggregate between frames until done
+                        if (selectedRows == null) {
+                            vaf.aggregate(pageAddress, pageValueCount, workerId);
+                        } else {
+                            VectorAggregateEntry.aggregateSelected(vaf, 0, 0, 0, pageAddress, valueSizeShift, selectedRows, workerId);
+                        }
+                        ownCount++;
+                    } else {
+                        final VectorAggregateEntry entry = entryPool.next();
+                        // null pRosti means that we do not need keyed aggregation
+                        entry.of(queuedCount++, vaf, null, 0, pageAddress, pageValueCount, doneLatch, selectedRows, 0, valueSizeShift);
+                        activeEntries.add(entry);
+                        queue.get(seq).entry = entry;
+                        pubSeq.done(seq);
+                    }
+                    total++;
+                }
+                if (++framesInFlight == maxInFlightFrames) {
+                    // next frame overwrites memory the published tasks may still read
+                    reclaimed += awaitActiveEntries(queuedCount, workerId);
+                    framesInFlight = 0;
                 }
-                total++;
             }
+        } catch (Throwable e) {
+            // published tasks reference frame memory, they have to complete before cursor is released
+            awaitActiveEntries(queuedCount, workerId);
+            Misc.free(cursor);
+            throw e;
         }
 
         // all done? great start consuming the queue we just published
         // how do we get to the end? If we consume our own queue there is chance we will be consuming
         // aggregation tasks not related to this execution (we work in concurrent environment)
         // To deal with that we need to have our own checklist.
+        LOG.info().$("waiting for parts [queuedCount=").$(queuedCount).$(']').$();
+        reclaimed += awaitActiveEntries(queuedCount, workerId);
+        LOG.info().$("done [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(']').$();
+        // same as row-by-row group by, filter that matched nothing produces no rows
+        return this.cursor.of(cursor, filtered && selectedCount == 0 ? 0 : 1);
+    }
 
+    private int awaitActiveEntries(int queuedCount, int workerId) {
+        int reclaimed = 0;
         // start at the back to reduce chance of clashing
         for (int i = activeEntries.size() - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
             if (activeEntries.getQuick(i).run(workerId)) {
                 reclaimed++;
             }
         }
-
-        LOG.info().$("waiting for parts [queuedCount=").$(queuedCount).$(']').$();
         doneLatch.await(queuedCount);
-        LOG.info().$("done [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(']').$();
-        return this.cursor.of(cursor);
+        // every entry published so far is complete
+        activeEntries.clear();
+        return reclaimed;
     }
 
     @Override
@@ -154,9 +202,15 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).child(base);
+    }
+
     private static class GroupByNotKeyedVectorRecordCursor implements NoRandomAccessRecordCursor {
         private final Record recordA;
         private int countDown = 1;
+        private int size = 1;
         private PageFrameCursor pageFrameCursor;
 
         public GroupByNotKeyedVectorRecordCursor(ObjList<? extends Function> functions) {
@@ -180,16 +234,17 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
 
         @Override
         public void toTop() {
-            countDown = 1;
+            countDown = size;
         }
 
         @Override
         public long size() {
-            return 1;
+            return size;
         }
 
-        private GroupByNotKeyedVectorRecordCursor of(PageFrameCursor pageFrameCursor) {
+        private GroupByNotKeyedVectorRecordCursor of(PageFrameCursor pageFrameCursor, int size) {
             this.pageFrameCursor = pageFrameCursor;
+            this.size = size;
             toTop();
             return this;
         }
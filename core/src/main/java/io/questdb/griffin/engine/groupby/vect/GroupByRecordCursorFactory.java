@@ -45,7 +45,7 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
     private final static Log LOG = LogFactory.getLog(GroupByRecordCursorFactory.class);
 
     private final RecordCursorFactory base;
-    private final ObjList<VectorAggregateFunction> vafList;
+    private final ObjList<KeyedVectorAggregateFunction> vafList;
     private final ObjectPool<VectorAggregateEntry> entryPool;
     private final ObjList<VectorAggregateEntry> activeEntries;
     private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
@@ -54,6 +54,8 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
     private final long[] pRosti;
     private final int keyColumnIndex;
     private final RostiRecordCursor cursor;
+    private final int keySizeShift;
+    private final IntList valueSizeShifts;
 
     public GroupByRecordCursorFactory(
             CairoConfiguration configuration,
@@ -61,7 +63,7 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
             RecordMetadata metadata,
             @Transient ColumnTypes columnTypes,
             int workerCount,
-            @Transient ObjList<VectorAggregateFunction> vafList,
+            @Transient ObjList<KeyedVectorAggregateFunction> vafList,
             int keyColumnIndexInBase,
             int keyColumnIndexInThisCursor,
             @Transient IntList symbolTableSkewIndex
@@ -79,10 +81,11 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         this.base = base;
         this.metadata = metadata;
         // first column is INT or SYMBOL
-        this.pRosti = new long[workerCount];
+        // map per pool worker and one for query thread, see VectorAggregateFunction.slot()
+        this.pRosti = new long[workerCount + 1];
         final int vafCount = vafList.size();
         this.vafList = new ObjList<>(vafCount);
-        for (int i = 0; i < workerCount; i++) {
+        for (int i = 0, n = pRosti.length; i < n; i++) {
             pRosti[i] = Rosti.alloc(columnTypes, configuration.getGroupByMapCapacity());
 
             // todo: init key to null value
@@ -127,6 +130,12 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
 
         this.vafList.addAll(vafList);
         this.keyColumnIndex = keyColumnIndexInBase;
+        final RecordMetadata baseMetadata = base.getMetadata();
+        this.keySizeShift = ColumnType.pow2SizeOf(baseMetadata.getColumnType(keyColumnIndexInBase));
+        this.valueSizeShifts = new IntList(vafCount);
+        for (int i = 0; i < vafCount; i++) {
+            valueSizeShifts.add(ColumnType.pow2SizeOf(baseMetadata.getColumnType(vafList.getQuick(i).getColumnIndex())));
+        }
         if (symbolTableSkewIndex.size() > 0) {
             final IntList symbolSkew = new IntList(symbolTableSkewIndex.size());
             symbolSkew.addAll(symbolTableSkewIndex);
@@ -138,7 +147,7 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
 
     private static void addOffsets(
             IntList columnSkewIndex,
-            @Transient ObjList<VectorAggregateFunction> vafList,
+            @Transient ObjList<KeyedVectorAggregateFunction> vafList,
             int start,
             int end,
             long columnOffsets
@@ -150,6 +159,7 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
 
     @Override
     public void close() {
+        Misc.free(base);
         Misc.freeObjList(vafList);
         for (int i = 0, n = pRosti.length; i < n; i++) {
             Rosti.free(pRosti[i]);
@@ -193,64 +203,90 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         if (thread instanceof Worker) {
             workerId = ((Worker) thread).getWorkerId();
         } else {
-            workerId = 0;
+            // query thread must not share map and per-worker state of aggregate functions with pool worker 0
+            workerId = VectorAggregateFunction.QUERY_THREAD_ID;
         }
+        final long pRostiOwn = pRosti[VectorAggregateFunction.slot(workerId)];
 
+        // frames beyond this count reuse memory of older frames, e.g. row lists of filtered frames
+        final int maxInFlightFrames = cursor.getMaxInFlightFrames();
+        int framesInFlight = 0;
         PageFrame frame;
-        while ((frame = cursor.next()) != null) {
-            final long keyColumnSize = frame.getPageValueCount(keyColumnIndex);
-            final long keyAddress = frame.getPageAddress(keyColumnIndex);
-            for (int i = 0; i < vafCount; i++) {
-                final VectorAggregateFunction vaf = vafList.getQuick(i);
-                final long valueAddress = frame.getPageAddress(vaf.getColumnIndex());
-                final long valueCount = frame.getPageValueCount(vaf.getColumnIndex());
-
-                long seq = pubSeq.next();
-                if (seq < 0) {
-                    if (keyColumnSize == 0) {
-                        vaf.aggregate(valueAddress, valueCount, workerId);
-                    } else {
-                        vaf.aggregate(pRosti[workerId], keyAddress, valueAddress, keyColumnSize, workerId);
-                    }
-                    ownCount++;
-                } else {
-                    if (keyAddress != 0 || valueAddress != 0) {
-                        final VectorAggregateEntry entry = entryPool.next();
-                        if (keyAddress == 0) {
-                            entry.of(queuedCount++, vaf, null, 0, valueAddress, valueCount, doneLatch);
+        try {
+            while ((frame = cursor.next()) != null) {
+                final long keyColumnSize = frame.getPageValueCount(keyColumnIndex);
+                final long keyAddress = frame.getPageAddress(keyColumnIndex);
+                // rows that passed filter, null when query is not filtered
+                final DirectLongList selectedRows = frame.getSelectedRows();
+                for (int i = 0; i < vafCount; i++) {
+                    final KeyedVectorAggregateFunction vaf = vafList.getQuick(i);
+                    final long valueAddress = frame.getPageAddress(vaf.getColumnIndex());
+                    final long valueCount = frame.getPageValueCount(vaf.getColumnIndex());
+                    final int valueSizeShift = valueSizeShifts.getQuick(i);
+
+                    long seq = pubSeq.next();
+                    if (seq < 0) {
+                        if (selectedRows != null) {
+                            VectorAggregateEntry.aggregateSelected(
+                                    vaf,
+                                    keyAddress == 0 ? 0 : pRostiOwn,
+                                    keyAddress,
+                                    keySizeShift,
+                                    valueAddress,
+                                    valueSizeShift,
+                                    selectedRows,
+                                    workerId
+                            );
+                        } else if (keyColumnSize == 0 || keyAddress == 0) {
+                            // key column top is all nulls, same as published tasks
+                            if (valueAddress != 0) {
+                                vaf.aggregate(valueAddress, valueCount, workerId);
+                            }
                         } else {
-                            entry.of(queuedCount++, vaf, pRosti, keyAddress, valueAddress, valueCount, doneLatch);
+                            vaf.aggregate(pRostiOwn, keyAddress, valueAddress, keyColumnSize, workerId);
+                        }
+                        ownCount++;
+                    } else {
+                        if (keyAddress != 0 || valueAddress != 0) {
+                            final VectorAggregateEntry entry = entryPool.next();
+                            if (keyAddress == 0) {
+                                entry.of(queuedCount++, vaf, null, 0, valueAddress, valueCount, doneLatch, selectedRows, keySizeShift, valueSizeShift);
+                            } else {
+                                entry.of(queuedCount++, vaf, pRosti, keyAddress, valueAddress, valueCount, doneLatch, selectedRows, keySizeShift, valueSizeShift);
+                            }
+                            activeEntries.add(entry);
+                            queue.get(seq).entry = entry;
+                            pubSeq.done(seq);
                         }
-                        activeEntries.add(entry);
-                        queue.get(seq).entry = entry;
-                        pubSeq.done(seq);
                     }
+                    total++;
+                }
+                if (++framesInFlight == maxInFlightFrames) {
+                    // next frame overwrites memory the published tasks may still read
+                    reclaimed += awaitActiveEntries(queuedCount, workerId);
+                    framesInFlight = 0;
                 }
-                total++;
             }
+        } catch (Throwable e) {
+            // published tasks reference frame memory, they have to complete before cursor is released
+            awaitActiveEntries(queuedCount, workerId);
+            Misc.free(cursor);
+            throw e;
         }
 
         // all done? great start consuming the queue we just published
         // how do we get to the end? If we consume our own queue there is chance we will be consuming
         // aggregation tasks not related to this execution (we work in concurrent environment)
         // To deal with that we need to have our own checklist.
-
-        // start at the back to reduce chance of clashing
-        for (int i = activeEntries.size() - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
-            if (activeEntries.getQuick(i).run(workerId)) {
-                reclaimed++;
-            }
-        }
-
         LOG.info().$("waiting for parts [queuedCount=").$(queuedCount).$(']').$();
-        doneLatch.await(queuedCount);
+        reclaimed += awaitActiveEntries(queuedCount, workerId);
         long pRosti0 = pRosti[0];
 
         if (pRosti.length > 1) {
             LOG.debug().$("merging").$();
 
             for (int j = 0; j < vafCount; j++) {
-                final VectorAggregateFunction vaf = vafList.getQuick(j);
+                final KeyedVectorAggregateFunction vaf = vafList.getQuick(j);
                 for (int i = 1, n = pRosti.length; i < n; i++) {
                     vaf.merge(pRosti0, pRosti[i]);
                 }
@@ -267,6 +303,20 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         return this.cursor.of(cursor);
     }
 
+    private int awaitActiveEntries(int queuedCount, int workerId) {
+        int reclaimed = 0;
+        // start at the back to reduce chance of clashing
+        for (int i = activeEntries.size() - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
+            if (activeEntries.getQuick(i).run(workerId)) {
+                reclaimed++;
+            }
+        }
+        doneLatch.await(queuedCount);
+        // every entry published so far is complete
+        activeEntries.clear();
+        return reclaimed;
+    }
+
     @Override
     public RecordMetadata getMetadata() {
         return metadata;
@@ -277,6 +327,11 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("GroupByVector").child(base);
+    }
+
     private static class RostiRecordCursor implements RecordCursor {
         private final RostiRecord record;
         private final long pRosti;
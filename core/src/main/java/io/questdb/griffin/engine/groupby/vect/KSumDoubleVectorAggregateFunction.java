@@ -37,7 +37,7 @@ import java.util.Arrays;
 
 import static io.questdb.griffin.SqlCodeGenerator.GKK_HOUR_INT;
 
-public class KSumDoubleVectorAggregateFunction extends DoubleFunction implements VectorAggregateFunction {
+public class KSumDoubleVectorAggregateFunction extends DoubleFunction implements KeyedVectorAggregateFunction {
 
     private final int columnIndex;
     private final double[] sum;
@@ -50,8 +50,8 @@ public class KSumDoubleVectorAggregateFunction extends DoubleFunction implements
     public KSumDoubleVectorAggregateFunction(int position, int keyKind, int columnIndex, int workerCount) {
         super(position);
         this.columnIndex = columnIndex;
-        this.sum = new double[workerCount * Misc.CACHE_LINE_SIZE];
-        this.count = new long[workerCount * Misc.CACHE_LINE_SIZE];
+        this.sum = new double[(workerCount + 1) * Misc.CACHE_LINE_SIZE];
+        this.count = new long[(workerCount + 1) * Misc.CACHE_LINE_SIZE];
         this.workerCount = workerCount;
         if (keyKind == GKK_HOUR_INT) {
             this.distinctFunc = Rosti::keyedHourDistinct;
@@ -101,7 +101,7 @@ public class KSumDoubleVectorAggregateFunction extends DoubleFunction implements
         double sum = 0;
         long count = 0;
         double c = 0;
-        for (int i = 0; i < workerCount; i++) {
+        for (int i = 0; i <= workerCount; i++) {
             final int offset = i * Misc.CACHE_LINE_SIZE;
             double y = this.sum[offset] - c;
             double t = sum + y;
@@ -118,7 +118,7 @@ public class KSumDoubleVectorAggregateFunction extends DoubleFunction implements
             // Kahan compensated summation
             final double x = Vect.sumDoubleKahan(address, count);
             if (x == x) {
-                final int offset = workerId * Misc.CACHE_LINE_SIZE;
+                final int offset = VectorAggregateFunction.slot(workerId) * Misc.CACHE_LINE_SIZE;
                 final double sum = this.sum[offset];
                 final double y = x - this.sum[offset + 1]; // y = x - c
                 final double t = sum + y; // t = sum + y
@@ -145,7 +145,7 @@ public class KSumDoubleVectorAggregateFunction extends DoubleFunction implements
         double sum = 0;
         long count = 0;
         double c = 0;
-        for (int i = 0; i < workerCount; i++) {
+        for (int i = 0; i <= workerCount; i++) {
             final int offset = i * Misc.CACHE_LINE_SIZE;
             double y = this.sum[offset] - c;
             double t = sum + y;
@@ -37,7 +37,7 @@ import java.util.function.DoubleBinaryOperator;
 
 import static io.questdb.griffin.SqlCodeGenerator.GKK_HOUR_INT;
 
-public class MaxDoubleVectorAggregateFunction extends DoubleFunction implements VectorAggregateFunction {
+public class MaxDoubleVectorAggregateFunction extends DoubleFunction implements KeyedVectorAggregateFunction {
 
     public static final DoubleBinaryOperator MAX = Math::max;
     private final DoubleAccumulator max = new DoubleAccumulator(
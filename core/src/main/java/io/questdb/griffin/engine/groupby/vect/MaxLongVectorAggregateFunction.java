@@ -37,7 +37,7 @@ import java.util.function.LongBinaryOperator;
 
 import static io.questdb.griffin.SqlCodeGenerator.GKK_HOUR_INT;
 
-public class MaxLongVectorAggregateFunction extends LongFunction implements VectorAggregateFunction {
+public class MaxLongVectorAggregateFunction extends LongFunction implements KeyedVectorAggregateFunction {
 
     public static final LongBinaryOperator MAX = Math::max;
     private final LongAccumulator max = new LongAccumulator(
@@ -37,7 +37,7 @@ import java.util.function.LongBinaryOperator;
 
 import static io.questdb.griffin.SqlCodeGenerator.GKK_HOUR_INT;
 
-public class MaxTimestampVectorAggregateFunction extends TimestampFunction implements VectorAggregateFunction {
+public class MaxTimestampVectorAggregateFunction extends TimestampFunction implements KeyedVectorAggregateFunction {
 
     public static final LongBinaryOperator MAX = Math::max;
     private final LongAccumulator max = new LongAccumulator(
@@ -37,7 +37,7 @@ import java.util.function.DoubleBinaryOperator;
 
 import static io.questdb.griffin.SqlCodeGenerator.GKK_HOUR_INT;
 
-public class MinDoubleVectorAggregateFunction extends DoubleFunction implements VectorAggregateFunction {
+public class MinDoubleVectorAggregateFunction extends DoubleFunction implements KeyedVectorAggregateFunction {
 
     public static final DoubleBinaryOperator MIN = Math::min;
     private final DoubleAccumulator min = new DoubleAccumulator(
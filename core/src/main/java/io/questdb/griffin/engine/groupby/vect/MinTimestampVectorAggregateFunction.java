@@ -38,7 +38,7 @@ import java.util.function.LongBinaryOperator;
 
 import static io.questdb.griffin.SqlCodeGenerator.GKK_HOUR_INT;
 
-public class MinTimestampVectorAggregateFunction extends TimestampFunction implements VectorAggregateFunction {
+public class MinTimestampVectorAggregateFunction extends TimestampFunction implements KeyedVectorAggregateFunction {
 
     public static final LongBinaryOperator MIN = Math::min;
     private final LongAccumulator accumulator = new LongAccumulator(
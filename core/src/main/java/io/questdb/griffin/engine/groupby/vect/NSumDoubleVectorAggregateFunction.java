@@ -37,7 +37,7 @@ import java.util.Arrays;
 
 import static io.questdb.griffin.SqlCodeGenerator.GKK_HOUR_INT;
 
-public class NSumDoubleVectorAggregateFunction extends DoubleFunction implements VectorAggregateFunction {
+public class NSumDoubleVectorAggregateFunction extends DoubleFunction implements KeyedVectorAggregateFunction {
 
     private final int columnIndex;
     private final double[] sum;
@@ -53,8 +53,8 @@ public class NSumDoubleVectorAggregateFunction extends DoubleFunction implements
     public NSumDoubleVectorAggregateFunction(int position, int keyKind, int columnIndex, int workerCount) {
         super(position);
         this.columnIndex = columnIndex;
-        this.sum = new double[workerCount * Misc.CACHE_LINE_SIZE];
-        this.count = new long[workerCount * Misc.CACHE_LINE_SIZE];
+        this.sum = new double[(workerCount + 1) * Misc.CACHE_LINE_SIZE];
+        this.count = new long[(workerCount + 1) * Misc.CACHE_LINE_SIZE];
         this.workerCount = workerCount;
         if (keyKind == GKK_HOUR_INT) {
             this.distinctFunc = Rosti::keyedHourDistinct;
@@ -111,7 +111,7 @@ public class NSumDoubleVectorAggregateFunction extends DoubleFunction implements
             // Neumaier compensated summation
             final double x = Vect.sumDoubleNeumaier(address, count);
             if (x == x) {
-                final int offset = workerId * Misc.CACHE_LINE_SIZE;
+                final int offset = VectorAggregateFunction.slot(workerId) * Misc.CACHE_LINE_SIZE;
                 final double sum = this.sum[offset];
                 final double t = sum + x;
                 double c = this.sum[offset + 1];
@@ -148,7 +148,7 @@ public class NSumDoubleVectorAggregateFunction extends DoubleFunction implements
         double sum = 0;
         long count = 0;
         double c = 0;
-        for (int i = 0; i < workerCount; i++) {
+        for (int i = 0; i <= workerCount; i++) {
             final int offset = i * Misc.CACHE_LINE_SIZE;
             double x = this.sum[offset] + this.sum[offset + 1];
             double t = sum + x;
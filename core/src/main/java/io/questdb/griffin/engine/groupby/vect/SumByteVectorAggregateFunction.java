@@ -0,0 +1,68 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.ByteFunction;
+import io.questdb.std.Unsafe;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class SumByteVectorAggregateFunction extends ByteFunction implements VectorAggregateFunction {
+    private final LongAdder sum = new LongAdder();
+    private final int columnIndex;
+
+    public SumByteVectorAggregateFunction(int position, int keyKind, int columnIndex, int workerCount) {
+        super(position);
+        this.columnIndex = columnIndex;
+    }
+
+    @Override
+    public void aggregate(long address, long count, int workerId) {
+        if (address != 0) {
+            long value = 0;
+            for (long i = 0; i < count; i++) {
+                value += Unsafe.getUnsafe().getByte(address + i);
+            }
+            sum.add(value);
+        }
+    }
+
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    @Override
+    public void clear() {
+        sum.reset();
+    }
+
+    @Override
+    public byte getByte(Record rec) {
+        // same overflow semantics as row-by-row sum()
+        return (byte) sum.sum();
+    }
+}
@@ -38,7 +38,7 @@ import java.util.Arrays;
 
 import static io.questdb.griffin.SqlCodeGenerator.GKK_HOUR_INT;
 
-public class SumDoubleVectorAggregateFunction extends DoubleFunction implements VectorAggregateFunction {
+public class SumDoubleVectorAggregateFunction extends DoubleFunction implements KeyedVectorAggregateFunction {
     private final int columnIndex;
     private final double[] sum;
     private final long[] count;
@@ -50,8 +50,8 @@ public class SumDoubleVectorAggregateFunction extends DoubleFunction implements
     public SumDoubleVectorAggregateFunction(int position, int keyKind, int columnIndex, int workerCount) {
         super(position);
         this.columnIndex = columnIndex;
-        this.sum = new double[workerCount * Misc.CACHE_LINE_SIZE];
-        this.count = new long[workerCount * Misc.CACHE_LINE_SIZE];
+        this.sum = new double[(workerCount + 1) * Misc.CACHE_LINE_SIZE];
+        this.count = new long[(workerCount + 1) * Misc.CACHE_LINE_SIZE];
         this.workerCount = workerCount;
 
         if (keyKind == GKK_HOUR_INT) {
@@ -68,7 +68,7 @@ public class SumDoubleVectorAggregateFunction extends DoubleFunction implements
         if (address != 0) {
             final double value = Vect.sumDouble(address, count);
             if (value == value) {
-                final int offset = workerId * Misc.CACHE_LINE_SIZE;
+                final int offset = VectorAggregateFunction.slot(workerId) * Misc.CACHE_LINE_SIZE;
                 this.sum[offset] += value;
                 this.count[offset]++;
             }
@@ -124,7 +124,7 @@ public class SumDoubleVectorAggregateFunction extends DoubleFunction implements
     public void wrapUp(long pRosti) {
         double sum = 0;
         long count = 0;
-        for (int i = 0; i < workerCount; i++) {
+        for (int i = 0; i <= workerCount; i++) {
             final int offset = i * Misc.CACHE_LINE_SIZE;
             sum += this.sum[offset];
             count += this.count[offset];
@@ -136,7 +136,7 @@ public class SumDoubleVectorAggregateFunction extends DoubleFunction implements
     public double getDouble(@Nullable Record rec) {
         double sum = 0;
         long count = 0;
-        for (int i = 0; i < workerCount; i++) {
+        for (int i = 0; i <= workerCount; i++) {
             final int offset = i * Misc.CACHE_LINE_SIZE;
             sum += this.sum[offset];
             count += this.count[offset];
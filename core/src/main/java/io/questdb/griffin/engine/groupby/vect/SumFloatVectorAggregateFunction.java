@@ -0,0 +1,87 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.FloatFunction;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+
+import java.util.Arrays;
+
+public class SumFloatVectorAggregateFunction extends FloatFunction implements VectorAggregateFunction {
+    private final int columnIndex;
+    private final double[] sum;
+    private final long[] count;
+    private final int workerCount;
+
+    public SumFloatVectorAggregateFunction(int position, int keyKind, int columnIndex, int workerCount) {
+        super(position);
+        this.columnIndex = columnIndex;
+        this.sum = new double[(workerCount + 1) * Misc.CACHE_LINE_SIZE];
+        this.count = new long[(workerCount + 1) * Misc.CACHE_LINE_SIZE];
+        this.workerCount = workerCount;
+    }
+
+    @Override
+    public void aggregate(long address, long count, int workerId) {
+        if (address != 0) {
+            double value = 0;
+            for (long i = 0; i < count; i++) {
+                final float v = Unsafe.getUnsafe().getFloat(address + (i << 2));
+                if (v == v) {
+                    value += v;
+                }
+            }
+            final int offset = VectorAggregateFunction.slot(workerId) * Misc.CACHE_LINE_SIZE;
+            this.sum[offset] += value;
+            // same as row-by-row sum(), NaN values are skipped but result is only NaN when there are no rows
+            this.count[offset] += count;
+        }
+    }
+
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(sum, 0);
+        Arrays.fill(count, 0);
+    }
+
+    @Override
+    public float getFloat(Record rec) {
+        double sum = 0;
+        long count = 0;
+        for (int i = 0; i <= workerCount; i++) {
+            final int offset = i * Misc.CACHE_LINE_SIZE;
+            sum += this.sum[offset];
+            count += this.count[offset];
+        }
+        return count > 0 ? (float) sum : Float.NaN;
+    }
+}
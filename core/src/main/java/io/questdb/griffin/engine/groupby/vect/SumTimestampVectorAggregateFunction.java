@@ -37,7 +37,7 @@ import java.util.concurrent.atomic.LongAdder;
 
 import static io.questdb.griffin.SqlCodeGenerator.GKK_HOUR_INT;
 
-public class SumTimestampVectorAggregateFunction extends TimestampFunction implements VectorAggregateFunction {
+public class SumTimestampVectorAggregateFunction extends TimestampFunction implements KeyedVectorAggregateFunction {
     private final LongAdder sum = new LongAdder();
     private final LongAdder count = new LongAdder();
     private final int columnIndex;
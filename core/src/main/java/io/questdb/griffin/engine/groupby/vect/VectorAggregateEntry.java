@@ -25,11 +25,14 @@
 package io.questdb.griffin.engine.groupby.vect;
 
 import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.DirectLongList;
 import io.questdb.std.Mutable;
 import io.questdb.std.Unsafe;
 
 public class VectorAggregateEntry implements Mutable {
 
+    // number of filtered rows gathered into contiguous memory before they are passed to aggregate function
+    static final long SELECTED_ROWS_CHUNK_SIZE = 64 * 1024;
     private static final long TARGET_SEQUENCE_OFFSET;
 
     static {
@@ -47,6 +50,88 @@ public class VectorAggregateEntry implements Mutable {
     @SuppressWarnings({"FieldCanBeLocal", "unused"})
     private int targetSequence;
     private CountDownLatchSPI doneLatch;
+    private DirectLongList selectedRows;
+    private int keySizeShift;
+    private int valueSizeShift;
+
+    /**
+     * Aggregates rows selected by filter. Values of these rows are copied into contiguous chunks of memory, so
+     * that aggregate functions can use the same vectorised code they use for unfiltered page frames.
+     *
+     * @param vaf            aggregate function
+     * @param pRosti         keyed aggregation map or 0 when aggregation is not keyed
+     * @param keyAddress     address of key column page, ignored when aggregation is not keyed
+     * @param keySizeShift   power of 2 size of key column value
+     * @param valueAddress   address of value column page, 0 when column does not exist in this page frame
+     * @param valueSizeShift power of 2 size of value column value
+     * @param rows           page frame relative indexes of selected rows
+     * @param workerId       id of worker thread performing aggregation
+     */
+    static void aggregateSelected(
+            VectorAggregateFunction vaf,
+            long pRosti,
+            long keyAddress,
+            int keySizeShift,
+            long valueAddress,
+            int valueSizeShift,
+            DirectLongList rows,
+            int workerId
+    ) {
+        final long rowCount = rows.size();
+        final long chunkSize = Math.min(rowCount, SELECTED_ROWS_CHUNK_SIZE);
+        final long keyBufSize = pRosti != 0 ? chunkSize << keySizeShift : 0;
+        final long valueBufSize = valueAddress != 0 ? chunkSize << valueSizeShift : 0;
+        final long pKeys = keyBufSize > 0 ? Unsafe.malloc(keyBufSize) : 0;
+        final long pValues = valueBufSize > 0 ? Unsafe.malloc(valueBufSize) : 0;
+        try {
+            for (long lo = 0; lo < rowCount; lo += chunkSize) {
+                final long count = Math.min(chunkSize, rowCount - lo);
+                if (pRosti != 0) {
+                    gather(rows, lo, count, keyAddress, keySizeShift, pKeys);
+                }
+                if (pValues != 0) {
+                    gather(rows, lo, count, valueAddress, valueSizeShift, pValues);
+                }
+                if (pRosti != 0) {
+                    ((KeyedVectorAggregateFunction) vaf).aggregate(pRosti, pKeys, pValues, count, workerId);
+                } else {
+                    vaf.aggregate(pValues, count, workerId);
+                }
+            }
+        } finally {
+            if (pKeys != 0) {
+                Unsafe.free(pKeys, keyBufSize);
+            }
+            if (pValues != 0) {
+                Unsafe.free(pValues, valueBufSize);
+            }
+        }
+    }
+
+    private static void gather(DirectLongList rows, long lo, long count, long srcAddress, int sizeShift, long dstAddress) {
+        switch (sizeShift) {
+            case 0:
+                for (long i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putByte(dstAddress + i, Unsafe.getUnsafe().getByte(srcAddress + rows.get(lo + i)));
+                }
+                break;
+            case 1:
+                for (long i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putShort(dstAddress + (i << 1), Unsafe.getUnsafe().getShort(srcAddress + (rows.get(lo + i) << 1)));
+                }
+                break;
+            case 2:
+                for (long i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putInt(dstAddress + (i << 2), Unsafe.getUnsafe().getInt(srcAddress + (rows.get(lo + i) << 2)));
+                }
+                break;
+            default:
+                for (long i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putLong(dstAddress + (i << 3), Unsafe.getUnsafe().getLong(srcAddress + (rows.get(lo + i) << 3)));
+                }
+                break;
+        }
+    }
 
     void of(
             int sequence,
@@ -56,6 +141,21 @@ public class VectorAggregateEntry implements Mutable {
             long valuePageAddress,
             long valuePageCount,
             CountDownLatchSPI doneLatch
+    ) {
+        of(sequence, vaf, pRosti, keyPageAddress, valuePageAddress, valuePageCount, doneLatch, null, 0, 0);
+    }
+
+    void of(
+            int sequence,
+            VectorAggregateFunction vaf,
+            long[] pRosti,
+            long keyPageAddress,
+            long valuePageAddress,
+            long valuePageCount,
+            CountDownLatchSPI doneLatch,
+            DirectLongList selectedRows,
+            int keySizeShift,
+            int valueSizeShift
     ) {
         this.pRosti = pRosti;
         this.keyAddress = keyPageAddress;
@@ -65,6 +165,9 @@ public class VectorAggregateEntry implements Mutable {
         this.srcSequence = sequence;
         this.targetSequence = sequence;
         this.doneLatch = doneLatch;
+        this.selectedRows = selectedRows;
+        this.keySizeShift = keySizeShift;
+        this.valueSizeShift = valueSizeShift;
     }
 
     public boolean tryLock() {
@@ -73,8 +176,19 @@ public class VectorAggregateEntry implements Mutable {
 
     public boolean run(int workerId) {
         if (tryLock()) {
-            if (pRosti != null) {
-                func.aggregate(pRosti[workerId], keyAddress, valueAddress, valueCount, workerId);
+            if (selectedRows != null) {
+                aggregateSelected(
+                        func,
+                        pRosti != null ? pRosti[VectorAggregateFunction.slot(workerId)] : 0,
+                        keyAddress,
+                        keySizeShift,
+                        valueAddress,
+                        valueSizeShift,
+                        selectedRows,
+                        workerId
+                );
+            } else if (pRosti != null) {
+                ((KeyedVectorAggregateFunction) func).aggregate(pRosti[VectorAggregateFunction.slot(workerId)], keyAddress, valueAddress, valueCount, workerId);
             } else {
                 func.aggregate(valueAddress, valueCount, workerId);
             }
@@ -89,5 +203,6 @@ public class VectorAggregateEntry implements Mutable {
         this.valueAddress = 0;
         this.valueCount = 0;
         func = null;
+        selectedRows = null;
     }
 }
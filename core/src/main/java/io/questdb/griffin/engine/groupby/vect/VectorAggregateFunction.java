@@ -24,28 +24,35 @@
 
 package io.questdb.griffin.engine.groupby.vect;
 
-import io.questdb.cairo.ArrayColumnTypes;
 import io.questdb.cairo.sql.Function;
 import io.questdb.std.Mutable;
 
+/**
+ * Aggregate function, which consumes column values a page at a time. All vector aggregate functions
+ * can aggregate without keys, keyed aggregation requires {@link KeyedVectorAggregateFunction}.
+ */
 public interface VectorAggregateFunction extends Function, Mutable {
-
+    // id of query thread, when it is not a pool worker
+    int QUERY_THREAD_ID = -1;
+
+    // functions that keep state per worker allocate workerCount + 1 slots, the first slot belongs to query thread
+    static int slot(int workerId) {
+        return workerId + 1;
+    }
+
+    /**
+     * @param address  address of column values, 0 when column does not exist in the page frame
+     * @param count    number of values
+     * @param workerId id of pool worker or {@link #QUERY_THREAD_ID}. Same id is never used by two threads
+     *                 at the same time, which makes per-worker state safe to update without locks
+     */
     void aggregate(long address, long count, int workerId);
 
-    void aggregate(long pRosti, long keyAddress, long valueAddress, long count, int workerId);
-
     int getColumnIndex();
 
-    // value offset in map
-    int getValueOffset();
-
-    void initRosti(long pRosti);
-
-    void merge(long pRostiA, long pRostiB);
-
-    void pushValueTypes(ArrayColumnTypes types);
-
-    // sets null as result of aggregation of all nulls
-    // this typically checks non-null count and replaces 0 with null if all values were null
-    void wrapUp(long pRosti);
+    // functions such as first() and last() depend on the order of page frames, they are
+    // aggregated by the query thread one frame at a time rather than on the worker pool
+    default boolean isFrameOrderSensitive() {
+        return false;
+    }
 }
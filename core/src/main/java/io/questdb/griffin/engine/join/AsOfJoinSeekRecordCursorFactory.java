@@ -0,0 +1,285 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.Rows;
+
+/**
+ * ASOF and LT join against table, which is read in its entirety. Instead of scanning slave
+ * alongside master this factory binary searches slave partitions for the master timestamp. When
+ * join is keyed by indexed symbol the bitmap index is walked backwards from found row to get
+ * latest row for the key. Cost of the join is therefore proportional to the master row count
+ * rather than to the size of slave table.
+ */
+public class AsOfJoinSeekRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory masterFactory;
+    private final TableReaderRecordCursorFactory slaveFactory;
+    private final SeekJoinRecordCursor cursor;
+
+    /**
+     * @param masterKeyIndex index of master symbol key column or -1 when join has no key
+     * @param slaveKeyIndex  index of slave indexed symbol key column or -1 when join has no key
+     * @param strict         when true slave timestamp must be strictly less than master timestamp, which is LT join
+     */
+    public AsOfJoinSeekRecordCursorFactory(
+            RecordMetadata metadata,
+            RecordCursorFactory masterFactory,
+            TableReaderRecordCursorFactory slaveFactory,
+            int columnSplit,
+            int masterKeyIndex,
+            int slaveKeyIndex,
+            boolean strict
+    ) {
+        super(metadata);
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        final RecordMetadata slaveMetadata = slaveFactory.getMetadata();
+        this.cursor = new SeekJoinRecordCursor(
+                columnSplit,
+                NullRecordFactory.getInstance(slaveMetadata),
+                masterFactory.getMetadata().getTimestampIndex(),
+                masterKeyIndex,
+                slaveKeyIndex == -1 ? null : slaveMetadata.getColumnName(slaveKeyIndex),
+                strict
+        );
+    }
+
+    @Override
+    public void close() {
+        ((JoinRecordMetadata) getMetadata()).close();
+        masterFactory.close();
+        slaveFactory.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        RecordCursor masterCursor = masterFactory.getCursor(executionContext);
+        try {
+            cursor.of(masterCursor, slaveFactory.getCursor(executionContext));
+        } catch (CairoException e) {
+            masterCursor.close();
+            throw e;
+        }
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).child(masterFactory).child(slaveFactory);
+    }
+
+    private static class SeekJoinRecordCursor implements NoRandomAccessRecordCursor {
+        private final OuterJoinRecord record;
+        private final int columnSplit;
+        private final int masterTimestampIndex;
+        private final int masterKeyIndex;
+        private final CharSequence slaveKeyColumnName;
+        private final boolean strict;
+        private RecordCursor masterCursor;
+        private TableReaderSelectedColumnRecordCursor slaveCursor;
+        private Record masterRecord;
+        private Record slaveRecB;
+        private TableReader reader;
+        private int slaveTimestampIndex;
+        private int slaveKeyIndex;
+        private SymbolMapReader slaveSymbols;
+
+        public SeekJoinRecordCursor(
+                int columnSplit,
+                Record nullRecord,
+                int masterTimestampIndex,
+                int masterKeyIndex,
+                CharSequence slaveKeyColumnName,
+                boolean strict
+        ) {
+            this.record = new OuterJoinRecord(columnSplit, nullRecord);
+            this.columnSplit = columnSplit;
+            this.masterTimestampIndex = masterTimestampIndex;
+            this.masterKeyIndex = masterKeyIndex;
+            this.slaveKeyColumnName = slaveKeyColumnName;
+            this.strict = strict;
+        }
+
+        @Override
+        public void close() {
+            masterCursor = Misc.free(masterCursor);
+            slaveCursor = Misc.free(slaveCursor);
+            reader = null;
+            slaveSymbols = null;
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterCursor.getSymbolTable(columnIndex);
+            }
+            return slaveCursor.getSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (masterCursor.hasNext()) {
+                final long timestamp = masterRecord.getTimestamp(masterTimestampIndex);
+                final long rowId;
+                if (!strict) {
+                    rowId = seek0(timestamp);
+                } else if (timestamp != Long.MIN_VALUE) {
+                    // LT join looks for the last row before master timestamp
+                    rowId = seek0(timestamp - 1);
+                } else {
+                    rowId = -1;
+                }
+
+                if (rowId > -1) {
+                    slaveCursor.recordAt(slaveRecB, rowId);
+                    record.hasSlave(true);
+                } else {
+                    record.hasSlave(false);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void toTop() {
+            record.hasSlave(false);
+            masterCursor.toTop();
+        }
+
+        @Override
+        public long size() {
+            return masterCursor.size();
+        }
+
+        // finds last partition, which can contain timestamp
+        private int findPartition(long timestamp) {
+            int low = 0;
+            int high = reader.getPartitionCount() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (reader.getPartitionTimestamp(mid) <= timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+
+        // finds last row in partition, which timestamp is not greater than given
+        private long findRow(int partitionIndex, long partitionSize, long timestamp) {
+            final ReadOnlyColumn column = reader.getColumn(
+                    TableReader.getPrimaryColumnIndex(reader.getColumnBase(partitionIndex), slaveTimestampIndex)
+            );
+            long low = 0;
+            long high = partitionSize - 1;
+            while (low <= high) {
+                long mid = (low + high) >>> 1;
+                if (column.getLong(mid * Long.BYTES) <= timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+
+        private void of(RecordCursor masterCursor, TableReaderSelectedColumnRecordCursor slaveCursor) {
+            this.masterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            this.masterRecord = masterCursor.getRecord();
+            this.slaveRecB = slaveCursor.getRecordB();
+            this.reader = slaveCursor.getTableReader();
+            this.slaveTimestampIndex = reader.getMetadata().getTimestampIndex();
+            if (slaveKeyColumnName != null) {
+                this.slaveKeyIndex = reader.getMetadata().getColumnIndex(slaveKeyColumnName);
+                this.slaveSymbols = reader.getSymbolMapReader(slaveKeyIndex);
+            }
+            record.of(masterRecord, slaveRecB);
+            record.hasSlave(false);
+        }
+
+        private long seek(long timestamp) {
+            final int partitionHi = findPartition(timestamp);
+            for (int partitionIndex = partitionHi; partitionIndex > -1; partitionIndex--) {
+                final long partitionSize = reader.openPartition(partitionIndex);
+                if (partitionSize > 0) {
+                    // partitions below the first one contain only older rows
+                    final long row = partitionIndex == partitionHi ? findRow(partitionIndex, partitionSize, timestamp) : partitionSize - 1;
+                    if (row > -1) {
+                        return Rows.toRowID(partitionIndex, row);
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private long seek0(long timestamp) {
+            return masterKeyIndex == -1 ? seek(timestamp) : seekKey(timestamp);
+        }
+
+        private long seekKey(long timestamp) {
+            final int symbolKey = slaveSymbols.keyOf(masterRecord.getSym(masterKeyIndex));
+            if (symbolKey == SymbolTable.VALUE_NOT_FOUND) {
+                return -1;
+            }
+
+            final int indexKey = TableUtils.toIndexKey(symbolKey);
+            final int partitionHi = findPartition(timestamp);
+            for (int partitionIndex = partitionHi; partitionIndex > -1; partitionIndex--) {
+                final long partitionSize = reader.openPartition(partitionIndex);
+                if (partitionSize > 0) {
+                    final long row = partitionIndex == partitionHi ? findRow(partitionIndex, partitionSize, timestamp) : partitionSize - 1;
+                    if (row > -1) {
+                        final RowCursor rowCursor = reader.getBitmapIndexReader(
+                                reader.getColumnBase(partitionIndex),
+                                slaveKeyIndex,
+                                BitmapIndexReader.DIR_BACKWARD
+                        ).getCursor(true, indexKey, 0, row);
+                        if (rowCursor.hasNext()) {
+                            return Rows.toRowID(partitionIndex, rowCursor.next());
+                        }
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -28,12 +28,14 @@ import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.SqlExecutionContext;
 
 abstract class AbstractDataFrameRecordCursorFactory extends AbstractRecordCursorFactory {
     protected final DataFrameCursorFactory dataFrameCursorFactory;
+    private final ProfilingDataFrameCursor profilingDataFrameCursor = new ProfilingDataFrameCursor();
 
     public AbstractDataFrameRecordCursorFactory(RecordMetadata metadata, DataFrameCursorFactory dataFrameCursorFactory) {
         super(metadata);
@@ -42,9 +44,7 @@ abstract class AbstractDataFrameRecordCursorFactory extends AbstractRecordCursor
 
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) {
-        DataFrameCursor dataFrameCursor = dataFrameCursorFactory.getCursor(
-                executionContext.getCairoSecurityContext()
-        );
+        DataFrameCursor dataFrameCursor = getDataFrameCursor(executionContext);
         try {
             return getCursorInstance(dataFrameCursor, executionContext);
         } catch (CairoException e) {
@@ -53,6 +53,18 @@ abstract class AbstractDataFrameRecordCursorFactory extends AbstractRecordCursor
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).child(dataFrameCursorFactory);
+    }
+
+    protected DataFrameCursor getDataFrameCursor(SqlExecutionContext executionContext) {
+        return profilingDataFrameCursor.of(
+                dataFrameCursorFactory.getCursor(executionContext.getCairoSecurityContext()),
+                executionContext.getQueryProfile()
+        );
+    }
+
     protected abstract RecordCursor getCursorInstance(
             DataFrameCursor dataFrameCursor,
             SqlExecutionContext executionContext
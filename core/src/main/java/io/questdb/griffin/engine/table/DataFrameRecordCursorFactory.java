@@ -42,6 +42,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
     private final boolean framingSupported;
     private final IntList columnIndexes;
     private final IntList columnSizes;
+    private final RowCursorFactory rowCursorFactory;
     private TableReaderPageFrameCursor pageFrameCursor;
 
     public DataFrameRecordCursorFactory(
@@ -62,6 +63,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         this.framingSupported = framingSupported;
         this.columnIndexes = columnIndexes;
         this.columnSizes = columnSizes;
+        this.rowCursorFactory = rowCursorFactory;
     }
 
     @Override
@@ -88,7 +90,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
 
     @Override
     public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) {
-        DataFrameCursor dataFrameCursor = dataFrameCursorFactory.getCursor(executionContext.getCairoSecurityContext());
+        DataFrameCursor dataFrameCursor = getDataFrameCursor(executionContext);
         if (pageFrameCursor != null) {
             return pageFrameCursor.of(dataFrameCursor);
         } else if (framingSupported) {
@@ -109,6 +111,15 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         Misc.free(filter);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this);
+        if (filter != null) {
+            sink.attr("filter").val("true");
+        }
+        sink.child(dataFrameCursorFactory).child(rowCursorFactory);
+    }
+
     private static class TableReaderPageFrameCursor implements PageFrameCursor {
         private final LongList columnPageNextAddress = new LongList();
         private final LongList columnPageAddress = new LongList();
@@ -238,11 +249,10 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
 
         private PageFrame computeFrame(long min) {
             for (int i = 0; i < columnCount; i++) {
-                final int columnIndex = columnIndexes.getQuick(i);
                 final long top = topsRemaining.getQuick(i);
                 if (top > 0) {
                     topsRemaining.setQuick(i, top - min);
-                    columnPageAddress.setQuick(columnIndex, 0);
+                    columnPageAddress.setQuick(i, 0);
                 } else {
                     long addr = columnPageNextAddress.getQuick(i);
                     long psz = pageSizes.getQuick(i);
@@ -69,4 +69,9 @@ public class DeferredSymbolIndexFilteredRowCursorFactory implements RowCursorFac
     public boolean isEntity() {
         return false;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).attr("symbol").val(symbol);
+    }
 }
@@ -80,6 +80,11 @@ public class FilterOnSubQueryRecordCursorFactory extends AbstractDataFrameRecord
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).child(dataFrameCursorFactory).child(recordCursorFactory);
+    }
+
     @Override
     protected RecordCursor getCursorInstance(
             DataFrameCursor dataFrameCursor,
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Evaluates filter over rows of base page frames and exposes frames along with the list
+ * of rows that passed the filter. Frames without matching rows are skipped. Row lists
+ * are recycled in a ring sized after the worker count, a row list remains valid until
+ * {@link #getMaxInFlightFrames()} more frames are returned, so that consumers can process
+ * frames asynchronously without memory growing with the number of frames in the scan.
+ */
+class FilteredPageFrameCursor implements PageFrameCursor {
+    private static final int INITIAL_ROW_LIST_CAPACITY = 1024;
+    private static final int IN_FLIGHT_FRAMES_PER_WORKER = 2;
+    private final Function filter;
+    private final ObjList<DirectLongList> rowLists = new ObjList<>();
+    private final FilteredPageFrame frame = new FilteredPageFrame();
+    private final PageFrameRecord record = new PageFrameRecord(this);
+    private PageFrameCursor base;
+    private SqlExecutionInterruptor interruptor;
+    private int rowListIndex;
+    private int maxInFlightFrames;
+
+    FilteredPageFrameCursor(Function filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public void close() {
+        base = Misc.free(base);
+    }
+
+    @Override
+    public int getMaxInFlightFrames() {
+        return maxInFlightFrames;
+    }
+
+    @Override
+    public @Nullable PageFrame next() {
+        PageFrame baseFrame;
+        while ((baseFrame = base.next()) != null) {
+            final DirectLongList rows = nextRowList();
+            final long rowCount = baseFrame.getPageValueCount(0);
+            record.of(baseFrame);
+            for (long row = 0; row < rowCount; row++) {
+                interruptor.checkInterrupted();
+                record.setRow(row);
+                if (filter.getBool(record)) {
+                    rows.add(row);
+                }
+            }
+
+            if (rows.size() > 0) {
+                if (++rowListIndex == maxInFlightFrames) {
+                    rowListIndex = 0;
+                }
+                return frame.of(baseFrame, rows);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void toTop() {
+        base.toTop();
+        filter.toTop();
+        rowListIndex = 0;
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    void freeRowLists() {
+        Misc.freeObjList(rowLists);
+        rowLists.clear();
+    }
+
+    FilteredPageFrameCursor of(PageFrameCursor base, SqlExecutionContext executionContext) {
+        this.base = base;
+        this.rowListIndex = 0;
+        this.maxInFlightFrames = IN_FLIGHT_FRAMES_PER_WORKER * Math.max(1, executionContext.getWorkerCount());
+        this.interruptor = executionContext.getSqlExecutionInterruptor();
+        filter.init(this, executionContext);
+        return this;
+    }
+
+    private DirectLongList nextRowList() {
+        final DirectLongList rows;
+        if (rowListIndex < rowLists.size()) {
+            rows = rowLists.getQuick(rowListIndex);
+            rows.setPos(0);
+        } else {
+            rows = new DirectLongList(INITIAL_ROW_LIST_CAPACITY);
+            rowLists.add(rows);
+        }
+        return rows;
+    }
+
+    private static class FilteredPageFrame implements PageFrame {
+        private PageFrame base;
+        private DirectLongList rows;
+
+        @Override
+        public long getPageAddress(int columnIndex) {
+            return base.getPageAddress(columnIndex);
+        }
+
+        @Override
+        public long getPageValueCount(int columnIndex) {
+            return rows.size();
+        }
+
+        @Override
+        public DirectLongList getSelectedRows() {
+            return rows;
+        }
+
+        private FilteredPageFrame of(PageFrame base, DirectLongList rows) {
+            this.base = base;
+            this.rows = rows;
+            return this;
+        }
+    }
+}
@@ -24,16 +24,14 @@
 
 package io.questdb.griffin.engine.table;
 
-import io.questdb.cairo.sql.Function;
-import io.questdb.cairo.sql.RecordCursor;
-import io.questdb.cairo.sql.RecordCursorFactory;
-import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
 
 public class FilteredRecordCursorFactory implements RecordCursorFactory {
     private final RecordCursorFactory base;
     private final FilteredRecordCursor cursor;
     private final Function filter;
+    private FilteredPageFrameCursor pageFrameCursor;
 
     public FilteredRecordCursorFactory(RecordCursorFactory base, Function filter) {
         assert !(base instanceof FilteredRecordCursorFactory);
@@ -46,6 +44,9 @@ public class FilteredRecordCursorFactory implements RecordCursorFactory {
     public void close() {
         base.close();
         filter.close();
+        if (pageFrameCursor != null) {
+            pageFrameCursor.freeRowLists();
+        }
     }
 
     @Override
@@ -55,6 +56,23 @@ public class FilteredRecordCursorFactory implements RecordCursorFactory {
         return this.cursor;
     }
 
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) {
+        final PageFrameCursor baseCursor = base.getPageFrameCursor(executionContext);
+        if (baseCursor == null) {
+            return null;
+        }
+        if (pageFrameCursor == null) {
+            pageFrameCursor = new FilteredPageFrameCursor(filter);
+        }
+        return pageFrameCursor.of(baseCursor, executionContext);
+    }
+
+    @Override
+    public boolean supportPageFrameCursor() {
+        return base.supportPageFrameCursor();
+    }
+
     @Override
     public RecordMetadata getMetadata() {
         return base.getMetadata();
@@ -64,4 +82,9 @@ public class FilteredRecordCursorFactory implements RecordCursorFactory {
     public boolean recordCursorSupportsRandomAccess() {
         return base.recordCursorSupportsRandomAccess();
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).child(base);
+    }
 }
@@ -25,14 +25,21 @@
 package io.questdb.griffin.engine.table;
 
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.FullBwdDataFrameCursorFactory;
+import io.questdb.cairo.LatestRowReader;
 import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.std.DirectLongList;
 import io.questdb.std.IntList;
+import io.questdb.std.Misc;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class LatestByAllIndexedFilteredRecordCursorFactory extends AbstractTreeSetRecordCursorFactory {
+    private final DirectLongList keyRows;
+    private final LatestRowReader latestRowReader;
+
     public LatestByAllIndexedFilteredRecordCursorFactory(
             @NotNull CairoConfiguration configuration,
             @NotNull RecordMetadata metadata,
@@ -43,12 +50,24 @@ public class LatestByAllIndexedFilteredRecordCursorFactory extends AbstractTreeS
     ) {
         super(metadata, dataFrameCursorFactory, configuration);
         if (filter == null) {
-            this.cursor = new LatestByAllIndexedRecordCursor(columnIndex, rows, columnIndexes);
+            this.keyRows = new DirectLongList(configuration.getSqlLatestByRowCount());
+            // latest row cache is only good for the whole table
+            this.latestRowReader = dataFrameCursorFactory instanceof FullBwdDataFrameCursorFactory ? new LatestRowReader(configuration) : null;
+            this.cursor = new LatestByAllIndexedRecordCursor(columnIndex, rows, keyRows, latestRowReader, columnIndexes);
         } else {
+            this.keyRows = null;
+            this.latestRowReader = null;
             this.cursor = new LatestByAllIndexedFilteredRecordCursor(columnIndex, rows, filter, columnIndexes);
         }
     }
 
+    @Override
+    public void close() {
+        super.close();
+        Misc.free(keyRows);
+        Misc.free(latestRowReader);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return true;
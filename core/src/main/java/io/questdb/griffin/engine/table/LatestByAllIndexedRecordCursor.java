@@ -24,39 +24,83 @@
 
 package io.questdb.griffin.engine.table;
 
+import io.questdb.MessageBus;
 import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.LatestRowReader;
+import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.griffin.SqlExecutionContext;
-import io.questdb.std.DirectLongList;
-import io.questdb.std.IntHashSet;
-import io.questdb.std.IntList;
-import io.questdb.std.Rows;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.LatestByTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 class LatestByAllIndexedRecordCursor extends AbstractRecordListCursor {
 
+    private static final int KEY_FOUND = -2;
+    // partitions are opened in batches that double in size up to this limit, search stops
+    // as soon as all keys are found, which is usually in the newest partitions
+    private static final int MAX_FRAMES_PER_BATCH = 64;
     private final int columnIndex;
     private final IntHashSet found = new IntHashSet();
+    private final DirectLongList keyRows;
+    private final IntList keyFrames = new IntList();
+    private final IntList frameOffsets = new IntList();
+    private final ObjList<BitmapIndexReader> indexReaders = new ObjList<>();
+    private final IntList partitionIndexes = new IntList();
+    private final LongList frameRows = new LongList();
+    private final ObjList<LatestByEntry> entries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final LatestRowReader latestRowReader;
 
-    public LatestByAllIndexedRecordCursor(int columnIndex, DirectLongList rows, @NotNull IntList columnIndexes) {
+    public LatestByAllIndexedRecordCursor(
+            int columnIndex,
+            DirectLongList rows,
+            DirectLongList keyRows,
+            @Nullable LatestRowReader latestRowReader,
+            @NotNull IntList columnIndexes
+    ) {
         super(rows, columnIndexes);
         this.columnIndex = columnIndex;
+        this.keyRows = keyRows;
+        this.latestRowReader = latestRowReader;
     }
 
     @Override
     protected void buildTreeMap(SqlExecutionContext executionContext) {
         found.clear();
 
-        int keyCount = dataFrameCursor.getTableReader().getSymbolMapReader(columnIndex).size() + 1;
+        final TableReader reader = dataFrameCursor.getTableReader();
+        int keyCount = reader.getSymbolMapReader(columnIndex).size() + 1;
+        if (latestRowReader != null && latestRowReader.of(reader, columnIndex, keyCount)) {
+            findCached(reader.getPartitionCount(), keyCount);
+            return;
+        }
+
         int keyLo = 0;
         int keyHi = keyCount;
 
         int localLo = Integer.MAX_VALUE;
         int localHi = Integer.MIN_VALUE;
 
+        final MessageBus messageBus = executionContext.getMessageBus();
+        final int workerCount = executionContext.getWorkerCount();
+        final int lastPartitionIndex = reader.getPartitionCount() - 1;
+
         DataFrame frame;
         while ((frame = this.dataFrameCursor.next()) != null && found.size() < keyCount) {
+            // Last partition can still be written to and its index files may be remapped by cursors,
+            // it is always searched on this thread. Older partitions are searched by key ranges in parallel.
+            if (messageBus != null && workerCount > 1 && frame.getPartitionIndex() < lastPartitionIndex && keyLo < keyHi) {
+                findInParallel(messageBus, workerCount, frame, keyLo, keyHi);
+                break;
+            }
+
             final BitmapIndexReader indexReader = frame.getBitmapIndexReader(columnIndex, BitmapIndexReader.DIR_BACKWARD);
             final long rowLo = frame.getRowLo();
             final long rowHi = frame.getRowHi() - 1;
@@ -87,4 +131,184 @@ class LatestByAllIndexedRecordCursor extends AbstractRecordListCursor {
             localHi = Integer.MIN_VALUE;
         }
     }
+
+    private void addKeyRows(int keyLo, int keyHi, int frameCount) {
+        // Append found rows in the order single threaded search would have added them,
+        // e.g. by frame and then by key. Offset of each frame is computed from key counts.
+        frameOffsets.setAll(frameCount + 1, 0);
+        for (int i = keyLo; i < keyHi; i++) {
+            final int frameIndex = keyFrames.getQuick(i);
+            if (frameIndex > -1) {
+                frameOffsets.increment(frameIndex + 1);
+            }
+        }
+        for (int i = 1; i <= frameCount; i++) {
+            frameOffsets.setQuick(i, frameOffsets.getQuick(i) + frameOffsets.getQuick(i - 1));
+        }
+
+        final int base = rows.size();
+        final int foundCount = frameOffsets.getQuick(frameCount);
+        rows.setCapacity(base + foundCount);
+        rows.setPos(base + foundCount);
+        for (int i = keyLo; i < keyHi; i++) {
+            final int frameIndex = keyFrames.getQuick(i);
+            if (frameIndex > -1) {
+                final int offset = frameOffsets.getQuick(frameIndex);
+                rows.set(base + offset, keyRows.get(i));
+                frameOffsets.setQuick(frameIndex, offset + 1);
+            }
+        }
+    }
+
+    private void awaitEntries(int queuedCount) {
+        // start at the back to reduce chance of clashing with workers
+        for (int i = queuedCount - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
+            entries.getQuick(i).run();
+        }
+        doneLatch.await(queuedCount);
+    }
+
+    private void checkError(LatestByEntry entry) {
+        final Throwable e = entry.getError();
+        if (e instanceof CairoException) {
+            throw (CairoException) e;
+        }
+        if (e != null) {
+            throw CairoException.instance(0).put("latest by failed [error=").put(e.getMessage()).put(']');
+        }
+    }
+
+    private void findCached(int partitionCount, int keyCount) {
+        // keys with latest row unknown to the cache are looked up via index, partitions are
+        // searched newest first until all of those keys are found
+        keyRows.setCapacity(keyCount);
+        int unknownCount = 0;
+        for (int i = 0; i < keyCount; i++) {
+            final long rowId = latestRowReader.getRowId(i);
+            keyRows.set(i, rowId);
+            if (rowId == LatestRowReader.ROW_UNKNOWN) {
+                unknownCount++;
+            }
+        }
+
+        DataFrame frame;
+        while (unknownCount > 0 && (frame = this.dataFrameCursor.next()) != null) {
+            final BitmapIndexReader indexReader = frame.getBitmapIndexReader(columnIndex, BitmapIndexReader.DIR_BACKWARD);
+            final long rowLo = frame.getRowLo();
+            final long rowHi = frame.getRowHi() - 1;
+            for (int i = 0; i < keyCount; i++) {
+                if (keyRows.get(i) == LatestRowReader.ROW_UNKNOWN) {
+                    RowCursor cursor = indexReader.getCursor(false, i, rowLo, rowHi);
+                    if (cursor.hasNext()) {
+                        keyRows.set(i, Rows.toRowID(frame.getPartitionIndex(), cursor.next()));
+                        unknownCount--;
+                    }
+                }
+            }
+        }
+
+        // backward scan has frame per partition, latest partition comes first
+        keyFrames.setAll(keyCount, -1);
+        for (int i = 0; i < keyCount; i++) {
+            final long rowId = keyRows.get(i);
+            if (rowId > -1) {
+                keyFrames.setQuick(i, partitionCount - 1 - Rows.toPartitionIndex(rowId));
+            }
+        }
+        addKeyRows(0, keyCount, partitionCount);
+    }
+
+    private void findInParallel(MessageBus messageBus, int workerCount, DataFrame frame, int keyLo, int keyHi) {
+        keyFrames.setAll(keyHi, KEY_FOUND);
+        for (int i = keyLo; i < keyHi; i++) {
+            if (found.excludes(i)) {
+                keyFrames.setQuick(i, -1);
+            }
+        }
+        keyRows.setCapacity(keyHi);
+
+        final int rowKeyLo = keyLo;
+        final int rowKeyHi = keyHi;
+        int frameBase = 0;
+        int batchSize = 1;
+        while (true) {
+            // index readers are created and mapped on this thread, workers only read them
+            indexReaders.clear();
+            partitionIndexes.clear();
+            frameRows.clear();
+            do {
+                final BitmapIndexReader indexReader = frame.getBitmapIndexReader(columnIndex, BitmapIndexReader.DIR_BACKWARD);
+                indexReader.prepareConcurrentRead();
+                indexReaders.add(indexReader);
+                partitionIndexes.add(frame.getPartitionIndex());
+                frameRows.add(frame.getRowLo());
+                frameRows.add(frame.getRowHi() - 1);
+            } while (indexReaders.size() < batchSize && (frame = this.dataFrameCursor.next()) != null);
+
+            findInParallel(messageBus, workerCount, frameBase, keyLo, keyHi);
+            frameBase += indexReaders.size();
+
+            // narrow key range down to keys that are still pending
+            int localLo = Integer.MAX_VALUE;
+            int localHi = Integer.MIN_VALUE;
+            for (int i = keyLo; i < keyHi; i++) {
+                if (keyFrames.getQuick(i) == -1) {
+                    if (i < localLo) {
+                        localLo = i;
+                    }
+                    localHi = i;
+                }
+            }
+            keyLo = localLo;
+            keyHi = localHi + 1;
+
+            if (keyLo >= keyHi || frame == null || (frame = this.dataFrameCursor.next()) == null) {
+                break;
+            }
+            batchSize = Math.min(batchSize * 2, MAX_FRAMES_PER_BATCH);
+        }
+
+        addKeyRows(rowKeyLo, rowKeyHi, frameBase);
+    }
+
+    private void findInParallel(MessageBus messageBus, int workerCount, int frameBase, int keyLo, int keyHi) {
+        final int entryCount = Math.min(workerCount, keyHi - keyLo);
+        final int keysPerEntry = (keyHi - keyLo + entryCount - 1) / entryCount;
+        int queuedCount = 0;
+        doneLatch.reset();
+        try {
+            for (int lo = keyLo; lo < keyHi; lo += keysPerEntry) {
+                publish(messageBus, queuedCount++, lo, Math.min(lo + keysPerEntry, keyHi), frameBase);
+            }
+        } finally {
+            awaitEntries(queuedCount);
+        }
+
+        for (int i = 0; i < queuedCount; i++) {
+            checkError(entries.getQuick(i));
+        }
+    }
+
+    private LatestByEntry nextEntry(int index) {
+        if (index < entries.size()) {
+            return entries.getQuick(index);
+        }
+        final LatestByEntry entry = new LatestByEntry();
+        entries.add(entry);
+        return entry;
+    }
+
+    private void publish(MessageBus messageBus, int index, int keyLo, int keyHi, int frameBase) {
+        final LatestByEntry entry = nextEntry(index);
+        entry.of(index, keyLo, keyHi, frameBase, indexReaders, partitionIndexes, frameRows, keyFrames, keyRows, doneLatch);
+        final RingQueue<LatestByTask> queue = messageBus.getLatestByQueue();
+        final Sequence pubSeq = messageBus.getLatestByPubSequence();
+        final long seq = pubSeq.next();
+        if (seq < 0) {
+            entry.run();
+        } else {
+            queue.get(seq).entry = entry;
+            pubSeq.done(seq);
+        }
+    }
 }
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.*;
+
+/**
+ * Finds latest rows for a range of symbol keys. Data frames are shared by all entries of the query
+ * and are visited in the same order as by the single threaded cursor, e.g. newest first. Keys are
+ * pending while their frame index is -1, when row is found, entry stores row id and index of the
+ * frame it was found in. Frames can be searched in batches, frame index is then offset by the
+ * number of frames in preceding batches. Entries own disjoint key ranges and do not contend on shared lists.
+ * Entry is run by one thread at a time and keeps index cursor per frame, so that lookups do not allocate.
+ */
+public class LatestByEntry {
+    private static final Log LOG = LogFactory.getLog(LatestByEntry.class);
+    private static final long TARGET_SEQUENCE_OFFSET;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(LatestByEntry.class, "targetSequence");
+    }
+
+    private final ObjList<RowCursor> cursors = new ObjList<>();
+    private ObjList<BitmapIndexReader> indexReaders;
+    private IntList partitionIndexes;
+    private LongList frameRows;
+    private IntList keyFrames;
+    private DirectLongList keyRows;
+    private int frameBase;
+    private int keyLo;
+    private int keyHi;
+    private int srcSequence;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private CountDownLatchSPI doneLatch;
+    private Throwable error;
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                find();
+            } catch (Throwable e) {
+                LOG.error().$("latest by failed [e=").$(e).$(']').$();
+                error = e;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    void of(
+            int sequence,
+            int keyLo,
+            int keyHi,
+            int frameBase,
+            ObjList<BitmapIndexReader> indexReaders,
+            IntList partitionIndexes,
+            LongList frameRows,
+            IntList keyFrames,
+            DirectLongList keyRows,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.srcSequence = sequence;
+        this.keyLo = keyLo;
+        this.keyHi = keyHi;
+        this.frameBase = frameBase;
+        this.indexReaders = indexReaders;
+        this.partitionIndexes = partitionIndexes;
+        this.frameRows = frameRows;
+        this.keyFrames = keyFrames;
+        this.keyRows = keyRows;
+        this.doneLatch = doneLatch;
+        this.error = null;
+        // entry is reused by subsequent batches, worker that dequeues stale task must not
+        // be able to lock it before it is fully set up
+        Unsafe.getUnsafe().storeFence();
+        this.targetSequence = sequence;
+    }
+
+    private void find() {
+        int keyLo = this.keyLo;
+        int keyHi = this.keyHi;
+        for (int i = 0, n = indexReaders.size(); i < n && keyLo < keyHi; i++) {
+            final BitmapIndexReader indexReader = indexReaders.getQuick(i);
+            final int partitionIndex = partitionIndexes.getQuick(i);
+            final long rowLo = frameRows.getQuick(i * 2);
+            final long rowHi = frameRows.getQuick(i * 2 + 1);
+            // keys above key count do not occur in this partition
+            final int keyCount = indexReader.getKeyCount();
+
+            int localLo = Integer.MAX_VALUE;
+            int localHi = Integer.MIN_VALUE;
+            for (int key = keyLo; key < keyHi; key++) {
+                if (keyFrames.getQuick(key) == -1) {
+                    if (key < keyCount) {
+                        final RowCursor cursor = indexReader.getCursor(cursors.getQuiet(i), key, rowLo, rowHi);
+                        cursors.extendAndSet(i, cursor);
+                        if (cursor.hasNext()) {
+                            keyRows.set(key, Rows.toRowID(partitionIndex, cursor.next()));
+                            keyFrames.setQuick(key, frameBase + i);
+                            continue;
+                        }
+                    }
+                    // adjust range
+                    if (key < localLo) {
+                        localLo = key;
+                    }
+                    if (key > localHi) {
+                        localHi = key;
+                    }
+                }
+            }
+            keyLo = localLo;
+            keyHi = localHi + 1;
+        }
+    }
+}
@@ -112,4 +112,9 @@ public class LatestBySubQueryRecordCursorFactory extends AbstractTreeSetRecordCu
     public boolean recordCursorSupportsRandomAccess() {
         return true;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(this).child(dataFrameCursorFactory).child(recordCursorFactory);
+    }
 }
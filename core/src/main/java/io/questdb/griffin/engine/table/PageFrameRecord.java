@@ -0,0 +1,118 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+
+/**
+ * Record over fixed-size columns of a page frame. Columns that are not present in the frame,
+ * e.g. columns added after partition was created, have zero page address and read as nulls.
+ */
+class PageFrameRecord implements Record {
+    private final SymbolTableSource symbolTableSource;
+    private PageFrame frame;
+    private long row;
+
+    PageFrameRecord(SymbolTableSource symbolTableSource) {
+        this.symbolTableSource = symbolTableSource;
+    }
+
+    @Override
+    public boolean getBool(int col) {
+        final long address = frame.getPageAddress(col);
+        return address != 0 && Unsafe.getUnsafe().getByte(address + row) == 1;
+    }
+
+    @Override
+    public byte getByte(int col) {
+        final long address = frame.getPageAddress(col);
+        return address == 0 ? 0 : Unsafe.getUnsafe().getByte(address + row);
+    }
+
+    @Override
+    public char getChar(int col) {
+        final long address = frame.getPageAddress(col);
+        return address == 0 ? 0 : Unsafe.getUnsafe().getChar(address + (row << 1));
+    }
+
+    @Override
+    public long getDate(int col) {
+        return getLong(col);
+    }
+
+    @Override
+    public double getDouble(int col) {
+        final long address = frame.getPageAddress(col);
+        return address == 0 ? Double.NaN : Unsafe.getUnsafe().getDouble(address + (row << 3));
+    }
+
+    @Override
+    public float getFloat(int col) {
+        final long address = frame.getPageAddress(col);
+        return address == 0 ? Float.NaN : Unsafe.getUnsafe().getFloat(address + (row << 2));
+    }
+
+    @Override
+    public int getInt(int col) {
+        final long address = frame.getPageAddress(col);
+        return address == 0 ? Numbers.INT_NaN : Unsafe.getUnsafe().getInt(address + (row << 2));
+    }
+
+    @Override
+    public long getLong(int col) {
+        final long address = frame.getPageAddress(col);
+        return address == 0 ? Numbers.LONG_NaN : Unsafe.getUnsafe().getLong(address + (row << 3));
+    }
+
+    @Override
+    public short getShort(int col) {
+        final long address = frame.getPageAddress(col);
+        return address == 0 ? 0 : Unsafe.getUnsafe().getShort(address + (row << 1));
+    }
+
+    @Override
+    public CharSequence getSym(int col) {
+        final long address = frame.getPageAddress(col);
+        return address == 0 ? null : symbolTableSource.getSymbolTable(col).valueOf(Unsafe.getUnsafe().getInt(address + (row << 2)));
+    }
+
+    @Override
+    public long getTimestamp(int col) {
+        return getLong(col);
+    }
+
+    void of(PageFrame frame) {
+        this.frame = frame;
+        this.row = 0;
+    }
+
+    void setRow(long row) {
+        this.row = row;
+    }
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.griffin.QueryProfile;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Counts data frames and rows, which table scan is about to read, into profile of
+ * the current query.
+ */
+class ProfilingDataFrameCursor implements DataFrameCursor {
+    private DataFrameCursor base;
+    private QueryProfile profile;
+
+    @Override
+    public void close() {
+        base.close();
+    }
+
+    @Override
+    public StaticSymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public TableReader getTableReader() {
+        return base.getTableReader();
+    }
+
+    @Override
+    public @Nullable DataFrame next() {
+        final DataFrame frame = base.next();
+        if (frame != null) {
+            profile.addFrameScanned(frame.getRowHi() - frame.getRowLo());
+        }
+        return frame;
+    }
+
+    @Override
+    public boolean reload() {
+        return base.reload();
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    @Override
+    public void toTop() {
+        base.toTop();
+    }
+
+    ProfilingDataFrameCursor of(DataFrameCursor base, QueryProfile profile) {
+        this.base = base;
+        this.profile = profile;
+        return this;
+    }
+}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.QueryProfile;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.ObjList;
+
+/**
+ * Snapshot of engine query log, oldest query first. Phase timings and CPU time are in nanoseconds,
+ * CPU time is 0 when JVM does not measure thread CPU time.
+ */
+public class QueryLogRecordCursorFactory implements RecordCursorFactory {
+    private static final RecordMetadata METADATA;
+    private static final int TIMESTAMP_COLUMN = 0;
+    private static final int QUERY_COLUMN = 1;
+    private static final int TOTAL_COLUMN = 2;
+    private static final int CPU_COLUMN = 3;
+    private static final int PARSE_COLUMN = 4;
+    private static final int OPTIMISE_COLUMN = 5;
+    private static final int CODEGEN_COLUMN = 6;
+    private static final int EXECUTE_COLUMN = 7;
+    private static final int SERIALIZE_COLUMN = 8;
+    private static final int ROWS_SCANNED_COLUMN = 9;
+    private static final int FRAMES_SCANNED_COLUMN = 10;
+    private static final int ROWS_RETURNED_COLUMN = 11;
+    private static final int BYTES_SENT_COLUMN = 12;
+    private static final int MEM_USED_PEAK_COLUMN = 13;
+    private static final int SLOW_COLUMN = 14;
+    private static final int ABORTED_COLUMN = 15;
+
+    static {
+        final GenericRecordMetadata metadata = new GenericRecordMetadata();
+        metadata.add(new TableColumnMetadata("timestamp", ColumnType.TIMESTAMP));
+        metadata.add(new TableColumnMetadata("query", ColumnType.STRING));
+        metadata.add(new TableColumnMetadata("total", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("cpu", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("parse", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("optimise", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("codegen", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("execute", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("serialize", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("rowsScanned", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("framesScanned", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("rowsReturned", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("bytesSent", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("memUsedPeak", ColumnType.LONG));
+        metadata.add(new TableColumnMetadata("slow", ColumnType.BOOLEAN));
+        metadata.add(new TableColumnMetadata("aborted", ColumnType.BOOLEAN));
+        METADATA = metadata;
+    }
+
+    private final ObjList<QueryProfile> profiles = new ObjList<>();
+    private final QueryLogRecordCursor cursor = new QueryLogRecordCursor();
+    private final long slowQueryThresholdNanos;
+
+    public QueryLogRecordCursorFactory(long slowQueryThreshold) {
+        this.slowQueryThresholdNanos = slowQueryThreshold * 1_000_000L;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        cursor.of(executionContext.getCairoEngine().getQueryLog().copyTo(profiles));
+        return cursor;
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return METADATA;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    private class QueryLogRecordCursor implements RecordCursor {
+        private final QueryLogRecord recordA = new QueryLogRecord();
+        private final QueryLogRecord recordB = new QueryLogRecord();
+        private int size;
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (recordA.index < size - 1) {
+                recordA.index++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordB;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((QueryLogRecord) record).index = (int) atRowId;
+        }
+
+        @Override
+        public void toTop() {
+            recordA.index = -1;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        private void of(int size) {
+            this.size = size;
+            toTop();
+        }
+    }
+
+    private class QueryLogRecord implements Record {
+        private int index;
+
+        @Override
+        public boolean getBool(int col) {
+            if (col == ABORTED_COLUMN) {
+                return profile().isAborted();
+            }
+            assert col == SLOW_COLUMN;
+            return profile().getTotalNanos() > slowQueryThresholdNanos;
+        }
+
+        @Override
+        public long getLong(int col) {
+            final QueryProfile profile = profile();
+            switch (col) {
+                case TOTAL_COLUMN:
+                    return profile.getTotalNanos();
+                case CPU_COLUMN:
+                    return profile.getCpuNanos();
+                case PARSE_COLUMN:
+                    return profile.getParseNanos();
+                case OPTIMISE_COLUMN:
+                    return profile.getOptimiseNanos();
+                case CODEGEN_COLUMN:
+                    return profile.getCodeGenNanos();
+                case EXECUTE_COLUMN:
+                    return profile.getExecuteNanos();
+                case SERIALIZE_COLUMN:
+                    return profile.getSerializeNanos();
+                case ROWS_SCANNED_COLUMN:
+                    return profile.getRowsScanned();
+                case FRAMES_SCANNED_COLUMN:
+                    return profile.getFramesScanned();
+                case ROWS_RETURNED_COLUMN:
+                    return profile.getRowsReturned();
+                case BYTES_SENT_COLUMN:
+                    return profile.getBytesSent();
+                case MEM_USED_PEAK_COLUMN:
+                    return profile.getMemUsedPeak();
+                default:
+                    throw new UnsupportedOperationException();
+            }
+        }
+
+        @Override
+        public long getRowId() {
+            return index;
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            assert col == QUERY_COLUMN;
+            return profile().getQuery();
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return getStr(col);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return getStr(col).length();
+        }
+
+        @Override
+        public long getTimestamp(int col) {
+            assert col == TIMESTAMP_COLUMN;
+            return profile().getTimestamp();
+        }
+
+        private QueryProfile profile() {
+            return profiles.getQuick(index);
+        }
+    }
+}
@@ -34,9 +34,14 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     private ExpressionNode tableName;
     private ExpressionNode fileName;
     private boolean header;
+    private ExpressionNode timestamp;
+    private ExpressionNode partitionBy;
 
     @Override
     public void clear() {
+        header = false;
+        timestamp = null;
+        partitionBy = null;
     }
 
     public ExpressionNode getFileName() {
@@ -52,6 +57,14 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return ExecutionModel.COPY;
     }
 
+    public ExpressionNode getPartitionBy() {
+        return partitionBy;
+    }
+
+    public void setPartitionBy(ExpressionNode partitionBy) {
+        this.partitionBy = partitionBy;
+    }
+
     public ExpressionNode getTableName() {
         return tableName;
     }
@@ -60,6 +73,14 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.tableName = tableName;
     }
 
+    public ExpressionNode getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(ExpressionNode timestamp) {
+        this.timestamp = timestamp;
+    }
+
     public boolean isHeader() {
         return header;
     }
@@ -27,6 +27,7 @@ package io.questdb.griffin.model;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableStructure;
+import io.questdb.cairo.TableUtils;
 import io.questdb.std.*;
 import io.questdb.std.str.CharSink;
 
@@ -42,6 +43,8 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     private QueryModel queryModel;
     private ExpressionNode timestamp;
     private ExpressionNode partitionBy;
+    private int ttl;
+    private int coldAfter;
 
     private CreateTableModel() {
     }
@@ -78,6 +81,8 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         queryModel = null;
         timestamp = null;
         partitionBy = null;
+        ttl = 0;
+        coldAfter = 0;
         name = null;
         columnBits.clear();
         columnNames.clear();
@@ -154,6 +159,24 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return columnNameIndexMap.get(columnName);
     }
 
+    @Override
+    public int getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(int ttl) {
+        this.ttl = ttl;
+    }
+
+    @Override
+    public int getColdAfter() {
+        return coldAfter;
+    }
+
+    public void setColdAfter(int coldAfter) {
+        this.coldAfter = coldAfter;
+    }
+
     @Override
     public int getModelType() {
         return CREATE_TABLE;
@@ -281,6 +304,21 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         if (partitionBy != null) {
             sink.put(" partition by ").put(partitionBy.token);
         }
+
+        if (ttl != 0 || coldAfter != 0) {
+            sink.put(" with ");
+            if (ttl != 0) {
+                sink.put("ttl = ");
+                TableUtils.retentionIntervalToSink(ttl, sink);
+                if (coldAfter != 0) {
+                    sink.put(", ");
+                }
+            }
+            if (coldAfter != 0) {
+                sink.put("cold_after = ");
+                TableUtils.retentionIntervalToSink(coldAfter, sink);
+            }
+        }
     }
 
     private int getHighAt(int index) {
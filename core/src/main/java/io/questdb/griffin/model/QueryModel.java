@@ -86,12 +86,16 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
     private final ObjList<ExpressionNode> latestBy = new ObjList<>();
     private final ObjList<ExpressionNode> orderByAdvice = new ObjList<>();
     private final IntList orderByDirectionAdvice = new IntList();
+    // distinct value counts of table columns, where these are known, e.g. symbol counts
+    private final CharSequenceIntHashMap columnDistinctCounts = new CharSequenceIntHashMap(8, 0.5, -1);
     private ExpressionNode whereClause;
     private ExpressionNode postJoinWhereClause;
     private ExpressionNode constWhereClause;
     private QueryModel nestedModel;
     private ExpressionNode tableName;
     private long tableVersion;
+    private long tableRowCount = -1;
+    private long estimatedRowCount = -1;
     private Function tableNameFunction;
     private ExpressionNode alias;
     private ExpressionNode timestamp;
@@ -124,6 +128,10 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         addField(column);
     }
 
+    public void addColumnDistinctCount(CharSequence columnName, int count) {
+        columnDistinctCounts.put(columnName, count);
+    }
+
     public void addDependency(int index) {
         dependencies.add(index);
     }
@@ -223,6 +231,9 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         columnNameToAliasMap.clear();
         tableNameFunction = null;
         tableVersion = -1;
+        tableRowCount = -1;
+        estimatedRowCount = -1;
+        columnDistinctCounts.clear();
         bottomUpColumnNames.clear();
         expressionModels.clear();
         distinct = false;
@@ -308,6 +319,10 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         return columnNameToAliasMap;
     }
 
+    public int getColumnDistinctCount(CharSequence columnName) {
+        return columnDistinctCounts.get(columnName);
+    }
+
     public ObjList<QueryColumn> getColumns() {
         return topDownColumns.size() > 0 ? topDownColumns : bottomUpColumns;
     }
@@ -332,6 +347,17 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         return dependencies;
     }
 
+    /**
+     * @return number of rows this join model is estimated to produce or -1 when estimate is not available
+     */
+    public long getEstimatedRowCount() {
+        return estimatedRowCount;
+    }
+
+    public void setEstimatedRowCount(long estimatedRowCount) {
+        this.estimatedRowCount = estimatedRowCount;
+    }
+
     public ObjList<ExpressionNode> getExpressionModels() {
         return expressionModels;
     }
@@ -510,6 +536,14 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         this.tableNameFunction = function;
     }
 
+    public long getTableRowCount() {
+        return tableRowCount;
+    }
+
+    public void setTableRowCount(long tableRowCount) {
+        this.tableRowCount = tableRowCount;
+    }
+
     public long getTableVersion() {
         return tableVersion;
     }
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.metrics;
+
+import io.questdb.std.str.CharSink;
+
+/**
+ * Gauge that reads its value from provider at scrape time. Gauge can optionally be
+ * split into series by value of single label, all label values are known upfront and
+ * each series has its own provider. Series without provider report zero. Providers
+ * are expected to be set when components are started, before gauge is scraped.
+ */
+public class Gauge implements Scrapable {
+    private static final CharSequence[] NO_LABEL_VALUES = {null};
+    private final CharSequence name;
+    private final CharSequence help;
+    private final CharSequence labelName;
+    private final CharSequence[] labelValues;
+    private final ValueProvider[] providers;
+
+    public Gauge(CharSequence name, CharSequence help) {
+        this(name, help, null, NO_LABEL_VALUES);
+    }
+
+    public Gauge(CharSequence name, CharSequence help, CharSequence labelName, CharSequence... labelValues) {
+        this.name = name;
+        this.help = help;
+        this.labelName = labelName;
+        this.labelValues = labelValues;
+        this.providers = new ValueProvider[labelValues.length];
+    }
+
+    public long getValue(int series) {
+        final ValueProvider provider = providers[series];
+        return provider != null ? provider.getValue() : 0;
+    }
+
+    @Override
+    public void scrapeIntoPrometheus(CharSink sink) {
+        PrometheusFormatUtils.appendHeader(sink, name, help, "gauge");
+        for (int series = 0, n = labelValues.length; series < n; series++) {
+            final CharSequence labelValue = labelValues[series];
+            if (labelValue != null) {
+                PrometheusFormatUtils.appendSample(sink, name, labelName, labelValue, getValue(series));
+            } else {
+                PrometheusFormatUtils.appendSample(sink, name, getValue(series));
+            }
+        }
+    }
+
+    public void setProvider(ValueProvider provider) {
+        setProvider(0, provider);
+    }
+
+    public void setProvider(int series, ValueProvider provider) {
+        providers[series] = provider;
+    }
+
+    @FunctionalInterface
+    public interface ValueProvider {
+        long getValue();
+    }
+}
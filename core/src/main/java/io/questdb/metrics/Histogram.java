@@ -0,0 +1,136 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.metrics;
+
+import io.questdb.std.str.CharSink;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed bucket bounds. Observations are in nanoseconds and are
+ * rendered in seconds. Histogram can optionally be split into series by value of single
+ * label, all label values are known upfront and are addressed by index so that
+ * observing a value is lock-free and does not allocate.
+ */
+public class Histogram implements Scrapable {
+    private static final CharSequence[] NO_LABEL_VALUES = {null};
+    private final CharSequence name;
+    private final CharSequence help;
+    private final CharSequence labelName;
+    private final CharSequence[] labelValues;
+    private final long[] bounds;
+    // per series: one counter per bound followed by +Inf counter
+    private final LongAdder[] buckets;
+    private final LongAdder[] sums;
+
+    public Histogram(CharSequence name, CharSequence help, long[] bounds) {
+        this(name, help, bounds, null, NO_LABEL_VALUES);
+    }
+
+    public Histogram(CharSequence name, CharSequence help, long[] bounds, CharSequence labelName, CharSequence... labelValues) {
+        this.name = name;
+        this.help = help;
+        this.bounds = bounds;
+        this.labelName = labelName;
+        this.labelValues = labelValues;
+        final int seriesCount = labelValues.length;
+        this.buckets = new LongAdder[seriesCount * (bounds.length + 1)];
+        for (int i = 0, n = buckets.length; i < n; i++) {
+            buckets[i] = new LongAdder();
+        }
+        this.sums = new LongAdder[seriesCount];
+        for (int i = 0; i < seriesCount; i++) {
+            sums[i] = new LongAdder();
+        }
+    }
+
+    public long getCount(int series) {
+        final int lo = series * (bounds.length + 1);
+        long count = 0;
+        for (int i = lo, hi = lo + bounds.length + 1; i < hi; i++) {
+            count += buckets[i].sum();
+        }
+        return count;
+    }
+
+    public void observe(long nanos) {
+        observe(0, nanos);
+    }
+
+    public void observe(int series, long nanos) {
+        int bucket = 0;
+        while (bucket < bounds.length && nanos > bounds[bucket]) {
+            bucket++;
+        }
+        buckets[series * (bounds.length + 1) + bucket].increment();
+        sums[series].add(nanos);
+    }
+
+    @Override
+    public void scrapeIntoPrometheus(CharSink sink) {
+        PrometheusFormatUtils.appendHeader(sink, name, help, "histogram");
+        for (int series = 0, n = labelValues.length; series < n; series++) {
+            final CharSequence labelValue = labelValues[series];
+            final int lo = series * (bounds.length + 1);
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += buckets[lo + i].sum();
+                appendBucketPrefix(sink, labelValue);
+                PrometheusFormatUtils.appendSeconds(sink, bounds[i]);
+                sink.put("\"} ").put(cumulative).put(PrometheusFormatUtils.LF);
+            }
+            cumulative += buckets[lo + bounds.length].sum();
+            appendBucketPrefix(sink, labelValue);
+            sink.put("+Inf\"} ").put(cumulative).put(PrometheusFormatUtils.LF);
+
+            sink.put(name).put("_sum");
+            appendLabels(sink, labelValue);
+            sink.put(' ');
+            PrometheusFormatUtils.appendSeconds(sink, sums[series].sum());
+            sink.put(PrometheusFormatUtils.LF);
+
+            sink.put(name).put("_count");
+            appendLabels(sink, labelValue);
+            sink.put(' ').put(cumulative).put(PrometheusFormatUtils.LF);
+        }
+    }
+
+    private void appendBucketPrefix(CharSink sink, CharSequence labelValue) {
+        sink.put(name).put("_bucket{");
+        if (labelValue != null) {
+            PrometheusFormatUtils.appendLabel(sink, labelName, labelValue);
+            sink.put(',');
+        }
+        sink.put("le=\"");
+    }
+
+    private void appendLabels(CharSink sink, CharSequence labelValue) {
+        if (labelValue != null) {
+            sink.put('{');
+            PrometheusFormatUtils.appendLabel(sink, labelName, labelValue);
+            sink.put('}');
+        }
+    }
+}
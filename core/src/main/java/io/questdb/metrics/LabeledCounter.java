@@ -0,0 +1,72 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.metrics;
+
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.CharSink;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Family of monotonic counters distinguished by value of single label, for example
+ * table name. Looking up counter for a label value is synchronized and allocates
+ * when value is seen for the first time, so callers are expected to resolve counter
+ * once and keep reference to it. Updates of resolved counter are lock-free and striped
+ * across cells to avoid contention between threads.
+ */
+public class LabeledCounter implements Scrapable {
+    private final CharSequence name;
+    private final CharSequence help;
+    private final CharSequence labelName;
+    private final CharSequenceObjHashMap<LongAdder> counters = new CharSequenceObjHashMap<>();
+
+    public LabeledCounter(CharSequence name, CharSequence help, CharSequence labelName) {
+        this.name = name;
+        this.help = help;
+        this.labelName = labelName;
+    }
+
+    public synchronized LongAdder get(CharSequence labelValue) {
+        final int index = counters.keyIndex(labelValue);
+        if (index < 0) {
+            return counters.valueAtQuick(index);
+        }
+        final LongAdder counter = new LongAdder();
+        counters.putAt(index, Chars.toString(labelValue), counter);
+        return counter;
+    }
+
+    @Override
+    public synchronized void scrapeIntoPrometheus(CharSink sink) {
+        PrometheusFormatUtils.appendHeader(sink, name, help, "counter");
+        final ObjList<CharSequence> labelValues = counters.keys();
+        for (int i = 0, n = labelValues.size(); i < n; i++) {
+            final CharSequence labelValue = labelValues.getQuick(i);
+            PrometheusFormatUtils.appendSample(sink, name, labelName, labelValue, counters.get(labelValue).sum());
+        }
+    }
+}
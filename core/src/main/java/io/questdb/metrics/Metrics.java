@@ -0,0 +1,155 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.metrics;
+
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Operational metrics of the engine and its network servers. Instruments are created
+ * upfront and components record into them on their hot paths without locks or
+ * allocation. Whole set renders in Prometheus text exposition format.
+ */
+public class Metrics implements Scrapable {
+    public static final int POOL_WRITER = 0;
+    public static final int POOL_READER = 1;
+    public static final int PROTOCOL_HTTP = 0;
+    public static final int PROTOCOL_PG_WIRE = 1;
+    public static final int SERVER_HTTP = 0;
+    public static final int SERVER_PG_WIRE = 1;
+    public static final int SERVER_LINE_TCP = 2;
+    public static final int QUEUE_INDEXER = 0;
+    public static final int QUEUE_VECTOR_AGGREGATE = 1;
+    public static final int QUEUE_TABLE_COMMIT = 2;
+    public static final int QUEUE_WAL_COMMIT = 3;
+    public static final int QUEUE_TEXT_IMPORT = 4;
+    public static final int QUEUE_PAGE_FRAME_COPY = 5;
+    public static final int QUEUE_TABLE_BACKUP = 6;
+    public static final int QUEUE_LATEST_BY = 7;
+
+    // 100us .. 10s
+    private static final long[] LATENCY_BOUNDS = {
+            100_000L,
+            500_000L,
+            1_000_000L,
+            5_000_000L,
+            10_000_000L,
+            50_000_000L,
+            100_000_000L,
+            500_000_000L,
+            1_000_000_000L,
+            5_000_000_000L,
+            10_000_000_000L
+    };
+
+    private final ObjList<Scrapable> scrapables = new ObjList<>();
+    private final LabeledCounter ilpRows = add(new LabeledCounter(
+            "questdb_ilp_rows_total",
+            "Rows appended by InfluxDB line protocol receiver",
+            "table"
+    ));
+    private final LabeledCounter ilpBytes = add(new LabeledCounter(
+            "questdb_ilp_bytes_total",
+            "Bytes of measurements received by InfluxDB line protocol receiver",
+            "table"
+    ));
+    private final Histogram commitLatency = add(new Histogram(
+            "questdb_commit_latency_seconds",
+            "Latency of table writer commits",
+            LATENCY_BOUNDS
+    ));
+    private final Histogram queryLatency = add(new Histogram(
+            "questdb_query_latency_seconds",
+            "Latency of SELECT queries from start of parsing to last byte sent",
+            LATENCY_BOUNDS,
+            "protocol",
+            "http", "pg_wire"
+    ));
+    private final Gauge poolBusy = add(new Gauge(
+            "questdb_pool_busy",
+            "Pooled table writers and readers currently in use",
+            "pool",
+            "writer", "reader"
+    ));
+    private final Gauge connections = add(new Gauge(
+            "questdb_connections",
+            "Open network connections",
+            "server",
+            "http", "pg_wire", "line_tcp"
+    ));
+    private final Gauge queueDepth = add(new Gauge(
+            "questdb_queue_depth",
+            "Tasks published to message bus queue and not yet consumed",
+            "queue",
+            "indexer", "vector_aggregate", "table_commit", "wal_commit", "text_import", "page_frame_copy", "table_backup", "latest_by"
+    ));
+
+    public Metrics() {
+        add(new Gauge("questdb_memory_used_bytes", "Native memory currently allocated")).setProvider(Unsafe::getMemUsed);
+        add(new Gauge("questdb_memory_malloc_count", "Native memory allocations since start")).setProvider(Unsafe::getMallocCount);
+        add(new Gauge("questdb_memory_free_count", "Native memory releases since start")).setProvider(Unsafe::getFreeCount);
+    }
+
+    public Histogram getCommitLatency() {
+        return commitLatency;
+    }
+
+    public Gauge getConnections() {
+        return connections;
+    }
+
+    public LabeledCounter getIlpBytes() {
+        return ilpBytes;
+    }
+
+    public LabeledCounter getIlpRows() {
+        return ilpRows;
+    }
+
+    public Gauge getPoolBusy() {
+        return poolBusy;
+    }
+
+    public Histogram getQueryLatency() {
+        return queryLatency;
+    }
+
+    public Gauge getQueueDepth() {
+        return queueDepth;
+    }
+
+    @Override
+    public void scrapeIntoPrometheus(CharSink sink) {
+        for (int i = 0, n = scrapables.size(); i < n; i++) {
+            scrapables.getQuick(i).scrapeIntoPrometheus(sink);
+        }
+    }
+
+    private <T extends Scrapable> T add(T scrapable) {
+        scrapables.add(scrapable);
+        return scrapable;
+    }
+}
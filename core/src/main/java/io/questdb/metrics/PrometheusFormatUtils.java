@@ -0,0 +1,77 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.metrics;
+
+import io.questdb.std.str.CharSink;
+
+final class PrometheusFormatUtils {
+    static final char LF = '\n';
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+    private static final int SECONDS_SCALE = 6;
+
+    private PrometheusFormatUtils() {
+    }
+
+    static void appendHeader(CharSink sink, CharSequence name, CharSequence help, CharSequence type) {
+        sink.put("# HELP ").put(name).put(' ').put(help).put(LF);
+        sink.put("# TYPE ").put(name).put(' ').put(type).put(LF);
+    }
+
+    static void appendLabel(CharSink sink, CharSequence labelName, CharSequence labelValue) {
+        sink.put(labelName).put("=\"");
+        for (int i = 0, n = labelValue.length(); i < n; i++) {
+            final char c = labelValue.charAt(i);
+            switch (c) {
+                case '\\':
+                    sink.put("\\\\");
+                    break;
+                case '"':
+                    sink.put("\\\"");
+                    break;
+                case '\n':
+                    sink.put("\\n");
+                    break;
+                default:
+                    sink.putUtf8(c);
+                    break;
+            }
+        }
+        sink.put('"');
+    }
+
+    static void appendSample(CharSink sink, CharSequence name, long value) {
+        sink.put(name).put(' ').put(value).put(LF);
+    }
+
+    static void appendSample(CharSink sink, CharSequence name, CharSequence labelName, CharSequence labelValue, long value) {
+        sink.put(name).put('{');
+        appendLabel(sink, labelName, labelValue);
+        sink.put("} ").put(value).put(LF);
+    }
+
+    static void appendSeconds(CharSink sink, long nanos) {
+        sink.put(nanos / NANOS_PER_SECOND, SECONDS_SCALE);
+    }
+}
@@ -48,9 +48,20 @@ public final class Files {
 
     public static final int MAP_RO = 1;
     public static final int MAP_RW = 2;
+    // memory access pattern hints for madvise()
+    public static final int MADV_NORMAL = 0;
+    public static final int MADV_SEQUENTIAL = 1;
+    public static final int MADV_RANDOM = 2;
+    public static final int MADV_WILLNEED = 3;
     public static final char SEPARATOR;
 
     static final AtomicLong OPEN_FILE_COUNT = new AtomicLong();
+    // native library of older build may lack these functions, calls to them are then
+    // reported as failures: madvise is only a hint, failed hard link is replaced by copy,
+    // fsync of regular file falls back to msync of the whole file
+    private static boolean hardLinkSupported = true;
+    private static boolean madviseSupported = true;
+    private static boolean fsyncSupported = true;
 
     static {
         Os.init();
@@ -102,6 +113,47 @@ public final class Files {
 
     public native static long getStdOutFd();
 
+    /**
+     * Flushes file contents and metadata to storage device. Directories can be flushed
+     * on systems that allow opening them, e.g. to persist files created in them.
+     *
+     * @return 0 on success, -1 on failure
+     */
+    public static int fsync(long fd) {
+        if (fsyncSupported) {
+            try {
+                return fsync0(fd);
+            } catch (UnsatisfiedLinkError e) {
+                fsyncSupported = false;
+            }
+        }
+        final long len = length(fd);
+        if (len < 1) {
+            return len == 0 ? 0 : -1;
+        }
+        // directory cannot be mapped, this fails
+        final long address = mmap(fd, len, 0, MAP_RO);
+        if (address == -1) {
+            return -1;
+        }
+        try {
+            return msync(address, len, false);
+        } finally {
+            munmap(address, len);
+        }
+    }
+
+    public static int hardLink(LPSZ src, LPSZ hardLink) {
+        if (hardLinkSupported) {
+            try {
+                return hardLink0(src.address(), hardLink.address());
+            } catch (UnsatisfiedLinkError e) {
+                hardLinkSupported = false;
+            }
+        }
+        return -1;
+    }
+
     public static boolean isDots(CharSequence name) {
         return Chars.equals(name, '.') || Chars.equals(name, "..");
     }
@@ -116,6 +168,17 @@ public final class Files {
 
     public static native int msync(long addr, long len, boolean async);
 
+    public static int madvise(long address, long len, int advice) {
+        if (madviseSupported) {
+            try {
+                return madvise0(address, len, advice);
+            } catch (UnsatisfiedLinkError e) {
+                madviseSupported = false;
+            }
+        }
+        return -1;
+    }
+
     public static int mkdir(LPSZ path, int mode) {
         return mkdir(path.address(), mode);
     }
@@ -279,6 +342,8 @@ public final class Files {
 
     private static native int munmap0(long address, long len);
 
+    private static native int madvise0(long address, long len, int advice);
+
     private static native long mremap0(long fd, long address, long previousSize, long newSize, long offset, int flags);
 
     private static native long mmap0(long fd, long len, long offset, int flags);
@@ -293,6 +358,10 @@ public final class Files {
 
     private native static long length0(long lpszName);
 
+    private native static int hardLink0(long lpszSrc, long lpszHardLink);
+
+    private native static int fsync0(long fd);
+
     private native static int mkdir(long lpszPath, int mode);
 
     private native static long openRO(long lpszName);
@@ -54,12 +54,16 @@ public interface FilesFacade {
 
     int msync(long addr, long len, boolean async);
 
+    int fsync(long fd);
+
     long getMapPageSize();
 
     long getOpenFileCount();
 
     long getPageSize();
 
+    int hardLink(LPSZ src, LPSZ hardLink);
+
     boolean isRestrictedFileSystem();
 
     void iterateDir(LPSZ path, FindVisitor func);
@@ -74,6 +78,8 @@ public interface FilesFacade {
 
     int mkdirs(LPSZ path, int mode);
 
+    int madvise(long address, long len, int advice);
+
     long mmap(long fd, long size, long offset, int mode);
 
     long mremap(long fd, long addr, long previousSize, long newSize, long offset, int mode);
@@ -102,6 +102,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.msync(addr, len, async);
     }
 
+    @Override
+    public int fsync(long fd) {
+        return Files.fsync(fd);
+    }
+
     @Override
     public long getMapPageSize() {
         if (mapPageSize == 0) {
@@ -120,6 +125,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.PAGE_SIZE;
     }
 
+    @Override
+    public int hardLink(LPSZ src, LPSZ hardLink) {
+        return Files.hardLink(src, hardLink);
+    }
+
     @Override
     public boolean isRestrictedFileSystem() {
         return Os.type == Os.WINDOWS;
@@ -164,6 +174,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.mkdirs(path, mode);
     }
 
+    @Override
+    public int madvise(long address, long len, int advice) {
+        return Files.madvise(address, len, advice);
+    }
+
     @Override
     public long mmap(long fd, long len, long offset, int mode) {
         return Files.mmap(fd, len, offset, mode);
@@ -27,6 +27,7 @@ import io.questdb.griffin.engine.functions.test.TestSumXDoubleGroupByFunctionFac
 
 open module io.questdb {
     requires transitive jdk.unsupported;
+    requires java.management;
     requires static org.jetbrains.annotations;
     requires static java.sql;
 
@@ -51,6 +52,7 @@ open module io.questdb {
     exports io.questdb.cutlass.text.types;
 
     exports io.questdb.griffin;
+    exports io.questdb.metrics;
     exports io.questdb.griffin.engine;
     exports io.questdb.griffin.model;
     exports io.questdb.griffin.engine.functions;
@@ -438,6 +440,12 @@ open module io.questdb {
             io.questdb.griffin.engine.functions.groupby.CountStringGroupByFunctionFactory,
             io.questdb.griffin.engine.functions.groupby.CountSymbolGroupByFunctionFactory,
             io.questdb.griffin.engine.functions.groupby.CountLong256GroupByFunctionFactory,
+//                  approximate group by functions
+            io.questdb.griffin.engine.functions.groupby.ApproxCountDistinctLongGroupByFunctionFactory,
+            io.questdb.griffin.engine.functions.groupby.ApproxCountDistinctIntGroupByFunctionFactory,
+            io.questdb.griffin.engine.functions.groupby.ApproxCountDistinctSymbolGroupByFunctionFactory,
+            io.questdb.griffin.engine.functions.groupby.ApproxCountDistinctStrGroupByFunctionFactory,
+            io.questdb.griffin.engine.functions.groupby.ApproxPercentileDoubleGroupByFunctionFactory,
             //      'haversine_dist_degree' group by function
             io.questdb.griffin.engine.functions.groupby.HaversineDistDegreeGroupByFunctionFactory,
 //                  'isOrdered'
@@ -470,6 +478,7 @@ open module io.questdb {
             io.questdb.griffin.engine.functions.math.PowDoubleFunctionFactory,
             io.questdb.griffin.engine.functions.table.AllTablesFunctionFactory,
             io.questdb.griffin.engine.functions.table.TableColumnsFunctionFactory,
+            io.questdb.griffin.engine.functions.table.QueryLogFunctionFactory,
             // first
             io.questdb.griffin.engine.functions.groupby.FirstSymbolGroupByFunctionFactory
             ;
@@ -134,7 +134,11 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(64, configuration.getHttpServerConfiguration().getInterruptorBufferSize());
 
         Assert.assertEquals(CommitMode.NOSYNC, configuration.getCairoConfiguration().getCommitMode());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getGroupCommitLatency());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getGroupCommitMaxRows());
         Assert.assertEquals(2097152, configuration.getCairoConfiguration().getSqlCopyBufferSize());
+        Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getSqlCopyChunkSize());
+        Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getSqlCopyMapWindowSize());
         Assert.assertEquals(32, configuration.getCairoConfiguration().getCopyPoolCapacity());
         Assert.assertEquals(5, configuration.getCairoConfiguration().getCreateAsSelectRetryCount());
         Assert.assertEquals("fast", configuration.getCairoConfiguration().getDefaultMapType());
@@ -146,6 +150,13 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(600_000, configuration.getCairoConfiguration().getInactiveWriterTTL());
         Assert.assertEquals(256, configuration.getCairoConfiguration().getIndexValueBlockSize());
         Assert.assertEquals(30, configuration.getCairoConfiguration().getMaxSwapFileCount());
+        Assert.assertEquals(10_000, configuration.getCairoConfiguration().getMatViewCheckInterval());
+        Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getReaderMappingIncrement());
+        Assert.assertEquals(10_000, configuration.getCairoConfiguration().getWalCheckInterval());
+        Assert.assertEquals(10_000, configuration.getCairoConfiguration().getWalApplyLag());
+        Assert.assertFalse(configuration.getCairoConfiguration().isWalEnabled());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getPartitionExpiryCheckInterval());
+        Assert.assertNull(configuration.getCairoConfiguration().getColdRoot());
         Assert.assertEquals(509, configuration.getCairoConfiguration().getMkDirMode());
 
         Assert.assertEquals(100000, configuration.getCairoConfiguration().getParallelIndexThreshold());
@@ -173,6 +184,10 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
         Assert.assertEquals(1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinLightValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlHashJoinLightValueMaxPages());
+        Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlHashJoinMaterializeRowThreshold());
+        Assert.assertEquals(256, configuration.getCairoConfiguration().getSqlQueryLogCapacity());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlQueryLogCpuEnabled());
+        Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlSlowQueryThreshold());
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
@@ -234,6 +249,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(LineProtoNanoTimestampAdapter.INSTANCE, configuration.getLineTcpReceiverConfiguration().getTimestampAdapter());
         Assert.assertEquals(2048, configuration.getLineTcpReceiverConfiguration().getNetMsgBufferSize());
         Assert.assertEquals(2048, configuration.getLineTcpReceiverConfiguration().getMaxMeasurementSize());
+        Assert.assertEquals(1024 * 1024, configuration.getLineTcpReceiverConfiguration().getMaxFrameSize());
         Assert.assertEquals(128, configuration.getLineTcpReceiverConfiguration().getWriterQueueSize());
         Assert.assertEquals(0, configuration.getLineTcpReceiverConfiguration().getWorkerPoolConfiguration().getWorkerCount());
         Assert.assertArrayEquals(new int[]{}, configuration.getLineTcpReceiverConfiguration().getWorkerPoolConfiguration().getWorkerAffinity());
@@ -458,6 +474,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(2_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getConnectionCheckFrequency());
             Assert.assertEquals(4, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getFloatScale());
             Assert.assertEquals(4194304, configuration.getCairoConfiguration().getSqlCopyBufferSize());
+            Assert.assertEquals(32 * 1024 * 1024, configuration.getCairoConfiguration().getSqlCopyChunkSize());
+            Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlCopyMapWindowSize());
             Assert.assertEquals(64, configuration.getCairoConfiguration().getCopyPoolCapacity());
             Assert.assertSame(FilesFacadeImpl.INSTANCE, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getFilesFacade());
             Assert.assertEquals("Keep-Alive: timeout=10, max=50000" + Misc.EOL, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getKeepAliveHeader());
@@ -465,6 +483,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(3, configuration.getCairoConfiguration().getFloatToStrCastScale());
 
             Assert.assertEquals(CommitMode.ASYNC, configuration.getCairoConfiguration().getCommitMode());
+            Assert.assertEquals(2, configuration.getCairoConfiguration().getGroupCommitLatency());
+            Assert.assertEquals(50_000, configuration.getCairoConfiguration().getGroupCommitMaxRows());
             Assert.assertEquals(12, configuration.getCairoConfiguration().getCreateAsSelectRetryCount());
             Assert.assertEquals("compact", configuration.getCairoConfiguration().getDefaultMapType());
             Assert.assertTrue(configuration.getCairoConfiguration().getDefaultSymbolCacheFlag());
@@ -475,6 +495,13 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(400_000, configuration.getCairoConfiguration().getInactiveWriterTTL());
             Assert.assertEquals(1024, configuration.getCairoConfiguration().getIndexValueBlockSize());
             Assert.assertEquals(23, configuration.getCairoConfiguration().getMaxSwapFileCount());
+            Assert.assertEquals(2000, configuration.getCairoConfiguration().getMatViewCheckInterval());
+            Assert.assertEquals(128 * 1024 * 1024, configuration.getCairoConfiguration().getReaderMappingIncrement());
+            Assert.assertEquals(5000, configuration.getCairoConfiguration().getWalCheckInterval());
+            Assert.assertEquals(2000, configuration.getCairoConfiguration().getWalApplyLag());
+            Assert.assertTrue(configuration.getCairoConfiguration().isWalEnabled());
+            Assert.assertEquals(30_000, configuration.getCairoConfiguration().getPartitionExpiryCheckInterval());
+            Assert.assertEquals("/mnt/cold", configuration.getCairoConfiguration().getColdRoot());
             Assert.assertEquals(580, configuration.getCairoConfiguration().getMkDirMode());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getParallelIndexThreshold());
             Assert.assertEquals(10, configuration.getCairoConfiguration().getReaderPoolMaxSegments());
@@ -501,6 +528,10 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(10000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
             Assert.assertEquals(2 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinLightValuePageSize());
             Assert.assertEquals(1025, configuration.getCairoConfiguration().getSqlHashJoinLightValueMaxPages());
+            Assert.assertEquals(2048, configuration.getCairoConfiguration().getSqlHashJoinMaterializeRowThreshold());
+            Assert.assertEquals(512, configuration.getCairoConfiguration().getSqlQueryLogCapacity());
+            Assert.assertTrue(configuration.getCairoConfiguration().isSqlQueryLogCpuEnabled());
+            Assert.assertEquals(250, configuration.getCairoConfiguration().getSqlSlowQueryThreshold());
             Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
             Assert.assertEquals(1028, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
@@ -541,6 +572,7 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(LineProtoMicroTimestampAdapter.INSTANCE, configuration.getLineTcpReceiverConfiguration().getTimestampAdapter());
             Assert.assertEquals(2049, configuration.getLineTcpReceiverConfiguration().getNetMsgBufferSize());
             Assert.assertEquals(128, configuration.getLineTcpReceiverConfiguration().getMaxMeasurementSize());
+            Assert.assertEquals(65536, configuration.getLineTcpReceiverConfiguration().getMaxFrameSize());
             Assert.assertEquals(256, configuration.getLineTcpReceiverConfiguration().getWriterQueueSize());
             Assert.assertEquals(2, configuration.getLineTcpReceiverConfiguration().getWorkerPoolConfiguration().getWorkerCount());
             Assert.assertArrayEquals(new int[]{1, 2}, configuration.getLineTcpReceiverConfiguration().getWorkerPoolConfiguration().getWorkerAffinity());
@@ -56,6 +56,14 @@ public class BitmapIndexTest extends AbstractCairoTest {
         }
     }
 
+    private static void assertCursor(RowCursor cursor, long... expected) {
+        for (long value : expected) {
+            Assert.assertTrue(cursor.hasNext());
+            Assert.assertEquals(value, cursor.next());
+        }
+        Assert.assertFalse(cursor.hasNext());
+    }
+
     private static void indexInts(SlidingWindowMemory srcMem, BitmapIndexWriter writer, long hi) {
         srcMem.updateSize();
         for (long r = 0L; r < hi; r++) {
@@ -297,6 +305,40 @@ public class BitmapIndexTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testBackwardReaderReusableCursor() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            create(configuration, path.trimTo(plen), "x", 4);
+            try (BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path.trimTo(plen), "x")) {
+                for (int i = 0; i < 10; i++) {
+                    writer.add(i % 3, i);
+                }
+            }
+
+            try (
+                    BitmapIndexBwdReader reader = new BitmapIndexBwdReader(configuration, path.trimTo(plen), "x", 0);
+                    BitmapIndexBwdReader other = new BitmapIndexBwdReader(configuration, path.trimTo(plen), "x", 0)
+            ) {
+                final RowCursor cursor = reader.getCursor(null, 0, 0, Long.MAX_VALUE);
+                assertCursor(cursor, 9, 6, 3, 0);
+
+                Assert.assertSame(cursor, reader.getCursor(cursor, 1, 0, Long.MAX_VALUE));
+                assertCursor(cursor, 7, 4, 1);
+
+                Assert.assertSame(cursor, reader.getCursor(cursor, 2, 3, 7));
+                assertCursor(cursor, 5);
+
+                // cursor of another reader is not reused
+                final RowCursor otherCursor = other.getCursor(cursor, 2, 0, Long.MAX_VALUE);
+                Assert.assertNotSame(cursor, otherCursor);
+                assertCursor(otherCursor, 8, 5, 2);
+
+                // key above key count
+                Assert.assertFalse(reader.getCursor(cursor, 3, 0, Long.MAX_VALUE).hasNext());
+            }
+        });
+    }
+
     @Test
     public void testBackwardReaderKeyUpdateFail() {
         create(configuration, path.trimTo(plen), "x", 1024);
@@ -0,0 +1,437 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.mp.Job;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.*;
+
+import java.io.IOException;
+
+public class ColdPartitionTest extends AbstractCairoTest {
+    private static final String ALL_ROWS = "v\ts\ttimestamp\n" +
+            "0\ta\t1970-01-01T12:00:00.000000Z\n" +
+            "1\tb\t1970-01-02T12:00:00.000000Z\n" +
+            "2\ta\t1970-01-03T12:00:00.000000Z\n" +
+            "3\tb\t1970-01-04T12:00:00.000000Z\n" +
+            "4\ta\t1970-01-05T12:00:00.000000Z\n";
+    private static CharSequence coldRoot;
+    private static CairoConfiguration coldConfiguration;
+    private static long currentMicros;
+
+    @BeforeClass
+    public static void setUpColdRoot() throws IOException {
+        coldRoot = temp.newFolder("coldRoot").getAbsolutePath();
+        coldConfiguration = new TestConfiguration();
+    }
+
+    @Before
+    public void setUpCold() {
+        try (Path path = new Path()) {
+            Files.mkdirs(path.of(coldRoot).put(Files.SEPARATOR).$(), configuration.getMkDirMode());
+        }
+    }
+
+    @After
+    public void tearDownCold() {
+        try (Path path = new Path().of(coldRoot)) {
+            Files.rmdir(path.$());
+        }
+    }
+
+    @Test
+    public void testAddIndexToColdPartitions() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(0, 48);
+            try (CairoEngine engine = new CairoEngine(coldConfiguration)) {
+                appendRows(engine);
+                Assert.assertTrue(engine.getPartitionExpiryJob().run(0));
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    writer.addIndex("s", 256);
+                }
+                Assert.assertTrue(coldFileExists("1970-01-01", "s.k"));
+                Assert.assertTrue(hotFileExists("1970-01-03", "s.k"));
+                Assert.assertFalse(partitionExists("1970-01-01"));
+            }
+            assertTable(ALL_ROWS);
+        });
+    }
+
+    @Test
+    public void testColdPartitionsAreMoved() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(0, 48);
+            try (CairoEngine engine = new CairoEngine(coldConfiguration)) {
+                appendRows(engine);
+                final Job job = engine.getPartitionExpiryJob();
+                Assert.assertTrue(job.run(0));
+
+                assertTable(ALL_ROWS);
+                Assert.assertFalse(partitionExists("1970-01-01"));
+                Assert.assertFalse(partitionExists("1970-01-02"));
+                Assert.assertTrue(partitionExists("1970-01-03"));
+                Assert.assertTrue(coldPartitionExists("1970-01-01"));
+                Assert.assertTrue(coldPartitionExists("1970-01-02"));
+                Assert.assertFalse(coldPartitionExists("1970-01-03"));
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(48, writer.getColdAfter());
+                    Assert.assertTrue(writer.isColdPartition(0));
+                    Assert.assertTrue(writer.isColdPartition(Timestamps.DAY_MICROS));
+                    Assert.assertFalse(writer.isColdPartition(2 * Timestamps.DAY_MICROS));
+                    Assert.assertFalse(writer.hasColdPartitionCandidates());
+                    Assert.assertEquals(5, writer.size());
+                }
+
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertTrue(reader.isColdPartition(0));
+                    Assert.assertFalse(reader.isColdPartition(2 * Timestamps.DAY_MICROS));
+                    assertThat(ALL_ROWS, reader.getCursor(), reader.getMetadata(), true);
+                }
+
+                currentMicros += Timestamps.MINUTE_MICROS;
+                Assert.assertFalse(job.run(0));
+            }
+
+            // cold partitions survive writer re-open
+            try (TableWriter writer = new TableWriter(coldConfiguration, "x")) {
+                Assert.assertTrue(writer.isColdPartition(0));
+                Assert.assertEquals(48, writer.getColdAfter());
+            }
+        });
+    }
+
+    @Test
+    public void testColdRootIsNotConfigured() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(0, 48);
+            try (CairoEngine engine = new CairoEngine(coldConfiguration)) {
+                appendRows(engine);
+                Assert.assertTrue(engine.getPartitionExpiryJob().run(0));
+            }
+
+            try {
+                new TableReader(configuration, "x");
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "cold root is not configured");
+            }
+
+            try {
+                new TableWriter(configuration, "x");
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "cold root is not configured");
+            }
+        });
+    }
+
+    @Test
+    public void testEngineRenameAndRemove() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(0, 48);
+            try (CairoEngine engine = new CairoEngine(coldConfiguration);
+                 Path path = new Path();
+                 Path otherPath = new Path()) {
+                appendRows(engine);
+                Assert.assertTrue(engine.getPartitionExpiryJob().run(0));
+
+                engine.rename(AllowAllCairoSecurityContext.INSTANCE, path, "x", otherPath, "y");
+                Assert.assertFalse(Files.exists(path.of(coldRoot).concat("x").$()));
+                Assert.assertTrue(Files.exists(path.of(coldRoot).concat("y").concat("1970-01-01").$()));
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "y")) {
+                    assertThat(ALL_ROWS, reader.getCursor(), reader.getMetadata(), true);
+                }
+
+                engine.remove(AllowAllCairoSecurityContext.INSTANCE, path, "y");
+                Assert.assertFalse(Files.exists(path.of(coldRoot).concat("y").$()));
+            }
+        });
+    }
+
+    @Test
+    public void testColdFileIsKeptWhenRenameCannotReplace() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final boolean[] coldFileRemoved = {false};
+            final FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public boolean remove(LPSZ name) {
+                    if (Chars.endsWith(name, TableUtils.COLD_FILE_NAME)) {
+                        coldFileRemoved[0] = true;
+                    }
+                    return super.remove(name);
+                }
+
+                @Override
+                public boolean rename(LPSZ from, LPSZ to) {
+                    return !exists(to) && super.rename(from, to);
+                }
+            };
+            final CairoConfiguration renameConfiguration = new TestConfiguration() {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+            };
+
+            createTable(0, 48);
+            try (CairoEngine engine = new CairoEngine(renameConfiguration)) {
+                appendRows(engine);
+                final Job job = engine.getPartitionExpiryJob();
+                Assert.assertTrue(job.run(0));
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    TableWriter.Row row = writer.newRow(5 * Timestamps.DAY_MICROS + 12 * Timestamps.HOUR_MICROS);
+                    row.putLong(0, 5);
+                    row.putSym(1, "b");
+                    row.append();
+                    writer.commit();
+                }
+
+                currentMicros += Timestamps.MINUTE_MICROS;
+                Assert.assertTrue(job.run(0));
+                Assert.assertFalse(partitionExists("1970-01-03"));
+                Assert.assertTrue(coldPartitionExists("1970-01-03"));
+                Assert.assertTrue(hotFileExists(null, TableUtils.COLD_FILE_NAME));
+                Assert.assertFalse(hotFileExists(null, TableUtils.COLD_PREV_FILE_NAME));
+                Assert.assertFalse(coldFileRemoved[0]);
+
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertTrue(reader.isColdPartition(0));
+                    Assert.assertTrue(reader.isColdPartition(2 * Timestamps.DAY_MICROS));
+                    Assert.assertFalse(reader.isColdPartition(3 * Timestamps.DAY_MICROS));
+                }
+            }
+            assertTable(ALL_ROWS + "5\tb\t1970-01-06T12:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testMoveIsDeferredWhileReaderIsBusy() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(0, 48);
+            try (CairoEngine engine = new CairoEngine(coldConfiguration)) {
+                appendRows(engine);
+                final Job job = engine.getPartitionExpiryJob();
+
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertFalse(job.run(0));
+                    assertThat(ALL_ROWS, reader.getCursor(), reader.getMetadata(), true);
+                    // partition is copied while reader is busy, but it is not switched over
+                    Assert.assertTrue(partitionExists("1970-01-01"));
+                    Assert.assertTrue(coldFileExists("1970-01-01", "v.d"));
+                    Assert.assertFalse(hotFileExists(null, TableUtils.COLD_FILE_NAME));
+                    Assert.assertFalse(reader.isColdPartition(0));
+                }
+
+                currentMicros += Timestamps.MINUTE_MICROS;
+                Assert.assertTrue(job.run(0));
+                Assert.assertFalse(partitionExists("1970-01-01"));
+                Assert.assertTrue(coldPartitionExists("1970-01-01"));
+            }
+            assertTable(ALL_ROWS);
+        });
+    }
+
+    @Test
+    public void testRenameAndRemoveColumn() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(0, 48);
+            try (CairoEngine engine = new CairoEngine(coldConfiguration)) {
+                appendRows(engine);
+                Assert.assertTrue(engine.getPartitionExpiryJob().run(0));
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    writer.renameColumn("v", "w");
+                }
+                Assert.assertFalse(coldFileExists("1970-01-01", "v.d"));
+                Assert.assertTrue(coldFileExists("1970-01-01", "w.d"));
+                assertTable(ALL_ROWS.replace("v\ts", "w\ts"));
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    writer.removeColumn("w");
+                }
+                Assert.assertFalse(coldFileExists("1970-01-01", "w.d"));
+                Assert.assertFalse(hotFileExists("1970-01-03", "w.d"));
+            }
+            assertTable("s\ttimestamp\n" +
+                    "a\t1970-01-01T12:00:00.000000Z\n" +
+                    "b\t1970-01-02T12:00:00.000000Z\n" +
+                    "a\t1970-01-03T12:00:00.000000Z\n" +
+                    "b\t1970-01-04T12:00:00.000000Z\n" +
+                    "a\t1970-01-05T12:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(0, 48);
+            try (CairoEngine engine = new CairoEngine(coldConfiguration)) {
+                appendRows(engine);
+                Assert.assertTrue(engine.getPartitionExpiryJob().run(0));
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    writer.truncate();
+                    Assert.assertFalse(writer.isColdPartition(0));
+                }
+                Assert.assertFalse(coldPartitionExists("1970-01-01"));
+                Assert.assertFalse(hotFileExists(null, TableUtils.COLD_FILE_NAME));
+
+                appendRows(engine);
+                assertTable(ALL_ROWS);
+                Assert.assertTrue(partitionExists("1970-01-01"));
+            }
+        });
+    }
+
+    @Test
+    public void testTtlRemovesColdPartitions() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(72, 24);
+            try (CairoEngine engine = new CairoEngine(coldConfiguration)) {
+                appendRows(engine);
+                final Job job = engine.getPartitionExpiryJob();
+                Assert.assertTrue(job.run(0));
+
+                // first partition has expired before it could be moved
+                Assert.assertFalse(partitionExists("1970-01-01"));
+                Assert.assertFalse(coldPartitionExists("1970-01-01"));
+                Assert.assertTrue(coldPartitionExists("1970-01-02"));
+                Assert.assertTrue(coldPartitionExists("1970-01-03"));
+                Assert.assertTrue(partitionExists("1970-01-04"));
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    TableWriter.Row row = writer.newRow(5 * Timestamps.DAY_MICROS + 12 * Timestamps.HOUR_MICROS);
+                    row.putLong(0, 5);
+                    row.putSym(1, "b");
+                    row.append();
+                    writer.commit();
+                }
+
+                currentMicros += Timestamps.MINUTE_MICROS;
+                Assert.assertTrue(job.run(0));
+                Assert.assertFalse(coldPartitionExists("1970-01-02"));
+                Assert.assertTrue(coldPartitionExists("1970-01-03"));
+                Assert.assertTrue(coldPartitionExists("1970-01-04"));
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertFalse(writer.isColdPartition(Timestamps.DAY_MICROS));
+                    Assert.assertTrue(writer.isColdPartition(2 * Timestamps.DAY_MICROS));
+                }
+            }
+            assertTable("v\ts\ttimestamp\n" +
+                    "2\ta\t1970-01-03T12:00:00.000000Z\n" +
+                    "3\tb\t1970-01-04T12:00:00.000000Z\n" +
+                    "4\ta\t1970-01-05T12:00:00.000000Z\n" +
+                    "5\tb\t1970-01-06T12:00:00.000000Z\n");
+        });
+    }
+
+    private static void appendRows(CairoEngine engine) {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+            for (int i = 0; i < 5; i++) {
+                TableWriter.Row row = writer.newRow(i * Timestamps.DAY_MICROS + 12 * Timestamps.HOUR_MICROS);
+                row.putLong(0, i);
+                row.putSym(1, i % 2 == 0 ? "a" : "b");
+                row.append();
+            }
+            writer.commit();
+        }
+    }
+
+    private static boolean coldFileExists(String partitionName, String fileName) {
+        try (Path path = new Path()) {
+            return Files.exists(path.of(coldRoot).concat("x").concat(partitionName).concat(fileName).$());
+        }
+    }
+
+    private static boolean coldPartitionExists(String partitionName) {
+        try (Path path = new Path()) {
+            return Files.exists(path.of(coldRoot).concat("x").concat(partitionName).$());
+        }
+    }
+
+    private static void createTable(int ttl, int coldAfter) {
+        try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                .col("v", ColumnType.LONG)
+                .col("s", ColumnType.SYMBOL)
+                .timestamp()
+                .ttl(ttl)
+                .coldAfter(coldAfter)) {
+            CairoTestUtils.create(model);
+        }
+    }
+
+    private static boolean hotFileExists(String partitionName, String fileName) {
+        try (Path path = new Path()) {
+            path.of(root).concat("x");
+            if (partitionName != null) {
+                path.concat(partitionName);
+            }
+            return Files.exists(path.concat(fileName).$());
+        }
+    }
+
+    private static boolean partitionExists(String partitionName) {
+        try (Path path = new Path()) {
+            return Files.exists(path.of(root).concat("x").concat(partitionName).$());
+        }
+    }
+
+    private void assertTable(CharSequence expected) {
+        try (TableReader reader = new TableReader(coldConfiguration, "x")) {
+            assertThat(expected, reader.getCursor(), reader.getMetadata(), true);
+        }
+    }
+
+    private static class TestConfiguration extends DefaultCairoConfiguration {
+        private final MicrosecondClock clock = () -> currentMicros;
+
+        private TestConfiguration() {
+            super(root);
+        }
+
+        @Override
+        public CharSequence getColdRoot() {
+            return coldRoot;
+        }
+
+        @Override
+        public MicrosecondClock getMicrosecondClock() {
+            return clock;
+        }
+    }
+}
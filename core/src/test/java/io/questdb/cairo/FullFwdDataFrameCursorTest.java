@@ -35,6 +35,11 @@ import io.questdb.std.microtime.Timestamps;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.StringSink;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.LatestByTask;
+import io.questdb.tasks.PageFrameCopyTask;
+import io.questdb.tasks.TableBackupTask;
+import io.questdb.tasks.TableCommitTask;
+import io.questdb.tasks.TextImportTask;
 import io.questdb.tasks.VectorAggregateTask;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
@@ -2434,6 +2439,9 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         private final RingQueue<ColumnIndexerTask> queue = new RingQueue<>(ColumnIndexerTask::new, 1024);
         private final Sequence pubSeq;
         private final Sequence subSeq;
+        private final RingQueue<TableCommitTask> commitQueue = new RingQueue<>(TableCommitTask::new, 16);
+        private final Sequence commitPubSeq = new MPSequence(commitQueue.getCapacity());
+        private final Sequence commitSubSeq = new SCSequence();
 
         public MyWorkScheduler(Sequence pubSequence, Sequence subSequence) {
             this.pubSeq = pubSequence;
@@ -2441,6 +2449,7 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
             if (subSeq != null) {
                 this.pubSeq.then(this.subSeq).then(this.pubSeq);
             }
+            commitPubSeq.then(commitSubSeq).then(commitPubSeq);
         }
 
         public MyWorkScheduler() {
@@ -2481,5 +2490,95 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         public Sequence getVectorAggregateSubSequence() {
             return null;
         }
+
+        @Override
+        public RingQueue<TableCommitTask> getTableCommitQueue() {
+            return commitQueue;
+        }
+
+        @Override
+        public Sequence getTableCommitPubSequence() {
+            return commitPubSeq;
+        }
+
+        @Override
+        public Sequence getTableCommitSubSequence() {
+            return commitSubSeq;
+        }
+
+        @Override
+        public RingQueue<TableCommitTask> getWalCommitQueue() {
+            return commitQueue;
+        }
+
+        @Override
+        public Sequence getWalCommitPubSequence() {
+            return commitPubSeq;
+        }
+
+        @Override
+        public Sequence getWalCommitSubSequence() {
+            return commitSubSeq;
+        }
+
+        @Override
+        public RingQueue<TextImportTask> getTextImportQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getTextImportPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getTextImportSubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<PageFrameCopyTask> getPageFrameCopyQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getPageFrameCopyPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getPageFrameCopySubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<TableBackupTask> getTableBackupQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getTableBackupPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getTableBackupSubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<LatestByTask> getLatestByQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getLatestByPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getLatestBySubSequence() {
+            return null;
+        }
     }
 }
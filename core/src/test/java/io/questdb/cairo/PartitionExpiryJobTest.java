@@ -0,0 +1,212 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.mp.Job;
+import io.questdb.std.Files;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PartitionExpiryJobTest extends AbstractCairoTest {
+    private static final String ALL_ROWS = "v\ttimestamp\n" +
+            "0\t1970-01-01T12:00:00.000000Z\n" +
+            "1\t1970-01-02T12:00:00.000000Z\n" +
+            "2\t1970-01-03T12:00:00.000000Z\n" +
+            "3\t1970-01-04T12:00:00.000000Z\n" +
+            "4\t1970-01-05T12:00:00.000000Z\n";
+    private static final String UNEXPIRED_ROWS = "v\ttimestamp\n" +
+            "2\t1970-01-03T12:00:00.000000Z\n" +
+            "3\t1970-01-04T12:00:00.000000Z\n" +
+            "4\t1970-01-05T12:00:00.000000Z\n";
+    private static long currentMicros;
+
+    @Test
+    public void testBusyWriterIsRetried() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(48);
+            try (CairoEngine engine = new CairoEngine(new TestConfiguration())) {
+                appendRows(engine);
+                final Job job = engine.getPartitionExpiryJob();
+
+                Assert.assertTrue(engine.lockWriter("x"));
+                Assert.assertFalse(job.run(0));
+                engine.unlockWriter("x");
+                assertTable(ALL_ROWS);
+
+                currentMicros += Timestamps.MINUTE_MICROS;
+                Assert.assertTrue(job.run(0));
+                assertTable(UNEXPIRED_ROWS);
+            }
+        });
+    }
+
+    @Test
+    public void testExpiredPartitionsAreRemoved() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(48);
+            try (CairoEngine engine = new CairoEngine(new TestConfiguration())) {
+                appendRows(engine);
+                Assert.assertTrue(engine.getPartitionExpiryJob().run(0));
+
+                assertTable(UNEXPIRED_ROWS);
+                Assert.assertFalse(partitionExists("1970-01-01"));
+                Assert.assertFalse(partitionExists("1970-01-02"));
+                Assert.assertTrue(partitionExists("1970-01-03"));
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(48, writer.getTtl());
+                    Assert.assertFalse(writer.hasExpiredPartitions());
+                    Assert.assertEquals(3, writer.size());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testDirectoriesAreKeptWhileReaderIsBusy() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(48);
+            try (CairoEngine engine = new CairoEngine(new TestConfiguration())) {
+                appendRows(engine);
+                final Job job = engine.getPartitionExpiryJob();
+
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    // partitions are removed while reader is busy, but their directories are kept
+                    Assert.assertTrue(job.run(0));
+                    assertThat(ALL_ROWS, reader.getCursor(), reader.getMetadata(), true);
+                    Assert.assertTrue(partitionExists("1970-01-01"));
+                    Assert.assertTrue(partitionExists("1970-01-02"));
+                    assertTable(UNEXPIRED_ROWS);
+
+                    currentMicros += Timestamps.MINUTE_MICROS;
+                    Assert.assertFalse(job.run(0));
+                    Assert.assertTrue(partitionExists("1970-01-01"));
+                }
+
+                // idle pooled reader does not hold directories back
+                currentMicros += Timestamps.MINUTE_MICROS;
+                Assert.assertTrue(job.run(0));
+                Assert.assertFalse(partitionExists("1970-01-01"));
+                Assert.assertFalse(partitionExists("1970-01-02"));
+                Assert.assertTrue(partitionExists("1970-01-03"));
+
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    assertThat(UNEXPIRED_ROWS, reader.getCursor(), reader.getMetadata(), true);
+                }
+            }
+            assertTable(UNEXPIRED_ROWS);
+        });
+    }
+
+    @Test
+    public void testMonthTtl() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(-1);
+            try (CairoEngine engine = new CairoEngine(new TestConfiguration())) {
+                appendRows(engine);
+                Assert.assertFalse(engine.getPartitionExpiryJob().run(0));
+                assertTable(ALL_ROWS);
+            }
+        });
+    }
+
+    @Test
+    public void testTableWithoutTtlIsIgnored() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(0);
+            try (CairoEngine engine = new CairoEngine(new TestConfiguration())) {
+                appendRows(engine);
+                Assert.assertFalse(engine.getPartitionExpiryJob().run(0));
+                assertTable(ALL_ROWS);
+            }
+        });
+    }
+
+    @Test
+    public void testTtlSurvivesAddColumn() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(48);
+            try (CairoEngine engine = new CairoEngine(new TestConfiguration())) {
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    writer.addColumn("d", ColumnType.DOUBLE);
+                    Assert.assertEquals(48, writer.getTtl());
+                }
+            }
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                Assert.assertEquals(48, writer.getTtl());
+            }
+        });
+    }
+
+    private static void appendRows(CairoEngine engine) {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+            for (int i = 0; i < 5; i++) {
+                TableWriter.Row row = writer.newRow(i * Timestamps.DAY_MICROS + 12 * Timestamps.HOUR_MICROS);
+                row.putLong(0, i);
+                row.append();
+            }
+            writer.commit();
+        }
+    }
+
+    private static void createTable(int ttl) {
+        try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                .col("v", ColumnType.LONG)
+                .timestamp()
+                .ttl(ttl)) {
+            CairoTestUtils.create(model);
+        }
+    }
+
+    private static boolean partitionExists(String partitionName) {
+        try (Path path = new Path()) {
+            return Files.exists(path.of(root).concat("x").concat(partitionName).$());
+        }
+    }
+
+    private void assertTable(CharSequence expected) {
+        try (TableReader reader = new TableReader(configuration, "x")) {
+            assertThat(expected, reader.getCursor(), reader.getMetadata(), true);
+        }
+    }
+
+    private static class TestConfiguration extends DefaultCairoConfiguration {
+        private final MicrosecondClock clock = () -> currentMicros;
+
+        private TestConfiguration() {
+            super(root);
+        }
+
+        @Override
+        public MicrosecondClock getMicrosecondClock() {
+            return clock;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.std.Files;
+import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SharedColumnMappingsTest extends AbstractCairoTest {
+
+    @Test
+    public void testReadersShareActivePartition() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("v", ColumnType.LONG)
+                    .col("s", ColumnType.STRING)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            // small increment makes readers outgrow reservation on every commit
+            final SharedColumnMappings mappings = new SharedColumnMappings(Files.PAGE_SIZE);
+            long ts = TimestampFormatUtils.parseDateTime("2020-01-01T00:00:00.000Z");
+            try (
+                    TableWriter writer = new TableWriter(configuration, "x");
+                    TableReader reader1 = new TableReader(configuration, "x", mappings);
+                    TableReader reader2 = new TableReader(configuration, "x", mappings)
+            ) {
+                for (int i = 0; i < 10; i++) {
+                    for (int j = 0; j < 1000; j++) {
+                        TableWriter.Row row = writer.newRow(ts);
+                        row.putLong(0, i * 1000 + j);
+                        row.putStr(1, "s" + (i * 1000 + j));
+                        row.append();
+                        ts += 1000;
+                    }
+                    writer.commit();
+
+                    Assert.assertTrue(reader1.reload());
+                    assertReader(reader1, (i + 1) * 1000);
+                    Assert.assertTrue(reader2.reload());
+                    assertReader(reader2, (i + 1) * 1000);
+                }
+                // v, s (data and index) and timestamp
+                Assert.assertEquals(4, mappings.size());
+            }
+            Assert.assertEquals(0, mappings.size());
+        });
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.NONE)
+                    .col("v", ColumnType.LONG)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            final SharedColumnMappings mappings = new SharedColumnMappings(Files.PAGE_SIZE);
+            try (
+                    TableWriter writer = new TableWriter(configuration, "x");
+                    TableReader reader = new TableReader(configuration, "x", mappings)
+            ) {
+                append(writer, 0, 100);
+                Assert.assertTrue(reader.reload());
+                assertReader(reader, 100);
+
+                writer.truncate();
+                append(writer, 1000, 10);
+                Assert.assertTrue(reader.reload());
+                long expected = 1000;
+                final RecordCursor cursor = reader.getCursor();
+                final Record record = cursor.getRecord();
+                while (cursor.hasNext()) {
+                    Assert.assertEquals(expected++, record.getLong(0));
+                }
+                Assert.assertEquals(1010, expected);
+                // mappings of the file before truncate are released
+                Assert.assertEquals(2, mappings.size());
+            }
+            Assert.assertEquals(0, mappings.size());
+        });
+    }
+
+    private static void append(TableWriter writer, long value, int count) {
+        for (int i = 0; i < count; i++) {
+            TableWriter.Row row = writer.newRow(i);
+            row.putLong(0, value + i);
+            row.append();
+        }
+        writer.commit();
+    }
+
+    private static void assertReader(TableReader reader, long count) {
+        final RecordCursor cursor = reader.getCursor();
+        final Record record = cursor.getRecord();
+        long expected = 0;
+        while (cursor.hasNext()) {
+            Assert.assertEquals(expected, record.getLong(0));
+            if (reader.getMetadata().getColumnCount() > 2) {
+                TestUtils.assertEquals("s" + expected, record.getStr(1));
+            }
+            expected++;
+        }
+        Assert.assertEquals(count, expected);
+    }
+}
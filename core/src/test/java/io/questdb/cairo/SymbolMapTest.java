@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
 import io.questdb.std.ObjList;
 import io.questdb.std.Rnd;
 import io.questdb.std.str.Path;
@@ -96,6 +97,192 @@ public class SymbolMapTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testIndexRebuild() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            int N = 10000;
+            Rnd rnd = new Rnd();
+            FilesFacade ff = configuration.getFilesFacade();
+            try (Path path = new Path().of(configuration.getRoot())) {
+                create(path, "x", 8, false);
+                try (SymbolMapWriter writer = new SymbolMapWriter(configuration, path, "x", 0)) {
+                    for (int i = 0; i < N; i++) {
+                        Assert.assertEquals(i, writer.put(rnd.nextChars(10)));
+                    }
+                    // index outgrew capacity several times, indexes that were never published are removed,
+                    // published index is kept for readers until new one is published
+                    Assert.assertTrue(writer.getIndexVersion() > 1);
+                    final int plen = path.length();
+                    Assert.assertTrue(ff.exists(SymbolMapWriter.indexKeyFileName(path, "x", writer.getIndexVersion())));
+                    Assert.assertFalse(ff.exists(SymbolMapWriter.indexKeyFileName(path.trimTo(plen), "x", writer.getIndexVersion() - 1)));
+                    Assert.assertTrue(ff.exists(SymbolMapWriter.indexValueFileName(path.trimTo(plen), "x", 0)));
+
+                    writer.publishIndex(1);
+                    writer.removeObsoleteIndexes(Long.MAX_VALUE);
+                    Assert.assertFalse(ff.exists(SymbolMapWriter.indexValueFileName(path.trimTo(plen), "x", 0)));
+                    path.trimTo(plen);
+
+                    rnd.reset();
+                    for (int i = 0; i < N; i++) {
+                        Assert.assertEquals(i, writer.put(rnd.nextChars(10)));
+                    }
+                }
+
+                // declared capacity is not changed by rebuild
+                try (SymbolMapReaderImpl reader = new SymbolMapReaderImpl(configuration, path, "x", N)) {
+                    Assert.assertEquals(8, reader.getSymbolCapacity());
+                    rnd.reset();
+                    for (int i = 0; i < N; i++) {
+                        Assert.assertEquals(i, reader.keyOf(rnd.nextChars(10)));
+                    }
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, reader.keyOf("hello"));
+                }
+
+                // reopened writer continues with rebuilt index
+                try (SymbolMapWriter writer = new SymbolMapWriter(configuration, path, "x", N)) {
+                    rnd.reset();
+                    for (int i = 0; i < N; i++) {
+                        Assert.assertEquals(i, writer.put(rnd.nextChars(10)));
+                    }
+                    Assert.assertEquals(N, writer.put("hello"));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testIndexRebuildIsIncremental() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            Rnd rnd = new Rnd();
+            FilesFacade ff = configuration.getFilesFacade();
+            try (Path path = new Path().of(configuration.getRoot())) {
+                create(path, "x", 64, false);
+                try (SymbolMapWriter writer = new SymbolMapWriter(configuration, path, "x", 0)) {
+                    int key = 0;
+                    while (!writer.isRehashing()) {
+                        Assert.assertEquals(key++, writer.put(rnd.nextChars(10)));
+                    }
+                    // symbol that crossed the threshold did not pay for the whole rebuild
+                    Assert.assertEquals(0, writer.getIndexVersion());
+                    final int rebuildStart = key;
+
+                    // rollback of symbols, that are already in new index, keeps both indexes consistent
+                    final int rollbackCount = key + 10;
+                    for (int i = 0; i < 20; i++) {
+                        Assert.assertEquals(key++, writer.put(rnd.nextChars(10)));
+                    }
+                    Assert.assertTrue(writer.isRehashing());
+                    writer.rollback(rollbackCount);
+                    rnd.reset();
+                    for (int i = 0; i < rollbackCount; i++) {
+                        rnd.nextChars(10);
+                    }
+                    key = rollbackCount;
+
+                    while (writer.isRehashing()) {
+                        Assert.assertEquals(key++, writer.put(rnd.nextChars(10)));
+                    }
+                    Assert.assertEquals(1, writer.getIndexVersion());
+                    Assert.assertTrue(key < rebuildStart * 2);
+                    writer.publishIndex(1);
+                    writer.removeObsoleteIndexes(Long.MAX_VALUE);
+                    final int plen = path.length();
+                    Assert.assertFalse(ff.exists(SymbolMapWriter.indexKeyFileName(path, "x", 0)));
+                    path.trimTo(plen);
+
+                    rnd.reset();
+                    for (int i = 0; i < key; i++) {
+                        Assert.assertEquals(i, writer.put(rnd.nextChars(10)));
+                    }
+                    Assert.assertEquals(key, writer.put("hello"));
+
+                    try (SymbolMapReaderImpl reader = new SymbolMapReaderImpl(configuration, path, "x", key)) {
+                        rnd.reset();
+                        for (int i = 0; i < key; i++) {
+                            Assert.assertEquals(i, reader.keyOf(rnd.nextChars(10)));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testIndexRebuildCancelledOnClose() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            Rnd rnd = new Rnd();
+            FilesFacade ff = configuration.getFilesFacade();
+            try (Path path = new Path().of(configuration.getRoot())) {
+                create(path, "x", 64, false);
+                int key = 0;
+                try (SymbolMapWriter writer = new SymbolMapWriter(configuration, path, "x", 0)) {
+                    while (!writer.isRehashing()) {
+                        Assert.assertEquals(key++, writer.put(rnd.nextChars(10)));
+                    }
+                }
+                final int plen = path.length();
+                Assert.assertFalse(ff.exists(SymbolMapWriter.indexKeyFileName(path, "x", 1)));
+                path.trimTo(plen);
+
+                // rebuild starts over with reopened writer
+                try (SymbolMapWriter writer = new SymbolMapWriter(configuration, path, "x", key)) {
+                    Assert.assertEquals(0, writer.getIndexVersion());
+                    while (writer.getIndexVersion() == 0) {
+                        Assert.assertEquals(key++, writer.put(rnd.nextChars(10)));
+                    }
+                    rnd.reset();
+                    for (int i = 0; i < key; i++) {
+                        Assert.assertEquals(i, writer.put(rnd.nextChars(10)));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testIndexRebuildConcurrentReader() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            int N = 1000;
+            Rnd rnd = new Rnd();
+            try (Path path = new Path().of(configuration.getRoot())) {
+                create(path, "x", 64, false);
+                try (SymbolMapWriter writer = new SymbolMapWriter(configuration, path, "x", 0)) {
+                    for (int i = 0; i < 100; i++) {
+                        Assert.assertEquals(i, writer.put(rnd.nextChars(10)));
+                    }
+                    Assert.assertEquals(0, writer.getIndexVersion());
+
+                    try (SymbolMapReaderImpl reader = new SymbolMapReaderImpl(configuration, path, "x", 100)) {
+                        for (int i = 100; i < N; i++) {
+                            Assert.assertEquals(i, writer.put(rnd.nextChars(10)));
+                        }
+                        Assert.assertTrue(writer.getIndexVersion() > 0);
+
+                        // reader keeps using index it opened until it sees more symbols
+                        rnd.reset();
+                        for (int i = 0; i < N; i++) {
+                            CharSequence cs = rnd.nextChars(10);
+                            Assert.assertEquals(i < 100 ? i : SymbolTable.VALUE_NOT_FOUND, reader.keyOf(cs));
+                        }
+
+                        // index is published with transaction, old index is kept while older transactions are read
+                        writer.publishIndex(1);
+                        writer.removeObsoleteIndexes(0);
+                        final int plen = path.length();
+                        Assert.assertTrue(configuration.getFilesFacade().exists(SymbolMapWriter.indexKeyFileName(path, "x", 0)));
+                        path.trimTo(plen);
+
+                        reader.updateSymbolCount(N);
+                        rnd.reset();
+                        for (int i = 0; i < N; i++) {
+                            Assert.assertEquals(i, reader.keyOf(rnd.nextChars(10)));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
 //    @Test
 //    public void testLookupPerformanceOld() throws JournalException {
 //        int N = 100000000;
@@ -242,6 +429,90 @@ public class SymbolMapTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testSharedCache() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            int N = 10000;
+            Rnd rnd = new Rnd();
+            try (Path path = new Path().of(configuration.getRoot())) {
+                SymbolMapWriter.createSymbolMapFiles(configuration.getFilesFacade(), new AppendMemory(), path, "x", 64, true);
+                try (SymbolMapWriter writer = new SymbolMapWriter(configuration, path, "x", 0)) {
+                    for (int i = 0; i < N; i++) {
+                        Assert.assertEquals(i, writer.put(rnd.nextChars(10)));
+                    }
+                    // repeated values are found in writer cache
+                    rnd.reset();
+                    for (int i = 0; i < N; i++) {
+                        Assert.assertEquals(i, writer.put(rnd.nextChars(10)));
+                    }
+
+                    final int sizeBefore = SharedSymbolCache.size();
+                    try (
+                            SymbolMapReaderImpl reader1 = new SymbolMapReaderImpl(configuration, path, "x", N / 2);
+                            SymbolMapReaderImpl reader2 = new SymbolMapReaderImpl(configuration, path, "x", N)
+                    ) {
+                        Assert.assertEquals(sizeBefore + 1, SharedSymbolCache.size());
+
+                        rnd.reset();
+                        for (int i = 0; i < N; i++) {
+                            CharSequence cs = rnd.nextChars(10);
+                            Assert.assertEquals(i, reader2.keyOf(cs));
+                            TestUtils.assertEquals(cs, reader2.valueOf(i));
+                            if (i < N / 2) {
+                                Assert.assertEquals(i, reader1.keyOf(cs));
+                                // values are decoded once for all readers
+                                Assert.assertSame(reader2.valueOf(i), reader1.valueOf(i));
+                            } else {
+                                // keys that are not committed for reader are not visible
+                                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, reader1.keyOf(cs));
+                                Assert.assertNull(reader1.valueOf(i));
+                            }
+                        }
+
+                        Assert.assertEquals(N, writer.put("XYZ"));
+                        Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, reader2.keyOf("XYZ"));
+                        reader1.updateSymbolCount(N + 1);
+                        Assert.assertEquals(N, reader1.keyOf("XYZ"));
+                        Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, reader2.keyOf("XYZ"));
+                        reader2.updateSymbolCount(N + 1);
+                        Assert.assertEquals(N, reader2.keyOf("XYZ"));
+                        Assert.assertSame(reader1.valueOf(N), reader2.valueOf(N));
+                    }
+                    Assert.assertEquals(sizeBefore, SharedSymbolCache.size());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testSharedCacheRecreatedMap() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (Path path = new Path().of(configuration.getRoot())) {
+                SymbolMapWriter.createSymbolMapFiles(configuration.getFilesFacade(), new AppendMemory(), path, "x", 64, true);
+                try (SymbolMapWriter writer = new SymbolMapWriter(configuration, path, "x", 0)) {
+                    Assert.assertEquals(0, writer.put("abc"));
+                    Assert.assertEquals(1, writer.put("def"));
+                }
+
+                try (SymbolMapReaderImpl reader1 = new SymbolMapReaderImpl(configuration, path, "x", 2)) {
+                    Assert.assertEquals(1, reader1.keyOf("def"));
+
+                    // map re-created on the same path while reader of old map is still open
+                    SymbolMapWriter.createSymbolMapFiles(configuration.getFilesFacade(), new AppendMemory(), path, "x", 64, true);
+                    try (SymbolMapWriter writer = new SymbolMapWriter(configuration, path, "x", 0)) {
+                        Assert.assertEquals(0, writer.put("def"));
+                    }
+
+                    try (SymbolMapReaderImpl reader2 = new SymbolMapReaderImpl(configuration, path, "x", 1)) {
+                        Assert.assertEquals(0, reader2.keyOf("def"));
+                        TestUtils.assertEquals("def", reader2.valueOf(0));
+                        Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, reader2.keyOf("abc"));
+                    }
+                }
+            }
+        });
+    }
+
     @Test
     public void testShortHeader() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -314,11 +585,20 @@ public class SymbolMapTest extends AbstractCairoTest {
 
     @Test
     public void testTransactionalRead() throws Exception {
+        testTransactionalRead(false);
+    }
+
+    @Test
+    public void testTransactionalReadCached() throws Exception {
+        testTransactionalRead(true);
+    }
+
+    private void testTransactionalRead(boolean useCache) throws Exception {
         TestUtils.assertMemoryLeak(() -> {
             int N = 1000000;
             Rnd rnd = new Rnd();
             try (Path path = new Path().of(configuration.getRoot())) {
-                create(path, "x", N, false);
+                create(path, "x", N, useCache);
                 try (SymbolMapWriter writer = new SymbolMapWriter(configuration, path, "x", 0)) {
                     long prev = -1L;
                     for (int i = 0; i < N; i++) {
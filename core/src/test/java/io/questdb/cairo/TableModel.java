@@ -40,6 +40,8 @@ public class TableModel implements TableStructure, Closeable {
     private final Path path = new Path();
     private final CairoConfiguration cairoCfg;
     private int timestampIndex = -1;
+    private int ttl;
+    private int coldAfter;
 
     public TableModel(CairoConfiguration cairoCfg, String name, int partitionBy) {
         this.cairoCfg = cairoCfg;
@@ -136,6 +138,16 @@ public class TableModel implements TableStructure, Closeable {
         return timestampIndex;
     }
 
+    @Override
+    public int getTtl() {
+        return ttl;
+    }
+
+    @Override
+    public int getColdAfter() {
+        return coldAfter;
+    }
+
     public TableModel indexed(boolean indexFlag, int indexBlockCapacity) {
         int pos = columnBits.size() - 1;
         assert pos > 0;
@@ -159,6 +171,16 @@ public class TableModel implements TableStructure, Closeable {
         return this;
     }
 
+    public TableModel coldAfter(int coldAfter) {
+        this.coldAfter = coldAfter;
+        return this;
+    }
+
+    public TableModel ttl(int ttl) {
+        this.ttl = ttl;
+        return this;
+    }
+
     public TableModel timestamp() {
         return timestamp("timestamp");
     }
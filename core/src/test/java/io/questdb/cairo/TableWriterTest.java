@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
@@ -37,6 +38,10 @@ import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class TableWriterTest extends AbstractCairoTest {
@@ -725,6 +730,105 @@ public class TableWriterTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testAppendBlock() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("sym", ColumnType.SYMBOL)
+                    .col("i", ColumnType.INT)
+                    .col("d", ColumnType.DOUBLE)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            final int N = 6;
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-01-01T20:00:00.000000Z");
+            final long syms = Unsafe.malloc(N * Integer.BYTES);
+            final long ints = Unsafe.malloc(N * Integer.BYTES);
+            final long timestamps = Unsafe.malloc(N * Long.BYTES);
+            try (TableWriter w = new TableWriter(configuration, "x")) {
+                // row appended the usual way goes first
+                TableWriter.Row r = w.newRow(ts);
+                r.putSym(0, "row");
+                r.putInt(1, -1);
+                r.putDouble(2, 0.5);
+                r.append();
+
+                final int a = w.putSym(0, "a");
+                final int b = w.putSym(0, "b");
+                for (int i = 0; i < N; i++) {
+                    Unsafe.getUnsafe().putInt(syms + i * Integer.BYTES, i % 3 == 2 ? SymbolTable.VALUE_IS_NULL : (i % 3 == 0 ? a : b));
+                    Unsafe.getUnsafe().putInt(ints + i * Integer.BYTES, i);
+                    // spans three partitions
+                    Unsafe.getUnsafe().putLong(timestamps + i * Long.BYTES, ts + i * 10 * Timestamps.HOUR_MICROS);
+                }
+
+                LongList addresses = new LongList();
+                addresses.add(syms);
+                addresses.add(ints);
+                addresses.add(0); // nulls
+                addresses.add(timestamps);
+                w.appendBlock(addresses, N);
+                Assert.assertEquals(N + 1, w.size());
+                w.commit();
+
+                r = w.newRow(ts + N * 10 * Timestamps.HOUR_MICROS);
+                r.putSym(0, "b");
+                r.putInt(1, 100);
+                r.append();
+                w.commit();
+            } finally {
+                Unsafe.free(syms, N * Integer.BYTES);
+                Unsafe.free(ints, N * Integer.BYTES);
+                Unsafe.free(timestamps, N * Long.BYTES);
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                Assert.assertEquals(4, reader.getPartitionCount());
+                assertThat("sym\ti\td\ttimestamp\n" +
+                                "row\t-1\t0.5\t2020-01-01T20:00:00.000000Z\n" +
+                                "a\t0\tNaN\t2020-01-01T20:00:00.000000Z\n" +
+                                "b\t1\tNaN\t2020-01-02T06:00:00.000000Z\n" +
+                                "\t2\tNaN\t2020-01-02T16:00:00.000000Z\n" +
+                                "a\t3\tNaN\t2020-01-03T02:00:00.000000Z\n" +
+                                "b\t4\tNaN\t2020-01-03T12:00:00.000000Z\n" +
+                                "\t5\tNaN\t2020-01-03T22:00:00.000000Z\n" +
+                                "b\t100\tNaN\t2020-01-04T08:00:00.000000Z\n",
+                        reader.getCursor(), reader.getMetadata(), true);
+            }
+        });
+    }
+
+    @Test
+    public void testAppendBlockOutOfOrder() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("i", ColumnType.INT)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-01-01T20:00:00.000000Z");
+            final long timestamps = Unsafe.malloc(2 * Long.BYTES);
+            try (TableWriter w = new TableWriter(configuration, "x")) {
+                Unsafe.getUnsafe().putLong(timestamps, ts + Timestamps.DAY_MICROS);
+                Unsafe.getUnsafe().putLong(timestamps + Long.BYTES, ts);
+                LongList addresses = new LongList();
+                addresses.add(0);
+                addresses.add(timestamps);
+                try {
+                    w.appendBlock(addresses, 2);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getMessage(), "out of order");
+                }
+                Assert.assertEquals(0, w.size());
+            } finally {
+                Unsafe.free(timestamps, 2 * Long.BYTES);
+            }
+        });
+    }
+
     @Test
     public void testAppendOutOfOrder() throws Exception {
         int N = 10000;
@@ -1689,6 +1793,257 @@ public class TableWriterTest extends AbstractCairoTest {
         }
     }
 
+    @Test
+    public void testGroupCommit() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final AtomicInteger syncCount = new AtomicInteger();
+            final FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public int msync(long addr, long len, boolean async) {
+                    syncCount.incrementAndGet();
+                    return super.msync(addr, len, async);
+                }
+            };
+            final long[] now = {0};
+            create(ff, PartitionBy.NONE, 4);
+            Rnd rnd = new Rnd();
+            long ts = 0;
+            try (TableWriter writer = new TableWriter(new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+
+                @Override
+                public long getGroupCommitLatency() {
+                    return 2;
+                }
+
+                @Override
+                public long getGroupCommitMaxRows() {
+                    return 100;
+                }
+
+                @Override
+                public MicrosecondClock getMicrosecondClock() {
+                    return () -> now[0];
+                }
+            }, PRODUCT)) {
+                // commits are published straight away, sync waits for latency budget
+                for (int i = 0; i < 5; i++) {
+                    ts = populateProducts(writer, rnd, ts, 10, 1000);
+                    writer.commit(CommitMode.ASYNC);
+                }
+                Assert.assertEquals(0, syncCount.get());
+                Assert.assertTrue(writer.checkPendingSync());
+                try (TableReader reader = new TableReader(configuration, PRODUCT)) {
+                    Assert.assertEquals(50, reader.size());
+                }
+
+                now[0] += 2000;
+                Assert.assertFalse(writer.checkPendingSync());
+                final int latencySyncCount = syncCount.get();
+                Assert.assertTrue(latencySyncCount > 0);
+
+                // row budget forces sync ahead of latency
+                ts = populateProducts(writer, rnd, ts, 101, 1000);
+                writer.commit(CommitMode.ASYNC);
+                Assert.assertFalse(writer.hasPendingSync());
+                Assert.assertTrue(syncCount.get() > latencySyncCount);
+
+                // nosync commits are not deferred
+                ts = populateProducts(writer, rnd, ts, 10, 1000);
+                final int nosyncCount = syncCount.get();
+                writer.commit(CommitMode.NOSYNC);
+                Assert.assertFalse(writer.hasPendingSync());
+                Assert.assertEquals(nosyncCount, syncCount.get());
+
+                // close completes pending sync
+                populateProducts(writer, rnd, ts, 10, 1000);
+                writer.commit(CommitMode.ASYNC);
+                Assert.assertTrue(writer.hasPendingSync());
+                writer.close();
+                Assert.assertTrue(syncCount.get() > nosyncCount);
+            }
+
+            try (TableReader reader = new TableReader(configuration, PRODUCT)) {
+                Assert.assertEquals(171, reader.size());
+            }
+        });
+    }
+
+    @Test
+    public void testGroupCommitSyncWaitsForSync() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final AtomicInteger syncCount = new AtomicInteger();
+            final AtomicInteger asyncSyncCount = new AtomicInteger();
+            final FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public int msync(long addr, long len, boolean async) {
+                    syncCount.incrementAndGet();
+                    if (async) {
+                        asyncSyncCount.incrementAndGet();
+                    }
+                    return super.msync(addr, len, async);
+                }
+            };
+            create(ff, PartitionBy.NONE, 4);
+            Rnd rnd = new Rnd();
+            long ts = 0;
+            try (TableWriter writer = new TableWriter(new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+
+                @Override
+                public long getGroupCommitLatency() {
+                    return 10;
+                }
+
+                @Override
+                public MicrosecondClock getMicrosecondClock() {
+                    return () -> 0;
+                }
+            }, PRODUCT)) {
+                for (int i = 0; i < 3; i++) {
+                    ts = populateProducts(writer, rnd, ts, 10, 1000);
+                    writer.commit(CommitMode.ASYNC);
+                }
+                Assert.assertEquals(0, syncCount.get());
+                Assert.assertTrue(writer.hasPendingSync());
+
+                // sync commit must not return before data is on disk, even though deferred
+                // commits have not reached their deadline; one sync acknowledges the whole window
+                populateProducts(writer, rnd, ts, 10, 1000);
+                writer.commit(CommitMode.SYNC);
+                Assert.assertTrue(syncCount.get() > 0);
+                Assert.assertEquals(0, asyncSyncCount.get());
+                Assert.assertFalse(writer.hasPendingSync());
+                Assert.assertFalse(writer.checkPendingSync());
+
+                final int count = syncCount.get();
+                writer.close();
+                Assert.assertEquals(count, syncCount.get());
+            }
+
+            try (TableReader reader = new TableReader(configuration, PRODUCT)) {
+                Assert.assertEquals(40, reader.size());
+            }
+        });
+    }
+
+    @Test
+    public void testGroupCommitSyncSharedByTables() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final Set<Thread> syncThreads = ConcurrentHashMap.newKeySet();
+            final FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public int msync(long addr, long len, boolean async) {
+                    syncThreads.add(Thread.currentThread());
+                    return super.msync(addr, len, async);
+                }
+            };
+            final CairoConfiguration groupConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+
+                @Override
+                public long getGroupCommitLatency() {
+                    return 500;
+                }
+            };
+            create(ff, PartitionBy.NONE, 4);
+            try (TableModel model = new TableModel(groupConfiguration, "x", PartitionBy.NONE)
+                    .col("v", ColumnType.LONG)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            try (
+                    TableWriter productWriter = new TableWriter(groupConfiguration, PRODUCT);
+                    TableWriter xWriter = new TableWriter(groupConfiguration, "x")
+            ) {
+                populateProducts(productWriter, new Rnd(), 0, 10, 1000);
+                for (int i = 0; i < 10; i++) {
+                    TableWriter.Row row = xWriter.newRow(i);
+                    row.putLong(0, i);
+                    row.append();
+                }
+                syncThreads.clear();
+
+                // commits of both tables arrive within the window and share one sync
+                final CyclicBarrier barrier = new CyclicBarrier(2);
+                final CountDownLatch done = new CountDownLatch(2);
+                final AtomicInteger errors = new AtomicInteger();
+                for (TableWriter writer : new TableWriter[]{productWriter, xWriter}) {
+                    new Thread(() -> {
+                        try {
+                            barrier.await();
+                            writer.commit(CommitMode.SYNC);
+                            Assert.assertFalse(writer.hasPendingSync());
+                        } catch (Throwable e) {
+                            e.printStackTrace();
+                            errors.incrementAndGet();
+                        } finally {
+                            done.countDown();
+                        }
+                    }).start();
+                }
+                done.await();
+                Assert.assertEquals(0, errors.get());
+                Assert.assertEquals(1, syncThreads.size());
+            }
+
+            try (TableReader reader = new TableReader(groupConfiguration, "x")) {
+                Assert.assertEquals(10, reader.size());
+            }
+        });
+    }
+
+    @Test
+    public void testGroupCommitPartitionSwitch() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final AtomicInteger syncCount = new AtomicInteger();
+            final FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public int msync(long addr, long len, boolean async) {
+                    syncCount.incrementAndGet();
+                    return super.msync(addr, len, async);
+                }
+            };
+            create(ff, PartitionBy.DAY, 4);
+            Rnd rnd = new Rnd();
+            long ts = TimestampFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+            try (TableWriter writer = new TableWriter(new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+
+                @Override
+                public long getGroupCommitLatency() {
+                    return 60_000;
+                }
+            }, PRODUCT)) {
+                ts = populateProducts(writer, rnd, ts, 10, 60 * 60000 * 1000L);
+                writer.commit(CommitMode.ASYNC);
+                Assert.assertEquals(0, syncCount.get());
+
+                // columns of previous partition are synced before they are released
+                populateProducts(writer, rnd, ts, 20, 60 * 60000 * 1000L);
+                Assert.assertTrue(syncCount.get() > 0);
+                writer.commit(CommitMode.ASYNC);
+                Assert.assertTrue(writer.hasPendingSync());
+                writer.syncPendingCommit();
+                Assert.assertFalse(writer.hasPendingSync());
+                Assert.assertEquals(30, writer.size());
+            }
+        });
+    }
+
     @Test
     public void testIncorrectTodoCode() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -2066,6 +2421,81 @@ public class TableWriterTest extends AbstractCairoTest {
         testUnrecoverableRemoveColumn(new X());
     }
 
+    @Test
+    public void testRemoveRowsFrom() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            create(FilesFacadeImpl.INSTANCE, PartitionBy.NONE, 100);
+            final long increment = 60000L * 1000L;
+            final long ts0 = TimestampFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+            final long ts = populateTable0(FilesFacadeImpl.INSTANCE, 100);
+            final Rnd rnd = new Rnd();
+            try (TableWriter writer = new TableWriter(configuration, PRODUCT)) {
+                // nothing to remove
+                Assert.assertTrue(writer.removeRowsFrom(ts + 1));
+                Assert.assertEquals(100, writer.size());
+
+                Assert.assertTrue(writer.removeRowsFrom(ts0 + 61 * increment));
+                Assert.assertEquals(60, writer.size());
+                Assert.assertEquals(ts0 + 60 * increment, writer.getMaxTimestamp());
+
+                populateProducts(writer, rnd, ts0 + 60 * increment, 10, increment);
+                writer.commit();
+                Assert.assertEquals(70, writer.size());
+            }
+
+            try (TableReader reader = new TableReader(configuration, PRODUCT)) {
+                Assert.assertEquals(70, reader.size());
+                Assert.assertEquals(ts0 + 70 * increment, reader.getMaxTimestamp());
+            }
+
+            try (TableWriter writer = new TableWriter(configuration, PRODUCT)) {
+                Assert.assertTrue(writer.removeRowsFrom(ts0));
+                Assert.assertEquals(0, writer.size());
+            }
+        });
+    }
+
+    @Test
+    public void testRemoveRowsFromIsCommitted() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            create(FilesFacadeImpl.INSTANCE, PartitionBy.NONE, 100);
+            final long increment = 60000L * 1000L;
+            final long ts0 = TimestampFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+            populateTable0(FilesFacadeImpl.INSTANCE, 100);
+            final Rnd rnd = new Rnd();
+            try (
+                    TableWriter writer = new TableWriter(configuration, PRODUCT);
+                    TableReader reader = new TableReader(configuration, PRODUCT)
+            ) {
+                Assert.assertFalse(writer.isPreviousTxnInUse());
+                Assert.assertTrue(writer.removeRowsFrom(ts0 + 61 * increment));
+                Assert.assertFalse(writer.inTransaction());
+                // reader has not seen the removal yet
+                Assert.assertTrue(writer.isPreviousTxnInUse());
+                Assert.assertEquals(100, reader.size());
+                reader.reload();
+                Assert.assertEquals(60, reader.size());
+                Assert.assertFalse(writer.isPreviousTxnInUse());
+
+                populateProducts(writer, rnd, ts0 + 60 * increment, 5, increment);
+                writer.commit();
+                reader.reload();
+                Assert.assertEquals(65, reader.size());
+                Assert.assertEquals(ts0 + 65 * increment, reader.getMaxTimestamp());
+
+                // rollback discards appended rows, but not the removal
+                Assert.assertTrue(writer.removeRowsFrom(ts0 + 51 * increment));
+                populateProducts(writer, rnd, ts0 + 50 * increment, 30, increment);
+                writer.rollback();
+                Assert.assertFalse(writer.inTransaction());
+                Assert.assertEquals(50, writer.size());
+                reader.reload();
+                Assert.assertEquals(50, reader.size());
+                Assert.assertEquals(ts0 + 50 * increment, reader.getMaxTimestamp());
+            }
+        });
+    }
+
     @Test
     public void testRemoveTimestamp() throws Exception {
         try (TableModel model = new TableModel(configuration, "ABC", PartitionBy.NONE)
@@ -2359,6 +2789,110 @@ public class TableWriterTest extends AbstractCairoTest {
         testUnrecoverableRenameColumn(new X());
     }
 
+    @Test
+    public void testRenameSymbolColumnAfterIndexRebuild() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.NONE)
+                    .col("a", ColumnType.SYMBOL).symbolCapacity(8).cached(false)) {
+                CairoTestUtils.create(model);
+            }
+
+            final int N = 1000;
+            final Rnd rnd = new Rnd();
+            try (
+                    TableWriter w = new TableWriter(configuration, "x");
+                    TableReader reader = new TableReader(configuration, "x");
+                    Path path = new Path().of(configuration.getRoot()).concat("x")
+            ) {
+                for (int i = 0; i < N; i++) {
+                    TableWriter.Row r = w.newRow();
+                    r.putSym(0, rnd.nextChars(8));
+                    r.append();
+                }
+                w.commit();
+                Assert.assertTrue(reader.reload());
+                Assert.assertTrue(w.getSymbolMapWriter(0).getIndexVersion() > 0);
+
+                w.renameColumn("a", "b");
+                final int plen = path.length();
+                Assert.assertTrue(FF.exists(SymbolMapWriter.indexKeyFileName(path, "b", w.getSymbolMapWriter(0).getIndexVersion())));
+
+                // index is rebuilt again after rename
+                final int indexVersion = w.getSymbolMapWriter(0).getIndexVersion();
+                for (int i = 0; i < 10 * N; i++) {
+                    TableWriter.Row r = w.newRow();
+                    r.putSym(0, rnd.nextChars(8));
+                    r.append();
+                }
+                w.commit();
+                Assert.assertTrue(w.getSymbolMapWriter(0).getIndexVersion() > indexVersion);
+
+                Assert.assertTrue(reader.reload());
+                SymbolMapReader symbolMapReader = reader.getSymbolMapReader(0);
+                rnd.reset();
+                for (int i = 0; i < 11 * N; i++) {
+                    Assert.assertEquals(i, symbolMapReader.keyOf(rnd.nextChars(8)));
+                }
+
+                final int removedVersion = w.getSymbolMapWriter(0).getIndexVersion();
+                w.removeColumn("b");
+                Assert.assertFalse(FF.exists(SymbolMapWriter.indexKeyFileName(path.trimTo(plen), "b", removedVersion)));
+                Assert.assertFalse(FF.exists(SymbolMapWriter.indexValueFileName(path.trimTo(plen), "b", removedVersion)));
+            }
+        });
+    }
+
+    @Test
+    public void testSymbolIndexRebuildKeepsIndexForReaders() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.NONE)
+                    .col("a", ColumnType.SYMBOL).symbolCapacity(8).cached(false)) {
+                CairoTestUtils.create(model);
+            }
+
+            final int N = 1000;
+            final Rnd rnd = new Rnd();
+            try (
+                    TableWriter w = new TableWriter(configuration, "x");
+                    Path path = new Path().of(configuration.getRoot()).concat("x")
+            ) {
+                final int plen = path.length();
+                appendSymbols(w, rnd, 4);
+                w.commit();
+
+                try (TableReader reader = new TableReader(configuration, "x")) {
+                    appendSymbols(w, rnd, N);
+                    Assert.assertTrue(w.getSymbolMapWriter(0).getIndexVersion() > 0);
+
+                    // rebuilt index is not visible before symbols it was sized for are committed
+                    Assert.assertEquals(0, SymbolMapWriter.getIndexVersion(readSymbolIndexHeader(path.trimTo(plen), "a")));
+                    w.commit();
+                    Assert.assertEquals(w.getSymbolMapWriter(0).getIndexVersion(), SymbolMapWriter.getIndexVersion(readSymbolIndexHeader(path.trimTo(plen), "a")));
+
+                    // reader of older transaction can still use index it started with
+                    Assert.assertTrue(FF.exists(SymbolMapWriter.indexKeyFileName(path.trimTo(plen), "a", 0)));
+                    Assert.assertTrue(FF.exists(SymbolMapWriter.indexValueFileName(path.trimTo(plen), "a", 0)));
+                    appendSymbols(w, rnd, 1);
+                    w.commit();
+                    Assert.assertTrue(FF.exists(SymbolMapWriter.indexKeyFileName(path.trimTo(plen), "a", 0)));
+
+                    Assert.assertTrue(reader.reload());
+                    SymbolMapReader symbolMapReader = reader.getSymbolMapReader(0);
+                    rnd.reset();
+                    for (int i = 0, n = N + 5; i < n; i++) {
+                        Assert.assertEquals(i, symbolMapReader.keyOf(rnd.nextChars(8)));
+                    }
+                }
+
+                // once readers moved on, next transaction removes old index
+                appendSymbols(w, rnd, 1);
+                w.commit();
+                Assert.assertFalse(FF.exists(SymbolMapWriter.indexKeyFileName(path.trimTo(plen), "a", 0)));
+                Assert.assertFalse(FF.exists(SymbolMapWriter.indexValueFileName(path.trimTo(plen), "a", 0)));
+            }
+        });
+    }
+
     @Test
     public void testRenameTimestamp() throws Exception {
         try (TableModel model = new TableModel(configuration, "ABC", PartitionBy.NONE)
@@ -2578,6 +3112,16 @@ public class TableWriterTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testTruncateSymbolCache() throws Exception {
+        testTruncateSymbolCache(false);
+    }
+
+    @Test
+    public void testTruncateSymbolCacheWriterReopen() throws Exception {
+        testTruncateSymbolCache(true);
+    }
+
     @Test
     public void testSkipOverSpuriousDir() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -3498,14 +4042,16 @@ public class TableWriterTest extends AbstractCairoTest {
                     path.of(root).concat(model.getName());
                     final int plen = path.length();
                     if (columnType == ColumnType.SYMBOL) {
-                        Assert.assertFalse(FF.exists(path.trimTo(plen).concat(lpsz).concat("supplier.v").$()));
+                        // symbol index could have been rebuilt with larger capacity
+                        final int indexVersion = writer.getSymbolMapWriter(writer.getColumnIndex("sup")).getIndexVersion();
+                        Assert.assertFalse(FF.exists(SymbolMapWriter.indexValueFileName(path.trimTo(plen), "supplier", indexVersion)));
                         Assert.assertFalse(FF.exists(path.trimTo(plen).concat(lpsz).concat("supplier.o").$()));
                         Assert.assertFalse(FF.exists(path.trimTo(plen).concat(lpsz).concat("supplier.c").$()));
-                        Assert.assertFalse(FF.exists(path.trimTo(plen).concat(lpsz).concat("supplier.k").$()));
-                        Assert.assertTrue(FF.exists(path.trimTo(plen).concat(lpsz).concat("sup.v").$()));
+                        Assert.assertFalse(FF.exists(SymbolMapWriter.indexKeyFileName(path.trimTo(plen), "supplier", indexVersion)));
+                        Assert.assertTrue(FF.exists(SymbolMapWriter.indexValueFileName(path.trimTo(plen), "sup", indexVersion)));
                         Assert.assertTrue(FF.exists(path.trimTo(plen).concat(lpsz).concat("sup.o").$()));
                         Assert.assertTrue(FF.exists(path.trimTo(plen).concat(lpsz).concat("sup.c").$()));
-                        Assert.assertTrue(FF.exists(path.trimTo(plen).concat(lpsz).concat("sup.k").$()));
+                        Assert.assertTrue(FF.exists(SymbolMapWriter.indexKeyFileName(path.trimTo(plen), "sup", indexVersion)));
                     }
                     path.trimTo(plen);
                     FF.iterateDir(path.$(), (file, type) -> {
@@ -3602,6 +4148,65 @@ public class TableWriterTest extends AbstractCairoTest {
         }
     }
 
+    private void testTruncateSymbolCache(boolean reopenWriter) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.NONE)
+                    .col("a", ColumnType.SYMBOL).cached(true)) {
+                CairoTestUtils.create(model);
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                TableWriter w = new TableWriter(configuration, "x");
+                try {
+                    appendSymbols(w, "a", "b");
+                    Assert.assertTrue(reader.reload());
+                    // reader caches values of the map it shares with other readers
+                    TestUtils.assertEquals("a", reader.getSymbolMapReader(0).valueOf(0));
+                    TestUtils.assertEquals("b", reader.getSymbolMapReader(0).valueOf(1));
+
+                    w.truncate();
+                    if (reopenWriter) {
+                        w.close();
+                        w = new TableWriter(configuration, "x");
+                    }
+                    appendSymbols(w, "c", "d");
+
+                    Assert.assertTrue(reader.reload());
+                    final SymbolMapReader symbolMapReader = reader.getSymbolMapReader(0);
+                    TestUtils.assertEquals("c", symbolMapReader.valueOf(0));
+                    TestUtils.assertEquals("d", symbolMapReader.valueOf(1));
+                    Assert.assertEquals(0, symbolMapReader.keyOf("c"));
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, symbolMapReader.keyOf("a"));
+                } finally {
+                    w.close();
+                }
+            }
+        });
+    }
+
+    private static void appendSymbols(TableWriter w, String... values) {
+        for (String value : values) {
+            TableWriter.Row r = w.newRow();
+            r.putSym(0, value);
+            r.append();
+        }
+        w.commit();
+    }
+
+    private static void appendSymbols(TableWriter w, Rnd rnd, int count) {
+        for (int i = 0; i < count; i++) {
+            TableWriter.Row r = w.newRow();
+            r.putSym(0, rnd.nextChars(8));
+            r.append();
+        }
+    }
+
+    private static long readSymbolIndexHeader(Path path, CharSequence columnName) {
+        try (ReadOnlyMemory mem = new ReadOnlyMemory(FF, SymbolMapWriter.offsetFileName(path, columnName), FF.getPageSize(), SymbolMapWriter.HEADER_SIZE)) {
+            return mem.getLong(SymbolMapWriter.HEADER_INDEX);
+        }
+    }
+
     private void testSetAppendPositionFailure(String failFile) throws Exception {
         TestUtils.assertMemoryLeak(() -> {
             CairoTestUtils.createAllTable(configuration, PartitionBy.NONE);
@@ -0,0 +1,530 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.InsertMethod;
+import io.questdb.cairo.sql.InsertStatement;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.Job;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WalWriterTest extends AbstractCairoTest {
+
+    @Test
+    public void testBusyTableIsRetried() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                final Job job = engine.getWalApplyJob();
+                try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertTrue(engine.lockWriter("x"));
+                    appendRow(walWriter, 1000, 1, "a", "s1");
+                    walWriter.commit();
+                    Assert.assertFalse(job.run(0));
+                    engine.unlockWriter("x");
+                    assertTable("v\tsym\tstr\ttimestamp\n");
+                    Assert.assertTrue(job.run(0));
+                }
+                assertTable("v\tsym\tstr\ttimestamp\n" +
+                        "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n");
+            }
+        });
+    }
+
+    @Test
+    public void testColumnAddedAfterSegmentIsOpen() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    appendRow(walWriter, 1000, 1, "a", "s1");
+                    walWriter.commit();
+
+                    try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                        writer.addColumn("d", ColumnType.DOUBLE);
+                    }
+
+                    appendRow(walWriter, 2000, 2, "b", "s2");
+                    walWriter.commit();
+                    Assert.assertTrue(engine.getWalApplyJob().run(0));
+                }
+                assertTable("v\tsym\tstr\ttimestamp\td\n" +
+                        "1\ta\ts1\t1970-01-01T00:00:00.001000Z\tNaN\n" +
+                        "2\tb\ts2\t1970-01-01T00:00:00.002000Z\tNaN\n");
+            }
+        });
+    }
+
+    @Test
+    public void testColumnAddedByWalWriter() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    appendRow(walWriter, 1000, 1, "a", "s1");
+                    appendRow(walWriter, 2000, 2, "b", "s2");
+
+                    // pending rows are committed before column is added
+                    walWriter.addColumn("d", ColumnType.DOUBLE);
+                    Assert.assertEquals(1, walWriter.getTxn());
+                    Assert.assertEquals(4, walWriter.getMetadata().getColumnIndex("d"));
+
+                    WalWriter.Row row = walWriter.newRow(3000);
+                    row.putLong(0, 3);
+                    row.putDouble(4, 1.5);
+                    row.append();
+                    walWriter.commit();
+
+                    // table gets column when rows are applied
+                    assertTable("v\tsym\tstr\ttimestamp\n");
+                    Assert.assertTrue(engine.getWalApplyJob().run(0));
+                }
+                assertTable("v\tsym\tstr\ttimestamp\td\n" +
+                        "1\ta\ts1\t1970-01-01T00:00:00.001000Z\tNaN\n" +
+                        "2\tb\ts2\t1970-01-01T00:00:00.002000Z\tNaN\n" +
+                        "3\t\t\t1970-01-01T00:00:00.003000Z\t1.5\n");
+            }
+        });
+    }
+
+    @Test
+    public void testConcurrentWritersAreMergedInTimestampOrder() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                final Job job = engine.getWalApplyJob();
+                try (
+                        WalWriter walWriter1 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+                        WalWriter walWriter2 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")
+                ) {
+                    Assert.assertEquals(0, walWriter1.getSegmentId());
+                    Assert.assertEquals(1, walWriter2.getSegmentId());
+
+                    appendRow(walWriter1, 1000, 1, "a", "s1");
+                    appendRow(walWriter2, 2000, 2, "b", null);
+                    appendRow(walWriter1, 3000, 3, null, "s3");
+                    appendRow(walWriter2, 3000, 4, "a", "s4");
+                    appendRow(walWriter1, 5000, 5, "c", "s5");
+                    walWriter2.commit();
+                    walWriter1.commit();
+                    Assert.assertEquals(1, walWriter1.getTxn());
+                    Assert.assertEquals(1, walWriter2.getTxn());
+
+                    // second writer is not going to commit rows older than 3000, newer rows wait for it
+                    Assert.assertTrue(job.run(0));
+                    assertTable("v\tsym\tstr\ttimestamp\n" +
+                            "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n" +
+                            "2\tb\t\t1970-01-01T00:00:00.002000Z\n" +
+                            "3\t\ts3\t1970-01-01T00:00:00.003000Z\n" +
+                            "4\ta\ts4\t1970-01-01T00:00:00.003000Z\n");
+
+                    // nothing new has been committed
+                    Assert.assertFalse(job.run(0));
+
+                    appendRow(walWriter2, 6000, 6, "d", "s6");
+                    walWriter2.commit();
+                    Assert.assertEquals(2, walWriter2.getTxn());
+                    Assert.assertTrue(job.run(0));
+                    assertTable("v\tsym\tstr\ttimestamp\n" +
+                            "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n" +
+                            "2\tb\t\t1970-01-01T00:00:00.002000Z\n" +
+                            "3\t\ts3\t1970-01-01T00:00:00.003000Z\n" +
+                            "4\ta\ts4\t1970-01-01T00:00:00.003000Z\n" +
+                            "5\tc\ts5\t1970-01-01T00:00:00.005000Z\n");
+                    Assert.assertTrue(segmentExists(0));
+                    Assert.assertTrue(segmentExists(1));
+                }
+
+                // remaining rows are applied and segments are removed once their writers are closed
+                Assert.assertTrue(job.run(0));
+                assertTable("v\tsym\tstr\ttimestamp\n" +
+                        "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n" +
+                        "2\tb\t\t1970-01-01T00:00:00.002000Z\n" +
+                        "3\t\ts3\t1970-01-01T00:00:00.003000Z\n" +
+                        "4\ta\ts4\t1970-01-01T00:00:00.003000Z\n" +
+                        "5\tc\ts5\t1970-01-01T00:00:00.005000Z\n" +
+                        "6\td\ts6\t1970-01-01T00:00:00.006000Z\n");
+                Assert.assertFalse(segmentExists(0));
+                Assert.assertFalse(segmentExists(1));
+
+                // segment ids are reused
+                try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(0, walWriter.getSegmentId());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testIdleWriterHoldsRowsBackWithinLagOnly() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public long getWalApplyLag() {
+                    return 1;
+                }
+            };
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                final Job job = engine.getWalApplyJob();
+                try (
+                        WalWriter walWriter1 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+                        WalWriter walWriter2 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")
+                ) {
+                    // second writer has not committed, only rows older than 1ms from the newest row are applied
+                    appendRow(walWriter1, 1000, 1, "a", "s1");
+                    appendRow(walWriter1, 5000, 2, "b", "s2");
+                    walWriter1.commit();
+                    Assert.assertTrue(job.run(0));
+                    assertTable("v\tsym\tstr\ttimestamp\n" +
+                            "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n");
+
+                    // rows further behind than the lag are rejected
+                    appendRow(walWriter2, 3000, 3, "c", "s3");
+                    try {
+                        walWriter2.commit();
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getMessage(), "rows are older than rows applied to table");
+                    }
+
+                    // rows within the lag are merged
+                    appendRow(walWriter2, 4500, 4, "d", "s4");
+                    walWriter2.commit();
+                    Assert.assertTrue(job.run(0));
+                    assertTable("v\tsym\tstr\ttimestamp\n" +
+                            "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n" +
+                            "4\td\ts4\t1970-01-01T00:00:00.004500Z\n");
+                }
+                Assert.assertTrue(job.run(0));
+                assertTable("v\tsym\tstr\ttimestamp\n" +
+                        "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n" +
+                        "4\td\ts4\t1970-01-01T00:00:00.004500Z\n" +
+                        "2\tb\ts2\t1970-01-01T00:00:00.005000Z\n");
+            }
+        });
+    }
+
+    @Test
+    public void testInsertIsWrittenToWal() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isWalEnabled() {
+                    return true;
+                }
+            };
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    SqlCompiler compiler = new SqlCompiler(engine)
+            ) {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1);
+                final InsertStatement insert = compiler.compile("insert into x values (1, 'a', 's1', 1000)", executionContext).getInsertStatement();
+                try (InsertMethod method = insert.createMethod(executionContext)) {
+                    Assert.assertTrue(method.getWriter() instanceof WalWriter);
+                    method.execute();
+                    method.commit();
+                }
+                assertTable("v\tsym\tstr\ttimestamp\n");
+                Assert.assertTrue(engine.getWalApplyJob().run(0));
+                assertTable("v\tsym\tstr\ttimestamp\n" +
+                        "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n");
+            }
+        });
+    }
+
+    @Test
+    public void testLateRowsOfOtherWriterAreMerged() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                final Job job = engine.getWalApplyJob();
+                try (
+                        WalWriter walWriter1 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+                        WalWriter walWriter2 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")
+                ) {
+                    appendRow(walWriter1, 1000, 1, "a", "s1");
+                    appendRow(walWriter1, 4000, 4, "d", "s4");
+                    walWriter1.commit();
+                    // rows wait for second writer, which can still commit older rows
+                    Assert.assertFalse(job.run(0));
+                    assertTable("v\tsym\tstr\ttimestamp\n");
+
+                    appendRow(walWriter2, 2000, 2, "b", "s2");
+                    appendRow(walWriter2, 3000, 3, "c", "s3");
+                    walWriter2.commit();
+                    Assert.assertTrue(job.run(0));
+                    assertTable("v\tsym\tstr\ttimestamp\n" +
+                            "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n" +
+                            "2\tb\ts2\t1970-01-01T00:00:00.002000Z\n" +
+                            "3\tc\ts3\t1970-01-01T00:00:00.003000Z\n");
+                }
+                Assert.assertTrue(job.run(0));
+                assertTable("v\tsym\tstr\ttimestamp\n" +
+                        "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n" +
+                        "2\tb\ts2\t1970-01-01T00:00:00.002000Z\n" +
+                        "3\tc\ts3\t1970-01-01T00:00:00.003000Z\n" +
+                        "4\td\ts4\t1970-01-01T00:00:00.004000Z\n");
+                Assert.assertFalse(segmentExists(0));
+                Assert.assertFalse(segmentExists(1));
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrderRowIsRejected() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            try (WalWriter walWriter = new WalWriter(configuration, "x", null)) {
+                appendRow(walWriter, 2000, 1, "a", "s1");
+                try {
+                    walWriter.newRow(1000);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getMessage(), "Cannot insert rows out of order");
+                }
+                Assert.assertEquals(1, walWriter.size());
+            }
+        });
+    }
+
+    @Test
+    public void testInterruptedApplyIsCompleted() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            final boolean[] failSegmentUpdate = {false};
+            final FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public long openRW(LPSZ name) {
+                    if (failSegmentUpdate[0] && Chars.endsWith(name, Files.SEPARATOR + "0" + Files.SEPARATOR + TableUtils.TXN_FILE_NAME)) {
+                        return -1;
+                    }
+                    return super.openRW(name);
+                }
+            };
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+            };
+
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    appendRow(walWriter, 1000, 1, "a", "s1");
+                    appendRow(walWriter, 2000, 2, "b", "s2");
+                    walWriter.commit();
+
+                    // table is committed, but segment cannot be marked applied
+                    failSegmentUpdate[0] = true;
+                    Assert.assertFalse(engine.getWalApplyJob().run(0));
+                    failSegmentUpdate[0] = false;
+                }
+                Assert.assertTrue(applyFileExists());
+            }
+
+            // writer completes apply when it is open after restart, rows are not applied twice
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                engine.getWalApplyJob().run(0);
+                Assert.assertFalse(applyFileExists());
+                Assert.assertFalse(segmentExists(0));
+                assertTable("v\tsym\tstr\ttimestamp\n" +
+                        "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n" +
+                        "2\tb\ts2\t1970-01-01T00:00:00.002000Z\n");
+            }
+        });
+    }
+
+    @Test
+    public void testRowsOlderThanAppliedAreRejected() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                final Job job = engine.getWalApplyJob();
+                try (WalWriter walWriter1 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    appendRow(walWriter1, 5000, 1, "a", "s1");
+                    walWriter1.commit();
+                    Assert.assertTrue(job.run(0));
+                }
+
+                try (WalWriter walWriter2 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    appendRow(walWriter2, 1000, 2, "b", "s2");
+                    appendRow(walWriter2, 6000, 3, "c", "s3");
+                    try {
+                        walWriter2.commit();
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getMessage(), "rows are older than rows applied to table");
+                    }
+                    Assert.assertEquals(0, walWriter2.size());
+
+                    appendRow(walWriter2, 6000, 3, "c", "s3");
+                    walWriter2.commit();
+                    Assert.assertTrue(job.run(0));
+                }
+                assertTable("v\tsym\tstr\ttimestamp\n" +
+                        "1\ta\ts1\t1970-01-01T00:00:00.005000Z\n" +
+                        "3\tc\ts3\t1970-01-01T00:00:00.006000Z\n");
+            }
+        });
+    }
+
+    @Test
+    public void testRowsOlderThanTableAreRejected() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    TableWriter.Row row = writer.newRow(3000);
+                    row.putLong(0, 0);
+                    row.append();
+                    writer.commit();
+                }
+
+                try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    appendRow(walWriter, 1000, 1, "a", "s1");
+                    appendRow(walWriter, 4000, 2, "b", "s2");
+                    try {
+                        walWriter.commit();
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getMessage(), "rows are older than rows applied to table");
+                    }
+                    Assert.assertEquals(0, walWriter.size());
+
+                    appendRow(walWriter, 4000, 2, "b", "s2");
+                    walWriter.commit();
+                    Assert.assertTrue(engine.getWalApplyJob().run(0));
+                }
+                assertTable("v\tsym\tstr\ttimestamp\n" +
+                        "0\t\t\t1970-01-01T00:00:00.003000Z\n" +
+                        "2\tb\ts2\t1970-01-01T00:00:00.004000Z\n");
+            }
+        });
+    }
+
+    @Test
+    public void testSegmentsAreAppliedAfterRestart() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            try (WalWriter walWriter = new WalWriter(configuration, "x", null)) {
+                appendRow(walWriter, 1000, 1, "a", "s1");
+                walWriter.commit();
+                appendRow(walWriter, 2000, 2, "b", "s2");
+                walWriter.commit();
+            }
+
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                Assert.assertTrue(engine.getWalApplyJob().run(0));
+                assertTable("v\tsym\tstr\ttimestamp\n" +
+                        "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n" +
+                        "2\tb\ts2\t1970-01-01T00:00:00.002000Z\n");
+                Assert.assertFalse(segmentExists(0));
+            }
+        });
+    }
+
+    @Test
+    public void testUncommittedRowsAreNotApplied() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                final Job job = engine.getWalApplyJob();
+                try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    appendRow(walWriter, 1000, 1, "a", "s1");
+                    walWriter.commit();
+
+                    appendRow(walWriter, 2000, 2, "b", "s2");
+                    walWriter.rollback();
+
+                    appendRow(walWriter, 3000, 3, "c", "s3");
+                    WalWriter.Row row = walWriter.newRow(4000);
+                    row.putLong(0, 4);
+                    row.cancel();
+                    walWriter.commit();
+
+                    appendRow(walWriter, 5000, 5, "e", "s5");
+                    Assert.assertTrue(job.run(0));
+                }
+                Assert.assertFalse(job.run(0));
+                assertTable("v\tsym\tstr\ttimestamp\n" +
+                        "1\ta\ts1\t1970-01-01T00:00:00.001000Z\n" +
+                        "3\tc\ts3\t1970-01-01T00:00:00.003000Z\n");
+            }
+        });
+    }
+
+    private static void appendRow(WalWriter walWriter, long timestamp, long v, CharSequence sym, CharSequence str) {
+        WalWriter.Row row = walWriter.newRow(timestamp);
+        row.putLong(0, v);
+        if (sym != null) {
+            row.putSym(1, sym);
+        }
+        if (str != null) {
+            row.putStr(2, str);
+        }
+        row.append();
+    }
+
+    private static void createTable() {
+        try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                .col("v", ColumnType.LONG)
+                .col("sym", ColumnType.SYMBOL)
+                .col("str", ColumnType.STRING)
+                .timestamp()) {
+            CairoTestUtils.create(model);
+        }
+    }
+
+    private static boolean applyFileExists() {
+        try (Path path = new Path()) {
+            return Files.exists(path.of(root).concat("x").concat(WalWriter.WAL_DIR_NAME).concat(WalApplyJob.APPLY_FILE_NAME).$());
+        }
+    }
+
+    private static boolean segmentExists(int segmentId) {
+        try (Path path = new Path()) {
+            return Files.exists(path.of(root).concat("x").concat(WalWriter.WAL_DIR_NAME).concat(Integer.toString(segmentId)).$());
+        }
+    }
+
+    private void assertTable(CharSequence expected) {
+        try (TableReader reader = new TableReader(configuration, "x")) {
+            assertThat(expected, reader.getCursor(), reader.getMetadata(), true);
+        }
+    }
+}
@@ -30,6 +30,7 @@ import io.questdb.cairo.pool.ex.EntryUnavailableException;
 import io.questdb.cairo.pool.ex.PoolClosedException;
 import io.questdb.std.Chars;
 import io.questdb.std.FilesFacade;
+import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.str.LPSZ;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
@@ -473,6 +474,46 @@ public class WriterPoolTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testSyncPendingCommits() throws Exception {
+        final long[] now = {0};
+        assertWithPool(pool -> {
+            TableWriter w = pool.get("z");
+            try {
+                w.newRow().append();
+                w.commit(CommitMode.ASYNC);
+                Assert.assertTrue(w.hasPendingSync());
+
+                // busy writers are left to their owners
+                now[0] += 10_000;
+                Assert.assertFalse(pool.syncPendingCommits());
+                Assert.assertTrue(w.hasPendingSync());
+            } finally {
+                w.close();
+            }
+
+            Assert.assertTrue(pool.syncPendingCommits());
+            Assert.assertFalse(w.hasPendingSync());
+            Assert.assertFalse(pool.syncPendingCommits());
+
+            // writer is still available after sync
+            try (TableWriter w2 = pool.get("z")) {
+                Assert.assertSame(w, w2);
+                Assert.assertEquals(1, w2.size());
+            }
+        }, new DefaultCairoConfiguration(root) {
+            @Override
+            public long getGroupCommitLatency() {
+                return 5;
+            }
+
+            @Override
+            public MicrosecondClock getMicrosecondClock() {
+                return () -> now[0];
+            }
+        });
+    }
+
     @Test
     public void testToStringOnWriter() throws Exception {
         assertWithPool(pool -> {
@@ -35,6 +35,7 @@ import io.questdb.cutlass.http.processors.*;
 import io.questdb.griffin.engine.functions.test.TestLatchedCounterFunctionFactory;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Gauge;
 import io.questdb.mp.*;
 import io.questdb.network.*;
 import io.questdb.std.*;
@@ -60,6 +61,7 @@ import static io.questdb.test.tools.TestUtils.assertMemoryLeak;
 
 public class IODispatcherTest {
     private static final Log LOG = LogFactory.getLog(IODispatcherTest.class);
+    private static final Gauge TEST_METRICS = new Gauge("questdb_test_gauge", "Test gauge");
     @Rule
     public TemporaryFolder temp = new TemporaryFolder();
 
@@ -348,6 +350,33 @@ public class IODispatcherTest {
         );
     }
 
+    @Test
+    public void testMetrics() throws Exception {
+        TEST_METRICS.setProvider(() -> 42);
+        testJsonQuery(
+                20,
+                "GET /metrics HTTP/1.1\r\n" +
+                        "Host: localhost:9000\r\n" +
+                        "Connection: keep-alive\r\n" +
+                        "Accept: */*\r\n" +
+                        "\r\n",
+                "HTTP/1.1 200 OK\r\n" +
+                        "Server: questDB/1.0\r\n" +
+                        "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                        "Transfer-Encoding: chunked\r\n" +
+                        "Content-Type: text/plain; version=0.0.4; charset=utf-8\r\n" +
+                        "Keep-Alive: timeout=5, max=10000\r\n" +
+                        "\r\n" +
+                        "5b\r\n" +
+                        "# HELP questdb_test_gauge Test gauge\n" +
+                        "# TYPE questdb_test_gauge gauge\n" +
+                        "questdb_test_gauge 42\n" +
+                        "\r\n" +
+                        "00\r\n" +
+                        "\r\n"
+        );
+    }
+
     @Test
     public void testExistentCheckExistsPlain() throws Exception {
         testJsonQuery(
@@ -5494,6 +5523,18 @@ public class IODispatcherTest {
                     }
                 });
 
+                httpServer.bind(new HttpRequestProcessorFactory() {
+                    @Override
+                    public HttpRequestProcessor newInstance() {
+                        return new PrometheusMetricsProcessor(TEST_METRICS, httpConfiguration.getJsonQueryProcessorConfiguration());
+                    }
+
+                    @Override
+                    public String getUrl() {
+                        return "/metrics";
+                    }
+                });
+
                 workerPool.start(LOG);
 
                 try {
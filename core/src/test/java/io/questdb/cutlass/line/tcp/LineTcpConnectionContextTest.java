@@ -24,6 +24,8 @@
 
 package io.questdb.cutlass.line.tcp;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Random;
@@ -35,9 +37,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import io.questdb.cairo.AbstractCairoTest;
+import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoTestUtils;
 import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.DefaultCairoConfiguration;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableModel;
 import io.questdb.cairo.TableReader;
@@ -64,6 +68,7 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
     private LineTcpMeasurementScheduler scheduler;
     private boolean disconnected;
     private String recvBuffer;
+    private byte[] recvBinary;
     private int nWriterThreads;
     private WorkerPool workerPool;
 
@@ -79,6 +84,14 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
             @Override
             public int recv(long fd, long buffer, int bufferLen) {
                 Assert.assertEquals(FD, fd);
+                if (null != recvBinary) {
+                    int n = Math.min(bufferLen, recvBinary.length);
+                    for (int i = 0; i < n; i++) {
+                        Unsafe.getUnsafe().putByte(buffer + i, recvBinary[i]);
+                    }
+                    recvBinary = Arrays.copyOfRange(recvBinary, n, recvBinary.length);
+                    return n;
+                }
                 if (null == recvBuffer) {
                     return -1;
                 }
@@ -153,6 +166,42 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testAddFieldColumnThroughWal() throws Exception {
+        final CairoConfiguration walConfiguration = new DefaultCairoConfiguration(root) {
+            @Override
+            public boolean isWalEnabled() {
+                return true;
+            }
+        };
+        TestUtils.assertMemoryLeak(() -> {
+            try (CairoEngine engine = new CairoEngine(walConfiguration)) {
+                setupContext(engine, null);
+                try {
+                    recvBuffer = "weather,location=us-midwest temperature=82 1465839830100400200\n" +
+                            "weather,location=us-eastcoast temperature=81,humidity=23 1465839830101400200\n" +
+                            "weather,location=us-midwest temperature=85 1465839830102300200\n";
+                    do {
+                        handleContextIO();
+                        Assert.assertFalse(disconnected);
+                    } while (recvBuffer.length() > 0);
+                    waitForIOCompletion();
+                    closeContext();
+                    Assert.assertTrue(engine.getWalApplyJob().run(0));
+                    String expected = "location\ttemperature\ttimestamp\thumidity\n" +
+                            "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\tNaN\n" +
+                            "us-eastcoast\t81.0\t2016-06-13T17:43:50.101400Z\t23.0\n" +
+                            "us-midwest\t85.0\t2016-06-13T17:43:50.102300Z\tNaN\n";
+                    assertTable(expected, "weather");
+                } finally {
+                    closeContext();
+                    engine.releaseAllWriters();
+                    engine.releaseAllReaders();
+                }
+            }
+        });
+    }
+
     @Test
     public void testAddTagColumn() throws Exception {
         runInContext(() -> {
@@ -210,6 +259,169 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testBinaryFrame() throws Exception {
+        runInContext(() -> {
+            recvBinary = binaryFrames(
+                    weatherFrame(ColumnType.DOUBLE, 1465839830100400L, 1465839830100500L, 1465839830101400L),
+                    weatherFrame(ColumnType.DOUBLE, 1465839830102300L)
+            );
+            handleContextIO();
+            Assert.assertFalse(disconnected);
+            waitForIOCompletion();
+            closeContext();
+            String expected = "location\ttemperature\tcount\ttimestamp\n" +
+                    "us-midwest\t80.5\t0\t2016-06-13T17:43:50.100400Z\n" +
+                    "us-eastcoast\t81.5\t1\t2016-06-13T17:43:50.100500Z\n" +
+                    "\t82.5\t2\t2016-06-13T17:43:50.101400Z\n" +
+                    "us-midwest\t80.5\t0\t2016-06-13T17:43:50.102300Z\n";
+            assertTable(expected, "weather");
+        });
+    }
+
+    @Test
+    public void testBinaryFrameColumnTypeMismatch() throws Exception {
+        addTable("weather");
+        runInContext(() -> {
+            recvBinary = binaryFrames(
+                    weatherFrame(ColumnType.FLOAT, 1465839830100400L),
+                    weatherFrame(ColumnType.DOUBLE, 1465839830100500L)
+            );
+            handleContextIO();
+            Assert.assertFalse(disconnected);
+            waitForIOCompletion();
+            closeContext();
+            String expected = "location\ttemperature\ttimestamp\tcount\n" +
+                    "us-midwest\t80.5\t2016-06-13T17:43:50.100500Z\t0\n";
+            assertTable(expected, "weather");
+        });
+    }
+
+    @Test
+    public void testBinaryFrameFragmentation() throws Exception {
+        runInContext(() -> {
+            long timestamp = 1465839830100400L;
+            int nFrames = 0;
+            int size = binaryFrames(weatherFrame(ColumnType.DOUBLE, 0, 0), weatherFrame(ColumnType.DOUBLE, 0)).length;
+            for (int breakPos = 1; breakPos < size; breakPos += 7, timestamp += 3) {
+                byte[] bytes = binaryFrames(
+                        weatherFrame(ColumnType.DOUBLE, timestamp, timestamp + 1),
+                        weatherFrame(ColumnType.DOUBLE, timestamp + 2)
+                );
+                nFrames++;
+                recvBinary = Arrays.copyOfRange(bytes, 0, breakPos);
+                handleContextIO();
+                Assert.assertFalse(disconnected);
+                recvBinary = Arrays.copyOfRange(bytes, breakPos, bytes.length);
+                while (handleContextIO()) {
+                    // writer queue is full
+                    LockSupport.parkNanos(1_000_000);
+                }
+                Assert.assertFalse(disconnected);
+                // reconnect to negotiate the protocol again
+                context.clear();
+            }
+            waitForIOCompletion();
+            closeContext();
+            try (TableReader reader = new TableReader(configuration, "weather")) {
+                Assert.assertEquals(3 * nFrames, reader.size());
+            }
+        });
+    }
+
+    @Test
+    public void testBinaryFrameLargerThanBuffer() throws Exception {
+        runInContext(() -> {
+            long[] timestamps = new long[64];
+            for (int i = 0; i < timestamps.length; i++) {
+                timestamps[i] = 1465839830100400L + i;
+            }
+            recvBinary = binaryFrames(
+                    weatherFrame(ColumnType.DOUBLE, timestamps),
+                    weatherFrame(ColumnType.DOUBLE, 1465839830102300L)
+            );
+            // frame does not fit message buffer, buffer grows to fit it
+            Assert.assertTrue(recvBinary.length > lineTcpConfiguration.getNetMsgBufferSize());
+            do {
+                handleContextIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBinary.length > 0);
+            waitForIOCompletion();
+            closeContext();
+            try (TableReader reader = new TableReader(configuration, "weather")) {
+                Assert.assertEquals(timestamps.length + 1, reader.size());
+            }
+        });
+    }
+
+    @Test
+    public void testBinaryFrameTooLarge() throws Exception {
+        runInContext(() -> {
+            long[] timestamps = new long[lineTcpConfiguration.getMaxFrameSize() / 24 + 1];
+            for (int i = 0; i < timestamps.length; i++) {
+                timestamps[i] = 1465839830100400L + i;
+            }
+            recvBinary = binaryFrames(
+                    weatherFrame(ColumnType.DOUBLE, 1465839830100300L),
+                    weatherFrame(ColumnType.DOUBLE, timestamps)
+            );
+            // frames before the large one are appended
+            handleContextIO();
+            Assert.assertTrue(disconnected);
+            waitForIOCompletion();
+            closeContext();
+            String expected = "location\ttemperature\tcount\ttimestamp\n" +
+                    "us-midwest\t80.5\t0\t2016-06-13T17:43:50.100300Z\n";
+            assertTable(expected, "weather");
+        });
+    }
+
+    @Test
+    public void testBinaryFrameOutOfOrderRows() throws Exception {
+        // string column sends frame through row by row append
+        try (@SuppressWarnings("resource")
+             TableModel model = new TableModel(configuration, "weather", PartitionBy.NONE)
+                     .col("location", ColumnType.SYMBOL)
+                     .col("temperature", ColumnType.DOUBLE)
+                     .col("count", ColumnType.INT)
+                     .col("note", ColumnType.STRING)
+                     .timestamp()) {
+            CairoTestUtils.create(model);
+        }
+        runInContext(() -> {
+            recvBinary = binaryFrames(
+                    weatherFrame(ColumnType.DOUBLE, 1465839830100400L),
+                    weatherFrame(ColumnType.DOUBLE, 1465839830100500L, 1465839830101400L, 1465839830100450L),
+                    weatherFrame(ColumnType.DOUBLE, 1465839830102300L)
+            );
+            handleContextIO();
+            Assert.assertFalse(disconnected);
+            waitForIOCompletion();
+            closeContext();
+            String expected = "location\ttemperature\tcount\tnote\ttimestamp\n" +
+                    "us-midwest\t80.5\t0\t\t2016-06-13T17:43:50.100400Z\n" +
+                    "us-midwest\t80.5\t0\t\t2016-06-13T17:43:50.102300Z\n";
+            assertTable(expected, "weather");
+        });
+    }
+
+    @Test
+    public void testBinaryFrameInvalid() throws Exception {
+        runInContext(() -> {
+            byte[] bad = weatherFrame(ColumnType.DOUBLE, 1465839830100400L);
+            // unknown column type
+            bad[Integer.BYTES + Short.BYTES + "weather".length() + Short.BYTES] = ColumnType.BINARY;
+            recvBinary = binaryFrames(bad, weatherFrame(ColumnType.DOUBLE, 1465839830100500L));
+            handleContextIO();
+            Assert.assertFalse(disconnected);
+            waitForIOCompletion();
+            closeContext();
+            String expected = "location\ttemperature\tcount\ttimestamp\n" +
+                    "us-midwest\t80.5\t0\t2016-06-13T17:43:50.100500Z\n";
+            assertTable(expected, "weather");
+        });
+    }
+
     @Test
     public void testBadCast() throws Exception {
         addTable("weather");
@@ -774,6 +986,61 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         });
     }
 
+    private static byte[] binaryFrames(byte[]... frames) {
+        int size = Integer.BYTES;
+        for (byte[] frame : frames) {
+            size += frame.length;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(LineTcpBinaryFrame.MAGIC);
+        for (byte[] frame : frames) {
+            buf.put(frame);
+        }
+        return buf.array();
+    }
+
+    private static void putString(ByteBuffer buf, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+    }
+
+    // location symbols cycle through us-midwest, us-eastcoast and null
+    private static byte[] weatherFrame(int temperatureType, long... timestamps) {
+        ByteBuffer buf = ByteBuffer.allocate(1024 + timestamps.length * 24).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(0);
+        putString(buf, "weather");
+        buf.putShort((short) 3);
+        buf.put((byte) ColumnType.SYMBOL);
+        putString(buf, "location");
+        buf.put((byte) temperatureType);
+        putString(buf, "temperature");
+        buf.put((byte) ColumnType.INT);
+        putString(buf, "count");
+        buf.putInt(timestamps.length);
+        for (long timestamp : timestamps) {
+            buf.putLong(timestamp);
+        }
+        buf.putInt(2);
+        putString(buf, "us-midwest");
+        putString(buf, "us-eastcoast");
+        for (int i = 0; i < timestamps.length; i++) {
+            buf.putInt(i % 3 == 2 ? -1 : i % 3);
+        }
+        for (int i = 0; i < timestamps.length; i++) {
+            if (temperatureType == ColumnType.FLOAT) {
+                buf.putFloat(80.5f + i);
+            } else {
+                buf.putDouble(80.5 + i);
+            }
+        }
+        for (int i = 0; i < timestamps.length; i++) {
+            buf.putInt(i);
+        }
+        buf.putInt(0, buf.position() - Integer.BYTES);
+        return Arrays.copyOf(buf.array(), buf.position());
+    }
+
     private void addTable(String tableName) {
         try (@SuppressWarnings("resource")
              TableModel model = new TableModel(configuration, tableName,
@@ -871,6 +1138,7 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         context = new LineTcpConnectionContext(lineTcpConfiguration, scheduler);
         disconnected = false;
         recvBuffer = null;
+        recvBinary = null;
         IODispatcher<LineTcpConnectionContext> dispatcher = new IODispatcher<>() {
             @Override
             public void close() {
@@ -1017,6 +1285,7 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
     private void waitForIOCompletion() {
         int maxIterations = 256;
         recvBuffer = null;
+        recvBinary = null;
         // Guard against slow writers on disconnect
         while (maxIterations-- > 0) {
             if (!handleContextIO()) {
@@ -24,6 +24,8 @@
 
 package io.questdb.griffin;
 
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.std.Rnd;
 import org.junit.Before;
@@ -79,6 +81,33 @@ public class AsOfJoinTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testAsOfJoinSeekMatchesScan() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table quotes as (" +
+                            "select rnd_symbol('AA','BB','CC','DD') sym, rnd_double() bid, timestamp_sequence(0, 60000000) ts" +
+                            " from long_sequence(10000)" +
+                            "), index(sym) timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            // master is sparse, it starts before first quote, ends after last quote and
+            // shares timestamps with some quotes; 'EE' is not in the slave
+            compiler.compile(
+                    "create table trades as (" +
+                            "select rnd_symbol('AA','BB','CC','EE') sym, rnd_double() amt, timestamp_sequence(-600000000, 6000000000) ts" +
+                            " from long_sequence(120)" +
+                            ") timestamp(ts)",
+                    sqlExecutionContext
+            );
+
+            assertSeekJoinMatchesScan("trades asof join quotes on (sym)");
+            assertSeekJoinMatchesScan("trades asof join quotes");
+            assertSeekJoinMatchesScan("trades lt join quotes on (sym)");
+            assertSeekJoinMatchesScan("trades lt join quotes");
+        });
+    }
+
     @Test
     public void testAsofJoinForSelectWithTimestamps() throws Exception {
         final String expected = "tag\thi\tlo\tts\tts1\n" +
@@ -604,5 +633,22 @@ public class AsOfJoinTest extends AbstractGriffinTest {
             printSqlResult(ex, query, null, null, null, false, true, false);
         });
     }
-}
 
+    private static void assertSeekJoinMatchesScan(String query) throws SqlException {
+        final String expected;
+        compiler.setFullSatJoins(true);
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                expected = sink.toString();
+            }
+        } finally {
+            compiler.setFullSatJoins(false);
+        }
+
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            assertCursor(expected, factory, false, true, true, false, sqlExecutionContext);
+        }
+    }
+}
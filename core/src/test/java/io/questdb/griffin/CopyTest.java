@@ -27,8 +27,12 @@ package io.questdb.griffin;
 import io.questdb.cairo.*;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.*;
+import io.questdb.cutlass.text.TextImportJob;
 import io.questdb.griffin.engine.functions.bind.BindVariableService;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
 import io.questdb.std.*;
+import io.questdb.std.str.Path;
 import io.questdb.test.tools.TestUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -36,6 +40,7 @@ import org.junit.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CopyTest extends AbstractCairoTest {
 
@@ -43,8 +48,70 @@ public class CopyTest extends AbstractCairoTest {
     protected static SqlExecutionContext sqlExecutionContext;
 
     private static final LongList rows = new LongList();
+    private static final String UNSORTED_EXPECTED = "ts\tsym\tvalue\n" +
+            "2020-01-01T00:00:00.000000Z\tA\t0\n" +
+            "2020-01-01T00:12:00.000000Z\tA\t24\n" +
+            "2020-01-01T00:24:00.000000Z\tA\t48\n" +
+            "2020-01-01T03:33:00.000000Z\tA\t21\n" +
+            "2020-01-01T03:45:00.000000Z\tA\t45\n" +
+            "2020-01-01T06:06:00.000000Z\tA\t42\n" +
+            "2020-01-01T06:54:00.000000Z\tA\t18\n" +
+            "2020-01-01T09:15:00.000000Z\tA\t15\n" +
+            "2020-01-01T09:27:00.000000Z\tA\t39\n" +
+            "2020-01-01T12:36:00.000000Z\tA\t12\n" +
+            "2020-01-01T12:48:00.000000Z\tA\t36\n" +
+            "2020-01-01T15:09:00.000000Z\tA\t33\n" +
+            "2020-01-01T15:21:00.000000Z\tA\t57\n" +
+            "2020-01-01T15:57:00.000000Z\tA\t9\n" +
+            "2020-01-01T18:18:00.000000Z\tA\t6\n" +
+            "2020-01-01T18:30:00.000000Z\tA\t30\n" +
+            "2020-01-01T18:42:00.000000Z\tA\t54\n" +
+            "2020-01-01T21:03:00.000000Z\tA\t51\n" +
+            "2020-01-01T21:39:00.000000Z\tA\t3\n" +
+            "2020-01-01T21:51:00.000000Z\tA\t27\n" +
+            "2020-01-02T01:31:00.000000Z\tB\t7\n" +
+            "2020-01-02T01:43:00.000000Z\tB\t31\n" +
+            "2020-01-02T01:55:00.000000Z\tB\t55\n" +
+            "2020-01-02T04:04:00.000000Z\tB\t28\n" +
+            "2020-01-02T04:16:00.000000Z\tB\t52\n" +
+            "2020-01-02T04:52:00.000000Z\tB\t4\n" +
+            "2020-01-02T07:13:00.000000Z\tB\t1\n" +
+            "2020-01-02T07:25:00.000000Z\tB\t25\n" +
+            "2020-01-02T07:37:00.000000Z\tB\t49\n" +
+            "2020-01-02T10:46:00.000000Z\tB\t22\n" +
+            "2020-01-02T10:58:00.000000Z\tB\t46\n" +
+            "2020-01-02T13:07:00.000000Z\tB\t19\n" +
+            "2020-01-02T13:19:00.000000Z\tB\t43\n" +
+            "2020-01-02T16:28:00.000000Z\tB\t16\n" +
+            "2020-01-02T16:40:00.000000Z\tB\t40\n" +
+            "2020-01-02T19:01:00.000000Z\tB\t37\n" +
+            "2020-01-02T19:49:00.000000Z\tB\t13\n" +
+            "2020-01-02T22:10:00.000000Z\tB\t10\n" +
+            "2020-01-02T22:22:00.000000Z\tB\t34\n" +
+            "2020-01-02T22:34:00.000000Z\tB\t58\n" +
+            "2020-01-03T02:02:00.000000Z\tC\t14\n" +
+            "2020-01-03T02:14:00.000000Z\tC\t38\n" +
+            "2020-01-03T05:23:00.000000Z\tC\t11\n" +
+            "2020-01-03T05:35:00.000000Z\tC\t35\n" +
+            "2020-01-03T05:47:00.000000Z\tC\t59\n" +
+            "2020-01-03T08:08:00.000000Z\tC\t56\n" +
+            "2020-01-03T08:44:00.000000Z\tC\t8\n" +
+            "2020-01-03T08:56:00.000000Z\tC\t32\n" +
+            "2020-01-03T11:05:00.000000Z\tC\t5\n" +
+            "2020-01-03T11:17:00.000000Z\tC\t29\n" +
+            "2020-01-03T11:29:00.000000Z\tC\t53\n" +
+            "2020-01-03T14:26:00.000000Z\tC\t2\n" +
+            "2020-01-03T14:38:00.000000Z\tC\t26\n" +
+            "2020-01-03T14:50:00.000000Z\tC\t50\n" +
+            "2020-01-03T17:11:00.000000Z\tC\t47\n" +
+            "2020-01-03T17:59:00.000000Z\tC\t23\n" +
+            "2020-01-03T20:20:00.000000Z\tC\t20\n" +
+            "2020-01-03T20:32:00.000000Z\tC\t44\n" +
+            "2020-01-03T23:41:00.000000Z\tC\t17\n" +
+            "2020-01-03T23:53:00.000000Z\tC\t41\n";
     private static CairoEngine engine;
     private static SqlCompiler compiler;
+    private static String workRoot;
 
     public static void assertVariableColumns(RecordCursorFactory factory, boolean checkSameStr) {
         try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
@@ -87,11 +154,29 @@ public class CopyTest extends AbstractCairoTest {
     @BeforeClass
     public static void setUp2() throws IOException {
         final String path = new File(".").getAbsolutePath();
+        workRoot = temp.newFolder("copyWork").getAbsolutePath();
         CairoConfiguration configuration = new DefaultCairoConfiguration(AbstractCairoTest.configuration.getRoot()) {
             @Override
             public CharSequence getInputRoot() {
                 return path;
             }
+
+            @Override
+            public CharSequence getSqlCopyWorkRoot() {
+                return workRoot;
+            }
+
+            @Override
+            public long getSqlCopyChunkSize() {
+                // split test files into many chunks
+                return 64;
+            }
+
+            @Override
+            public long getSqlCopyMapWindowSize() {
+                // map test files in several windows
+                return Files.PAGE_SIZE;
+            }
         };
         TestUtils.copyMimeTypes(path);
         engine = new CairoEngine(configuration);
@@ -431,6 +516,146 @@ public class CopyTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testParallelCopyIntoExistingPartitionedTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (ts timestamp, sym symbol, value int) timestamp(ts) partition by DAY", sqlExecutionContext);
+            insertRow("2019-12-31T12:00:00");
+            compiler.compile("copy x from '/target/test-classes/csv/test-import-unsorted.csv' with header true", sqlExecutionContext);
+            assertQuery(
+                    UNSORTED_EXPECTED.replace("ts\tsym\tvalue\n", "ts\tsym\tvalue\n2019-12-31T12:00:00.000000Z\tX\t-1\n"),
+                    "x",
+                    "ts",
+                    true
+            );
+            Assert.assertFalse(workDirExists());
+        });
+    }
+
+    @Test
+    public void testParallelCopyQuotedLineEnds() throws Exception {
+        assertMemoryLeak(() -> {
+            // chunk boundaries fall inside quoted values, some of which look like records
+            compiler.compile("copy x from '/target/test-classes/csv/test-import-unsorted-quoted.csv' with header true timestamp(ts) partition by DAY", sqlExecutionContext);
+            assertQuery(
+                    "ts\tsym\tnote\n" +
+                            "2020-01-01T01:00:00.000000Z\tA\tmulti\nline\nvalue with a long tail that spans more than sixty four bytes of text\n" +
+                            "2020-01-01T05:00:00.000000Z\tA\the said \"hi\"\nand left, 2020-01-01T00:00:00.000000Z,Z,trap\n" +
+                            "2020-01-01T23:00:00.000000Z\tA\t\n2020-01-03T00:00:00.000000Z,C,looks like record\n" +
+                            "2020-01-02T01:00:00.000000Z\tB\tplain\n" +
+                            "2020-01-02T10:00:00.000000Z\tB\tfirst line\nsecond line\n" +
+                            "2020-01-03T00:00:00.000000Z\tC\tx\n",
+                    "x",
+                    "ts",
+                    true
+            );
+        });
+    }
+
+    @Test
+    public void testParallelCopyRowsOlderThanTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (ts timestamp, sym symbol, value int) timestamp(ts) partition by DAY", sqlExecutionContext);
+            insertRow("2020-01-02T12:00:00");
+            // rows older than the row that is already in the table cannot be appended,
+            // file is rejected as a whole rather than losing these rows
+            try {
+                compiler.compile("copy x from '/target/test-classes/csv/test-import-unsorted.csv' with header true", sqlExecutionContext);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "rows are older than table data");
+            }
+            assertQuery(
+                    "ts\tsym\tvalue\n" +
+                            "2020-01-02T12:00:00.000000Z\tX\t-1\n",
+                    "x",
+                    "ts",
+                    true
+            );
+            Assert.assertFalse(workDirExists());
+        });
+    }
+
+    @Test
+    public void testParallelCopyPartitionByWithoutTimestamp() throws Exception {
+        assertMemoryLeak(() -> assertFailure(
+                "copy x from '/target/test-classes/csv/test-import-unsorted.csv' with header true partition by DAY",
+                null,
+                94,
+                "'timestamp' option expected"
+        ));
+    }
+
+    @Test
+    public void testParallelCopyUnsortedIntoPartitionedTable() throws Exception {
+        assertMemoryLeak(this::assertParallelCopyUnsorted);
+    }
+
+    @Test
+    public void testParallelCopyUnsortedIntoPartitionedTableWithWorker() throws Exception {
+        Sequence seq = engine.getMessageBus().getTextImportSubSequence();
+        // drain tasks other tests might have left behind
+        while (true) {
+            long cursor = seq.next();
+            if (cursor == -1) {
+                break;
+            } else if (cursor > -1) {
+                seq.done(cursor);
+            }
+        }
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final SOCountDownLatch haltLatch = new SOCountDownLatch(1);
+        final TextImportJob job = new TextImportJob(engine.getMessageBus());
+        new Thread(() -> {
+            while (running.get()) {
+                job.run(0);
+            }
+            haltLatch.countDown();
+        }).start();
+
+        try {
+            assertMemoryLeak(this::assertParallelCopyUnsorted);
+        } finally {
+            running.set(false);
+            haltLatch.await();
+        }
+    }
+
+    private static boolean workDirExists() {
+        try (Path path = new Path()) {
+            return Files.exists(path.of(workRoot).concat("x.import").$());
+        }
+    }
+
+    private void insertRow(String timestamp) throws SqlException {
+        final InsertStatement insertStatement = compiler.compile(
+                "insert into x values (to_timestamp('" + timestamp + "', 'yyyy-MM-ddTHH:mm:ss'), 'X', -1)",
+                sqlExecutionContext
+        ).getInsertStatement();
+        try (InsertMethod insertMethod = insertStatement.createMethod(sqlExecutionContext)) {
+            insertMethod.execute();
+            insertMethod.commit();
+        }
+    }
+
+    private void assertParallelCopyUnsorted() throws SqlException {
+        compiler.compile("copy x from '/target/test-classes/csv/test-import-unsorted.csv' with header true timestamp(ts) partition by DAY", sqlExecutionContext);
+
+
+        assertQuery(
+                UNSORTED_EXPECTED,
+                "x",
+                "ts",
+                true
+        );
+
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+            Assert.assertEquals(PartitionBy.DAY, reader.getPartitionedBy());
+            Assert.assertEquals(3, reader.getPartitionCount());
+        }
+    }
+
     @Test
     public void testSimpleCopy() throws Exception {
         assertMemoryLeak(() -> {
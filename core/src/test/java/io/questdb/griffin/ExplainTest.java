@@ -0,0 +1,134 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExplainTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testExplainInterval() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('a','b') s, timestamp_sequence(0, 3600000000) ts from long_sequence(100)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            assertPlan(
+                    "DataFrame\n" +
+                            "    IntervalFwdDataFrame table: x intervals: [1970-01-02T00:00:00.000000Z, 1970-01-02T23:59:59.999999Z]\n" +
+                            "    DataFrameRow\n",
+                    "explain select * from x where ts = '1970-01-02'"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('a','b') s, timestamp_sequence(0, 3600000000) ts from long_sequence(100)) timestamp(ts)", sqlExecutionContext);
+            compiler.compile("create table y as (select rnd_symbol('a','b') s, rnd_double() v from long_sequence(10))", sqlExecutionContext);
+            assertPlan(
+                    "Sorted\n" +
+                            "    Selected\n" +
+                            "        HashJoin\n" +
+                            "            Filtered\n" +
+                            "                DataFrame (estimated rows: 10)\n" +
+                            "                    FullFwdDataFrame table: x\n" +
+                            "                    DataFrameRow\n" +
+                            "            Filtered\n" +
+                            "                DataFrame (estimated rows: 10)\n" +
+                            "                    FullFwdDataFrame table: y\n" +
+                            "                    DataFrameRow\n",
+                    "explain select x.s, y.v from x join y on s where x.s = 'a' order by v"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainAnalyze() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('a','b') s, timestamp_sequence(0, 3600000000) ts from long_sequence(100)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            assertPlan(
+                    "GroupByVector (actual rows: 2 time: ?)\n" +
+                            "    DataFrame (actual rows: 51 frames: 3 time: ?)\n" +
+                            "        IntervalFwdDataFrame table: x intervals: [1970-01-03T00:00:00.000001Z, 294247-01-10T04:00:54.775807Z]\n" +
+                            "        DataFrameRow\n",
+                    "explain analyze select s, count() from x where ts > '1970-01-03T00:00:00.000000Z'"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainKeySymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('a','b') s, timestamp_sequence(0, 3600000000) ts from long_sequence(100)), index(s) timestamp(ts)", sqlExecutionContext);
+            assertPlan(
+                    "DataFrame\n" +
+                            "    FullFwdDataFrame table: x\n" +
+                            "    SymbolIndexRow key: 1\n",
+                    "explain select * from x where s = 'a'"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainNotQuery() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                compiler.compile("explain create table x (a int)", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(8, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "only SELECT queries can be explained");
+            }
+        });
+    }
+
+    private static void assertPlan(String expected, String query) throws SqlException {
+        final StringSink sink = new StringSink();
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals("QUERY PLAN", factory.getMetadata().getColumnName(0));
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                final Record record = cursor.getRecord();
+                while (cursor.hasNext()) {
+                    sink.put(record.getStr(0)).put('\n');
+                }
+            }
+        }
+        // elapsed time varies from run to run
+        TestUtils.assertEquals(expected, sink.toString().replaceAll("time: \\d+ns", "time: ?"));
+    }
+}
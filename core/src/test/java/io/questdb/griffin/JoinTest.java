@@ -32,6 +32,7 @@ import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.std.Chars;
 import io.questdb.std.Misc;
 import io.questdb.std.Rnd;
+import io.questdb.std.Sinkable;
 import io.questdb.std.microtime.TimestampFormatUtils;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
@@ -2626,6 +2627,32 @@ public class JoinTest extends AbstractGriffinTest {
         testFullFat(this::testJoinInnerPostJoinFilter);
     }
 
+    @Test
+    public void testJoinInnerReorderByRowCount() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select cast(case when x % 2 = 0 then 'A' else 'B' end as symbol) s, x id from long_sequence(100))", sqlExecutionContext);
+            compiler.compile("create table y as (select cast(case when x % 2 = 0 then 'A' else 'B' end as symbol) s, x v from long_sequence(1000))", sqlExecutionContext);
+            compiler.compile("create table z as (select x * 10 id, x w from long_sequence(10))", sqlExecutionContext);
+
+            // "y" has two distinct join keys and would multiply "x" rows whereas "z" filters them
+            final String query = "select count() from x join y on (s) join z on (id)";
+            sink.clear();
+            ((Sinkable) compiler.testCompileModel(query, sqlExecutionContext)).toSink(sink);
+            TestUtils.assertEquals(
+                    "select-group-by count() count from (select [s, id] from x join select [id] from z on z.id = x.id join select [s] from y on y.s = x.s)",
+                    sink
+            );
+
+            assertQueryAndCache(
+                    "count\n" +
+                            "5000\n",
+                    query,
+                    null,
+                    true
+            );
+        });
+    }
+
     @Test
     public void testJoinInnerTimestamp() throws Exception {
         assertMemoryLeak(() -> {
@@ -27,8 +27,10 @@ package io.questdb.griffin;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.std.Rnd;
 import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -55,10 +57,10 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
     public void testHourFiltered() throws Exception {
         assertQuery(
                 "hour\tcount\n" +
-                        "0\t36000\n" +
-                        "1\t36000\n" +
-                        "2\t28000\n",
-                "select hour(ts), count() from tab where val < 0.5",
+                        "0\t17902\n" +
+                        "1\t17892\n" +
+                        "2\t14056\n",
+                "select hour(ts), count() from tab where val < 0.5 order by 1",
                 "create table tab as (select timestamp_sequence(0, 100000) ts, rnd_double() val from long_sequence(100000))",
                 null, true, true, true
         );
@@ -865,4 +867,67 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
             }
         });
     }
+
+    @Test
+    public void testIntSymbolFilteredAddValueMidTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select rnd_symbol('s1','s2','s3', null) s1, rnd_int() i, timestamp_sequence(0, 1000000) t from long_sequence(1000000)) timestamp(t) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table tab add column val double", sqlExecutionContext);
+            compiler.compile("insert into tab select rnd_symbol('s1','s2','s3', null), rnd_int(), timestamp_sequence(cast('1970-01-13T00:00:00.000000Z' as timestamp), 1000000), rnd_double(2) from long_sequence(1000000)", sqlExecutionContext);
+
+            assertFilteredVectorAggregate(
+                    "s1, round(sum, 6), count, min, max, round(avg, 6)",
+                    "select s1, sum(val), count(), min(i), max(val), avg(i) from tab where i > 0 and val < 0.9",
+                    "select s1, sum(val + 0) sum, count(), min(i + 0) min, max(val + 0) max, avg(i + 0) avg from tab where i > 0 and val < 0.9"
+            );
+        });
+    }
+
+    @Test
+    public void testIntSymbolFilteredManyPartitions() throws Exception {
+        // more frames than filtered row lists in flight, lists are recycled during the scan
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select rnd_symbol('s1','s2','s3', null) s1, rnd_double(2) val, timestamp_sequence(0, 86400000) t from long_sequence(30000)) timestamp(t) partition by DAY", sqlExecutionContext);
+            assertFilteredVectorAggregate(
+                    "s1, round(sum, 6), count, round(max, 6)",
+                    "select s1, sum(val), count(), max(val) from tab where val > 0.25",
+                    "select s1, sum(val + 0) sum, count(), max(val + 0) max from tab where val > 0.25"
+            );
+        });
+    }
+
+    @Test
+    public void testIntSymbolFilteredTimeRange() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select rnd_symbol('s1','s2','s3', null) s1, rnd_double(2) val, timestamp_sequence(0, 1000000) t from long_sequence(1000000)) timestamp(t) partition by DAY", sqlExecutionContext);
+            assertFilteredVectorAggregate(
+                    "s1, round(sum, 6), round(ksum, 6), count",
+                    "select s1, sum(val), ksum(val), count() from tab where t > '1970-01-04T12:00' and t < '1970-01-07T11:00' and s1 <> 's2' and val > 0.25",
+                    "select s1, sum(val + 0) sum, ksum(val + 0) ksum, count() from tab where t > '1970-01-04T12:00' and t < '1970-01-07T11:00' and s1 <> 's2' and val > 0.25"
+            );
+        });
+    }
+
+    private void assertFilteredVectorAggregate(String projection, String query, String referenceQuery) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof GroupByRecordCursorFactory);
+        }
+
+        // summation order differs between vectorised and row-by-row aggregation, hence the rounding
+        try (RecordCursorFactory factory = compiler.compile("select " + projection + " from (" + referenceQuery + ") order by s1", sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+            }
+        }
+        final String expected = sink.toString();
+
+        try (RecordCursorFactory factory = compiler.compile("select " + projection + " from (" + query + ") order by s1", sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                TestUtils.assertEquals(expected, sink);
+            }
+        }
+    }
 }
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MatViewTest extends AbstractGriffinTest {
+
+    private static final String VIEW_QUERY = "select ts, sym, sum(price) s, count() c from base sample by 1h";
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testBaseTableMustHaveTimestamp() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, count() from base timestamp(ts) sample by 1h)",
+                "create table base (ts timestamp)",
+                55,
+                "base table must have designated timestamp"
+        );
+    }
+
+    @Test
+    public void testFillNotSupported() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sym, sum(price) from base sample by 1h fill(prev))",
+                "create table base (sym symbol, price double, ts timestamp) timestamp(ts)",
+                86,
+                "fill is not supported by materialized view"
+        );
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase();
+            compiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                Assert.assertTrue(job.run(0));
+                assertView();
+                // nothing changed in base table
+                Assert.assertFalse(job.run(0));
+
+                // rows land into the last bucket of the view as well as into new buckets
+                compiler.compile(
+                        "insert into base select rnd_symbol('a','b','c') sym, rnd_double() price, timestamp_sequence(17820000000, 300000000) ts from long_sequence(40)",
+                        sqlExecutionContext
+                );
+                Assert.assertTrue(job.run(0));
+                assertView();
+            }
+        });
+    }
+
+    @Test
+    public void testNotSampleBy() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sym, price from base)",
+                "create table base (sym symbol, price double, ts timestamp) timestamp(ts)",
+                62,
+                "sample by expected"
+        );
+    }
+
+    @Test
+    public void testQueryNotEnclosed() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sum(price) from base sample by 1h",
+                "create table base (sym symbol, price double, ts timestamp) timestamp(ts)",
+                75,
+                "')' expected"
+        );
+    }
+
+    @Test
+    public void testRebuildAfterTruncate() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase();
+            compiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                Assert.assertTrue(job.run(0));
+                assertView();
+
+                compiler.compile("truncate table base", sqlExecutionContext);
+                compiler.compile(
+                        "insert into base select rnd_symbol('a','b','c') sym, rnd_double() price, timestamp_sequence(3600000000, 60000000) ts from long_sequence(90)",
+                        sqlExecutionContext
+                );
+                Assert.assertTrue(job.run(0));
+                assertView();
+            }
+        });
+    }
+
+    @Test
+    public void testRefreshStateSurvivesRestart() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase();
+            compiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                Assert.assertTrue(job.run(0));
+            }
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                // view is up to date
+                Assert.assertFalse(job.run(0));
+            }
+
+            // refresh interrupted after last bucket had been removed
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "v")) {
+                Assert.assertTrue(writer.removeRowsFrom(writer.getMaxTimestamp()));
+            }
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                Assert.assertTrue(job.run(0));
+                assertView();
+                Assert.assertFalse(job.run(0));
+            }
+        });
+    }
+
+    @Test
+    public void testRefreshWaitsForViewReaders() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase();
+            compiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                Assert.assertTrue(job.run(0));
+                assertView();
+
+                compiler.compile(
+                        "insert into base select rnd_symbol('a','b','c') sym, rnd_double() price, timestamp_sequence(17820000000, 300000000) ts from long_sequence(40)",
+                        sqlExecutionContext
+                );
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "v")) {
+                    final long size = reader.size();
+                    // last bucket is removed, but rows reader can still see are not overwritten
+                    Assert.assertFalse(job.run(0));
+                    Assert.assertFalse(job.run(0));
+                    Assert.assertEquals(size, reader.size());
+                }
+                Assert.assertTrue(job.run(0));
+                assertView();
+            }
+        });
+    }
+
+    @Test
+    public void testSingleTable() throws Exception {
+        assertFailure(
+                "create materialized view v as (select a.ts, sum(a.price) from base a join base b on (sym) sample by 1h)",
+                "create table base (sym symbol, price double, ts timestamp) timestamp(ts)",
+                31,
+                "materialized view query must select from single table"
+        );
+    }
+
+    @Test
+    public void testViewDroppedBeforeRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            createBase();
+            compiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                compiler.compile("drop table v", sqlExecutionContext);
+                Assert.assertFalse(job.run(0));
+            }
+        });
+    }
+
+    @Test
+    public void testViewExists() throws Exception {
+        assertFailure(
+                "create materialized view base as (select ts, sum(price) from base sample by 1h)",
+                "create table base (sym symbol, price double, ts timestamp) timestamp(ts)",
+                25,
+                "table already exists"
+        );
+    }
+
+    private static void assertFailure(String query, String ddl, int position, CharSequence message) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(ddl, sqlExecutionContext);
+            try {
+                compiler.compile(query, sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(position, e.getPosition());
+                TestUtils.assertContains(e.getMessage(), message);
+            }
+        });
+    }
+
+    private static void assertView() throws SqlException {
+        final String expected = print(VIEW_QUERY);
+        TestUtils.assertEquals(expected, print("v"));
+    }
+
+    private static void createBase() throws SqlException {
+        compiler.compile(
+                "create table base as (" +
+                        "select rnd_symbol('a','b','c') sym, rnd_double() price, timestamp_sequence(0, 600000000) ts from long_sequence(30)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private static String print(CharSequence query) throws SqlException {
+        try (
+                RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            sink.clear();
+            printer.print(cursor, factory.getMetadata(), true);
+            return sink.toString();
+        }
+    }
+}
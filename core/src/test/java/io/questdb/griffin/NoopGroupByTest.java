@@ -353,7 +353,7 @@ public class NoopGroupByTest extends AbstractGriffinTest {
     public void testNoopGroupByWith1Syms() throws Exception {
         assertQuery(
                 "sym1\tavgBid\n",
-                "select sym1, avg(bid) avgBid from x where sym1 in ('A', 'B' ) group by sym1",
+                "select sym1, avg(bid) avgBid from x where sym1 in ('A', 'B' ) group by sym1 order by sym1",
                 "create table x (\n" +
                         "    sym1 symbol,\n" +
                         "    sym2 symbol,\n" +
@@ -430,7 +430,7 @@ public class NoopGroupByTest extends AbstractGriffinTest {
     public void testNoopGroupByWithAlias() throws Exception {
         assertQuery(
                 "sym1\tavgBid\n",
-                "select sym1, avg(bid) avgBid from x a where sym1 in ('A', 'B' ) group by a.sym1",
+                "select sym1, avg(bid) avgBid from x a where sym1 in ('A', 'B' ) group by a.sym1 order by sym1",
                 "create table x (\n" +
                         "    sym1 symbol,\n" +
                         "    sym2 symbol,\n" +
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.ObjList;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryLogTest extends AbstractGriffinTest {
+
+    @Test
+    public void testQueryLogFunction() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('a','b') s, timestamp_sequence(0, 3600000000) ts from long_sequence(100)) timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            final String query = "select * from x";
+            final QueryLog queryLog = engine.getQueryLog();
+            final QueryProfile profile = sqlExecutionContext.getQueryProfile();
+            queryLog.start(profile, query);
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    long rowCount = 0;
+                    while (cursor.hasNext()) {
+                        rowCount++;
+                    }
+                    profile.setRowsReturned(rowCount);
+                }
+            }
+            queryLog.add(profile);
+            Assert.assertTrue(profile.isComplete());
+            Assert.assertTrue(profile.getTotalNanos() >= profile.getParseNanos() + profile.getOptimiseNanos() + profile.getCodeGenNanos());
+            // CPU accounting is off by default
+            Assert.assertEquals(0, profile.getCpuNanos());
+
+            assertQuery(
+                    "query\trowsScanned\tframesScanned\trowsReturned\tslow\taborted\n" +
+                            "select * from x\t100\t5\t100\tfalse\tfalse\n",
+                    "select query, rowsScanned, framesScanned, rowsReturned, slow, aborted from query_log() where query = 'select * from x'",
+                    null,
+                    true,
+                    sqlExecutionContext,
+                    false,
+                    false
+            );
+        });
+    }
+
+    @Test
+    public void testQueryLogClose() {
+        final QueryLog queryLog = new QueryLog(new DefaultCairoConfiguration(root));
+        final QueryProfile profile = new QueryProfile();
+
+        // completed query is not added again when its cursor is closed
+        queryLog.start(profile, "q0");
+        queryLog.add(profile);
+        queryLog.close(profile);
+
+        // query closed before it completed
+        queryLog.start(profile, "q1");
+        profile.setRowsReturned(3);
+        queryLog.close(profile);
+        Assert.assertFalse(profile.isRunning());
+        queryLog.close(profile);
+
+        final ObjList<QueryProfile> profiles = new ObjList<>();
+        Assert.assertEquals(2, queryLog.copyTo(profiles));
+        TestUtils.assertEquals("q0", profiles.getQuick(0).getQuery());
+        Assert.assertFalse(profiles.getQuick(0).isAborted());
+        TestUtils.assertEquals("q1", profiles.getQuick(1).getQuery());
+        Assert.assertTrue(profiles.getQuick(1).isAborted());
+        Assert.assertEquals(3, profiles.getQuick(1).getRowsReturned());
+    }
+
+    @Test
+    public void testQueryLogCpu() {
+        final QueryLog queryLog = new QueryLog(new DefaultCairoConfiguration(root) {
+            @Override
+            public boolean isSqlQueryLogCpuEnabled() {
+                return true;
+            }
+        });
+        final QueryProfile profile = new QueryProfile();
+        queryLog.start(profile, "q0");
+        profile.startCpu();
+        final long cpuStart = QueryProfile.getThreadCpuNanos();
+        if (cpuStart != -1) {
+            // burn some CPU, thread clock can be coarse
+            while (QueryProfile.getThreadCpuNanos() - cpuStart < 1_000_000) {
+                sink.clear();
+                sink.put(cpuStart);
+            }
+        }
+        profile.stopCpu();
+        queryLog.add(profile);
+        Assert.assertEquals(cpuStart != -1, profile.getCpuNanos() > 0);
+    }
+
+    @Test
+    public void testQueryLogRing() {
+        final QueryLog queryLog = new QueryLog(new DefaultCairoConfiguration(root) {
+            @Override
+            public int getSqlQueryLogCapacity() {
+                return 4;
+            }
+        });
+        final QueryProfile profile = new QueryProfile();
+        for (int i = 0; i < 6; i++) {
+            queryLog.start(profile, "q" + i);
+            profile.setRowsReturned(i);
+            queryLog.add(profile);
+        }
+
+        final ObjList<QueryProfile> profiles = new ObjList<>();
+        Assert.assertEquals(4, queryLog.copyTo(profiles));
+        for (int i = 0; i < 4; i++) {
+            TestUtils.assertEquals("q" + (i + 2), profiles.getQuick(i).getQuery());
+            Assert.assertEquals(i + 2, profiles.getQuick(i).getRowsReturned());
+        }
+    }
+}
@@ -26,10 +26,12 @@ package io.questdb.griffin;
 
 import io.questdb.cairo.*;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.griffin.engine.functions.test.TestMatchFunctionFactory;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.griffin.engine.table.LatestByJob;
 import io.questdb.mp.SOCountDownLatch;
 import io.questdb.mp.Sequence;
 import io.questdb.std.Chars;
@@ -43,6 +45,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.questdb.griffin.CompiledQuery.CREATE_TABLE;
 
@@ -1630,6 +1633,189 @@ public class SqlCodeGeneratorTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testLatestByAllIndexedParallel() throws Exception {
+        Sequence seq = engine.getMessageBus().getLatestBySubSequence();
+        // consume sequence fully and do nothing
+        // this might be needed to make sure we don't consume things other tests publish here
+        while (true) {
+            long cursor = seq.next();
+            if (cursor == -1) {
+                break;
+            } else if (cursor > -1) {
+                seq.done(cursor);
+            }
+        }
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final SOCountDownLatch haltLatch = new SOCountDownLatch(1);
+        final LatestByJob job = new LatestByJob(engine.getMessageBus());
+        new Thread(() -> {
+            while (running.get()) {
+                job.run(0);
+            }
+            haltLatch.countDown();
+        }).start();
+
+        try {
+            assertMemoryLeak(() -> {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 4)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                compiler.compile("create table x as " +
+                        "(" +
+                        "select" +
+                        " rnd_double(0)*100 a," +
+                        " rnd_symbol(300,4,4,1) b," +
+                        " timestamp_sequence(0, 3600000000) k" +
+                        " from" +
+                        " long_sequence(2000)" +
+                        "), index(b) timestamp(k) partition by DAY", sqlExecutionContext);
+                // symbols that stopped ticking long ago, one of them only in the first partition
+                compiler.compile("insert into x select * from (" +
+                        " select rnd_double(0)*100, rnd_symbol('AAA','BBB','CCC'), timestamp_sequence(7200000000000, 1000000) t" +
+                        " from long_sequence(10)" +
+                        ") timestamp (t)", sqlExecutionContext);
+                compiler.compile("insert into x select * from (" +
+                        " select rnd_double(0)*100, rnd_symbol(300,4,4,1), timestamp_sequence(7300000000000, 3600000000) t" +
+                        " from long_sequence(100)" +
+                        ") timestamp (t)", sqlExecutionContext);
+
+                final String expected = select("select * from x latest by b", sqlExecutionContext);
+                Assert.assertTrue(expected.contains("AAA"));
+                TestUtils.assertEquals(expected, select("select * from x latest by b", executionContext));
+            });
+        } finally {
+            running.set(false);
+            haltLatch.await();
+        }
+    }
+
+    @Test
+    public void testLatestByAllIndexedParallelStopsEarly() throws Exception {
+        assertMemoryLeak(() -> {
+            final AtomicInteger indexOpenCount = new AtomicInteger();
+            final FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public long openRO(LPSZ name) {
+                    if (Chars.endsWith(name, "b.k")) {
+                        indexOpenCount.incrementAndGet();
+                    }
+                    return super.openRO(name);
+                }
+            };
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+            };
+
+            try (CairoEngine engine = new CairoEngine(configuration);
+                 SqlCompiler compiler = new SqlCompiler(engine)) {
+                try {
+                    final SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 4)
+                            .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                    compiler.compile("create table x as " +
+                            "(" +
+                            "select" +
+                            " rnd_double(0)*100 a," +
+                            " rnd_symbol(4,4,4,3) b," +
+                            " timestamp_sequence(0, 1728000000) k" +
+                            " from" +
+                            " long_sequence(5000)" +
+                            "), index(b) timestamp(k) partition by DAY", executionContext);
+                    // newest partition has symbol of its own, other symbols are found in the partition before it
+                    compiler.compile("insert into x select * from (" +
+                            " select rnd_double(0)*100, rnd_symbol('ZZZ'), timestamp_sequence(8640000000000, 1000000) t" +
+                            " from long_sequence(10)" +
+                            ") timestamp (t)", executionContext);
+
+                    final SqlExecutionContext singleThreadedContext = new SqlExecutionContextImpl(engine, 1)
+                            .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                    final String expected = select(compiler, "select * from x latest by b", singleThreadedContext);
+                    Assert.assertTrue(expected.contains("ZZZ"));
+
+                    indexOpenCount.set(0);
+                    TestUtils.assertEquals(expected, select(compiler, "select * from x latest by b", executionContext));
+                    // 101 partitions, only the newest few are searched
+                    Assert.assertTrue(indexOpenCount.get() < 10);
+                } finally {
+                    engine.releaseAllWriters();
+                    engine.releaseAllReaders();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testLatestByAllIndexedLatestRowCache() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as " +
+                    "(" +
+                    "select" +
+                    " rnd_double(0)*100 a," +
+                    " rnd_symbol(300,4,4,1) b," +
+                    " timestamp_sequence(0, 3600000000) k" +
+                    " from" +
+                    " long_sequence(2000)" +
+                    "), index(b) timestamp(k) partition by DAY", sqlExecutionContext);
+            // symbols that only tick in partition, which is going to be removed
+            compiler.compile("insert into x select * from (" +
+                    " select rnd_double(0)*100, rnd_symbol('AAA','BBB','CCC'), timestamp_sequence(7300000000000, 1000000) t" +
+                    " from long_sequence(10)" +
+                    ") timestamp (t)", sqlExecutionContext);
+
+            try {
+                compiler.compile("alter table x alter column b add latest", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(39, e.getPosition());
+                TestUtils.assertContains(e.getMessage(), "'cache' expected");
+            }
+
+            compiler.compile("alter table x alter column b add latest cache", sqlExecutionContext);
+            assertLatestRowCache("AAA");
+
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendLatestRow(writer, "NEW1", 7400000000000L);
+                appendLatestRow(writer, "AAA", 7400000000001L);
+                writer.commit();
+                assertLatestRowCache("NEW1");
+
+                // rolled back rows are not cached
+                appendLatestRow(writer, "NEW2", 7400000000002L);
+                appendLatestRow(writer, "NEW1", 7400000000003L);
+                writer.rollback();
+                Assert.assertFalse(assertLatestRowCache("NEW1").contains("NEW2"));
+
+                // BBB and CCC are only in removed partition
+                Assert.assertTrue(writer.removePartition(7257600000000L));
+                Assert.assertFalse(assertLatestRowCache("AAA").contains("BBB"));
+
+                appendLatestRow(writer, "NEW3", 7400000000004L);
+                appendLatestRow(writer, "NEW1", 7400000000005L);
+                writer.commit();
+                Assert.assertTrue(writer.removeRowsFrom(7400000000004L));
+                writer.commit();
+                Assert.assertFalse(assertLatestRowCache("NEW1").contains("NEW3"));
+
+                writer.truncate();
+                appendLatestRow(writer, "NEW4", 7400000000000L);
+                writer.commit();
+                // truncated table is read by new reader
+                engine.releaseAllReaders();
+                Assert.assertFalse(assertLatestRowCache("NEW4").contains("NEW1"));
+            }
+
+            // cache is picked up by writer when table is open again
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendLatestRow(writer, "NEW5", 7500000000000L);
+                writer.commit();
+            }
+            assertLatestRowCache("NEW5");
+        });
+    }
+
     @Test
     public void testLatestByAllIndexedConstantFilter() throws Exception {
         final String expected = "a\tb\tk\n" +
@@ -4516,6 +4702,19 @@ public class SqlCodeGeneratorTest extends AbstractGriffinTest {
         }
     }
 
+    @Test
+    public void testVectorSumDoubleAndIntFiltered() throws Exception {
+        assertQuery("sum\tsum1\tcount\n" +
+                        "14035358\t235056.26777\t391918\n",
+                "select sum(a),round(sum(b),5) sum1, count() from x where b > 0.2 and a % 2 = 0",
+                "create table x as (select rnd_int(0,100,2) a, rnd_double(2) b from long_sequence(1000035L))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
     @Test
     public void testVectorSumDoubleAndIntWithNulls() throws Exception {
         assertQuery("sum\tsum1\n" +
@@ -4641,4 +4840,33 @@ public class SqlCodeGeneratorTest extends AbstractGriffinTest {
         String ddl = "insert into x (ds) values (" + d + ")";
         executeInsert(ddl);
     }
+
+    private static void appendLatestRow(TableWriter writer, CharSequence symbol, long timestamp) {
+        TableWriter.Row row = writer.newRow(timestamp);
+        row.putDouble(0, 1.5);
+        row.putSym(1, symbol);
+        row.append();
+    }
+
+    private static String assertLatestRowCache(CharSequence expectedSymbol) throws SqlException {
+        // interval scan does not use the cache
+        final String expected = select("select * from x latest by b where k > '1960-01-01T00:00:00.000000Z'", sqlExecutionContext);
+        TestUtils.assertContains(expected, expectedSymbol);
+        TestUtils.assertEquals(expected, select("select * from x latest by b", sqlExecutionContext));
+        return expected;
+    }
+
+    private static String select(CharSequence query, SqlExecutionContext executionContext) throws SqlException {
+        return select(compiler, query, executionContext);
+    }
+
+    private static String select(SqlCompiler compiler, CharSequence query, SqlExecutionContext executionContext) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
 }
@@ -31,6 +31,8 @@ import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
 import io.questdb.std.Chars;
 import io.questdb.std.FilesFacade;
 import io.questdb.std.FilesFacadeImpl;
@@ -1740,6 +1742,66 @@ public class SqlCompilerTest extends AbstractGriffinTest {
                 ")  timestamp(k) partition by DAY");
     }
 
+    @Test
+    public void testCreateAsSelectAndInsertAsSelectPageFrames() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table src as (" +
+                    "select rnd_symbol('a', 'b', 'c', null) sym, x i, rnd_double(2) d, timestamp_sequence(0, 36000000000) ts from long_sequence(20)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+            // filtered frames, symbol table of the new table is populated in order of appearance
+            compiler.compile("create table dst as (select * from src where i < 8) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("insert into dst select * from src where i >= 8", sqlExecutionContext);
+
+            final String expected = select("src");
+            TestUtils.assertEquals(expected, select("dst"));
+            TestUtils.assertEquals(select("src where sym = 'c'"), select("dst where sym = 'c'"));
+        });
+    }
+
+    @Test
+    public void testCreateAsSelectPageFramesConvertedOnWorkers() throws Exception {
+        Sequence seq = engine.getMessageBus().getPageFrameCopySubSequence();
+        // drain tasks other tests might have left behind
+        while (true) {
+            long cursor = seq.next();
+            if (cursor == -1) {
+                break;
+            } else if (cursor > -1) {
+                seq.done(cursor);
+            }
+        }
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final SOCountDownLatch haltLatch = new SOCountDownLatch(1);
+        final PageFrameCopyJob job = new PageFrameCopyJob(engine.getMessageBus());
+        new Thread(() -> {
+            while (running.get()) {
+                job.run(0);
+            }
+            haltLatch.countDown();
+        }).start();
+
+        try {
+            assertMemoryLeak(() -> {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 4)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                compiler.compile("create table src as (" +
+                        "select rnd_symbol('a', 'b', null) sym, x i, rnd_short() s, rnd_float() f, timestamp_sequence(0, 10800000000) ts from long_sequence(100)" +
+                        ") timestamp(ts) partition by DAY", sqlExecutionContext);
+                compiler.compile("create table dst as (select * from src where i % 3 <> 0), " +
+                        "cast(i as DOUBLE), cast(s as LONG), cast(f as INT) timestamp(ts) partition by DAY", executionContext);
+
+                TestUtils.assertEquals(
+                        select("select sym, cast(i as DOUBLE) i, cast(s as LONG) s, cast(f as INT) f, ts from src where i % 3 <> 0"),
+                        select("dst")
+                );
+            });
+        } finally {
+            running.set(false);
+            haltLatch.await();
+        }
+    }
+
     @Test
     public void testCreateAsSelectCastSymbol() throws SqlException {
         final String expectedData = "a\n" +
@@ -2275,6 +2337,22 @@ public class SqlCompilerTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testCreateTableTtl() throws SqlException {
+        compiler.compile("create table x (a int, t timestamp) timestamp(t) partition by DAY with ttl = 2d", sqlExecutionContext);
+        compiler.compile("create table y as (select * from x) timestamp(t) partition by MONTH with ttl = 1y, cold_after = 3M", sqlExecutionContext);
+
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+            Assert.assertEquals(48, writer.getTtl());
+            Assert.assertEquals(0, writer.getColdAfter());
+        }
+
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "y")) {
+            Assert.assertEquals(-12, writer.getTtl());
+            Assert.assertEquals(-3, writer.getColdAfter());
+        }
+    }
+
     @Test
     public void testCreateTableUtf8() throws SqlException {
         compiler.compile("create table доходы(экспорт int)", sqlExecutionContext);
@@ -3191,6 +3269,16 @@ public class SqlCompilerTest extends AbstractGriffinTest {
         });
     }
 
+    private static String select(CharSequence query) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+
     private void assertCast(String expectedData, String expectedMeta, String sql) throws SqlException {
         compiler.compile(sql, sqlExecutionContext);
         try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "y", TableUtils.ANY_TABLE_VERSION)) {
@@ -766,6 +766,32 @@ public class SqlParserTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testCreateTableColdAfter() throws SqlException {
+        assertCreateTable(
+                "create table x (a INT, t TIMESTAMP) timestamp(t) partition by DAY with cold_after = 3d",
+                "create table x (a int, t timestamp) timestamp(t) partition by DAY with cold_after = 3d"
+        );
+    }
+
+    @Test
+    public void testCreateTableColdAfterInvalidValue() throws Exception {
+        assertSyntaxError(
+                "create table x (a int, t timestamp) timestamp(t) partition by DAY with cold_after = 0d",
+                84,
+                "cold_after must be positive"
+        );
+    }
+
+    @Test
+    public void testCreateTableColdAfterNotPartitioned() throws Exception {
+        assertSyntaxError(
+                "create table x (a int, t timestamp) timestamp(t) with cold_after = 1d",
+                67,
+                "cold_after requires partitioned table"
+        );
+    }
+
     @Test
     public void testCreateTableDuplicateCast() throws Exception {
         assertSyntaxError(
@@ -1432,6 +1458,74 @@ public class SqlParserTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testCreateTableTtl() throws SqlException {
+        assertCreateTable(
+                "create table x (a INT, t TIMESTAMP) timestamp(t) partition by DAY with ttl = 30d",
+                "create table x (a int, t timestamp) timestamp(t) partition by DAY with ttl = 30d"
+        );
+    }
+
+    @Test
+    public void testCreateTableTtlAndColdAfter() throws SqlException {
+        assertCreateTable(
+                "create table x (a INT, t TIMESTAMP) timestamp(t) partition by DAY with ttl = 30d, cold_after = 1w",
+                "create table x (a int, t timestamp) timestamp(t) partition by DAY with ttl = 30d, cold_after = 168h"
+        );
+    }
+
+    @Test
+    public void testCreateTableTtlHours() throws SqlException {
+        assertCreateTable(
+                "create table x (a INT, t TIMESTAMP) timestamp(t) partition by DAY with ttl = 36h",
+                "create table x (a int, t timestamp) timestamp(t) partition by DAY with ttl = 36h"
+        );
+    }
+
+    @Test
+    public void testCreateTableTtlInvalidUnit() throws Exception {
+        assertSyntaxError(
+                "create table x (a int, t timestamp) timestamp(t) partition by DAY with ttl = 30s",
+                77,
+                "invalid ttl unit"
+        );
+    }
+
+    @Test
+    public void testCreateTableTtlInvalidValue() throws Exception {
+        assertSyntaxError(
+                "create table x (a int, t timestamp) timestamp(t) partition by DAY with ttl = 0d",
+                77,
+                "ttl must be positive"
+        );
+    }
+
+    @Test
+    public void testCreateTableTtlMissingKeyword() throws Exception {
+        assertSyntaxError(
+                "create table x (a int, t timestamp) timestamp(t) partition by DAY with maxUncommittedRows = 10",
+                71,
+                "'ttl' or 'cold_after' expected"
+        );
+    }
+
+    @Test
+    public void testCreateTableTtlNotPartitioned() throws Exception {
+        assertSyntaxError(
+                "create table x (a int, t timestamp) timestamp(t) with ttl = 1d",
+                60,
+                "ttl requires partitioned table"
+        );
+    }
+
+    @Test
+    public void testCreateTableTtlYears() throws SqlException {
+        assertCreateTable(
+                "create table x (a INT, t TIMESTAMP) timestamp(t) partition by MONTH with ttl = 2y",
+                "create table x (a int, t timestamp) timestamp(t) partition by MONTH with ttl = 24M"
+        );
+    }
+
     @Test
     public void testCreateTableUnexpectedToken() throws Exception {
         assertSyntaxError(
@@ -2764,6 +2858,36 @@ public class SqlParserTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testJoinTransitiveRangeFilter() throws SqlException {
+        assertQuery(
+                "select-choose a.price price, a.timestamp timestamp, b.bid bid, b.timestamp timestamp1 from (select [price, timestamp] from trades a timestamp (timestamp) join (select [bid, timestamp] from quotes b timestamp (timestamp) where timestamp > '2020-06-10' and timestamp in '2020-06') b on b.timestamp = a.timestamp where timestamp in '2020-06' and price > 10 and timestamp > '2020-06-10')",
+                "trades a join quotes b on a.timestamp = b.timestamp where a.timestamp in '2020-06' and b.timestamp > '2020-06-10' and a.price > 10",
+                modelOf("trades").col("price", ColumnType.DOUBLE).timestamp(),
+                modelOf("quotes").col("bid", ColumnType.DOUBLE).timestamp()
+        );
+    }
+
+    @Test
+    public void testJoinTransitiveRangeFilterList() throws SqlException {
+        assertQuery(
+                "select-choose a.sym sym, a.price price, a.timestamp timestamp, b.sym sym1, b.bid bid, b.timestamp timestamp1 from (select [sym, price, timestamp] from trades a timestamp (timestamp) join (select [sym, bid, timestamp] from quotes b timestamp (timestamp) where 10 < sym and sym in ('A','B')) b on b.sym = a.sym where sym in ('A','B') and 10 < sym)",
+                "trades a join quotes b on (sym) where a.sym in ('A', 'B') and 10 < b.sym",
+                modelOf("trades").col("sym", ColumnType.SYMBOL).col("price", ColumnType.DOUBLE).timestamp(),
+                modelOf("quotes").col("sym", ColumnType.SYMBOL).col("bid", ColumnType.DOUBLE).timestamp()
+        );
+    }
+
+    @Test
+    public void testJoinTransitiveRangeFilterOuterJoin() throws SqlException {
+        assertQuery(
+                "select-choose a.price price, a.timestamp timestamp, b.bid bid, b.timestamp timestamp1 from (select [price, timestamp] from trades a timestamp (timestamp) outer join select [bid, timestamp] from quotes b timestamp (timestamp) on b.timestamp = a.timestamp post-join-where b.timestamp < '2020-06-10' where timestamp in '2020-06')",
+                "trades a outer join quotes b on a.timestamp = b.timestamp where a.timestamp in '2020-06' and b.timestamp < '2020-06-10'",
+                modelOf("trades").col("price", ColumnType.DOUBLE).timestamp(),
+                modelOf("quotes").col("bid", ColumnType.DOUBLE).timestamp()
+        );
+    }
+
     @Test
     public void testJoinTriangle() throws Exception {
         assertQuery(
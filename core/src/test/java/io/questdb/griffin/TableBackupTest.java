@@ -43,15 +43,18 @@ import org.junit.*;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 
 public class TableBackupTest {
     private static final StringSink sink = new StringSink();
     private static final RecordCursorPrinter printer = new RecordCursorPrinter(sink);
     private static final int ERRNO_EIO = 5;
+    private static final int ERRNO_EXDEV = 18;
     @Rule
     public TemporaryFolder temp = new TemporaryFolder();
 
     private CharSequence backupRoot;
+    private CharSequence coldRoot;
     private Path finalBackupPath;
 
     private CairoConfiguration mainConfiguration;
@@ -61,14 +64,17 @@ public class TableBackupTest {
     private int renameErrno;
     private int mkdirsErrno;
     private int mkdirsErrnoCountDown = 0;
+    private boolean hardLinkFails;
 
     @Before
     public void setup() throws IOException {
         finalBackupPath = new Path();
         CharSequence root = temp.newFolder("dbRoot").getAbsolutePath();
         backupRoot = temp.newFolder("dbBackupRoot").getAbsolutePath();
+        coldRoot = temp.newFolder("dbColdRoot").getAbsolutePath();
         mkdirsErrno = -1;
         renameErrno = -1;
+        hardLinkFails = false;
         FilesFacade ff = new FilesFacadeImpl() {
             private int nextErrno = -1;
 
@@ -82,6 +88,15 @@ public class TableBackupTest {
                 return super.errno();
             }
 
+            @Override
+            public int hardLink(LPSZ src, LPSZ hardLink) {
+                if (hardLinkFails) {
+                    nextErrno = ERRNO_EXDEV;
+                    return -1;
+                }
+                return super.hardLink(src, hardLink);
+            }
+
             @Override
             public int mkdirs(LPSZ path, int mode) {
                 if (mkdirsErrno != -1 && --mkdirsErrnoCountDown < 1) {
@@ -114,6 +129,11 @@ public class TableBackupTest {
                 return backupRoot;
             }
 
+            @Override
+            public CharSequence getColdRoot() {
+                return coldRoot;
+            }
+
             @Override
             public TimestampFormat getBackupDirTimestampFormat() {
                 return new DateFormatCompiler().compile("ddMMMyyyy");
@@ -195,6 +215,30 @@ public class TableBackupTest {
         });
     }
 
+    @Test
+    public void testColdPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = "testTable3";
+            // @formatter:off
+            mainCompiler.compile("create table " + tableName + " as (select" +
+                    " rnd_symbol(4,4,4,2) sym," +
+                    " rnd_double(2) d," +
+                    " timestamp_sequence(0, 1000000000) ts" +
+                    " from long_sequence(1000)) timestamp(ts) partition by DAY with cold_after = 2d", mainSqlExecutionContext);
+            // @formatter:on
+            Assert.assertTrue(mainEngine.getPartitionExpiryJob().run(0));
+            try (Path path = new Path()) {
+                Assert.assertTrue(Files.exists(path.of(coldRoot).concat(tableName).concat("1970-01-01").$()));
+            }
+
+            mainCompiler.compile("backup table " + tableName, mainSqlExecutionContext);
+            setFinalBackupPath();
+            String sourceSelectAll = selectAll(tableName, false);
+            String backupSelectAll = selectAll(tableName, true);
+            Assert.assertEquals(sourceSelectAll, backupSelectAll);
+        });
+    }
+
     @Test
     public void testCompromisedTableName() throws Exception {
         assertMemoryLeak(() -> {
@@ -237,6 +281,119 @@ public class TableBackupTest {
         });
     }
 
+    @Test
+    public void testIncrementalBackup() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = "testTable1";
+            // @formatter:off
+            mainCompiler.compile("create table " + tableName + " as (select" +
+                    " rnd_symbol(4,4,4,2) sym," +
+                    " rnd_double(2) d," +
+                    " timestamp_sequence(0, 3600000000) ts" +
+                    " from long_sequence(100)), index(sym) timestamp(ts) partition by DAY", mainSqlExecutionContext);
+            // @formatter:on
+
+            mainCompiler.compile("backup table " + tableName + " incremental", mainSqlExecutionContext);
+            setFinalBackupPath();
+            String sourceSelectAll = selectAll(tableName, false);
+            String backupSelectAll1 = selectAll(tableName, true);
+            Assert.assertEquals(sourceSelectAll, backupSelectAll1);
+            // there was nothing to link to
+            Assert.assertEquals(1, getLinkCount(tableName, "1970-01-01", "d.d"));
+
+            // @formatter:off
+            mainCompiler.compile("insert into " + tableName +
+                    " select * from (" +
+                    " select rnd_symbol(8,4,4,2) sym, rnd_double(2) d, timestamp_sequence(360000000000, 3600000000) ts from long_sequence(50)" +
+                    ") timestamp(ts)", mainSqlExecutionContext);
+            // @formatter:on
+
+            mainCompiler.compile("backup table " + tableName + " incremental;", mainSqlExecutionContext);
+            setFinalBackupPath(1);
+            sourceSelectAll = selectAll(tableName, false);
+            Assert.assertEquals(sourceSelectAll, selectAll(tableName, true));
+            // partitions sealed at the time of previous backup are shared with it
+            Assert.assertEquals(2, getLinkCount(tableName, "1970-01-01", "d.d"));
+            Assert.assertEquals(2, getLinkCount(tableName, "1970-01-04", "sym.k"));
+            // partition, that was active during previous backup, is copied
+            Assert.assertEquals(1, getLinkCount(tableName, "1970-01-05", "d.d"));
+
+            // previous backup is unaffected
+            setFinalBackupPath();
+            Assert.assertEquals(backupSelectAll1, selectAll(tableName, true));
+        });
+    }
+
+    @Test
+    public void testIncrementalBackupAfterTruncate() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = "testTable1";
+            // @formatter:off
+            String sql = "insert into " + tableName + " select * from (select" +
+                    " rnd_symbol(4,4,4,2) sym," +
+                    " rnd_double(2) d," +
+                    " timestamp_sequence(0, 3600000000) ts" +
+                    " from long_sequence(100)) timestamp(ts)";
+            // @formatter:on
+            mainCompiler.compile("create table " + tableName + " (sym symbol, d double, ts timestamp) timestamp(ts) partition by DAY", mainSqlExecutionContext);
+            mainCompiler.compile(sql, mainSqlExecutionContext);
+            mainCompiler.compile("backup database incremental", mainSqlExecutionContext);
+
+            mainCompiler.compile("truncate table " + tableName, mainSqlExecutionContext);
+            mainCompiler.compile(sql, mainSqlExecutionContext);
+            mainCompiler.compile("backup database incremental", mainSqlExecutionContext);
+
+            setFinalBackupPath(1);
+            Assert.assertEquals(selectAll(tableName, false), selectAll(tableName, true));
+            // partitions of truncated table cannot be trusted
+            Assert.assertEquals(1, getLinkCount(tableName, "1970-01-01", "d.d"));
+        });
+    }
+
+    @Test
+    public void testIncrementalBackupLinkFailure() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = "testTable1";
+            // @formatter:off
+            mainCompiler.compile("create table " + tableName + " as (select" +
+                    " rnd_symbol(4,4,4,2) sym," +
+                    " rnd_double(2) d," +
+                    " timestamp_sequence(0, 3600000000) ts" +
+                    " from long_sequence(100)), index(sym) timestamp(ts) partition by DAY", mainSqlExecutionContext);
+            // @formatter:on
+
+            mainCompiler.compile("backup table " + tableName + " incremental", mainSqlExecutionContext);
+
+            // @formatter:off
+            mainCompiler.compile("insert into " + tableName +
+                    " select * from (" +
+                    " select rnd_symbol(8,4,4,2) sym, rnd_double(2) d, timestamp_sequence(360000000000, 3600000000) ts from long_sequence(50)" +
+                    ") timestamp(ts)", mainSqlExecutionContext);
+            // @formatter:on
+
+            hardLinkFails = true;
+            mainCompiler.compile("backup table " + tableName + " incremental", mainSqlExecutionContext);
+            setFinalBackupPath(1);
+            Assert.assertEquals(selectAll(tableName, false), selectAll(tableName, true));
+            // sealed partitions are copied when they cannot be linked
+            Assert.assertEquals(1, getLinkCount(tableName, "1970-01-01", "d.d"));
+            Assert.assertEquals(1, getLinkCount(tableName, "1970-01-04", "sym.k"));
+        });
+    }
+
+    @Test
+    public void testInvalidIncrementalSql() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                mainCompiler.compile("backup database full", mainSqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException ex) {
+                Assert.assertEquals(16, ex.getPosition());
+                TestUtils.assertEquals("'incremental' expected", ex.getFlyweightMessage());
+            }
+        });
+    }
+
     @Test
     public void testInvalidSql1() throws Exception {
         assertMemoryLeak(() -> {
@@ -484,6 +641,10 @@ public class TableBackupTest {
         });
     }
 
+    private int getLinkCount(String tableName, String partitionName, String fileName) throws IOException {
+        return (Integer) java.nio.file.Files.getAttribute(Paths.get(finalBackupPath.toString(), tableName, partitionName, fileName), "unix:nlink");
+    }
+
     private String selectAll(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext, String tableName) throws Exception {
         CompiledQuery compiledQuery = compiler.compile("select * from " + tableName, sqlExecutionContext);
         try (RecordCursorFactory factory = compiledQuery.getRecordCursorFactory(); RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
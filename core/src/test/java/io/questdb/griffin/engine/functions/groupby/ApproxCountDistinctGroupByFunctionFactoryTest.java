@@ -0,0 +1,165 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApproxCountDistinctGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testAccuracy() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select x l, cast(x as string) s from long_sequence(1000000))", sqlExecutionContext);
+            // standard error is about 2.3%, allow for three of them
+            assertEstimate("select approx_count_distinct(l) from tab", 1_000_000, 0.07);
+            assertEstimate("select approx_count_distinct(s) from tab", 1_000_000, 0.07);
+        });
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertQuery(
+                "approx_count_distinct\n" +
+                        "NaN\n",
+                "select approx_count_distinct(l) from tab",
+                "create table tab as (select rnd_long(1, 1000, 0) l from long_sequence(100) where 1 = 0)",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testInt() throws Exception {
+        assertQuery(
+                "approx_count_distinct\n" +
+                        "1006\n",
+                "select approx_count_distinct(i) from tab",
+                "create table tab as (select rnd_int(1, 1000, 2) i from long_sequence(100000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testKeyed() throws Exception {
+        assertQuery(
+                "k\tapprox_count_distinct\n" +
+                        "a\t500\n" +
+                        "b\t500\n" +
+                        "c\t500\n",
+                "select k, approx_count_distinct(l) from tab order by k",
+                "create table tab as (select rnd_symbol('a', 'b', 'c') k, rnd_long(1, 500, 2) l from long_sequence(100000))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testLong() throws Exception {
+        assertQuery(
+                "approx_count_distinct\n" +
+                        "1006\n",
+                "select approx_count_distinct(l) from tab",
+                "create table tab as (select rnd_long(1, 1000, 2) l from long_sequence(100000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSampleBy() throws Exception {
+        assertQuery(
+                "k\tapprox_count_distinct\n" +
+                        "1970-01-01T00:00:00.000000Z\t49\n" +
+                        "1970-01-02T00:00:00.000000Z\t49\n" +
+                        "1970-01-03T00:00:00.000000Z\t49\n",
+                "select k, approx_count_distinct(s) from tab sample by 1d fill(prev)",
+                "create table tab as (select timestamp_sequence(0, 360000000) k, rnd_str(50, 4, 4, 0) s from long_sequence(700)) timestamp(k)",
+                "k",
+                false
+        );
+    }
+
+    @Test
+    public void testSymbol() throws Exception {
+        assertQuery(
+                "approx_count_distinct\n" +
+                        "15\n",
+                "select approx_count_distinct(s) from tab",
+                "create table tab as (select rnd_symbol(15, 4, 4, 2) s from long_sequence(100000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSymbolKeyed() throws Exception {
+        assertQuery(
+                "k\tapprox_count_distinct\n" +
+                        "a\t15\n" +
+                        "b\t15\n" +
+                        "c\t15\n",
+                "select k, approx_count_distinct(s) from tab order by k",
+                "create table tab as (select rnd_symbol('a', 'b', 'c') k, rnd_symbol(15, 4, 4, 2) s from long_sequence(100000))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    private void assertEstimate(String query, long expected, double tolerance) throws Exception {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                final Record record = cursor.getRecord();
+                Assert.assertTrue(cursor.hasNext());
+                Assert.assertEquals(expected, record.getLong(0), expected * tolerance);
+            }
+        }
+    }
+}
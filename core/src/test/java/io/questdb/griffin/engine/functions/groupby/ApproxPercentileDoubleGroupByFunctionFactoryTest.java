@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApproxPercentileDoubleGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testAccuracy() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select rnd_double(0) * 1000 d, rnd_symbol('a', 'b') k from long_sequence(1000000))", sqlExecutionContext);
+            // uniform distribution, tails are where t-digest is the most accurate
+            assertPercentile("select approx_percentile(d, 0.5) from tab", 500, 5);
+            assertPercentile("select approx_percentile(d, 0.99) from tab", 990, 1);
+            assertPercentile("select approx_percentile(d, 0.999) from tab", 999, 0.2);
+            assertPercentile("select approx_percentile(d, 0.0) from tab", 0, 0.01);
+            assertPercentile("select approx_percentile(d, 1.0) from tab", 1000, 0.01);
+            // row-by-row digests stored in map value
+            assertPercentile("select k, approx_percentile(d, 0.99) p from tab order by k", 990, 1);
+        });
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertQuery(
+                "approx_percentile\n" +
+                        "NaN\n",
+                "select approx_percentile(d, 0.5) from tab",
+                "create table tab as (select rnd_double(2) d from long_sequence(100) where 1 = 0)",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testExact() throws Exception {
+        // extremes are tracked exactly and centroids of evenly spaced values are centred on the median
+        assertQuery(
+                "approx_percentile\tapprox_percentile1\tapprox_percentile2\n" +
+                        "1.0\t51.0\t101.0\n",
+                "select approx_percentile(d, 0.0), approx_percentile(d, 0.5), approx_percentile(d, 1.0) from tab",
+                "create table tab as (select cast(x as double) d from long_sequence(101))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testInvalidPercentile() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select rnd_double(2) d from long_sequence(100))", sqlExecutionContext);
+            try {
+                compiler.compile("select approx_percentile(d, 1.5) from tab", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(28, e.getPosition());
+                TestUtils.assertContains(e.getMessage(), "percentile must be between 0 and 1");
+            }
+        });
+    }
+
+    @Test
+    public void testKeyed() throws Exception {
+        assertQuery(
+                "k\tapprox_percentile\n" +
+                        "a\t89.59542252958744\n" +
+                        "b\t89.12805590855093\n" +
+                        "c\t89.58475046202967\n",
+                "select k, approx_percentile(d, 0.9) from tab order by k",
+                "create table tab as (select rnd_symbol('a', 'b', 'c') k, cast(x % 100 as double) d from long_sequence(30000))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSampleBy() throws Exception {
+        assertQuery(
+                "k\tapprox_percentile\n" +
+                        "1970-01-01T00:00:00.000000Z\t54.578965384451834\n" +
+                        "1970-01-02T00:00:00.000000Z\t55.98202403099733\n" +
+                        "1970-01-03T00:00:00.000000Z\t43.55522778088654\n",
+                "select k, approx_percentile(d, 0.5) from tab sample by 1d fill(prev)",
+                "create table tab as (select timestamp_sequence(0, 360000000) k, rnd_double(2) * 100 d from long_sequence(700)) timestamp(k)",
+                "k",
+                false
+        );
+    }
+
+    private void assertPercentile(String query, double expected, double tolerance) throws Exception {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                final Record record = cursor.getRecord();
+                final int column = factory.getMetadata().getColumnCount() - 1;
+                Assert.assertTrue(cursor.hasNext());
+                do {
+                    Assert.assertEquals(expected, record.getDouble(column), tolerance);
+                } while (cursor.hasNext());
+            }
+        }
+    }
+}
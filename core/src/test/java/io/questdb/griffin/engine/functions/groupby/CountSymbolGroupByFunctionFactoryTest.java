@@ -60,6 +60,21 @@ public class CountSymbolGroupByFunctionFactoryTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testGroupKeyedNulls() throws Exception {
+        assertQuery(
+                "a\tcount\n" +
+                        "a\t2\n" +
+                        "b\t2\n",
+                "select a, count(s) from x order by a",
+                "create table x as (select * from (select rnd_symbol('a', 'b') a, rnd_symbol('344', 'xx2', null) s from long_sequence(100)))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
     @Test
     public void testGroupNotKeyed() throws Exception {
         assertQuery(
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CountSymbolVecGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testNulls() throws Exception {
+        assertQuery(
+                "count\n" +
+                        "15\n",
+                "select count(s) from tab",
+                "create table tab as (select rnd_symbol(15, 4, 4, 2) s from long_sequence(100000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertQuery(
+                "count\n" +
+                        "NaN\n",
+                "select count(s) from tab",
+                "create table tab as (select rnd_symbol(15, 4, 4, 2) s from long_sequence(100000) where 1 = 0)",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testFiltered() throws Exception {
+        assertQuery(
+                "count\n" +
+                        "15\n",
+                "select count(s) from tab where i > 500",
+                "create table tab as (select rnd_symbol(15, 4, 4, 2) s, rnd_int(1, 1000, 0) i from long_sequence(100000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+}
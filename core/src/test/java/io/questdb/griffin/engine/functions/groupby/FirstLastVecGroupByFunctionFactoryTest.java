@@ -0,0 +1,106 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FirstLastVecGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select cast(x as int) i, timestamp_sequence(0, 1000000000) ts from long_sequence(100)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table tab add column d double", sqlExecutionContext);
+            compiler.compile("insert into tab select cast(x as int), timestamp_sequence(100000000000, 1000000000), x * 0.5 from long_sequence(10)", sqlExecutionContext);
+
+            try (
+                    RecordCursorFactory factory = compiler.compile("select first(d), last(d) from tab", sqlExecutionContext).getRecordCursorFactory();
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                // first value of "d" is in column top
+                String expected = "first\tlast\n" +
+                        "NaN\t5.0\n";
+
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                TestUtils.assertEquals(expected, sink);
+            }
+        });
+    }
+
+    @Test
+    public void testPartitioned() throws Exception {
+        assertQuery(
+                "first\tlast\tfirst1\tlast1\tfirst2\tlast2\n" +
+                        "1\t100000\t1000000\t100000000000\t1970-01-01T00:00:00.000000Z\t1971-02-21T15:54:00.000000Z\n",
+                "select first(i), last(i), first(l), last(l), first(ts), last(ts) from tab",
+                "create table tab as (select cast(x as int) i, x * 1000000 l, timestamp_sequence(0, 360000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testFiltered() throws Exception {
+        assertQuery(
+                "first\tlast\n" +
+                        "3.0\t99999.0\n",
+                "select first(d), last(d) from tab where i % 3 = 0",
+                "create table tab as (select cast(x as int) i, cast(x as double) d, timestamp_sequence(0, 360000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testNull() throws Exception {
+        assertQuery(
+                "first\tlast\n" +
+                        "NaN\t100\n",
+                "select first(i), last(i) from tab",
+                "create table tab as (select case when x = 1 then cast(null as int) else cast(x as int) end i from long_sequence(100))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+}
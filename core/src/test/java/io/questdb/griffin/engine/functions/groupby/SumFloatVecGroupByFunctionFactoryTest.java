@@ -0,0 +1,84 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SumFloatVecGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testAllNullThenOne() throws Exception {
+        assertQuery(
+                "sum\tmin\n" +
+                        "0.0000\tNaN\n",
+                "select sum(f), min(f) from tab",
+                "create table tab as (select cast(null as float) f from long_sequence(33))",
+                null,
+                "insert into tab select cast(4.5 as float) from long_sequence(1)",
+                "sum\tmin\n" +
+                        "4.5000\t4.5000\n",
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSimple() throws Exception {
+        assertQuery(
+                "sum\tmin\n" +
+                        "500500.0\t1.0000\n",
+                "select sum(f), min(f) from tab",
+                "create table tab as (select cast(x as float) f from long_sequence(1000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSkipNulls() throws Exception {
+        assertQuery(
+                "sum\tmin\n" +
+                        "250000.0\t1.0000\n",
+                "select sum(f), min(f) from tab",
+                "create table tab as (select case when x % 2 = 0 then cast(null as float) else cast(x as float) end f from long_sequence(1000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+}
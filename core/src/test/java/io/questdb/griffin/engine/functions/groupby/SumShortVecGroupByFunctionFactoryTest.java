@@ -0,0 +1,98 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SumShortVecGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testOverflow() throws Exception {
+        assertQuery(
+                "sum\n" +
+                        "-23788\n",
+                "select sum(f) from tab",
+                "create table tab as (select cast(x as short) f from long_sequence(1000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testByte() throws Exception {
+        assertQuery(
+                "sum\tmin\n" +
+                        "-70\t1\n",
+                "select sum(f), min(f) from tab",
+                "create table tab as (select cast(x as byte) f from long_sequence(100))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testAddColumn() throws Exception {
+        assertQuery(
+                "sum\tmin\n" +
+                        "0\t0\n",
+                "select sum(b), min(b) from tab",
+                "create table tab as (select rnd_int() f, cast(null as short) b from long_sequence(33))",
+                null,
+                "insert into tab select rnd_int(), cast(x as short) from long_sequence(10)",
+                "sum\tmin\n" +
+                        "55\t0\n",
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSimple() throws Exception {
+        assertQuery(
+                "sum\tmin\n" +
+                        "500\t-499\n",
+                "select sum(f), min(f) from tab",
+                "create table tab as (select cast(x - 500 as short) f from long_sequence(1000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.metrics;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetricsTest extends AbstractCairoTest {
+
+    @Test
+    public void testEngineMetrics() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.NONE).col("a", ColumnType.INT)) {
+                CairoTestUtils.create(model);
+            }
+
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                final Metrics metrics = engine.getMetrics();
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(1, metrics.getPoolBusy().getValue(Metrics.POOL_WRITER));
+                    Assert.assertEquals(0, metrics.getPoolBusy().getValue(Metrics.POOL_READER));
+
+                    TableWriter.Row row = writer.newRow();
+                    row.putInt(0, 42);
+                    row.append();
+                    writer.commit();
+                    // nothing to commit
+                    writer.commit();
+                }
+                Assert.assertEquals(0, metrics.getPoolBusy().getValue(Metrics.POOL_WRITER));
+                Assert.assertEquals(1, metrics.getCommitLatency().getCount(0));
+                Assert.assertEquals(0, metrics.getQueueDepth().getValue(Metrics.QUEUE_INDEXER));
+                Assert.assertEquals(0, metrics.getConnections().getValue(Metrics.SERVER_HTTP));
+
+                final StringSink sink = new StringSink();
+                metrics.scrapeIntoPrometheus(sink);
+                TestUtils.assertContains(sink, "questdb_commit_latency_seconds_count 1\n");
+                TestUtils.assertContains(sink, "questdb_pool_busy{pool=\"writer\"} 0\n");
+                TestUtils.assertContains(sink, "# TYPE questdb_memory_used_bytes gauge\n");
+            }
+        });
+    }
+
+    @Test
+    public void testGauge() {
+        final Gauge gauge = new Gauge("test_gauge", "Test gauge", "kind", "a", "b");
+        gauge.setProvider(1, () -> 7);
+        final StringSink sink = new StringSink();
+        gauge.scrapeIntoPrometheus(sink);
+        TestUtils.assertEquals(
+                "# HELP test_gauge Test gauge\n" +
+                        "# TYPE test_gauge gauge\n" +
+                        "test_gauge{kind=\"a\"} 0\n" +
+                        "test_gauge{kind=\"b\"} 7\n",
+                sink
+        );
+    }
+
+    @Test
+    public void testHistogram() {
+        final Histogram histogram = new Histogram("test_latency_seconds", "Test latency", new long[]{1_000L, 1_000_000L});
+        histogram.observe(500);
+        histogram.observe(1_000);
+        histogram.observe(2_000);
+        histogram.observe(2_000_000);
+        Assert.assertEquals(4, histogram.getCount(0));
+
+        final StringSink sink = new StringSink();
+        histogram.scrapeIntoPrometheus(sink);
+        TestUtils.assertEquals(
+                "# HELP test_latency_seconds Test latency\n" +
+                        "# TYPE test_latency_seconds histogram\n" +
+                        "test_latency_seconds_bucket{le=\"1.0E-6\"} 2\n" +
+                        "test_latency_seconds_bucket{le=\"0.001\"} 3\n" +
+                        "test_latency_seconds_bucket{le=\"+Inf\"} 4\n" +
+                        "test_latency_seconds_sum 0.0020035\n" +
+                        "test_latency_seconds_count 4\n",
+                sink
+        );
+    }
+
+    @Test
+    public void testHistogramWithLabel() {
+        final Histogram histogram = new Histogram("test_latency_seconds", "Test latency", new long[]{1_000L}, "protocol", "http", "pg_wire");
+        histogram.observe(1, 10);
+        histogram.observe(1, 5_000);
+        Assert.assertEquals(0, histogram.getCount(0));
+        Assert.assertEquals(2, histogram.getCount(1));
+
+        final StringSink sink = new StringSink();
+        histogram.scrapeIntoPrometheus(sink);
+        TestUtils.assertEquals(
+                "# HELP test_latency_seconds Test latency\n" +
+                        "# TYPE test_latency_seconds histogram\n" +
+                        "test_latency_seconds_bucket{protocol=\"http\",le=\"1.0E-6\"} 0\n" +
+                        "test_latency_seconds_bucket{protocol=\"http\",le=\"+Inf\"} 0\n" +
+                        "test_latency_seconds_sum{protocol=\"http\"} 0.0\n" +
+                        "test_latency_seconds_count{protocol=\"http\"} 0\n" +
+                        "test_latency_seconds_bucket{protocol=\"pg_wire\",le=\"1.0E-6\"} 1\n" +
+                        "test_latency_seconds_bucket{protocol=\"pg_wire\",le=\"+Inf\"} 2\n" +
+                        "test_latency_seconds_sum{protocol=\"pg_wire\"} 5.01E-6\n" +
+                        "test_latency_seconds_count{protocol=\"pg_wire\"} 2\n",
+                sink
+        );
+    }
+
+    @Test
+    public void testLabeledCounter() {
+        final LabeledCounter counter = new LabeledCounter("test_rows_total", "Test rows", "table");
+        counter.get("x").add(10);
+        counter.get("y\"z").increment();
+        counter.get("x").add(5);
+
+        final StringSink sink = new StringSink();
+        counter.scrapeIntoPrometheus(sink);
+        TestUtils.assertEquals(
+                "# HELP test_rows_total Test rows\n" +
+                        "# TYPE test_rows_total counter\n" +
+                        "test_rows_total{table=\"x\"} 15\n" +
+                        "test_rows_total{table=\"y\\\"z\"} 1\n",
+                sink
+        );
+    }
+}